@@ -29,6 +29,8 @@ header("Content-Type: text/plain");
 #
 # This script will be invoked from SC via the url:
 # 	 http://host:port/path/scupload.php?filename=remoteFileName&servicename=file-1
+# A range of a parallel upload is written at its offset, the file is not truncated:
+# 	 http://host:port/path/scupload.php?filename=remoteFileName&servicename=file-1&offset=67108864
 #
 # Mail option:
 #  Optionally the script may send a notification mail when a file has been 
@@ -46,12 +48,16 @@ try {
 	$putdata = fopen("php://input","r");
 	$fileName = null;	// no default
 	$service = null;	// no default
+	$offset = null;		// no offset, whole file is uploaded
 	if (isset($_REQUEST['filename'])) {
 		$fileName = $_REQUEST['filename']; 
 	}
 	if (isset($_REQUEST['servicename'])) {
 		$service = $_REQUEST['servicename']; 
 	}
+	if (isset($_REQUEST['offset'])) {
+		$offset = $_REQUEST['offset']; 
+	}
 } catch(Exception $e) {
 	header($_SERVER["SERVER_PROTOCOL"]." 500 Server Error - ".$e->getMessage());
 	echo 'exception: '.$e->getMessage().'<br/>';
@@ -78,11 +84,21 @@ if ($service == "") {
 	echo 'servicename is empty<br/>';
 	exit;
 }
+if ($offset !== null && !ctype_digit($offset)) {
+	header($_SERVER["SERVER_PROTOCOL"]." 400 Bad Request - offset is invalid");
+	echo 'offset is invalid<br/>';
+	exit;
+}
 
 // process the input stream
 try {
-	/* Open file to write */
-	$fp = fopen($fileName,"w");
+	/* Open file to write, a range is written at its offset without truncating the file */
+	if ($offset === null) {
+		$fp = fopen($fileName,"w");
+	} else {
+		$fp = fopen($fileName,"c");
+		fseek($fp, intval($offset));
+	}
 	
 	/* Loop - reading 1 Kb and write it to file */
 	while ($data = fread($putdata,1024)) {
@@ -52,7 +52,7 @@ public final class Constants {
 	public static final int TECH_LEVEL_OPERATION_TIMEOUT_MILLIS = 2000;
 	/** Empty application error code. */
 	public static final int EMPTY_APP_ERROR_CODE = -9999;
-	/** The wait time in a loop waiting for a free connection. */
+	/** The wait time in a loop waiting for a free server. Waiting for a free connection is done by the connection pool. */
 	public static final int WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS = 200;
 	/** Maximum size of a message. Larger data must be broken into parts */
 	public static final int MAX_MESSAGE_SIZE = 7340032; // 7 << 20 = 7MB;
@@ -108,6 +108,8 @@ public final class Constants {
 	public static final int DEFAULT_MAX_IO_THREADS = 30;
 	/** Default value used if no DEFAULT_MAX_ORDERED_IO_THREADS is configured. */
 	public static final int DEFAULT_MAX_ORDERED_IO_THREADS = 30;
+	/** Default value used if no PUBLISH_TIMEOUT_THREADS is configured. */
+	public static final int DEFAULT_PUBLISH_TIMEOUT_THREADS = 5;
 	/** Default value used if no ECHO_TIMEOUT_MULTIPLIER is configured. */
 	public static final double DEFAULT_ECHO_INTERVAL_MULTIPLIER = 1.2;
 	/** Default value used if no interval is passed in the API. */
@@ -118,6 +120,8 @@ public final class Constants {
 	public static final double DEFAULT_OPERATION_TIMEOUT_MULTIPLIER = 0.8;
 	/** Default value used if no timeout for operation is passed in the API. */
 	public static final int DEFAULT_OPERATION_TIMEOUT_SECONDS = 60;
+	/** Default number of asynchronous publications a publish server keeps pending. */
+	public static final int DEFAULT_MAX_PENDING_PUBLICATIONS = 1000;
 	/** Default timeout for creation of a connection to peer. */
 	public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
 	/**
@@ -156,12 +160,42 @@ public final class Constants {
 	public static final int DEFAULT_MIN_CONNECTION_POOL_SIZE = 1;
 	/** The default maximal file sessions. */
 	public static final int DEFAULT_MAX_FILE_SESSIONS = 10;
+	/** The default maximal time a keep alive connection to a web server stays idle, below the keep alive timeout of common web servers. */
+	public static final int DEFAULT_WEB_CLIENT_MAX_IDLE_MILLIS = 4000;
+	/** The default multiplexed flag, concurrent requests share connections if set. */
+	public static final boolean DEFAULT_MULTIPLEXED_FLAG = false;
+	/** The default maximal number of outstanding requests on a multiplexed connection before another connection gets created. */
+	public static final int DEFAULT_MAX_REQUESTS_PER_MULTIPLEXED_CONNECTION = 50;
+	/** The default maximal number of requests waiting for a free connection of a busy connection pool. */
+	public static final int DEFAULT_MAX_WAITING_REQUESTS_PER_CONNECTION_POOL = 1000;
+	/** The default weight of a cascaded SC, share of requests it gets inside a remote node group. */
+	public static final int DEFAULT_CASCADED_SC_WEIGHT = 1;
+	/** The number of failures in sequence after which a cascaded SC gets suspended from its remote node group. */
+	public static final int CASCADED_SC_FAILURES_TO_SUSPEND = 3;
+	/** The time a suspended cascaded SC is skipped by its remote node group before it gets probed again. */
+	public static final int CASCADED_SC_SUSPEND_MILLIS = 10000;
+	/** The tick duration of the timing wheel running all timeouts, defines the precision of timeouts. */
+	public static final int TIMEOUT_WHEEL_TICK_MILLIS = 10;
+	/** The number of ticks per round of the timing wheel running all timeouts. */
+	public static final int TIMEOUT_WHEEL_TICKS_PER_WHEEL = 1024;
 	/** The message compression. */
 	public static final boolean DEFAULT_COMPRESSION_FLAG = true;
 	/** The write PID. */
 	public static final boolean DEFAULT_WRITE_PID_FLAG = false;
 	/** Default message part size. */
 	public static final int DEFAULT_MESSAGE_PART_SIZE = 204800; // 200 << 10 = 200KB
+	/** Default number of large message parts a requester offers to send ahead of their acknowledgements, 1 means stop-and-wait. */
+	public static final int DEFAULT_LARGE_MESSAGE_WINDOW_SIZE = 8;
+	/** Maximum number of large message parts a responder accepts ahead of their acknowledgements. */
+	public static final int MAX_LARGE_MESSAGE_WINDOW_SIZE = 32;
+	/** Default number of ranges of a file transferred in parallel by the file service. */
+	public static final int DEFAULT_FILE_TRANSFER_PARALLELISM = 1;
+	/** Maximum number of ranges of a file transferred in parallel by the file service. */
+	public static final int MAX_FILE_TRANSFER_PARALLELISM = 16;
+	/** Default size of a file range transferred in one file session. */
+	public static final int DEFAULT_FILE_RANGE_SIZE = 64 << 20; // 64MB
+	/** Suffix of the checkpoint file recording the ranges of a file transfer already done. */
+	public static final String FILE_TRANSFER_CHECKPOINT_SUFFIX = ".sccp";
 	/** Default service state. */
 	public static final boolean DEFAULT_SERVICE_ENABLED = true;
 	/** Size of 64KB. */
@@ -230,6 +264,8 @@ public final class Constants {
 	public static final String ROOT_CONNECTION_TIMEOUT_MILLIS = "root.connectionTimeoutMillis";
 	/** The Constant ROOT_SUBSCRIPTION_TIMEOUT_MILLIS. */
 	public static final String ROOT_SUBSCRIPTION_TIMEOUT_MILLIS = "root.subscriptionTimeoutMillis";
+	/** The Constant ROOT_PUBLISH_TIMEOUT_THREADS. */
+	public static final String ROOT_PUBLISH_TIMEOUT_THREADS = "root.publishTimeoutThreads";
 	/** The Constant ROOT_SERVER_ABORT_OTI_MILLIS. */
 	public static final String ROOT_SERVER_ABORT_OTI_MILLIS = "root.serverAbortOTIMillis";
 	/** The Constant ROOT_KEEP_ALIVE_OTI_MILLIS. */
@@ -254,6 +290,8 @@ public final class Constants {
 	public static final String PROPERTY_QUALIFIER_UPLOAD_SCRIPT_NAME = ".uploadScriptName";
 	/** The Constant PROPERTY_QUALIFIER_REMOTE_NODE. */
 	public static final String PROPERTY_QUALIFIER_REMOTE_NODE = ".remoteNode";
+	/** The Constant PROPERTY_QUALIFIER_REMOTE_NODE_GROUP. */
+	public static final String PROPERTY_QUALIFIER_REMOTE_NODE_GROUP = ".remoteNodeGroup";
 	/** The Constant PROPERTY_QUALIFIER_NOI. */
 	public static final String PROPERTY_QUALIFIER_NOI = ".noDataIntervalSeconds";
 	/** The Constant PROPERTY_QUALIFIER_INTERFACES. */
@@ -272,6 +310,10 @@ public final class Constants {
 	public static final String PROPERTY_QALIFIER_MAX_SESSIONS = ".maxSessions";
 	/** The Constant PROPERTY_QUALIFIER_KEEP_ALIVE_INTERVAL_SECONDS. */
 	public static final String PROPERTY_QUALIFIER_KEEP_ALIVE_INTERVAL_SECONDS = ".keepAliveIntervalSeconds";
+	/** The Constant PROPERTY_QUALIFIER_MULTIPLEXED. */
+	public static final String PROPERTY_QUALIFIER_MULTIPLEXED = ".multiplexed";
+	/** The Constant PROPERTY_QUALIFIER_WEIGHT. */
+	public static final String PROPERTY_QUALIFIER_WEIGHT = ".weight";
 	/** The Constant PROPERTY_QUALIFIER_PATH. */
 	public static final String PROPERTY_QUALIFIER_PATH = ".path";
 	/** The Constant PROPERTY_QUALIFIER_LIST_SCRIPT. */
@@ -288,9 +330,19 @@ public final class Constants {
 	public static final int DEFAULT_CACHE_MAX_ELEMENTS_ON_DISK = 1000000;
 	/** The Constant DEFAULT_CACHE_EXPIRATION_CHECK_INTERVAL_SECONDS. */
 	public static final int DEFAULT_CACHE_EXPIRATION_CHECK_INTERVAL_SECONDS = 30;
+	/** The Constant DEFAULT_CACHE_SEGMENT_SIZE_MB, size of a segment file of the persistent cache. */
+	public static final int DEFAULT_CACHE_SEGMENT_SIZE_MB = 64;
+	/** The Constant MAX_CACHE_SEGMENT_SIZE_MB, a segment is mapped by one buffer. */
+	public static final int MAX_CACHE_SEGMENT_SIZE_MB = 1024;
+	/** The Constant DEFAULT_CACHE_MAX_OFF_HEAP_SIZE_MB, size of a cache module of the off heap cache. */
+	public static final int DEFAULT_CACHE_MAX_OFF_HEAP_SIZE_MB = 256;
 	// for internal use in class Cache
+	/** The number of locks guarding cache entries, cacheIds are spread over the locks. Must be a power of two. */
+	public static final int CACHE_LOCK_STRIPES = 64;
 	/** The Constant CACHE_ENABLED. cache property keys */
 	public static final String CACHE_ENABLED = "cache.enabled";
+	/** The Constant CACHE_TYPE. */
+	public static final String CACHE_TYPE = "cache.type";
 	/** The Constant CACHE_DISK_PATH. */
 	public static final String CACHE_DISK_PATH = "cache.diskPath";
 	/** The Constant CACHE_MAX_ELEMENTS_IN_MEMORY. */
@@ -299,10 +351,16 @@ public final class Constants {
 	public static final String CACHE_MAX_ELEMENTS_ON_DISK = "cache.maxElementsOnDisk";
 	/** The Constant CACHE_EXPIRATION_CHECK_INTERVAL_SECONDS. */
 	public static final String CACHE_EXPIRATION_CHECK_INTERVAL_SECONDS = "cache.expirationCheckIntervalSeconds";
+	/** The Constant CACHE_SEGMENT_SIZE_MB. */
+	public static final String CACHE_SEGMENT_SIZE_MB = "cache.segmentSizeMB";
+	/** The Constant CACHE_MAX_OFF_HEAP_SIZE_MB. */
+	public static final String CACHE_MAX_OFF_HEAP_SIZE_MB = "cache.maxOffHeapSizeMB";
 	/** The Constant UPLOAD_FILE_PARAM_NAME. File server upload values */
 	public static final String UPLOAD_FILE_PARAM_NAME = "filename";
 	/** The Constant UPLOAD_SERVICE_PARAM_NAME. */
 	public static final String UPLOAD_SERVICE_PARAM_NAME = "servicename";
+	/** The Constant UPLOAD_OFFSET_PARAM_NAME. */
+	public static final String UPLOAD_OFFSET_PARAM_NAME = "offset";
 	/** The Constant DEFAULT_WEB_XSL_TRANSFORMATION_CACHE_ENABLED. web default values */
 	public static final boolean DEFAULT_WEB_XSL_TRANSFORMATION_CACHE_ENABLED = true;
 	/** The Constant DEFAULT_WEB_COLOR_SCHEME. */
@@ -367,6 +425,12 @@ public final class Constants {
 	public static final String SCMP_FORMAT_OF_DATE_TIME_UTC = "yyyy-MM-dd'T'HH:mm:ss";
 	/** The Constant MAX_HTTP_CONTENT_LENGTH. */
 	public static final int MAX_HTTP_CONTENT_LENGTH = Integer.MAX_VALUE; // 2^31-1 => 2147483647, 2GB
+	/** The Constant MAX_HTTP_CHUNK_SIZE, content up to this size is decoded as a whole, a message part is never split into chunks. */
+	public static final int MAX_HTTP_CHUNK_SIZE = 2 * DEFAULT_MESSAGE_PART_SIZE;
+	/** The Constant MAX_HTTP_INITIAL_LINE_LENGTH. */
+	public static final int MAX_HTTP_INITIAL_LINE_LENGTH = 4096;
+	/** The Constant MAX_HTTP_HEADER_SIZE. */
+	public static final int MAX_HTTP_HEADER_SIZE = 8192;
 	/** The Constant DOT_HEX. */
 	public static final byte DOT_HEX = 0x2E;
 	/** The Constant PERCENT_SIGN. */
@@ -411,6 +475,10 @@ public final class Constants {
 	public static final int MAX_ECHO_TIMEOUT_VALUE = NUMBER_3600;
 	/** The Constant MAX_RECEIVE_PUBLICAION_TIMEOUT_VALUE. */
 	public static final int MAX_RECEIVE_PUBLICAION_TIMEOUT_VALUE = NUMBER_3600;
+	/** The Constant MAX_PUBLICATION_BATCH_SIZE, maximum number of messages delivered by one receive publication reply. */
+	public static final int MAX_PUBLICATION_BATCH_SIZE = NUMBER_1000;
+	/** The Constant MAX_PUBLICATION_BATCH_BYTES, batch must fit into one part of a message. */
+	public static final int MAX_PUBLICATION_BATCH_BYTES = DEFAULT_MESSAGE_PART_SIZE;
 	/** The Constant MAX_KP_TIMEOUT_VALUE. */
 	public static final int MAX_KP_TIMEOUT_VALUE = NUMBER_3600;
 	/** The Constant MAX_CRG_TIMEOUT_VALUE. */
@@ -72,6 +72,8 @@ public class SCClient {
 	private int port;
 	/** The max connections to use in pool which connects to SC. Default = 100. */
 	private int maxConnections;
+	/** The multiplexed flag. Concurrent requests to SC share connections. Default = false. */
+	private boolean multiplexed;
 	/**
 	 * The keep alive interval. Interval in seconds between two subsequent keepAlive requests (KRQ). The keepAlive message is solely used to refresh the firewall timeout on the
 	 * network path. KeepAlive message is only sent on an idle connection. The value = 0 means no keep alive messages will be sent. Default = 60.
@@ -113,6 +115,7 @@ public class SCClient {
 		this.keepAliveTimeoutSeconds = Constants.DEFAULT_KEEP_ALIVE_OTI_SECONDS;
 		this.attached = false;
 		this.maxConnections = Constants.DEFAULT_MAX_CONNECTION_POOL_SIZE;
+		this.multiplexed = Constants.DEFAULT_MULTIPLEXED_FLAG;
 		this.cacheGuardian = null;
 	}
 
@@ -155,6 +158,7 @@ public class SCClient {
 			AppContext.init();
 			RemoteNodeConfiguration remoteNodeConf = new RemoteNodeConfiguration(this.port + "client", this.host, this.port, this.connectionType.getValue(),
 					this.keepAliveIntervalSeconds, 0, this.maxConnections);
+			remoteNodeConf.setMultiplexed(this.multiplexed);
 			this.requester = new SCRequester(remoteNodeConf, this.keepAliveTimeoutSeconds * Constants.SEC_TO_MILLISEC_FACTOR);
 			SCServiceCallback callback = new SCServiceCallback(true);
 			SCMPAttachCall attachCall = new SCMPAttachCall(this.requester);
@@ -843,4 +847,28 @@ public class SCClient {
 	public int getMaxConnections() {
 		return this.maxConnections;
 	}
+
+	/**
+	 * Sets the multiplexed flag. Concurrent requests to the SC share connections and are correlated by request id instead of using a connection per outstanding request. Only
+	 * applies to connection type netty.tcp.<br />
+	 * Setting the attribute only possible if client is not attached yet.
+	 *
+	 * @param multiplexed the new multiplexed flag
+	 * @throws SCServiceException called method after attach
+	 */
+	public void setMultiplexed(boolean multiplexed) throws SCServiceException {
+		if (this.attached == true) {
+			throw new SCServiceException("Can not set property, client is already attached.");
+		}
+		this.multiplexed = multiplexed;
+	}
+
+	/**
+	 * Checks if multiplexed flag is set.
+	 *
+	 * @return true, if is multiplexed
+	 */
+	public boolean isMultiplexed() {
+		return this.multiplexed;
+	}
 }
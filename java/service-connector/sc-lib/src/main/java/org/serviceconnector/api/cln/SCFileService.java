@@ -16,9 +16,12 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.api.cln;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -31,9 +34,11 @@ import org.serviceconnector.call.SCMPFileDownloadCall;
 import org.serviceconnector.call.SCMPFileListCall;
 import org.serviceconnector.call.SCMPFileUploadCall;
 import org.serviceconnector.net.req.SCRequester;
+import org.serviceconnector.scmp.ISCMPPartStreamCallback;
 import org.serviceconnector.scmp.SCMPCompositeReceiver;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.util.FileRegionInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +56,10 @@ public class SCFileService extends SCService {
 	private int echoIntervalSeconds;
 	/** The message part size. */
 	private int partSize;
+	/** The number of file ranges transferred in parallel. */
+	private int parallelism;
+	/** The size of a file range. */
+	private int rangeSize;
 
 	/**
 	 * Instantiates a new SC file service. Should only be used by service connector internal classes. Instantiating SCFileService should be done by the SCClient method
@@ -64,6 +73,8 @@ public class SCFileService extends SCService {
 		super(scClient, serviceName, requester);
 		this.echoIntervalSeconds = Constants.DEFAULT_ECHO_INTERVAL_SECONDS;
 		this.partSize = Constants.DEFAULT_MESSAGE_PART_SIZE;
+		this.parallelism = Constants.DEFAULT_FILE_TRANSFER_PARALLELISM;
+		this.rangeSize = Constants.DEFAULT_FILE_RANGE_SIZE;
 	}
 
 	/**
@@ -108,6 +119,44 @@ public class SCFileService extends SCService {
 		}
 	}
 
+	/**
+	 * Gets the parallelism.
+	 *
+	 * @return the number of file ranges transferred in parallel
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Sets the parallelism. Number of file ranges transferred in parallel by upload and download of a local file, each range uses its own file
+	 * session.
+	 *
+	 * @param parallelism Validation: parallelism >= 1 and <= 16<br />
+	 *        Example: 4
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, Math.min(parallelism, Constants.MAX_FILE_TRANSFER_PARALLELISM));
+	}
+
+	/**
+	 * Gets the range size.
+	 *
+	 * @return the size of the ranges in which a local file is transferred
+	 */
+	public int getRangeSize() {
+		return this.rangeSize;
+	}
+
+	/**
+	 * Sets the range size. A local file is transferred in ranges of this size, the range is the unit of a transfer to be resumed.
+	 *
+	 * @param rangeSize the size of the ranges in which a local file is transferred
+	 */
+	public void setRangeSize(int rangeSize) {
+		this.rangeSize = Math.max(rangeSize, 1);
+	}
+
 	/**
 	 * Upload file with default operation timeout.
 	 *
@@ -132,6 +181,69 @@ public class SCFileService extends SCService {
 	 *         error message received from SC<br />
 	 */
 	public synchronized void uploadFile(int operationTimeoutSeconds, String remoteFileName, InputStream inStream) throws SCServiceException {
+		this.uploadRange(operationTimeoutSeconds, remoteFileName, -1, inStream);
+	}
+
+	/**
+	 * Upload file with default operation timeout. Ranges of the file are uploaded in parallel if parallelism is set, see
+	 * {@link #uploadFile(int, String, File)}.
+	 *
+	 * @param remoteFileName the remote file name to store the file
+	 * @param localFile the local file to upload
+	 * @throws SCServiceException create file session to SC failed<br />
+	 *         upload file to Server failed<br />
+	 *         reading local file failed<br />
+	 *         error message received from SC<br />
+	 */
+	public synchronized void uploadFile(String remoteFileName, File localFile) throws SCServiceException {
+		this.uploadFile(Constants.DEFAULT_OPERATION_TIMEOUT_SECONDS, remoteFileName, localFile);
+	}
+
+	/**
+	 * Upload file. If parallelism is greater than 1 the file is uploaded in ranges, each range in its own file session and up to parallelism
+	 * ranges at the same time. Ranges uploaded are recorded in a checkpoint file next to the local file, an upload failed is resumed with the
+	 * ranges missing by uploading the file again. Parallel upload needs an upload script writing ranges at their offset, see scupload.php. The
+	 * operation timeout applies to each range. Parts of a local file are transferred from the file straight into the socket, not copied
+	 * through the heap.
+	 *
+	 * @param operationTimeoutSeconds the allowed time in seconds to complete the operation
+	 * @param remoteFileName the remote file name to store the file
+	 * @param localFile the local file to upload
+	 * @throws SCServiceException create file session to SC failed<br />
+	 *         upload file to Server failed<br />
+	 *         reading local file failed<br />
+	 *         error message received from SC<br />
+	 */
+	public synchronized void uploadFile(int operationTimeoutSeconds, String remoteFileName, File localFile) throws SCServiceException {
+		if (this.parallelism <= 1) {
+			RandomAccessFile file = null;
+			try {
+				file = new RandomAccessFile(localFile, "r");
+				FileChannel channel = file.getChannel();
+				this.uploadFile(operationTimeoutSeconds, remoteFileName, new FileRegionInputStream(channel, 0, channel.size()));
+			} catch (IOException e) {
+				throw new SCServiceException("Reading local file failed. ", e);
+			} finally {
+				SCFileTransfer.close(file);
+			}
+			return;
+		}
+		new SCFileTransfer(this, operationTimeoutSeconds, remoteFileName, localFile).upload();
+	}
+
+	/**
+	 * Upload a range of a file. The range is written at its offset, the file is not truncated. Used only internally (method visibility).
+	 *
+	 * @param operationTimeoutSeconds the allowed time in seconds to complete the operation
+	 * @param remoteFileName the remote file name to store the file
+	 * @param rangeOffset the range offset, -1 to upload the whole file
+	 * @param inStream stream of the range to upload
+	 * @return true, if SC confirmed to write the range at its offset
+	 * @throws SCServiceException create file session to SC failed<br />
+	 *         upload file to Server failed<br />
+	 *         error message received from SC<br />
+	 */
+	synchronized boolean uploadRange(int operationTimeoutSeconds, String remoteFileName, long rangeOffset, InputStream inStream) throws SCServiceException {
 		// 1. checking preconditions and initialize
 		// create file session
 		this.createFileSession(operationTimeoutSeconds);
@@ -143,6 +255,9 @@ public class SCFileService extends SCService {
 			uploadFileCall.setRequestBody(inStream);
 			uploadFileCall.setRemoteFileName(remoteFileName);
 			uploadFileCall.getRequest().setPartSize(this.partSize);
+			if (rangeOffset >= 0) {
+				uploadFileCall.setRangeOffset(rangeOffset);
+			}
 			try {
 				LOGGER.debug("SCFileService uploadFile begin");
 				uploadFileCall.invoke(callback, operationTimeoutSeconds * Constants.SEC_TO_MILLISEC_FACTOR);
@@ -158,6 +273,7 @@ public class SCFileService extends SCService {
 				ex.setSCErrorText(reply.getHeader(SCMPHeaderAttributeKey.SC_ERROR_TEXT));
 				throw ex;
 			}
+			return reply.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET) != null;
 		} finally {
 			// 4. post process, reply to client
 			// always delete file session
@@ -190,15 +306,72 @@ public class SCFileService extends SCService {
 	 *         error message received from SC<br />
 	 */
 	public synchronized void downloadFile(int operationTimeoutSeconds, String remoteFileName, OutputStream outStream) throws SCServiceException {
+		this.downloadRange(operationTimeoutSeconds, remoteFileName, -1, 0, outStream);
+	}
+
+	/**
+	 * Download file with default operation timeout. Ranges of the file are downloaded in parallel if parallelism is set, see
+	 * {@link #downloadFile(int, String, File)}.
+	 *
+	 * @param remoteFileName the remote name of the file
+	 * @param localFile the local file to store download
+	 * @throws SCServiceException create file session to SC failed<br />
+	 *         download file from Server failed<br />
+	 *         writing local file failed<br />
+	 *         error message received from SC<br />
+	 */
+	public synchronized void downloadFile(String remoteFileName, File localFile) throws SCServiceException {
+		this.downloadFile(Constants.DEFAULT_OPERATION_TIMEOUT_SECONDS, remoteFileName, localFile);
+	}
+
+	/**
+	 * Download file. The file is downloaded in ranges, each range in its own file session and up to parallelism ranges at the same time.
+	 * Ranges downloaded are recorded in a checkpoint file next to the local file, a download failed is resumed with the ranges missing by
+	 * downloading the file again. The whole file is downloaded in one piece if SC or the web server does not support ranges. The operation
+	 * timeout applies to each range.
+	 *
+	 * @param operationTimeoutSeconds the allowed time in seconds to complete the operation
+	 * @param remoteFileName the remote name of the file
+	 * @param localFile the local file to store download
+	 * @throws SCServiceException create file session to SC failed<br />
+	 *         download file from Server failed<br />
+	 *         writing local file failed<br />
+	 *         error message received from SC<br />
+	 */
+	public synchronized void downloadFile(int operationTimeoutSeconds, String remoteFileName, File localFile) throws SCServiceException {
+		new SCFileTransfer(this, operationTimeoutSeconds, remoteFileName, localFile).download();
+	}
+
+	/**
+	 * Download a range of a file. Used only internally (method visibility).
+	 *
+	 * @param operationTimeoutSeconds the allowed time in seconds to complete the operation
+	 * @param remoteFileName the remote name of the file
+	 * @param rangeOffset the range offset, -1 to download the whole file
+	 * @param rangeLength the range length
+	 * @param outStream the out stream to store download
+	 * @return the length of the file, -1 if SC does not support ranges and the whole file has been downloaded
+	 * @throws SCServiceException create file session to SC failed<br />
+	 *         download file from Server failed<br />
+	 *         writing to OutputStream failed<br />
+	 *         error message received from SC<br />
+	 */
+	synchronized long downloadRange(int operationTimeoutSeconds, String remoteFileName, long rangeOffset, int rangeLength, OutputStream outStream)
+			throws SCServiceException {
 		// 1. checking preconditions and initialize
 		// create file session
 		this.createFileSession(operationTimeoutSeconds);
 		this.requester.getSCMPMsgSequenceNr().incrementAndGetMsgSequenceNr();
 		// 2. initialize call & invoke
 		try {
-			SCServiceCallback callback = new SCServiceCallback(true);
+			// parts of the file are written to the out stream as they arrive
+			SCServiceCallback callback = new SCFileDownloadCallback(outStream);
 			SCMPFileDownloadCall downloadFileCall = new SCMPFileDownloadCall(this.requester, this.serviceName, this.sessionId);
 			downloadFileCall.setRemoteFileName(remoteFileName);
+			if (rangeOffset >= 0) {
+				downloadFileCall.setRangeOffset(rangeOffset);
+				downloadFileCall.setRangeLength(rangeLength);
+			}
 			try {
 				downloadFileCall.invoke(callback, operationTimeoutSeconds * Constants.SEC_TO_MILLISEC_FACTOR);
 			} catch (Exception e) {
@@ -213,11 +386,22 @@ public class SCFileService extends SCService {
 				throw ex;
 			}
 			// 4. post process, reply to client
+			long fileLength = -1;
+			String fileLengthValue = reply.getHeader(SCMPHeaderAttributeKey.FILE_LENGTH);
+			if (rangeOffset >= 0 && fileLengthValue != null && reply.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET) != null) {
+				// SC downloaded the range
+				fileLength = Long.parseLong(fileLengthValue);
+			}
 			if (reply.isComposite()) {
-				((SCMPCompositeReceiver) reply).writeBodyAsStream(outStream);
-				return;
+				SCMPCompositeReceiver largeReply = (SCMPCompositeReceiver) reply;
+				if (largeReply.getPartStreamException() != null) {
+					throw largeReply.getPartStreamException();
+				}
+				largeReply.writeBodyAsStream(outStream);
+				return fileLength;
 			}
 			outStream.write((byte[]) reply.getBody());
+			return fileLength;
 		} catch (IOException e) {
 			throw new SCServiceException("Writing to OutputStream failed. ", e);
 		} finally {
@@ -335,4 +519,29 @@ public class SCFileService extends SCService {
 			this.sessionId = null;
 		}
 	}
+
+	/**
+	 * The Class SCFileDownloadCallback. Synchronous callback streaming the parts of a downloaded file to the out stream.
+	 */
+	private static class SCFileDownloadCallback extends SCServiceCallback implements ISCMPPartStreamCallback {
+
+		/** The out stream to store download. */
+		private OutputStream outStream;
+
+		/**
+		 * Instantiates a new SC file download callback.
+		 *
+		 * @param outStream the out stream to store download
+		 */
+		public SCFileDownloadCallback(OutputStream outStream) {
+			super(true);
+			this.outStream = outStream;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public OutputStream getPartStream() {
+			return this.outStream;
+		}
+	}
 }
@@ -0,0 +1,440 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.api.cln;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.serviceconnector.Constants;
+import org.serviceconnector.api.SCServiceException;
+import org.serviceconnector.cmd.SCMPValidatorException;
+import org.serviceconnector.util.FileRegionInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class SCFileTransfer. Transfers a local file in ranges, each range in its own file session. Ranges are transferred in parallel by
+ * several file services of the same client. Ranges done are recorded in a checkpoint file next to the local file, a transfer started again
+ * continues with the ranges missing. The first range is always transferred alone, it finds out if SC supports ranges.
+ */
+class SCFileTransfer {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(SCFileTransfer.class);
+	/** The Constant FILE_LENGTH_KEY. Checkpoint entry of the file length. */
+	private static final String FILE_LENGTH_KEY = "fileLength";
+	/** The Constant RANGE_SIZE_KEY. Checkpoint entry of the range size. */
+	private static final String RANGE_SIZE_KEY = "rangeSize";
+	/** The Constant DONE_RANGES_KEY. Checkpoint entry of the ranges done. */
+	private static final String DONE_RANGES_KEY = "doneRanges";
+
+	/** The file service starting the transfer. */
+	private SCFileService fileService;
+	/** The allowed time in seconds to transfer a range. */
+	private int operationTimeoutSeconds;
+	/** The remote file name. */
+	private String remoteFileName;
+	/** The local file. */
+	private File localFile;
+	/** The checkpoint file. */
+	private File checkpointFile;
+	/** The range size. */
+	private int rangeSize;
+	/** The length of the file, -1 as long as unknown. */
+	private long fileLength;
+	/** The ranges done. */
+	private BitSet doneRanges;
+	/** The file changed flag, the remote file does not match the checkpoint anymore. */
+	private volatile boolean fileChanged;
+
+	/**
+	 * Instantiates a new SC file transfer.
+	 *
+	 * @param fileService the file service
+	 * @param operationTimeoutSeconds the allowed time in seconds to transfer a range
+	 * @param remoteFileName the remote file name
+	 * @param localFile the local file
+	 */
+	public SCFileTransfer(SCFileService fileService, int operationTimeoutSeconds, String remoteFileName, File localFile) {
+		this.fileService = fileService;
+		this.operationTimeoutSeconds = operationTimeoutSeconds;
+		this.remoteFileName = remoteFileName;
+		this.localFile = localFile;
+		this.checkpointFile = new File(localFile.getPath() + Constants.FILE_TRANSFER_CHECKPOINT_SUFFIX);
+		this.rangeSize = fileService.getRangeSize();
+		this.fileLength = -1;
+		this.doneRanges = new BitSet();
+		this.fileChanged = false;
+	}
+
+	/**
+	 * Download the file.
+	 *
+	 * @throws SCServiceException download of a range failed<br />
+	 *         writing local file failed<br />
+	 */
+	public void download() throws SCServiceException {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(this.localFile, "rw");
+			final FileChannel channel = file.getChannel();
+			this.loadCheckpoint(-1);
+			if (this.doneRanges.get(0) == false) {
+				// first range tells the length of the file
+				FileRangeOutputStream out = new FileRangeOutputStream(channel, 0);
+				long length = this.fileService.downloadRange(this.operationTimeoutSeconds, this.remoteFileName, 0, this.rangeSize, out);
+				if (length < 0) {
+					// ranges not supported, whole file has been downloaded
+					channel.truncate(out.getPosition());
+					this.checkpointFile.delete();
+					return;
+				}
+				this.fileLength = length;
+				this.rangeDone(channel, 0);
+			}
+			this.transferRanges(new RangeTransfer() {
+				@Override
+				public void transfer(SCFileService service, long offset, int length) throws SCServiceException {
+					FileRangeOutputStream out = new FileRangeOutputStream(channel, offset);
+					long fileLength = service.downloadRange(SCFileTransfer.this.operationTimeoutSeconds, SCFileTransfer.this.remoteFileName, offset, length, out);
+					if (fileLength != SCFileTransfer.this.fileLength) {
+						// checkpoint is discarded, the transfer started again restarts from the beginning
+						SCFileTransfer.this.fileChanged = true;
+						throw new SCServiceException("Download of range offset=" + offset + " failed, file changed or SC does not support ranges.");
+					}
+					if (out.getPosition() != offset + length) {
+						throw new SCServiceException("Download of range offset=" + offset + " incomplete, file changed or SC does not support ranges.");
+					}
+				}
+			}, channel);
+			channel.truncate(this.fileLength);
+			this.checkpointFile.delete();
+		} catch (IOException e) {
+			throw new SCServiceException("Writing local file failed. ", e);
+		} finally {
+			if (this.fileChanged) {
+				this.checkpointFile.delete();
+			}
+			SCFileTransfer.close(file);
+		}
+	}
+
+	/**
+	 * Upload the file.
+	 *
+	 * @throws SCServiceException upload of a range failed<br />
+	 *         reading local file failed<br />
+	 */
+	public void upload() throws SCServiceException {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(this.localFile, "r");
+			final FileChannel channel = file.getChannel();
+			this.fileLength = channel.size();
+			this.loadCheckpoint(this.fileLength);
+			if (this.doneRanges.get(0) == false) {
+				// first range creates the remote file, tells if SC supports ranges
+				InputStream in = new FileRegionInputStream(channel, 0, this.getRangeLength(0));
+				if (this.fileService.uploadRange(this.operationTimeoutSeconds, this.remoteFileName, 0, in) == false) {
+					// ranges not supported, upload the whole file
+					this.checkpointFile.delete();
+					in = new FileRegionInputStream(channel, 0, this.fileLength);
+					this.fileService.uploadRange(this.operationTimeoutSeconds, this.remoteFileName, -1, in);
+					return;
+				}
+				this.rangeDone(null, 0);
+			}
+			this.transferRanges(new RangeTransfer() {
+				@Override
+				public void transfer(SCFileService service, long offset, int length) throws SCServiceException {
+					InputStream in = new FileRegionInputStream(channel, offset, length);
+					if (service.uploadRange(SCFileTransfer.this.operationTimeoutSeconds, SCFileTransfer.this.remoteFileName, offset, in) == false) {
+						throw new SCServiceException("Upload of range offset=" + offset + " failed, SC does not support ranges.");
+					}
+				}
+			}, null);
+			this.checkpointFile.delete();
+		} catch (IOException e) {
+			throw new SCServiceException("Reading local file failed. ", e);
+		} finally {
+			SCFileTransfer.close(file);
+		}
+	}
+
+	/**
+	 * Transfer the ranges not done yet. Up to parallelism file services take the next range to transfer until all are done or one of them
+	 * fails.
+	 *
+	 * @param rangeTransfer the range transfer
+	 * @param channel the channel of the local file to force before a range is recorded done, null if nothing is written
+	 * @throws SCServiceException transfer of a range failed
+	 * @throws IOException recording a range done failed
+	 */
+	private void transferRanges(final RangeTransfer rangeTransfer, final FileChannel channel) throws SCServiceException, IOException {
+		int rangeCount = (int) ((this.fileLength + this.rangeSize - 1) / this.rangeSize);
+		final Queue<Integer> pendingRanges = new ConcurrentLinkedQueue<Integer>();
+		for (int rangeNr = this.doneRanges.nextClearBit(0); rangeNr < rangeCount; rangeNr = this.doneRanges.nextClearBit(rangeNr + 1)) {
+			pendingRanges.add(rangeNr);
+		}
+		if (pendingRanges.isEmpty()) {
+			return;
+		}
+		int workers = Math.min(this.fileService.getParallelism(), pendingRanges.size());
+		final AtomicBoolean failed = new AtomicBoolean(false);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers);
+		for (int i = 0; i < workers; i++) {
+			final SCFileService service = this.newFileService();
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					try {
+						Integer rangeNr = null;
+						while (failed.get() == false && (rangeNr = pendingRanges.poll()) != null) {
+							long offset = (long) rangeNr * SCFileTransfer.this.rangeSize;
+							rangeTransfer.transfer(service, offset, SCFileTransfer.this.getRangeLength(rangeNr));
+							SCFileTransfer.this.rangeDone(channel, rangeNr);
+						}
+						return null;
+					} catch (Exception e) {
+						failed.set(true);
+						throw e;
+					}
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			Exception firstException = null;
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (firstException == null && e.getCause() instanceof Exception) {
+						firstException = (Exception) e.getCause();
+					}
+				}
+			}
+			if (firstException instanceof SCServiceException) {
+				throw (SCServiceException) firstException;
+			}
+			if (firstException instanceof IOException) {
+				throw (IOException) firstException;
+			}
+			if (firstException != null) {
+				throw new SCServiceException("File transfer failed. ", firstException);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failed.set(true);
+			throw new SCServiceException("File transfer interrupted. ", e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * New file service for a parallel transfer, configured like the one starting the transfer.
+	 *
+	 * @return the SC file service
+	 * @throws SCServiceException creating the file service failed
+	 */
+	private SCFileService newFileService() throws SCServiceException {
+		try {
+			SCFileService service = this.fileService.getSCClient().newFileService(this.fileService.getServiceName());
+			service.setEchoIntervalSeconds(this.fileService.getEchoIntervalSeconds());
+			service.setPartSize(this.fileService.getPartSize());
+			return service;
+		} catch (SCMPValidatorException e) {
+			throw new SCServiceException("Creating file service failed. ", e);
+		}
+	}
+
+	/**
+	 * Gets the length of a range, the last range ends at the end of the file.
+	 *
+	 * @param rangeNr the range number
+	 * @return the range length
+	 */
+	private int getRangeLength(int rangeNr) {
+		return (int) Math.min(this.rangeSize, this.fileLength - (long) rangeNr * this.rangeSize);
+	}
+
+	/**
+	 * Records a range done in the checkpoint. Downloaded data is forced to the local file before.
+	 *
+	 * @param channel the channel of the local file, null if nothing is written
+	 * @param rangeNr the range number
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private synchronized void rangeDone(FileChannel channel, int rangeNr) throws IOException {
+		if (channel != null) {
+			channel.force(false);
+		}
+		this.doneRanges.set(rangeNr);
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty(FILE_LENGTH_KEY, String.valueOf(this.fileLength));
+		checkpoint.setProperty(RANGE_SIZE_KEY, String.valueOf(this.rangeSize));
+		StringBuilder ranges = new StringBuilder();
+		for (int nr = this.doneRanges.nextSetBit(0); nr >= 0; nr = this.doneRanges.nextSetBit(nr + 1)) {
+			if (ranges.length() > 0) {
+				ranges.append(',');
+			}
+			ranges.append(nr);
+		}
+		checkpoint.setProperty(DONE_RANGES_KEY, ranges.toString());
+		OutputStream out = new FileOutputStream(this.checkpointFile);
+		try {
+			checkpoint.store(out, "file transfer of " + this.remoteFileName);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads the checkpoint of an earlier transfer. A checkpoint of a different range size or file length is ignored.
+	 *
+	 * @param expectedFileLength the expected file length, -1 if unknown
+	 */
+	private void loadCheckpoint(long expectedFileLength) {
+		if (this.checkpointFile.exists() == false) {
+			return;
+		}
+		InputStream in = null;
+		try {
+			in = new FileInputStream(this.checkpointFile);
+			Properties checkpoint = new Properties();
+			checkpoint.load(in);
+			long length = Long.parseLong(checkpoint.getProperty(FILE_LENGTH_KEY));
+			int size = Integer.parseInt(checkpoint.getProperty(RANGE_SIZE_KEY));
+			if (size != this.rangeSize || (expectedFileLength >= 0 && length != expectedFileLength)) {
+				LOGGER.info("checkpoint file=" + this.checkpointFile + " does not match transfer, transfer restarts");
+				return;
+			}
+			BitSet ranges = new BitSet();
+			for (String rangeNr : checkpoint.getProperty(DONE_RANGES_KEY, "").split(",")) {
+				if (rangeNr.length() > 0) {
+					ranges.set(Integer.parseInt(rangeNr.trim()));
+				}
+			}
+			this.fileLength = length;
+			this.doneRanges = ranges;
+			LOGGER.debug("transfer of file=" + this.localFile + " resumed, ranges done=" + ranges);
+		} catch (Exception e) {
+			LOGGER.warn("loading checkpoint file=" + this.checkpointFile + " failed, transfer restarts " + e.toString());
+		} finally {
+			SCFileTransfer.close(in);
+		}
+	}
+
+	/**
+	 * Close quietly.
+	 *
+	 * @param closeable the closeable
+	 */
+	static void close(Closeable closeable) {
+		if (closeable == null) {
+			return;
+		}
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			LOGGER.warn("closing failed " + e.toString());
+		}
+	}
+
+	/**
+	 * The Interface RangeTransfer. Transfers one range of the file.
+	 */
+	private interface RangeTransfer {
+
+		/**
+		 * Transfer the range.
+		 *
+		 * @param service the file service to use
+		 * @param offset the range offset
+		 * @param length the range length
+		 * @throws SCServiceException the transfer failed
+		 */
+		public void transfer(SCFileService service, long offset, int length) throws SCServiceException;
+	}
+
+	/**
+	 * The Class FileRangeOutputStream. Writes to the local file starting at an offset, positional writes of several streams do not interfere.
+	 */
+	private static class FileRangeOutputStream extends OutputStream {
+
+		/** The channel. */
+		private FileChannel channel;
+		/** The position to write next. */
+		private long position;
+
+		/**
+		 * Instantiates a new file range output stream.
+		 *
+		 * @param channel the channel
+		 * @param offset the offset
+		 */
+		public FileRangeOutputStream(FileChannel channel, long offset) {
+			this.channel = channel;
+			this.position = offset;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void write(int b) throws IOException {
+			this.write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+			while (buffer.hasRemaining()) {
+				this.position += this.channel.write(buffer, this.position);
+			}
+		}
+
+		/**
+		 * Gets the position to write next.
+		 *
+		 * @return the position
+		 */
+		public long getPosition() {
+			return this.position;
+		}
+	}
+}
@@ -69,6 +69,12 @@ public class SCPublishService extends SCService {
 	 * The receive publication timeout in seconds. Time to wait for the reply of SC in case of a receive publication until the subscription is marked as dead.
 	 */
 	protected int receivePublicationTimeoutSeconds;
+	/** The publication batch size. Maximum number of messages delivered by one receive publication, 1 disables batching. */
+	protected int publicationBatchSize;
+	/** The publication batch bytes. Maximum number of bytes delivered by one receive publication. */
+	protected int publicationBatchBytes;
+	/** The push delivery. Publications are written to the subscriber at the time they are published. */
+	protected boolean pushDelivery;
 
 	/**
 	 * Instantiates a new SC publish service. Should only be used by service connector internal classes. Instantiating SCPublishService should be done by the SCClient method
@@ -82,6 +88,9 @@ public class SCPublishService extends SCService {
 		super(scClient, serviceName, requester);
 		this.noDataIntervalSeconds = 0;
 		this.receivePublicationTimeoutSeconds = Constants.DEFAULT_OPERATION_TIMEOUT_SECONDS;
+		this.publicationBatchSize = 1;
+		this.publicationBatchBytes = Constants.MAX_PUBLICATION_BATCH_BYTES;
+		this.pushDelivery = false;
 		this.messageCallback = null;
 	}
 
@@ -261,6 +270,12 @@ public class SCPublishService extends SCService {
 		// 2. initialize call & invoke
 		SCPublishServiceCallback callback = new SCPublishServiceCallback(this, this.messageCallback);
 		SCMPReceivePublicationCall receivePublicationCall = new SCMPReceivePublicationCall(this.requester, this.serviceName, this.sessionId);
+		if (this.publicationBatchSize > 1) {
+			receivePublicationCall.setPublicationBatch(this.publicationBatchSize, this.publicationBatchBytes);
+		}
+		if (this.pushDelivery) {
+			receivePublicationCall.setPushDelivery();
+		}
 		try {
 			PerformanceLogger.begin(this.sessionId);
 			receivePublicationCall.invoke(callback, Constants.SEC_TO_MILLISEC_FACTOR * (this.receivePublicationTimeoutSeconds + this.noDataIntervalSeconds));
@@ -384,4 +399,65 @@ public class SCPublishService extends SCService {
 	public int getReceivePublicationTimeoutSeconds() {
 		return this.receivePublicationTimeoutSeconds;
 	}
+
+	/**
+	 * Sets the publication batch. One receive publication delivers up to batchSize queued messages as long as they fit into batchBytes. Messages of a batch are passed to the
+	 * message callback in the order they have been published. Parts of large messages are never batched. A batchSize of 1 disables batching (default).
+	 *
+	 * @param batchSize the maximum number of messages delivered by one receive publication Example: 100
+	 * @param batchBytes the maximum number of bytes delivered by one receive publication Example: 65536
+	 * @throws SCMPValidatorException batchSize > 1 and < {@link Constants#MAX_PUBLICATION_BATCH_SIZE}<br />
+	 *         batchBytes > 1 and < {@link Constants#MAX_PUBLICATION_BATCH_BYTES}<br />
+	 * @throws SCServiceException called method after subscribe
+	 */
+	public void setPublicationBatch(int batchSize, int batchBytes) throws SCMPValidatorException, SCServiceException {
+		if (this.sessionActive) {
+			throw new SCServiceException("Can not set publication batch, subscription is already subscribed.");
+		}
+		ValidatorUtility.validateInt(1, batchSize, Constants.MAX_PUBLICATION_BATCH_SIZE, SCMPError.HV_WRONG_PUBLICATION_BATCH_SIZE);
+		ValidatorUtility.validateInt(1, batchBytes, Constants.MAX_PUBLICATION_BATCH_BYTES, SCMPError.HV_WRONG_PUBLICATION_BATCH_BYTES);
+		this.publicationBatchSize = batchSize;
+		this.publicationBatchBytes = batchBytes;
+	}
+
+	/**
+	 * Sets the push delivery. The pending receive publication is answered by SC at the time a matching message gets published, without passing the timeout scheduler.
+	 * Together with a publication batch the batch size is the credit of the subscriber, SC pushes at most that many messages until the next receive publication arrives.
+	 *
+	 * @param pushDelivery the push delivery
+	 * @throws SCServiceException called method after subscribe
+	 */
+	public void setPushDelivery(boolean pushDelivery) throws SCServiceException {
+		if (this.sessionActive) {
+			throw new SCServiceException("Can not set push delivery, subscription is already subscribed.");
+		}
+		this.pushDelivery = pushDelivery;
+	}
+
+	/**
+	 * Checks if is push delivery.
+	 *
+	 * @return true, if is push delivery
+	 */
+	public boolean isPushDelivery() {
+		return this.pushDelivery;
+	}
+
+	/**
+	 * Gets the publication batch size. Maximum number of messages delivered by one receive publication.
+	 *
+	 * @return the publication batch size
+	 */
+	public int getPublicationBatchSize() {
+		return this.publicationBatchSize;
+	}
+
+	/**
+	 * Gets the publication batch bytes. Maximum number of bytes delivered by one receive publication.
+	 *
+	 * @return the publication batch bytes
+	 */
+	public int getPublicationBatchBytes() {
+		return this.publicationBatchBytes;
+	}
 }
@@ -16,6 +16,8 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.api.cln;
 
+import java.util.List;
+
 import org.serviceconnector.api.SCAppendMessage;
 import org.serviceconnector.api.SCPublishMessage;
 import org.serviceconnector.api.SCRemovedMessage;
@@ -24,6 +26,7 @@ import org.serviceconnector.cache.SC_CACHING_METHOD;
 import org.serviceconnector.log.PerformanceLogger;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
 
 /**
  * The Class SCPublishServiceCallback. Responsible for handling the right communication sequence for publish subscribe protocol.
@@ -61,40 +64,66 @@ class SCPublishServiceCallback extends SCServiceCallback {
 		// 4. post process, reply to client
 		boolean noData = reply.getHeaderFlag(SCMPHeaderAttributeKey.NO_DATA);
 		if (noData == false) {
-			// data reply received - pass to application
-			SC_CACHING_METHOD cachingMethod = SC_CACHING_METHOD.getCachingMethod(reply.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD));
+			if (SCMPPublicationBatch.isBatch(reply)) {
+				// batch reply received - pass messages to application in order
+				List<SCMPMessage> publications = null;
+				try {
+					publications = SCMPPublicationBatch.decode(reply);
+				} catch (Exception e) {
+					this.service.sessionActive = false;
+					SCServiceException ex = new SCServiceException("SCPublishService decoding publication batch failed sid=" + this.service.sessionId, e);
+					super.receive(ex);
+					return;
+				}
+				for (SCMPMessage publication : publications) {
+					this.service.setRequestComplete();
+					this.messageCallback.receive(this.createPublishMessage(publication, reply.getSessionId()));
+				}
+			} else {
+				// data reply received - pass to application
+				this.service.setRequestComplete();
+				this.messageCallback.receive(this.createPublishMessage(reply, reply.getSessionId()));
+			}
+		}
+		((SCPublishService) this.service).receivePublication();
+	}
 
-			SCPublishMessage replyToClient = null;
+	/**
+	 * Creates the publish message passed to the application.
+	 *
+	 * @param publication the publication
+	 * @param sessionId the session id
+	 * @return the SC publish message
+	 */
+	private SCPublishMessage createPublishMessage(SCMPMessage publication, String sessionId) {
+		SC_CACHING_METHOD cachingMethod = SC_CACHING_METHOD.getCachingMethod(publication.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD));
 
-			switch (cachingMethod) {
-				case INITIAL:
-				case NOT_MANAGED:
-					replyToClient = new SCPublishMessage();
-					break;
-				case APPEND:
-					replyToClient = new SCAppendMessage();
-					break;
-				case REMOVE:
-					replyToClient = new SCRemovedMessage();
-					break;
-				default:
-					replyToClient = new SCPublishMessage();
-			}
-			replyToClient.setData(reply.getBody());
-			replyToClient.setDataLength(reply.getBodyLength());
-			replyToClient.setCompressed(reply.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION));
-			replyToClient.setSessionId(reply.getSessionId());
-			replyToClient.setMask(reply.getHeader(SCMPHeaderAttributeKey.MASK));
-			replyToClient.setMessageInfo(reply.getHeader(SCMPHeaderAttributeKey.MSG_INFO));
-			replyToClient.setAppErrorCode(reply.getHeaderInt(SCMPHeaderAttributeKey.APP_ERROR_CODE));
-			replyToClient.setAppErrorText(reply.getHeader(SCMPHeaderAttributeKey.APP_ERROR_TEXT));
-			replyToClient.setCachingMethod(cachingMethod);
+		SCPublishMessage replyToClient = null;
 
-			// inform service request is completed
-			this.service.setRequestComplete();
-			this.messageCallback.receive(replyToClient);
+		switch (cachingMethod) {
+			case INITIAL:
+			case NOT_MANAGED:
+				replyToClient = new SCPublishMessage();
+				break;
+			case APPEND:
+				replyToClient = new SCAppendMessage();
+				break;
+			case REMOVE:
+				replyToClient = new SCRemovedMessage();
+				break;
+			default:
+				replyToClient = new SCPublishMessage();
 		}
-		((SCPublishService) this.service).receivePublication();
+		replyToClient.setData(publication.getBody());
+		replyToClient.setDataLength(publication.getBodyLength());
+		replyToClient.setCompressed(publication.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION));
+		replyToClient.setSessionId(sessionId);
+		replyToClient.setMask(publication.getHeader(SCMPHeaderAttributeKey.MASK));
+		replyToClient.setMessageInfo(publication.getHeader(SCMPHeaderAttributeKey.MSG_INFO));
+		replyToClient.setAppErrorCode(publication.getHeaderInt(SCMPHeaderAttributeKey.APP_ERROR_CODE));
+		replyToClient.setAppErrorText(publication.getHeader(SCMPHeaderAttributeKey.APP_ERROR_TEXT));
+		replyToClient.setCachingMethod(cachingMethod);
+		return replyToClient;
 	}
 
 	/** {@inheritDoc} */
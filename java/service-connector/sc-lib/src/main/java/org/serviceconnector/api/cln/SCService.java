@@ -17,6 +17,8 @@
 package org.serviceconnector.api.cln;
 
 import org.serviceconnector.net.req.SCRequester;
+import org.serviceconnector.scmp.SCMPCompositeReceiver;
+import org.serviceconnector.scmp.SCMPMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +50,8 @@ public abstract class SCService {
 	protected volatile boolean sessionActive = false;
 	/** The message callback to use for replies. */
 	protected SCMessageCallback messageCallback;
+	/** The large reply as stream flag, data of a large reply is handed to the client as input stream. */
+	protected volatile boolean largeReplyAsStream = false;
 
 	/**
 	 * Instantiates a new service.
@@ -72,6 +76,39 @@ public abstract class SCService {
 		this.pendingRequest = false;
 	}
 
+	/**
+	 * Gets the reply data for the client. Data of a large reply is an input stream reading the parts as received if large reply as stream is
+	 * set. Used only internally (method visibility).
+	 *
+	 * @param reply the reply
+	 * @return the reply data
+	 */
+	Object getReplyData(SCMPMessage reply) {
+		if (this.largeReplyAsStream && reply.isComposite()) {
+			return ((SCMPCompositeReceiver) reply).getBodyAsStream();
+		}
+		return reply.getBody();
+	}
+
+	/**
+	 * Sets the large reply as stream flag. Data of a large reply is handed to the client as input stream instead of a byte array or string.
+	 * Parts of the reply are not put together, each one is released once read from the stream.
+	 *
+	 * @param largeReplyAsStream the new large reply as stream flag
+	 */
+	public void setLargeReplyAsStream(boolean largeReplyAsStream) {
+		this.largeReplyAsStream = largeReplyAsStream;
+	}
+
+	/**
+	 * Checks if data of a large reply is handed to the client as input stream.
+	 *
+	 * @return true, if large reply is handed over as stream
+	 */
+	public boolean isLargeReplyAsStream() {
+		return this.largeReplyAsStream;
+	}
+
 	/**
 	 * Gets the associated SC client.
 	 *
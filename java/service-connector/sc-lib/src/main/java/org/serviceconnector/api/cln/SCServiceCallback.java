@@ -80,7 +80,7 @@ public class SCServiceCallback extends SynchronousCallback {
 		}
 		// 4. post process, reply to client
 		SCMessage replyToClient = new SCMessage();
-		replyToClient.setData(reply.getBody());
+		replyToClient.setData(this.service.getReplyData(reply));
 		replyToClient.setDataLength(reply.getBodyLength());
 		replyToClient.setCompressed(reply.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION));
 		replyToClient.setSessionId(reply.getSessionId());
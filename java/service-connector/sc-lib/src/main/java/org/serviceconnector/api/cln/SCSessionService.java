@@ -258,7 +258,7 @@ public class SCSessionService extends SCService {
 			replyToClient = new SCMessage();
 		}
 
-		replyToClient.setData(reply.getBody());
+		replyToClient.setData(this.getReplyData(reply));
 		replyToClient.setDataLength(reply.getBodyLength());
 		replyToClient.setCompressed(reply.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION));
 		replyToClient.setSessionId(this.sessionId);
@@ -504,12 +504,10 @@ public class SCSessionService extends SCService {
 	/**
 	 * Trigger session timeout.
 	 */
-	@SuppressWarnings("unchecked")
 	private void triggerSessionTimeout() {
 		SCSessionTimeout sessTimeout = new SCSessionTimeout();
 		TimeoutWrapper timeoutWrapper = new TimeoutWrapper(sessTimeout);
-		this.sessionTimeout = (ScheduledFuture<TimeoutWrapper>) AppContext.eci_cri_Scheduler.schedule(timeoutWrapper, (echoIntervalSeconds * Constants.SEC_TO_MILLISEC_FACTOR),
-				TimeUnit.MILLISECONDS);
+		this.sessionTimeout = AppContext.eci_cri_Scheduler.schedule(timeoutWrapper, (echoIntervalSeconds * Constants.SEC_TO_MILLISEC_FACTOR), TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -519,8 +517,6 @@ public class SCSessionService extends SCService {
 	 */
 	private void cancelSessionTimeout(boolean mayInterruptIfRunning) {
 		SCSessionService.this.sessionTimeout.cancel(mayInterruptIfRunning);
-		// removes canceled timeouts
-		AppContext.eci_cri_Scheduler.purge();
 	}
 
 	/**
@@ -0,0 +1,42 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.api.srv;
+
+import org.serviceconnector.api.SCPublishMessage;
+import org.serviceconnector.api.SCServiceException;
+
+/**
+ * The Interface ISCPublishCompletionCallback. Informs about the completion of an asynchronous publication, see SCPublishServer publishAsync(). Completions are
+ * informed in the order the messages have been published.
+ */
+public interface ISCPublishCompletionCallback {
+
+	/**
+	 * Publication confirmed by SC.
+	 *
+	 * @param publishMessage the published message
+	 */
+	public void completed(SCPublishMessage publishMessage);
+
+	/**
+	 * Publication failed.
+	 *
+	 * @param publishMessage the message failed to publish
+	 * @param ex the exception
+	 */
+	public void failed(SCPublishMessage publishMessage, SCServiceException ex);
+}
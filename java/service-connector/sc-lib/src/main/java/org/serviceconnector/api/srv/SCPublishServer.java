@@ -16,15 +16,30 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.api.srv;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 import org.serviceconnector.Constants;
 import org.serviceconnector.api.SCPublishMessage;
 import org.serviceconnector.api.SCServiceException;
+import org.serviceconnector.call.SCMPPublishBatchCall;
 import org.serviceconnector.call.SCMPPublishCall;
 import org.serviceconnector.cmd.SCMPValidatorException;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.net.req.SCRequester;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPError;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
+import org.serviceconnector.scmp.SCMPVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,8 +49,13 @@ import org.slf4j.LoggerFactory;
 public class SCPublishServer extends SCSessionServer {
 
 	/** The Constant LOGGER. */
-	@SuppressWarnings("unused")
 	private static final Logger LOGGER = LoggerFactory.getLogger(SCPublishServer.class);
+	/** The pending asynchronous publications in publish order, the head is in flight. */
+	private final Queue<PendingPublication> pendingPublications;
+	/** The free slots for pending asynchronous publications. */
+	private final Semaphore pendingPublicationSlots;
+	/** The publication batch unsupported flag, set if SC rejected a publish batch. Publications are sent by publish calls only. */
+	private volatile boolean publicationBatchUnsupported;
 
 	/**
 	 * Instantiates a new SC publish server.
@@ -46,6 +66,9 @@ public class SCPublishServer extends SCSessionServer {
 	 */
 	public SCPublishServer(SCServer scServer, String serviceName, SCRequester requester) {
 		super(scServer, serviceName, requester);
+		this.pendingPublications = new ArrayDeque<PendingPublication>();
+		this.pendingPublicationSlots = new Semaphore(Constants.DEFAULT_MAX_PENDING_PUBLICATIONS);
+		this.publicationBatchUnsupported = false;
 	}
 
 	/**
@@ -123,13 +146,7 @@ public class SCPublishServer extends SCSessionServer {
 		synchronized (this.scServer) {
 			this.requester.getSCMPMsgSequenceNr().incrementAndGetMsgSequenceNr();
 			// get lock on scServer - only one server is allowed to communicate over the initial connection
-			SCMPPublishCall publishCall = new SCMPPublishCall(this.requester, serviceName);
-			publishCall.setRequestBody(publishMessage.getData());
-			publishCall.setMask(publishMessage.getMask());
-			publishCall.setPartSize(publishMessage.getPartSize());
-			publishCall.setMessageInfo(publishMessage.getMessageInfo());
-			publishCall.setCacheMethod(publishMessage.getCachingMethod().getValue());
-			publishCall.setCacheId(publishMessage.getCacheId());
+			SCMPPublishCall publishCall = this.createPublishCall(publishMessage);
 			SCServerCallback callback = new SCServerCallback(true);
 			try {
 				publishCall.invoke(callback, operationTimeoutSeconds * Constants.SEC_TO_MILLISEC_FACTOR);
@@ -145,4 +162,348 @@ public class SCPublishServer extends SCSessionServer {
 			}
 		}
 	}
+
+	/**
+	 * Publish message to SC asynchronously with default operation timeout.
+	 *
+	 * @param publishMessage the publish message
+	 * @param completionCallback the completion callback
+	 * @throws SCServiceException server not registered yet<br />
+	 *         too many pending publications<br />
+	 * @throws SCMPValidatorException publish message is not set<br />
+	 *         completion callback is not set<br />
+	 */
+	public void publishAsync(SCPublishMessage publishMessage, ISCPublishCompletionCallback completionCallback) throws SCServiceException,
+			SCMPValidatorException {
+		this.publishAsync(Constants.DEFAULT_OPERATION_TIMEOUT_SECONDS, publishMessage, completionCallback);
+	}
+
+	/**
+	 * Publish message to SC asynchronously. Returns as soon as the message is queued for publishing, the completion callback gets informed when SC confirmed the
+	 * publication. Messages are sent to SC in the order publishAsync is called, completions are informed in the same order. Messages queued while a publication is
+	 * in flight are sent together in one publish batch, an SC rejecting publish batches gets the messages by single publish calls. If the maximum number of pending
+	 * publications is reached the caller waits for a free slot up to the operation timeout.
+	 *
+	 * @param operationTimeoutSeconds the allowed time in seconds to complete the operation
+	 * @param publishMessage the publish message
+	 * @param completionCallback the completion callback
+	 * @throws SCServiceException server not registered yet<br />
+	 *         too many pending publications<br />
+	 * @throws SCMPValidatorException publish message is not set<br />
+	 *         completion callback is not set<br />
+	 */
+	public void publishAsync(int operationTimeoutSeconds, SCPublishMessage publishMessage, ISCPublishCompletionCallback completionCallback)
+			throws SCServiceException, SCMPValidatorException {
+		if (this.registered == false) {
+			throw new SCServiceException("Server is not registered for a service.");
+		}
+		if (publishMessage == null) {
+			throw new SCMPValidatorException("Publish message is missing.");
+		}
+		if (completionCallback == null) {
+			throw new SCMPValidatorException("Completion callback is missing.");
+		}
+		try {
+			if (this.pendingPublicationSlots.tryAcquire(operationTimeoutSeconds, TimeUnit.SECONDS) == false) {
+				throw new SCServiceException("Publish failed, too many pending publications.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SCServiceException("Publish failed, interrupted while waiting for pending publications.", e);
+		}
+		PendingPublication pendingPublication = new PendingPublication(publishMessage, operationTimeoutSeconds, completionCallback);
+		synchronized (this.pendingPublications) {
+			this.pendingPublications.add(pendingPublication);
+			if (this.pendingPublications.size() > 1) {
+				// publications in flight - gets sent after completion of the previous ones
+				return;
+			}
+		}
+		this.sendPendingPublications();
+	}
+
+	/**
+	 * Gets the number of pending asynchronous publications.
+	 *
+	 * @return the number of pending publications
+	 */
+	public int getPendingPublicationsCount() {
+		synchronized (this.pendingPublications) {
+			return this.pendingPublications.size();
+		}
+	}
+
+	/**
+	 * Sends the pending publications. The head of the pending publications is sent together with the following publications fitting into one publish batch, they are
+	 * in flight until SC confirms the batch. A single publication or a large message gets sent by a publish call. If sending fails the publications in flight are
+	 * completed and the next pending publications are sent.
+	 */
+	private void sendPendingPublications() {
+		boolean morePending = true;
+		while (morePending) {
+			List<PendingPublication> publications = new ArrayList<PendingPublication>();
+			List<SCMPMessage> batch = new ArrayList<SCMPMessage>();
+			synchronized (this.pendingPublications) {
+				int bytes = 0;
+				for (PendingPublication pendingPublication : this.pendingPublications) {
+					if (publications.size() >= Constants.MAX_PUBLICATION_BATCH_SIZE) {
+						break;
+					}
+					SCMPMessage publication = this.createPublication(pendingPublication.publishMessage);
+					int frameSize = SCMPPublicationBatch.getFrameSize(publication);
+					if (this.publicationBatchUnsupported || publication.isLargeMessage() || bytes + frameSize > Constants.MAX_PUBLICATION_BATCH_BYTES) {
+						if (publications.isEmpty()) {
+							// head does not fit into a batch - publish it alone
+							publications.add(pendingPublication);
+						}
+						break;
+					}
+					publications.add(pendingPublication);
+					batch.add(publication);
+					bytes += frameSize;
+				}
+			}
+			PendingPublication head = publications.get(0);
+			int timeoutMillis = head.operationTimeoutSeconds * Constants.SEC_TO_MILLISEC_FACTOR;
+			try {
+				synchronized (this.scServer) {
+					this.requester.getSCMPMsgSequenceNr().incrementAndGetMsgSequenceNr();
+					// get lock on scServer - only one server is allowed to communicate over the initial connection
+					PublishCompletionCallback callback = new PublishCompletionCallback(publications);
+					if (publications.size() == 1) {
+						SCMPPublishCall publishCall = this.createPublishCall(head.publishMessage);
+						publishCall.invoke(callback, timeoutMillis);
+					} else {
+						SCMPPublishBatchCall publishBatchCall = new SCMPPublishBatchCall(this.requester, this.serviceName);
+						publishBatchCall.setPublications(batch);
+						publishBatchCall.invoke(callback, timeoutMillis);
+					}
+				}
+				return;
+			} catch (Exception e) {
+				morePending = this.completePendingPublications(publications, new SCServiceException("Publish failed. ", e));
+			}
+		}
+	}
+
+	/**
+	 * Publications completed, called on reply of SC. Completes the publications in flight and dispatches sending the next pending publications.
+	 *
+	 * @param publications the publications in flight
+	 * @param ex the exception, null if publications succeeded
+	 */
+	private void publicationsCompleted(List<PendingPublication> publications, SCServiceException ex) {
+		if (this.completePendingPublications(publications, ex) == false) {
+			return;
+		}
+		this.dispatchSendPendingPublications();
+	}
+
+	/**
+	 * Publication batch rejected by SC, called on reply of SC. An SC not knowing publish batches replies a fault, the publications in flight stay pending and get
+	 * sent again by single publish calls.
+	 *
+	 * @param reply the fault reply
+	 */
+	private void publicationBatchRejected(SCMPMessage reply) {
+		LOGGER.warn("publish batch rejected, publications sent by publish calls service=" + this.serviceName + " scErrorCode="
+				+ reply.getHeader(SCMPHeaderAttributeKey.SC_ERROR_CODE) + " scErrorText=" + reply.getHeader(SCMPHeaderAttributeKey.SC_ERROR_TEXT));
+		this.publicationBatchUnsupported = true;
+		this.dispatchSendPendingPublications();
+	}
+
+	/**
+	 * Dispatches sending the next pending publications to the SC worker thread pool. The reply thread must not send, it would wait for the lock on scServer held by a
+	 * synchronous call waiting for its reply. Pending publications fail if the pool is not available.
+	 */
+	private void dispatchSendPendingPublications() {
+		ExecutorService executor = AppContext.getSCWorkerThreadPool();
+		if (executor != null) {
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						SCPublishServer.this.sendPendingPublications();
+					}
+				});
+				return;
+			} catch (RejectedExecutionException e) {
+				LOGGER.warn("sending pending publications rejected service=" + this.serviceName, e);
+			}
+		}
+		this.failPendingPublications(new SCServiceException("Publish failed, SC worker thread pool not available."));
+	}
+
+	/**
+	 * Checks if the fault reply of a publish batch indicates an SC not knowing publish batches. Such an SC does not know the message type, it fails looking up the
+	 * command and replies a server error of undefined message type. None of the publications has been processed. Any other fault is a failure of the
+	 * publications, they might have been processed partly and must not be sent again.
+	 *
+	 * @param reply the fault reply
+	 * @return true, if publish batch got rejected
+	 */
+	private boolean isPublicationBatchRejected(SCMPMessage reply) {
+		if (SCMPMsgType.UNDEFINED.getValue().equals(reply.getMessageType()) == false) {
+			return false;
+		}
+		Integer scErrorCode = reply.getHeaderInt(SCMPHeaderAttributeKey.SC_ERROR_CODE);
+		return scErrorCode != null && scErrorCode == SCMPError.SERVER_ERROR.getErrorCode();
+	}
+
+	/**
+	 * Completes the pending publications in flight and informs the completion callbacks in publish order.
+	 *
+	 * @param publications the publications in flight
+	 * @param ex the exception, null if publications succeeded
+	 * @return true, if more publications are pending
+	 */
+	private boolean completePendingPublications(List<PendingPublication> publications, SCServiceException ex) {
+		boolean morePending = false;
+		synchronized (this.pendingPublications) {
+			for (int i = 0; i < publications.size(); i++) {
+				this.pendingPublications.poll();
+			}
+			morePending = this.pendingPublications.isEmpty() == false;
+		}
+		this.pendingPublicationSlots.release(publications.size());
+		for (PendingPublication pendingPublication : publications) {
+			this.informCompletionCallback(pendingPublication, ex);
+		}
+		return morePending;
+	}
+
+	/**
+	 * Fails all pending publications and informs the completion callbacks in publish order.
+	 *
+	 * @param ex the exception
+	 */
+	private void failPendingPublications(SCServiceException ex) {
+		List<PendingPublication> publications;
+		synchronized (this.pendingPublications) {
+			publications = new ArrayList<PendingPublication>(this.pendingPublications);
+			this.pendingPublications.clear();
+		}
+		this.pendingPublicationSlots.release(publications.size());
+		for (PendingPublication pendingPublication : publications) {
+			this.informCompletionCallback(pendingPublication, ex);
+		}
+	}
+
+	/**
+	 * Informs the completion callback of a publication.
+	 *
+	 * @param pendingPublication the pending publication
+	 * @param ex the exception, null if publication succeeded
+	 */
+	private void informCompletionCallback(PendingPublication pendingPublication, SCServiceException ex) {
+		try {
+			if (ex == null) {
+				pendingPublication.completionCallback.completed(pendingPublication.publishMessage);
+			} else {
+				pendingPublication.completionCallback.failed(pendingPublication.publishMessage, ex);
+			}
+		} catch (Exception e) {
+			LOGGER.warn("publish completion callback failed service=" + this.serviceName, e);
+		}
+	}
+
+	/**
+	 * Creates the publication, a message of a publish batch.
+	 *
+	 * @param publishMessage the publish message
+	 * @return the SCMP message
+	 */
+	private SCMPMessage createPublication(SCPublishMessage publishMessage) {
+		SCMPMessage publication = new SCMPMessage(SCMPVersion.LOWEST);
+		publication.setPartSize(publishMessage.getPartSize());
+		publication.setHeaderCheckNull(SCMPHeaderAttributeKey.MASK, publishMessage.getMask());
+		publication.setHeaderCheckNull(SCMPHeaderAttributeKey.MSG_INFO, publishMessage.getMessageInfo());
+		publication.setHeaderCheckNull(SCMPHeaderAttributeKey.CACHING_METHOD, publishMessage.getCachingMethod().getValue());
+		publication.setHeaderCheckNull(SCMPHeaderAttributeKey.CACHE_ID, publishMessage.getCacheId());
+		publication.setBody(publishMessage.getData());
+		return publication;
+	}
+
+	/**
+	 * Creates the publish call.
+	 *
+	 * @param publishMessage the publish message
+	 * @return the SCMP publish call
+	 */
+	private SCMPPublishCall createPublishCall(SCPublishMessage publishMessage) {
+		SCMPPublishCall publishCall = new SCMPPublishCall(this.requester, serviceName);
+		publishCall.setRequestBody(publishMessage.getData());
+		publishCall.setMask(publishMessage.getMask());
+		publishCall.setPartSize(publishMessage.getPartSize());
+		publishCall.setMessageInfo(publishMessage.getMessageInfo());
+		publishCall.setCacheMethod(publishMessage.getCachingMethod().getValue());
+		publishCall.setCacheId(publishMessage.getCacheId());
+		return publishCall;
+	}
+
+	/**
+	 * The Class PendingPublication. Asynchronous publication waiting to be sent or confirmed.
+	 */
+	private static class PendingPublication {
+
+		/** The publish message. */
+		private final SCPublishMessage publishMessage;
+		/** The operation timeout seconds. */
+		private final int operationTimeoutSeconds;
+		/** The completion callback. */
+		private final ISCPublishCompletionCallback completionCallback;
+
+		/**
+		 * Instantiates a new pending publication.
+		 *
+		 * @param publishMessage the publish message
+		 * @param operationTimeoutSeconds the operation timeout seconds
+		 * @param completionCallback the completion callback
+		 */
+		public PendingPublication(SCPublishMessage publishMessage, int operationTimeoutSeconds, ISCPublishCompletionCallback completionCallback) {
+			this.publishMessage = publishMessage;
+			this.operationTimeoutSeconds = operationTimeoutSeconds;
+			this.completionCallback = completionCallback;
+		}
+	}
+
+	/**
+	 * The Class PublishCompletionCallback. Receives the reply of asynchronous publications.
+	 */
+	private class PublishCompletionCallback implements ISCMPMessageCallback {
+
+		/** The publications in flight. */
+		private final List<PendingPublication> publications;
+
+		/**
+		 * Instantiates a new publish completion callback.
+		 *
+		 * @param publications the publications in flight
+		 */
+		public PublishCompletionCallback(List<PendingPublication> publications) {
+			this.publications = publications;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(SCMPMessage reply) {
+			SCServiceException ex = null;
+			if (reply.isFault()) {
+				if (this.publications.size() > 1 && SCPublishServer.this.isPublicationBatchRejected(reply)) {
+					SCPublishServer.this.publicationBatchRejected(reply);
+					return;
+				}
+				ex = new SCServiceException("Publish failed.");
+				ex.setSCErrorCode(reply.getHeaderInt(SCMPHeaderAttributeKey.SC_ERROR_CODE));
+				ex.setSCErrorText(reply.getHeader(SCMPHeaderAttributeKey.SC_ERROR_TEXT));
+			}
+			SCPublishServer.this.publicationsCompleted(this.publications, ex);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(Exception ex) {
+			SCPublishServer.this.publicationsCompleted(this.publications, new SCServiceException("Publish failed. ", ex));
+		}
+	}
 }
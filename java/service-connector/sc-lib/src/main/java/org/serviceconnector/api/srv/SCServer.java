@@ -59,6 +59,8 @@ public class SCServer {
 	private volatile boolean listening;
 	/** The immediate connect. Indicates if server immediately gets connections from SC after register is done. */
 	private boolean immediateConnect;
+	/** The multiplexed flag. Indicates if SC sends concurrent requests to the server on shared connections. */
+	private boolean multiplexed;
 	/** The keep alive interval seconds. Default = 60. */
 	private int keepAliveIntervalSeconds;
 	/** The keep alive timeout in seconds. Time to wait for the reply of a keep alive sent to the SC. Default = 10. */
@@ -116,6 +118,7 @@ public class SCServer {
 		this.keepAliveTimeoutSeconds = Constants.DEFAULT_KEEP_ALIVE_OTI_SECONDS;
 		this.checkRegistrationIntervalSeconds = Constants.DEFAULT_CHECK_REGISTRATION_INTERVAL_SECONDS;
 		this.checkRegistraionTimeoutSeconds = Constants.DEFAULT_CHECK_REGISTRATION_OTI_SECONDS;
+		this.multiplexed = Constants.DEFAULT_MULTIPLEXED_FLAG;
 		this.listening = false;
 	}
 
@@ -186,6 +189,29 @@ public class SCServer {
 		return immediateConnect;
 	}
 
+	/**
+	 * Sets the multiplexed flag. Affects connecting behavior from SC. If multiplexed is set SC sends concurrent requests on shared connections instead of using a connection per
+	 * outstanding request. Only applies to connection type netty.tcp.
+	 *
+	 * @param multiplexed multiplexed
+	 * @throws SCServiceException listener is already started<br />
+	 */
+	public void setMultiplexed(boolean multiplexed) throws SCServiceException {
+		if (this.listening == true) {
+			throw new SCServiceException("Listener is already started not allowed to set property.");
+		}
+		this.multiplexed = multiplexed;
+	}
+
+	/**
+	 * Checks if multiplexed flag is set.
+	 *
+	 * @return true, if is multiplexed
+	 */
+	public boolean isMultiplexed() {
+		return multiplexed;
+	}
+
 	/**
 	 * Checks if server is listening.
 	 *
@@ -60,6 +60,8 @@ public class SCSessionServer {
 	protected SCServer scServer;
 	/** The serverTimeout, timeout runs when server entry on SC need to be refreshed. */
 	protected ScheduledFuture<TimeoutWrapper> serverTimeout;
+	/** The large request as stream flag, data of a large request is handed to the server as input stream. */
+	protected boolean largeRequestAsStream;
 
 	static {
 		// Initialize server command factory one time
@@ -79,6 +81,7 @@ public class SCSessionServer {
 		this.serviceName = serviceName;
 		// attributes for registerServer
 		this.registered = false;
+		this.largeRequestAsStream = false;
 	}
 
 	/**
@@ -155,7 +158,8 @@ public class SCSessionServer {
 		SrvServiceRegistry srvServiceRegistry = AppContext.getSrvServiceRegistry();
 		this.doRegister(operationTimeoutSeconds, maxSessions, maxConnections);
 		// creating srvService & adding to registry
-		SrvService srvService = new SrvSessionService(this.serviceName, maxSessions, maxConnections, this.requester, scCallback);
+		SrvSessionService srvService = new SrvSessionService(this.serviceName, maxSessions, maxConnections, this.requester, scCallback);
+		srvService.setLargeRequestAsStream(this.largeRequestAsStream);
 		srvServiceRegistry.addSrvService(this.serviceName + "_" + this.scServer.getListenerPort(), srvService);
 		this.registered = true;
 	}
@@ -183,6 +187,7 @@ public class SCSessionServer {
 		int keepAliveIntervalSeconds = this.scServer.getKeepAliveIntervalSeconds();
 		int checkRegistrationIntervalSeconds = this.scServer.getCheckRegistrationIntervalSeconds();
 		boolean immediateConnect = this.scServer.isImmediateConnect();
+		boolean multiplexed = this.scServer.isMultiplexed();
 		synchronized (AppContext.communicatorsLock) {
 			// get communicator lock - avoids interference with other clients or scServers
 			AppContext.init();
@@ -194,6 +199,7 @@ public class SCSessionServer {
 			registerServerCall.setMaxConnections(maxConnections);
 			registerServerCall.setPortNumber(listenerPort);
 			registerServerCall.setImmediateConnect(immediateConnect);
+			registerServerCall.setMultiplexed(multiplexed);
 			registerServerCall.setKeepAliveIntervalSeconds(keepAliveIntervalSeconds);
 			registerServerCall.setCheckRegistrationIntervalSeconds(checkRegistrationIntervalSeconds);
 			registerServerCall.setVersion(SCMPMessage.SC_VERSION.toString());
@@ -318,7 +324,6 @@ public class SCSessionServer {
 	/**
 	 * Trigger server timeout.
 	 */
-	@SuppressWarnings("unchecked")
 	private void triggerServerTimeout() {
 		if (this.scServer.getCheckRegistrationIntervalSeconds() == 0) {
 			// check registration interval not active
@@ -326,7 +331,7 @@ public class SCSessionServer {
 		}
 		SCServerTimeout serverTimeout = new SCServerTimeout();
 		TimeoutWrapper timeoutWrapper = new TimeoutWrapper(serverTimeout);
-		this.serverTimeout = (ScheduledFuture<TimeoutWrapper>) AppContext.eci_cri_Scheduler.schedule(timeoutWrapper,
+		this.serverTimeout = AppContext.eci_cri_Scheduler.schedule(timeoutWrapper,
 				(this.scServer.getCheckRegistrationIntervalSeconds() * Constants.SEC_TO_MILLISEC_FACTOR), TimeUnit.MILLISECONDS);
 	}
 
@@ -341,8 +346,6 @@ public class SCSessionServer {
 			return;
 		}
 		SCSessionServer.this.serverTimeout.cancel(mayInterruptIfRunning);
-		// removes canceled timeouts
-		AppContext.eci_cri_Scheduler.purge();
 	}
 
 	/**
@@ -435,6 +438,32 @@ public class SCSessionServer {
 		return this.scServer;
 	}
 
+	/**
+	 * Sets the large request as stream flag. Data of a large request is handed to the server as input stream instead of a byte array or
+	 * string. Parts of the request are not put together, each one is released once read from the stream.
+	 *
+	 * @param largeRequestAsStream the new large request as stream flag
+	 */
+	public synchronized void setLargeRequestAsStream(boolean largeRequestAsStream) {
+		this.largeRequestAsStream = largeRequestAsStream;
+		if (this.registered) {
+			SrvServiceRegistry srvServiceRegistry = AppContext.getSrvServiceRegistry();
+			SrvService srvService = srvServiceRegistry.getSrvService(this.serviceName + "_" + this.scServer.getListenerPort());
+			if (srvService instanceof SrvSessionService) {
+				((SrvSessionService) srvService).setLargeRequestAsStream(largeRequestAsStream);
+			}
+		}
+	}
+
+	/**
+	 * Checks if data of a large request is handed to the server as input stream.
+	 *
+	 * @return true, if large request is handed over as stream
+	 */
+	public boolean isLargeRequestAsStream() {
+		return this.largeRequestAsStream;
+	}
+
 	/**
 	 * The Class SCServerCallback.
 	 */
@@ -25,6 +25,8 @@ public class SrvSessionService extends SrvService {
 
 	/** The callback. */
 	private ISCSessionServerCallback callback;
+	/** The large request as stream flag, data of a large request is handed to the server as input stream. */
+	private volatile boolean largeRequestAsStream;
 
 	/**
 	 * Instantiates a new srv session service.
@@ -38,6 +40,7 @@ public class SrvSessionService extends SrvService {
 	public SrvSessionService(String serviceName, int maxSessions, int maxConnections, IRequester requester, ISCSessionServerCallback callback) {
 		super(serviceName, maxSessions, maxConnections, requester);
 		this.callback = callback;
+		this.largeRequestAsStream = false;
 	}
 
 	/**
@@ -48,4 +51,22 @@ public class SrvSessionService extends SrvService {
 	public ISCSessionServerCallback getCallback() {
 		return this.callback;
 	}
+
+	/**
+	 * Checks if data of a large request is handed to the server as input stream.
+	 *
+	 * @return true, if large request is handed over as stream
+	 */
+	public boolean isLargeRequestAsStream() {
+		return this.largeRequestAsStream;
+	}
+
+	/**
+	 * Sets the large request as stream flag.
+	 *
+	 * @param largeRequestAsStream the new large request as stream flag
+	 */
+	public void setLargeRequestAsStream(boolean largeRequestAsStream) {
+		this.largeRequestAsStream = largeRequestAsStream;
+	}
 }
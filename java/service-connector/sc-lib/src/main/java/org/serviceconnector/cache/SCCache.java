@@ -19,10 +19,16 @@ package org.serviceconnector.cache;
 import java.io.File;
 import java.io.FileFilter;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +42,7 @@ import org.serviceconnector.log.CacheLogger;
 import org.serviceconnector.registry.CacheModuleRegistry;
 import org.serviceconnector.scmp.SCMPError;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPCachedMessage;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.util.DateTimeUtility;
 import org.serviceconnector.util.Statistics;
@@ -62,7 +69,12 @@ import org.serviceconnector.util.XMLDumpWriter;
  * <br>
  * There are several circumstances they can stop the loading process and clear the message: - Server returns a fault message. - Server returns no cacheId. - Server returns a
  * different cacheId than the requested one. - Server returns no expirationDate. - Server returns expirationDate with wrong format. - Server returns expirationDate in the past. -
- * Caching of message fails for some reason.
+ * Caching of message fails for some reason.<br>
+ * <br>
+ * State transitions of a meta entry and its data entries are guarded by a lock striped by cacheId. Requests for different cacheIds do not block each other.<br>
+ * <br>
+ * A cache module limited in size evicts entries. An evicted meta entry or data entry evicts the whole message, the meta entry and all of its data entries. Evicted
+ * messages are removed when no cacheId lock is held any more, a message never gets served with parts missing.
  */
 public class SCCache {
 
@@ -71,26 +83,38 @@ public class SCCache {
 	/** The cache configuration. */
 	private SCCacheConfiguration scCacheConfiguration;
 	/** Map of current session id's which are loading messages into cache, (sid, cid). */
-	private HashMap<String, String> loadingSessionIds;
+	private ConcurrentMap<String, String> loadingSessionIds;
 
 	/** The managed data keys in initial state. */
 	private Set<String> mgdDataKeysInInitialState;
 	/** The managed data assigned to guardian. */
-	private HashMap<String, Set<String>> mgdDataAssignedToGuardian;
+	private ConcurrentMap<String, Set<String>> mgdDataAssignedToGuardian;
+	/** The locks guarding meta entries and their data entries, striped by cacheId. */
+	private final Object[] cacheIdLocks;
+	/** The evicted meta entries, their data entries get removed when no cacheId lock is held. */
+	private final Queue<SCCacheMetaEntry> evictedMetaEntries;
+	/** The cache ids of meta entries with an evicted data entry, meta and data entries get removed when no cacheId lock is held. */
+	private final Queue<String> evictedMetaEntryCids;
 
 	/** The meta data cache module. */
 	private ISCCacheModule<SCCacheMetaEntry> metaDataCacheModule = null;
 	/** The data cache module. */
-	private ISCCacheModule<SCMPMessage> dataCacheModule = null;
+	private ISCCacheModule<SCMPCachedMessage> dataCacheModule = null;
 
 	/**
 	 * Instantiates a new SC cache.
 	 */
 	public SCCache() {
 		this.scCacheConfiguration = null;
-		this.loadingSessionIds = new HashMap<String, String>();
-		this.mgdDataKeysInInitialState = new HashSet<String>();
-		this.mgdDataAssignedToGuardian = new HashMap<String, Set<String>>();
+		this.loadingSessionIds = new ConcurrentHashMap<String, String>();
+		this.mgdDataKeysInInitialState = ConcurrentHashMap.newKeySet();
+		this.mgdDataAssignedToGuardian = new ConcurrentHashMap<String, Set<String>>();
+		this.cacheIdLocks = new Object[Constants.CACHE_LOCK_STRIPES];
+		for (int i = 0; i < this.cacheIdLocks.length; i++) {
+			this.cacheIdLocks[i] = new Object();
+		}
+		this.evictedMetaEntries = new ConcurrentLinkedQueue<SCCacheMetaEntry>();
+		this.evictedMetaEntryCids = new ConcurrentLinkedQueue<String>();
 	}
 
 	/**
@@ -115,7 +139,52 @@ public class SCCache {
 			cacheModules.addCacheModule(cacheModuleType.name(), cacheModule);
 		}
 		metaDataCacheModule = (ISCCacheModule<SCCacheMetaEntry>) cacheModules.getCache(SC_CACHE_MODULE_TYPE.META_DATA_CACHE_MODULE.name());
-		dataCacheModule = (ISCCacheModule<SCMPMessage>) cacheModules.getCache(SC_CACHE_MODULE_TYPE.DATA_CACHE_MODULE.name());
+		dataCacheModule = (ISCCacheModule<SCMPCachedMessage>) cacheModules.getCache(SC_CACHE_MODULE_TYPE.DATA_CACHE_MODULE.name());
+		if (this.scCacheConfiguration.getCacheType() == SC_CACHE_TYPE.PERSISTENT) {
+			this.recoverCacheEntries();
+		}
+	}
+
+	/**
+	 * Recovers the entries of a persistent cache stored by a previous run of the SC. Meta entries not loaded completely are removed, their loading sessions do not
+	 * exist anymore. Meta entries with missing data entries and data entries without meta entry are removed. Managed data gets assigned to its cache guardian again,
+	 * it is removed if the cache guardian does not come back.
+	 */
+	private void recoverCacheEntries() {
+		Set<String> dataEntryCids = new HashSet<String>(this.dataCacheModule.getKeyList());
+		Set<String> recoveredDataEntryCids = new HashSet<String>();
+		int recoveredMetaEntries = 0;
+		for (String metaEntryCid : this.metaDataCacheModule.getKeyList()) {
+			SCCacheMetaEntry metaEntry = this.metaDataCacheModule.get(metaEntryCid);
+			if (metaEntry == null) {
+				// expired in the meantime
+				continue;
+			}
+			if (metaEntry.isLoaded() == false) {
+				this.removeMetaAndDataEntries(metaEntryCid, "Meta entry not loaded at start of SC, state=" + metaEntry.getSCCacheEntryState().name());
+				continue;
+			}
+			List<String> metaEntryDataCids = this.getDataEntryCids(metaEntry);
+			if (dataEntryCids.containsAll(metaEntryDataCids) == false) {
+				LOGGER.warn("Cache error, data-cache and meta-cache are not consistent at start of SC. cacheKey=" + metaEntryCid);
+				this.removeMetaAndDataEntries(metaEntryCid, "Data entries missing at start of SC");
+				continue;
+			}
+			recoveredDataEntryCids.addAll(metaEntryDataCids);
+			String cacheGuardian = metaEntry.getCacheGuardianName();
+			if (metaEntry.isManaged() && cacheGuardian != null && Constants.STATIC.equals(cacheGuardian) == false) {
+				this.assignToGuardian(cacheGuardian, metaEntryCid);
+			}
+			Statistics.getInstance().incrementMessagesInCache();
+			recoveredMetaEntries++;
+		}
+		// remove data entries without meta entry
+		for (String dataEntryCid : dataEntryCids) {
+			if (recoveredDataEntryCids.contains(dataEntryCid) == false) {
+				this.dataCacheModule.remove(dataEntryCid);
+			}
+		}
+		LOGGER.info("recovered cached messages=" + recoveredMetaEntries + " data entries=" + recoveredDataEntryCids.size());
 	}
 
 	/**
@@ -126,7 +195,22 @@ public class SCCache {
 	 * @return the SCMP message
 	 * @throws SCMPCommandException requested message in loading state, gets already loaded by another client<br>
 	 */
-	public synchronized SCMPMessage tryGetMessageFromCacheOrLoad(SCMPMessage reqMessage) throws SCMPCommandException {
+	public SCMPMessage tryGetMessageFromCacheOrLoad(SCMPMessage reqMessage) throws SCMPCommandException {
+		try {
+			return this.doTryGetMessageFromCacheOrLoad(reqMessage);
+		} finally {
+			this.removeEvictedEntries();
+		}
+	}
+
+	/**
+	 * Try get message from cache, holding the cacheId lock.
+	 *
+	 * @param reqMessage the request message
+	 * @return the SCMP message
+	 * @throws SCMPCommandException requested message in loading state, gets already loaded by another client<br>
+	 */
+	private SCMPMessage doTryGetMessageFromCacheOrLoad(SCMPMessage reqMessage) throws SCMPCommandException {
 
 		// get and check cache-id
 		String metaEntryCid = reqMessage.getCacheId();
@@ -134,110 +218,123 @@ public class SCCache {
 			// no caching requested from client
 			return null;
 		}
-		// lookup cache meta entry
-		String sessionId = reqMessage.getSessionId();
-		String serviceName = reqMessage.getServiceName();
-		SCCacheMetaEntry metaEntry = metaDataCacheModule.get(metaEntryCid);
-
-		if (metaEntry != null) {
+		synchronized (this.getCacheIdLock(metaEntryCid)) {
+			// lookup cache meta entry
+			String sessionId = reqMessage.getSessionId();
+			String serviceName = reqMessage.getServiceName();
+			SCCacheMetaEntry metaEntry = metaDataCacheModule.get(metaEntryCid);
 
-			if (reqMessage.isPart() == true && reqMessage.isPollRequest() == false) {
-				// part but no poll (PRQ) - large request and meta entry in cache, forward to next node!
-				return null;
-			}
-
-			if (reqMessage.isReqCompleteAfterMarshallingPart() == true && metaEntry.isLoading() == true && metaEntry.isLoadingSessionId(sessionId) == true) {
-				// REQ & sid is loading session - ending REQ of large request, forward to next node!
-				return null;
-			}
+			if (metaEntry != null) {
 
-			String appendixNr = reqMessage.getHeader(SCMPHeaderAttributeKey.APPENDIX_NR);
-			if (appendixNr == null) {
-				// set default appendixNr = 0 when it is missing in the request
-				appendixNr = "0";
-			}
+				if (reqMessage.isPart() == true && reqMessage.isPollRequest() == false) {
+					// part but no poll (PRQ) - large request and meta entry in cache, forward to next node!
+					return null;
+				}
 
-			String reqPartNr = reqMessage.getHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER);
-			if (reqPartNr == null) {
-				// set default partNr = 0 when it is missing in the request
-				reqPartNr = "0";
-			}
-			// build dataEntryCid
-			String dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + reqPartNr;
-			CacheLogger.tryGetMessageFromCache(metaEntryCid, sessionId, reqPartNr, appendixNr);
-			// meta entry exists
-			if (metaEntry.isLoaded() == true) {
-				// message already loaded - return message
-				SCMPMessage cachedMessage = dataCacheModule.get(dataEntryCid);
-				if (cachedMessage != null) {
-					// message found adapt header fields for requester
-					cachedMessage.setServiceName(serviceName);
-					cachedMessage.setMessageType(reqMessage.getMessageType());
-					cachedMessage.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, reqMessage.getMessageSequenceNr());
-					cachedMessage.setSessionId(sessionId);
-					cachedMessage.setCached();
-					if (CacheLogger.isEnabled()) {
-						CacheLogger.gotMessageFromCache(dataEntryCid, sessionId, cachedMessage.getBodyLength());
-					}
-				} else {
-					LOGGER.error("Cache error, data-cache and meta-cache are not consistent. cacheKey=" + dataEntryCid);
+				if (reqMessage.isReqCompleteAfterMarshallingPart() == true && metaEntry.isLoading() == true && metaEntry.isLoadingSessionId(sessionId) == true) {
+					// REQ & sid is loading session - ending REQ of large request, forward to next node!
+					return null;
 				}
-				return cachedMessage;
-			}
 
-			if (metaEntry.isLoadingAppendix() == true) {
-				// requested message gets an updated by an appendix (loading appendix)
-				SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.CACHE_LOADING, "service=" + serviceName + " cacheId=" + metaEntryCid);
-				scmpCommandException.setMessageType(reqMessage.getMessageType());
-				throw scmpCommandException;
-			}
+				String appendixNr = reqMessage.getHeader(SCMPHeaderAttributeKey.APPENDIX_NR);
+				if (appendixNr == null) {
+					// set default appendixNr = 0 when it is missing in the request
+					appendixNr = "0";
+				}
 
-			if (metaEntry.isLoading() == true) {
-				// requested message is loading
-				if (metaEntry.isLoadingSessionId(sessionId) == true) {
-					// requested message is being loaded by current session - continue loading
-					int nextPartNrToLoad = metaEntry.getNrOfParts(metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + "0") + 1;
-					int reqPartNrInt = Integer.parseInt(reqPartNr);
-					if (reqPartNrInt != nextPartNrToLoad) {
-						// requested partNr does not match current loading state - remove message from cache
-						LOGGER.warn("Requested partNr=" + reqPartNr + " does not match current loading state (numberOfParts=" + nextPartNrToLoad + ").");
-						this.removeMetaAndDataEntries(metaEntryCid,
-								"Requested partNr=" + reqPartNr + " does not match current loading state (numberOfParts=" + nextPartNrToLoad + ").");
-						// do return an error here to stop current request loading this message and avoid parallel loading problems
+				String reqPartNr = reqMessage.getHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER);
+				if (reqPartNr == null) {
+					// set default partNr = 0 when it is missing in the request
+					reqPartNr = "0";
+				}
+				// build dataEntryCid
+				String dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + reqPartNr;
+				CacheLogger.tryGetMessageFromCache(metaEntryCid, sessionId, reqPartNr, appendixNr);
+				// meta entry exists
+				if (metaEntry.isLoaded() == true) {
+					// message already loaded - return message
+					SCMPCachedMessage cachedData = dataCacheModule.get(dataEntryCid);
+					SCMPMessage cachedMessage = null;
+					if (cachedData == null && metaEntry.getNrOfParts(metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + "0") >= Integer.parseInt(reqPartNr)) {
+						// data entry of the message has been evicted, never serve the message with parts missing
+						LOGGER.warn("Data entry missing, message removed from cache. cacheKey=" + dataEntryCid);
+						this.removeMetaAndDataEntries(metaEntryCid, "Data entry missing, cacheKey=" + dataEntryCid);
 						SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.CACHE_ERROR,
-								"cache cleared message invalid partNr in request service=" + serviceName + " cacheId=" + metaEntryCid);
+								"cache cleared message data entry missing service=" + serviceName + " cacheId=" + metaEntryCid);
 						scmpCommandException.setMessageType(reqMessage.getMessageType());
 						throw scmpCommandException;
 					}
+					if (cachedData != null) {
+						// message found adapt header fields for requester, cached data is shared and not copied
+						cachedMessage = cachedData.newMessage();
+						cachedMessage.setServiceName(serviceName);
+						cachedMessage.setMessageType(reqMessage.getMessageType());
+						cachedMessage.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, reqMessage.getMessageSequenceNr());
+						cachedMessage.setSessionId(sessionId);
+						cachedMessage.setCached();
+						if (CacheLogger.isEnabled()) {
+							CacheLogger.gotMessageFromCache(dataEntryCid, sessionId, cachedMessage.getBodyLength());
+						}
+					} else {
+						LOGGER.error("Cache error, data-cache and meta-cache are not consistent. cacheKey=" + dataEntryCid);
+					}
+					return cachedMessage;
+				}
+
+				if (metaEntry.isLoadingAppendix() == true) {
+					// requested message gets an updated by an appendix (loading appendix)
+					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.CACHE_LOADING, "service=" + serviceName + " cacheId=" + metaEntryCid);
+					scmpCommandException.setMessageType(reqMessage.getMessageType());
+					throw scmpCommandException;
+				}
+
+				if (metaEntry.isLoading() == true) {
+					// requested message is loading
+					if (metaEntry.isLoadingSessionId(sessionId) == true) {
+						// requested message is being loaded by current session - continue loading
+						int nextPartNrToLoad = metaEntry.getNrOfParts(metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + "0") + 1;
+						int reqPartNrInt = Integer.parseInt(reqPartNr);
+						if (reqPartNrInt != nextPartNrToLoad) {
+							// requested partNr does not match current loading state - remove message from cache
+							LOGGER.warn("Requested partNr=" + reqPartNr + " does not match current loading state (numberOfParts=" + nextPartNrToLoad + ").");
+							this.removeMetaAndDataEntries(metaEntryCid,
+									"Requested partNr=" + reqPartNr + " does not match current loading state (numberOfParts=" + nextPartNrToLoad + ").");
+							// do return an error here to stop current request loading this message and avoid parallel loading problems
+							SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.CACHE_ERROR,
+									"cache cleared message invalid partNr in request service=" + serviceName + " cacheId=" + metaEntryCid);
+							scmpCommandException.setMessageType(reqMessage.getMessageType());
+							throw scmpCommandException;
+						}
+						return null;
+					}
+					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.CACHE_LOADING, "service=" + serviceName + " cacheId=" + metaEntryCid);
+					scmpCommandException.setMessageType(reqMessage.getMessageType());
+					throw scmpCommandException;
+				} else {
+					LOGGER.error("Cache error, bad state of meta entry cacheKey=" + metaEntryCid);
 					return null;
 				}
-				SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.CACHE_LOADING, "service=" + serviceName + " cacheId=" + metaEntryCid);
-				scmpCommandException.setMessageType(reqMessage.getMessageType());
-				throw scmpCommandException;
 			} else {
-				LOGGER.error("Cache error, bad state of meta entry cacheKey=" + metaEntryCid);
-				return null;
-			}
-		} else {
-			if (reqMessage.isPollRequest()) {
-				// poll large response and no meta entry: Cache got destroyed in meantime or no caching required!
-				LOGGER.trace("Poll large response with cacheId=" + metaEntryCid + " but no meta entry.");
+				if (reqMessage.isPollRequest()) {
+					// poll large response and no meta entry: Cache got destroyed in meantime or no caching required!
+					LOGGER.trace("Poll large response with cacheId=" + metaEntryCid + " but no meta entry.");
+					return null;
+				}
+				// start loading message to cache
+				SCCacheMetaEntry newMetaEntry = new SCCacheMetaEntry(metaEntryCid);
+				// take original OTI so transporting message would stop before metaEntry expires!
+				int otiMillis = reqMessage.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT);
+				newMetaEntry.setHeader(reqMessage.getHeader()); // save all header attributes
+				newMetaEntry.setLoadingSessionId(sessionId);
+				newMetaEntry.setLoadingTimeoutMillis(otiMillis);
+				newMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADING);
+
+				// put meta entry to cache
+				this.metaDataCacheModule.putOrUpdate(metaEntryCid, newMetaEntry, otiMillis / Constants.SEC_TO_MILLISEC_FACTOR);
+				this.loadingSessionIds.put(sessionId, metaEntryCid);
+				CacheLogger.startLoadingCacheMessage(metaEntryCid, sessionId, otiMillis);
 				return null;
 			}
-			// start loading message to cache
-			SCCacheMetaEntry newMetaEntry = new SCCacheMetaEntry(metaEntryCid);
-			// take original OTI so transporting message would stop before metaEntry expires!
-			int otiMillis = reqMessage.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT);
-			newMetaEntry.setHeader(reqMessage.getHeader()); // save all header attributes
-			newMetaEntry.setLoadingSessionId(sessionId);
-			newMetaEntry.setLoadingTimeoutMillis(otiMillis);
-			newMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADING);
-
-			// put meta entry to cache
-			this.metaDataCacheModule.putOrUpdate(metaEntryCid, newMetaEntry, otiMillis / Constants.SEC_TO_MILLISEC_FACTOR);
-			this.loadingSessionIds.put(sessionId, metaEntryCid);
-			CacheLogger.startLoadingCacheMessage(metaEntryCid, sessionId, otiMillis);
-			return null;
 		}
 	}
 
@@ -248,139 +345,155 @@ public class SCCache {
 	 * @param reqMessage the request message
 	 * @param resMessage the response message
 	 */
-	public synchronized void cacheMessage(SCMPMessage reqMessage, SCMPMessage resMessage) {
-		if (resMessage.isPollRequest() == true) {
-			// no caching - large request in process
-			return;
-		}
-
-		String reqServiceName = reqMessage.getServiceName();
-		String resServiceName = resMessage.getServiceName();
-		String reqCacheId = reqMessage.getCacheId();
-		String resCacheId = resMessage.getCacheId();
-		String loadingSid = reqMessage.getSessionId();
-		SC_CACHING_METHOD recvCachingMethod = SC_CACHING_METHOD.getCachingMethod(resMessage.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD));
-
-		if (resMessage.isFault() == true || (resCacheId == null && reqCacheId != null)) {
-			// response is faulty, clean up
-			String scErrorCode = reqMessage.getHeader(SCMPHeaderAttributeKey.SC_ERROR_CODE);
-			this.removeMetaAndDataEntries(reqCacheId, "Reply faulty (" + scErrorCode + ") or resCacheId=null and reqCacheId=" + reqCacheId);
-			return;
-		}
-
-		if (resCacheId == null) {
-			// no cache id replied no caching requested
-			return;
-		}
-
-		// this happens here because fault replies doesn't have serviceName set.
-		if (resServiceName == null) {
-			LOGGER.error("server did not reply service name (null), response service name set to request serviceName=" + reqServiceName);
-			resServiceName = reqServiceName;
+	public void cacheMessage(SCMPMessage reqMessage, SCMPMessage resMessage) {
+		try {
+			this.doCacheMessage(reqMessage, resMessage);
+		} finally {
+			this.removeEvictedEntries();
 		}
+	}
 
-		if (resCacheId.equals(reqCacheId) == false) {
-			// requested cache id differs replied cache id, clean up
-			LOGGER.error("cache message (" + reqCacheId + ") removed, server did reply different cache key, cache (" + resCacheId + ")");
-			this.removeMetaAndDataEntries(reqCacheId, "cache message (" + reqCacheId + ") removed, server did reply different cache key, cache (" + resCacheId + ")");
-			return;
-		}
-		// lookup up meta entry
-		String metaEntryCid = resCacheId;
-		SCCacheMetaEntry metaEntry = metaDataCacheModule.get(metaEntryCid);
+	/**
+	 * Cache message, holding the cacheId lock.
+	 *
+	 * @param reqMessage the request message
+	 * @param resMessage the response message
+	 */
+	private void doCacheMessage(SCMPMessage reqMessage, SCMPMessage resMessage) {
+		synchronized (this.getCacheIdLock(reqMessage.getCacheId())) {
+			if (resMessage.isPollRequest() == true) {
+				// no caching - large request in process
+				return;
+			}
 
-		if (metaEntry == null) {
-			// no meta entry found, clean up
-			LOGGER.error("Missing metaEntry message can not be cached.");
-			this.removeMetaAndDataEntries(reqCacheId, "Missing metaEntry message can not be cached.");
-			return;
-		}
+			String reqServiceName = reqMessage.getServiceName();
+			String resServiceName = resMessage.getServiceName();
+			String reqCacheId = reqMessage.getCacheId();
+			String resCacheId = resMessage.getCacheId();
+			String loadingSid = reqMessage.getSessionId();
+			SC_CACHING_METHOD recvCachingMethod = SC_CACHING_METHOD.getCachingMethod(resMessage.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD));
+
+			if (resMessage.isFault() == true || (resCacheId == null && reqCacheId != null)) {
+				// response is faulty, clean up
+				String scErrorCode = reqMessage.getHeader(SCMPHeaderAttributeKey.SC_ERROR_CODE);
+				this.removeMetaAndDataEntries(reqCacheId, "Reply faulty (" + scErrorCode + ") or resCacheId=null and reqCacheId=" + reqCacheId);
+				return;
+			}
 
-		if (metaEntry.isLoadingSessionId(loadingSid) == false) {
-			// meta entry gets loaded by another sessionId, not allowed clean up
-			LOGGER.error("MetaEntry gets loaded by wrong session, not allowed expected sid=" + metaEntry.getLoadingSessionId() + " loading sid= " + loadingSid);
-			this.removeMetaAndDataEntries(metaEntryCid, "Wrong sid loads MetaEntry, expected sid=" + metaEntry.getLoadingSessionId() + " loading sid=" + loadingSid);
-			return;
-		}
+			if (resCacheId == null) {
+				// no cache id replied no caching requested
+				return;
+			}
 
-		// cache the message now!
-		try {
-			int nrOfAppendix = metaEntry.getNrOfAppendix();
-			String baseDataEntryCid = metaEntryCid + Constants.SLASH + nrOfAppendix;
-			String dataEntryCid = baseDataEntryCid + Constants.SLASH + "0";
-			Integer recvCachePartNr = resMessage.getHeaderInt(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER);
-
-			if (recvCachingMethod == SC_CACHING_METHOD.APPEND && (recvCachePartNr == null || recvCachePartNr == 1)) {
-				// first message of appendix - increments number of appendix and create new cache id for message
-				nrOfAppendix = metaEntry.incrementNrOfAppendix();
-				baseDataEntryCid = metaEntryCid + Constants.SLASH + nrOfAppendix;
-				dataEntryCid = baseDataEntryCid + Constants.SLASH + "0";
+			// this happens here because fault replies doesn't have serviceName set.
+			if (resServiceName == null) {
+				LOGGER.error("server did not reply service name (null), response service name set to request serviceName=" + reqServiceName);
+				resServiceName = reqServiceName;
 			}
 
-			String expDateTimeStr = metaEntry.getExpDateTimeStr();
-			// part message arrived - increment part number
-			int nrOfParts = metaEntry.incrementNrOfPartsForDataMsg(dataEntryCid);
-			if (nrOfParts == 0 && nrOfAppendix == 0) {
-				// first part received no appendix - extract number of appendix to be loaded
-				Integer expectedAppendix = resMessage.getHeaderInt(SCMPHeaderAttributeKey.NR_OF_APPENDIX);
-				metaEntry.setExpectedAppendix(expectedAppendix);
-				// evaluate TTL for meta entry - 0 means forever valid (use expire time from header field)
-				expDateTimeStr = resMessage.getHeader(SCMPHeaderAttributeKey.CACHE_EXPIRATION_DATETIME);
-				metaEntry.setExpDateTimeStr(expDateTimeStr);
+			if (resCacheId.equals(reqCacheId) == false) {
+				// requested cache id differs replied cache id, clean up
+				LOGGER.error("cache message (" + reqCacheId + ") removed, server did reply different cache key, cache (" + resCacheId + ")");
+				this.removeMetaAndDataEntries(reqCacheId, "cache message (" + reqCacheId + ") removed, server did reply different cache key, cache (" + resCacheId + ")");
+				return;
 			}
-			int timeToLiveSeconds = this.evalTimeToLiveSeconds(expDateTimeStr);
-
-			// refresh the meta entry
-			metaEntry.setLastModified();
-			// create cache id for received message
-			dataEntryCid = baseDataEntryCid + Constants.SLASH + nrOfParts;
-			// set the correct partNr+1 in received message and cache it, partNr points to the next part!
-			resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfParts + 1);
-
-			if (recvCachingMethod == SC_CACHING_METHOD.INITIAL) {
-				// managed data received add to data in initial state list
-				this.mgdDataKeysInInitialState.add(metaEntryCid);
-				metaEntry.setCachingMethod(recvCachingMethod);
+			// lookup up meta entry
+			String metaEntryCid = resCacheId;
+			SCCacheMetaEntry metaEntry = metaDataCacheModule.get(metaEntryCid);
+
+			if (metaEntry == null) {
+				// no meta entry found, clean up
+				LOGGER.error("Missing metaEntry message can not be cached.");
+				this.removeMetaAndDataEntries(reqCacheId, "Missing metaEntry message can not be cached.");
+				return;
 			}
 
-			if (recvCachingMethod == SC_CACHING_METHOD.NOT_MANAGED) {
-				// setting cacheGuardian to "static" for static data
-				metaEntry.setCacheGuardianName(Constants.STATIC);
+			if (metaEntry.isLoadingSessionId(loadingSid) == false) {
+				// meta entry gets loaded by another sessionId, not allowed clean up
+				LOGGER.error("MetaEntry gets loaded by wrong session, not allowed expected sid=" + metaEntry.getLoadingSessionId() + " loading sid= " + loadingSid);
+				this.removeMetaAndDataEntries(metaEntryCid, "Wrong sid loads MetaEntry, expected sid=" + metaEntry.getLoadingSessionId() + " loading sid=" + loadingSid);
+				return;
 			}
 
-			if (CacheLogger.isEnabled()) {
-				CacheLogger.putMessageToCache(dataEntryCid, nrOfParts, metaEntry.getLoadingSessionId(), resMessage.getBodyLength(), metaEntry.getSCCacheEntryState().name(),
-						recvCachingMethod.name());
-			}
+			// cache the message now!
+			try {
+				int nrOfAppendix = metaEntry.getNrOfAppendix();
+				String baseDataEntryCid = metaEntryCid + Constants.SLASH + nrOfAppendix;
+				String dataEntryCid = baseDataEntryCid + Constants.SLASH + "0";
+				Integer recvCachePartNr = resMessage.getHeaderInt(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER);
+
+				if (recvCachingMethod == SC_CACHING_METHOD.APPEND && (recvCachePartNr == null || recvCachePartNr == 1)) {
+					// first message of appendix - increments number of appendix and create new cache id for message
+					nrOfAppendix = metaEntry.incrementNrOfAppendix();
+					baseDataEntryCid = metaEntryCid + Constants.SLASH + nrOfAppendix;
+					dataEntryCid = baseDataEntryCid + Constants.SLASH + "0";
+				}
 
-			if (resMessage.isPart() == false && metaEntry.getNrOfAppendix() == metaEntry.getExpectedAppendix()) {
-				// last part of message received - refresh meta entry state and expire time
-				metaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
+				String expDateTimeStr = metaEntry.getExpDateTimeStr();
+				// part message arrived - increment part number
+				int nrOfParts = metaEntry.incrementNrOfPartsForDataMsg(dataEntryCid);
+				if (nrOfParts == 0 && nrOfAppendix == 0) {
+					// first part received no appendix - extract number of appendix to be loaded
+					Integer expectedAppendix = resMessage.getHeaderInt(SCMPHeaderAttributeKey.NR_OF_APPENDIX);
+					metaEntry.setExpectedAppendix(expectedAppendix);
+					// evaluate TTL for meta entry - 0 means forever valid (use expire time from header field)
+					expDateTimeStr = resMessage.getHeader(SCMPHeaderAttributeKey.CACHE_EXPIRATION_DATETIME);
+					metaEntry.setExpDateTimeStr(expDateTimeStr);
+				}
+				int timeToLiveSeconds = this.evalTimeToLiveSeconds(expDateTimeStr);
 
-				metaDataCacheModule.replace(metaEntryCid, metaEntry, timeToLiveSeconds);
+				// refresh the meta entry
+				metaEntry.setLastModified();
+				// create cache id for received message
+				dataEntryCid = baseDataEntryCid + Constants.SLASH + nrOfParts;
+				// set the correct partNr+1 in received message and cache it, partNr points to the next part!
+				resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfParts + 1);
 
-				// remove sessionId from loading sessionIds map
-				loadingSessionIds.remove(loadingSid);
-				CacheLogger.finishLoadingCacheMessage(metaEntry.getCacheId(), metaEntry.getLoadingSessionId(), nrOfParts, metaEntry.getNrOfAppendix());
-				Statistics.getInstance().incrementMessagesInCache();
-			} else {
-				// refresh meta entry state
-				metaDataCacheModule.replace(metaEntryCid, metaEntry, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
+				if (recvCachingMethod == SC_CACHING_METHOD.INITIAL) {
+					// managed data received add to data in initial state list
+					this.mgdDataKeysInInitialState.add(metaEntryCid);
+					metaEntry.setCachingMethod(recvCachingMethod);
+				}
+
+				if (recvCachingMethod == SC_CACHING_METHOD.NOT_MANAGED) {
+					// setting cacheGuardian to "static" for static data
+					metaEntry.setCacheGuardianName(Constants.STATIC);
+				}
+
+				if (CacheLogger.isEnabled()) {
+					CacheLogger.putMessageToCache(dataEntryCid, nrOfParts, metaEntry.getLoadingSessionId(), resMessage.getBodyLength(), metaEntry.getSCCacheEntryState().name(),
+							recvCachingMethod.name());
+				}
+
+				if (resMessage.isPart() == false && metaEntry.getNrOfAppendix() == metaEntry.getExpectedAppendix()) {
+					// last part of message received - refresh meta entry state and expire time
+					metaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
+
+					metaDataCacheModule.replace(metaEntryCid, metaEntry, timeToLiveSeconds);
+
+					// remove sessionId from loading sessionIds map
+					loadingSessionIds.remove(loadingSid);
+					CacheLogger.finishLoadingCacheMessage(metaEntry.getCacheId(), metaEntry.getLoadingSessionId(), nrOfParts, metaEntry.getNrOfAppendix());
+					Statistics.getInstance().incrementMessagesInCache();
+				} else {
+					// refresh meta entry state
+					metaDataCacheModule.replace(metaEntryCid, metaEntry, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
+				}
+				// cache data entry - expiration time forever for data entries
+				dataCacheModule.putOrUpdate(dataEntryCid, new SCMPCachedMessage(resMessage), 0);
+			} catch (ParseException e) {
+				LOGGER.error("Parsing of expirationDate failed", e);
+				this.removeMetaAndDataEntries(metaEntryCid, "Parsing of expirationDate failed");
+				return;
+			} catch (SCMPValidatorException e) {
+				LOGGER.error("Validation of expirationDate failed", e);
+				this.removeMetaAndDataEntries(metaEntryCid, "Validation of expirationDate failed");
+				return;
+			} catch (Exception e) {
+				LOGGER.error("Caching message failed", e);
+				this.removeMetaAndDataEntries(metaEntryCid, "Caching message failed");
+				return;
 			}
-			// cache data entry - expiration time forever for data entries
-			dataCacheModule.putOrUpdate(dataEntryCid, resMessage, 0);
-		} catch (ParseException e) {
-			LOGGER.error("Parsing of expirationDate failed", e);
-			this.removeMetaAndDataEntries(metaEntryCid, "Parsing of expirationDate failed");
-			return;
-		} catch (SCMPValidatorException e) {
-			LOGGER.error("Validation of expirationDate failed", e);
-			this.removeMetaAndDataEntries(metaEntryCid, "Validation of expirationDate failed");
-			return;
-		} catch (Exception e) {
-			LOGGER.error("Caching message failed", e);
-			this.removeMetaAndDataEntries(metaEntryCid, "Caching message failed");
-			return;
 		}
 	}
 
@@ -391,199 +504,217 @@ public class SCCache {
 	 * @throws ParseException
 	 * @throws SCMPValidatorException
 	 */
-	public synchronized void cacheManagedData(SCMPMessage resMessage) throws SCMPValidatorException, ParseException {
-		String metaEntryCid = resMessage.getCacheId();
-		String currGuardian = resMessage.getServiceName();
-		String sid = resMessage.getSessionId();
-
-		// lookup up meta entry - no managing of cached data possible without
-		SCCacheMetaEntry metaEntry = metaDataCacheModule.get(metaEntryCid);
-
-		if (metaEntry == null) {
-			// no meta entry found, clean up - no managing of cached data possible
-			LOGGER.info("Missing metaEntry message can not be applied, cid=" + metaEntryCid);
-			this.removeMetaAndDataEntries(metaEntryCid, "Missing metaEntry message can not be applied.");
-			return;
+	public void cacheManagedData(SCMPMessage resMessage) throws SCMPValidatorException, ParseException {
+		try {
+			this.doCacheManagedData(resMessage);
+		} finally {
+			this.removeEvictedEntries();
 		}
+	}
 
-		SC_CACHING_METHOD resCachingMethod = SC_CACHING_METHOD.getCachingMethod(resMessage.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD));
-
-		if (resCachingMethod == SC_CACHING_METHOD.REMOVE) {
-			// remove received - remove existing
-			LOGGER.trace("Remove data received from server (cid=" + metaEntryCid + ", guardian=" + currGuardian + ")");
-			this.removeMetaAndDataEntries(metaEntryCid, "Remove requested from server for cacheId=" + metaEntryCid);
-			return;
-		}
+	/**
+	 * Cache managed data, holding the cacheId lock.
+	 *
+	 * @param resMessage the res message
+	 * @throws ParseException
+	 * @throws SCMPValidatorException
+	 */
+	private void doCacheManagedData(SCMPMessage resMessage) throws SCMPValidatorException, ParseException {
+		synchronized (this.getCacheIdLock(resMessage.getCacheId())) {
+			String metaEntryCid = resMessage.getCacheId();
+			String currGuardian = resMessage.getServiceName();
+			String sid = resMessage.getSessionId();
+
+			// lookup up meta entry - no managing of cached data possible without
+			SCCacheMetaEntry metaEntry = metaDataCacheModule.get(metaEntryCid);
+
+			if (metaEntry == null) {
+				// no meta entry found, clean up - no managing of cached data possible
+				LOGGER.info("Missing metaEntry message can not be applied, cid=" + metaEntryCid);
+				this.removeMetaAndDataEntries(metaEntryCid, "Missing metaEntry message can not be applied.");
+				return;
+			}
 
-		if (metaEntry.isManaged() == false) {
-			LOGGER.error("Managed data received for unmanged existing data in cache. Can not be applied, cid=" + metaEntryCid);
-			return;
-		}
+			SC_CACHING_METHOD resCachingMethod = SC_CACHING_METHOD.getCachingMethod(resMessage.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD));
 
-		if (resCachingMethod == SC_CACHING_METHOD.NOT_MANAGED) {
-			// not managed received
-			LOGGER.error("Wrong cachingMethod in received message cmt=" + resCachingMethod + " metaEntryCid=" + metaEntryCid + ".");
-			return;
-		}
+			if (resCachingMethod == SC_CACHING_METHOD.REMOVE) {
+				// remove received - remove existing
+				LOGGER.trace("Remove data received from server (cid=" + metaEntryCid + ", guardian=" + currGuardian + ")");
+				this.removeMetaAndDataEntries(metaEntryCid, "Remove requested from server for cacheId=" + metaEntryCid);
+				return;
+			}
 
-		if (resCachingMethod == SC_CACHING_METHOD.INITIAL) {
-			// initial received - replace existing
-			if (metaEntry.isLoadingAppendix() == true || (metaEntry.isLoading() && metaEntry.isLoadingSessionId(sid) == false)) {
-				// appendix is loading or initial message by another session - delete existing
-				this.removeMetaAndDataEntries(metaEntryCid, "Initial (replace) requested from server for cacheId=" + metaEntryCid);
-				LOGGER.error("Initial message over guardian retrieved while initial message over session service is still loading or appendix is loading. (metaEntryCacheId="
-						+ metaEntryCid + ", guardian=" + currGuardian + ")");
+			if (metaEntry.isManaged() == false) {
+				LOGGER.error("Managed data received for unmanged existing data in cache. Can not be applied, cid=" + metaEntryCid);
 				return;
 			}
 
-			SCCacheMetaEntry affectedMetaEntry = null;
-			int timeToLiveSeconds = -1;
-			String baseDataEntryCid = metaEntryCid + Constants.SLASH + "0";
-			String initialDataCid = baseDataEntryCid + Constants.SLASH + "0";
+			if (resCachingMethod == SC_CACHING_METHOD.NOT_MANAGED) {
+				// not managed received
+				LOGGER.error("Wrong cachingMethod in received message cmt=" + resCachingMethod + " metaEntryCid=" + metaEntryCid + ".");
+				return;
+			}
 
-			if (metaEntry.isLoading() == true) {
-				// large request in process - metaEntry stays
-				affectedMetaEntry = metaEntry;
-
-				if (resMessage.isPart() == false) {
-					// large replacement finished
-					affectedMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
-					timeToLiveSeconds = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
-					CacheLogger.stopLoadingReplacement(metaEntryCid, currGuardian, affectedMetaEntry.getNrOfParts(initialDataCid) + 1);
-				} else {
-					// large replacements continues
-					timeToLiveSeconds = metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR;
-				}
-			} else {
-				// no large request in process - delete existing
-				this.removeMetaAndDataEntries(metaEntryCid, "Initial (replace) requested from server for cacheId=" + metaEntryCid);
+			if (resCachingMethod == SC_CACHING_METHOD.INITIAL) {
 				// initial received - replace existing
-				LOGGER.trace("initial data received replace existing (cid=" + metaEntryCid + ", guardian=" + currGuardian + ")");
-				// create new metaEntry
-				affectedMetaEntry = new SCCacheMetaEntry(metaEntryCid);
-				affectedMetaEntry.setLoadingTimeoutMillis(metaEntry.getLoadingTimeoutMillis());
-				affectedMetaEntry.setCacheGuardianName(currGuardian);
-				// add cache id to assigned data list
-				if (this.mgdDataAssignedToGuardian.containsKey(currGuardian) == false) {
-					this.mgdDataAssignedToGuardian.put(currGuardian, new HashSet<String>());
+				if (metaEntry.isLoadingAppendix() == true || (metaEntry.isLoading() && metaEntry.isLoadingSessionId(sid) == false)) {
+					// appendix is loading or initial message by another session - delete existing
+					this.removeMetaAndDataEntries(metaEntryCid, "Initial (replace) requested from server for cacheId=" + metaEntryCid);
+					LOGGER.error("Initial message over guardian retrieved while initial message over session service is still loading or appendix is loading. (metaEntryCacheId="
+							+ metaEntryCid + ", guardian=" + currGuardian + ")");
+					return;
 				}
-				this.mgdDataAssignedToGuardian.get(currGuardian).add(metaEntryCid);
-				affectedMetaEntry.setExpDateTimeStr(metaEntry.getExpDateTimeStr());
-				affectedMetaEntry.setHeader(metaEntry.getHeader());
-				affectedMetaEntry.setCachingMethod(SC_CACHING_METHOD.INITIAL);
-				affectedMetaEntry.setLoadingSessionId(sid);
-				if (resMessage.isPart() == true) {
-					// incoming message first part of large request - switch state to loading
-					affectedMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADING);
-					timeToLiveSeconds = metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR;
-					CacheLogger.startLoadingReplacement(metaEntryCid, currGuardian);
+
+				SCCacheMetaEntry affectedMetaEntry = null;
+				int timeToLiveSeconds = -1;
+				String baseDataEntryCid = metaEntryCid + Constants.SLASH + "0";
+				String initialDataCid = baseDataEntryCid + Constants.SLASH + "0";
+
+				if (metaEntry.isLoading() == true) {
+					// large request in process - metaEntry stays
+					affectedMetaEntry = metaEntry;
+
+					if (resMessage.isPart() == false) {
+						// large replacement finished
+						affectedMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
+						timeToLiveSeconds = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
+						CacheLogger.stopLoadingReplacement(metaEntryCid, currGuardian, affectedMetaEntry.getNrOfParts(initialDataCid) + 1);
+					} else {
+						// large replacements continues
+						timeToLiveSeconds = metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR;
+					}
 				} else {
-					affectedMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
-					timeToLiveSeconds = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
-					CacheLogger.replaceExistingData(metaEntryCid, currGuardian);
+					// no large request in process - delete existing
+					this.removeMetaAndDataEntries(metaEntryCid, "Initial (replace) requested from server for cacheId=" + metaEntryCid);
+					// initial received - replace existing
+					LOGGER.trace("initial data received replace existing (cid=" + metaEntryCid + ", guardian=" + currGuardian + ")");
+					// create new metaEntry
+					affectedMetaEntry = new SCCacheMetaEntry(metaEntryCid);
+					affectedMetaEntry.setLoadingTimeoutMillis(metaEntry.getLoadingTimeoutMillis());
+					affectedMetaEntry.setCacheGuardianName(currGuardian);
+					// add cache id to assigned data list
+					this.assignToGuardian(currGuardian, metaEntryCid);
+					affectedMetaEntry.setExpDateTimeStr(metaEntry.getExpDateTimeStr());
+					affectedMetaEntry.setHeader(metaEntry.getHeader());
+					affectedMetaEntry.setCachingMethod(SC_CACHING_METHOD.INITIAL);
+					affectedMetaEntry.setLoadingSessionId(sid);
+					if (resMessage.isPart() == true) {
+						// incoming message first part of large request - switch state to loading
+						affectedMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADING);
+						timeToLiveSeconds = metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR;
+						CacheLogger.startLoadingReplacement(metaEntryCid, currGuardian);
+					} else {
+						affectedMetaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
+						timeToLiveSeconds = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
+						CacheLogger.replaceExistingData(metaEntryCid, currGuardian);
+					}
+					// refresh the meta entry
+					affectedMetaEntry.setLastModified();
 				}
-				// refresh the meta entry
-				affectedMetaEntry.setLastModified();
-			}
-
-			// part message arrived - increment part number
-			int nrOfParts = affectedMetaEntry.incrementNrOfPartsForDataMsg(initialDataCid);
-			String dataEntryCid = baseDataEntryCid + Constants.SLASH + nrOfParts;
 
-			metaDataCacheModule.putOrUpdate(metaEntryCid, affectedMetaEntry, timeToLiveSeconds);
-			// set the correct partNr+1 in received message and cache it, partNr points to the next part!
-			resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfParts + 1);
-			// cache data entry - expiration time forever for data entries
-			dataCacheModule.putOrUpdate(dataEntryCid, resMessage, 0);
-			CacheLogger.putManagedDataToCache(dataEntryCid, currGuardian, 0, nrOfParts);
-			return;
-		}
+				// part message arrived - increment part number
+				int nrOfParts = affectedMetaEntry.incrementNrOfPartsForDataMsg(initialDataCid);
+				String dataEntryCid = baseDataEntryCid + Constants.SLASH + nrOfParts;
 
-		String guardianOfCachedMsg = metaEntry.getCacheGuardianName();
-		if (guardianOfCachedMsg.equals("unset") == true) {
-			// no cache guardian assigned to message, set it now!
-			metaEntry.setCacheGuardianName(currGuardian);
-			// remove cache id from initial data list
-			boolean deleteResult = this.mgdDataKeysInInitialState.remove(metaEntryCid);
+				metaDataCacheModule.putOrUpdate(metaEntryCid, affectedMetaEntry, timeToLiveSeconds);
+				// set the correct partNr+1 in received message and cache it, partNr points to the next part!
+				resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfParts + 1);
+				// cache data entry - expiration time forever for data entries
+				dataCacheModule.putOrUpdate(dataEntryCid, new SCMPCachedMessage(resMessage), 0);
+				CacheLogger.putManagedDataToCache(dataEntryCid, currGuardian, 0, nrOfParts);
+				return;
+			}
 
-			if (deleteResult == false) {
-				// deletion failed - update retrieved for non-managed data
-				LOGGER.error("Update retrieved for non-managed data, update ignored. (metaEntryCacheId=" + metaEntryCid + ", resCacheGuardian=" + currGuardian
+			String guardianOfCachedMsg = metaEntry.getCacheGuardianName();
+			if (guardianOfCachedMsg.equals("unset") == true) {
+				// no cache guardian assigned to message, set it now!
+				metaEntry.setCacheGuardianName(currGuardian);
+				// remove cache id from initial data list
+				boolean deleteResult = this.mgdDataKeysInInitialState.remove(metaEntryCid);
+
+				if (deleteResult == false) {
+					// deletion failed - update retrieved for non-managed data
+					LOGGER.error("Update retrieved for non-managed data, update ignored. (metaEntryCacheId=" + metaEntryCid + ", resCacheGuardian=" + currGuardian
+							+ ", guardianOfCachedMsg=" + guardianOfCachedMsg + ")");
+					return;
+				}
+				// add cache id to assigned data list
+				this.assignToGuardian(currGuardian, metaEntryCid);
+			} else if (guardianOfCachedMsg.equals(currGuardian) == false) {
+				// managed data retrieved of different cache guardian - ignore data
+				LOGGER.trace("Managed data ignored, different cache guardian responsible for treatment. (metaEntryCid=" + metaEntryCid + ", resCacheGuardian=" + currGuardian
 						+ ", guardianOfCachedMsg=" + guardianOfCachedMsg + ")");
 				return;
 			}
-			// add cache id to assigned data list
-			if (this.mgdDataAssignedToGuardian.containsKey(currGuardian) == false) {
-				this.mgdDataAssignedToGuardian.put(currGuardian, new HashSet<String>());
-			}
-			this.mgdDataAssignedToGuardian.get(currGuardian).add(metaEntryCid);
-		} else if (guardianOfCachedMsg.equals(currGuardian) == false) {
-			// managed data retrieved of different cache guardian - ignore data
-			LOGGER.trace("Managed data ignored, different cache guardian responsible for treatment. (metaEntryCid=" + metaEntryCid + ", resCacheGuardian=" + currGuardian
-					+ ", guardianOfCachedMsg=" + guardianOfCachedMsg + ")");
-			return;
-		}
-
-		if (metaEntry.isLoading() == true) {
-			// message is being loaded
-			LOGGER.error("Appendix reveived, base message still loading - delete data to avoid inconsistency.");
-			this.removeMetaAndDataEntries(metaEntryCid, "Appendix reveived, base message still loading.");
-		} else if (resCachingMethod == SC_CACHING_METHOD.APPEND) {
-			// append received - append to existing
-			if (metaEntry.isLoadingAppendix() == true) {
-				// meta entry loading appendix
-				int appendixNr = metaEntry.getNrOfAppendix();
-				String dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + "0";
-				int nrOfPartsForAppendix = metaEntry.incrementNrOfPartsForDataMsg(dataEntryCid);
-				dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + nrOfPartsForAppendix;
-				// set the correct partNr+1 in received message and cache it, partNr points to the next part!
-				resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfPartsForAppendix + 1);
-
-				// cache appendix, managed data expiration time forever
-				dataCacheModule.putOrUpdate(dataEntryCid, resMessage, 0);
 
-				if (resMessage.isPart() == true) {
-					// part of large appendix received, update meta entry
-					metaDataCacheModule.replace(metaEntryCid, metaEntry, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
-					CacheLogger.putManagedDataToCache(dataEntryCid, currGuardian, appendixNr, nrOfPartsForAppendix);
-				} else {
-					// end of large appendix received
-					metaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
-					// update meta entry
-					int timeToLive = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
-					metaDataCacheModule.replace(metaEntryCid, metaEntry, timeToLive);
-					CacheLogger.finishCachingAppendix(dataEntryCid, currGuardian, nrOfPartsForAppendix);
-				}
-			} else {
-				// meta entry is loaded - appendix received, increment counter
-				int appendixNr = metaEntry.incrementNrOfAppendix();
-				String dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + "0";
-				// increment number of parts for appendix in meta entry
-				int nrOfPart = metaEntry.incrementNrOfPartsForDataMsg(dataEntryCid);
-
-				// update initial message with correct number of appendix
-				String initialDataCid = metaEntryCid + Constants.SLASH + "0" + Constants.SLASH + "0";
-				SCMPMessage initialData = dataCacheModule.get(initialDataCid);
-				initialData.setHeader(SCMPHeaderAttributeKey.NR_OF_APPENDIX, appendixNr);
-				// expiration time forever for data entries
-				dataCacheModule.putOrUpdate(initialDataCid, initialData, 0);
-
-				if (resMessage.isPart() == true) {
-					// start of large appendix received, update meta entry
-					metaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADING_APPENDIX);
+			if (metaEntry.isLoading() == true) {
+				// message is being loaded
+				LOGGER.error("Appendix reveived, base message still loading - delete data to avoid inconsistency.");
+				this.removeMetaAndDataEntries(metaEntryCid, "Appendix reveived, base message still loading.");
+			} else if (resCachingMethod == SC_CACHING_METHOD.APPEND) {
+				// append received - append to existing
+				if (metaEntry.isLoadingAppendix() == true) {
+					// meta entry loading appendix
+					int appendixNr = metaEntry.getNrOfAppendix();
+					String dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + "0";
+					int nrOfPartsForAppendix = metaEntry.incrementNrOfPartsForDataMsg(dataEntryCid);
+					dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + nrOfPartsForAppendix;
 					// set the correct partNr+1 in received message and cache it, partNr points to the next part!
-					resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfPart + 1);
-					// update meta entry, expiration time
-					metaDataCacheModule.replace(metaEntryCid, metaEntry, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
-					CacheLogger.startCachingAppendix(dataEntryCid, currGuardian, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
+					resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfPartsForAppendix + 1);
+
+					// cache appendix, managed data expiration time forever
+					dataCacheModule.putOrUpdate(dataEntryCid, new SCMPCachedMessage(resMessage), 0);
+
+					if (resMessage.isPart() == true) {
+						// part of large appendix received, update meta entry
+						metaDataCacheModule.replace(metaEntryCid, metaEntry, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
+						CacheLogger.putManagedDataToCache(dataEntryCid, currGuardian, appendixNr, nrOfPartsForAppendix);
+					} else {
+						// end of large appendix received
+						metaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADED);
+						// update meta entry
+						int timeToLive = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
+						metaDataCacheModule.replace(metaEntryCid, metaEntry, timeToLive);
+						CacheLogger.finishCachingAppendix(dataEntryCid, currGuardian, nrOfPartsForAppendix);
+					}
 				} else {
-					// appendix received, update meta entry, expiration time
-					int timeToLive = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
-					metaDataCacheModule.replace(metaEntryCid, metaEntry, timeToLive);
-					CacheLogger.putManagedDataToCache(dataEntryCid, currGuardian, appendixNr, nrOfPart);
+					// meta entry is loaded - appendix received, increment counter
+					int appendixNr = metaEntry.incrementNrOfAppendix();
+					String dataEntryCid = metaEntryCid + Constants.SLASH + appendixNr + Constants.SLASH + "0";
+					// increment number of parts for appendix in meta entry
+					int nrOfPart = metaEntry.incrementNrOfPartsForDataMsg(dataEntryCid);
+
+					// update initial message with correct number of appendix
+					String initialDataCid = metaEntryCid + Constants.SLASH + "0" + Constants.SLASH + "0";
+					SCMPCachedMessage initialCachedData = dataCacheModule.get(initialDataCid);
+					if (initialCachedData == null) {
+						// initial data has been evicted, appendix can not be applied
+						LOGGER.warn("Initial data missing, appendix can not be applied, cid=" + metaEntryCid);
+						this.removeMetaAndDataEntries(metaEntryCid, "Initial data missing, appendix can not be applied.");
+						return;
+					}
+					SCMPMessage initialData = initialCachedData.newMessage();
+					initialData.setHeader(SCMPHeaderAttributeKey.NR_OF_APPENDIX, appendixNr);
+					// expiration time forever for data entries
+					dataCacheModule.putOrUpdate(initialDataCid, new SCMPCachedMessage(initialData), 0);
+
+					if (resMessage.isPart() == true) {
+						// start of large appendix received, update meta entry
+						metaEntry.setCacheEntryState(SC_CACHE_ENTRY_STATE.LOADING_APPENDIX);
+						// set the correct partNr+1 in received message and cache it, partNr points to the next part!
+						resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, nrOfPart + 1);
+						// update meta entry, expiration time
+						metaDataCacheModule.replace(metaEntryCid, metaEntry, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
+						CacheLogger.startCachingAppendix(dataEntryCid, currGuardian, metaEntry.getLoadingTimeoutMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
+					} else {
+						// appendix received, update meta entry, expiration time
+						int timeToLive = this.evalTimeToLiveSeconds(metaEntry.getExpDateTimeStr());
+						metaDataCacheModule.replace(metaEntryCid, metaEntry, timeToLive);
+						CacheLogger.putManagedDataToCache(dataEntryCid, currGuardian, appendixNr, nrOfPart);
+					}
+					// cache appendix, managed data expiration forever
+					dataCacheModule.putOrUpdate(dataEntryCid, new SCMPCachedMessage(resMessage), 0);
 				}
-				// cache appendix, managed data expiration forever
-				dataCacheModule.putOrUpdate(dataEntryCid, resMessage, 0);
 			}
 		}
 	}
@@ -595,19 +726,21 @@ public class SCCache {
 	 * @param metaEntryCacheId the cache id
 	 * @param removeReason the remove reason
 	 */
-	private synchronized void removeMetaAndDataEntries(String metaEntryCacheId, String removeReason) {
+	private void removeMetaAndDataEntries(String metaEntryCacheId, String removeReason) {
 		if (metaEntryCacheId == null) {
 			// cacheId null no remove possible
 			return;
 		}
-		// remove meta entry
-		SCCacheMetaEntry metaEntry = metaDataCacheModule.remove(metaEntryCacheId);
-		if (metaEntry == null) {
-			// no entry found
-			return;
+		synchronized (this.getCacheIdLock(metaEntryCacheId)) {
+			// remove meta entry
+			SCCacheMetaEntry metaEntry = metaDataCacheModule.remove(metaEntryCacheId);
+			if (metaEntry == null) {
+				// no entry found
+				return;
+			}
+			CacheLogger.removeMessageFromCache(metaEntryCacheId, removeReason);
+			this.removeDataEntriesByMetaEntry(metaEntry, removeReason);
 		}
-		CacheLogger.removeMessageFromCache(metaEntryCacheId, removeReason);
-		this.removeDataEntriesByMetaEntry(metaEntry, removeReason);
 	}
 
 	/**
@@ -616,27 +749,114 @@ public class SCCache {
 	 * @param metaEntry the meta entry
 	 * @param removeReason the remove reason
 	 */
-	public synchronized void removeDataEntriesByMetaEntry(SCCacheMetaEntry metaEntry, String removeReason) {
+	public void removeDataEntriesByMetaEntry(SCCacheMetaEntry metaEntry, String removeReason) {
+		synchronized (this.getCacheIdLock(metaEntry.getCacheId())) {
+			String metaEntryCid = metaEntry.getCacheId();
+			// remove data entries - appendices belonging to the message
+			for (String dataCid : this.getDataEntryCids(metaEntry)) {
+				dataCacheModule.remove(dataCid);
+				CacheLogger.removeMessageFromCache(dataCid, removeReason);
+			}
+			this.loadingSessionIds.remove(metaEntry.getLoadingSessionId());
+			this.mgdDataKeysInInitialState.remove(metaEntryCid);
+			Set<String> cids = this.mgdDataAssignedToGuardian.get(metaEntry.getCacheGuardianName());
+			if (cids != null) {
+				cids.remove(metaEntryCid);
+			}
+		}
+	}
+
+	/**
+	 * Meta entry expired. Removes the data entries of the expired meta entry. Called by cache modules expiring their entries.
+	 *
+	 * @param metaEntry the expired meta entry
+	 */
+	public void metaEntryExpired(SCCacheMetaEntry metaEntry) {
+		LOGGER.debug("Cache element of type SCCacheMetaEntry expired, cid: " + metaEntry.getCacheId());
+		CacheLogger.messageExpired(metaEntry.getCacheId());
+		this.removeDataEntriesByMetaEntry(metaEntry, "Meta Entry expired!");
+		Statistics.getInstance().decrementMessagesInCache();
+	}
+
+	/**
+	 * Meta entry evicted. Called by cache modules evicting entries, not holding the lock of the module. The data entries of the evicted meta entry get removed.
+	 *
+	 * @param metaEntry the evicted meta entry
+	 */
+	public void metaEntryEvicted(SCCacheMetaEntry metaEntry) {
+		if (this.isCacheEnabled() == false) {
+			return;
+		}
+		this.evictedMetaEntries.add(metaEntry);
+		this.removeEvictedEntries();
+	}
+
+	/**
+	 * Data entry evicted. Called by cache modules evicting entries, not holding the lock of the module. The meta entry and all data entries of the message get
+	 * removed.
+	 *
+	 * @param dataEntryCid the evicted data entry cache id, cacheId/appendixNr/partNr
+	 */
+	public void dataEntryEvicted(String dataEntryCid) {
+		if (this.isCacheEnabled() == false) {
+			return;
+		}
+		int partNrIndex = dataEntryCid.lastIndexOf(Constants.SLASH);
+		int appendixNrIndex = partNrIndex <= 0 ? -1 : dataEntryCid.lastIndexOf(Constants.SLASH, partNrIndex - 1);
+		if (appendixNrIndex <= 0) {
+			LOGGER.error("Evicted data entry has an invalid cache id, cid=" + dataEntryCid);
+			return;
+		}
+		this.evictedMetaEntryCids.add(dataEntryCid.substring(0, appendixNrIndex));
+		this.removeEvictedEntries();
+	}
+
+	/**
+	 * Removes the evicted messages. A thread holding a cacheId lock must not take another one, evicted messages are removed later by the thread when it does not
+	 * hold any cacheId lock any more.
+	 */
+	private void removeEvictedEntries() {
+		if (this.evictedMetaEntries.isEmpty() && this.evictedMetaEntryCids.isEmpty()) {
+			return;
+		}
+		for (Object cacheIdLock : this.cacheIdLocks) {
+			if (Thread.holdsLock(cacheIdLock)) {
+				return;
+			}
+		}
+		SCCacheMetaEntry metaEntry;
+		while ((metaEntry = this.evictedMetaEntries.poll()) != null) {
+			CacheLogger.removeMessageFromCache(metaEntry.getCacheId(), "Meta Entry evicted!");
+			this.removeDataEntriesByMetaEntry(metaEntry, "Meta Entry evicted!");
+			if (metaEntry.isLoaded()) {
+				Statistics.getInstance().decrementMessagesInCache();
+			}
+		}
+		String metaEntryCid;
+		while ((metaEntryCid = this.evictedMetaEntryCids.poll()) != null) {
+			this.removeMetaAndDataEntries(metaEntryCid, "Data Entry evicted!");
+		}
+	}
+
+	/**
+	 * Gets the cache ids of the data entries belonging to a meta entry, parts of every appendix.
+	 *
+	 * @param metaEntry the meta entry
+	 * @return the data entry cache ids
+	 */
+	private List<String> getDataEntryCids(SCCacheMetaEntry metaEntry) {
 		String metaEntryCid = metaEntry.getCacheId();
 		int nrOfAppendices = metaEntry.getNrOfAppendix();
-
-		// remove data entries - appendices belonging to the message
+		List<String> dataCids = new ArrayList<String>();
 		for (int i = 0; i <= nrOfAppendices; i++) {
 			String appendixCid = metaEntryCid + Constants.SLASH + i + Constants.SLASH + "0";
 			int nrOfPartsOfAppendix = metaEntry.getNrOfParts(appendixCid);
 
 			for (int index = 0; index <= nrOfPartsOfAppendix; index++) {
-				String dataCid = metaEntryCid + Constants.SLASH + i + Constants.SLASH + index;
-				dataCacheModule.remove(dataCid);
-				CacheLogger.removeMessageFromCache(dataCid, removeReason);
+				dataCids.add(metaEntryCid + Constants.SLASH + i + Constants.SLASH + index);
 			}
 		}
-		this.loadingSessionIds.remove(metaEntry.getLoadingSessionId());
-		this.mgdDataKeysInInitialState.remove(metaEntryCid);
-		Set<String> cids = this.mgdDataAssignedToGuardian.get(metaEntry.getCacheGuardianName());
-		if (cids != null) {
-			cids.remove(metaEntryCid);
-		}
+		return dataCids;
 	}
 
 	/**
@@ -644,7 +864,7 @@ public class SCCache {
 	 *
 	 * @param cacheGuardian the cache guardian
 	 */
-	public synchronized void removeManagedDataForGuardian(String cacheGuardian) {
+	public void removeManagedDataForGuardian(String cacheGuardian) {
 
 		// remove managed data in initial state
 		String[] metaEntryCacheIds = this.mgdDataKeysInInitialState.toArray(new String[0]);
@@ -653,17 +873,52 @@ public class SCCache {
 		}
 
 		// removed managed data assigned to cache guardian
-		if (this.mgdDataAssignedToGuardian.containsKey(cacheGuardian) == false) {
+		Set<String> assignedCacheIds = this.mgdDataAssignedToGuardian.get(cacheGuardian);
+		if (assignedCacheIds == null) {
 			// no managed data to delete
 			return;
 		}
-		metaEntryCacheIds = this.mgdDataAssignedToGuardian.get(cacheGuardian).toArray(new String[0]);
+		metaEntryCacheIds = assignedCacheIds.toArray(new String[0]);
 		for (String metaEntryCacheId : metaEntryCacheIds) {
 			this.removeMetaAndDataEntries(metaEntryCacheId, "Broken or inactive Cache Guardian, name=" + cacheGuardian);
 		}
 		this.mgdDataAssignedToGuardian.remove(cacheGuardian);
 	}
 
+	/**
+	 * Assigns managed data to a cache guardian.
+	 *
+	 * @param cacheGuardian the cache guardian
+	 * @param metaEntryCid the meta entry cache id
+	 */
+	private void assignToGuardian(String cacheGuardian, String metaEntryCid) {
+		Set<String> cids = this.mgdDataAssignedToGuardian.get(cacheGuardian);
+		if (cids == null) {
+			Set<String> newCids = ConcurrentHashMap.newKeySet();
+			cids = this.mgdDataAssignedToGuardian.putIfAbsent(cacheGuardian, newCids);
+			if (cids == null) {
+				cids = newCids;
+			}
+		}
+		cids.add(metaEntryCid);
+	}
+
+	/**
+	 * Gets the lock guarding the meta entry with given cache id and its data entries.
+	 *
+	 * @param metaEntryCid the meta entry cache id
+	 * @return the lock
+	 */
+	private Object getCacheIdLock(String metaEntryCid) {
+		if (metaEntryCid == null) {
+			return this.cacheIdLocks[0];
+		}
+		int hash = metaEntryCid.hashCode();
+		// spread higher bits, stripes are selected by the lower bits
+		hash ^= (hash >>> 16);
+		return this.cacheIdLocks[hash & (this.cacheIdLocks.length - 1)];
+	}
+
 	/**
 	 * Evaluates time to live in seconds.
 	 *
@@ -769,7 +1024,7 @@ public class SCCache {
 	 *
 	 * @return the loading session ids
 	 */
-	public HashMap<String, String> getLoadingSessionIds() {
+	public Map<String, String> getLoadingSessionIds() {
 		return this.loadingSessionIds;
 	}
 
@@ -778,7 +1033,7 @@ public class SCCache {
 	 *
 	 * @param sessionId the session id
 	 */
-	public synchronized void clearLoading(String sessionId) {
+	public void clearLoading(String sessionId) {
 		String cachekey = this.loadingSessionIds.remove(sessionId);
 		if (cachekey != null) {
 			CacheLogger.abortLoadingMessage(cachekey, sessionId);
@@ -789,7 +1044,22 @@ public class SCCache {
 	/**
 	 * Clear all caches.
 	 */
-	public synchronized void clearAll() {
+	public void clearAll() {
+		this.clearAll(0);
+	}
+
+	/**
+	 * Clear all caches. Acquires the cacheId locks in ascending order, clears the caches when all locks are held.
+	 *
+	 * @param lockIndex the index of the next lock to acquire
+	 */
+	private void clearAll(int lockIndex) {
+		if (lockIndex < this.cacheIdLocks.length) {
+			synchronized (this.cacheIdLocks[lockIndex]) {
+				this.clearAll(lockIndex + 1);
+			}
+			return;
+		}
 		CacheLogger.clearCache();
 		metaDataCacheModule.removeAll();
 		dataCacheModule.removeAll();
@@ -797,16 +1067,21 @@ public class SCCache {
 	}
 
 	/**
-	 * Destroy all cache modules controlled by this cache. Destroys the cache factory.
+	 * Destroy all cache modules controlled by this cache. Destroys the cache factory. Entries of a persistent cache are kept for the next start.
 	 */
 	public void destroy() {
 		LOGGER.trace("destroy cache and active cache modules");
+		boolean persistent = this.scCacheConfiguration.getCacheType() == SC_CACHE_TYPE.PERSISTENT;
 		AppContext.getCacheModuleRegistry().removeCache(dataCacheModule.getCacheModuleName());
-		dataCacheModule.removeAll();
+		if (persistent == false) {
+			dataCacheModule.removeAll();
+		}
 		dataCacheModule.destroy();
 
 		AppContext.getCacheModuleRegistry().removeCache(metaDataCacheModule.getCacheModuleName());
-		metaDataCacheModule.removeAll();
+		if (persistent == false) {
+			metaDataCacheModule.removeAll();
+		}
 		metaDataCacheModule.destroy();
 		CacheLogger.clearCache();
 
@@ -825,6 +1100,7 @@ public class SCCache {
 		// dump cache
 		writer.writeStartElement("cache");
 		writer.writeAttribute("enabled", this.isCacheEnabled());
+		writer.writeAttribute("type", this.getCacheConfiguration().getCacheType().getValue());
 		writer.writeAttribute("diskPath", this.getCacheConfiguration().getDiskPath());
 		writer.writeAttribute("maxElementsInMemory", this.getCacheConfiguration().getMaxElementsInMemory());
 		writer.writeAttribute("maxElementsOnDisk", this.getCacheConfiguration().getMaxElementsOnDisk());
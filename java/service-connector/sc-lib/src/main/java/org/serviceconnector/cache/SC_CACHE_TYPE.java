@@ -0,0 +1,67 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.cache;
+
+import org.serviceconnector.util.IReversibleEnum;
+import org.serviceconnector.util.ReverseEnumMap;
+
+/**
+ * The Enumeration SC_CACHE_TYPE. Implementation of the cache modules, configured by property cache.type.
+ */
+public enum SC_CACHE_TYPE implements IReversibleEnum<String, SC_CACHE_TYPE> {
+
+	EHCACHE("ehcache"), // cache modules implemented by EHCache, cache is cleared at start
+	PERSISTENT("persistent"), // cache modules stored in memory mapped segment files, cache survives a restart
+	OFF_HEAP("offHeap"); // cache modules stored in direct memory, size limited in bytes, cache is cleared at start
+
+	/** The value. */
+	private String value;
+
+	/** The reverseMap, to get access to the enumeration constants by string value. */
+	private static final ReverseEnumMap<String, SC_CACHE_TYPE> REVERSE_MAP = new ReverseEnumMap<String, SC_CACHE_TYPE>(SC_CACHE_TYPE.class);
+
+	/**
+	 * Instantiates a new cache type.
+	 *
+	 * @param value the value
+	 */
+	private SC_CACHE_TYPE(String value) {
+		this.value = value;
+	}
+
+	/**
+	 * Gets the cache type.
+	 *
+	 * @param typeString the type string
+	 * @return the cache type, null if typeString doesn't match to a valid type
+	 */
+	public static SC_CACHE_TYPE getCacheType(String typeString) {
+		return REVERSE_MAP.get(typeString);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getValue() {
+		return this.value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public SC_CACHE_TYPE reverse(String typeString) {
+		return SC_CACHE_TYPE.getCacheType(typeString);
+	}
+}
@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 import org.serviceconnector.cache.ISCCacheModule;
 import org.serviceconnector.cache.SCCache;
 import org.serviceconnector.cache.SCCacheMetaEntry;
+import org.serviceconnector.scmp.SCMPCachedMessage;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPPart;
 
@@ -63,7 +64,10 @@ public class EHCacheImpl<T> implements ISCCacheModule<T> {
 		// Any object delivered by the cache should be copied to avoid modifications done by consumers
 		Object objectValue = element.getObjectValue();
 
-		if (objectValue instanceof SCMPPart) {
+		if (objectValue instanceof SCMPCachedMessage) {
+			// immutable, shared by all consumers
+			return (T) objectValue;
+		} else if (objectValue instanceof SCMPPart) {
 			SCMPPart copiedSCMPPart = null;
 			copiedSCMPPart = new SCMPPart((SCMPPart) objectValue);
 			return (T) copiedSCMPPart;
@@ -91,8 +95,10 @@ public class EHCacheImpl<T> implements ISCCacheModule<T> {
 			throw new IllegalArgumentException("timeToLive can't be negative");
 		}
 
-		// Any object put to the cache should be copied to avoid modifications done by consumers
-		if (value instanceof SCMPPart) {
+		// Any object put to the cache should be copied to avoid modifications done by consumers, immutable objects are stored as they are
+		if (value instanceof SCMPCachedMessage) {
+			// nothing to copy
+		} else if (value instanceof SCMPPart) {
 			value = (T) new SCMPPart((SCMPPart) value);
 		} else if (value instanceof SCMPMessage) {
 			value = (T) new SCMPMessage((SCMPMessage) value);
@@ -116,8 +122,10 @@ public class EHCacheImpl<T> implements ISCCacheModule<T> {
 			throw new IllegalArgumentException("timeToLive can't be negative");
 		}
 
-		// Any object put to the cache should be copied to avoid modifications done by consumers
-		if (value instanceof SCMPPart) {
+		// Any object put to the cache should be copied to avoid modifications done by consumers, immutable objects are stored as they are
+		if (value instanceof SCMPCachedMessage) {
+			// nothing to copy
+		} else if (value instanceof SCMPPart) {
 			value = (T) new SCMPPart((SCMPPart) value);
 		} else if (value instanceof SCMPMessage) {
 			value = (T) new SCMPMessage((SCMPMessage) value);
@@ -16,11 +16,16 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.cache.ehcache;
 
+import java.io.File;
+
 import org.serviceconnector.cache.ISCCacheModule;
 import org.serviceconnector.cache.SCCacheMetaEntry;
 import org.serviceconnector.cache.SC_CACHE_MODULE_TYPE;
+import org.serviceconnector.cache.SC_CACHE_TYPE;
+import org.serviceconnector.cache.offheap.OffHeapCacheImpl;
+import org.serviceconnector.cache.persistent.PersistentCacheImpl;
 import org.serviceconnector.conf.SCCacheConfiguration;
-import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPCachedMessage;
 
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.config.CacheConfiguration;
@@ -29,7 +34,8 @@ import net.sf.ehcache.config.DiskStoreConfiguration;
 
 /**
  * A factory for creating SCCache objects. Default caches are implemented by EHCache. Factory knows how to create/configure an EHCache instance. It holds the EHCache cacheManager
- * which is necessary to take care of if you use EHCache.
+ * which is necessary to take care of if you use EHCache. Persistent caches (cache type persistent) are implemented by PersistentCacheImpl, each cache module is stored in a
+ * subdirectory of the disk path.
  */
 public final class SCCacheFactory {
 
@@ -102,8 +108,15 @@ public final class SCCacheFactory {
 	 * @return the ISC cache
 	 */
 	public static ISCCacheModule<?> createDefaultSCCache(SCCacheConfiguration scCacheConfiguration, SC_CACHE_MODULE_TYPE cacheType) {
-		// sets up the configuration needed for the EHCache
 		String diskPath = scCacheConfiguration.getDiskPath();
+		if (scCacheConfiguration.getCacheType() == SC_CACHE_TYPE.PERSISTENT) {
+			return SCCacheFactory.createPersistentSCCache(scCacheConfiguration, cacheType);
+		}
+		if (scCacheConfiguration.getCacheType() == SC_CACHE_TYPE.OFF_HEAP) {
+			return SCCacheFactory.createOffHeapSCCache(scCacheConfiguration, cacheType);
+		}
+
+		// sets up the configuration needed for the EHCache
 
 		// Configuration for EHCache cache
 		CacheConfiguration ehCacheConfiguration = new CacheConfiguration();
@@ -125,7 +138,7 @@ public final class SCCacheFactory {
 				cacheData = new EHCacheImpl<SCCacheMetaEntry>(ehCacheConfiguration);
 				break;
 			case DATA_CACHE_MODULE:
-				cacheData = new EHCacheImpl<SCMPMessage>(ehCacheConfiguration);
+				cacheData = new EHCacheImpl<SCMPCachedMessage>(ehCacheConfiguration);
 				break;
 		}
 
@@ -155,6 +168,45 @@ public final class SCCacheFactory {
 		return cacheData;
 	}
 
+	/**
+	 * Creates a new persistent SCCache object. Entries stored by a previous run of the SC are recovered.
+	 *
+	 * @param scCacheConfiguration the SC cache configuration
+	 * @param cacheType the cache type needed
+	 * @return the ISC cache
+	 */
+	private static ISCCacheModule<?> createPersistentSCCache(SCCacheConfiguration scCacheConfiguration, SC_CACHE_MODULE_TYPE cacheType) {
+		File directory = new File(scCacheConfiguration.getDiskPath(), cacheType.name());
+		int segmentSize = scCacheConfiguration.getSegmentSizeMB() << 20;
+		int expirationCheckIntervalSeconds = scCacheConfiguration.getExpirationCheckIntervalSeconds();
+		switch (cacheType) {
+			case META_DATA_CACHE_MODULE:
+				return new PersistentCacheImpl<SCCacheMetaEntry>(cacheType.name(), directory, segmentSize, expirationCheckIntervalSeconds);
+			case DATA_CACHE_MODULE:
+				return new PersistentCacheImpl<SCMPCachedMessage>(cacheType.name(), directory, segmentSize, expirationCheckIntervalSeconds);
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a new off heap SCCache object. Entries are stored in direct memory, the size of a cache module is limited in bytes.
+	 *
+	 * @param scCacheConfiguration the SC cache configuration
+	 * @param cacheType the cache type needed
+	 * @return the ISC cache
+	 */
+	private static ISCCacheModule<?> createOffHeapSCCache(SCCacheConfiguration scCacheConfiguration, SC_CACHE_MODULE_TYPE cacheType) {
+		long maxBytes = (long) scCacheConfiguration.getMaxOffHeapSizeMB() << 20;
+		int expirationCheckIntervalSeconds = scCacheConfiguration.getExpirationCheckIntervalSeconds();
+		switch (cacheType) {
+			case META_DATA_CACHE_MODULE:
+				return new OffHeapCacheImpl<SCCacheMetaEntry>(cacheType.name(), maxBytes, expirationCheckIntervalSeconds);
+			case DATA_CACHE_MODULE:
+				return new OffHeapCacheImpl<SCMPCachedMessage>(cacheType.name(), maxBytes, expirationCheckIntervalSeconds);
+		}
+		return null;
+	}
+
 	/**
 	 * Destroys factory and shuts down resources.
 	 */
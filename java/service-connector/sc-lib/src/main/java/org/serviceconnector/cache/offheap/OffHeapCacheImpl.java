@@ -0,0 +1,631 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.cache.offheap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.serviceconnector.cache.ISCCacheModule;
+import org.serviceconnector.cache.SCCacheMetaEntry;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.EncodingDecodingException;
+import org.serviceconnector.scmp.SCMPCachedMessage;
+import org.serviceconnector.util.NamedPriorityThreadFactory;
+
+/**
+ * The Class OffHeapCacheImpl. Cache module storing the encoded entries outside the heap, a cached message occupies the heap only while it is used by a request.
+ * Cached messages are stored as encoded by {@link SCMPCachedMessage#encode()}, their encoded header and body bytes. Other values, the small meta entries, are
+ * stored Java serialized.
+ * Direct memory is allocated in slabs up to the maximum size in bytes, slabs are divided into blocks of BLOCK_SIZE. An entry is stored in as many blocks as needed,
+ * blocks of removed entries are reused. When the maximum size is reached, the least recently used entries are evicted until the new entry fits. The SC cache is
+ * informed about evicted entries, it removes the whole message an evicted entry belongs to.<br />
+ * <br />
+ * Expiration of entries follows the time to live semantic of the EHCache module: expired entries are not returned and get removed by the expiration check, which
+ * runs every expiration check interval. Expired meta entries remove their data entries.
+ *
+ * @param <T> the type of the cached values
+ */
+public class OffHeapCacheImpl<T> implements ISCCacheModule<T> {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapCacheImpl.class);
+	/** The Constant BLOCK_SIZE, unit of allocation in bytes. */
+	static final int BLOCK_SIZE = 1024;
+	/** The Constant SLAB_SIZE, unit of direct memory allocation in bytes. */
+	private static final int SLAB_SIZE = 16 << 20;
+	/** The Constant BLOCKS_PER_SLAB. */
+	private static final int BLOCKS_PER_SLAB = SLAB_SIZE / BLOCK_SIZE;
+	/** The Constant VALUE_CACHED_MESSAGE, value type of an encoded cached message. */
+	private static final byte VALUE_CACHED_MESSAGE = 1;
+	/** The Constant VALUE_SERIALIZED, value type of a Java serialized value. */
+	private static final byte VALUE_SERIALIZED = 2;
+
+	/** The cache module name. */
+	private final String cacheModuleName;
+	/** The maximum number of blocks. */
+	private final int maxBlocks;
+	/** The entries in access order, eldest first. Guarded by this. */
+	private final LinkedHashMap<String, OffHeapEntry> entries;
+	/** The slabs of direct memory. Guarded by this. */
+	private ByteBuffer[] slabs;
+	/** The free blocks, blocks of removed entries. Guarded by this. */
+	private int[] freeBlocks;
+	/** The number of free blocks. Guarded by this. */
+	private int freeBlockCount;
+	/** The number of blocks never used, following the last used block of the slabs. Guarded by this. */
+	private int allocatedBlocks;
+	/** The number of blocks used by entries. Guarded by this. */
+	private int usedBlocks;
+	/** The expiration check scheduler, null if expiration is not checked. */
+	private final ScheduledExecutorService expirationCheckScheduler;
+
+	/**
+	 * Instantiates a new off heap cache module.
+	 *
+	 * @param cacheModuleName the cache module name
+	 * @param maxBytes the maximum size of the stored entries in bytes
+	 * @param expirationCheckIntervalSeconds the expiration check interval in seconds, 0 = no expiration check
+	 */
+	public OffHeapCacheImpl(String cacheModuleName, long maxBytes, int expirationCheckIntervalSeconds) {
+		this.cacheModuleName = cacheModuleName;
+		this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, maxBytes / BLOCK_SIZE);
+		this.entries = new LinkedHashMap<String, OffHeapEntry>(16, 0.75f, true);
+		this.slabs = new ByteBuffer[0];
+		this.freeBlocks = new int[0];
+		this.freeBlockCount = 0;
+		this.allocatedBlocks = 0;
+		this.usedBlocks = 0;
+		if (expirationCheckIntervalSeconds > 0) {
+			this.expirationCheckScheduler = Executors.newSingleThreadScheduledExecutor(new NamedPriorityThreadFactory("SC_CACHE_EXPIRATION"));
+			this.expirationCheckScheduler.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					OffHeapCacheImpl.this.checkExpiration();
+				}
+			}, expirationCheckIntervalSeconds, expirationCheckIntervalSeconds, TimeUnit.SECONDS);
+		} else {
+			this.expirationCheckScheduler = null;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public T get(Object key) {
+		byte[] bytes;
+		byte valueType;
+		T expiredValue = null;
+		synchronized (this) {
+			OffHeapEntry entry = this.entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			long now = System.currentTimeMillis();
+			bytes = this.read(entry);
+			valueType = entry.valueType;
+			if (entry.isExpired(now)) {
+				this.removeEntry((String) key);
+				expiredValue = this.decode(valueType, bytes);
+			} else {
+				entry.lastAccessTime = now;
+			}
+		}
+		if (expiredValue != null) {
+			this.expired(expiredValue);
+			return null;
+		}
+		// decoded outside the lock, the bytes are a copy
+		return this.decode(valueType, bytes);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void putOrUpdate(Object key, T value, int timeToLiveSeconds) {
+		this.write(key, value, timeToLiveSeconds, false);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void replace(Object key, T value, int timeToLiveSeconds) {
+		this.write(key, value, timeToLiveSeconds, true);
+	}
+
+	/**
+	 * Writes the value. The value is encoded before the module gets locked.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param timeToLiveSeconds the time to live in seconds, 0 = forever
+	 * @param replace the replace flag, value is only written if key is present
+	 */
+	private void write(Object key, T value, int timeToLiveSeconds, boolean replace) {
+		if (timeToLiveSeconds < 0) {
+			LOGGER.warn("Caching failed, time to live negative: " + timeToLiveSeconds + " caching key:" + key);
+			throw new IllegalArgumentException("timeToLive can't be negative");
+		}
+		byte valueType;
+		byte[] bytes;
+		try {
+			if (value instanceof SCMPCachedMessage) {
+				valueType = VALUE_CACHED_MESSAGE;
+				bytes = ((SCMPCachedMessage) value).encode();
+			} else {
+				valueType = VALUE_SERIALIZED;
+				ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				ObjectOutputStream oos = new ObjectOutputStream(bos);
+				oos.writeObject(value);
+				oos.close();
+				bytes = bos.toByteArray();
+			}
+		} catch (EncodingDecodingException ex) {
+			LOGGER.error("Caching failed, encoding cached message failed caching key:" + key, ex);
+			return;
+		} catch (IOException ex) {
+			LOGGER.error("Caching failed, serializing value failed caching key:" + key, ex);
+			return;
+		}
+		long creationTime = System.currentTimeMillis();
+		long expirationTime = timeToLiveSeconds == 0 ? 0 : creationTime + timeToLiveSeconds * 1000L;
+		int blockCount = (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		List<EvictedEntry> evictedEntries = new ArrayList<EvictedEntry>(0);
+		try {
+			this.write(key, valueType, bytes, blockCount, creationTime, expirationTime, replace, evictedEntries);
+		} finally {
+			// SC cache gets informed not holding the lock of the module
+			for (EvictedEntry evictedEntry : evictedEntries) {
+				this.evicted(evictedEntry);
+			}
+		}
+	}
+
+	/**
+	 * Writes the encoded value.
+	 *
+	 * @param key the key
+	 * @param valueType the value type
+	 * @param bytes the bytes
+	 * @param blockCount the number of blocks needed
+	 * @param creationTime the creation time
+	 * @param expirationTime the expiration time, 0 = never
+	 * @param replace the replace flag, value is only written if key is present
+	 * @param evictedEntries the evicted entries, filled with the entries evicted to make room for the value
+	 */
+	private synchronized void write(Object key, byte valueType, byte[] bytes, int blockCount, long creationTime, long expirationTime, boolean replace,
+			List<EvictedEntry> evictedEntries) {
+		if (replace) {
+			OffHeapEntry entry = this.entries.get(key);
+			if (entry == null || entry.isExpired(creationTime)) {
+				return;
+			}
+		}
+		this.removeEntry((String) key);
+		if (blockCount > this.maxBlocks) {
+			LOGGER.warn("Caching failed, value larger than cache module size caching key:" + key + " length=" + bytes.length);
+			return;
+		}
+		int[] blocks = new int[blockCount];
+		for (int i = 0; i < blockCount; i++) {
+			blocks[i] = this.allocateBlock(evictedEntries);
+		}
+		OffHeapEntry entry = new OffHeapEntry(valueType, blocks, bytes.length, creationTime, expirationTime);
+		this.writeBlocks(entry, bytes);
+		this.entries.put((String) key, entry);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<String> getKeyList() {
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			List<String> keys = new ArrayList<String>(this.entries.size());
+			for (Entry<String, OffHeapEntry> entry : this.entries.entrySet()) {
+				if (entry.getValue().isExpired(now) == false) {
+					keys.add(entry.getKey());
+				}
+			}
+			return keys;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Date getExpirationTime(String key) {
+		OffHeapEntry entry = this.getEntry(key);
+		if (entry == null) {
+			return null;
+		}
+		return new Date(entry.expirationTime == 0 ? Long.MAX_VALUE : entry.expirationTime);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Date getCreationTime(String key) {
+		OffHeapEntry entry = this.getEntry(key);
+		if (entry == null) {
+			return null;
+		}
+		return new Date(entry.creationTime);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Date getLastAccessTime(String key) {
+		OffHeapEntry entry = this.getEntry(key);
+		if (entry == null) {
+			return null;
+		}
+		return new Date(entry.lastAccessTime);
+	}
+
+	/**
+	 * Gets the entry without changing the access order.
+	 *
+	 * @param key the key
+	 * @return the entry
+	 */
+	private synchronized OffHeapEntry getEntry(String key) {
+		for (Entry<String, OffHeapEntry> entry : this.entries.entrySet()) {
+			if (entry.getKey().equals(key)) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getCacheModuleName() {
+		return this.cacheModuleName;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long getNumberOfMessagesInStore() {
+		return this.entries.size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getNumberOfMessagesInDiskStore() {
+		return 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized long getOffHeapSize() {
+		return (long) this.usedBlocks * BLOCK_SIZE;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getInMemorySize() {
+		// values are not held on the heap
+		return 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public T remove(Object key) {
+		byte[] bytes;
+		byte valueType;
+		synchronized (this) {
+			OffHeapEntry entry = this.entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			bytes = this.read(entry);
+			valueType = entry.valueType;
+			this.removeEntry((String) key);
+		}
+		return this.decode(valueType, bytes);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void removeAll() {
+		// slabs are kept, all blocks get free
+		this.entries.clear();
+		this.freeBlockCount = 0;
+		this.allocatedBlocks = 0;
+		this.usedBlocks = 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void destroy() {
+		if (this.expirationCheckScheduler != null) {
+			this.expirationCheckScheduler.shutdownNow();
+		}
+		synchronized (this) {
+			this.removeAll();
+			// direct memory gets released when the slabs are garbage collected
+			this.slabs = new ByteBuffer[0];
+			this.freeBlocks = new int[0];
+		}
+	}
+
+	/**
+	 * Check expiration. Removes expired entries. Called by the expiration check scheduler.
+	 */
+	public void checkExpiration() {
+		try {
+			long now = System.currentTimeMillis();
+			List<T> expiredValues = new ArrayList<T>();
+			synchronized (this) {
+				Iterator<Entry<String, OffHeapEntry>> iterator = this.entries.entrySet().iterator();
+				while (iterator.hasNext()) {
+					OffHeapEntry entry = iterator.next().getValue();
+					if (entry.isExpired(now)) {
+						expiredValues.add(this.decode(entry.valueType, this.read(entry)));
+						iterator.remove();
+						this.freeBlocks(entry);
+					}
+				}
+			}
+			for (T expiredValue : expiredValues) {
+				this.expired(expiredValue);
+			}
+		} catch (Exception ex) {
+			LOGGER.error("Checking expiration of cache module failed, name=" + this.cacheModuleName, ex);
+		}
+	}
+
+	/**
+	 * Expired. Expired meta entries remove their data entries.
+	 *
+	 * @param value the expired value
+	 */
+	private void expired(T value) {
+		if (value instanceof SCCacheMetaEntry) {
+			AppContext.getSCCache().metaEntryExpired((SCCacheMetaEntry) value);
+		}
+	}
+
+	/**
+	 * Evicted. The SC cache removes the message the evicted entry belongs to. Must be called not holding the lock of this.
+	 *
+	 * @param evictedEntry the evicted entry
+	 */
+	private void evicted(EvictedEntry evictedEntry) {
+		try {
+			if (evictedEntry.valueType == VALUE_CACHED_MESSAGE) {
+				AppContext.getSCCache().dataEntryEvicted(evictedEntry.key);
+				return;
+			}
+			T value = this.decode(evictedEntry.valueType, evictedEntry.bytes);
+			if (value instanceof SCCacheMetaEntry) {
+				AppContext.getSCCache().metaEntryEvicted((SCCacheMetaEntry) value);
+			}
+		} catch (Exception ex) {
+			LOGGER.error("Removing evicted cache entry failed, key=" + evictedEntry.key, ex);
+		}
+	}
+
+	/**
+	 * Removes an entry and frees its blocks. Must be called holding the lock of this.
+	 *
+	 * @param key the key
+	 */
+	private void removeEntry(String key) {
+		OffHeapEntry entry = this.entries.remove(key);
+		if (entry != null) {
+			this.freeBlocks(entry);
+		}
+	}
+
+	/**
+	 * Frees the blocks of an entry. Must be called holding the lock of this.
+	 *
+	 * @param entry the entry
+	 */
+	private void freeBlocks(OffHeapEntry entry) {
+		if (this.freeBlocks.length < this.freeBlockCount + entry.blocks.length) {
+			this.freeBlocks = Arrays.copyOf(this.freeBlocks, Math.max(this.freeBlockCount + entry.blocks.length, this.freeBlocks.length * 2));
+		}
+		System.arraycopy(entry.blocks, 0, this.freeBlocks, this.freeBlockCount, entry.blocks.length);
+		this.freeBlockCount += entry.blocks.length;
+		this.usedBlocks -= entry.blocks.length;
+	}
+
+	/**
+	 * Allocates a block. Takes a free block, a block never used or evicts the least recently used entries. Must be called holding the lock of this.
+	 *
+	 * @param evictedEntries the evicted entries, evicted entries get added
+	 * @return the block
+	 */
+	private int allocateBlock(List<EvictedEntry> evictedEntries) {
+		while (this.freeBlockCount == 0 && this.allocatedBlocks == this.maxBlocks) {
+			// evict least recently used entry
+			Iterator<Entry<String, OffHeapEntry>> iterator = this.entries.entrySet().iterator();
+			Entry<String, OffHeapEntry> eldest = iterator.next();
+			OffHeapEntry entry = eldest.getValue();
+			// cached messages are identified by the key, other values are read before their blocks get free
+			byte[] bytes = entry.valueType == VALUE_CACHED_MESSAGE ? null : this.read(entry);
+			evictedEntries.add(new EvictedEntry(eldest.getKey(), entry.valueType, bytes));
+			iterator.remove();
+			this.freeBlocks(entry);
+			LOGGER.trace("Cache entry evicted, key=" + eldest.getKey());
+		}
+		this.usedBlocks++;
+		if (this.freeBlockCount > 0) {
+			return this.freeBlocks[--this.freeBlockCount];
+		}
+		int block = this.allocatedBlocks++;
+		int slab = block / BLOCKS_PER_SLAB;
+		if (slab == this.slabs.length) {
+			int slabSize = (int) Math.min(SLAB_SIZE, (long) (this.maxBlocks - block) * BLOCK_SIZE);
+			this.slabs = Arrays.copyOf(this.slabs, slab + 1);
+			this.slabs[slab] = ByteBuffer.allocateDirect(slabSize);
+		}
+		return block;
+	}
+
+	/**
+	 * Writes the bytes to the blocks of an entry. Must be called holding the lock of this.
+	 *
+	 * @param entry the entry
+	 * @param bytes the bytes
+	 */
+	private void writeBlocks(OffHeapEntry entry, byte[] bytes) {
+		int position = 0;
+		for (int block : entry.blocks) {
+			int length = Math.min(BLOCK_SIZE, bytes.length - position);
+			ByteBuffer slab = this.slabs[block / BLOCKS_PER_SLAB];
+			// cast binds to Buffer.position(int), ByteBuffer.position(int) does not exist on Java 8
+			((Buffer) slab).position((block % BLOCKS_PER_SLAB) * BLOCK_SIZE);
+			slab.put(bytes, position, length);
+			position += length;
+		}
+	}
+
+	/**
+	 * Reads the bytes of an entry. Must be called holding the lock of this.
+	 *
+	 * @param entry the entry
+	 * @return the bytes
+	 */
+	private byte[] read(OffHeapEntry entry) {
+		byte[] bytes = new byte[entry.length];
+		int position = 0;
+		for (int block : entry.blocks) {
+			int length = Math.min(BLOCK_SIZE, bytes.length - position);
+			ByteBuffer slab = this.slabs[block / BLOCKS_PER_SLAB];
+			((Buffer) slab).position((block % BLOCKS_PER_SLAB) * BLOCK_SIZE);
+			slab.get(bytes, position, length);
+			position += length;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Decodes a value.
+	 *
+	 * @param valueType the value type
+	 * @param bytes the bytes
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	private T decode(byte valueType, byte[] bytes) {
+		try {
+			if (valueType == VALUE_CACHED_MESSAGE) {
+				return (T) SCMPCachedMessage.decode(bytes);
+			}
+			ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			try {
+				return (T) ois.readObject();
+			} finally {
+				ois.close();
+			}
+		} catch (EncodingDecodingException ex) {
+			LOGGER.error("Decoding cached message failed, name=" + this.cacheModuleName, ex);
+			return null;
+		} catch (Exception ex) {
+			LOGGER.error("Deserializing cached value failed, name=" + this.cacheModuleName, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * The Class EvictedEntry. Key and value of an evicted entry, the SC cache gets informed after the lock of the module has been released.
+	 */
+	private static final class EvictedEntry {
+
+		/** The key. */
+		private final String key;
+		/** The value type. */
+		private final byte valueType;
+		/** The bytes, null for a cached message. */
+		private final byte[] bytes;
+
+		/**
+		 * Instantiates a new evicted entry.
+		 *
+		 * @param key the key
+		 * @param valueType the value type
+		 * @param bytes the bytes
+		 */
+		private EvictedEntry(String key, byte valueType, byte[] bytes) {
+			this.key = key;
+			this.valueType = valueType;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * The Class OffHeapEntry. Blocks and times of an entry.
+	 */
+	private static final class OffHeapEntry {
+
+		/** The value type. */
+		private final byte valueType;
+		/** The blocks holding the bytes. */
+		private final int[] blocks;
+		/** The length in bytes. */
+		private final int length;
+		/** The creation time. */
+		private final long creationTime;
+		/** The expiration time, 0 = never. */
+		private final long expirationTime;
+		/** The last access time. */
+		private volatile long lastAccessTime;
+
+		/**
+		 * Instantiates a new off heap entry.
+		 *
+		 * @param valueType the value type
+		 * @param blocks the blocks
+		 * @param length the length
+		 * @param creationTime the creation time
+		 * @param expirationTime the expiration time
+		 */
+		private OffHeapEntry(byte valueType, int[] blocks, int length, long creationTime, long expirationTime) {
+			this.valueType = valueType;
+			this.blocks = blocks;
+			this.length = length;
+			this.creationTime = creationTime;
+			this.expirationTime = expirationTime;
+			this.lastAccessTime = creationTime;
+		}
+
+		/**
+		 * Checks if is expired.
+		 *
+		 * @param now the current time
+		 * @return true, if is expired
+		 */
+		private boolean isExpired(long now) {
+			return this.expirationTime != 0 && this.expirationTime <= now;
+		}
+	}
+}
@@ -0,0 +1,275 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.cache.persistent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The Class CacheSegment. Append only segment file of the persistent cache, mapped into memory. Records are appended by the writer of the cache module, which is
+ * synchronized. Readers copy records from a duplicate of the mapped buffer and need no lock. A segment is never unmapped explicitly, the mapping is released when the
+ * buffer gets garbage collected.
+ */
+final class CacheSegment {
+
+	/** The Constant FILE_SUFFIX. */
+	static final String FILE_SUFFIX = ".seg";
+	/** The Constant MAGIC, first bytes of a segment file. */
+	static final int MAGIC = 0x53434353;
+	/** The Constant HEADER_SIZE, size of the segment header. */
+	static final int HEADER_SIZE = 4;
+
+	/** The segment id, segments are replayed in ascending order. */
+	private final int id;
+	/** The file. */
+	private final File file;
+	/** The random access file. */
+	private final RandomAccessFile randomAccessFile;
+	/** The mapped buffer. */
+	private final MappedByteBuffer buffer;
+	/** The write position, first free byte. */
+	private int writePosition;
+	/** The number of bytes of live records. */
+	private int liveBytes;
+
+	/**
+	 * Instantiates a new cache segment.
+	 *
+	 * @param id the id
+	 * @param file the file
+	 * @param randomAccessFile the random access file
+	 * @param buffer the buffer
+	 */
+	private CacheSegment(int id, File file, RandomAccessFile randomAccessFile, MappedByteBuffer buffer) {
+		this.id = id;
+		this.file = file;
+		this.randomAccessFile = randomAccessFile;
+		this.buffer = buffer;
+		this.writePosition = HEADER_SIZE;
+		this.liveBytes = 0;
+	}
+
+	/**
+	 * Creates a new segment file of given size and maps it.
+	 *
+	 * @param directory the directory
+	 * @param id the id
+	 * @param size the size
+	 * @return the cache segment
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static CacheSegment create(File directory, int id, int size) throws IOException {
+		File file = new File(directory, CacheSegment.getFileName(id));
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			// new file is filled with zeros, a zero record length marks the end of the records
+			randomAccessFile.setLength(0);
+			randomAccessFile.setLength(size);
+			MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.putInt(0, MAGIC);
+			return new CacheSegment(id, file, randomAccessFile, buffer);
+		} catch (IOException ex) {
+			randomAccessFile.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Opens an existing segment file and maps it.
+	 *
+	 * @param file the file
+	 * @param id the id
+	 * @return the cache segment, null if file is not a segment file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static CacheSegment open(File file, int id) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			long size = randomAccessFile.length();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				randomAccessFile.close();
+				return null;
+			}
+			MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			if (buffer.getInt(0) != MAGIC) {
+				randomAccessFile.close();
+				return null;
+			}
+			return new CacheSegment(id, file, randomAccessFile, buffer);
+		} catch (IOException ex) {
+			randomAccessFile.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Gets the file name of a segment.
+	 *
+	 * @param id the id
+	 * @return the file name
+	 */
+	static String getFileName(int id) {
+		return String.format("%08d", id) + FILE_SUFFIX;
+	}
+
+	/**
+	 * Gets the segment id of a file name.
+	 *
+	 * @param fileName the file name
+	 * @return the id, -1 if file name is not the name of a segment
+	 */
+	static int getId(String fileName) {
+		if (fileName.endsWith(FILE_SUFFIX) == false) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(fileName.substring(0, fileName.length() - FILE_SUFFIX.length()));
+		} catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Appends a record.
+	 *
+	 * @param record the record
+	 * @return the offset of the record, -1 if segment is full
+	 */
+	int append(byte[] record) {
+		if (record.length > this.buffer.capacity() - this.writePosition) {
+			return -1;
+		}
+		int offset = this.writePosition;
+		ByteBuffer writeBuffer = this.buffer.duplicate();
+		// cast binds to Buffer.position(int), ByteBuffer.position(int) does not exist on Java 8
+		((Buffer) writeBuffer).position(offset);
+		writeBuffer.put(record);
+		this.writePosition += record.length;
+		return offset;
+	}
+
+	/**
+	 * Reads bytes.
+	 *
+	 * @param offset the offset
+	 * @param length the length
+	 * @return the bytes
+	 */
+	byte[] read(int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer readBuffer = this.buffer.duplicate();
+		((Buffer) readBuffer).position(offset);
+		readBuffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads an integer.
+	 *
+	 * @param offset the offset
+	 * @return the integer
+	 */
+	int readInt(int offset) {
+		return this.buffer.getInt(offset);
+	}
+
+	/**
+	 * Forces written records to the file.
+	 */
+	void force() {
+		this.buffer.force();
+	}
+
+	/**
+	 * Closes the segment file.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	void close() throws IOException {
+		this.randomAccessFile.close();
+	}
+
+	/**
+	 * Closes and deletes the segment file.
+	 *
+	 * @return true, if successful
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	boolean delete() throws IOException {
+		this.close();
+		return this.file.delete();
+	}
+
+	/**
+	 * Gets the id.
+	 *
+	 * @return the id
+	 */
+	int getId() {
+		return this.id;
+	}
+
+	/**
+	 * Gets the capacity.
+	 *
+	 * @return the capacity
+	 */
+	int getCapacity() {
+		return this.buffer.capacity();
+	}
+
+	/**
+	 * Gets the write position.
+	 *
+	 * @return the write position
+	 */
+	int getWritePosition() {
+		return this.writePosition;
+	}
+
+	/**
+	 * Sets the write position. Used when recovering the segment.
+	 *
+	 * @param writePosition the new write position
+	 */
+	void setWritePosition(int writePosition) {
+		this.writePosition = writePosition;
+	}
+
+	/**
+	 * Gets the number of bytes of live records.
+	 *
+	 * @return the live bytes
+	 */
+	int getLiveBytes() {
+		return this.liveBytes;
+	}
+
+	/**
+	 * Adds to the number of bytes of live records.
+	 *
+	 * @param bytes the bytes, negative if records died
+	 */
+	void addLiveBytes(int bytes) {
+		this.liveBytes += bytes;
+	}
+}
@@ -0,0 +1,850 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.cache.persistent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.serviceconnector.cache.ISCCacheModule;
+import org.serviceconnector.cache.SCCacheMetaEntry;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.util.NamedPriorityThreadFactory;
+
+/**
+ * The Class PersistentCacheImpl. Cache module surviving a restart of the SC. Entries are appended to memory mapped segment files of the module directory, an entry
+ * gets replaced or removed by appending a newer record. The index (key to record location) is held in memory. It is written to the index file when the module gets
+ * destroyed and loaded at start. If the index file is missing or invalid, because the SC did not stop properly, the index is rebuilt by replaying the segments.<br />
+ * <br />
+ * Record layout: length (int), CRC32 of the rest of the record (int), operation (byte), creation time (long), expiration time (long, 0 = never), key length (short),
+ * key, payload. The payload of a put is the serialized value, the payload of a remove is the location (segment id, offset) of the removed record. Replaying a remove
+ * only removes the entry at this location, records moved by a compaction can not be removed by an older remove.<br />
+ * <br />
+ * Expiration of entries follows the time to live semantic of the EHCache module: expired entries are not returned and get removed by the expiration check, which
+ * runs every expiration check interval. Expired meta entries remove their data entries. The expiration check also compacts segments having less than half of their
+ * records alive.
+ *
+ * @param <T> the type of the cached values
+ */
+public class PersistentCacheImpl<T> implements ISCCacheModule<T> {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(PersistentCacheImpl.class);
+	/** The Constant INDEX_FILE_NAME. */
+	static final String INDEX_FILE_NAME = "index.idx";
+	/** The Constant INDEX_MAGIC, first bytes of the index file. */
+	private static final int INDEX_MAGIC = 0x53434349;
+	/** The Constant INDEX_VERSION. */
+	private static final int INDEX_VERSION = 1;
+	/** The Constant OP_PUT. */
+	private static final byte OP_PUT = 1;
+	/** The Constant OP_REMOVE. */
+	private static final byte OP_REMOVE = 2;
+	/** The Constant RECORD_HEADER_SIZE, length, CRC, operation, creation time, expiration time and key length. */
+	private static final int RECORD_HEADER_SIZE = 27;
+	/** The Constant KEY_CHARSET. */
+	private static final Charset KEY_CHARSET = Charset.forName("UTF-8");
+
+	/** The cache module name. */
+	private final String cacheModuleName;
+	/** The directory of the segment files. */
+	private final File directory;
+	/** The size of a new segment. */
+	private final int segmentSize;
+	/** The index, key to location of the live record. */
+	private final ConcurrentHashMap<String, IndexEntry> index;
+	/** The segments by id. */
+	private final ConcurrentHashMap<Integer, CacheSegment> segments;
+	/** The active segment, records are appended to it. Guarded by this. */
+	private CacheSegment activeSegment;
+	/** The id of the next segment. Guarded by this. */
+	private int nextSegmentId;
+	/** The expiration check scheduler, null if expiration is not checked. */
+	private final ScheduledExecutorService expirationCheckScheduler;
+
+	/**
+	 * Instantiates a new persistent cache module. Recovers the entries of the module directory.
+	 *
+	 * @param cacheModuleName the cache module name
+	 * @param directory the directory of the segment files
+	 * @param segmentSize the size of a segment in bytes
+	 * @param expirationCheckIntervalSeconds the expiration check interval in seconds, 0 = no expiration check
+	 */
+	public PersistentCacheImpl(String cacheModuleName, File directory, int segmentSize, int expirationCheckIntervalSeconds) {
+		this.cacheModuleName = cacheModuleName;
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.index = new ConcurrentHashMap<String, IndexEntry>();
+		this.segments = new ConcurrentHashMap<Integer, CacheSegment>();
+		this.nextSegmentId = 0;
+		if (directory.isDirectory() == false && directory.mkdirs() == false) {
+			throw new IllegalStateException("Creating cache directory failed, directory=" + directory.getAbsolutePath());
+		}
+		this.recover();
+		if (expirationCheckIntervalSeconds > 0) {
+			this.expirationCheckScheduler = Executors.newSingleThreadScheduledExecutor(new NamedPriorityThreadFactory("SC_CACHE_EXPIRATION"));
+			this.expirationCheckScheduler.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					PersistentCacheImpl.this.checkExpiration();
+				}
+			}, expirationCheckIntervalSeconds, expirationCheckIntervalSeconds, TimeUnit.SECONDS);
+		} else {
+			this.expirationCheckScheduler = null;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public T get(Object key) {
+		IndexEntry entry = this.index.get(key);
+		while (entry != null) {
+			long now = System.currentTimeMillis();
+			if (entry.isExpired(now)) {
+				this.expire((String) key, entry);
+				return null;
+			}
+			CacheSegment segment = this.segments.get(entry.segmentId);
+			if (segment != null) {
+				byte[] record = segment.read(entry.offset, entry.length);
+				entry.lastAccessTime = now;
+				return this.deserialize(record);
+			}
+			// segment got compacted in the meantime - entry has been moved
+			entry = this.index.get(key);
+		}
+		return null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void putOrUpdate(Object key, T value, int timeToLiveSeconds) {
+		this.write(key, value, timeToLiveSeconds, false);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void replace(Object key, T value, int timeToLiveSeconds) {
+		this.write(key, value, timeToLiveSeconds, true);
+	}
+
+	/**
+	 * Writes the value. The record is created before the segment gets locked.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @param timeToLiveSeconds the time to live in seconds, 0 = forever
+	 * @param replace the replace flag, value is only written if key is present
+	 */
+	private void write(Object key, T value, int timeToLiveSeconds, boolean replace) {
+		if (timeToLiveSeconds < 0) {
+			LOGGER.warn("Caching failed, time to live negative: " + timeToLiveSeconds + " caching key:" + key);
+			throw new IllegalArgumentException("timeToLive can't be negative");
+		}
+		String keyString = (String) key;
+		long creationTime = System.currentTimeMillis();
+		long expirationTime = timeToLiveSeconds == 0 ? 0 : creationTime + timeToLiveSeconds * 1000L;
+		byte[] record;
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			DataOutputStream dos = PersistentCacheImpl.writeRecordHeader(bos, OP_PUT, creationTime, expirationTime, keyString);
+			ObjectOutputStream oos = new ObjectOutputStream(dos);
+			oos.writeObject(value);
+			oos.close();
+			record = PersistentCacheImpl.completeRecord(bos.toByteArray());
+		} catch (IOException ex) {
+			LOGGER.error("Caching failed, serializing value failed caching key:" + key, ex);
+			return;
+		}
+		synchronized (this) {
+			if (replace) {
+				IndexEntry entry = this.index.get(keyString);
+				if (entry == null || entry.isExpired(creationTime)) {
+					return;
+				}
+			}
+			int offset = this.append(record);
+			IndexEntry newEntry = new IndexEntry(this.activeSegment.getId(), offset, record.length, creationTime, expirationTime);
+			this.activeSegment.addLiveBytes(record.length);
+			this.entryReplaced(this.index.put(keyString, newEntry));
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<String> getKeyList() {
+		long now = System.currentTimeMillis();
+		List<String> keys = new ArrayList<String>(this.index.size());
+		for (Entry<String, IndexEntry> entry : this.index.entrySet()) {
+			if (entry.getValue().isExpired(now) == false) {
+				keys.add(entry.getKey());
+			}
+		}
+		return keys;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Date getExpirationTime(String key) {
+		IndexEntry entry = this.index.get(key);
+		if (entry == null) {
+			return null;
+		}
+		return new Date(entry.expirationTime == 0 ? Long.MAX_VALUE : entry.expirationTime);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Date getCreationTime(String key) {
+		IndexEntry entry = this.index.get(key);
+		if (entry == null) {
+			return null;
+		}
+		return new Date(entry.creationTime);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Date getLastAccessTime(String key) {
+		IndexEntry entry = this.index.get(key);
+		if (entry == null) {
+			return null;
+		}
+		return new Date(entry.lastAccessTime);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getCacheModuleName() {
+		return this.cacheModuleName;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getNumberOfMessagesInStore() {
+		return this.index.size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getNumberOfMessagesInDiskStore() {
+		return this.index.size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getOffHeapSize() {
+		// segments are mapped outside the heap
+		long offHeapSize = 0;
+		for (CacheSegment segment : this.segments.values()) {
+			offHeapSize += segment.getCapacity();
+		}
+		return offHeapSize;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getInMemorySize() {
+		// values are not held on the heap
+		return 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public T remove(Object key) {
+		synchronized (this) {
+			IndexEntry entry = this.index.get(key);
+			if (entry == null) {
+				return null;
+			}
+			T value = this.deserialize(this.segments.get(entry.segmentId).read(entry.offset, entry.length));
+			this.removeEntry((String) key, entry);
+			return value;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void removeAll() {
+		try {
+			for (CacheSegment segment : this.segments.values()) {
+				segment.delete();
+			}
+			this.segments.clear();
+			this.index.clear();
+			this.activeSegment = this.createSegment(this.segmentSize);
+		} catch (IOException ex) {
+			throw new IllegalStateException("Removing all entries of cache module failed, name=" + this.cacheModuleName, ex);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void destroy() {
+		if (this.expirationCheckScheduler != null) {
+			this.expirationCheckScheduler.shutdownNow();
+		}
+		synchronized (this) {
+			for (CacheSegment segment : this.segments.values()) {
+				segment.force();
+			}
+			try {
+				this.writeIndex();
+			} catch (IOException ex) {
+				LOGGER.error("Writing index of cache module failed, segments get replayed at next start, name=" + this.cacheModuleName, ex);
+			}
+			for (CacheSegment segment : this.segments.values()) {
+				try {
+					segment.close();
+				} catch (IOException ex) {
+					LOGGER.warn("Closing cache segment failed, id=" + segment.getId(), ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check expiration. Removes expired entries, compacts segments and forces the active segment to the file. Called by the expiration check scheduler.
+	 */
+	public void checkExpiration() {
+		try {
+			long now = System.currentTimeMillis();
+			for (Entry<String, IndexEntry> entry : this.index.entrySet()) {
+				if (entry.getValue().isExpired(now)) {
+					this.expire(entry.getKey(), entry.getValue());
+				}
+			}
+			synchronized (this) {
+				for (CacheSegment segment : new ArrayList<CacheSegment>(this.segments.values())) {
+					if (segment != this.activeSegment && segment.getLiveBytes() < (segment.getWritePosition() - CacheSegment.HEADER_SIZE) / 2) {
+						this.compact(segment);
+					}
+				}
+				this.activeSegment.force();
+			}
+		} catch (Exception ex) {
+			LOGGER.error("Checking expiration of cache module failed, name=" + this.cacheModuleName, ex);
+		}
+	}
+
+	/**
+	 * Expires an entry. Expired meta entries remove their data entries.
+	 *
+	 * @param key the key
+	 * @param entry the expired entry
+	 */
+	private void expire(String key, IndexEntry entry) {
+		T value;
+		synchronized (this) {
+			if (this.index.get(key) != entry) {
+				// entry has been replaced or removed in the meantime
+				return;
+			}
+			value = this.deserialize(this.segments.get(entry.segmentId).read(entry.offset, entry.length));
+			this.removeEntry(key, entry);
+		}
+		if (value instanceof SCCacheMetaEntry) {
+			AppContext.getSCCache().metaEntryExpired((SCCacheMetaEntry) value);
+		}
+	}
+
+	/**
+	 * Removes an entry. Appends a remove record holding the location of the removed record. Must be called holding the lock of this.
+	 *
+	 * @param key the key
+	 * @param entry the entry
+	 */
+	private void removeEntry(String key, IndexEntry entry) {
+		byte[] record;
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			DataOutputStream dos = PersistentCacheImpl.writeRecordHeader(bos, OP_REMOVE, System.currentTimeMillis(), 0, key);
+			dos.writeInt(entry.segmentId);
+			dos.writeInt(entry.offset);
+			dos.close();
+			record = PersistentCacheImpl.completeRecord(bos.toByteArray());
+		} catch (IOException ex) {
+			// writing to a byte array does not fail
+			throw new IllegalStateException(ex);
+		}
+		this.append(record);
+		this.index.remove(key);
+		this.entryReplaced(entry);
+	}
+
+	/**
+	 * Entry replaced. Record of the replaced entry is not alive anymore. Must be called holding the lock of this.
+	 *
+	 * @param entry the replaced entry, may be null
+	 */
+	private void entryReplaced(IndexEntry entry) {
+		if (entry == null) {
+			return;
+		}
+		CacheSegment segment = this.segments.get(entry.segmentId);
+		if (segment != null) {
+			segment.addLiveBytes(-entry.length);
+		}
+	}
+
+	/**
+	 * Appends a record to the active segment. Creates a new active segment if the record does not fit. Must be called holding the lock of this.
+	 *
+	 * @param record the record
+	 * @return the offset of the record in the active segment
+	 */
+	private int append(byte[] record) {
+		int offset = this.activeSegment.append(record);
+		if (offset >= 0) {
+			return offset;
+		}
+		this.activeSegment.force();
+		try {
+			// record larger than a segment gets a segment of its own
+			this.activeSegment = this.createSegment(Math.max(this.segmentSize, CacheSegment.HEADER_SIZE + record.length));
+		} catch (IOException ex) {
+			throw new IllegalStateException("Creating cache segment failed, name=" + this.cacheModuleName, ex);
+		}
+		return this.activeSegment.append(record);
+	}
+
+	/**
+	 * Creates a new segment. Must be called holding the lock of this.
+	 *
+	 * @param size the size
+	 * @return the cache segment
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private CacheSegment createSegment(int size) throws IOException {
+		CacheSegment segment = CacheSegment.create(this.directory, this.nextSegmentId++, size);
+		this.segments.put(segment.getId(), segment);
+		return segment;
+	}
+
+	/**
+	 * Compacts a segment. Live records and remove records of segments still present are moved to the active segment, the segment gets deleted. Must be called holding
+	 * the lock of this.
+	 *
+	 * @param segment the segment
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void compact(CacheSegment segment) throws IOException {
+		int segmentId = segment.getId();
+		for (Entry<String, IndexEntry> entry : this.index.entrySet()) {
+			IndexEntry indexEntry = entry.getValue();
+			if (indexEntry.segmentId != segmentId) {
+				continue;
+			}
+			byte[] record = segment.read(indexEntry.offset, indexEntry.length);
+			int offset = this.append(record);
+			IndexEntry movedEntry = new IndexEntry(this.activeSegment.getId(), offset, indexEntry.length, indexEntry.creationTime, indexEntry.expirationTime);
+			movedEntry.lastAccessTime = indexEntry.lastAccessTime;
+			this.activeSegment.addLiveBytes(indexEntry.length);
+			this.index.put(entry.getKey(), movedEntry);
+		}
+		int position = CacheSegment.HEADER_SIZE;
+		byte[] record = PersistentCacheImpl.readRecord(segment, position);
+		while (record != null) {
+			if (record[8] == OP_REMOVE) {
+				// remove record is needed as long as the segment of the removed record exists
+				int removedSegmentId = ByteBuffer.wrap(record).getInt(record.length - 8);
+				if (removedSegmentId != segmentId && this.segments.containsKey(removedSegmentId)) {
+					this.append(record);
+				}
+			}
+			position += record.length;
+			record = PersistentCacheImpl.readRecord(segment, position);
+		}
+		// moved records must be on disk before the segment gets deleted
+		this.activeSegment.force();
+		this.segments.remove(segmentId);
+		if (segment.delete() == false) {
+			LOGGER.warn("Deleting compacted cache segment failed, id=" + segmentId);
+		}
+	}
+
+	/**
+	 * Recovers the index. Loads the index file if valid, otherwise the segments get replayed. The index file is deleted, it is written again when the module gets
+	 * destroyed.
+	 */
+	private void recover() {
+		File indexFile = new File(this.directory, INDEX_FILE_NAME);
+		try {
+			boolean indexLoaded = false;
+			if (indexFile.exists()) {
+				indexLoaded = this.loadIndex(indexFile);
+				if (indexFile.delete() == false) {
+					throw new IOException("Deleting index file failed, file=" + indexFile.getAbsolutePath());
+				}
+			}
+			if (indexLoaded == false) {
+				this.replaySegments();
+			}
+			if (this.segments.isEmpty()) {
+				this.activeSegment = this.createSegment(this.segmentSize);
+			}
+			LOGGER.info("cache module=" + this.cacheModuleName + " recovered entries=" + this.index.size() + " segments=" + this.segments.size() + " indexLoaded="
+					+ indexLoaded);
+		} catch (IOException ex) {
+			throw new IllegalStateException("Recovering cache module failed, name=" + this.cacheModuleName, ex);
+		}
+	}
+
+	/**
+	 * Replays the segments in ascending order. A segment ends at the first invalid record, records written partially before a crash are ignored.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void replaySegments() throws IOException {
+		int[] segmentIds = this.listSegmentIds();
+		for (int segmentId : segmentIds) {
+			CacheSegment segment = CacheSegment.open(new File(this.directory, CacheSegment.getFileName(segmentId)), segmentId);
+			if (segment == null) {
+				LOGGER.warn("Invalid cache segment ignored, id=" + segmentId);
+				continue;
+			}
+			this.segments.put(segmentId, segment);
+			this.activeSegment = segment;
+			this.nextSegmentId = segmentId + 1;
+			int position = CacheSegment.HEADER_SIZE;
+			byte[] record = PersistentCacheImpl.readRecord(segment, position);
+			while (record != null) {
+				this.replayRecord(segment, position, record);
+				position += record.length;
+				record = PersistentCacheImpl.readRecord(segment, position);
+			}
+			segment.setWritePosition(position);
+		}
+	}
+
+	/**
+	 * Replays a record.
+	 *
+	 * @param segment the segment
+	 * @param offset the offset of the record
+	 * @param record the record
+	 */
+	private void replayRecord(CacheSegment segment, int offset, byte[] record) {
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+		String key = new String(record, RECORD_HEADER_SIZE, buffer.getShort(25) & 0xFFFF, KEY_CHARSET);
+		if (record[8] == OP_PUT) {
+			IndexEntry entry = new IndexEntry(segment.getId(), offset, record.length, buffer.getLong(9), buffer.getLong(17));
+			segment.addLiveBytes(record.length);
+			this.entryReplaced(this.index.put(key, entry));
+			return;
+		}
+		IndexEntry entry = this.index.get(key);
+		if (entry != null && entry.segmentId == buffer.getInt(record.length - 8) && entry.offset == buffer.getInt(record.length - 4)) {
+			this.index.remove(key);
+			this.entryReplaced(entry);
+		}
+	}
+
+	/**
+	 * Lists the ids of the segment files in ascending order.
+	 *
+	 * @return the segment ids
+	 */
+	private int[] listSegmentIds() {
+		String[] fileNames = this.directory.list();
+		int[] segmentIds = new int[fileNames == null ? 0 : fileNames.length];
+		int count = 0;
+		for (int i = 0; i < segmentIds.length; i++) {
+			int segmentId = CacheSegment.getId(fileNames[i]);
+			if (segmentId >= 0) {
+				segmentIds[count++] = segmentId;
+			}
+		}
+		segmentIds = Arrays.copyOf(segmentIds, count);
+		Arrays.sort(segmentIds);
+		return segmentIds;
+	}
+
+	/**
+	 * Writes the index file. Must be called holding the lock of this.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void writeIndex() throws IOException {
+		File indexFile = new File(this.directory, INDEX_FILE_NAME);
+		CheckedOutputStream cos = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)), new CRC32());
+		DataOutputStream dos = new DataOutputStream(cos);
+		try {
+			dos.writeInt(INDEX_MAGIC);
+			dos.writeInt(INDEX_VERSION);
+			dos.writeInt(this.nextSegmentId);
+			dos.writeInt(this.activeSegment.getId());
+			dos.writeInt(this.segments.size());
+			for (CacheSegment segment : this.segments.values()) {
+				dos.writeInt(segment.getId());
+				dos.writeInt(segment.getWritePosition());
+				dos.writeInt(segment.getLiveBytes());
+			}
+			dos.writeInt(this.index.size());
+			for (Entry<String, IndexEntry> entry : this.index.entrySet()) {
+				IndexEntry indexEntry = entry.getValue();
+				dos.writeUTF(entry.getKey());
+				dos.writeInt(indexEntry.segmentId);
+				dos.writeInt(indexEntry.offset);
+				dos.writeInt(indexEntry.length);
+				dos.writeLong(indexEntry.creationTime);
+				dos.writeLong(indexEntry.expirationTime);
+			}
+			dos.flush();
+			dos.writeLong(cos.getChecksum().getValue());
+		} finally {
+			dos.close();
+		}
+	}
+
+	/**
+	 * Loads the index file. The index is only used if it is complete and describes exactly the segment files present.
+	 *
+	 * @param indexFile the index file
+	 * @return true, if index has been loaded
+	 */
+	private boolean loadIndex(File indexFile) {
+		Map<Integer, CacheSegment> loadedSegments = new HashMap<Integer, CacheSegment>();
+		Map<String, IndexEntry> loadedIndex = new HashMap<String, IndexEntry>();
+		CheckedInputStream cis = null;
+		try {
+			cis = new CheckedInputStream(new BufferedInputStream(new FileInputStream(indexFile)), new CRC32());
+			DataInputStream dis = new DataInputStream(cis);
+			if (dis.readInt() != INDEX_MAGIC || dis.readInt() != INDEX_VERSION) {
+				return false;
+			}
+			int loadedNextSegmentId = dis.readInt();
+			int activeSegmentId = dis.readInt();
+			int segmentCount = dis.readInt();
+			if (segmentCount != this.listSegmentIds().length) {
+				return false;
+			}
+			for (int i = 0; i < segmentCount; i++) {
+				int segmentId = dis.readInt();
+				File segmentFile = new File(this.directory, CacheSegment.getFileName(segmentId));
+				CacheSegment segment = segmentFile.isFile() ? CacheSegment.open(segmentFile, segmentId) : null;
+				if (segment == null) {
+					return false;
+				}
+				loadedSegments.put(segmentId, segment);
+				segment.setWritePosition(dis.readInt());
+				segment.addLiveBytes(dis.readInt());
+			}
+			int entryCount = dis.readInt();
+			for (int i = 0; i < entryCount; i++) {
+				String key = dis.readUTF();
+				IndexEntry entry = new IndexEntry(dis.readInt(), dis.readInt(), dis.readInt(), dis.readLong(), dis.readLong());
+				if (loadedSegments.containsKey(entry.segmentId) == false) {
+					return false;
+				}
+				loadedIndex.put(key, entry);
+			}
+			long checksum = cis.getChecksum().getValue();
+			if (dis.readLong() != checksum || loadedSegments.containsKey(activeSegmentId) == false) {
+				return false;
+			}
+			this.segments.putAll(loadedSegments);
+			this.index.putAll(loadedIndex);
+			this.activeSegment = loadedSegments.get(activeSegmentId);
+			this.nextSegmentId = loadedNextSegmentId;
+			loadedSegments.clear();
+			return true;
+		} catch (IOException ex) {
+			LOGGER.warn("Loading index of cache module failed, segments get replayed, name=" + this.cacheModuleName, ex);
+			return false;
+		} finally {
+			for (CacheSegment segment : loadedSegments.values()) {
+				try {
+					segment.close();
+				} catch (IOException ex) {
+					LOGGER.warn("Closing cache segment failed, id=" + segment.getId(), ex);
+				}
+			}
+			if (cis != null) {
+				try {
+					cis.close();
+				} catch (IOException ex) {
+					LOGGER.warn("Closing index file failed", ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deserializes the value of a put record.
+	 *
+	 * @param record the record
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	private T deserialize(byte[] record) {
+		int payloadOffset = RECORD_HEADER_SIZE + (ByteBuffer.wrap(record).getShort(25) & 0xFFFF);
+		try {
+			ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(record, payloadOffset, record.length - payloadOffset));
+			try {
+				return (T) ois.readObject();
+			} finally {
+				ois.close();
+			}
+		} catch (Exception ex) {
+			LOGGER.error("Deserializing cached value failed, name=" + this.cacheModuleName, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the record header. Length and CRC are set by completeRecord.
+	 *
+	 * @param bos the output stream
+	 * @param operation the operation
+	 * @param creationTime the creation time
+	 * @param expirationTime the expiration time
+	 * @param key the key
+	 * @return the data output stream to write the payload
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static DataOutputStream writeRecordHeader(ByteArrayOutputStream bos, byte operation, long creationTime, long expirationTime, String key)
+			throws IOException {
+		byte[] keyBytes = key.getBytes(KEY_CHARSET);
+		if (keyBytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("cache key too long, length=" + keyBytes.length);
+		}
+		DataOutputStream dos = new DataOutputStream(bos);
+		dos.writeInt(0);
+		dos.writeInt(0);
+		dos.writeByte(operation);
+		dos.writeLong(creationTime);
+		dos.writeLong(expirationTime);
+		dos.writeShort(keyBytes.length);
+		dos.write(keyBytes);
+		return dos;
+	}
+
+	/**
+	 * Completes the record. Sets length and CRC.
+	 *
+	 * @param record the record
+	 * @return the record
+	 */
+	private static byte[] completeRecord(byte[] record) {
+		CRC32 crc = new CRC32();
+		crc.update(record, 8, record.length - 8);
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+		buffer.putInt(0, record.length);
+		buffer.putInt(4, (int) crc.getValue());
+		return record;
+	}
+
+	/**
+	 * Reads the record at given position.
+	 *
+	 * @param segment the segment
+	 * @param position the position
+	 * @return the record, null if there is no valid record at position
+	 */
+	private static byte[] readRecord(CacheSegment segment, int position) {
+		if (position > segment.getCapacity() - RECORD_HEADER_SIZE) {
+			return null;
+		}
+		int length = segment.readInt(position);
+		if (length < RECORD_HEADER_SIZE || length > segment.getCapacity() - position) {
+			return null;
+		}
+		byte[] record = segment.read(position, length);
+		CRC32 crc = new CRC32();
+		crc.update(record, 8, length - 8);
+		if (ByteBuffer.wrap(record).getInt(4) != (int) crc.getValue() || (record[8] != OP_PUT && record[8] != OP_REMOVE)) {
+			return null;
+		}
+		return record;
+	}
+
+	/**
+	 * The Class IndexEntry. Location and times of a live record.
+	 */
+	private static final class IndexEntry {
+
+		/** The segment id. */
+		private final int segmentId;
+		/** The offset. */
+		private final int offset;
+		/** The length. */
+		private final int length;
+		/** The creation time. */
+		private final long creationTime;
+		/** The expiration time, 0 = never. */
+		private final long expirationTime;
+		/** The last access time. */
+		private volatile long lastAccessTime;
+
+		/**
+		 * Instantiates a new index entry.
+		 *
+		 * @param segmentId the segment id
+		 * @param offset the offset
+		 * @param length the length
+		 * @param creationTime the creation time
+		 * @param expirationTime the expiration time
+		 */
+		private IndexEntry(int segmentId, int offset, int length, long creationTime, long expirationTime) {
+			this.segmentId = segmentId;
+			this.offset = offset;
+			this.length = length;
+			this.creationTime = creationTime;
+			this.expirationTime = expirationTime;
+			this.lastAccessTime = creationTime;
+		}
+
+		/**
+		 * Checks if is expired.
+		 *
+		 * @param now the current time
+		 * @return true, if is expired
+		 */
+		private boolean isExpired(long now) {
+			return this.expirationTime != 0 && this.expirationTime <= now;
+		}
+	}
+}
@@ -63,6 +63,24 @@ public class SCMPFileDownloadCall extends SCMPCallAdapter {
 		this.requestMessage.setHeaderCheckNull(SCMPHeaderAttributeKey.REMOTE_FILE_NAME, remoteFileName);
 	}
 
+	/**
+	 * Sets the file range offset. Only a range of the file starting at the offset is transferred.
+	 *
+	 * @param rangeOffset the new file range offset
+	 */
+	public void setRangeOffset(long rangeOffset) {
+		this.requestMessage.setHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET, rangeOffset);
+	}
+
+	/**
+	 * Sets the file range length.
+	 *
+	 * @param rangeLength the new file range length
+	 */
+	public void setRangeLength(int rangeLength) {
+		this.requestMessage.setHeader(SCMPHeaderAttributeKey.FILE_RANGE_LENGTH, rangeLength);
+	}
+
 	/**
 	 * Gets the message type.
 	 *
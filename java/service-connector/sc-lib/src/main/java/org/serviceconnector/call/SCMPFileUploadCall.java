@@ -63,6 +63,15 @@ public class SCMPFileUploadCall extends SCMPCallAdapter {
 		this.requestMessage.setHeaderCheckNull(SCMPHeaderAttributeKey.REMOTE_FILE_NAME, remoteFileName);
 	}
 
+	/**
+	 * Sets the file range offset. Only a range of the file starting at the offset is transferred.
+	 *
+	 * @param rangeOffset the new file range offset
+	 */
+	public void setRangeOffset(long rangeOffset) {
+		this.requestMessage.setHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET, rangeOffset);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void setRequestBody(Object obj) {
@@ -0,0 +1,68 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.call;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.serviceconnector.net.req.IRequester;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
+import org.serviceconnector.scmp.SCMPVersion;
+
+/**
+ * The Class SCMPPublishBatchCall. Call publishes several messages to clients in one request.
+ */
+public class SCMPPublishBatchCall extends SCMPCallAdapter {
+
+	/** The Constant LOGGER. */
+	@SuppressWarnings("unused")
+	private static final Logger LOGGER = LoggerFactory.getLogger(SCMPPublishBatchCall.class);
+
+	/**
+	 * Instantiates a new SCMPPublishBatchCall.
+	 *
+	 * @param req the requester
+	 * @param serviceName the service name
+	 */
+	public SCMPPublishBatchCall(IRequester req, String serviceName) {
+		super(req, serviceName);
+		// SCMP Version for a publish has to match lowest version of clients in field!
+		this.requestMessage = new SCMPMessage(SCMPVersion.LOWEST);
+		this.requestMessage.setHeader(SCMPHeaderAttributeKey.SERVICE_NAME, serviceName);
+	}
+
+	/**
+	 * Sets the publications. Each publication carries its own mask, message info and caching attributes.
+	 *
+	 * @param publications the publications
+	 * @throws Exception the exception
+	 */
+	public void setPublications(List<SCMPMessage> publications) throws Exception {
+		this.requestMessage.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE, publications.size());
+		this.requestMessage.setBody(SCMPPublicationBatch.encode(publications));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public SCMPMsgType getMessageType() {
+		return SCMPMsgType.PUBLISH_BATCH;
+	}
+}
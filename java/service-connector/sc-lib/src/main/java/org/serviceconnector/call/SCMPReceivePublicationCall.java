@@ -19,6 +19,7 @@ package org.serviceconnector.call;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.net.req.IRequester;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMsgType;
 
@@ -54,6 +55,24 @@ public class SCMPReceivePublicationCall extends SCMPCallAdapter {
 		super(req, msgToSend);
 	}
 
+	/**
+	 * Sets the publication batch. SC delivers up to batchSize messages in one reply as long as they fit into batchBytes.
+	 *
+	 * @param batchSize the maximum number of messages in one reply
+	 * @param batchBytes the maximum number of bytes in one reply
+	 */
+	public void setPublicationBatch(int batchSize, int batchBytes) {
+		this.requestMessage.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE, batchSize);
+		this.requestMessage.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_BYTES, batchBytes);
+	}
+
+	/**
+	 * Sets the push delivery. SC answers the receive publication right at the time a matching message gets published.
+	 */
+	public void setPushDelivery() {
+		this.requestMessage.setHeaderFlag(SCMPHeaderAttributeKey.PUSH_DELIVERY);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public SCMPMsgType getMessageType() {
@@ -117,6 +117,17 @@ public class SCMPRegisterServerCall extends SCMPCallAdapter {
 		}
 	}
 
+	/**
+	 * Sets the multiplexed flag. SC may send concurrent requests on shared connections to the server.
+	 *
+	 * @param multiplexed the new multiplexed flag
+	 */
+	public void setMultiplexed(boolean multiplexed) {
+		if (multiplexed) {
+			this.requestMessage.setHeaderFlag(SCMPHeaderAttributeKey.MULTIPLEXED);
+		}
+	}
+
 	public void setUrlPath(String urlPath) {
 		this.requestMessage.setHeaderCheckNull(SCMPHeaderAttributeKey.URL_PATH, urlPath);
 	}
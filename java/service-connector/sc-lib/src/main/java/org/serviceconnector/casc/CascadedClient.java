@@ -16,7 +16,9 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.casc;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -25,12 +27,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
 import org.serviceconnector.cmd.casc.CscReceivePublicationCallback;
+import org.serviceconnector.cmd.casc.CscResubscribeCallback;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.scmp.SCMPMessageSequenceNr;
 import org.serviceconnector.server.CascadedSC;
 import org.serviceconnector.service.CascadedPublishService;
 import org.serviceconnector.service.InvalidMaskLengthException;
+import org.serviceconnector.service.Subscription;
 import org.serviceconnector.service.SubscriptionMask;
+import org.serviceconnector.service.SubscriptionMaskAggregate;
 
 /**
  * The Class CascadedClient.
@@ -50,6 +55,8 @@ public class CascadedClient {
 	private SubscriptionMask subscriptionMask;
 	/** The client subscription ids. */
 	private Map<String, SubscriptionMask> clientSubscriptionIds;
+	/** The client masks aggregate, combined mask of the client subscriptions. */
+	private SubscriptionMaskAggregate clientMasks;
 	/** The cascaded sc. */
 	private CascadedSC cascadedSC;
 	/** The publish service. */
@@ -82,6 +89,7 @@ public class CascadedClient {
 		this.serviceName = this.publishService.getName();
 		this.subscriptionMask = null;
 		this.clientSubscriptionIds = new HashMap<String, SubscriptionMask>();
+		this.clientMasks = new SubscriptionMaskAggregate();
 		this.msgSequenceNr = new SCMPMessageSequenceNr();
 		this.permitDenialCounter = new AtomicInteger();
 	}
@@ -173,27 +181,12 @@ public class CascadedClient {
 	}
 
 	/**
-	 * Eval subscription mask from client subscriptions.
+	 * Eval subscription mask from client subscriptions. The combined mask is maintained incrementally on adding and removing client subscriptions.
 	 *
-	 * @return the string
+	 * @return the string, null if no client subscription is left
 	 */
 	public String evalSubscriptionMaskFromClientSubscriptions() {
-		byte[] baseMask = null;
-		for (SubscriptionMask clnMask : clientSubscriptionIds.values()) {
-			String maskString = clnMask.getValue();
-			byte[] mask = maskString.getBytes();
-			if (baseMask == null) {
-				baseMask = mask;
-				continue;
-			}
-			try {
-				baseMask = SubscriptionMask.masking(baseMask, mask);
-			} catch (InvalidMaskLengthException e) {
-				// exception should never occur, cascaded client should not allowed client with different mask lengths
-				LOGGER.error("Masking of client masks for cascaded client failed", e);
-			}
-		}
-		return new String(baseMask);
+		return this.clientMasks.getValue();
 	}
 
 	/**
@@ -244,7 +237,12 @@ public class CascadedClient {
 			// client mask has invalid (different than current mask of cascaded client) length
 			throw new InvalidMaskLengthException("client mask has invalid length: clientSubscriptionId=" + clientSubscriptionId + " clientMask=" + clientMask);
 		}
-		this.clientSubscriptionIds.put(clientSubscriptionId, clientMask);
+		this.clientMasks.add(clientMask);
+		SubscriptionMask previousMask = this.clientSubscriptionIds.put(clientSubscriptionId, clientMask);
+		if (previousMask != null) {
+			// client changed subscription - previous mask leaves the aggregate
+			this.clientMasks.remove(previousMask);
+		}
 	}
 
 	/**
@@ -253,7 +251,10 @@ public class CascadedClient {
 	 * @param clientSubscriptionId the client subscription id
 	 */
 	public void removeClientSubscriptionId(String clientSubscriptionId) {
-		this.clientSubscriptionIds.remove(clientSubscriptionId);
+		SubscriptionMask clientMask = this.clientSubscriptionIds.remove(clientSubscriptionId);
+		if (clientMask != null) {
+			this.clientMasks.remove(clientMask);
+		}
 	}
 
 	/**
@@ -344,6 +345,59 @@ public class CascadedClient {
 		this.subscribed = false;
 		AppContext.getSCCache().removeManagedDataForGuardian(publishService.getName());
 		this.clientSubscriptionIds.clear();
+		this.clientMasks.clear();
+		this.publishService = null;
+	}
+
+	/**
+	 * Fail over to another cascaded SC of the group. The publish service gets a new cascaded client on an available cascaded SC and the client subscriptions are replayed
+	 * there, clients keep their subscriptions. Publications arriving on the failed cascaded SC in the meantime are lost. If no other cascaded SC is available the cascaded
+	 * client gets destroyed. Like destroy, fail over releases any thread waiting for a permit on semaphore.
+	 */
+	public void failover() {
+		CascadedPublishService service = this.publishService;
+		if (service == null) {
+			// cascaded client got destroyed in the meantime
+			return;
+		}
+		CascadedSC failoverSC = service.getCascadedSCGroup().select(this.cascadedSC);
+		if (failoverSC == null || this.clientSubscriptionIds.isEmpty() == true) {
+			// no other cascaded SC available or nothing to replay
+			this.destroy();
+			return;
+		}
+		synchronized (this.destroyLock) {
+			if (this.destroyed == true) {
+				// cascaded client got already destroyed
+				return;
+			}
+			this.destroyed = true;
+		}
+		service.renewCascadedClient(failoverSC);
+		// release threads waiting for permits, just allow any thread to continue after destroy no one continues
+		this.cascClientSemaphore.release(this.cascClientSemaphore.getQueueLength());
+		LOGGER.info("cascadedClient fails over service=" + this.getServiceName() + " from=" + this.cascadedSC.getServerKey() + " to=" + failoverSC.getServerKey());
+
+		List<Subscription> subscriptions = new ArrayList<Subscription>();
+		String[] clientSubscriptionIdsArray = this.clientSubscriptionIds.keySet().toArray(new String[0]);
+		for (String clientSubscriptionId : clientSubscriptionIdsArray) {
+			Subscription subscription = AppContext.getSubscriptionRegistry().getSubscription(clientSubscriptionId);
+			if (subscription == null) {
+				continue;
+			}
+			// move client subscription to the new cascaded SC
+			this.cascadedSC.removeSession(subscription);
+			subscription.setServer(failoverSC);
+			failoverSC.addSession(subscription);
+			subscriptions.add(subscription);
+		}
+		this.cascadedSC.unsubscribeCascadedClientInErrorCases(this);
+		// needs to be after unsubscribe
+		this.subscribed = false;
+		AppContext.getSCCache().removeManagedDataForGuardian(service.getName());
+		this.clientSubscriptionIds.clear();
+		this.clientMasks.clear();
 		this.publishService = null;
+		AppContext.getSCWorkerThreadPool().execute(new CscResubscribeCallback(service, subscriptions));
 	}
 }
@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.cache.SCCache;
 import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.connection.ConnectionPoolBusyException;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.net.res.IResponderCallback;
@@ -81,6 +82,8 @@ public class ClnExecuteCommandCascCallback extends CommandCascCallback {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.OPERATION_TIMEOUT, "Operation timeout expired on SC sid=" + sid);
 		} else if (ex instanceof IOException) {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.CONNECTION_EXCEPTION, "broken connection to server sid=" + sid);
+		} else if (ex instanceof ConnectionPoolBusyException) {
+			fault = new SCMPMessageFault(scmpVersion, SCMPError.NO_FREE_CONNECTION, "no free connection to server available sid=" + sid);
 		} else {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.SC_ERROR, "error executing " + this.msgType + " sid=" + sid);
 		}
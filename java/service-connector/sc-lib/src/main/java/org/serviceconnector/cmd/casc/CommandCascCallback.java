@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.serviceconnector.net.connection.ConnectionPoolBusyException;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.net.res.IResponderCallback;
@@ -86,6 +87,8 @@ public class CommandCascCallback implements ISCMPMessageCallback {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.OPERATION_TIMEOUT, "Operation timeout expired on SC sid=" + sid);
 		} else if (ex instanceof IOException) {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.CONNECTION_EXCEPTION, "broken connection on SC sid=" + sid);
+		} else if (ex instanceof ConnectionPoolBusyException) {
+			fault = new SCMPMessageFault(scmpVersion, SCMPError.NO_FREE_CONNECTION, "no free connection to server available sid=" + sid);
 		} else if (ex instanceof InvalidMaskLengthException) {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.HV_WRONG_MASK, ex.getMessage() + " sid=" + sid);
 		} else {
@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.serviceconnector.net.connection.ConnectionPoolBusyException;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.net.res.IResponderCallback;
@@ -87,6 +88,8 @@ public class CscAbortSubscriptionCommandCallback implements ISubscriptionCallbac
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.OPERATION_TIMEOUT, "Operation timeout expired on SC csc abort subscription sid=" + sid);
 		} else if (ex instanceof IOException) {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.CONNECTION_EXCEPTION, "broken connection on SC csc abort subscription sid=" + sid);
+		} else if (ex instanceof ConnectionPoolBusyException) {
+			fault = new SCMPMessageFault(scmpVersion, SCMPError.NO_FREE_CONNECTION, "no free connection to server available sid=" + sid);
 		} else {
 			fault = new SCMPMessageFault(scmpVersion, SCMPError.SC_ERROR, "executing csc abort subscription failed sid=" + sid);
 		}
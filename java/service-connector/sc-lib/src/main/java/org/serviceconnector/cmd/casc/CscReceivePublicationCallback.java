@@ -73,8 +73,8 @@ public class CscReceivePublicationCallback implements ISCMPMessageCallback {
 			}
 			if (reply.isFault()) {
 				// operation failed
-				LOGGER.warn("receive publication failed for cascaded client (set to be unsubscribed) service=" + cascClient.getServiceName() + " sid=" + sid);
-				this.cascClient.destroy();
+				LOGGER.warn("receive publication failed for cascaded client (fail over or set to be unsubscribed) service=" + cascClient.getServiceName() + " sid=" + sid);
+				this.cascClient.failover();
 				return;
 			}
 			// 4. post process, reply to client
@@ -115,7 +115,7 @@ public class CscReceivePublicationCallback implements ISCMPMessageCallback {
 			// cascaded client already destroyed ignore exception
 			return;
 		}
-		// destroy cascaded client, without having a permit, emergency!
-		this.cascClient.destroy();
+		// fail over or destroy cascaded client, without having a permit, emergency!
+		this.cascClient.failover();
 	}
 }
@@ -0,0 +1,185 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.cmd.casc;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.serviceconnector.Constants;
+import org.serviceconnector.casc.CascadedClient;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.req.IRequest;
+import org.serviceconnector.net.res.netty.NettyHttpRequest;
+import org.serviceconnector.scmp.ISubscriptionCallback;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.service.CascadedPublishService;
+import org.serviceconnector.service.Subscription;
+import org.serviceconnector.service.SubscriptionMask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class CscResubscribeCallback. Replays the client subscriptions of a failed cascaded client on the cascaded SC the publish service failed over to. Subscriptions are
+ * replayed one after the other, the first one subscribes the new cascaded client and the following ones extend its mask. Cascaded subscriptions replay the subscriptions of
+ * each client behind the cascaded SC. Subscriptions which can not be replayed get removed like in case of destroying the cascaded client.
+ */
+public class CscResubscribeCallback implements ISubscriptionCallback, Runnable {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CscResubscribeCallback.class);
+
+	/** The publish service. */
+	private CascadedPublishService publishService;
+	/** The pending replays. */
+	private LinkedList<Replay> pendingReplays;
+	/** The current replay. */
+	private Replay replay;
+	/** The request of the current replay. */
+	private IRequest request;
+
+	/**
+	 * Instantiates a new csc resubscribe callback.
+	 *
+	 * @param publishService the publish service
+	 * @param subscriptions the client subscriptions to replay
+	 */
+	public CscResubscribeCallback(CascadedPublishService publishService, List<Subscription> subscriptions) {
+		this.publishService = publishService;
+		this.pendingReplays = new LinkedList<Replay>();
+		for (Subscription subscription : subscriptions) {
+			if (subscription.isCascaded() == false) {
+				this.pendingReplays.add(new Replay(subscription, subscription.getId(), subscription.getMask()));
+				continue;
+			}
+			// cascaded subscription - replay subscription of each client behind the cascaded SC
+			for (Map.Entry<String, SubscriptionMask> cscSubscription : subscription.getCscSubscriptionIds().entrySet()) {
+				this.pendingReplays.add(new Replay(subscription, cscSubscription.getKey(), cscSubscription.getValue()));
+			}
+		}
+		this.replay = null;
+		this.request = null;
+	}
+
+	/**
+	 * Replay next subscription. Runs in a worker thread, replies arrive while the cascaded client permit is still held.
+	 */
+	@Override
+	public void run() {
+		while (this.pendingReplays.isEmpty() == false) {
+			this.replay = this.pendingReplays.removeFirst();
+			if (AppContext.getSubscriptionRegistry().getSubscription(this.replay.subscription.getId()) == null) {
+				// subscription got removed in the meantime
+				continue;
+			}
+			CascadedClient cascClient = this.publishService.getCascClient();
+			int oti = Constants.DEFAULT_OPERATION_TIMEOUT_SECONDS * Constants.SEC_TO_MILLISEC_FACTOR;
+			// SCMP Version current
+			SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+			message.setServiceName(this.publishService.getName());
+			message.setSessionId(this.replay.sessionId);
+			message.setHeader(SCMPHeaderAttributeKey.MASK, this.replay.mask.getValue());
+			message.setHeaderCheckNull(SCMPHeaderAttributeKey.SESSION_INFO, this.replay.subscription.getSessionInfo());
+			message.setHeader(SCMPHeaderAttributeKey.IP_ADDRESS_LIST, this.replay.subscription.getIpAddressList());
+			message.setHeader(SCMPHeaderAttributeKey.NO_DATA_INTERVAL, this.replay.subscription.getNoDataIntervalMillis() / Constants.SEC_TO_MILLISEC_FACTOR);
+			message.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, oti);
+			message.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, cascClient.getMsgSequenceNr().incrementAndGetMsgSequenceNr());
+			this.request = new NettyHttpRequest(null, null, null);
+			this.request.setMessage(message);
+			LOGGER.debug("replay subscription on cascaded SC service=" + this.publishService.getName() + " sid=" + this.replay.sessionId);
+			cascClient.getCascadedSC().cascadedSCSubscribe(cascClient, message, this, oti);
+			return;
+		}
+		LOGGER.info("replay of subscriptions on cascaded SC done service=" + this.publishService.getName());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void receive(SCMPMessage reply) {
+		if (reply.isFault() || reply.getHeaderFlag(SCMPHeaderAttributeKey.REJECT_SESSION)) {
+			LOGGER.warn("replay subscription on cascaded SC failed service=" + this.publishService.getName() + " sid=" + this.replay.sessionId);
+			this.removeSubscription();
+		}
+		// continue in worker thread, permit of cascaded client gets released after this reply
+		AppContext.getSCWorkerThreadPool().execute(this);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void receive(Exception ex) {
+		LOGGER.warn("replay subscription on cascaded SC failed service=" + this.publishService.getName() + " sid=" + this.replay.sessionId + " " + ex.toString());
+		this.removeSubscription();
+		AppContext.getSCWorkerThreadPool().execute(this);
+	}
+
+	/**
+	 * Removes the subscription of the current replay and skips its pending replays.
+	 */
+	private void removeSubscription() {
+		Subscription subscription = this.replay.subscription;
+		AppContext.getSubscriptionRegistry().removeSubscription(subscription.getId());
+		if (subscription.getServer() != null) {
+			subscription.getServer().removeSession(subscription);
+		}
+		this.publishService.getMessageQueue().unsubscribe(subscription.getId());
+		this.publishService.getMessageQueue().removeNonreferencedNodes();
+		this.publishService.getCascClient().removeClientSubscriptionId(subscription.getId());
+		while (this.pendingReplays.isEmpty() == false && this.pendingReplays.getFirst().subscription == subscription) {
+			this.pendingReplays.removeFirst();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Subscription getSubscription() {
+		return this.replay.subscription;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public IRequest getRequest() {
+		return this.request;
+	}
+
+	/**
+	 * The Class Replay. Subscription to replay on the cascaded SC.
+	 */
+	private static final class Replay {
+
+		/** The subscription. */
+		private final Subscription subscription;
+		/** The session id of the subscribe message. */
+		private final String sessionId;
+		/** The mask. */
+		private final SubscriptionMask mask;
+
+		/**
+		 * Instantiates a new replay.
+		 *
+		 * @param subscription the subscription
+		 * @param sessionId the session id
+		 * @param mask the mask
+		 */
+		private Replay(Subscription subscription, String sessionId, SubscriptionMask mask) {
+			this.subscription = subscription;
+			this.sessionId = sessionId;
+			this.mask = mask;
+		}
+	}
+}
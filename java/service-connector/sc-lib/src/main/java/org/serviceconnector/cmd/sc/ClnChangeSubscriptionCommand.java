@@ -89,31 +89,19 @@ public class ClnChangeSubscriptionCommand extends CommandAdapter {
 		ClnChangeSubscriptionCommandCallback callback = null;
 		StatefulServer server = (StatefulServer) subscription.getServer();
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
-		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		// Following loop implements the wait mechanism in case of a busy connection pool
-		int i = 0;
-
-		do {
-			// reset ipList&msgType, might have been modified in below change subscription try
-			reqMessage.setHeader(SCMPHeaderAttributeKey.IP_ADDRESS_LIST, ipAddressList);
-			reqMessage.setMessageType(this.getKey());
-			callback = new ClnChangeSubscriptionCommandCallback(request, response, responderCallback, subscription);
-			try {
-				server.changeSubscription(reqMessage, callback, otiOnSCMillis - (i * Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS));
-				// no exception has been thrown - get out of wait loop
-				break;
-			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of change subscription, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					// only one loop outstanding - don't continue throw current exception
-					LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
-			} // sleep for a while and then try again
-			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		} while (++i < tries);
+		reqMessage.setHeader(SCMPHeaderAttributeKey.IP_ADDRESS_LIST, ipAddressList);
+		reqMessage.setMessageType(this.getKey());
+		callback = new ClnChangeSubscriptionCommandCallback(request, response, responderCallback, subscription);
+		try {
+			// request waits for a free connection in case of a busy connection pool
+			server.changeSubscription(reqMessage, callback, otiOnSCMillis);
+		} catch (ConnectionPoolBusyException ex) {
+			// too many requests waiting for a free connection
+			LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+			scmpCommandException.setMessageType(this.getKey());
+			throw scmpCommandException;
+		}
 	}
 
 	/** {@inheritDoc} */
@@ -21,6 +21,7 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.log.SubscriptionLogger;
+import org.serviceconnector.net.connection.ConnectionPoolBusyException;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.net.res.IResponderCallback;
@@ -108,6 +109,8 @@ public class ClnChangeSubscriptionCommandCallback implements ISCMPMessageCallbac
 			fault = new SCMPMessageFault(reqMessage.getSCMPVersion(), SCMPError.OPERATION_TIMEOUT, "Operation timeout expired on SC cln change subscription sid=" + sid);
 		} else if (ex instanceof IOException) {
 			fault = new SCMPMessageFault(reqMessage.getSCMPVersion(), SCMPError.CONNECTION_EXCEPTION, "broken connection on SC cln change subscription sid=" + sid);
+		} else if (ex instanceof ConnectionPoolBusyException) {
+			fault = new SCMPMessageFault(reqMessage.getSCMPVersion(), SCMPError.NO_FREE_CONNECTION, "no free connection to server available sid=" + sid);
 		} else if (ex instanceof InvalidMaskLengthException) {
 			fault = new SCMPMessageFault(reqMessage.getSCMPVersion(), SCMPError.HV_WRONG_MASK, ex.getMessage() + " sid=" + sid);
 		} else {
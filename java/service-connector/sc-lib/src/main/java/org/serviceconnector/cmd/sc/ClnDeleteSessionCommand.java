@@ -32,7 +32,7 @@ import org.serviceconnector.scmp.SCMPError;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMsgType;
-import org.serviceconnector.server.CascadedSC;
+import org.serviceconnector.server.CascadedSCGroup;
 import org.serviceconnector.server.FileServer;
 import org.serviceconnector.server.IServer;
 import org.serviceconnector.server.StatefulServer;
@@ -73,14 +73,14 @@ public class ClnDeleteSessionCommand extends CommandAdapter {
 			case CASCADED_SESSION_SERVICE:
 				// clears message in cache if in loading state
 				AppContext.getSCCache().clearLoading(sessionId);
-				CascadedSC cascadedSC = ((CascadedSessionService) abstractService).getCascadedSC();
+				CascadedSCGroup cascadedSCGroup = ((CascadedSessionService) abstractService).getCascadedSCGroup();
 				CommandCascCallback callback = new CommandCascCallback(request, response, responderCallback);
-				cascadedSC.deleteSession(reqMessage, callback, oti);
+				cascadedSCGroup.deleteSession(reqMessage, callback, oti);
 				return;
 			case CASCADED_FILE_SERVICE:
-				cascadedSC = ((CascadedFileService) abstractService).getCascadedSC();
+				cascadedSCGroup = ((CascadedFileService) abstractService).getCascadedSCGroup();
 				callback = new CommandCascCallback(request, response, responderCallback);
-				cascadedSC.deleteSession(reqMessage, callback, oti);
+				cascadedSCGroup.deleteSession(reqMessage, callback, oti);
 				return;
 			default:
 				// code for other types of services is below
@@ -121,31 +121,19 @@ public class ClnDeleteSessionCommand extends CommandAdapter {
 		statefulServer.removeSession(session);
 
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
-		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		// Following loop implements the wait mechanism in case of a busy connection pool
-		int i = 0;
-		do {
-			// reset msgType, might have been modified in below delete session try
-			reqMessage.setMessageType(this.getKey());
-			callback = new DeleteSessionCommandCallback(request, response, responderCallback, session, statefulServer);
-			try {
-				statefulServer.deleteSession(reqMessage, callback, otiOnSCMillis - (i * Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS));
-				// no exception has been thrown - get out of wait loop
-				break;
-			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of delete session, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					// only one loop outstanding - don't continue throw current exception
-					statefulServer.abortSession(session, "deleting session failed, connection pool to server busy");
-					LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
-			}
-			// sleep for a while and then try again
-			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		} while (++i < tries);
+		reqMessage.setMessageType(this.getKey());
+		callback = new DeleteSessionCommandCallback(request, response, responderCallback, session, statefulServer);
+		try {
+			// request waits for a free connection in case of a busy connection pool
+			statefulServer.deleteSession(reqMessage, callback, otiOnSCMillis);
+		} catch (ConnectionPoolBusyException ex) {
+			// too many requests waiting for a free connection
+			statefulServer.abortSession(session, "deleting session failed, connection pool to server busy");
+			LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+			scmpCommandException.setMessageType(this.getKey());
+			throw scmpCommandException;
+		}
 	}
 
 	/** {@inheritDoc} */
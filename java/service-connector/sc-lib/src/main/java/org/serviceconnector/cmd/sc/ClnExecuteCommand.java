@@ -130,35 +130,23 @@ public class ClnExecuteCommand extends CommandAdapter {
 		}
 		ExecuteCommandCallback callback = null;
 		StatefulServer server = session.getStatefulServer();
-		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		// Following loop implements the wait mechanism in case of a busy connection pool
-		int i = 0;
-		do {
-			// reset msgType, might have been modified in below execute try
-			reqMessage.setMessageType(this.getKey());
-			callback = new ExecuteCommandCallback(request, response, responderCallback, sessionId);
-			try {
-				server.execute(reqMessage, callback, otiOnSCMillis - (i * Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS));
-				// no exception has been thrown - get out of wait loop
-				break;
-			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of execute, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					// only one loop outstanding - don't continue throw current exception
-					synchronized (session) {
-						// reset session timeout to ECI
-						this.sessionRegistry.resetSessionTimeout(session, session.getSessionTimeoutMillis());
-						session.setPendingRequest(false); // IMPORTANT - set false after timeout - because of parallel echo call
-					}
-					LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
+		reqMessage.setMessageType(this.getKey());
+		callback = new ExecuteCommandCallback(request, response, responderCallback, sessionId);
+		try {
+			// request waits for a free connection in case of a busy connection pool
+			server.execute(reqMessage, callback, otiOnSCMillis);
+		} catch (ConnectionPoolBusyException ex) {
+			// too many requests waiting for a free connection
+			synchronized (session) {
+				// reset session timeout to ECI
+				this.sessionRegistry.resetSessionTimeout(session, session.getSessionTimeoutMillis());
+				session.setPendingRequest(false); // IMPORTANT - set false after timeout - because of parallel echo call
 			}
-			// sleep for a while and then try again
-			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		} while (++i < tries);
+			LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+			scmpCommandException.setMessageType(this.getKey());
+			throw scmpCommandException;
+		}
 	}
 
 	/**
@@ -174,7 +162,7 @@ public class ClnExecuteCommand extends CommandAdapter {
 		String serviceName = reqMessage.getServiceName();
 		int oti = reqMessage.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT);
 		Service abstractService = this.getService(serviceName);
-		CascadedSC cascadedSC = ((CascadedSessionService) abstractService).getCascadedSC();
+		CascadedSC cascadedSC = ((CascadedSessionService) abstractService).getCascadedSC(reqMessage.getSessionId());
 		ClnExecuteCommandCascCallback callback = new ClnExecuteCommandCascCallback(request, response, responderCallback);
 		cascadedSC.execute(reqMessage, callback, oti);
 		return;
@@ -111,7 +111,7 @@ public class ClnSubscribeCommand extends CommandAdapter {
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
 		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
 		int i = 0;
-		// Following loop implements the wait mechanism in case of a busy connection pool
+		// Following loop implements the wait mechanism in case of no free server, requests wait for a free connection in the connection pool
 		do {
 			// reset ipList&msgType, might have been modified in below subscribe try
 			reqMessage.setHeader(SCMPHeaderAttributeKey.IP_ADDRESS_LIST, ipAddressList);
@@ -129,14 +129,11 @@ public class ClnSubscribeCommand extends CommandAdapter {
 					throw ex;
 				}
 			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of subscribe, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					// only one loop outstanding - don't continue throw current exception
-					LOGGER.warn(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
+				// too many requests waiting for a free connection, no retry
+				LOGGER.warn(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+				SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+				scmpCommandException.setMessageType(this.getKey());
+				throw scmpCommandException;
 			}
 			// sleep for a while and then try again
 			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
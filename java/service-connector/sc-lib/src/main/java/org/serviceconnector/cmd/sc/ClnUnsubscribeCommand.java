@@ -89,34 +89,22 @@ public class ClnUnsubscribeCommand extends CommandAdapter {
 		StatefulServer server = (StatefulServer) subscription.getServer();
 		ClnUnsubscribeCommandCallback callback = null;
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
-		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		int i = 0;
-		// Following loop implements the wait mechanism in case of a busy connection pool
-		do {
-			// reset msgType, might have been modified in below unsubscribe try
-			reqMessage.setMessageType(this.getKey());
-			// set up callback for normal client unsubscribe operation
-			callback = new ClnUnsubscribeCommandCallback(request, response, responderCallback, subscription);
-			try {
-				server.unsubscribe(reqMessage, callback, otiOnSCMillis - (i * Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS));
+		reqMessage.setMessageType(this.getKey());
+		// set up callback for normal client unsubscribe operation
+		callback = new ClnUnsubscribeCommandCallback(request, response, responderCallback, subscription);
+		try {
+			// request waits for a free connection in case of a busy connection pool
+			server.unsubscribe(reqMessage, callback, otiOnSCMillis);
 				// delete unreferenced nodes in queue
 				publishMessageQueue.removeNonreferencedNodes();
-				// no exception has been thrown - get out of wait loop
-				break;
-			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of unsubscribe, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					// only one loop outstanding - don't continue throw current exception
-					server.abortSession(subscription, "unsubscribe subscription failed, connection pool to server busy");
-					LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
-			}
-			// sleep for a while and then try again
-			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		} while (++i < tries);
+		} catch (ConnectionPoolBusyException ex) {
+			// too many requests waiting for a free connection
+			server.abortSession(subscription, "unsubscribe subscription failed, connection pool to server busy");
+			LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+			scmpCommandException.setMessageType(this.getKey());
+			throw scmpCommandException;
+		}
 	}
 
 	/** {@inheritDoc} */
@@ -86,31 +86,19 @@ public class CscChangeSubscriptionCommand extends CommandAdapter {
 		StatefulServer server = (StatefulServer) cascSubscription.getServer();
 		CscChangeSubscriptionCallbackForCasc callback = null;
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
-		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		// Following loop implements the wait mechanism in case of a busy connection pool
-		int i = 0;
-
-		do {
-			// reset ipList&msgType, might have been modified in below change subscription try
-			reqMessage.setHeader(SCMPHeaderAttributeKey.IP_ADDRESS_LIST, ipAddressList);
-			reqMessage.setMessageType(this.getKey());
-			callback = new CscChangeSubscriptionCallbackForCasc(request, response, responderCallback, cascSubscription, cascadedSCMask);
-			try {
-				server.changeSubscription(reqMessage, callback, otiOnSCMillis - (i * Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS));
-				// no exception has been thrown - get out of wait loop
-				break;
-			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of csc change subscription, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					// only one loop outstanding - don't continue throw current exception
-					LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
-			} // sleep for a while and then try again
-			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		} while (++i < tries);
+		reqMessage.setHeader(SCMPHeaderAttributeKey.IP_ADDRESS_LIST, ipAddressList);
+		reqMessage.setMessageType(this.getKey());
+		callback = new CscChangeSubscriptionCallbackForCasc(request, response, responderCallback, cascSubscription, cascadedSCMask);
+		try {
+			// request waits for a free connection in case of a busy connection pool
+			server.changeSubscription(reqMessage, callback, otiOnSCMillis);
+		} catch (ConnectionPoolBusyException ex) {
+			// too many requests waiting for a free connection
+			LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+			scmpCommandException.setMessageType(this.getKey());
+			throw scmpCommandException;
+		}
 	}
 
 	/** {@inheritDoc} */
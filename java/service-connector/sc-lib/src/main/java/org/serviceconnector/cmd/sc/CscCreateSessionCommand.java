@@ -31,7 +31,7 @@ import org.serviceconnector.scmp.SCMPError;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMsgType;
-import org.serviceconnector.server.CascadedSC;
+import org.serviceconnector.server.CascadedSCGroup;
 import org.serviceconnector.server.FileServer;
 import org.serviceconnector.service.CascadedFileService;
 import org.serviceconnector.service.CascadedSessionService;
@@ -83,14 +83,14 @@ public class CscCreateSessionCommand extends CommandAdapter {
 
 		switch (abstractService.getType()) {
 			case CASCADED_SESSION_SERVICE:
-				CascadedSC cascadedSC = ((CascadedSessionService) abstractService).getCascadedSC();
+				CascadedSCGroup cascadedSCGroup = ((CascadedSessionService) abstractService).getCascadedSCGroup();
 				CommandCascCallback callback = new CommandCascCallback(request, response, responderCallback);
-				cascadedSC.createSession(reqMessage, callback, oti);
+				cascadedSCGroup.createSession(reqMessage, callback, oti);
 				return;
 			case CASCADED_FILE_SERVICE:
-				cascadedSC = ((CascadedFileService) abstractService).getCascadedSC();
+				cascadedSCGroup = ((CascadedFileService) abstractService).getCascadedSCGroup();
 				callback = new CommandCascCallback(request, response, responderCallback);
-				cascadedSC.createSession(reqMessage, callback, oti);
+				cascadedSCGroup.createSession(reqMessage, callback, oti);
 				return;
 			case SESSION_SERVICE:
 				// code for type session service is below switch statement
@@ -133,7 +133,7 @@ public class CscCreateSessionCommand extends CommandAdapter {
 
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
 		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		// Following loop implements the wait mechanism in case of a busy connection pool
+		// Following loop implements the wait mechanism in case of no free server, requests wait for a free connection in the connection pool
 		int i = 0;
 		do {
 			// reset ipList&msgType, might have been modified in below create session try
@@ -152,14 +152,11 @@ public class CscCreateSessionCommand extends CommandAdapter {
 					throw ex;
 				}
 			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of csc create session, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					// only one loop outstanding - don't continue throw current exception
-					LOGGER.warn(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
+				// too many requests waiting for a free connection, no retry
+				LOGGER.warn(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+				SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+				scmpCommandException.setMessageType(this.getKey());
+				throw scmpCommandException;
 			}
 			// sleep for a while and then try again
 			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
@@ -141,37 +141,25 @@ public class CscUnsubscribeCommand extends CommandAdapter {
 		// unsubscribe on backend server
 		CscUnsubscribeCommandCallback callback;
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
-		int tries = (otiOnSCMillis / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		int i = 0;
-		// Following loop implements the wait mechanism in case of a busy connection pool
-		do {
-			// reset msgType, might have been modified in below unsubscribe try
-			reqMessage.setMessageType(this.getKey());
-			// set up callback for normal client unsubscribe operation
-			callback = new CscUnsubscribeCommandCallback(request, response, responderCallback, cascSubscription);
-			try {
-				server.unsubscribe(reqMessage, callback, otiOnSCMillis - (i * Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS));
-				// delete unreferenced nodes in queue
-				publishMessageQueue.removeNonreferencedNodes();
-				// no exception has been thrown - get out of wait loop
-				break;
-			} catch (ConnectionPoolBusyException ex) {
-				LOGGER.debug("ConnectionPoolBusyException caught in wait mec of csc unsubscribe, tries left=" + tries);
-				if (i >= (tries - 1)) {
-					if (cascadedSCMask == null) {
-						// unsubscribe by cascSC on behalf of his last client, abort subscriptions in relation if there are left
-						this.abortCascSubscriptions(cascSubscription, reqMessage);
-					}
-					// only one loop outstanding - don't continue throw current exception
-					LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
-					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
-					scmpCommandException.setMessageType(this.getKey());
-					throw scmpCommandException;
-				}
+		reqMessage.setMessageType(this.getKey());
+		// set up callback for normal client unsubscribe operation
+		callback = new CscUnsubscribeCommandCallback(request, response, responderCallback, cascSubscription);
+		try {
+			// request waits for a free connection in case of a busy connection pool
+			server.unsubscribe(reqMessage, callback, otiOnSCMillis);
+			// delete unreferenced nodes in queue
+			publishMessageQueue.removeNonreferencedNodes();
+		} catch (ConnectionPoolBusyException ex) {
+			// too many requests waiting for a free connection
+			if (cascadedSCMask == null) {
+				// unsubscribe by cascSC on behalf of his last client, abort subscriptions in relation if there are left
+				this.abortCascSubscriptions(cascSubscription, reqMessage);
 			}
-			// sleep for a while and then try again
-			Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		} while (++i < tries);
+			LOGGER.debug(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + reqMessage.getServiceName()));
+			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + reqMessage.getServiceName());
+			scmpCommandException.setMessageType(this.getKey());
+			throw scmpCommandException;
+		}
 
 		if (cascadedSCMask == null) {
 			// unsubscribe made by cascaded SC on behalf of his last client, abort subscriptions in relation if there are left
@@ -67,7 +67,7 @@ public class EchoCommand extends CommandAdapter {
 		switch (abstractService.getType()) {
 			case CASCADED_SESSION_SERVICE:
 				int oti = message.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT);
-				CascadedSC cascadedSC = ((CascadedSessionService) abstractService).getCascadedSC();
+				CascadedSC cascadedSC = ((CascadedSessionService) abstractService).getCascadedSC(message.getSessionId());
 				CommandCascCallback callback = new CommandCascCallback(request, response, responderCallback);
 				cascadedSC.echo(message, callback, oti);
 				return;
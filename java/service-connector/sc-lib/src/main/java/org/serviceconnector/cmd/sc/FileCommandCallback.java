@@ -0,0 +1,120 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.cmd.sc;
+
+import java.io.IOException;
+
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.req.IRequest;
+import org.serviceconnector.net.req.netty.IdleTimeoutException;
+import org.serviceconnector.net.res.IResponderCallback;
+import org.serviceconnector.net.res.IResponse;
+import org.serviceconnector.registry.SessionRegistry;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMessageFault;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.service.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class FileCommandCallback. Callback of file commands, gets the reply of the file server once the web server delivered.
+ */
+public class FileCommandCallback implements ISCMPMessageCallback {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileCommandCallback.class);
+	/** The callback. */
+	private IResponderCallback responderCallback;
+	/** The request. */
+	private IRequest request;
+	/** The response. */
+	private IResponse response;
+	/** The session id, null if command runs without session. */
+	private String sid;
+	/** The error replied if the file server fails. */
+	private SCMPError error;
+	/** The session registry. */
+	private SessionRegistry sessionRegistry = AppContext.getSessionRegistry();
+	/** The msg type. */
+	private String msgType;
+
+	/**
+	 * Instantiates a new FileCommandCallback.
+	 *
+	 * @param request the request
+	 * @param response the response
+	 * @param callback the callback
+	 * @param sessionId the session id, null if command runs without session
+	 * @param error the error replied if the file server fails
+	 */
+	public FileCommandCallback(IRequest request, IResponse response, IResponderCallback callback, String sessionId, SCMPError error) {
+		this.responderCallback = callback;
+		this.request = request;
+		this.response = response;
+		this.sid = sessionId;
+		this.error = error;
+		this.msgType = request.getMessage().getMessageType();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void receive(SCMPMessage reply) {
+		reply.setIsReply(true);
+		reply.setMessageType(this.msgType);
+		this.response.setSCMP(reply);
+		this.resetSessionTimeout();
+		this.responderCallback.responseCallback(request, response);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void receive(Exception ex) {
+		LOGGER.warn("receive exception sid=" + this.sid + " " + ex.toString());
+		SCMPMessage fault = null;
+		SCMPVersion scmpVersion = this.request.getMessage().getSCMPVersion();
+		if (ex instanceof IdleTimeoutException) {
+			// operation timeout handling - SCMP Version request
+			fault = new SCMPMessageFault(scmpVersion, SCMPError.OPERATION_TIMEOUT, "Operation timeout expired on SC sid=" + this.sid);
+		} else if (ex instanceof IOException) {
+			fault = new SCMPMessageFault(scmpVersion, SCMPError.CONNECTION_EXCEPTION, "broken connection to web server sid=" + this.sid);
+		} else {
+			fault = new SCMPMessageFault(scmpVersion, this.error, "Error occured in file server on SC sid=" + this.sid);
+		}
+		fault.setSessionId(this.sid);
+		fault.setIsReply(true);
+		fault.setMessageType(this.msgType);
+		this.response.setSCMP(fault);
+		this.resetSessionTimeout();
+		this.responderCallback.responseCallback(request, response);
+	}
+
+	/**
+	 * Reset session timeout to ECI, operation on web server is completed.
+	 */
+	private void resetSessionTimeout() {
+		if (this.sid == null) {
+			return;
+		}
+		Session session = this.sessionRegistry.getSession(this.sid);
+		if (session != null) {
+			this.sessionRegistry.resetSessionTimeout(session, session.getSessionTimeoutMillis());
+		}
+	}
+}
@@ -62,7 +62,7 @@ public class FileDownloadCommand extends CommandAdapter {
 
 		switch (abstractService.getType()) {
 			case CASCADED_FILE_SERVICE:
-				CascadedSC cascadedSC = ((CascadedFileService) abstractService).getCascadedSC();
+				CascadedSC cascadedSC = ((CascadedFileService) abstractService).getCascadedSC(message.getSessionId());
 				CommandCascCallback callback = new CommandCascCallback(request, response, responderCallback);
 				cascadedSC.serverDownloadFile(message, callback, oti);
 				return;
@@ -79,25 +79,18 @@ public class FileDownloadCommand extends CommandAdapter {
 		double otiOnSCSeconds = (otiOnSCMillis / Constants.SEC_TO_MILLISEC_FACTOR);
 		this.sessionRegistry.resetSessionTimeout(session, (otiOnSCSeconds + session.getSessionTimeoutMillis()));
 
-		SCMPMessage reply = null;
+		// callback replies once the web server delivered the part, resets session timeout to ECI
+		FileCommandCallback fileCallback = new FileCommandCallback(request, response, responderCallback, session.getId(), SCMPError.FILE_DOWNLOAD_FAILED);
 		try {
 			String remoteFileName = message.getHeader(SCMPHeaderAttributeKey.REMOTE_FILE_NAME);
 
 			FileServer fileServer = session.getFileServer();
-			reply = fileServer.serverDownloadFile(session, message, remoteFileName, oti);
+			fileServer.serverDownloadFile(session, message, remoteFileName, fileCallback, otiOnSCMillis);
 		} catch (Exception e) {
-			// SCMP Version request
-			reply = new SCMPMessage(message.getSCMPVersion());
 			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.FILE_DOWNLOAD_FAILED, "Error occured in file server on SC.");
 			scmpCommandException.setMessageType(getKey());
 			throw scmpCommandException;
 		}
-		reply.setIsReply(true);
-		reply.setMessageType(getKey());
-		response.setSCMP(reply);
-		// reset session timeout to ECI
-		this.sessionRegistry.resetSessionTimeout(session, session.getSessionTimeoutMillis());
-		responderCallback.responseCallback(request, response);
 	}
 
 	/** {@inheritDoc} */
@@ -117,6 +110,15 @@ public class FileDownloadCommand extends CommandAdapter {
 			// sessionId mandatory
 			String sessionId = message.getSessionId();
 			ValidatorUtility.validateStringLengthTrim(1, sessionId, Constants.MAX_STRING_LENGTH_256, SCMPError.HV_WRONG_SESSION_ID);
+			// file range offset & length optional
+			String rangeOffset = message.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET);
+			if (rangeOffset != null) {
+				ValidatorUtility.validateLong(0, rangeOffset, SCMPError.HV_ERROR);
+			}
+			String rangeLength = message.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_LENGTH);
+			if (rangeLength != null) {
+				ValidatorUtility.validateInt(1, rangeLength, SCMPError.HV_ERROR);
+			}
 		} catch (HasFaultResponseException ex) {
 			// needs to set message type at this point
 			ex.setMessageType(getKey());
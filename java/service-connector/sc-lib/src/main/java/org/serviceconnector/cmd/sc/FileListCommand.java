@@ -62,7 +62,7 @@ public class FileListCommand extends CommandAdapter {
 
 		switch (abstractService.getType()) {
 			case CASCADED_FILE_SERVICE:
-				CascadedSC cascadedSC = ((CascadedFileService) abstractService).getCascadedSC();
+				CascadedSC cascadedSC = ((CascadedFileService) abstractService).getCascadedSC(message.getSessionId());
 				CommandCascCallback callback = new CommandCascCallback(request, response, responderCallback);
 				cascadedSC.serverGetFileList(message, callback, oti);
 				return;
@@ -77,19 +77,17 @@ public class FileListCommand extends CommandAdapter {
 			scmpCommandException.setMessageType(getKey());
 			throw scmpCommandException;
 		}
-		SCMPMessage reply = null;
+		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
+		// callback replies once the list script responded
+		FileCommandCallback fileCallback = new FileCommandCallback(request, response, responderCallback, null, SCMPError.GET_FILE_LIST_FAILED);
 		try {
 			FileServer fileServer = fileService.getServer();
-			reply = fileServer.serverGetFileList(fileService.getPath(), fileService.getGetFileListScriptName(), message, oti);
+			fileServer.serverGetFileList(fileService.getPath(), fileService.getGetFileListScriptName(), message, fileCallback, otiOnSCMillis);
 		} catch (Exception e) {
 			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.GET_FILE_LIST_FAILED, "Error occured in get file list on SC.");
 			scmpCommandException.setMessageType(getKey());
 			throw scmpCommandException;
 		}
-		reply.setIsReply(true);
-		reply.setMessageType(getKey());
-		response.setSCMP(reply);
-		responderCallback.responseCallback(request, response);
 	}
 
 	/** {@inheritDoc} */
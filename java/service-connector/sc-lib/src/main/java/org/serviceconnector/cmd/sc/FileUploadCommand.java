@@ -62,7 +62,7 @@ public class FileUploadCommand extends CommandAdapter {
 
 		switch (abstractService.getType()) {
 			case CASCADED_FILE_SERVICE:
-				CascadedSC cascadedSC = ((CascadedFileService) abstractService).getCascadedSC();
+				CascadedSC cascadedSC = ((CascadedFileService) abstractService).getCascadedSC(message.getSessionId());
 				CommandCascCallback callback = new CommandCascCallback(request, response, responderCallback);
 				cascadedSC.serverUploadFile(message, callback, oti);
 				return;
@@ -78,22 +78,17 @@ public class FileUploadCommand extends CommandAdapter {
 		int otiOnSCMillis = (int) (oti * basicConf.getOperationTimeoutMultiplier());
 		double otiOnSCSeconds = (otiOnSCMillis / Constants.SEC_TO_MILLISEC_FACTOR);
 		this.sessionRegistry.resetSessionTimeout(session, (otiOnSCSeconds + session.getSessionTimeoutMillis()));
-		SCMPMessage reply = null;
+		// callback replies once the part has been written to the web server, resets session timeout to ECI
+		FileCommandCallback fileCallback = new FileCommandCallback(request, response, responderCallback, session.getId(), SCMPError.FILE_UPLOAD_FAILED);
 		try {
 			String remoteFileName = message.getHeader(SCMPHeaderAttributeKey.REMOTE_FILE_NAME);
 			FileServer fileServer = session.getFileServer();
-			reply = fileServer.serverUploadFile(session, message, remoteFileName, oti);
+			fileServer.serverUploadFile(session, message, remoteFileName, fileCallback, otiOnSCMillis);
 		} catch (Exception e) {
 			SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.FILE_UPLOAD_FAILED, "Error occured in file server on SC.");
 			scmpCommandException.setMessageType(getKey());
 			throw scmpCommandException;
 		}
-		reply.setIsReply(true);
-		reply.setMessageType(getKey());
-		response.setSCMP(reply);
-		// reset session timeout to ECI
-		this.sessionRegistry.resetSessionTimeout(session, session.getSessionTimeoutMillis());
-		responderCallback.responseCallback(request, response);
 	}
 
 	/** {@inheritDoc} */
@@ -113,6 +108,11 @@ public class FileUploadCommand extends CommandAdapter {
 			// sessionId mandatory
 			String sessionId = message.getSessionId();
 			ValidatorUtility.validateStringLengthTrim(1, sessionId, Constants.MAX_STRING_LENGTH_256, SCMPError.HV_WRONG_SESSION_ID);
+			// file range offset optional
+			String rangeOffset = message.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET);
+			if (rangeOffset != null) {
+				ValidatorUtility.validateLong(0, rangeOffset, SCMPError.HV_ERROR);
+			}
 		} catch (HasFaultResponseException ex) {
 			// needs to set message type at this point
 			ex.setMessageType(getKey());
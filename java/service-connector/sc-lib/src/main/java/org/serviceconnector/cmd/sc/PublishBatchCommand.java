@@ -0,0 +1,126 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.cmd.sc;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.serviceconnector.Constants;
+import org.serviceconnector.cmd.SCMPValidatorException;
+import org.serviceconnector.net.req.IRequest;
+import org.serviceconnector.net.res.IResponderCallback;
+import org.serviceconnector.net.res.IResponse;
+import org.serviceconnector.registry.PublishMessageQueue;
+import org.serviceconnector.scmp.HasFaultResponseException;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
+import org.serviceconnector.service.PublishService;
+import org.serviceconnector.util.ValidatorUtility;
+
+/**
+ * The Class PublishBatchCommand. Responsible for validation and execution of publish batch command. Allows publishing several messages to clients in one request, the
+ * messages are inserted into the queue in one step.
+ */
+public class PublishBatchCommand extends PublishCommand {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(PublishBatchCommand.class);
+
+	/** {@inheritDoc} */
+	@Override
+	public SCMPMsgType getKey() {
+		return SCMPMsgType.PUBLISH_BATCH;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void run(IRequest request, IResponse response, IResponderCallback responderCallback) throws Exception {
+		SCMPMessage message = request.getMessage();
+		String serviceName = message.getServiceName();
+		// lookup service and checks properness
+		PublishService service = this.validatePublishService(serviceName);
+
+		List<SCMPMessage> publications = SCMPPublicationBatch.decode(message);
+		try {
+			int batchSize = message.getHeaderInt(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE);
+			if (publications.size() != batchSize) {
+				throw new SCMPValidatorException(SCMPError.HV_WRONG_PUBLICATION_BATCH_SIZE, "publicationBatchSize=" + batchSize + " does not match number of publications="
+						+ publications.size());
+			}
+			for (SCMPMessage publication : publications) {
+				this.validatePublication(publication);
+			}
+		} catch (HasFaultResponseException ex) {
+			// needs to set message type at this point
+			ex.setMessageType(getKey());
+			throw ex;
+		}
+		for (SCMPMessage publication : publications) {
+			publication.setServiceName(serviceName);
+			this.cacheManagedData(service, publication);
+		}
+
+		// reset server timeout
+		this.resetServerTimeout(serviceName, request.getRemoteSocketAddress());
+
+		PublishMessageQueue<SCMPMessage> queue = service.getMessageQueue();
+		queue.insertAll(publications);
+
+		// reply to server
+		SCMPMessage reply = new SCMPMessage(message.getSCMPVersion());
+		reply.setMessageType(this.getKey());
+		reply.setIsReply(true);
+		reply.setServiceName(serviceName);
+		reply.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE, publications.size());
+		response.setSCMP(reply);
+		responderCallback.responseCallback(request, response);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void validate(IRequest request) throws Exception {
+		SCMPMessage message = request.getMessage();
+		try {
+			// msgSequenceNr mandatory
+			String msgSequenceNr = message.getMessageSequenceNr();
+			ValidatorUtility.validateLong(1, msgSequenceNr, SCMPError.HV_WRONG_MESSAGE_SEQUENCE_NR);
+			// serviceName mandatory
+			String serviceName = message.getServiceName();
+			ValidatorUtility.validateStringLengthTrim(1, serviceName, Constants.MAX_LENGTH_SERVICENAME, SCMPError.HV_WRONG_SERVICE_NAME);
+			// publicationBatchSize mandatory
+			String batchSize = message.getHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE);
+			ValidatorUtility.validateInt(1, batchSize, Constants.MAX_PUBLICATION_BATCH_SIZE, SCMPError.HV_WRONG_PUBLICATION_BATCH_SIZE);
+			if (message.isPart()) {
+				// batch must fit into one message
+				throw new SCMPValidatorException(SCMPError.HV_WRONG_PUBLICATION_BATCH_BYTES, "publication batch exceeds part size");
+			}
+		} catch (HasFaultResponseException ex) {
+			// needs to set message type at this point
+			ex.setMessageType(getKey());
+			throw ex;
+		} catch (Throwable th) {
+			LOGGER.error("validation error", th);
+			SCMPValidatorException validatorException = new SCMPValidatorException();
+			validatorException.setMessageType(getKey());
+			throw validatorException;
+		}
+	}
+}
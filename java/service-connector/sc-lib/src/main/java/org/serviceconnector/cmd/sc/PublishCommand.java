@@ -58,19 +58,7 @@ public class PublishCommand extends CommandAdapter {
 		String serviceName = message.getServiceName();
 		// lookup service and checks properness
 		PublishService service = this.validatePublishService(serviceName);
-
-		// Managed data arrived over cache guardian - handle caching
-		if (service.getType() == ServiceType.CACHE_GUARDIAN) {
-			if (service.getCountAllocatedSessions() > 0) {
-				// existing subscriptions on cache guardian - cache managed data
-				message.setSessionId("SPUnoSid"); // setting a dummy sid, is needed for the cache!
-				AppContext.getSCCache().cacheManagedData(message);
-			}
-		} else if (service.getType() == ServiceType.CASCADED_CACHE_GUARDIAN) {
-			// always cache managed data for cascaded cache guardian
-			message.setSessionId("SPUnoSid"); // setting a dummy sid, is needed for the cache!
-			AppContext.getSCCache().cacheManagedData(message);
-		}
+		this.cacheManagedData(service, message);
 
 		// reset server timeout
 		this.resetServerTimeout(serviceName, request.getRemoteSocketAddress());
@@ -95,6 +83,45 @@ public class PublishCommand extends CommandAdapter {
 		responderCallback.responseCallback(request, response);
 	}
 
+	/**
+	 * Cache managed data. Managed data arrived over cache guardian needs to be cached.
+	 *
+	 * @param service the publish service
+	 * @param message the published message
+	 * @throws Exception the exception
+	 */
+	protected void cacheManagedData(PublishService service, SCMPMessage message) throws Exception {
+		if (service.getType() == ServiceType.CACHE_GUARDIAN) {
+			if (service.getCountAllocatedSessions() > 0) {
+				// existing subscriptions on cache guardian - cache managed data
+				message.setSessionId("SPUnoSid"); // setting a dummy sid, is needed for the cache!
+				AppContext.getSCCache().cacheManagedData(message);
+			}
+		} else if (service.getType() == ServiceType.CASCADED_CACHE_GUARDIAN) {
+			// always cache managed data for cascaded cache guardian
+			message.setSessionId("SPUnoSid"); // setting a dummy sid, is needed for the cache!
+			AppContext.getSCCache().cacheManagedData(message);
+		}
+	}
+
+	/**
+	 * Validate publication. Checks the attributes of a published message.
+	 *
+	 * @param message the published message
+	 * @throws Exception the exception
+	 */
+	protected void validatePublication(SCMPMessage message) throws Exception {
+		// mask mandatory
+		String mask = message.getHeader(SCMPHeaderAttributeKey.MASK);
+		ValidatorUtility.validateStringLength(1, mask, Constants.MAX_STRING_LENGTH_256, SCMPError.HV_WRONG_MASK);
+		// message info optional
+		String messageInfo = message.getHeader(SCMPHeaderAttributeKey.MSG_INFO);
+		ValidatorUtility.validateStringLengthIgnoreNull(1, messageInfo, Constants.MAX_STRING_LENGTH_256, SCMPError.HV_WRONG_MESSAGE_INFO);
+		// caching method value
+		String cachingMethod = message.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD);
+		ValidatorUtility.validateCachingMethod(cachingMethod, SCMPError.HV_WRONG_CACHING_METHOD_VALUE);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void validate(IRequest request) throws Exception {
@@ -106,15 +133,7 @@ public class PublishCommand extends CommandAdapter {
 			// serviceName mandatory
 			String serviceName = message.getServiceName();
 			ValidatorUtility.validateStringLengthTrim(1, serviceName, Constants.MAX_LENGTH_SERVICENAME, SCMPError.HV_WRONG_SERVICE_NAME);
-			// mask mandatory
-			String mask = message.getHeader(SCMPHeaderAttributeKey.MASK);
-			ValidatorUtility.validateStringLength(1, mask, Constants.MAX_STRING_LENGTH_256, SCMPError.HV_WRONG_MASK);
-			// message info optional
-			String messageInfo = message.getHeader(SCMPHeaderAttributeKey.MSG_INFO);
-			ValidatorUtility.validateStringLengthIgnoreNull(1, messageInfo, Constants.MAX_STRING_LENGTH_256, SCMPError.HV_WRONG_MESSAGE_INFO);
-			// caching method value
-			String cachingMethod = message.getHeader(SCMPHeaderAttributeKey.CACHING_METHOD);
-			ValidatorUtility.validateCachingMethod(cachingMethod, SCMPError.HV_WRONG_CACHING_METHOD_VALUE);
+			this.validatePublication(message);
 		} catch (HasFaultResponseException ex) {
 			// needs to set message type at this point
 			ex.setMessageType(getKey());
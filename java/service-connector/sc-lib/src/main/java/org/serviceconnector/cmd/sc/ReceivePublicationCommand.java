@@ -19,6 +19,7 @@ package org.serviceconnector.cmd.sc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
+import org.serviceconnector.cmd.SCMPCommandException;
 import org.serviceconnector.cmd.SCMPValidatorException;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.res.IResponderCallback;
@@ -26,9 +27,10 @@ import org.serviceconnector.net.res.IResponse;
 import org.serviceconnector.registry.PublishMessageQueue;
 import org.serviceconnector.scmp.HasFaultResponseException;
 import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMsgType;
-import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
 import org.serviceconnector.service.Subscription;
 import org.serviceconnector.util.ValidatorUtility;
 
@@ -62,25 +64,21 @@ public class ReceivePublicationCommand extends CommandAdapter {
 			// reset subscription timeout to NOI+ECI
 			this.subscriptionRegistry.resetSubscriptionTimeout(subscription, subscription.getNoDataIntervalMillis() + subscription.getSubscriptionTimeoutMillis());
 			// tries polling message
-			message = publishMessageQueue.getMessageOrListen(subscriptionId, request, response);
+			try {
+				message = publishMessageQueue.getMessageOrListen(subscriptionId, request, response);
+			} catch (SCMPCommandException ex) {
+				// unsubscribed in the meantime - reply fault instead of listening
+				ex.setMessageType(getKey());
+				throw ex;
+			}
 			if (message == null) {
 				// no message available, switched to listening mode for new message
 				return;
 			}
 		}
 		LOGGER.debug("CRP message found in queue subscriptionId " + subscriptionId);
-		// message found in subscription queue set up reply
-		SCMPMessage reply = null;
-		if (message.isPart() == true) {
-			// message from queue is of type part - outgoing must be part too, no poll request
-			reply = new SCMPPart(message.getSCMPVersion(), false, message.getHeader());
-		} else {
-			reply = new SCMPMessage(message.getSCMPVersion(), message.getHeader());
-		}
-		reply.setSessionId(reqMessage.getSessionId());
-		reply.setMessageType(reqMessage.getMessageType());
-		reply.setIsReply(true);
-		reply.setBody(message.getBody());
+		// message found in subscription queue set up reply, further messages are added if client asks for a batch
+		SCMPMessage reply = SCMPPublicationBatch.createReply(reqMessage, message, publishMessageQueue);
 		response.setSCMP(reply);
 		// reset subscription timeout to ECI
 		this.subscriptionRegistry.resetSubscriptionTimeout(subscription, subscription.getSubscriptionTimeoutMillis());
@@ -102,6 +100,16 @@ public class ReceivePublicationCommand extends CommandAdapter {
 			// sessionId mandatory
 			String sessionId = message.getSessionId();
 			ValidatorUtility.validateStringLengthTrim(1, sessionId, Constants.MAX_STRING_LENGTH_256, SCMPError.HV_WRONG_SESSION_ID);
+			// publicationBatchSize optional
+			String batchSize = message.getHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE);
+			if (batchSize != null) {
+				ValidatorUtility.validateInt(1, batchSize, Constants.MAX_PUBLICATION_BATCH_SIZE, SCMPError.HV_WRONG_PUBLICATION_BATCH_SIZE);
+			}
+			// publicationBatchBytes optional
+			String batchBytes = message.getHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_BYTES);
+			if (batchBytes != null) {
+				ValidatorUtility.validateInt(1, batchBytes, Integer.MAX_VALUE, SCMPError.HV_WRONG_PUBLICATION_BATCH_BYTES);
+			}
 		} catch (HasFaultResponseException ex) {
 			// needs to set message type at this point
 			ex.setMessageType(getKey());
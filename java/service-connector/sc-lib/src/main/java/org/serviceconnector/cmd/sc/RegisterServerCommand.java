@@ -79,6 +79,7 @@ public class RegisterServerCommand extends CommandAdapter {
 		int maxConnections = message.getHeaderInt(SCMPHeaderAttributeKey.MAX_CONNECTIONS);
 		int portNr = message.getHeaderInt(SCMPHeaderAttributeKey.PORT_NR);
 		boolean immediateConnect = message.getHeaderFlag(SCMPHeaderAttributeKey.IMMEDIATE_CONNECT);
+		boolean multiplexed = message.getHeaderFlag(SCMPHeaderAttributeKey.MULTIPLEXED);
 		int keepAliveIntervalSeconds = message.getHeaderInt(SCMPHeaderAttributeKey.KEEP_ALIVE_INTERVAL);
 		int checkRegistrationIntervalSeconds = message.getHeaderInt(SCMPHeaderAttributeKey.CHECK_REGISTRATION_INTERVAL);
 		String httpUrlFileQualifier = message.getHeader(SCMPHeaderAttributeKey.URL_PATH);
@@ -95,6 +96,8 @@ public class RegisterServerCommand extends CommandAdapter {
 
 		RemoteNodeConfiguration remoteNodeConfiguration = new RemoteNodeConfiguration(ServerType.STATEFUL_SERVER, serverKey, socketAddress.getHostName(), portNr, connectionType,
 				keepAliveIntervalSeconds, checkRegistrationIntervalSeconds, maxConnections, maxSessions, httpUrlFileQualifier);
+		// server is able to handle concurrent requests on a shared connection
+		remoteNodeConfiguration.setMultiplexed(multiplexed);
 		// create new server
 		StatefulServer server = new StatefulServer(remoteNodeConfiguration, serviceName, socketAddress);
 		try {
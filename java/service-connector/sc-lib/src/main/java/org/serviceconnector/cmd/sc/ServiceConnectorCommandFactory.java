@@ -83,6 +83,8 @@ public class ServiceConnectorCommandFactory extends FlyweightCommandFactory {
 		this.addCommand(receivePublicationCommand.getKey(), receivePublicationCommand);
 		ICommand publishCommand = new PublishCommand();
 		this.addCommand(publishCommand.getKey(), publishCommand);
+		ICommand publishBatchCommand = new PublishBatchCommand();
+		this.addCommand(publishBatchCommand.getKey(), publishBatchCommand);
 		// file commands
 		ICommand fileUploadCommand = new FileUploadCommand();
 		this.addCommand(fileUploadCommand.getKey(), fileUploadCommand);
@@ -26,6 +26,7 @@ import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.res.IResponderCallback;
 import org.serviceconnector.net.res.IResponse;
 import org.serviceconnector.scmp.HasFaultResponseException;
+import org.serviceconnector.scmp.SCMPCompositeReceiver;
 import org.serviceconnector.scmp.SCMPError;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
@@ -60,7 +61,12 @@ public class SrvExecuteCommand extends SrvCommandAdapter {
 
 		// create scMessage
 		SCMessage scMessage = new SCMessage();
-		scMessage.setData(reqMessage.getBody());
+		if (srvService.isLargeRequestAsStream() && reqMessage.isComposite()) {
+			// parts are read by the server one after the other
+			scMessage.setData(((SCMPCompositeReceiver) reqMessage).getBodyAsStream());
+		} else {
+			scMessage.setData(reqMessage.getBody());
+		}
 		scMessage.setDataLength(reqMessage.getBodyLength());
 		scMessage.setCompressed(reqMessage.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION));
 		scMessage.setMessageInfo(reqMessage.getHeader(SCMPHeaderAttributeKey.MSG_INFO));
@@ -71,6 +71,10 @@ public class BasicConfiguration {
 	 * The subscription timeout. Monitors the maximum time between receive publication. If this timeout expires, subscription is deleted
 	 */
 	private int subscriptionTimeoutMillis = Constants.DEFAULT_SUBSCRIPTION_TIMEOUT_MILLIS;
+	/**
+	 * The number of threads running receive publication timeouts of all publish message queues.
+	 */
+	private int publishTimeoutThreads = Constants.DEFAULT_PUBLISH_TIMEOUT_THREADS;
 	/** The command validation. */
 	private boolean commandValidation = Constants.COMMAND_VALIDATION_ENABLED;
 	/**
@@ -189,6 +193,16 @@ public class BasicConfiguration {
 		}
 		LOGGER.info("subscriptionTimeoutMillis=" + this.subscriptionTimeoutMillis);
 
+		// publishTimeoutThreads
+		Integer localPublishTimeoutThreads = compositeConfiguration.getInteger(Constants.ROOT_PUBLISH_TIMEOUT_THREADS, null);
+		if (localPublishTimeoutThreads != null && this.publishTimeoutThreads != localPublishTimeoutThreads) {
+			if (localPublishTimeoutThreads < 1) {
+				throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE, "property=" + Constants.ROOT_PUBLISH_TIMEOUT_THREADS + " must be greater than 0");
+			}
+			this.publishTimeoutThreads = localPublishTimeoutThreads;
+		}
+		LOGGER.info("publishTimeoutThreads=" + this.publishTimeoutThreads);
+
 		// commandValidation
 		Boolean localCMDValidation = compositeConfiguration.getBoolean(Constants.ROOT_COMMAND_VALIDATION_ENABLED, null);
 		if (localCMDValidation != null && this.commandValidation != localCMDValidation) {
@@ -275,6 +289,15 @@ public class BasicConfiguration {
 		return subscriptionTimeoutMillis;
 	}
 
+	/**
+	 * Gets the number of threads running receive publication timeouts.
+	 *
+	 * @return the publish timeout threads
+	 */
+	public int getPublishTimeoutThreads() {
+		return publishTimeoutThreads;
+	}
+
 	/**
 	 * Checks if is command validation.
 	 *
@@ -375,6 +398,7 @@ public class BasicConfiguration {
 		writer.writeElement("keepAliveOTIMillis", this.keepAliveOTIMillis);
 		writer.writeElement("srvAbortOTIMillis", this.srvAbortOTIMillis);
 		writer.writeElement("subscriptionTimeoutMillis", this.subscriptionTimeoutMillis);
+		writer.writeElement("publishTimeoutThreads", this.publishTimeoutThreads);
 		writer.writeEndElement(); // end of configuration
 	}
 }
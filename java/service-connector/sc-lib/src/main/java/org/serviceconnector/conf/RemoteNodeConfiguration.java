@@ -50,6 +50,10 @@ public class RemoteNodeConfiguration {
 	private int maxSessions;
 	/** the HTTP URL file qualifier which is added to the URL when communicating to a HTTP server. */
 	private String httpUrlFileQualifier = Constants.SLASH;
+	/** The multiplexed flag, marks if concurrent requests share connections (tcp only). */
+	private boolean multiplexed = Constants.DEFAULT_MULTIPLEXED_FLAG;
+	/** The weight, share of requests a cascaded SC gets inside a remote node group. */
+	private int weight = Constants.DEFAULT_CASCADED_SC_WEIGHT;
 
 	/**
 	 * The Constructor.
@@ -164,6 +168,14 @@ public class RemoteNodeConfiguration {
 			ValidatorUtility.validateInt(0, this.keepAliveIntervalSeconds, SCMPError.HV_WRONG_KEEPALIVE_INTERVAL);
 		}
 
+		if (serverType == ServerType.CASCADED_SC) {
+			// get multiplexed, optional - requests to the cascaded SC share connections if set
+			this.multiplexed = compositeConfig.getBoolean(this.name + Constants.PROPERTY_QUALIFIER_MULTIPLEXED, Constants.DEFAULT_MULTIPLEXED_FLAG);
+			// get weight, optional - only relevant if the cascaded SC is part of a remote node group
+			this.weight = compositeConfig.getInt(this.name + Constants.PROPERTY_QUALIFIER_WEIGHT, Constants.DEFAULT_CASCADED_SC_WEIGHT);
+			ValidatorUtility.validateInt(1, this.weight, SCMPError.V_WRONG_CONFIGURATION_FILE);
+		}
+
 		if (serverType == ServerType.FILE_SERVER) {
 			// get maxSessions
 			Integer localMaxSessions = compositeConfig.getInteger(this.name + Constants.PROPERTY_QALIFIER_MAX_SESSIONS, null);
@@ -188,6 +200,8 @@ public class RemoteNodeConfiguration {
 		writer.writeElement("maxPoolSize", this.maxPoolSize);
 		writer.writeElement("maxSessions", this.maxSessions);
 		writer.writeElement("keepAliveIntervalSeconds", this.keepAliveIntervalSeconds);
+		writer.writeElement("multiplexed", this.multiplexed);
+		writer.writeElement("weight", this.weight);
 		writer.writeElement("serverType", this.serverType.getValue());
 		writer.writeEndElement(); // end of remote-node
 	}
@@ -266,6 +280,43 @@ public class RemoteNodeConfiguration {
 		return maxSessions;
 	}
 
+	/**
+	 * Checks if requests to the remote node are multiplexed.
+	 *
+	 * @return true, if concurrent requests share connections
+	 */
+	public boolean isMultiplexed() {
+		return multiplexed;
+	}
+
+	/**
+	 * Sets the multiplexed flag. Concurrent requests share connections and are correlated by request id. The remote node must echo the request id, only tcp connections are
+	 * multiplexed.
+	 *
+	 * @param multiplexed the new multiplexed flag
+	 */
+	public void setMultiplexed(boolean multiplexed) {
+		this.multiplexed = multiplexed;
+	}
+
+	/**
+	 * Gets the weight. Inside a remote node group a cascaded SC gets requests in proportion to its weight.
+	 *
+	 * @return the weight
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Sets the weight.
+	 *
+	 * @param weight the new weight
+	 */
+	public void setWeight(int weight) {
+		this.weight = weight;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public String toString() {
@@ -285,6 +336,10 @@ public class RemoteNodeConfiguration {
 		builder.append(this.maxPoolSize);
 		builder.append("/mxs=");
 		builder.append(this.maxSessions);
+		builder.append("/mux=");
+		builder.append(this.multiplexed);
+		builder.append("/wgt=");
+		builder.append(this.weight);
 		return builder.toString();
 	}
 }
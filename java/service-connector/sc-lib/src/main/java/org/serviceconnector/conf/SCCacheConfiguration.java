@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
 import org.serviceconnector.cache.SCCache;
+import org.serviceconnector.cache.SC_CACHE_TYPE;
 import org.serviceconnector.cmd.SCMPValidatorException;
 import org.serviceconnector.scmp.SCMPError;
 
@@ -35,6 +36,8 @@ public class SCCacheConfiguration {
 
 	/** The cache enabled. */
 	private boolean cacheEnabled;
+	/** The cache type. */
+	private SC_CACHE_TYPE cacheType;
 	/** The disk path. */
 	private String diskPath = null;
 	/** The max elements in memory. */
@@ -43,25 +46,35 @@ public class SCCacheConfiguration {
 	private int maxElementsOnDisk;
 	/** The expiration thread interval (timeout) in seconds. */
 	private int expirationCheckIntervalSeconds;
+	/** The segment size of the persistent cache in MB. */
+	private int segmentSizeMB;
+	/** The maximum size of an off heap cache module in MB. */
+	private int maxOffHeapSizeMB;
 
 	/**
 	 * Instantiates a new cache configuration.
 	 */
 	public SCCacheConfiguration() {
 		this.cacheEnabled = Constants.DEFAULT_CACHE_ENABLED;
+		this.cacheType = SC_CACHE_TYPE.EHCACHE;
 		this.maxElementsInMemory = Constants.DEFAULT_CACHE_MAX_ELEMENTS_IN_MEMORY;
 		this.maxElementsOnDisk = Constants.DEFAULT_CACHE_MAX_ELEMENTS_ON_DISK;
 		this.expirationCheckIntervalSeconds = Constants.DEFAULT_CACHE_EXPIRATION_CHECK_INTERVAL_SECONDS;
+		this.segmentSizeMB = Constants.DEFAULT_CACHE_SEGMENT_SIZE_MB;
+		this.maxOffHeapSizeMB = Constants.DEFAULT_CACHE_MAX_OFF_HEAP_SIZE_MB;
 	}
 
 	/**
 	 * Loads cache parameters from properties file.<br />
 	 * Service Connector cache parameters: <br />
 	 * cache.enabled=true<br />
+	 * cache.type=ehcache<br />
 	 * cache.diskPath=../../dev/cache <br />
 	 * cache.maxElementsInMemory=100000 <br />
 	 * cache.maxElementsOnDisk=1000000 <br />
 	 * cache.expirationCheckIntervalSeconds=60 <br />
+	 * cache.segmentSizeMB=64 <br />
+	 * cache.maxOffHeapSizeMB=256 <br />
 	 *
 	 * @param compositeConfiguration the composite configuration
 	 * @throws SCMPValidatorException the SCMP validator exception
@@ -73,6 +86,17 @@ public class SCCacheConfiguration {
 		}
 		LOGGER.info(Constants.CACHE_DISK_PATH + "cacheEnabled=" + this.cacheEnabled);
 
+		// type
+		String sCacheType = compositeConfiguration.getString(Constants.CACHE_TYPE, null);
+		if (sCacheType != null) {
+			SC_CACHE_TYPE cacheTypeConf = SC_CACHE_TYPE.getCacheType(sCacheType);
+			if (cacheTypeConf == null) {
+				throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE, "invalid property=" + Constants.CACHE_TYPE + " value=" + sCacheType);
+			}
+			this.cacheType = cacheTypeConf;
+		}
+		LOGGER.info(Constants.CACHE_TYPE + "=" + this.cacheType.getValue());
+
 		// diskPath
 		String sDiskPath = compositeConfiguration.getString(Constants.CACHE_DISK_PATH, null);
 		if (sDiskPath == null && this.cacheEnabled) {
@@ -103,6 +127,28 @@ public class SCCacheConfiguration {
 			this.expirationCheckIntervalSeconds = expirationThreadIntervalSeconds;
 		}
 		LOGGER.info(Constants.CACHE_EXPIRATION_CHECK_INTERVAL_SECONDS + "=" + this.expirationCheckIntervalSeconds);
+
+		// segmentSizeMB
+		Integer segmentSizeMBConf = compositeConfiguration.getInteger(Constants.CACHE_SEGMENT_SIZE_MB, null);
+		if (segmentSizeMBConf != null && segmentSizeMBConf != this.segmentSizeMB) {
+			if (segmentSizeMBConf <= 0 || segmentSizeMBConf > Constants.MAX_CACHE_SEGMENT_SIZE_MB) {
+				throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE, "invalid property=" + Constants.CACHE_SEGMENT_SIZE_MB + " value="
+						+ segmentSizeMBConf);
+			}
+			this.segmentSizeMB = segmentSizeMBConf;
+		}
+		LOGGER.info(Constants.CACHE_SEGMENT_SIZE_MB + "=" + this.segmentSizeMB);
+
+		// maxOffHeapSizeMB
+		Integer maxOffHeapSizeMBConf = compositeConfiguration.getInteger(Constants.CACHE_MAX_OFF_HEAP_SIZE_MB, null);
+		if (maxOffHeapSizeMBConf != null && maxOffHeapSizeMBConf != this.maxOffHeapSizeMB) {
+			if (maxOffHeapSizeMBConf <= 0) {
+				throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE, "invalid property=" + Constants.CACHE_MAX_OFF_HEAP_SIZE_MB + " value="
+						+ maxOffHeapSizeMBConf);
+			}
+			this.maxOffHeapSizeMB = maxOffHeapSizeMBConf;
+		}
+		LOGGER.info(Constants.CACHE_MAX_OFF_HEAP_SIZE_MB + "=" + this.maxOffHeapSizeMB);
 	}
 
 	/**
@@ -114,6 +160,15 @@ public class SCCacheConfiguration {
 		return cacheEnabled;
 	}
 
+	/**
+	 * Gets the cache type.
+	 *
+	 * @return the cache type
+	 */
+	public SC_CACHE_TYPE getCacheType() {
+		return cacheType;
+	}
+
 	/**
 	 * Gets the disk path.
 	 *
@@ -149,4 +204,22 @@ public class SCCacheConfiguration {
 	public int getExpirationCheckIntervalSeconds() {
 		return expirationCheckIntervalSeconds;
 	}
+
+	/**
+	 * Gets the segment size of the persistent cache in MB.
+	 *
+	 * @return the segment size in MB
+	 */
+	public int getSegmentSizeMB() {
+		return segmentSizeMB;
+	}
+
+	/**
+	 * Gets the maximum size of an off heap cache module in MB.
+	 *
+	 * @return the maximum off heap size in MB
+	 */
+	public int getMaxOffHeapSizeMB() {
+		return maxOffHeapSizeMB;
+	}
 }
@@ -16,6 +16,9 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.conf;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.configuration2.CompositeConfiguration;
 import org.serviceconnector.Constants;
 import org.serviceconnector.cmd.SCMPValidatorException;
@@ -45,6 +48,8 @@ public class ServiceConfiguration {
 	private int nodDataIntervalSeconds;
 	/** The remote node configuration for file services and cascased services. */
 	private RemoteNodeConfiguration remoteNodeConfiguration;
+	/** The remote node group, names of the cascaded SCs sharing a cascaded service - remote node first. */
+	private List<String> remoteNodeGroup;
 
 	/**
 	 * The Constructor.
@@ -59,6 +64,7 @@ public class ServiceConfiguration {
 		this.uploadScript = null;
 		this.listScript = null;
 		this.remoteNodeConfiguration = null;
+		this.remoteNodeGroup = new ArrayList<String>();
 		this.nodDataIntervalSeconds = Constants.DEFAULT_NO_DATA_INTERVAL_SECONDS;
 	}
 
@@ -128,6 +134,32 @@ public class ServiceConfiguration {
 			}
 			// set remote host configuration into the listener configuration
 			this.remoteNodeConfiguration = remoteNodeConfig;
+			this.remoteNodeGroup.add(remoteNode);
+		}
+
+		// get remote node group for cascaded services, optional - further cascaded SCs sharing the load of the remote node
+		String[] remoteNodeGroupNames = compositeConfig.getStringArray(this.name + Constants.PROPERTY_QUALIFIER_REMOTE_NODE_GROUP);
+		if (remoteNodeGroupNames.length > 0) {
+			if ((serviceType != ServiceType.CASCADED_SESSION_SERVICE) && (serviceType != ServiceType.CASCADED_PUBLISH_SERVICE)
+					&& (serviceType != ServiceType.CASCADED_FILE_SERVICE) && (serviceType != ServiceType.CASCADED_CACHE_GUARDIAN)) {
+				throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE, this.name + Constants.PROPERTY_QUALIFIER_REMOTE_NODE_GROUP
+						+ " is only allowed for cascaded services");
+			}
+			for (String groupNode : remoteNodeGroupNames) {
+				groupNode = groupNode.trim();
+				RemoteNodeConfiguration groupNodeConfiguration = AppContext.getRequesterConfiguration().getRequesterConfigurations().get(groupNode);
+				if (groupNodeConfiguration == null) {
+					throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE, "unkown remoteNode=" + groupNode + " in " + this.name
+							+ Constants.PROPERTY_QUALIFIER_REMOTE_NODE_GROUP);
+				}
+				if (groupNodeConfiguration.getServerType() != ServerType.CASCADED_SC) {
+					throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE, "remoteNode=" + groupNode + " in " + this.name
+							+ Constants.PROPERTY_QUALIFIER_REMOTE_NODE_GROUP + " is not a cascaded SC");
+				}
+				if (this.remoteNodeGroup.contains(groupNode) == false) {
+					this.remoteNodeGroup.add(groupNode);
+				}
+			}
 		}
 
 		if ((serviceType == ServiceType.CASCADED_PUBLISH_SERVICE) || (serviceType == ServiceType.CASCADED_CACHE_GUARDIAN)) {
@@ -160,6 +192,10 @@ public class ServiceConfiguration {
 			builder.append("/remote=");
 			builder.append(this.remoteNodeConfiguration.getHost());
 		}
+		if (this.remoteNodeGroup.size() > 1) {
+			builder.append("/group=");
+			builder.append(this.remoteNodeGroup);
+		}
 		if (this.path != null) {
 			builder.append("/path=");
 			builder.append(this.path);
@@ -234,6 +270,15 @@ public class ServiceConfiguration {
 		return remoteNodeConfiguration;
 	}
 
+	/**
+	 * Gets the remote node group. Names of the cascaded SCs sharing a cascaded service, the remote node is always the first one.
+	 *
+	 * @return the remote node group
+	 */
+	public List<String> getRemoteNodeGroup() {
+		return remoteNodeGroup;
+	}
+
 	/**
 	 * Gets the no data interval seconds.
 	 *
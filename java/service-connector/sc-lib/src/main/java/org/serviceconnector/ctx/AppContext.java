@@ -24,7 +24,6 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -61,6 +60,7 @@ import org.serviceconnector.registry.SessionRegistry;
 import org.serviceconnector.registry.SubscriptionRegistry;
 import org.serviceconnector.scmp.SCMPError;
 import org.serviceconnector.util.NamedPriorityThreadFactory;
+import org.serviceconnector.util.TimeoutScheduler;
 import org.serviceconnector.util.XMLDumpWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,10 +83,14 @@ public final class AppContext {
 	public static Object communicatorsLock = new Object();
 	/** The attached communicators. current attached communicators. */
 	public static AtomicInteger attachedCommunicators = new AtomicInteger();
-	/** The executer, triggers all operation timeout for sending. */
-	public static ScheduledThreadPoolExecutor otiScheduler;
-	/** The executer observes timeouts of services(ECI)/servers(CRI). */
-	public static ScheduledThreadPoolExecutor eci_cri_Scheduler;
+	/** The scheduler, triggers all operation timeout for sending. */
+	public static TimeoutScheduler otiScheduler;
+	/** The scheduler observes timeouts of services(ECI)/servers(CRI). */
+	public static TimeoutScheduler eci_cri_Scheduler;
+	/** The scheduler runs receive publication timeouts of all publish message queues. */
+	private static volatile TimeoutScheduler publishTimeoutScheduler;
+	/** The publish timeout scheduler lock, guards lazy creation of the publish timeout scheduler. */
+	private static final Object publishTimeoutSchedulerLock = new Object();
 
 	// configurations
 	/** The composite configuration. */
@@ -166,11 +170,11 @@ public final class AppContext {
 			ConnectionFactory.init();
 			if (AppContext.otiScheduler == null) {
 				// set up new scheduler with high priority threads
-				AppContext.otiScheduler = new ScheduledThreadPoolExecutor(1, new NamedPriorityThreadFactory("OTI", Thread.MAX_PRIORITY));
+				AppContext.otiScheduler = new TimeoutScheduler("OTI", Thread.MAX_PRIORITY);
 			}
 			if (AppContext.eci_cri_Scheduler == null) {
 				// set up new scheduler with high priority threads
-				AppContext.eci_cri_Scheduler = new ScheduledThreadPoolExecutor(1, new NamedPriorityThreadFactory("ECI_CRI", Thread.MAX_PRIORITY));
+				AppContext.eci_cri_Scheduler = new TimeoutScheduler("ECI_CRI", Thread.MAX_PRIORITY);
 			}
 			if (AppContext.scWorkerThreadPool == null) {
 				AppContext.scWorkerThreadPool = Executors.newCachedThreadPool(new NamedPriorityThreadFactory("SC_WORKER"));
@@ -429,6 +433,25 @@ public final class AppContext {
 		return AppContext.orderedSCWorkerThreadPool;
 	}
 
+	/**
+	 * Gets the publish timeout scheduler. Scheduler is shared by all publish message queues, it gets created at first use with the number of threads of the basic
+	 * configuration.
+	 *
+	 * @return the publish timeout scheduler
+	 */
+	public static TimeoutScheduler getPublishTimeoutScheduler() {
+		TimeoutScheduler scheduler = AppContext.publishTimeoutScheduler;
+		if (scheduler != null) {
+			return scheduler;
+		}
+		synchronized (AppContext.publishTimeoutSchedulerLock) {
+			if (AppContext.publishTimeoutScheduler == null) {
+				AppContext.publishTimeoutScheduler = new TimeoutScheduler("CRPTimeout", Thread.NORM_PRIORITY, AppContext.basicConfiguration.getPublishTimeoutThreads());
+			}
+			return AppContext.publishTimeoutScheduler;
+		}
+	}
+
 	/**
 	 * Destroy the whole application context and release resources.
 	 */
@@ -451,6 +474,12 @@ public final class AppContext {
 					AppContext.eci_cri_Scheduler.shutdownNow();
 					AppContext.eci_cri_Scheduler = null;
 				}
+				synchronized (AppContext.publishTimeoutSchedulerLock) {
+					if (AppContext.publishTimeoutScheduler != null) {
+						AppContext.publishTimeoutScheduler.shutdownNow();
+						AppContext.publishTimeoutScheduler = null;
+					}
+				}
 				if (AppContext.scWorkerThreadPool != null) {
 					AppContext.scWorkerThreadPool.shutdownNow();
 					AppContext.scWorkerThreadPool = null;
@@ -562,6 +591,15 @@ public final class AppContext {
 			writer.writeAttribute("orderedscworker_activeCount", threadPoolEx.getActiveCount());
 		}
 		writer.writeEndElement(); // end of ordered-sc-worker-threadpool
+
+		writer.writeStartElement("timeout-schedulers");
+		TimeoutScheduler[] timeoutSchedulers = { AppContext.otiScheduler, AppContext.eci_cri_Scheduler, AppContext.publishTimeoutScheduler };
+		for (TimeoutScheduler timeoutScheduler : timeoutSchedulers) {
+			if (timeoutScheduler != null) {
+				timeoutScheduler.dump(writer);
+			}
+		}
+		writer.writeEndElement(); // end of timeout-schedulers
 	}
 	
 	private static PropertiesConfiguration buildPropertiesConfigurationWithFile(String configFile) throws ConfigurationException {
@@ -18,6 +18,7 @@ package org.serviceconnector.log;
 
 import java.util.Formatter;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
@@ -112,6 +113,20 @@ public final class ConnectionLogger {
 		format.close();
 	}
 
+	/**
+	 * Log read buffer.
+	 *
+	 * @param className the class name
+	 * @param hostName the host name
+	 * @param port the port
+	 * @param buffer the buffer
+	 */
+	public static void logReadBuffer(String className, String hostName, int port, ChannelBuffer buffer) {
+		byte[] data = new byte[Math.min(buffer.readableBytes(), Constants.NUMBER_100)];
+		buffer.getBytes(buffer.readerIndex(), data);
+		ConnectionLogger.logReadBuffer(className, hostName, port, data, 0, data.length);
+	}
+
 	/**
 	 * Log write buffer.
 	 *
@@ -133,6 +148,20 @@ public final class ConnectionLogger {
 		format.close();
 	}
 
+	/**
+	 * Log write buffer.
+	 *
+	 * @param className the class name
+	 * @param hostName the host name
+	 * @param port the port
+	 * @param buffer the buffer
+	 */
+	public static void logWriteBuffer(String className, String hostName, int port, ChannelBuffer buffer) {
+		byte[] data = new byte[Math.min(buffer.readableBytes(), Constants.NUMBER_100)];
+		buffer.getBytes(buffer.readerIndex(), data);
+		ConnectionLogger.logWriteBuffer(className, hostName, port, data, 0, data.length);
+	}
+
 	/**
 	 * Log keep alive.
 	 *
@@ -16,11 +16,10 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
@@ -31,7 +30,7 @@ import org.serviceconnector.scmp.SCMPHeaderKey;
 import org.serviceconnector.scmp.SCMPMessage;
 
 /**
- * The Class DefaultEncoderDecoder. Defines default SCMP encoding/decoding of object into/from stream.
+ * The Class DefaultEncoderDecoder. Defines default SCMP encoding/decoding of object into/from channel buffers.
  *
  * @author JTraber
  */
@@ -48,9 +47,7 @@ public class DefaultMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 
 	/** {@inheritDoc} */
 	@Override
-	public void encode(OutputStream os, Object obj) throws Exception {
-		OutputStreamWriter osw = new OutputStreamWriter(os, Constants.SC_CHARACTER_SET);
-		BufferedWriter bw = new BufferedWriter(osw);
+	public ChannelBuffer encode(Object obj) throws Exception {
 		SCMPMessage scmpMsg = (SCMPMessage) obj;
 
 		// evaluate right headline key from SCMP type
@@ -64,9 +61,6 @@ public class DefaultMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 			headerKey = SCMPHeaderKey.REQ;
 		}
 
-		StringBuilder sb = this.writeHeader(scmpMsg.getHeader());
-
-		int headerSize = sb.length();
 		// write body depends on body type
 		Object body = scmpMsg.getBody();
 		try {
@@ -77,59 +71,37 @@ public class DefaultMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 					byte[] ba = (byte[]) body;
 					int bodyLength = scmpMsg.getBodyLength();
 					if (bodyLength == 0) {
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, headerSize, headerSize);
-						bw.write(sb.toString());
-						bw.flush();
-						return;
+						return this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), 0);
 					}
 					if (scmpMsg.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION) && AppContext.isScEnvironment() == false) {
 						// message compression required
 						ba = this.compressBody(ba, 0, bodyLength);
 					}
-					this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, ba.length + sb.length(), headerSize);
-					bw.write(sb.toString());
-					bw.flush();
-					os.write(ba);
-					os.flush();
-					return;
+					// body is wrapped, not copied
+					return ChannelBuffers.wrappedBuffer(this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), ba.length), ChannelBuffers.wrappedBuffer(ba));
 				}
 				if (String.class == body.getClass()) {
 					String t = (String) body;
 					int bodyLength = t.length();
 					if (bodyLength == 0) {
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, headerSize, headerSize);
-						bw.write(sb.toString());
-						bw.flush();
-						return;
+						return this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), 0);
 					}
+					byte[] ba = null;
 					if (scmpMsg.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION) && AppContext.isScEnvironment() == false) {
 						// message compression required
-						byte[] ba = t.getBytes();
-						ba = this.compressBody(ba, 0, bodyLength);
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, ba.length + sb.length(), headerSize);
-						bw.write(sb.toString()); // write header
-						bw.flush();
-						os.write(ba);
-						os.flush();
+						ba = this.compressBody(t.getBytes(), 0, bodyLength);
 					} else {
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, bodyLength + sb.length(), headerSize);
-						bw.write(sb.toString()); // write header
-						bw.write(t); // write body
-						bw.flush();
+						ba = t.getBytes(Constants.SC_CHARACTER_SET);
 					}
-					return;
-
+					return ChannelBuffers.wrappedBuffer(this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), ba.length), ChannelBuffers.wrappedBuffer(ba));
 				}
 				throw new EncodingDecodingException("unsupported body type");
 			} else {
-				this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, headerSize, headerSize);
-				bw.write(sb.toString());
-				bw.flush();
+				return this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), 0);
 			}
 		} catch (IOException ex) {
 			LOGGER.error("encode", ex);
 			throw new EncodingDecodingException("io error when encoding message", ex);
 		}
-		return;
 	}
 }
@@ -20,6 +20,7 @@ import java.security.InvalidParameterException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -112,6 +113,25 @@ public final class FlyweightEncoderDecoderFactory {
 		return createEncoderDecoder(DEFAULT);
 	}
 
+	/**
+	 * New instance.
+	 *
+	 * @param scmpBuffer the scmp message channel buffer
+	 * @return the i encoder decoder
+	 */
+	public IEncoderDecoder createEncoderDecoder(ChannelBuffer scmpBuffer) {
+		byte headlineKeyStart = scmpBuffer.getByte(scmpBuffer.readerIndex());
+		if (headlineKeyStart == 'P') {
+			// headline key start with 'P' means message must be of type part - take large instance
+			return createEncoderDecoder(LARGE);
+		}
+		if (headlineKeyStart == 'K') {
+			// headline key start with 'K' means message must be of type keep alive
+			return createEncoderDecoder(KEEP_ALIVE);
+		}
+		return createEncoderDecoder(DEFAULT);
+	}
+
 	/**
 	 * New instance.
 	 *
@@ -0,0 +1,88 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * The Class HttpHeadBlock. Head of HTTP messages carrying SCMP, start line and fixed header fields are encoded once. Encoding a message
+ * adds content type and content length and wraps head and content into one buffer, content is not copied. Netty HTTP encoders pass a
+ * buffer unchanged.
+ */
+public class HttpHeadBlock {
+
+	/** The Constant ASCII. */
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+	/** The Constant CRLF. */
+	private static final byte[] CRLF = new byte[] { '\r', '\n' };
+	/** The Constant CONTENT_TYPE. */
+	private static final byte[] CONTENT_TYPE = (HttpHeaders.Names.CONTENT_TYPE + ": ").getBytes(ASCII);
+	/** The Constant CONTENT_LENGTH. */
+	private static final byte[] CONTENT_LENGTH = (HttpHeaders.Names.CONTENT_LENGTH + ": ").getBytes(ASCII);
+	/** The Constant CONTENT_TYPES, encoded mime types. */
+	private static final ConcurrentMap<String, byte[]> CONTENT_TYPES = new ConcurrentHashMap<String, byte[]>();
+	/** The start line and the fixed header fields. */
+	private final byte[] block;
+
+	/**
+	 * Instantiates a new HTTP head block.
+	 *
+	 * @param startLine the start line, request line or status line
+	 * @param headerFields the fixed header fields, name followed by value
+	 */
+	public HttpHeadBlock(String startLine, String... headerFields) {
+		StringBuilder sb = new StringBuilder(startLine).append("\r\n");
+		for (int i = 0; i < headerFields.length; i += 2) {
+			sb.append(headerFields[i]).append(": ").append(headerFields[i + 1]).append("\r\n");
+		}
+		this.block = sb.toString().getBytes(ASCII);
+	}
+
+	/**
+	 * Encode the message. Head is written to a new small buffer, content is wrapped.
+	 *
+	 * @param mimeType the mime type of the content
+	 * @param content the content
+	 * @return the channel buffer of the whole message
+	 */
+	public ChannelBuffer encode(String mimeType, ChannelBuffer content) {
+		byte[] typeBytes = CONTENT_TYPES.get(mimeType);
+		if (typeBytes == null) {
+			// few mime types exist, each is encoded once
+			typeBytes = mimeType.getBytes(ASCII);
+			CONTENT_TYPES.putIfAbsent(mimeType, typeBytes);
+		}
+		byte[] length = String.valueOf(content.readableBytes()).getBytes(ASCII);
+		ChannelBuffer head = ChannelBuffers.buffer(this.block.length + CONTENT_TYPE.length + typeBytes.length + CONTENT_LENGTH.length + length.length + 3
+				* CRLF.length);
+		head.writeBytes(this.block);
+		head.writeBytes(CONTENT_TYPE);
+		head.writeBytes(typeBytes);
+		head.writeBytes(CRLF);
+		head.writeBytes(CONTENT_LENGTH);
+		head.writeBytes(length);
+		head.writeBytes(CRLF);
+		head.writeBytes(CRLF);
+		return ChannelBuffers.wrappedBuffer(head, content);
+	}
+}
@@ -19,6 +19,8 @@ package org.serviceconnector.net;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+
 /**
  * The Interface IEncoderDecoder. Abstracts EncoderDecoder implementations.
  */
@@ -33,6 +35,15 @@ public interface IEncoderDecoder {
 	 */
 	public void encode(OutputStream os, Object obj) throws Exception;
 
+	/**
+	 * Encode object to channel buffer. Headline and header are written into a buffer of their own, the body is wrapped without copying.
+	 *
+	 * @param obj the obj to encode
+	 * @return the channel buffer containing the complete SCMP frame
+	 * @throws Exception the exception
+	 */
+	public ChannelBuffer encode(Object obj) throws Exception;
+
 	/**
 	 * Decode input stream.
 	 *
@@ -41,4 +52,13 @@ public interface IEncoderDecoder {
 	 * @throws Exception the exception
 	 */
 	public Object decode(InputStream is) throws Exception;
+
+	/**
+	 * Decode channel buffer. Headline and header are parsed in place, the body is taken without copying if the buffer holds it in an array of its own.
+	 *
+	 * @param buffer the buffer to decode, contains a complete SCMP frame
+	 * @return the object decoded
+	 * @throws Exception the exception
+	 */
+	public Object decode(ChannelBuffer buffer) throws Exception;
 }
@@ -16,10 +16,8 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net;
 
-import java.io.BufferedWriter;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
@@ -45,17 +43,16 @@ public class KeepAliveMessageEncoderDecoder extends MessageEncoderDecoderAdapter
 
 	/** {@inheritDoc} */
 	@Override
-	public void encode(OutputStream os, Object obj) throws Exception {
-		OutputStreamWriter osw = new OutputStreamWriter(os, Constants.SC_CHARACTER_SET);
-		BufferedWriter bw = new BufferedWriter(osw);
+	public ChannelBuffer encode(Object obj) throws Exception {
+		ChannelBuffer buffer = ChannelBuffers.buffer(Constants.SCMP_HEADLINE_SIZE);
 		SCMPKeepAlive keepAlive = (SCMPKeepAlive) obj;
 		if (keepAlive.isReply()) {
 			SCMPHeaderKey headerKey = SCMPHeaderKey.KRS;
-			this.writeHeadLine(keepAlive.getSCMPVersion(), bw, headerKey, 0, 0);
+			this.writeHeadLine(keepAlive.getSCMPVersion(), buffer, headerKey, 0, 0);
 		} else {
 			SCMPHeaderKey headerKey = SCMPHeaderKey.KRQ;
-			this.writeHeadLine(keepAlive.getSCMPVersion(), bw, headerKey, 0, 0);
+			this.writeHeadLine(keepAlive.getSCMPVersion(), buffer, headerKey, 0, 0);
 		}
-		return;
+		return buffer;
 	}
 }
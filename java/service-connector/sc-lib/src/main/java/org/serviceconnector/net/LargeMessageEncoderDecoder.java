@@ -16,12 +16,11 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
@@ -30,9 +29,10 @@ import org.serviceconnector.log.MessageLogger;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPHeaderKey;
 import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.util.FileUtility;
 
 /**
- * The Class LargeMessageEncoderDecoder. Defines large SCMP encoding/decoding of object into/from stream.
+ * The Class LargeMessageEncoderDecoder. Defines large SCMP encoding/decoding of object into/from channel buffers.
  */
 public class LargeMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 
@@ -47,45 +47,11 @@ public class LargeMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 
 	/** {@inheritDoc} */
 	@Override
-	public void encode(OutputStream os, Object obj) throws Exception {
-		OutputStreamWriter osw = new OutputStreamWriter(os, Constants.SC_CHARACTER_SET);
-		BufferedWriter bw = new BufferedWriter(osw);
+	public ChannelBuffer encode(Object obj) throws Exception {
 		SCMPMessage scmpMsg = (SCMPMessage) obj;
-
-		// evaluate right headline key from SCMP type
-		SCMPHeaderKey headerKey = SCMPHeaderKey.UNDEF;
-		if (scmpMsg.isReply()) {
-			if (scmpMsg.isFault()) {
-				headerKey = SCMPHeaderKey.EXC;
-			} else {
-				if (scmpMsg.isPart()) {
-					if (scmpMsg.isPollRequest()) {
-						headerKey = SCMPHeaderKey.PAC;
-					} else {
-						headerKey = SCMPHeaderKey.PRS;
-					}
-				} else {
-					headerKey = SCMPHeaderKey.RES;
-				}
-			}
-		} else {
-			if (scmpMsg.isPart() || scmpMsg.isComposite()) {
-				if (scmpMsg.isPollRequest()) {
-					headerKey = SCMPHeaderKey.PAC;
-					scmpMsg.setIsReqCompleteAfterMarshallingPart(false);
-				} else {
-					headerKey = SCMPHeaderKey.PRQ;
-					scmpMsg.setIsReqCompleteAfterMarshallingPart(false);
-				}
-			} else {
-				headerKey = SCMPHeaderKey.REQ;
-				scmpMsg.setIsReqCompleteAfterMarshallingPart(true);
-			}
-		}
-		StringBuilder sb = this.writeHeader(scmpMsg.getHeader());
+		SCMPHeaderKey headerKey = this.getHeaderKey(scmpMsg);
 		// write body depends on body type
 		Object body = scmpMsg.getBody();
-		int headerSize = sb.length();
 		try {
 			if (body != null) {
 				if (byte[].class == body.getClass()) {
@@ -95,48 +61,32 @@ public class LargeMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 					if (scmpMsg.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION) && AppContext.isScEnvironment() == false) {
 						// message compression required
 						ba = this.compressBody(ba, bodyOffset, bodyLength);
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, ba.length + sb.length(), headerSize);
-						bw.write(sb.toString());
-						bw.flush();
-						os.write(ba);
-					} else {
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, bodyLength + sb.length(), headerSize);
-						bw.write(sb.toString());
-						bw.flush();
-						os.write(ba, bodyOffset, bodyLength);
+						bodyOffset = 0;
+						bodyLength = ba.length;
 					}
-					os.flush();
-					return;
+					// part of the body is wrapped, not copied
+					return ChannelBuffers.wrappedBuffer(this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), bodyLength),
+							ChannelBuffers.wrappedBuffer(ba, bodyOffset, bodyLength));
 				}
 				if (String.class == body.getClass()) {
 					String t = (String) body;
 					int bodyLength = scmpMsg.getBodyLength();
 					int bodyOffset = scmpMsg.getBodyOffset();
+					byte[] ba = null;
 					if (scmpMsg.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION) && AppContext.isScEnvironment() == false) {
 						// message compression required
-						byte[] ba = t.getBytes();
-						ba = this.compressBody(ba, bodyOffset, bodyLength);
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, ba.length + sb.length(), headerSize);
-						bw.write(sb.toString()); // write header
-						bw.flush();
-						os.write(ba);
-						os.flush();
+						ba = this.compressBody(t.getBytes(), bodyOffset, bodyLength);
 					} else {
-						this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, bodyLength + sb.length(), headerSize);
-						bw.write(sb.toString()); // write header
-						bw.flush();
-						bw.write(t, bodyOffset, bodyLength);
-						bw.flush();
+						ba = t.substring(bodyOffset, bodyOffset + bodyLength).getBytes(Constants.SC_CHARACTER_SET);
 					}
-					return;
+					return ChannelBuffers.wrappedBuffer(this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), ba.length), ChannelBuffers.wrappedBuffer(ba));
 				}
 				if (body instanceof InputStream) {
 					InputStream inStream = (InputStream) body;
 					int msgPartSize = scmpMsg.getPartSize();
 					byte[] buffer = new byte[msgPartSize];
-					// try reading as much as we can until stream is closed or part size reached
-					int bytesRead = 0;
-					bytesRead = inStream.read(buffer, bytesRead, buffer.length - bytesRead);
+					// read as much as we can until stream is closed or part size reached
+					int bytesRead = FileUtility.readFully(inStream, buffer, 0, buffer.length);
 					if (bytesRead <= 0) {
 						bytesRead = 0;
 						scmpMsg.setPartSize(bytesRead);
@@ -144,18 +94,12 @@ public class LargeMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 						headerKey = SCMPHeaderKey.REQ;
 						scmpMsg.setIsReqCompleteAfterMarshallingPart(true);
 					}
-					this.writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, bytesRead + sb.length(), headerSize);
-					bw.write(sb.toString());
-					bw.flush();
-					os.write(buffer, 0, bytesRead);
-					os.flush();
-					return;
+					return ChannelBuffers.wrappedBuffer(this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), bytesRead),
+							ChannelBuffers.wrappedBuffer(buffer, 0, bytesRead));
 				}
 				throw new EncodingDecodingException("unsupported large message body type");
 			} else {
-				writeHeadLine(scmpMsg.getSCMPVersion(), bw, headerKey, headerSize, headerSize);
-				bw.write(sb.toString());
-				bw.flush();
+				return this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), 0);
 			}
 		} catch (IOException ex) {
 			LOGGER.error("encode", ex);
@@ -165,4 +109,62 @@ public class LargeMessageEncoderDecoder extends MessageEncoderDecoderAdapter {
 			MessageLogger.logOutputMessage(headerKey, scmpMsg);
 		}
 	}
+
+	/**
+	 * Encode head of a part whose body is a file region. The body is not encoded, the caller writes the file region of given length
+	 * after the head. Writing a file region transfers the body straight from the file into the socket (FileChannel.transferTo).
+	 *
+	 * @param scmpMsg the SCMP message
+	 * @param bodyLength the length of the file region
+	 * @return the channel buffer of the head
+	 * @throws Exception the exception
+	 */
+	public ChannelBuffer encodeFileRegionHead(SCMPMessage scmpMsg, int bodyLength) throws Exception {
+		SCMPHeaderKey headerKey = this.getHeaderKey(scmpMsg);
+		try {
+			return this.encodeHead(scmpMsg.getSCMPVersion(), headerKey, scmpMsg.getHeader(), bodyLength);
+		} finally {
+			// message logging
+			MessageLogger.logOutputMessage(headerKey, scmpMsg);
+		}
+	}
+
+	/**
+	 * Gets the header key. Evaluates right headline key from SCMP type and marks if request is complete after marshalling the part.
+	 *
+	 * @param scmpMsg the SCMP message
+	 * @return the header key
+	 */
+	private SCMPHeaderKey getHeaderKey(SCMPMessage scmpMsg) {
+		SCMPHeaderKey headerKey = SCMPHeaderKey.UNDEF;
+		if (scmpMsg.isReply()) {
+			if (scmpMsg.isFault()) {
+				headerKey = SCMPHeaderKey.EXC;
+			} else {
+				if (scmpMsg.isPart()) {
+					if (scmpMsg.isPollRequest()) {
+						headerKey = SCMPHeaderKey.PAC;
+					} else {
+						headerKey = SCMPHeaderKey.PRS;
+					}
+				} else {
+					headerKey = SCMPHeaderKey.RES;
+				}
+			}
+		} else {
+			if (scmpMsg.isPart() || scmpMsg.isComposite()) {
+				if (scmpMsg.isPollRequest()) {
+					headerKey = SCMPHeaderKey.PAC;
+					scmpMsg.setIsReqCompleteAfterMarshallingPart(false);
+				} else {
+					headerKey = SCMPHeaderKey.PRQ;
+					scmpMsg.setIsReqCompleteAfterMarshallingPart(false);
+				}
+			} else {
+				headerKey = SCMPHeaderKey.REQ;
+				scmpMsg.setIsReqCompleteAfterMarshallingPart(true);
+			}
+		}
+		return headerKey;
+	}
 }
@@ -16,29 +16,33 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net;
 
-import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.DecimalFormat;
-import java.util.HashMap;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.log.MessageLogger;
 import org.serviceconnector.scmp.SCMPBodyType;
+import org.serviceconnector.scmp.SCMPHeader;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPHeaderKey;
 import org.serviceconnector.scmp.SCMPKeepAlive;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMessageFault;
+import org.serviceconnector.scmp.SCMPOverlayHeader;
 import org.serviceconnector.scmp.SCMPPart;
 import org.serviceconnector.scmp.SCMPVersion;
 
@@ -51,23 +55,71 @@ public abstract class MessageEncoderDecoderAdapter implements IEncoderDecoder {
 
 	/** The Constant LOGGER. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(MessageEncoderDecoderAdapter.class);
-	/** The Constant FORMAT_MSG_SIZE_IN_HEADER. */
-	private static final DecimalFormat FORMAT_MSG_SIZE_IN_HEADER = new DecimalFormat(Constants.SCMP_FORMAT_OF_MSG_SIZE);
-	/** The Constant FORMAT_HEADER_SIZE_IN_HEADER. */
-	private static final DecimalFormat FORMAT_HEADER_SIZE_IN_HEADER = new DecimalFormat(Constants.SCMP_FORMAT_OF_HEADER_SIZE);
+	/** The Constant MSG_SIZE_DIGITS, number of digits of the message size in the headline. */
+	private static final int MSG_SIZE_DIGITS = Constants.SCMP_MSG_SIZE_END - Constants.SCMP_MSG_SIZE_START + 1;
+	/** The Constant HEADER_SIZE_DIGITS, number of digits of the header size in the headline. */
+	private static final int HEADER_SIZE_DIGITS = Constants.SCMP_HEADER_SIZE_END - Constants.SCMP_HEADER_SIZE_START + 1;
+	/** The Constant SC_CHARSET. */
+	private static final Charset SC_CHARSET = Charset.forName(Constants.SC_CHARACTER_SET);
+	/** The Constant HEADER_KEYS, known header keys indexed by the first character of the key. */
+	private static final String[][] HEADER_KEYS = MessageEncoderDecoderAdapter.initHeaderKeys();
 
-	/** {@inheritDoc} */
+	/**
+	 * Encode object into output stream. The object is encoded into a channel buffer which is written to the stream.
+	 *
+	 * @param os the output stream
+	 * @param obj the object to encode
+	 * @throws Exception the exception
+	 */
+	@Override
+	public void encode(OutputStream os, Object obj) throws Exception {
+		ChannelBuffer buffer = this.encode(obj);
+		try {
+			buffer.readBytes(os, buffer.readableBytes());
+			os.flush();
+		} catch (IOException ex) {
+			LOGGER.error("encode", ex);
+			throw new EncodingDecodingException("io error when encoding message", ex);
+		}
+	}
+
+	/**
+	 * Decode input stream. The stream is read up to its end, decoding is done on a channel buffer.
+	 *
+	 * @param is the is to decode
+	 * @return the object decoded
+	 * @throws Exception the exception
+	 */
 	@Override
 	public Object decode(InputStream is) throws Exception {
 		// read headline
-		byte[] headline = new byte[Constants.SCMP_HEADLINE_SIZE_WITHOUT_VERSION];
+		byte[] headline = new byte[Constants.SCMP_HEADLINE_SIZE];
 		this.readBufferFromStream(is, headline);
+		// read header and body
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] readBuffer = new byte[Constants.SIZE_64KB];
+		int readBytes = 0;
+		while ((readBytes = is.read(readBuffer)) > 0) {
+			baos.write(readBuffer, 0, readBytes);
+		}
+		return this.decode(ChannelBuffers.wrappedBuffer(headline, baos.toByteArray()));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object decode(ChannelBuffer buffer) throws Exception {
+		int headlineIndex = buffer.readerIndex();
+		if (buffer.readableBytes() < Constants.SCMP_HEADLINE_SIZE) {
+			throw new EncodingDecodingException("buffer too short to decode headline, length=" + buffer.readableBytes());
+		}
+		// read headline
+		byte[] headline = new byte[Constants.SCMP_HEADLINE_SIZE];
+		buffer.getBytes(headlineIndex, headline);
 
 		byte[] version = new byte[Constants.SCMP_VERSION_LENGTH_IN_HEADLINE];
-		this.readBufferFromStream(is, version);
+		System.arraycopy(headline, Constants.SCMP_HEADLINE_SIZE_WITHOUT_VERSION, version, 0, Constants.SCMP_VERSION_LENGTH_IN_HEADLINE);
 		SCMPVersion.CURRENT.isSupported(version);
 		SCMPVersion receivedVersion = SCMPVersion.getSCMPVersionByByteArray(version);
-		is.skip(1); // read LF
 
 		SCMPMessage scmpMsg = null;
 		// evaluating header key and creating corresponding SCMP type
@@ -112,38 +164,35 @@ public abstract class MessageEncoderDecoderAdapter implements IEncoderDecoder {
 		// parse headerSize & bodySize
 		int scmpHeaderSize = SCMPFrameDecoder.parseHeaderSize(headline);
 		int scmpBodySize = SCMPFrameDecoder.parseMessageSize(headline) - scmpHeaderSize;
+		int headerIndex = headlineIndex + Constants.SCMP_HEADLINE_SIZE;
+		int bodyIndex = headerIndex + scmpHeaderSize;
+		if (buffer.writerIndex() < bodyIndex + Math.max(scmpBodySize, 0)) {
+			throw new EncodingDecodingException("buffer too short to decode message, length=" + buffer.readableBytes());
+		}
 
 		// storing header fields in meta map
-		Map<String, String> metaMap = new HashMap<String, String>();
-		byte[] header = new byte[scmpHeaderSize];
-		int readBytes = this.readBufferFromStream(is, header);
-		int keyOff = 0;
+		Map<String, String> metaMap = new SCMPHeader();
+		int keyOff = headerIndex;
 		// decoding header
-		for (int index = 0; index < readBytes; index++) {
-			// looping until <=> found, looking for key value pair
-			if (header[index] == Constants.SCMP_EQUAL) {
-				// <=> found
-				for (int inLoopIndex = index; inLoopIndex < readBytes; inLoopIndex++) {
-					// looping until <LF> got found
-					if (header[inLoopIndex] == Constants.SCMP_LF) {
-						// <LF> found
-						metaMap.put(new String(header, keyOff, (index - keyOff), Constants.SC_CHARACTER_SET),
-								new String(header, index + 1, (inLoopIndex - 1) - index, Constants.SC_CHARACTER_SET));
-						// updating outer loop index
-						index = inLoopIndex;
-						// updating offset for next key, +1 for <LF>
-						keyOff = inLoopIndex + 1;
-						// key value pair found, stop inner loop
-						break;
-					}
+		for (int index = headerIndex; index < bodyIndex; index++) {
+			byte headerByte = buffer.getByte(index);
+			// looking for key value pair, <=> found
+			if (headerByte == Constants.SCMP_EQUAL) {
+				// looking for <LF> terminating the value
+				int lfIndex = buffer.indexOf(index, bodyIndex, Constants.SCMP_LF);
+				if (lfIndex < 0) {
+					// incomplete key value pair - stop decoding header
+					break;
 				}
-				// key value pair found, continue looking for next pair
+				metaMap.put(this.decodeHeaderKey(buffer, keyOff, index - keyOff), buffer.toString(index + 1, (lfIndex - 1) - index, SC_CHARSET));
+				// updating index & offset for next key, +1 for <LF>
+				index = lfIndex;
+				keyOff = lfIndex + 1;
 				continue;
 			}
-			// looping until <LF> found, looking for header flag
-			if (header[index] == Constants.SCMP_LF) {
-				// <LF> found
-				metaMap.put(new String(header, keyOff, (index - keyOff), Constants.SC_CHARACTER_SET), null);
+			// looking for header flag, <LF> found
+			if (headerByte == Constants.SCMP_LF) {
+				metaMap.put(this.decodeHeaderKey(buffer, keyOff, index - keyOff), null);
 				// updating offset for next key, +1 for <LF>
 				keyOff = index + 1;
 			}
@@ -160,8 +209,8 @@ public abstract class MessageEncoderDecoderAdapter implements IEncoderDecoder {
 		String scmpBodyTypeString = metaMap.get(SCMPHeaderAttributeKey.BODY_TYPE.getValue());
 		SCMPBodyType scmpBodyType = SCMPBodyType.getBodyType(scmpBodyTypeString);
 		try {
-			byte[] body = new byte[scmpBodySize];
-			int bodySize = this.readBufferFromStream(is, body);
+			byte[] body = this.decodeBody(buffer, bodyIndex, scmpBodySize);
+			int bodySize = scmpBodySize;
 			if (scmpMsg.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION)) {
 				if (AppContext.isScEnvironment() == false) {
 					// message decompression required
@@ -203,6 +252,93 @@ public abstract class MessageEncoderDecoderAdapter implements IEncoderDecoder {
 		}
 	}
 
+	/**
+	 * Decode header key. Known header keys are taken from SCMPHeaderAttributeKey, no string gets created.
+	 *
+	 * @param buffer the buffer
+	 * @param index the index of the key
+	 * @param length the length of the key
+	 * @return the key
+	 */
+	private String decodeHeaderKey(ChannelBuffer buffer, int index, int length) {
+		if (length > 0) {
+			int firstChar = buffer.getByte(index);
+			if (firstChar > 0 && firstChar < HEADER_KEYS.length && HEADER_KEYS[firstChar] != null) {
+				for (String key : HEADER_KEYS[firstChar]) {
+					if (this.equalsHeaderKey(buffer, index, length, key)) {
+						return key;
+					}
+				}
+			}
+		}
+		return buffer.toString(index, length, SC_CHARSET);
+	}
+
+	/**
+	 * Compares a header key in the buffer with a known key.
+	 *
+	 * @param buffer the buffer
+	 * @param index the index of the key
+	 * @param length the length of the key
+	 * @param key the known key
+	 * @return true, if equal
+	 */
+	private boolean equalsHeaderKey(ChannelBuffer buffer, int index, int length, String key) {
+		if (key.length() != length) {
+			return false;
+		}
+		for (int i = 1; i < length; i++) {
+			if (buffer.getByte(index + i) != key.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decode body. The body is taken without copying if the buffer holds it in an array of exactly its size, otherwise it gets copied once.
+	 *
+	 * @param buffer the buffer
+	 * @param index the index of the body
+	 * @param length the length of the body
+	 * @return the body
+	 */
+	private byte[] decodeBody(ChannelBuffer buffer, int index, int length) {
+		ChannelBuffer bodyBuffer = buffer.slice(index, length);
+		if (bodyBuffer.hasArray() && bodyBuffer.arrayOffset() == 0 && bodyBuffer.array().length == length) {
+			// body owns its array - no copy needed
+			return bodyBuffer.array();
+		}
+		byte[] body = new byte[length];
+		bodyBuffer.getBytes(0, body);
+		return body;
+	}
+
+	/**
+	 * Initializes the known header keys, indexed by the first character of the key.
+	 *
+	 * @return the known header keys
+	 */
+	private static String[][] initHeaderKeys() {
+		String[][] headerKeys = new String[Byte.MAX_VALUE + 1][];
+		for (SCMPHeaderAttributeKey headerAttributeKey : SCMPHeaderAttributeKey.values()) {
+			String key = headerAttributeKey.getValue();
+			char firstChar = key.charAt(0);
+			if (firstChar >= headerKeys.length) {
+				continue;
+			}
+			String[] keys = headerKeys[firstChar];
+			if (keys == null) {
+				keys = new String[] { key };
+			} else {
+				keys = Arrays.copyOf(keys, keys.length + 1);
+				keys[keys.length - 1] = key;
+			}
+			headerKeys[firstChar] = keys;
+		}
+		return headerKeys;
+	}
+
 	/**
 	 * Read buffer from stream.
 	 *
@@ -228,26 +364,93 @@ public abstract class MessageEncoderDecoderAdapter implements IEncoderDecoder {
 		return readOffset;
 	}
 
+	/**
+	 * Encode head. Writes headline and header into a new channel buffer of exact size. The body is not part of the head, it gets wrapped
+	 * separately to avoid copying it. Header of a message created from the cache holds the pre-encoded attributes of the cached message, only
+	 * the overlaid attributes get encoded.
+	 *
+	 * @param scmpVersion the SCMP version
+	 * @param headerKey the header key
+	 * @param header the header
+	 * @param bodySize the body size
+	 * @return the channel buffer
+	 * @throws EncodingDecodingException the encoding decoding exception
+	 */
+	protected ChannelBuffer encodeHead(SCMPVersion scmpVersion, SCMPHeaderKey headerKey, Map<String, String> header, int bodySize)
+			throws EncodingDecodingException {
+		byte[] encodedBase = null;
+		StringBuilder sb = null;
+		if (header instanceof SCMPOverlayHeader) {
+			encodedBase = ((SCMPOverlayHeader) header).getEncodedBase();
+		}
+		if (encodedBase != null) {
+			sb = this.writeHeader(((SCMPOverlayHeader) header).getUnencodedAttributes());
+		} else {
+			sb = this.writeHeader(header);
+		}
+		int sbSize = sb.length();
+		int headerSize = sbSize + (encodedBase == null ? 0 : encodedBase.length);
+		ChannelBuffer head = ChannelBuffers.buffer(Constants.SCMP_HEADLINE_SIZE + headerSize);
+		this.writeHeadLine(scmpVersion, head, headerKey, headerSize + bodySize, headerSize);
+		for (int i = 0; i < sbSize; i++) {
+			char c = sb.charAt(i);
+			// header is ISO-8859-1 encoded, unmappable characters are replaced like the charset encoder does
+			head.writeByte(c > 0xFF ? '?' : c);
+		}
+		if (encodedBase != null) {
+			head.writeBytes(encodedBase);
+		}
+		return head;
+	}
+
 	/**
 	 * Write head line.
 	 *
 	 * @param scmpVersion the SCMP version
-	 * @param bw the bufferedWriter
+	 * @param buffer the buffer to write to
 	 * @param headerKey the header key
 	 * @param messageSize the message size
 	 * @param headerSize the header size
-	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws EncodingDecodingException the encoding decoding exception
+	 */
+	protected void writeHeadLine(SCMPVersion scmpVersion, ChannelBuffer buffer, SCMPHeaderKey headerKey, int messageSize, int headerSize)
+			throws EncodingDecodingException {
+		String key = headerKey.toString();
+		for (int i = 0; i < key.length(); i++) {
+			buffer.writeByte(key.charAt(i));
+		}
+		MessageEncoderDecoderAdapter.writeSize(buffer, messageSize, MSG_SIZE_DIGITS);
+		MessageEncoderDecoderAdapter.writeSize(buffer, headerSize, HEADER_SIZE_DIGITS);
+		buffer.writeByte(' ');
+		buffer.writeByte(scmpVersion.getReleaseNumber());
+		buffer.writeByte(Constants.DOT_HEX);
+		buffer.writeByte(scmpVersion.getVersionNumber());
+		buffer.writeByte(Constants.SCMP_LF);
+	}
+
+	/**
+	 * Write size. Writes a blank followed by the size with leading zeros, the way the size fields of the headline are defined.
+	 *
+	 * @param buffer the buffer to write to
+	 * @param size the size
+	 * @param digits the number of digits
+	 * @throws EncodingDecodingException size does not fit into the given number of digits
 	 */
-	protected void writeHeadLine(SCMPVersion scmpVersion, BufferedWriter bw, SCMPHeaderKey headerKey, int messageSize, int headerSize) throws IOException {
-		bw.write(headerKey.toString());
-		bw.write(FORMAT_MSG_SIZE_IN_HEADER.format(messageSize));
-		bw.write(FORMAT_HEADER_SIZE_IN_HEADER.format(headerSize));
-		bw.write(Constants.BLANK_SIGN);
-		bw.write(scmpVersion.getReleaseNumber());
-		bw.write(Constants.DOT_HEX);
-		bw.write(scmpVersion.getVersionNumber());
-		bw.write(Constants.LINE_BREAK_SIGN);
-		bw.flush();
+	private static void writeSize(ChannelBuffer buffer, int size, int digits) throws EncodingDecodingException {
+		if (size < 0) {
+			throw new EncodingDecodingException("negative size=" + size + " not possible to encode");
+		}
+		buffer.writeByte(' ');
+		int endIndex = buffer.writerIndex() + digits;
+		int value = size;
+		for (int index = endIndex - 1; index >= buffer.writerIndex(); index--) {
+			buffer.setByte(index, Constants.SCMP_ZERO + value % 10);
+			value /= 10;
+		}
+		if (value != 0) {
+			throw new EncodingDecodingException("size=" + size + " exceeds " + digits + " digits in headline");
+		}
+		buffer.writerIndex(endIndex);
 	}
 
 	/**
@@ -22,9 +22,11 @@ import java.util.concurrent.Executors;
 import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timer;
+import org.serviceconnector.Constants;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.net.ConnectionType;
 import org.serviceconnector.net.req.netty.http.NettyHttpConnection;
+import org.serviceconnector.net.req.netty.http.NettyWebClient;
 import org.serviceconnector.net.req.netty.tcp.NettyTcpConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +69,19 @@ public class ConnectionFactory {
 		}
 	}
 
+	/**
+	 * Creates a new web client. Non-blocking HTTP client with pooled keep-alive connections to a web server.
+	 *
+	 * @param host the host
+	 * @param port the port
+	 * @param maxIdleConnections the maximal number of idle connections kept to the web server
+	 * @return the netty web client
+	 */
+	public NettyWebClient createWebClient(String host, int port, int maxIdleConnections) {
+		return new NettyWebClient(ConnectionFactory.channelFactory, ConnectionFactory.timer, host, port, AppContext.getBasicConfiguration()
+				.getConnectionTimeoutMillis(), maxIdleConnections, Constants.DEFAULT_WEB_CLIENT_MAX_IDLE_MILLIS);
+	}
+
 	/**
 	 * Shutdown connection factory.<br />
 	 * This method shuts down every resource needed by connections. Should only be used if whole application shuts down. Be very careful if you use this method - every connection
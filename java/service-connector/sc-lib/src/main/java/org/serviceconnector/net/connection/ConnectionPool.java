@@ -18,12 +18,18 @@ package org.serviceconnector.net.connection;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
 import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.ConnectionType;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPKeepAlive;
 import org.serviceconnector.scmp.SCMPMessage;
@@ -46,7 +52,11 @@ import org.serviceconnector.util.XMLDumpWriter;
  * - closing connection after getting it back<br />
  * - initializing pool by starting a minimum of connections immediately<br />
  * - observing connection idle timeout and sending keep alive messages to refresh firewall<br />
- * - force closing of a specific connection, very useful if connection has a curious state
+ * - force closing of a specific connection, very useful if connection has a curious state<br />
+ * - multiplexing, several outstanding requests share a connection (tcp only). Replies are correlated by request id. A new connection is created when all connections carry
+ * maxRequestsPerConnection requests, if maxConnections is reached requests are spread on existing connections instead of failing with ConnectionPoolBusyException.<br />
+ * - waiting for a free connection, requests of a busy pool are queued in order of arrival and get a connection handed over as soon as one is freed. The queue is bounded by
+ * maxWaitingRequests, waiting time is limited by the caller canceling its waiting request.
  *
  * @author JTraber
  */
@@ -81,6 +91,28 @@ public class ConnectionPool {
 	private ConnectionFactory connectionFactory;
 	/** The destroyed, indicates that the pool got destroyed. */
 	private boolean destroyed;
+	/** The multiplexed flag, marks if outstanding requests share connections. */
+	private boolean multiplexed;
+	/** The max requests per connection, limit of outstanding requests on a multiplexed connection before a new connection is created. */
+	private int maxRequestsPerConnection;
+	/** The number of outstanding requests per multiplexed connection in use. */
+	private Map<IConnection, Integer> pendingRequests;
+	/** The waiting requests, requests waiting for a free connection in order of arrival. */
+	private LinkedList<WaitingRequest> waitingRequests;
+	/** The max waiting requests, limit of requests waiting for a free connection. */
+	private int maxWaitingRequests;
+	/** The peak number of waiting requests. */
+	private int peakWaitingRequests;
+	/** The number of waiting requests which got a connection handed over. */
+	private long nrOfServedWaitingRequests;
+	/** The number of waiting requests which got canceled before a connection was available. */
+	private long nrOfCanceledWaitingRequests;
+	/** The total wait time in milliseconds of served waiting requests. */
+	private long totalWaitTimeMillis;
+	/** The max wait time in milliseconds of a served waiting request. */
+	private long maxWaitTimeMillis;
+	/** The keep alive listener, informed about the outcome of keep alive messages. */
+	private volatile IKeepAliveListener keepAliveListener;
 
 	/**
 	 * Instantiates a new connection pool.
@@ -106,6 +138,16 @@ public class ConnectionPool {
 		this.keepAliveIntervalSeconds = keepAliveIntervalSeconds;
 		this.keepAliveOTIMillis = keepAliveOTIMillis;
 		this.destroyed = false;
+		this.multiplexed = false;
+		this.maxRequestsPerConnection = Constants.DEFAULT_MAX_REQUESTS_PER_MULTIPLEXED_CONNECTION;
+		this.pendingRequests = new HashMap<IConnection, Integer>();
+		this.waitingRequests = new LinkedList<WaitingRequest>();
+		this.maxWaitingRequests = Constants.DEFAULT_MAX_WAITING_REQUESTS_PER_CONNECTION_POOL;
+		this.peakWaitingRequests = 0;
+		this.nrOfServedWaitingRequests = 0;
+		this.nrOfCanceledWaitingRequests = 0;
+		this.totalWaitTimeMillis = 0;
+		this.maxWaitTimeMillis = 0;
 	}
 
 	/**
@@ -115,6 +157,141 @@ public class ConnectionPool {
 	 * @throws Exception the exception
 	 */
 	public synchronized IConnection getConnection() throws Exception {
+		if (this.multiplexed) {
+			return this.getMultiplexedConnection();
+		}
+		IConnection connection = this.getFreeConnection();
+
+		if (connection == null) {
+			// no free connection available - try to create a new one
+			connection = this.createNewConnection();
+		}
+		this.usedConnections.add(connection);
+		return connection;
+	}
+
+	/**
+	 * Gets a connection or queues the request if the pool is busy. Requests are served in order of arrival, a new request does not overtake waiting ones. The callback gets
+	 * informed at the time a connection is available. A waiting request has to be canceled by the caller when it does not want to wait any longer.
+	 *
+	 * @param callback the callback informed when a connection is available
+	 * @return the connection or null if the request has been queued
+	 * @throws ConnectionPoolBusyException the connection pool busy exception, maxWaitingRequests is reached
+	 * @throws Exception the exception
+	 */
+	public synchronized IConnection getConnection(IFreeConnectionCallback callback) throws Exception {
+		if (this.waitingRequests.isEmpty()) {
+			try {
+				return this.getConnection();
+			} catch (ConnectionPoolBusyException ex) {
+				// pool busy - queue the request
+			}
+		}
+		if (this.waitingRequests.size() >= this.maxWaitingRequests) {
+			throw new ConnectionPoolBusyException("Unable to queue request - limit of waiting requests : " + this.maxWaitingRequests + " reached!");
+		}
+		this.waitingRequests.addLast(new WaitingRequest(callback));
+		if (this.waitingRequests.size() > this.peakWaitingRequests) {
+			this.peakWaitingRequests = this.waitingRequests.size();
+		}
+		return null;
+	}
+
+	/**
+	 * Cancels a waiting request, e.g. in case of an operation timeout.
+	 *
+	 * @param callback the callback of the waiting request
+	 * @return true, if request was waiting. False if a connection has already been handed over.
+	 */
+	public synchronized boolean cancelWaitingRequest(IFreeConnectionCallback callback) {
+		Iterator<WaitingRequest> iter = this.waitingRequests.iterator();
+		while (iter.hasNext()) {
+			if (iter.next().callback == callback) {
+				iter.remove();
+				this.nrOfCanceledWaitingRequests++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Serves waiting requests. Hands connections over to waiting requests as long as the pool can provide connections. Callbacks are informed outside the lock of the pool.
+	 */
+	private void serveWaitingRequests() {
+		while (true) {
+			WaitingRequest waitingRequest = null;
+			IConnection connection = null;
+			synchronized (this) {
+				if (this.destroyed == true || this.waitingRequests.isEmpty()) {
+					return;
+				}
+				try {
+					connection = this.getConnection();
+				} catch (ConnectionPoolBusyException ex) {
+					// no connection available - requests keep waiting
+					return;
+				} catch (Exception ex) {
+					LOGGER.warn("unable to get connection for waiting request", ex);
+					return;
+				}
+				waitingRequest = this.waitingRequests.removeFirst();
+				long waitTimeMillis = System.currentTimeMillis() - waitingRequest.queuedTimeMillis;
+				this.nrOfServedWaitingRequests++;
+				this.totalWaitTimeMillis += waitTimeMillis;
+				if (waitTimeMillis > this.maxWaitTimeMillis) {
+					this.maxWaitTimeMillis = waitTimeMillis;
+				}
+			}
+			waitingRequest.callback.freeConnectionAvailable(connection);
+		}
+	}
+
+	/**
+	 * Gets a multiplexed connection of the pool. The least busy connection in use is shared as long as it carries less than maxRequestsPerConnection requests. Otherwise a free
+	 * connection is used or a new one gets created. If maxConnections is reached the least busy connection is shared anyway.
+	 *
+	 * @return the connection
+	 * @throws Exception the exception
+	 */
+	private IConnection getMultiplexedConnection() throws Exception {
+		IConnection connection = null;
+		int minPendingRequests = Integer.MAX_VALUE;
+		for (int index = 0; index < this.usedConnections.size(); index++) {
+			// loop through used connections to find the least busy one
+			IConnection usedConnection = this.usedConnections.get(index);
+			Integer nrOfPendingRequests = this.pendingRequests.get(usedConnection);
+			if (nrOfPendingRequests != null && nrOfPendingRequests < minPendingRequests && usedConnection.isConnected()) {
+				connection = usedConnection;
+				minPendingRequests = nrOfPendingRequests;
+			}
+		}
+		if (connection != null && minPendingRequests < this.maxRequestsPerConnection) {
+			// share connection in use
+			this.pendingRequests.put(connection, minPendingRequests + 1);
+			return connection;
+		}
+		IConnection newConnection = this.getFreeConnection();
+		if (newConnection == null && (connection == null || (this.usedConnections.size() + this.freeConnections.size() < this.maxConnections))) {
+			// no free connection available - try to create a new one
+			newConnection = this.createNewConnection();
+		}
+		if (newConnection == null) {
+			// limit reached - share the least busy connection anyway
+			this.pendingRequests.put(connection, minPendingRequests + 1);
+			return connection;
+		}
+		this.usedConnections.add(newConnection);
+		this.pendingRequests.put(newConnection, 1);
+		return newConnection;
+	}
+
+	/**
+	 * Gets a free connection. Dead connections found on the way get destroyed.
+	 *
+	 * @return the free connection or null if no free connection is available
+	 */
+	private IConnection getFreeConnection() {
 		IConnection connection = null;
 
 		if (freeConnections.size() > 0) {
@@ -132,12 +309,6 @@ public class ConnectionPool {
 				}
 			}
 		}
-
-		if (connection == null) {
-			// no free connection available - try to create a new one
-			connection = this.createNewConnection();
-		}
-		this.usedConnections.add(connection);
 		return connection;
 	}
 
@@ -158,6 +329,7 @@ public class ConnectionPool {
 		connection.setHost(this.host);
 		connection.setPort(this.port);
 		connection.setIdleTimeoutSeconds(this.keepAliveIntervalSeconds);
+		connection.setMultiplexed(this.multiplexed);
 		IIdleConnectionCallback idleCallback = new IdleCallback(connection);
 		ConnectionContext connectionContext = new ConnectionContext(connection, idleCallback, this.keepAliveIntervalSeconds);
 		connection.setContext(connectionContext);
@@ -171,15 +343,29 @@ public class ConnectionPool {
 	}
 
 	/**
-	 * Free connection. Gives connection back for other interested parties.
+	 * Free connection. Gives connection back for other interested parties. Waiting requests get served first.
+	 *
+	 * @param connection the connection
+	 */
+	public void freeConnection(IConnection connection) {
+		this.releaseConnection(connection);
+		this.serveWaitingRequests();
+	}
+
+	/**
+	 * Release connection. Puts the connection back to the free connections.
 	 *
 	 * @param connection the connection
 	 */
-	public synchronized void freeConnection(IConnection connection) {
+	private synchronized void releaseConnection(IConnection connection) {
 		if (this.destroyed == true) {
 			// stop operation pool already destroyed
 			return;
 		}
+		if (this.multiplexed && this.releaseMultiplexedRequest(connection) == false) {
+			// connection still carries other requests
+			return;
+		}
 		if (this.usedConnections.remove(connection) == false) {
 			LOGGER.warn("connection does not exist in pool - not possible to free");
 			return;
@@ -196,6 +382,35 @@ public class ConnectionPool {
 		this.freeConnections.add(0, connection);
 	}
 
+	/**
+	 * Releases a request of a multiplexed connection.
+	 *
+	 * @param connection the connection
+	 * @return true, if connection carries no more requests
+	 */
+	private boolean releaseMultiplexedRequest(IConnection connection) {
+		Integer nrOfPendingRequests = this.pendingRequests.get(connection);
+		if (nrOfPendingRequests != null && nrOfPendingRequests > 1) {
+			this.pendingRequests.put(connection, nrOfPendingRequests - 1);
+			return false;
+		}
+		this.pendingRequests.remove(connection);
+		return true;
+	}
+
+	/**
+	 * Cancels an outstanding request of a multiplexed connection, e.g. in case of an operation timeout. Other requests on the connection are not affected.
+	 * The connection is freed only if the request has been canceled, a request replied in the meantime has freed it already.
+	 *
+	 * @param connection the connection
+	 * @param callback the callback of the request
+	 */
+	public void cancelRequest(IConnection connection, ISCMPMessageCallback callback) {
+		if (connection.cancelRequest(callback)) {
+			this.freeConnection(connection);
+		}
+	}
+
 	/**
 	 * Sets the max connections for the pool.
 	 *
@@ -211,6 +426,7 @@ public class ConnectionPool {
 	public synchronized void destroy() {
 		this.destroyConnections(this.usedConnections);
 		this.destroyConnections(this.freeConnections);
+		this.pendingRequests.clear();
 		this.destroyed = true;
 	}
 
@@ -262,20 +478,25 @@ public class ConnectionPool {
 	 * @param connection the connection
 	 * @param quietClose the quiet close
 	 */
-	public synchronized void forceClosingConnection(IConnection connection, boolean quietClose) {
-		// make sure connection is not registered
-		this.usedConnections.remove(connection);
-		this.freeConnections.remove(connection);
+	public void forceClosingConnection(IConnection connection, boolean quietClose) {
+		synchronized (this) {
+			// make sure connection is not registered
+			this.usedConnections.remove(connection);
+			this.freeConnections.remove(connection);
+			this.pendingRequests.remove(connection);
 
-		try {
-			if (quietClose == true) {
-				// quiet close requested
-				connection.setQuietDisconnect();
+			try {
+				if (quietClose == true) {
+					// quiet close requested
+					connection.setQuietDisconnect();
+				}
+				connection.disconnect();
+			} catch (Exception ex) {
+				LOGGER.error("force disconnect", ex);
 			}
-			connection.disconnect();
-		} catch (Exception ex) {
-			LOGGER.error("force disconnect", ex);
 		}
+		// closing made room for a new connection
+		this.serveWaitingRequests();
 	}
 
 	/**
@@ -296,6 +517,94 @@ public class ConnectionPool {
 		this.closeAfterKeepAlive = closeAfterKeepAlive;
 	}
 
+	/**
+	 * Sets the multiplexed flag. Outstanding requests share connections, only supported for tcp connections. Has to be set before any connection gets created.
+	 *
+	 * @param multiplexed the new multiplexed flag
+	 */
+	public void setMultiplexed(boolean multiplexed) {
+		if (multiplexed && ConnectionType.NETTY_TCP.getValue().equalsIgnoreCase(this.connectionType) == false) {
+			LOGGER.warn("multiplexing not supported for connectionType=" + this.connectionType + " - ignored");
+			return;
+		}
+		this.multiplexed = multiplexed;
+	}
+
+	/**
+	 * Checks if pool is multiplexed.
+	 *
+	 * @return true, if is multiplexed
+	 */
+	public boolean isMultiplexed() {
+		return this.multiplexed;
+	}
+
+	/**
+	 * Sets the max requests per connection. Limit of outstanding requests on a multiplexed connection before a new connection is created.
+	 *
+	 * @param maxRequestsPerConnection the new max requests per connection
+	 */
+	public void setMaxRequestsPerConnection(int maxRequestsPerConnection) {
+		this.maxRequestsPerConnection = maxRequestsPerConnection;
+	}
+
+	/**
+	 * Sets the max waiting requests. Limit of requests waiting for a free connection, further requests fail with ConnectionPoolBusyException.
+	 *
+	 * @param maxWaitingRequests the new max waiting requests
+	 */
+	public void setMaxWaitingRequests(int maxWaitingRequests) {
+		this.maxWaitingRequests = maxWaitingRequests;
+	}
+
+	/**
+	 * Sets the keep alive listener.
+	 *
+	 * @param keepAliveListener the new keep alive listener
+	 */
+	public void setKeepAliveListener(IKeepAliveListener keepAliveListener) {
+		this.keepAliveListener = keepAliveListener;
+	}
+
+	/**
+	 * Gets the number of requests waiting for a free connection at this time.
+	 *
+	 * @return the waiting requests
+	 */
+	public synchronized int getWaitingRequests() {
+		return this.waitingRequests.size();
+	}
+
+	/**
+	 * Gets the peak number of requests waiting for a free connection.
+	 *
+	 * @return the peak waiting requests
+	 */
+	public synchronized int getPeakWaitingRequests() {
+		return this.peakWaitingRequests;
+	}
+
+	/**
+	 * Gets the average wait time in milliseconds of waiting requests which got a connection handed over.
+	 *
+	 * @return the average wait time millis
+	 */
+	public synchronized long getAverageWaitTimeMillis() {
+		if (this.nrOfServedWaitingRequests == 0) {
+			return 0;
+		}
+		return this.totalWaitTimeMillis / this.nrOfServedWaitingRequests;
+	}
+
+	/**
+	 * Gets the max wait time in milliseconds of a waiting request which got a connection handed over.
+	 *
+	 * @return the max wait time millis
+	 */
+	public synchronized long getMaxWaitTimeMillis() {
+		return this.maxWaitTimeMillis;
+	}
+
 	/**
 	 * Sets the minimum connections for the pool.
 	 *
@@ -392,6 +701,10 @@ public class ConnectionPool {
 				}
 			}
 			this.usedConnections.add(connection);
+			if (this.multiplexed) {
+				// keep alive is an outstanding request of the connection
+				this.pendingRequests.put(connection, 1);
+			}
 		}
 		// send a keep alive message - SCMP version current
 		SCMPKeepAlive keepAliveMessage = new SCMPKeepAlive(SCMPVersion.LOWEST);
@@ -406,15 +719,40 @@ public class ConnectionPool {
 				LOGGER.error("send keepalive failed - connection gets destroyed, scErrorText=" + fault.getHeader(SCMPHeaderAttributeKey.SC_ERROR_TEXT) + " scErrorCode="
 						+ fault.getHeader(SCMPHeaderAttributeKey.SC_ERROR_CODE));
 				this.forceClosingConnection(connection, false);
+				this.notifyKeepAlive(false);
 				return;
 			}
+			this.notifyKeepAlive(true);
 			synchronized (this) {
+				if (this.multiplexed && this.releaseMultiplexedRequest(connection) == false) {
+					// connection has been shared in the meantime - keep it in use
+					return;
+				}
 				this.usedConnections.remove(connection);
 				this.freeConnections.add(0, connection);
 			}
+			this.serveWaitingRequests();
 		} catch (Exception ex) {
 			LOGGER.error("send keepalive failed - connection gets destroyed", ex);
 			this.forceClosingConnection(connection, false);
+			this.notifyKeepAlive(false);
+		}
+	}
+
+	/**
+	 * Notify the keep alive listener about the outcome of a keep alive.
+	 *
+	 * @param succeeded true if the keep alive succeeded
+	 */
+	private void notifyKeepAlive(boolean succeeded) {
+		IKeepAliveListener listener = this.keepAliveListener;
+		if (listener == null) {
+			return;
+		}
+		if (succeeded) {
+			listener.keepAliveSucceeded();
+		} else {
+			listener.keepAliveFailed();
 		}
 	}
 
@@ -480,6 +818,27 @@ public class ConnectionPool {
 		}
 	}
 
+	/**
+	 * The Class WaitingRequest. Request waiting for a free connection.
+	 */
+	private static class WaitingRequest {
+
+		/** The callback to inform when a connection is available. */
+		private IFreeConnectionCallback callback;
+		/** The time the request got queued. */
+		private long queuedTimeMillis;
+
+		/**
+		 * Instantiates a new waiting request.
+		 *
+		 * @param callback the callback
+		 */
+		public WaitingRequest(IFreeConnectionCallback callback) {
+			this.callback = callback;
+			this.queuedTimeMillis = System.currentTimeMillis();
+		}
+	}
+
 	/**
 	 * The Class ConnectionPoolCallback.
 	 */
@@ -508,7 +867,7 @@ public class ConnectionPool {
 	 * @param writer the writer
 	 * @throws Exception the exception
 	 */
-	public void dump(XMLDumpWriter writer) throws Exception {
+	public synchronized void dump(XMLDumpWriter writer) throws Exception {
 		writer.writeStartElement("connection-pool");
 		writer.writeAttribute("host", this.host);
 		writer.writeAttribute("port", this.port);
@@ -516,10 +875,21 @@ public class ConnectionPool {
 		writer.writeAttribute("maxConnections", this.maxConnections);
 		writer.writeAttribute("minConnections", this.minConnections);
 		writer.writeAttribute("closeOnFree", this.closeOnFree);
+		writer.writeAttribute("multiplexed", this.multiplexed);
 		writer.writeAttribute("keepAliveIntervalSeconds", this.keepAliveIntervalSeconds);
 		writer.writeAttribute("keepAliveOTIMillis", this.keepAliveOTIMillis);
+		writer.writeAttribute("maxWaitingRequests", this.maxWaitingRequests);
+		writer.writeAttribute("waitingRequests", this.waitingRequests.size());
+		writer.writeAttribute("peakWaitingRequests", this.peakWaitingRequests);
+		writer.writeAttribute("servedWaitingRequests", this.nrOfServedWaitingRequests);
+		writer.writeAttribute("canceledWaitingRequests", this.nrOfCanceledWaitingRequests);
+		writer.writeAttribute("averageWaitTimeMillis", this.getAverageWaitTimeMillis());
+		writer.writeAttribute("maxWaitTimeMillis", this.maxWaitTimeMillis);
 		writer.writeElement("freeConnections", this.freeConnections.toString());
 		writer.writeElement("usedConnections", this.usedConnections.toString());
+		if (this.multiplexed) {
+			writer.writeElement("pendingRequests", this.pendingRequests.toString());
+		}
 		writer.writeEndElement(); // end of connection-pool
 	}
 }
@@ -133,4 +133,26 @@ public interface IConnection {
 	 * @throws Exception the exception
 	 */
 	public abstract void setQuietDisconnect() throws Exception;
+
+	/**
+	 * Sets the multiplexed flag. A multiplexed connection carries several outstanding requests at the same time, replies are correlated by request id.
+	 *
+	 * @param multiplexed the new multiplexed flag
+	 */
+	public abstract void setMultiplexed(boolean multiplexed);
+
+	/**
+	 * Checks if connection is multiplexed.
+	 *
+	 * @return true, if is multiplexed
+	 */
+	public abstract boolean isMultiplexed();
+
+	/**
+	 * Cancels an outstanding request of a multiplexed connection. A reply arriving later for the canceled request is ignored.
+	 *
+	 * @param callback the callback of the request to cancel
+	 * @return true, if the request has been canceled, false if it is not outstanding anymore
+	 */
+	public abstract boolean cancelRequest(ISCMPMessageCallback callback);
 }
@@ -0,0 +1,31 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.connection;
+
+/**
+ * The Interface IFreeConnectionCallback. Gets informed by the connection pool at the time a connection is available for a waiting request. Requests wait in order of
+ * arrival if the pool is busy.
+ */
+public interface IFreeConnectionCallback {
+
+	/**
+	 * Free connection available. The connection is handed over in use, it has to be given back to the pool by the receiver.
+	 *
+	 * @param connection the connection
+	 */
+	public void freeConnectionAvailable(IConnection connection);
+}
@@ -0,0 +1,33 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.connection;
+
+/**
+ * The Interface IKeepAliveListener. Gets informed about the outcome of keep alive messages a connection pool sends on idle connections.
+ */
+public interface IKeepAliveListener {
+
+	/**
+	 * Keep alive succeeded, remote node replied in time.
+	 */
+	public abstract void keepAliveSucceeded();
+
+	/**
+	 * Keep alive failed, remote node replied a fault or not in time. The connection gets destroyed.
+	 */
+	public abstract void keepAliveFailed();
+}
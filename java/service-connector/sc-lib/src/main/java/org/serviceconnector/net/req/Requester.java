@@ -27,8 +27,11 @@ import org.serviceconnector.conf.RemoteNodeConfiguration;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.net.connection.ConnectionContext;
 import org.serviceconnector.net.connection.ConnectionPool;
+import org.serviceconnector.net.connection.ConnectionPoolBusyException;
 import org.serviceconnector.net.connection.DisconnectException;
 import org.serviceconnector.net.connection.IConnection;
+import org.serviceconnector.net.connection.IFreeConnectionCallback;
+import org.serviceconnector.net.connection.IKeepAliveListener;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.scmp.ISCMPMessageCallback;
 import org.serviceconnector.scmp.SCMPMessage;
@@ -60,28 +63,31 @@ public class Requester implements IRequester {
 		this.connectionPool = new ConnectionPool(remoteNodeConfiguration.getHost(), remoteNodeConfiguration.getPort(), remoteNodeConfiguration.getConnectionType(),
 				remoteNodeConfiguration.getKeepAliveIntervalSeconds(), AppContext.getBasicConfiguration().getKeepAliveOTIMillis());
 		this.connectionPool.setMaxConnections(remoteNodeConfiguration.getMaxPoolSize());
+		this.connectionPool.setMultiplexed(remoteNodeConfiguration.isMultiplexed());
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void send(SCMPMessage message, int timeoutMillis, ISCMPMessageCallback callback) throws Exception {
-		// return an already connected live instance
-		IConnection connection = this.connectionPool.getConnection();
-		ConnectionContext connectionContext = connection.getContext();
+		RequesterSCMPCallback reqCallback = new RequesterSCMPCallback(message, callback);
+		// setting up operation timeout, covers waiting for a free connection too
+		TimeoutWrapper timeoutWrapper = new TimeoutWrapper(reqCallback);
+		ScheduledFuture<TimeoutWrapper> timeout = AppContext.otiScheduler.schedule(timeoutWrapper, timeoutMillis, TimeUnit.MILLISECONDS);
+		reqCallback.setOperationTimeout(timeout);
+		reqCallback.setTimeoutMillis(timeoutMillis);
+		IConnection connection = null;
 		try {
-			ISCMPMessageCallback requesterCallback = new RequesterSCMPCallback(callback, connectionContext);
-			// setting up operation timeout after successful send
-			TimeoutWrapper timeoutWrapper = new TimeoutWrapper((ITimeout) requesterCallback);
-			RequesterSCMPCallback reqCallback = (RequesterSCMPCallback) requesterCallback;
-			@SuppressWarnings("unchecked")
-			ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) AppContext.otiScheduler.schedule(timeoutWrapper, timeoutMillis, TimeUnit.MILLISECONDS);
-			reqCallback.setOperationTimeout(timeout);
-			reqCallback.setTimeoutMillis(timeoutMillis);
-			connection.send(message, requesterCallback);
+			// return an already connected live instance or queue the request if pool is busy
+			connection = this.connectionPool.getConnection(reqCallback);
 		} catch (Exception ex) {
-			this.connectionPool.freeConnection(connection);
+			timeout.cancel(false);
 			throw ex;
 		}
+		if (connection == null) {
+			// request is waiting for a free connection, pool hands it over
+			return;
+		}
+		reqCallback.freeConnectionAvailable(connection);
 	}
 
 	/** {@inheritDoc} */
@@ -100,28 +106,59 @@ public class Requester implements IRequester {
 	 * The Class SCRequesterSCMPCallback. Component used for asynchronous communication. It gets informed at the time a reply is received. Handles freeing up earlier requested
 	 * connections.
 	 */
-	private class RequesterSCMPCallback implements ISCMPMessageCallback, ITimeout {
+	private class RequesterSCMPCallback implements ISCMPMessageCallback, ITimeout, IFreeConnectionCallback {
 
+		/** The request message. */
+		private SCMPMessage requestMessage;
 		/** The scmp callback, callback to inform next layer. */
 		private ISCMPMessageCallback scmpCallback;
-		/** The connection context. */
+		/** The connection context, null as long as request waits for a free connection. */
 		private ConnectionContext connectionCtx;
 		/** The operation timeout. */
 		private ScheduledFuture<TimeoutWrapper> operationTimeout;
 		/** The timeout in milliseconds. */
 		private int timeoutMillis;
+		/** The timed out flag, operation timeout expired. */
+		private boolean timedOut;
 
 		/**
 		 * Instantiates a new requester scmp callback.
 		 *
+		 * @param requestMessage the request message
 		 * @param scmpCallback the scmp callback
-		 * @param connectionCtx the connection ctx
 		 */
-		public RequesterSCMPCallback(ISCMPMessageCallback scmpCallback, ConnectionContext connectionCtx) {
+		public RequesterSCMPCallback(SCMPMessage requestMessage, ISCMPMessageCallback scmpCallback) {
+			this.requestMessage = requestMessage;
 			this.scmpCallback = scmpCallback;
-			this.connectionCtx = connectionCtx;
+			this.connectionCtx = null;
 			this.operationTimeout = null;
 			this.timeoutMillis = 0;
+			this.timedOut = false;
+		}
+
+		/**
+		 * Free connection available. Sends the request over the handed over connection.
+		 *
+		 * @param connection the connection
+		 */
+		@Override
+		public void freeConnectionAvailable(IConnection connection) {
+			synchronized (this) {
+				if (this.timedOut == false) {
+					this.connectionCtx = connection.getContext();
+				}
+			}
+			if (this.connectionCtx == null) {
+				// operation timeout expired while connection was handed over - give it back
+				Requester.this.connectionPool.freeConnection(connection);
+				return;
+			}
+			try {
+				connection.send(this.requestMessage, this);
+			} catch (Exception ex) {
+				LOGGER.warn("send failed", ex);
+				this.receive(ex);
+			}
 		}
 
 		/** {@inheritDoc} */
@@ -131,8 +168,6 @@ public class Requester implements IRequester {
 			this.operationTimeout.cancel(false);
 			// first handle connection - that user has a connection to work, if he has only 1
 			this.freeConnection();
-			// removes canceled oti timeouts
-			AppContext.otiScheduler.purge();
 			this.scmpCallback.receive(scmpReply);
 		}
 
@@ -150,8 +185,6 @@ public class Requester implements IRequester {
 				// another exception occurred - just free the connection
 				this.freeConnection();
 			}
-			// removes canceled oti timeouts
-			AppContext.otiScheduler.purge();
 		}
 
 		/**
@@ -178,6 +211,17 @@ public class Requester implements IRequester {
 			}
 		}
 
+		/**
+		 * Cancel request. Orders connectionPool to cancel this request on a multiplexed connection. A late reply gets ignored, other requests on the connection continue.
+		 */
+		private void cancelRequest() {
+			try {
+				Requester.this.connectionPool.cancelRequest(connectionCtx.getConnection(), this);
+			} catch (Exception ex) {
+				LOGGER.error("cancelRequest", ex);
+			}
+		}
+
 		/**
 		 * Sets the operation timeout.
 		 *
@@ -207,12 +251,42 @@ public class Requester implements IRequester {
 		 */
 		@Override
 		public void timeout() {
+			if (Requester.this.connectionPool.cancelWaitingRequest(this)) {
+				// request is still waiting for a free connection
+				LOGGER.warn("oti timeout expiration on SC waiting for free connection oti=" + this.timeoutMillis);
+				this.scmpCallback.receive(new ConnectionPoolBusyException("no free connection available within oti=" + this.timeoutMillis));
+				return;
+			}
 			LOGGER.warn("oti timeout expiration on SC oti=" + this.timeoutMillis);
-			this.disconnectConnection(true);
+			ConnectionContext connectionContext = null;
+			synchronized (this) {
+				this.timedOut = true;
+				connectionContext = this.connectionCtx;
+			}
+			if (connectionContext == null) {
+				// connection is about to be handed over - it gets freed at arrival
+				this.scmpCallback.receive(new IdleTimeoutException("idle timeout. operation - could not be completed on SC."));
+				return;
+			}
+			if (Requester.this.connectionPool.isMultiplexed()) {
+				// connection is shared with other requests - only cancel this one
+				this.cancelRequest();
+			} else {
+				this.disconnectConnection(true);
+			}
 			this.scmpCallback.receive(new IdleTimeoutException("idle timeout. operation - could not be completed on SC."));
 		}
 	}
 
+	/**
+	 * Sets the keep alive listener, informed about the outcome of keep alive messages sent on idle connections.
+	 *
+	 * @param keepAliveListener the new keep alive listener
+	 */
+	public void setKeepAliveListener(IKeepAliveListener keepAliveListener) {
+		this.connectionPool.setKeepAliveListener(keepAliveListener);
+	}
+
 	/**
 	 * Immediate connect.
 	 */
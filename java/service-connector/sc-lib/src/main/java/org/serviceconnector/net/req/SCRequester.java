@@ -22,17 +22,22 @@ import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.serviceconnector.Constants;
 import org.serviceconnector.conf.RemoteNodeConfiguration;
 import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.ConnectionType;
 import org.serviceconnector.net.connection.ConnectionContext;
 import org.serviceconnector.net.connection.ConnectionPool;
 import org.serviceconnector.net.connection.DisconnectException;
 import org.serviceconnector.net.connection.IConnection;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.ISCMPPartStreamCallback;
+import org.serviceconnector.scmp.SCMPBodyType;
 import org.serviceconnector.scmp.SCMPCompositeReceiver;
 import org.serviceconnector.scmp.SCMPCompositeSender;
 import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeader;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMessageFault;
@@ -68,6 +73,7 @@ public class SCRequester implements IRequester {
 		this.connectionPool = new ConnectionPool(remoteNodeConfiguration.getHost(), remoteNodeConfiguration.getPort(), remoteNodeConfiguration.getConnectionType(),
 				remoteNodeConfiguration.getKeepAliveIntervalSeconds(), keepAliveTimeoutMillis);
 		this.connectionPool.setMaxConnections(remoteNodeConfiguration.getMaxPoolSize());
+		this.connectionPool.setMultiplexed(remoteNodeConfiguration.isMultiplexed());
 		this.msgSequenceNr = new SCMPMessageSequenceNr();
 	}
 
@@ -89,11 +95,15 @@ public class SCRequester implements IRequester {
 				// setting up operation timeout after successful send
 				TimeoutWrapper timeoutWrapper = new TimeoutWrapper((ITimeout) requesterCallback);
 				SCRequesterSCMPCallback reqCallback = (SCRequesterSCMPCallback) requesterCallback;
-				ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) AppContext.otiScheduler.schedule(timeoutWrapper, timeoutMillis, TimeUnit.MILLISECONDS);
+				ScheduledFuture<TimeoutWrapper> timeout = AppContext.otiScheduler.schedule(timeoutWrapper, timeoutMillis, TimeUnit.MILLISECONDS);
 				reqCallback.setOperationTimeout(timeout);
 				reqCallback.setTimeoutMillis(timeoutMillis);
 				// extract first part message & send
 				SCMPMessage part = largeResponse.getFirst();
+				if (this.isPartWindowOffered(message)) {
+					// responder may grant sending parts ahead of their acknowledgements
+					reqCallback.offerPartWindow(part);
+				}
 				// handling msgSequenceNr
 				if (SCMPMessageSequenceNr.necessaryToWrite(message.getMessageType())) {
 					part.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, msgSequenceNr.getCurrentNr());
@@ -105,7 +115,7 @@ public class SCRequester implements IRequester {
 				// setting up operation timeout after successful send
 				TimeoutWrapper timeoutWrapper = new TimeoutWrapper((ITimeout) requesterCallback);
 				SCRequesterSCMPCallback reqCallback = (SCRequesterSCMPCallback) requesterCallback;
-				ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) AppContext.otiScheduler.schedule(timeoutWrapper, timeoutMillis, TimeUnit.MILLISECONDS);
+				ScheduledFuture<TimeoutWrapper> timeout = AppContext.otiScheduler.schedule(timeoutWrapper, timeoutMillis, TimeUnit.MILLISECONDS);
 				reqCallback.setOperationTimeout(timeout);
 				reqCallback.setTimeoutMillis(timeoutMillis);
 				// handling msgSequenceNr
@@ -121,6 +131,23 @@ public class SCRequester implements IRequester {
 		}
 	}
 
+	/**
+	 * Checks if a part window is offered for a large request. Parts are sent ahead of their acknowledgements only on TCP connections. The last
+	 * part completes the request, the size of a stream body is unknown and it is sent stop-and-wait.
+	 *
+	 * @param message the large message
+	 * @return true, if part window is offered
+	 */
+	private boolean isPartWindowOffered(SCMPMessage message) {
+		if (Constants.DEFAULT_LARGE_MESSAGE_WINDOW_SIZE <= 1) {
+			return false;
+		}
+		if (ConnectionType.NETTY_TCP.getValue().equals(this.remoteNodeConfiguration.getConnectionType()) == false) {
+			return false;
+		}
+		return message.getBodyType() != SCMPBodyType.INPUT_STREAM;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public RemoteNodeConfiguration getRemoteNodeConfiguration() {
@@ -155,6 +182,16 @@ public class SCRequester implements IRequester {
 		private ScheduledFuture<TimeoutWrapper> operationTimeout;
 		/** The timeout in milliseconds. */
 		private int timeoutMillis;
+		/** The part window offered flag, first part of the large request offers a part window. */
+		private boolean partWindowOffered;
+		/** The part window size granted by the responder, 0 as long as parts are sent stop-and-wait. */
+		private int partWindowSize;
+		/** The number of parts sent of a windowed large request. */
+		private int sentParts;
+		/** The number of parts acknowledged of a windowed large request. */
+		private int ackedParts;
+		/** The last part sent flag of a windowed large request. */
+		private boolean lastPartSent;
 
 		/**
 		 * Instantiates a new sC requester scmp callback.
@@ -186,12 +223,39 @@ public class SCRequester implements IRequester {
 			this.msgSequenceNr = msgSequenceNr;
 			this.timeoutMillis = 0;
 			this.operationTimeout = null;
+			this.partWindowOffered = false;
+			this.partWindowSize = 0;
+			this.sentParts = 0;
+			this.ackedParts = 0;
+			this.lastPartSent = false;
+		}
+
+		/**
+		 * Offers a part window with the first part of the large request. Part gets its own header, parts are outstanding at the same time.
+		 *
+		 * @param firstPart the first part
+		 */
+		public void offerPartWindow(SCMPMessage firstPart) {
+			firstPart.setHeader(new SCMPHeader(firstPart.getHeader()));
+			firstPart.setHeader(SCMPHeaderAttributeKey.PART_WINDOW_SIZE, Constants.DEFAULT_LARGE_MESSAGE_WINDOW_SIZE);
+			firstPart.setHeader(SCMPHeaderAttributeKey.PART_SEQUENCE_NR, 1);
+			this.partWindowOffered = true;
+			this.sentParts = 1;
 		}
 
 		/** {@inheritDoc} */
 		@Override
 		public void receive(SCMPMessage scmpReply) throws Exception {
 			if (scmpReply.isFault()) {
+				if (this.largeRequest != null && this.sentParts - this.ackedParts > 1) {
+					// parts sent ahead are replied as discarded by the responder, their replies must not reach a later request
+					this.largeResponse = null;
+					this.largeRequest = null;
+					this.operationTimeout.cancel(false);
+					this.abandonRequest();
+					this.scmpCallback.receive(scmpReply);
+					return;
+				}
 				// reset large response/request if any in process
 				this.largeResponse = null;
 				this.largeRequest = null;
@@ -274,8 +338,6 @@ public class SCRequester implements IRequester {
 			operationTimeout.cancel(false);
 			// first handle connection - that user has a connection to work, if he has only 1
 			this.freeConnection();
-			// removes canceled oti timeouts
-			AppContext.otiScheduler.purge();
 			this.scmpCallback.receive(scmpReply);
 		}
 
@@ -289,6 +351,10 @@ public class SCRequester implements IRequester {
 			// response is a part - response is large, continue polling
 			// SCMPLargeResponse handles parts of large requests, putting all together
 			this.largeResponse = new SCMPCompositeReceiver(requestMsg, scmpReply);
+			if (this.scmpCallback instanceof ISCMPPartStreamCallback) {
+				// parts are streamed as they arrive, no need to keep them
+				this.largeResponse.setPartStream(((ISCMPPartStreamCallback) this.scmpCallback).getPartStream());
+			}
 			SCMPMessage message = largeResponse.getPollMessage();
 			// handling msgSequenceNr
 			if (SCMPMessageSequenceNr.necessaryToWrite(message.getMessageType())) {
@@ -316,6 +382,17 @@ public class SCRequester implements IRequester {
 		 * @throws Exception the exception
 		 */
 		private boolean handlingLargeRequest(SCMPMessage scmpReply) throws Exception {
+			if (this.partWindowOffered) {
+				// reply to the first part, responder grants the part window or continues stop-and-wait
+				this.partWindowOffered = false;
+				Integer grantedWindowSize = scmpReply.getHeaderInt(SCMPHeaderAttributeKey.PART_WINDOW_SIZE);
+				if (grantedWindowSize != null && grantedWindowSize > 1) {
+					this.partWindowSize = grantedWindowSize;
+				}
+			}
+			if (this.partWindowSize > 0) {
+				return this.handlingWindowedLargeRequest(scmpReply);
+			}
 			SCMPMessage part = null;
 
 			part = largeRequest.getCurrentPart();
@@ -339,6 +416,54 @@ public class SCRequester implements IRequester {
 			return false;
 		}
 
+		/**
+		 * Handling windowed large request. Parts are sent ahead of their acknowledgements as long as the window is not exhausted, the
+		 * acknowledgements arrive in the order of the part sequence number. The last part completes the request, it is sent after all parts
+		 * have been acknowledged. Its reply is the response.
+		 *
+		 * @param scmpReply the scmp reply
+		 * @return true, if successful
+		 * @throws Exception the exception
+		 */
+		private boolean handlingWindowedLargeRequest(SCMPMessage scmpReply) throws Exception {
+			if (this.lastPartSent) {
+				return true;
+			}
+			Integer partNr = scmpReply.getHeaderInt(SCMPHeaderAttributeKey.PART_SEQUENCE_NR);
+			if (partNr == null || partNr != this.ackedParts + 1) {
+				LOGGER.error("unexpected acknowledgement of windowed large request partNr=" + partNr + " expected=" + (this.ackedParts + 1));
+				this.largeRequest = null;
+				this.operationTimeout.cancel(false);
+				this.abandonRequest();
+				SCMPMessageFault fault = new SCMPMessageFault(SCMPVersion.CURRENT, SCMPError.SC_ERROR, "unexpected acknowledgement of large request part");
+				fault.setMessageType(requestMsg.getMessageType());
+				this.scmpCallback.receive(fault);
+				return false;
+			}
+			this.ackedParts++;
+			while (this.sentParts - this.ackedParts < this.partWindowSize && this.largeRequest.hasNext()) {
+				if (this.largeRequest.isNextPartLast() && this.sentParts > this.ackedParts) {
+					// last part is sent when all parts have been acknowledged
+					break;
+				}
+				SCMPMessage part = this.largeRequest.getNext();
+				part.setHeader(new SCMPHeader(part.getHeader()));
+				this.sentParts++;
+				part.setHeader(SCMPHeaderAttributeKey.PART_SEQUENCE_NR, this.sentParts);
+				// handling msgSequenceNr
+				if (SCMPMessageSequenceNr.necessaryToWrite(part.getMessageType())) {
+					this.msgSequenceNr.incrementAndGetMsgSequenceNr();
+					part.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, msgSequenceNr.getCurrentNr());
+				}
+				this.lastPartSent = part.isPart() == false;
+				this.connectionCtx.getConnection().send(part, this);
+				if (this.lastPartSent) {
+					break;
+				}
+			}
+			return false;
+		}
+
 		/** {@inheritDoc} */
 		@Override
 		public void receive(Exception ex) {
@@ -355,8 +480,6 @@ public class SCRequester implements IRequester {
 				// another exception occurred - just free the connection
 				this.freeConnection();
 			}
-			// removes canceled oti timeouts
-			AppContext.otiScheduler.purge();
 		}
 
 		/**
@@ -383,6 +506,30 @@ public class SCRequester implements IRequester {
 			}
 		}
 
+		/**
+		 * Abandons the request, late replies must not reach a later request. A multiplexed connection is shared with other requests, only this
+		 * request gets canceled. Otherwise the connection gets closed.
+		 */
+		private void abandonRequest() {
+			if (SCRequester.this.connectionPool.isMultiplexed()) {
+				// connection is shared with other requests - only cancel this one
+				this.cancelRequest();
+			} else {
+				this.disconnectConnection(true);
+			}
+		}
+
+		/**
+		 * Cancel request. Orders connectionPool to cancel this request on a multiplexed connection. A late reply gets ignored, other requests on the connection continue.
+		 */
+		private void cancelRequest() {
+			try {
+				SCRequester.this.connectionPool.cancelRequest(connectionCtx.getConnection(), this);
+			} catch (Exception ex) {
+				LOGGER.error("cancelRequest", ex);
+			}
+		}
+
 		/**
 		 * Sets the operation timeout.
 		 *
@@ -413,7 +560,7 @@ public class SCRequester implements IRequester {
 		@Override
 		public void timeout() {
 			LOGGER.warn("oti timeout expiration in sc client API oti=" + this.timeoutMillis);
-			this.disconnectConnection(true);
+			this.abandonRequest();
 			try {
 				SCMPMessageFault fault = new SCMPMessageFault(SCMPVersion.CURRENT, SCMPError.REQUEST_TIMEOUT, "Operation timeout expired on client");
 				fault.setMessageType(requestMsg.getMessageType());
@@ -71,6 +71,8 @@ public abstract class NettyConnectionAdpater implements IConnection {
 	protected ChannelPipelineFactory pipelineFactory;
 	/** The idle timeout. */
 	protected int idleTimeout;
+	/** The multiplexed flag, marks if connection carries several outstanding requests. */
+	protected boolean multiplexed;
 	/** The timer to observe timeouts, static because should be shared. */
 	protected static Timer timer;
 	/**
@@ -96,6 +98,7 @@ public abstract class NettyConnectionAdpater implements IConnection {
 		this.bootstrap = null;
 		this.pipelineFactory = null;
 		this.idleTimeout = 0; // default 0 -> inactive
+		this.multiplexed = false;
 		NettyConnectionAdpater.channelFactory = channelFactory;
 		NettyConnectionAdpater.timer = timer;
 	}
@@ -206,4 +209,16 @@ public abstract class NettyConnectionAdpater implements IConnection {
 	public void setIdleTimeoutSeconds(int idleTimeout) {
 		this.idleTimeout = idleTimeout;
 	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setMultiplexed(boolean multiplexed) {
+		this.multiplexed = multiplexed;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isMultiplexed() {
+		return this.multiplexed;
+	}
 }
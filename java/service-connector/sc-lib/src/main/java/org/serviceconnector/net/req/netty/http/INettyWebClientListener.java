@@ -0,0 +1,66 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.req.netty.http;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+
+/**
+ * The Interface INettyWebClientListener. Listens to an exchange with a web server. Methods are called by the IO thread of the connection and
+ * must never block.
+ */
+public interface INettyWebClientListener {
+
+	/**
+	 * Channel assigned to the exchange. Called before the request is written, the response may arrive as soon as the request has been
+	 * written.
+	 *
+	 * @param channel the channel carrying the exchange
+	 */
+	public abstract void channelAssigned(Channel channel);
+
+	/**
+	 * Request has been written. For a chunked request the head has been written, chunks written to the channel afterwards follow the head.
+	 * The response may already have been received.
+	 *
+	 * @param channel the channel carrying the exchange
+	 */
+	public abstract void requestWritten(Channel channel);
+
+	/**
+	 * Response head received.
+	 *
+	 * @param response the response
+	 */
+	public abstract void responseReceived(HttpResponse response);
+
+	/**
+	 * Content of the response received. Content is not aggregated, it is delivered as it arrives.
+	 *
+	 * @param content the content
+	 * @param last true if the content is the last of the response
+	 */
+	public abstract void contentReceived(ChannelBuffer content, boolean last);
+
+	/**
+	 * Exchange failed. Connect failed, connection broke or has been closed before the response has been completed.
+	 *
+	 * @param ex the exception
+	 */
+	public abstract void failed(Exception ex);
+}
@@ -16,27 +16,23 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.req.netty.http;
 
-import java.io.ByteArrayOutputStream;
 import java.net.InetSocketAddress;
-import java.net.URL;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.jboss.netty.bootstrap.ClientBootstrap;
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
-import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpMethod;
-import org.jboss.netty.handler.codec.http.HttpRequest;
 import org.jboss.netty.handler.codec.http.HttpVersion;
 import org.jboss.netty.util.Timer;
 import org.serviceconnector.Constants;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.log.ConnectionLogger;
 import org.serviceconnector.net.CommunicationException;
+import org.serviceconnector.net.HttpHeadBlock;
 import org.serviceconnector.net.SCMPCommunicationException;
 import org.serviceconnector.net.req.netty.NettyConnectionAdpater;
 import org.serviceconnector.net.req.netty.NettyOperationListener;
@@ -54,8 +50,10 @@ public class NettyHttpConnection extends NettyConnectionAdpater {
 	/** The Constant LOGGER. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(NettyHttpConnection.class);
 
-	/** The url. */
-	private URL url;
+	/** The Constant USER_AGENT, runtime version is read once. */
+	private static final String USER_AGENT = System.getProperty("java.runtime.version");
+	/** The head block of requests, replaced as a whole so concurrent writers never see the head block of another qualifier. */
+	private volatile QualifiedHeadBlock headBlock;
 
 	/**
 	 * Instantiates a new netty http connection.
@@ -65,7 +63,7 @@ public class NettyHttpConnection extends NettyConnectionAdpater {
 	 */
 	public NettyHttpConnection(NioClientSocketChannelFactory channelFactory, Timer timer) {
 		super(channelFactory, timer);
-		this.url = null;
+		this.headBlock = null;
 	}
 
 	/** {@inheritDoc} */
@@ -103,38 +101,86 @@ public class NettyHttpConnection extends NettyConnectionAdpater {
 	@Override
 	public void send(SCMPMessage scmp, ISCMPMessageCallback callback) throws Exception {
 		// LOGGER.info("send cache id = " + scmp.getCacheId());
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
 		encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(scmp);
-		encoderDecoder.encode(baos, scmp);
-		url = new URL(Constants.HTTP, host, port, scmp.getHttpUrlFileQualifier());
-		HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, this.url.getPath());
-		byte[] buffer = baos.toByteArray();
-		// Http header fields
-		request.headers().add(HttpHeaders.Names.USER_AGENT, System.getProperty("java.runtime.version"));
-		request.headers().add(HttpHeaders.Names.HOST, host);
-		request.headers().add(HttpHeaders.Names.ACCEPT, Constants.HTTP_ACCEPT_PARAMS);
-		request.headers().add(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
-		request.headers().add(HttpHeaders.Names.CONTENT_TYPE, scmp.getBodyType().getMimeType());
-		request.headers().add(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buffer.length));
-		request.headers().add(HttpHeaders.Names.CACHE_CONTROL, HttpHeaders.Values.NO_CACHE);
-		request.headers().add(HttpHeaders.Names.PRAGMA, HttpHeaders.Values.NO_CACHE);
+		ChannelBuffer channelBuffer = encoderDecoder.encode(scmp);
+		// head and encoded message are written as one buffer, message is not copied
+		ChannelBuffer request = this.getHeadBlock(scmp.getHttpUrlFileQualifier()).encode(scmp.getBodyType().getMimeType(), channelBuffer);
 
 		NettyHttpRequesterResponseHandler handler = channel.getPipeline().get(NettyHttpRequesterResponseHandler.class);
 		handler.setCallback(callback);
 
-		ChannelBuffer channelBuffer = ChannelBuffers.copiedBuffer(buffer);
-		request.setContent(channelBuffer);
-		channel.write(request);
 		if (ConnectionLogger.isEnabledFull()) {
-			ConnectionLogger.logWriteBuffer(this.getClass().getSimpleName(), this.remotSocketAddress.getHostName(), this.remotSocketAddress.getPort(), buffer, 0, buffer.length);
+			ConnectionLogger.logWriteBuffer(this.getClass().getSimpleName(), this.remotSocketAddress.getHostName(), this.remotSocketAddress.getPort(), channelBuffer);
 		}
+		channel.write(request);
 		return;
 	}
 
+	/**
+	 * Gets the head block of requests. Head block is encoded again only if the URL file qualifier changes.
+	 *
+	 * @param qualifier the URL file qualifier
+	 * @return the head block
+	 */
+	private HttpHeadBlock getHeadBlock(String qualifier) {
+		QualifiedHeadBlock cached = this.headBlock;
+		if (cached != null && qualifier.equals(cached.qualifier)) {
+			return cached.block;
+		}
+		// path of the URL, query and fragment are not part of the request line
+		String path = qualifier;
+		int end = path.indexOf('?');
+		if (end >= 0) {
+			path = path.substring(0, end);
+		}
+		end = path.indexOf('#');
+		if (end >= 0) {
+			path = path.substring(0, end);
+		}
+		if (path.startsWith(Constants.SLASH) == false) {
+			path = Constants.SLASH + path;
+		}
+		HttpHeadBlock block = new HttpHeadBlock(HttpMethod.POST + " " + path + " " + HttpVersion.HTTP_1_1, HttpHeaders.Names.USER_AGENT, USER_AGENT,
+				HttpHeaders.Names.HOST, this.host, HttpHeaders.Names.ACCEPT, Constants.HTTP_ACCEPT_PARAMS, HttpHeaders.Names.CONNECTION,
+				HttpHeaders.Values.KEEP_ALIVE, HttpHeaders.Names.CACHE_CONTROL, HttpHeaders.Values.NO_CACHE, HttpHeaders.Names.PRAGMA,
+				HttpHeaders.Values.NO_CACHE);
+		this.headBlock = new QualifiedHeadBlock(qualifier, block);
+		return block;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean cancelRequest(ISCMPMessageCallback callback) {
+		// http connections are never multiplexed - nothing to cancel
+		return false;
+	}
+
 	@Override
 	public void setQuietDisconnect() throws Exception {
 		// this avoids receiving messages (outstanding replies) in disconnecting procedure
 		NettyHttpRequesterResponseHandler handler = channel.getPipeline().get(NettyHttpRequesterResponseHandler.class);
 		handler.connectionDisconnect();
 	}
+
+	/**
+	 * The Class QualifiedHeadBlock. Immutable head block with the URL file qualifier it has been encoded for.
+	 */
+	private static final class QualifiedHeadBlock {
+
+		/** The URL file qualifier. */
+		private final String qualifier;
+		/** The head block. */
+		private final HttpHeadBlock block;
+
+		/**
+		 * Instantiates a new qualified head block.
+		 *
+		 * @param qualifier the URL file qualifier
+		 * @param block the head block
+		 */
+		private QualifiedHeadBlock(String qualifier, HttpHeadBlock block) {
+			this.qualifier = qualifier;
+			this.block = block;
+		}
+	}
 }
@@ -68,7 +68,9 @@ public class NettyHttpRequesterPipelineFactory implements ChannelPipelineFactory
 		// responsible for observing idle timeout - Netty
 		pipeline.addLast("idleTimeout", new NettyIdleHandler(this.context, this.timer, 0, 0, this.context.getIdleTimeoutSeconds()));
 		// responsible for decoding responses - Netty
-		pipeline.addLast("decoder", new HttpResponseDecoder());
+		// content of a message part is decoded as a whole, not split into chunks to be aggregated again
+		pipeline.addLast("decoder", new HttpResponseDecoder(Constants.MAX_HTTP_INITIAL_LINE_LENGTH, Constants.MAX_HTTP_HEADER_SIZE,
+				Constants.MAX_HTTP_CHUNK_SIZE));
 		// responsible for encoding requests - Netty
 		pipeline.addLast("encoder", new HttpRequestEncoder());
 		// responsible for aggregate chunks - Netty
@@ -16,7 +16,6 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.req.netty.http;
 
-import java.io.ByteArrayInputStream;
 import java.net.InetSocketAddress;
 
 import org.jboss.netty.buffer.ChannelBuffer;
@@ -76,17 +75,14 @@ public class NettyHttpRequesterResponseHandler extends SimpleChannelUpstreamHand
 			this.pendingRequest = false;
 			try {
 				HttpResponse httpResponse = (HttpResponse) e.getMessage();
-				ChannelBuffer content = httpResponse.getContent();
-				byte[] buffer = new byte[content.readableBytes()];
-				content.readBytes(buffer);
-				Statistics.getInstance().incrementTotalMessages(buffer.length);
+				ChannelBuffer buffer = httpResponse.getContent();
+				Statistics.getInstance().incrementTotalMessages(buffer.readableBytes());
 				if (ConnectionLogger.isEnabledFull()) {
 					InetSocketAddress remoteAddress = (InetSocketAddress) ctx.getChannel().getRemoteAddress();
-					ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), remoteAddress.getHostName(), remoteAddress.getPort(), buffer, 0, buffer.length);
+					ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), remoteAddress.getHostName(), remoteAddress.getPort(), buffer);
 				}
-				ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
 				IEncoderDecoder encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(buffer);
-				SCMPMessage ret = (SCMPMessage) encoderDecoder.decode(bais);
+				SCMPMessage ret = (SCMPMessage) encoderDecoder.decode(buffer);
 				NettyHttpRequesterResponseHandler.this.scmpCallback.receive(ret);
 			} catch (Throwable th) {
 				LOGGER.error("receive message", th);
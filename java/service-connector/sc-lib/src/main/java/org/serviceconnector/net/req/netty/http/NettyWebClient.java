@@ -0,0 +1,303 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.req.netty.http;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.serviceconnector.log.ConnectionLogger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class NettyWebClient. Non-blocking HTTP client to a web server. Connections are kept alive and pooled, an exchange takes an idle
+ * connection or connects a new one. Nothing blocks, the response is delivered to the listener of the exchange by the IO thread.<br />
+ * The pool keeps at most the maximal number of idle connections to the web server, the most recently released connection is reused first.
+ * Connections idle longer than the maximal idle time get closed, before the web server drops them.
+ */
+public class NettyWebClient {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(NettyWebClient.class);
+	/** The bootstrap. */
+	private ClientBootstrap bootstrap;
+	/** The host. */
+	private String host;
+	/** The port. */
+	private int port;
+	/** The timer to observe timeouts of exchanges. */
+	private Timer timer;
+	/** The idle connections, kept alive by the web server. Most recently released first, guarded by its own monitor. */
+	private Deque<IdleChannel> idleChannels;
+	/** The maximal number of idle connections. */
+	private int maxIdleConnections;
+	/** The maximal time a connection stays idle in milliseconds. */
+	private int maxIdleMillis;
+	/** The timeout of the next eviction of idle connections, null if client is destroyed. */
+	private Timeout evictionTimeout;
+
+	/**
+	 * Instantiates a new netty web client.
+	 *
+	 * @param channelFactory the channel factory
+	 * @param timer the timer
+	 * @param host the host
+	 * @param port the port
+	 * @param connectionTimeoutMillis the connection timeout in milliseconds
+	 * @param maxIdleConnections the maximal number of idle connections
+	 * @param maxIdleMillis the maximal time a connection stays idle in milliseconds
+	 */
+	public NettyWebClient(NioClientSocketChannelFactory channelFactory, Timer timer, String host, int port, int connectionTimeoutMillis,
+			int maxIdleConnections, int maxIdleMillis) {
+		this.host = host;
+		this.port = port;
+		this.timer = timer;
+		this.idleChannels = new ArrayDeque<IdleChannel>();
+		this.maxIdleConnections = maxIdleConnections;
+		this.maxIdleMillis = maxIdleMillis;
+		this.bootstrap = new ClientBootstrap(channelFactory);
+		this.bootstrap.setPipelineFactory(new NettyWebClientPipelineFactory());
+		this.bootstrap.setOption("connectTimeoutMillis", connectionTimeoutMillis);
+		this.bootstrap.setOption("tcpNoDelay", true);
+		this.bootstrap.setOption("keepAlive", true);
+		this.scheduleEviction();
+	}
+
+	/**
+	 * Send request. Request is sent on an idle connection or on a new connection. The listener gets the channel of the exchange before the
+	 * request is written, the channel must be released when the exchange completes.
+	 *
+	 * @param request the request
+	 * @param listener the listener
+	 */
+	public void send(final HttpRequest request, final INettyWebClientListener listener) {
+		request.headers().set(HttpHeaders.Names.HOST, this.host + ":" + this.port);
+		request.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+		Channel channel = this.pollIdleChannel();
+		while (channel != null) {
+			if (channel.isConnected()) {
+				this.write(channel, request, listener);
+				return;
+			}
+			channel = this.pollIdleChannel();
+		}
+		ChannelFuture connectFuture = this.bootstrap.connect(new InetSocketAddress(this.host, this.port));
+		connectFuture.addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) throws Exception {
+				if (future.isSuccess() == false) {
+					LOGGER.warn("connect to web server failed " + NettyWebClient.this.host + ":" + NettyWebClient.this.port);
+					listener.failed(future.getCause() instanceof Exception ? (Exception) future.getCause() : new Exception(future.getCause()));
+					return;
+				}
+				if (ConnectionLogger.isEnabled()) {
+					ConnectionLogger.logConnect(NettyWebClient.class.getSimpleName(), NettyWebClient.this.host, NettyWebClient.this.port);
+				}
+				NettyWebClient.this.write(future.getChannel(), request, listener);
+			}
+		});
+	}
+
+	/**
+	 * Write request on the channel.
+	 *
+	 * @param channel the channel
+	 * @param request the request
+	 * @param listener the listener
+	 */
+	private void write(final Channel channel, HttpRequest request, INettyWebClientListener listener) {
+		channel.getPipeline().get(NettyWebClientHandler.class).setListener(listener);
+		// channel is handed over before writing, the response may be delivered by the IO thread before write returns
+		listener.channelAssigned(channel);
+		channel.write(request).addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) throws Exception {
+				if (future.isSuccess() == false) {
+					// connection is broken, handler reports failure when channel gets closed
+					channel.close();
+				}
+			}
+		});
+		// writes of the listener are queued behind the request
+		listener.requestWritten(channel);
+	}
+
+	/**
+	 * Release the channel of a completed exchange. Channel is kept for the next exchange if the web server keeps it alive.
+	 *
+	 * @param channel the channel
+	 * @param keepAlive the keep alive flag of the response
+	 */
+	public void release(Channel channel, boolean keepAlive) {
+		channel.getPipeline().get(NettyWebClientHandler.class).setListener(null);
+		if (keepAlive && channel.isConnected() && channel.isReadable()) {
+			synchronized (this.idleChannels) {
+				if (this.evictionTimeout != null && this.idleChannels.size() < this.maxIdleConnections) {
+					this.idleChannels.addFirst(new IdleChannel(channel, System.currentTimeMillis()));
+					return;
+				}
+			}
+		}
+		// pool is full, client destroyed or connection not reusable
+		channel.close();
+	}
+
+	/**
+	 * Poll the most recently released idle connection. Connections idle too long get closed.
+	 *
+	 * @return the channel, null if no idle connection is available
+	 */
+	private Channel pollIdleChannel() {
+		this.evictIdleChannels();
+		synchronized (this.idleChannels) {
+			IdleChannel idleChannel = this.idleChannels.pollFirst();
+			if (idleChannel == null) {
+				return null;
+			}
+			return idleChannel.channel;
+		}
+	}
+
+	/**
+	 * Evict idle connections. Connections idle longer than the maximal idle time are removed from the pool and closed.
+	 */
+	private void evictIdleChannels() {
+		long evictBeforeMillis = System.currentTimeMillis() - this.maxIdleMillis;
+		List<Channel> evictedChannels = null;
+		synchronized (this.idleChannels) {
+			// least recently released connection is the last
+			IdleChannel idleChannel = this.idleChannels.peekLast();
+			while (idleChannel != null && idleChannel.idleSinceMillis <= evictBeforeMillis) {
+				this.idleChannels.pollLast();
+				if (evictedChannels == null) {
+					evictedChannels = new ArrayList<Channel>();
+				}
+				evictedChannels.add(idleChannel.channel);
+				idleChannel = this.idleChannels.peekLast();
+			}
+		}
+		if (evictedChannels == null) {
+			return;
+		}
+		for (Channel channel : evictedChannels) {
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("idle connection to web server evicted " + this.host + ":" + this.port);
+			}
+			channel.close();
+		}
+	}
+
+	/**
+	 * Schedule eviction of idle connections. Runs twice per maximal idle time, connections get closed even if no exchange takes place.
+	 */
+	private void scheduleEviction() {
+		synchronized (this.idleChannels) {
+			try {
+				this.evictionTimeout = this.timer.newTimeout(new TimerTask() {
+					@Override
+					public void run(Timeout timeout) throws Exception {
+						NettyWebClient.this.evictIdleChannels();
+						synchronized (NettyWebClient.this.idleChannels) {
+							if (NettyWebClient.this.evictionTimeout != timeout) {
+								// client destroyed
+								return;
+							}
+							NettyWebClient.this.scheduleEviction();
+						}
+					}
+				}, Math.max(1, this.maxIdleMillis / 2), TimeUnit.MILLISECONDS);
+			} catch (IllegalStateException e) {
+				// timer stopped, application shuts down
+				LOGGER.debug("eviction of idle connections to web server not scheduled, timer stopped");
+			}
+		}
+	}
+
+	/**
+	 * Gets the timer to observe timeouts of exchanges.
+	 *
+	 * @return the timer
+	 */
+	public Timer getTimer() {
+		return this.timer;
+	}
+
+	/**
+	 * Gets the number of idle connections.
+	 *
+	 * @return the idle connections count
+	 */
+	public int getIdleConnectionsCount() {
+		synchronized (this.idleChannels) {
+			return this.idleChannels.size();
+		}
+	}
+
+	/**
+	 * Destroy the client, idle connections get closed.
+	 */
+	public void destroy() {
+		List<IdleChannel> idleChannels;
+		synchronized (this.idleChannels) {
+			if (this.evictionTimeout != null) {
+				this.evictionTimeout.cancel();
+				this.evictionTimeout = null;
+			}
+			idleChannels = new ArrayList<IdleChannel>(this.idleChannels);
+			this.idleChannels.clear();
+		}
+		for (IdleChannel idleChannel : idleChannels) {
+			idleChannel.channel.close();
+		}
+	}
+
+	/**
+	 * The Class IdleChannel. Idle connection in the pool and the time it has been released.
+	 */
+	private static class IdleChannel {
+
+		/** The channel. */
+		private final Channel channel;
+		/** The time the connection has been released in milliseconds. */
+		private final long idleSinceMillis;
+
+		/**
+		 * Instantiates a new idle channel.
+		 *
+		 * @param channel the channel
+		 * @param idleSinceMillis the time the connection has been released in milliseconds
+		 */
+		public IdleChannel(Channel channel, long idleSinceMillis) {
+			this.channel = channel;
+			this.idleSinceMillis = idleSinceMillis;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.req.netty.http;
+
+import java.io.IOException;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class NettyWebClientHandler. Delivers the response of a web server to the listener of the current exchange. Responses are not
+ * aggregated, content is delivered chunk by chunk.
+ */
+public class NettyWebClientHandler extends SimpleChannelUpstreamHandler {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(NettyWebClientHandler.class);
+	/** The listener of the current exchange, null if connection is idle. */
+	private volatile INettyWebClientListener listener;
+
+	/**
+	 * Instantiates a new netty web client handler.
+	 */
+	public NettyWebClientHandler() {
+		this.listener = null;
+	}
+
+	/**
+	 * Sets the listener of the current exchange.
+	 *
+	 * @param listener the new listener, null if connection gets idle
+	 */
+	public void setListener(INettyWebClientListener listener) {
+		this.listener = listener;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+		INettyWebClientListener currentListener = this.listener;
+		if (currentListener == null) {
+			// unsolicited input, no exchange outstanding
+			LOGGER.warn("unsolicited input from web server, no exchange outstanding");
+			return;
+		}
+		Object message = e.getMessage();
+		if (message instanceof HttpResponse) {
+			HttpResponse response = (HttpResponse) message;
+			currentListener.responseReceived(response);
+			if (response.isChunked() == false) {
+				currentListener.contentReceived(response.getContent(), true);
+			}
+			return;
+		}
+		HttpChunk chunk = (HttpChunk) message;
+		currentListener.contentReceived(chunk.getContent(), chunk.isLast());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+		super.channelClosed(ctx, e);
+		INettyWebClientListener currentListener = this.listener;
+		this.listener = null;
+		if (currentListener != null) {
+			currentListener.failed(new IOException("connection to web server closed, exchange is outstanding"));
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
+		Throwable th = e.getCause();
+		INettyWebClientListener currentListener = this.listener;
+		this.listener = null;
+		if (currentListener != null) {
+			LOGGER.warn("connection exception in pending exchange, stop operation. " + th.toString());
+			currentListener.failed(th instanceof Exception ? (Exception) th : new IOException(th.toString()));
+		} else if (th instanceof IOException) {
+			LOGGER.debug("regular disconnect", th); // web server closed idle connection
+		} else {
+			LOGGER.error("web client error", th);
+		}
+		// connection state is unknown, never reuse it
+		ctx.getChannel().close();
+	}
+}
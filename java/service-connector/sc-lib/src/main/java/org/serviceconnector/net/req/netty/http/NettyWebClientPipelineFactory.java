@@ -0,0 +1,43 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.req.netty.http;
+
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.handler.codec.http.HttpClientCodec;
+import org.jboss.netty.handler.logging.LoggingHandler;
+
+/**
+ * A factory for creating NettyWebClientPipeline objects. No chunk aggregator and no executor, content of a response is delivered to the
+ * listener as it arrives by the IO thread.
+ */
+public class NettyWebClientPipelineFactory implements ChannelPipelineFactory {
+
+	/** {@inheritDoc} */
+	@Override
+	public ChannelPipeline getPipeline() throws Exception {
+		ChannelPipeline pipeline = Channels.pipeline();
+		// logging handler
+		pipeline.addLast("LOGGER", new LoggingHandler());
+		// responsible for encoding requests and decoding responses - Netty
+		pipeline.addLast("codec", new HttpClientCodec());
+		// responsible for delivering responses to the exchange - Stabilit
+		pipeline.addLast("webClientHandler", new NettyWebClientHandler());
+		return pipeline;
+	}
+}
@@ -16,26 +16,29 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.req.netty.tcp;
 
-import java.io.ByteArrayOutputStream;
 import java.net.InetSocketAddress;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.jboss.netty.bootstrap.ClientBootstrap;
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.DefaultFileRegion;
+import org.jboss.netty.channel.FileRegion;
 import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.util.Timer;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.log.ConnectionLogger;
 import org.serviceconnector.net.CommunicationException;
+import org.serviceconnector.net.LargeMessageEncoderDecoder;
 import org.serviceconnector.net.SCMPCommunicationException;
 import org.serviceconnector.net.req.netty.NettyConnectionAdpater;
 import org.serviceconnector.net.req.netty.NettyOperationListener;
 import org.serviceconnector.scmp.ISCMPMessageCallback;
 import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.util.FileRegionInputStream;
 
 /**
  * The Class NettyTcpConnection. Concrete connection implementation with JBoss Netty for Tcp.
@@ -89,20 +92,55 @@ public class NettyTcpConnection extends NettyConnectionAdpater {
 	/** {@inheritDoc} */
 	@Override
 	public void send(SCMPMessage scmp, ISCMPMessageCallback callback) throws Exception {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(scmp);
-		encoderDecoder.encode(baos, scmp);
-
 		NettyTcpRequesterResponseHandler handler = channel.getPipeline().get(NettyTcpRequesterResponseHandler.class);
-		handler.setCallback(callback);
-
-		ChannelBuffer chBuffer = ChannelBuffers.buffer(baos.size());
-		chBuffer.writeBytes(baos.toByteArray());
-		channel.write(chBuffer);
+		if (this.multiplexed) {
+			// register callback with a new request id, the remote node echoes the id in the reply
+			String requestId = handler.registerCallback(callback);
+			scmp.setHeader(SCMPHeaderAttributeKey.REQUEST_ID, requestId);
+		} else {
+			handler.setCallback(callback);
+		}
+		ChannelBuffer chBuffer = null;
+		FileRegion fileRegion = null;
+		encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(scmp);
+		try {
+			Object body = scmp.getBody();
+			if (scmp.isPart() && scmp.isReply() == false && body instanceof FileRegionInputStream
+					&& encoderDecoder instanceof LargeMessageEncoderDecoder && ((FileRegionInputStream) body).getRemaining() > 0) {
+				// part of a local file - body is transferred from the file straight into the socket, not copied through the heap
+				FileRegionInputStream inStream = (FileRegionInputStream) body;
+				int bodyLength = (int) Math.min(scmp.getPartSize(), inStream.getRemaining());
+				chBuffer = ((LargeMessageEncoderDecoder) encoderDecoder).encodeFileRegionHead(scmp, bodyLength);
+				// file channel belongs to the stream, it must not be released after transfer
+				fileRegion = new DefaultFileRegion(inStream.getChannel(), inStream.getPosition(), bodyLength, false);
+				inStream.skip(bodyLength);
+			} else {
+				chBuffer = encoderDecoder.encode(scmp);
+			}
+		} catch (Exception ex) {
+			if (this.multiplexed) {
+				// request never left - forget about it
+				handler.removeCallback(callback);
+			}
+			throw ex;
+		}
 		if (ConnectionLogger.isEnabledFull()) {
-			ConnectionLogger.logWriteBuffer(this.getClass().getSimpleName(), this.remotSocketAddress.getHostName(), this.remotSocketAddress.getPort(),
-					chBuffer.toByteBuffer().array(), 0, chBuffer.toByteBuffer().array().length);
+			ConnectionLogger.logWriteBuffer(this.getClass().getSimpleName(), this.remotSocketAddress.getHostName(), this.remotSocketAddress.getPort(), chBuffer);
 		}
+		// head and file region of a message must not interleave with writes of other requests on a multiplexed connection
+		synchronized (this.channel) {
+			channel.write(chBuffer);
+			if (fileRegion != null) {
+				channel.write(fileRegion);
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean cancelRequest(ISCMPMessageCallback callback) {
+		NettyTcpRequesterResponseHandler handler = channel.getPipeline().get(NettyTcpRequesterResponseHandler.class);
+		return handler.removeCallback(callback);
 	}
 
 	@Override
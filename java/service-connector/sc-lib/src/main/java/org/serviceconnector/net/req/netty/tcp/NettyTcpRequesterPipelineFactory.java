@@ -69,7 +69,7 @@ public class NettyTcpRequesterPipelineFactory implements ChannelPipelineFactory
 		// executer to run NettyTcpRequesterResponseHandler in own thread
 		pipeline.addLast("executor", new ExecutionHandler(AppContext.getSCWorkerThreadPool()));
 		// responsible for handle response - Stabilit
-		pipeline.addLast("requesterResponseHandler", new NettyTcpRequesterResponseHandler());
+		pipeline.addLast("requesterResponseHandler", new NettyTcpRequesterResponseHandler(this.context.getConnection().isMultiplexed()));
 		return pipeline;
 	}
 }
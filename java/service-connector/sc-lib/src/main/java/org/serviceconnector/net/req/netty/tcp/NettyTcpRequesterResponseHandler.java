@@ -16,9 +16,15 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.req.netty.tcp;
 
-import java.io.ByteArrayInputStream;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelStateEvent;
 import org.jboss.netty.channel.ExceptionEvent;
@@ -27,9 +33,12 @@ import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.log.ConnectionLogger;
 import org.serviceconnector.net.IEncoderDecoder;
+import org.serviceconnector.net.SCMPCommunicationException;
 import org.serviceconnector.net.connection.DisconnectException;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.service.SCCallbackException;
 import org.serviceconnector.util.Statistics;
@@ -37,7 +46,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The Class NettyTcpRequesterResponseHandler.
+ * The Class NettyTcpRequesterResponseHandler. Delivers replies to the callback of the outstanding request. A multiplexed handler keeps several outstanding requests and
+ * correlates replies by the request id header.
  *
  * @author JTraber
  */
@@ -47,42 +57,142 @@ public class NettyTcpRequesterResponseHandler extends SimpleChannelUpstreamHandl
 	private static final Logger LOGGER = LoggerFactory.getLogger(NettyTcpRequesterResponseHandler.class);
 	/** The scmp callback. */
 	private ISCMPMessageCallback scmpCallback;
-	/** The pending request. */
-	private volatile boolean pendingRequest;
+	/** The pending replies, number of replies outstanding for the callback. Parts of a windowed large request are sent ahead of their replies. */
+	private final AtomicInteger pendingReplies;
+	/** The multiplexed flag, marks if several requests are outstanding at the same time. */
+	private final boolean multiplexed;
+	/** The pending requests of a multiplexed handler, callbacks by request id. Guarded by its own monitor together with the request ids by callback. */
+	private final Map<String, ISCMPMessageCallback> pendingRequests;
+	/** The request ids by callback of a multiplexed handler, callback of a windowed large request is registered for each part. */
+	private final Map<ISCMPMessageCallback, List<String>> requestIdsByCallback;
+	/** The request id sequence of a multiplexed handler. */
+	private final AtomicInteger requestIdSequence;
 
 	/**
 	 * Instantiates a new netty tcp requester response handler.
 	 */
 	public NettyTcpRequesterResponseHandler() {
+		this(false);
+	}
+
+	/**
+	 * Instantiates a new netty tcp requester response handler.
+	 *
+	 * @param multiplexed the multiplexed flag
+	 */
+	public NettyTcpRequesterResponseHandler(boolean multiplexed) {
 		this.scmpCallback = null;
-		this.pendingRequest = false;
+		this.pendingReplies = new AtomicInteger();
+		this.multiplexed = multiplexed;
+		this.pendingRequests = new HashMap<String, ISCMPMessageCallback>();
+		this.requestIdsByCallback = new IdentityHashMap<ISCMPMessageCallback, List<String>>();
+		this.requestIdSequence = new AtomicInteger();
 	}
 
 	/**
-	 * Sets the callback.
+	 * Sets the callback. Setting the same callback again while its replies are outstanding adds an outstanding reply.
 	 *
 	 * @param callback the new callback
 	 */
 	public void setCallback(ISCMPMessageCallback callback) {
+		if (this.scmpCallback == callback && this.pendingReplies.get() > 0) {
+			this.pendingReplies.incrementAndGet();
+			return;
+		}
 		this.scmpCallback = callback;
-		this.pendingRequest = true;
+		this.pendingReplies.set(1);
+	}
+
+	/**
+	 * Registers the callback of a request on a multiplexed connection.
+	 *
+	 * @param callback the callback
+	 * @return the request id to be sent with the request
+	 */
+	public String registerCallback(ISCMPMessageCallback callback) {
+		String requestId = String.valueOf(this.requestIdSequence.incrementAndGet());
+		synchronized (this.pendingRequests) {
+			this.pendingRequests.put(requestId, callback);
+			List<String> requestIds = this.requestIdsByCallback.get(callback);
+			if (requestIds == null) {
+				requestIds = new ArrayList<String>(1);
+				this.requestIdsByCallback.put(callback, requestIds);
+			}
+			requestIds.add(requestId);
+		}
+		return requestId;
+	}
+
+	/**
+	 * Removes the callback of outstanding requests on a multiplexed connection, called when requests timed out or never left.
+	 *
+	 * @param callback the callback
+	 * @return true, if outstanding requests of the callback have been removed, false if they have been replied already
+	 */
+	public boolean removeCallback(ISCMPMessageCallback callback) {
+		synchronized (this.pendingRequests) {
+			List<String> requestIds = this.requestIdsByCallback.remove(callback);
+			if (requestIds == null) {
+				return false;
+			}
+			for (String requestId : requestIds) {
+				this.pendingRequests.remove(requestId);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Gets the number of outstanding requests on a multiplexed connection.
+	 *
+	 * @return the pending requests count
+	 */
+	public int getPendingRequestsCount() {
+		synchronized (this.pendingRequests) {
+			return this.pendingRequests.size();
+		}
+	}
+
+	/**
+	 * Removes the outstanding request of a request id.
+	 *
+	 * @param requestId the request id
+	 * @return the callback of the request, null if no request is outstanding for the request id
+	 */
+	private ISCMPMessageCallback removeRequest(String requestId) {
+		synchronized (this.pendingRequests) {
+			ISCMPMessageCallback callback = this.pendingRequests.remove(requestId);
+			if (callback == null) {
+				return null;
+			}
+			List<String> requestIds = this.requestIdsByCallback.get(callback);
+			if (requestIds != null) {
+				requestIds.remove(requestId);
+				if (requestIds.isEmpty()) {
+					this.requestIdsByCallback.remove(callback);
+				}
+			}
+			return callback;
+		}
 	}
 
 	@Override
 	public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
-		if (this.pendingRequest) {
-			this.pendingRequest = false;
+		if (this.multiplexed) {
+			this.multiplexedMessageReceived(ctx, e);
+			return;
+		}
+		if (this.decrementPendingReplies()) {
 			SCMPMessage ret = null;
 			try {
-				byte[] buffer = (byte[]) e.getMessage();
-				Statistics.getInstance().incrementTotalMessages(buffer.length);
+				ChannelBuffer buffer = (ChannelBuffer) e.getMessage();
+				Statistics.getInstance().incrementTotalMessages(buffer.readableBytes());
 				if (ConnectionLogger.isEnabledFull()) {
 					InetSocketAddress remoteAddress = (InetSocketAddress) ctx.getChannel().getRemoteAddress();
-					ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), remoteAddress.getHostName(), remoteAddress.getPort(), buffer, 0, buffer.length);
+					ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), remoteAddress.getHostName(), remoteAddress.getPort(), buffer);
 				}
-				ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
 				IEncoderDecoder encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(buffer);
-				ret = (SCMPMessage) encoderDecoder.decode(bais);
+				ret = (SCMPMessage) encoderDecoder.decode(buffer);
 				NettyTcpRequesterResponseHandler.this.scmpCallback.receive(ret);
 			} catch (Throwable th) {
 				LOGGER.error("receive message", th);
@@ -101,10 +211,136 @@ public class NettyTcpRequesterResponseHandler extends SimpleChannelUpstreamHandl
 		LOGGER.error("unsolicited input, message not expected, no reply was outstanding!");
 	}
 
+	/**
+	 * Decrements the pending replies.
+	 *
+	 * @return true, if a reply was outstanding
+	 */
+	private boolean decrementPendingReplies() {
+		while (true) {
+			int pending = this.pendingReplies.get();
+			if (pending <= 0) {
+				return false;
+			}
+			if (this.pendingReplies.compareAndSet(pending, pending - 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Message received on a multiplexed connection. Reply is delivered to the callback registered for the echoed request id.
+	 *
+	 * @param ctx the channel handler context
+	 * @param e the message event
+	 */
+	private void multiplexedMessageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+		SCMPMessage ret = null;
+		try {
+			ChannelBuffer buffer = (ChannelBuffer) e.getMessage();
+			Statistics.getInstance().incrementTotalMessages(buffer.readableBytes());
+			if (ConnectionLogger.isEnabledFull()) {
+				InetSocketAddress remoteAddress = (InetSocketAddress) ctx.getChannel().getRemoteAddress();
+				ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), remoteAddress.getHostName(), remoteAddress.getPort(), buffer);
+			}
+			IEncoderDecoder encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(buffer);
+			ret = (SCMPMessage) encoderDecoder.decode(buffer);
+		} catch (Throwable th) {
+			// reply can not be correlated - unable to inform any callback
+			LOGGER.error("receive message", th);
+			return;
+		}
+		String requestId = ret.getHeader(SCMPHeaderAttributeKey.REQUEST_ID);
+		ISCMPMessageCallback callback = null;
+		if (requestId != null) {
+			callback = this.removeRequest(requestId);
+			// request id is only valid on this connection - do not pass it to higher layers
+			ret.removeHeader(SCMPHeaderAttributeKey.REQUEST_ID);
+		} else {
+			int pendingRequestsCount = 0;
+			synchronized (this.pendingRequests) {
+				pendingRequestsCount = this.pendingRequests.size();
+				if (pendingRequestsCount == 1) {
+					// remote node does not echo request id, only one request outstanding - reply belongs to it
+					callback = this.removeRequest(this.pendingRequests.keySet().iterator().next());
+				}
+			}
+			if (pendingRequestsCount > 1) {
+				// remote node does not echo request id, reply can not be correlated - fail the connection instead of guessing
+				this.failPendingRequests(ctx, new SCMPCommunicationException(SCMPError.CONNECTION_EXCEPTION,
+						"reply without request id on multiplexed connection, requests outstanding=" + pendingRequestsCount));
+				return;
+			}
+		}
+		if (callback == null) {
+			// unsolicited input, request timed out or remote node does not echo request id
+			LOGGER.warn("unsolicited input, no reply was outstanding for request id=" + requestId);
+			return;
+		}
+		try {
+			callback.receive(ret);
+		} catch (Throwable th) {
+			LOGGER.error("receive message", th);
+			if ((th instanceof Exception) == false) {
+				try {
+					SCCallbackException ex = new SCCallbackException("exception raised in callback", th);
+					callback.receive(ex);
+				} catch (Throwable th1) {
+					LOGGER.error("receive exception", th1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all outstanding requests of a multiplexed connection.
+	 *
+	 * @return the callbacks of the removed requests
+	 */
+	private List<ISCMPMessageCallback> removePendingRequests() {
+		synchronized (this.pendingRequests) {
+			List<ISCMPMessageCallback> callbacks = new ArrayList<ISCMPMessageCallback>(this.pendingRequests.values());
+			this.pendingRequests.clear();
+			this.requestIdsByCallback.clear();
+			return callbacks;
+		}
+	}
+
+	/**
+	 * Fails all outstanding requests of a multiplexed connection and closes the connection.
+	 *
+	 * @param ctx the channel handler context
+	 * @param ex the exception
+	 */
+	private void failPendingRequests(ChannelHandlerContext ctx, Exception ex) {
+		List<ISCMPMessageCallback> callbacks = this.removePendingRequests();
+		LOGGER.error("connection failed with " + callbacks.size() + " pending requests, stop operations. " + ex.toString());
+		for (ISCMPMessageCallback callback : callbacks) {
+			try {
+				callback.receive(ex);
+			} catch (Throwable throwable) {
+				LOGGER.error("receive exception", throwable);
+			}
+		}
+		ctx.getChannel().close();
+	}
+
 	@Override
 	public void channelDisconnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
-		if (this.pendingRequest) {
-			this.pendingRequest = false;
+		if (this.multiplexed) {
+			List<ISCMPMessageCallback> callbacks = this.removePendingRequests();
+			if (callbacks.isEmpty() == false) {
+				LOGGER.warn("connection disconnect with " + callbacks.size() + " pending requests, stop operations.");
+			}
+			for (ISCMPMessageCallback callback : callbacks) {
+				DisconnectException ex = new DisconnectException("Connection disconnect, reply is outstanding. Operation stopped.");
+				try {
+					callback.receive(ex);
+				} catch (Throwable throwable) {
+					LOGGER.error("receive exception", throwable);
+				}
+			}
+		} else if (this.pendingReplies.getAndSet(0) > 0) {
 			LOGGER.warn("connection disconnect in pending request state, stop operation."); // regular disconnect
 			if (ConnectionLogger.isEnabled()) {
 				InetSocketAddress remoteSocketAddress = (InetSocketAddress) ctx.getChannel().getRemoteAddress();
@@ -129,8 +365,18 @@ public class NettyTcpRequesterResponseHandler extends SimpleChannelUpstreamHandl
 		Throwable th = e.getCause();
 		if (th instanceof Exception) {
 			Exception ex = (Exception) th;
-			if (this.pendingRequest) {
-				this.pendingRequest = false;
+			if (this.multiplexed && this.getPendingRequestsCount() > 0) {
+				LOGGER.warn("connection exception with pending requests, stop operations. " + ex.toString());
+				for (ISCMPMessageCallback callback : this.removePendingRequests()) {
+					try {
+						callback.receive(ex);
+					} catch (Throwable throwable) {
+						LOGGER.error("receive exception", throwable);
+					}
+				}
+				return;
+			}
+			if (this.pendingReplies.getAndSet(0) > 0) {
 				LOGGER.warn("connection exception in pending request state, stop operation. " + ex.toString());
 				try {
 					NettyTcpRequesterResponseHandler.this.scmpCallback.receive(ex);
@@ -155,6 +401,7 @@ public class NettyTcpRequesterResponseHandler extends SimpleChannelUpstreamHandl
 	 * Connection disconnect. Method gets called when connection got disconnected for some reason. This avoids receiving messages in disconnect procedure.
 	 */
 	public void connectionDisconnect() {
-		this.pendingRequest = false;
+		this.pendingReplies.set(0);
+		this.removePendingRequests();
 	}
 }
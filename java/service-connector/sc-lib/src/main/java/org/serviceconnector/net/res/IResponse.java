@@ -50,4 +50,11 @@ public interface IResponse {
 	 * @return true, if is large
 	 */
 	public boolean isLarge();
+
+	/**
+	 * Sets the request id. The request id of a multiplexed request is echoed in the response, allows the requester to correlate the reply.
+	 *
+	 * @param requestId the new request id
+	 */
+	public void setRequestId(String requestId);
 }
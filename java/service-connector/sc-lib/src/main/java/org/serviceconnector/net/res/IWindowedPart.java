@@ -0,0 +1,34 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.res;
+
+/**
+ * The Interface IWindowedPart. Part of a windowed large request handed over to the SCMPWindowedPartSequencer. A part is either processed in
+ * sequence or discarded, a discarded part still gets replied that the requester does not wait for it.
+ */
+public interface IWindowedPart {
+
+	/**
+	 * Process the part, its predecessor has been completed.
+	 */
+	public void process();
+
+	/**
+	 * Discard the part, it does not belong to a running sequence any more or is out of window. The part gets replied with a fault.
+	 */
+	public void discard();
+}
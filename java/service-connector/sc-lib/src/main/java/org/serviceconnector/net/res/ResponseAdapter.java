@@ -16,15 +16,13 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.res;
 
-import java.io.ByteArrayOutputStream;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.net.IEncoderDecoder;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 
 /**
@@ -44,6 +42,8 @@ public abstract class ResponseAdapter implements IResponse {
 	protected SCMPMessage scmp;
 	/** The event from Netty framework. */
 	protected Channel channel;
+	/** The request id, echoed in the response of a multiplexed request. */
+	protected String requestId;
 
 	/**
 	 * Instantiates a new response adapter.
@@ -53,6 +53,7 @@ public abstract class ResponseAdapter implements IResponse {
 	public ResponseAdapter(Channel channel) {
 		this.scmp = null;
 		this.channel = channel;
+		this.requestId = null;
 	}
 
 	/** {@inheritDoc} */
@@ -66,11 +67,12 @@ public abstract class ResponseAdapter implements IResponse {
 	 * @throws Exception the exception
 	 */
 	public ChannelBuffer getBuffer() throws Exception {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		if (this.requestId != null) {
+			// multiplexed request - echo request id
+			this.scmp.setHeader(SCMPHeaderAttributeKey.REQUEST_ID, this.requestId);
+		}
 		encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(this.scmp);
-		encoderDecoder.encode(baos, scmp);
-		byte[] buf = baos.toByteArray();
-		return ChannelBuffers.copiedBuffer(buf);
+		return encoderDecoder.encode(scmp);
 	}
 
 	/** {@inheritDoc} */
@@ -97,4 +99,10 @@ public abstract class ResponseAdapter implements IResponse {
 		}
 		return this.scmp.isLargeMessage();
 	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setRequestId(String requestId) {
+		this.requestId = requestId;
+	}
 }
@@ -17,7 +17,6 @@
 package org.serviceconnector.net.res;
 
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -27,6 +26,7 @@ import org.serviceconnector.scmp.SCMPCompositeReceiver;
 import org.serviceconnector.scmp.SCMPCompositeSender;
 import org.serviceconnector.scmp.SCMPMessageSequenceNr;
 import org.serviceconnector.util.ITimeout;
+import org.serviceconnector.util.TimeoutScheduler;
 import org.serviceconnector.util.TimeoutWrapper;
 
 /**
@@ -39,10 +39,10 @@ public final class SCMPSessionCompositeRegistry extends Registry<String, SCMPSes
 	/** The Constant LOGGER. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(SCMPSessionCompositeRegistry.class);
 	/** The timer. Timer instance is responsible to observe large message timeouts. */
-	private ScheduledThreadPoolExecutor largeMessageScheduler;
+	private TimeoutScheduler largeMessageScheduler;
 
 	public SCMPSessionCompositeRegistry() {
-		this.largeMessageScheduler = new ScheduledThreadPoolExecutor(1);
+		this.largeMessageScheduler = new TimeoutScheduler("LargeMessageTimeout");
 	}
 
 	/**
@@ -156,7 +156,6 @@ public final class SCMPSessionCompositeRegistry extends Registry<String, SCMPSes
 		item.setSCMPLargeResponse(null);
 	}
 
-	@SuppressWarnings("unchecked")
 	private void scheduleLargeMessageTimeout(SCMPSessionCompositeItem sessionComposite) {
 		if (sessionComposite == null || sessionComposite.getLargeMessageTimeoutMillis() == 0) {
 			// no scheduling of session timeout
@@ -168,8 +167,7 @@ public final class SCMPSessionCompositeRegistry extends Registry<String, SCMPSes
 		// sets up session timeout
 		TimeoutWrapper sessionTimeouter = new TimeoutWrapper(new LargeMessageTimeout(sessionComposite));
 		// schedule sessionTimeouter in registry timer
-		ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) this.largeMessageScheduler.schedule(sessionTimeouter,
-				sessionComposite.getLargeMessageTimeoutMillis(), TimeUnit.MILLISECONDS);
+		ScheduledFuture<TimeoutWrapper> timeout = this.largeMessageScheduler.schedule(sessionTimeouter, sessionComposite.getLargeMessageTimeoutMillis(), TimeUnit.MILLISECONDS);
 		sessionComposite.setTimeout(timeout);
 	}
 
@@ -184,7 +182,6 @@ public final class SCMPSessionCompositeRegistry extends Registry<String, SCMPSes
 		}
 		LOGGER.trace("cancel large message timeout sid=" + sessionComposite.getSessionId());
 		sessionTimeout.cancel(false);
-		this.largeMessageScheduler.purge();
 		// important to set timeouter null - rescheduling of same instance not possible
 		sessionComposite.setTimeout(null);
 	}
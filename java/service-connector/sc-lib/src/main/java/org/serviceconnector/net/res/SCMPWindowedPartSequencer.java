@@ -0,0 +1,180 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.net.res;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.serviceconnector.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class SCMPWindowedPartSequencer. Parts of a windowed large request arrive ahead of their acknowledgements and are picked up by
+ * concurrent worker threads. The sequencer processes the parts of a session one at a time in the order of their part sequence number, a
+ * part arriving early waits until its predecessor has been acknowledged. The first part of a request is processed before the requester
+ * sends any further part, it starts a new sequence and discards what is left of an earlier one. Discarded parts are handed back to be
+ * replied with a fault, the requester never waits for a part dropped silently.
+ */
+public class SCMPWindowedPartSequencer {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(SCMPWindowedPartSequencer.class);
+
+	/** The sequences by session id. */
+	private final ConcurrentMap<String, PartSequence> sequences;
+	/** The executor running parts which had to wait for their predecessor. */
+	private final Executor executor;
+
+	/**
+	 * Instantiates a new windowed part sequencer.
+	 *
+	 * @param executor the executor running waiting parts
+	 */
+	public SCMPWindowedPartSequencer(Executor executor) {
+		this.sequences = new ConcurrentHashMap<String, PartSequence>();
+		this.executor = executor;
+	}
+
+	/**
+	 * Offers a part for processing.
+	 *
+	 * @param sessionId the session id
+	 * @param partNr the part sequence number
+	 * @param part the part
+	 * @return true, if the part has to be processed right now by the caller. False if it has been put aside, it gets processed by the executor
+	 *         after its predecessor has been completed. A part not belonging to a sequence any more or out of window gets discarded.
+	 */
+	public boolean offer(String sessionId, int partNr, IWindowedPart part) {
+		if (partNr == 1) {
+			PartSequence sequence = new PartSequence();
+			sequence.running = true;
+			PartSequence oldSequence = this.sequences.put(sessionId, sequence);
+			if (oldSequence != null) {
+				LOGGER.warn("windowed large request restarted, discard old sequence sid=" + sessionId);
+				SCMPWindowedPartSequencer.discard(oldSequence);
+			}
+			return true;
+		}
+		PartSequence sequence = this.sequences.get(sessionId);
+		if (sequence == null) {
+			// sequence has been aborted, requester abandons the request at the fault reply
+			LOGGER.warn("part of an aborted windowed large request discarded sid=" + sessionId + " partNr=" + partNr);
+			part.discard();
+			return false;
+		}
+		synchronized (sequence) {
+			if (partNr >= sequence.nextPartNr && partNr < sequence.nextPartNr + Constants.MAX_LARGE_MESSAGE_WINDOW_SIZE) {
+				if (sequence.running == false && partNr == sequence.nextPartNr) {
+					sequence.running = true;
+					return true;
+				}
+				sequence.waitingParts.put(partNr, part);
+				return false;
+			}
+		}
+		LOGGER.warn("part out of window discarded sid=" + sessionId + " partNr=" + partNr);
+		part.discard();
+		return false;
+	}
+
+	/**
+	 * Completes a part, the acknowledgement has been written. The successor gets processed if it is already waiting.
+	 *
+	 * @param sessionId the session id
+	 * @param partNr the part sequence number
+	 * @param lastPart the last part flag, sequence ends with the last part
+	 */
+	public void complete(String sessionId, int partNr, boolean lastPart) {
+		PartSequence sequence = this.sequences.get(sessionId);
+		if (sequence == null) {
+			return;
+		}
+		if (lastPart) {
+			this.sequences.remove(sessionId, sequence);
+			return;
+		}
+		final IWindowedPart nextPart;
+		synchronized (sequence) {
+			sequence.nextPartNr = partNr + 1;
+			nextPart = sequence.waitingParts.remove(sequence.nextPartNr);
+			sequence.running = nextPart != null;
+		}
+		if (nextPart != null) {
+			this.executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					nextPart.process();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Aborts the sequence of a session. Waiting parts get discarded.
+	 *
+	 * @param sessionId the session id
+	 */
+	public void abort(String sessionId) {
+		PartSequence sequence = this.sequences.remove(sessionId);
+		if (sequence != null) {
+			SCMPWindowedPartSequencer.discard(sequence);
+		}
+	}
+
+	/**
+	 * Discards the waiting parts of a sequence no longer running.
+	 *
+	 * @param sequence the sequence
+	 */
+	private static void discard(PartSequence sequence) {
+		List<IWindowedPart> discardedParts = null;
+		synchronized (sequence) {
+			discardedParts = new ArrayList<IWindowedPart>(sequence.waitingParts.values());
+			sequence.waitingParts.clear();
+		}
+		for (IWindowedPart discardedPart : discardedParts) {
+			discardedPart.discard();
+		}
+	}
+
+	/**
+	 * Gets the number of sessions with a running sequence.
+	 *
+	 * @return the number of sequences
+	 */
+	public int getSequenceCount() {
+		return this.sequences.size();
+	}
+
+	/**
+	 * The Class PartSequence. State of the windowed large request of a session.
+	 */
+	private static final class PartSequence {
+		/** The number of the part to be processed next. */
+		private int nextPartNr = 1;
+		/** The running flag, a part is being processed. */
+		private boolean running = false;
+		/** The parts which arrived ahead of their predecessor. */
+		private final Map<Integer, IWindowedPart> waitingParts = new HashMap<Integer, IWindowedPart>();
+	}
+}
@@ -16,7 +16,6 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.res.netty;
 
-import java.io.ByteArrayInputStream;
 import java.net.InetSocketAddress;
 
 import org.slf4j.Logger;
@@ -57,17 +56,13 @@ public class NettyHttpRequest extends RequestAdapter {
 	/** {@inheritDoc} */
 	@Override
 	public void load() throws Exception {
-		ChannelBuffer channelBuffer = request.getContent();
-		byte[] buffer = new byte[channelBuffer.readableBytes()];
-		channelBuffer.readBytes(buffer);
-		Statistics.getInstance().incrementTotalMessages(buffer.length);
+		ChannelBuffer buffer = request.getContent();
+		Statistics.getInstance().incrementTotalMessages(buffer.readableBytes());
 		if (ConnectionLogger.isEnabledFull()) {
-			ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), this.getRemoteSocketAddress().getHostName(), this.getRemoteSocketAddress().getPort(), buffer, 0,
-					buffer.length);
+			ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), this.getRemoteSocketAddress().getHostName(), this.getRemoteSocketAddress().getPort(), buffer);
 		}
 		IEncoderDecoder encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(buffer);
-		ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
-		SCMPMessage message = (SCMPMessage) encoderDecoder.decode(bais);
+		SCMPMessage message = (SCMPMessage) encoderDecoder.decode(buffer);
 		this.setMessage(message);
 	}
 }
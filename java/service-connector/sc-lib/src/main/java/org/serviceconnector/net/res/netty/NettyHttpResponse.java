@@ -22,12 +22,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
-import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
-import org.jboss.netty.handler.codec.http.HttpResponse;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.jboss.netty.handler.codec.http.HttpVersion;
 import org.serviceconnector.log.ConnectionLogger;
+import org.serviceconnector.net.HttpHeadBlock;
 import org.serviceconnector.net.res.ResponseAdapter;
 
 /**
@@ -38,6 +37,9 @@ public class NettyHttpResponse extends ResponseAdapter {
 	/** The Constant LOGGER. */
 	@SuppressWarnings("unused")
 	private static final Logger LOGGER = LoggerFactory.getLogger(NettyHttpResponse.class);
+	/** The Constant HEAD_BLOCK, status line and fixed header fields of responses encoded once. */
+	private static final HttpHeadBlock HEAD_BLOCK = new HttpHeadBlock(HttpVersion.HTTP_1_1 + " " + HttpResponseStatus.OK, "Access-Control-Allow-Origin", "*",
+			HttpHeaders.Names.CACHE_CONTROL, HttpHeaders.Values.NO_CACHE, HttpHeaders.Names.PRAGMA, HttpHeaders.Values.NO_CACHE);
 
 	/**
 	 * Instantiates a new netty http response.
@@ -51,20 +53,14 @@ public class NettyHttpResponse extends ResponseAdapter {
 	/** {@inheritDoc} */
 	@Override
 	public void write() throws Exception {
-		// Build the response object.
-		HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
 		ChannelBuffer buffer = getBuffer();
-		httpResponse.setContent(buffer);
-		httpResponse.headers().add("Access-Control-Allow-Origin", "*");
-		httpResponse.headers().add(HttpHeaders.Names.CONTENT_TYPE, scmp.getBodyType().getMimeType());
-		httpResponse.headers().add(HttpHeaders.Names.CACHE_CONTROL, HttpHeaders.Values.NO_CACHE);
-		httpResponse.headers().add(HttpHeaders.Names.PRAGMA, HttpHeaders.Values.NO_CACHE);
-		httpResponse.headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buffer.readableBytes()));
-		// Write the response.
-		channel.write(httpResponse);
+		// head and encoded message are written as one buffer, message is not copied
+		ChannelBuffer httpResponse = HEAD_BLOCK.encode(scmp.getBodyType().getMimeType(), buffer);
 		if (ConnectionLogger.isEnabledFull()) {
 			ConnectionLogger.logWriteBuffer(this.getClass().getSimpleName(), ((InetSocketAddress) this.channel.getRemoteAddress()).getHostName(),
-					((InetSocketAddress) this.channel.getRemoteAddress()).getPort(), buffer.toByteBuffer().array(), 0, buffer.toByteBuffer().array().length);
+					((InetSocketAddress) this.channel.getRemoteAddress()).getPort(), buffer);
 		}
+		// Write the response.
+		channel.write(httpResponse);
 	}
 }
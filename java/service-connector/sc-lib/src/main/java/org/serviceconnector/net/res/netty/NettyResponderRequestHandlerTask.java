@@ -16,6 +16,8 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.res.netty;
 
+import java.util.concurrent.Executor;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
@@ -24,9 +26,11 @@ import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.log.PerformanceLogger;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.res.IResponderCallback;
+import org.serviceconnector.net.res.IWindowedPart;
 import org.serviceconnector.net.res.IResponse;
 import org.serviceconnector.net.res.ResponderRegistry;
 import org.serviceconnector.net.res.SCMPSessionCompositeRegistry;
+import org.serviceconnector.net.res.SCMPWindowedPartSequencer;
 import org.serviceconnector.scmp.HasFaultResponseException;
 import org.serviceconnector.scmp.SCMPCompositeReceiver;
 import org.serviceconnector.scmp.SCMPCompositeSender;
@@ -48,11 +52,28 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 	private static final Logger LOGGER = LoggerFactory.getLogger(NettyResponderRequestHandlerTask.class);
 	/** The composite registry. */
 	private static SCMPSessionCompositeRegistry compositeRegistry = AppContext.getSCMPSessionCompositeRegistry();
+	/** The part sequencer, orders the parts of windowed large requests. */
+	private static SCMPWindowedPartSequencer partSequencer = new SCMPWindowedPartSequencer(new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			AppContext.getSCWorkerThreadPool().execute(command);
+		}
+	});
 
 	/** The request. */
 	private IRequest request;
 	/** The response. */
 	private IResponse response;
+	/** The session id of a windowed part. */
+	private String partSessionId;
+	/** The part sequence number of a windowed large request, 0 if request is not a windowed part. */
+	private int partNr;
+	/** The window size granted with the acknowledgement of the first part. */
+	private int grantedWindowSize;
+	/** The last part flag of a windowed large request. */
+	private boolean lastPart;
+	/** The part completed flag, part has been acknowledged. */
+	private boolean partCompleted;
 
 	/**
 	 * Instantiates a new netty responder request handler task.
@@ -66,12 +87,47 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 	}
 
 	/**
-	 * Process the request.
+	 * Process the request. A part of a windowed large request might arrive ahead of its predecessor, it gets processed after the predecessor
+	 * has been acknowledged.
 	 */
 	public void process() {
 		try {
 			// loading message
 			request.load();
+			SCMPMessage scmpReq = request.getMessage();
+			// request id of a multiplexed request must be echoed, take it off before request gets forwarded
+			response.setRequestId(scmpReq.getHeader(SCMPHeaderAttributeKey.REQUEST_ID));
+			scmpReq.removeHeader(SCMPHeaderAttributeKey.REQUEST_ID);
+			this.partNr = this.takeWindowedPartNr(scmpReq);
+			if (this.partNr > 0) {
+				IWindowedPart part = new IWindowedPart() {
+					@Override
+					public void process() {
+						NettyResponderRequestHandlerTask.this.processRequest();
+					}
+
+					@Override
+					public void discard() {
+						NettyResponderRequestHandlerTask.this.discardPart();
+					}
+				};
+				if (NettyResponderRequestHandlerTask.partSequencer.offer(this.partSessionId, this.partNr, part) == false) {
+					// part waits for its predecessor or has been discarded
+					return;
+				}
+			}
+		} catch (Exception ex) {
+			this.writeErrorResponse(ex);
+			return;
+		}
+		this.processRequest();
+	}
+
+	/**
+	 * Process the loaded request.
+	 */
+	private void processRequest() {
+		try {
 			SCMPMessage scmpReq = request.getMessage();
 			String sessionId = scmpReq.getSessionId();
 			SCMPMessageSequenceNr msgSequenceNr = NettyResponderRequestHandlerTask.compositeRegistry.getSCMPMsgSequenceNr(sessionId);
@@ -79,7 +135,7 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 			if (scmpReq.isKeepAlive()) {
 				scmpReq.setIsReply(true);
 				response.setSCMP(scmpReq);
-				response.write();
+				this.writeResponse();
 				return;
 			}
 			if (scmpReq.isFault()) {
@@ -115,7 +171,7 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 						msgSequenceNr.incrementAndGetMsgSequenceNr();
 						nextSCMP.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, msgSequenceNr.getCurrentNr());
 						response.setSCMP(nextSCMP);
-						response.write();
+						this.writeResponse();
 						return;
 					}
 					NettyResponderRequestHandlerTask.compositeRegistry.removeSCMPLargeResponse(sessionId);
@@ -125,7 +181,7 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 
 				if (largeRequest != null && largeRequest.isComplete() == false) {
 					// request is not complete yet
-					response.write();
+					this.writeResponse();
 					return;
 				}
 				// removes largeResponse - request is complete don't need to know preceding messages any more
@@ -138,26 +194,123 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 			PerformanceLogger.beginThreadBound();
 			command.run(request, response, this);
 			PerformanceLogger.endThreadBound(command.getKey().getValue());
-		} catch (HasFaultResponseException ex) {
+		} catch (Exception ex) {
+			this.writeErrorResponse(ex);
+		}
+	}
+
+	/**
+	 * Discards a windowed part, it does not belong to a running sequence any more or is out of window. The part gets replied with a fault, the
+	 * sequence is left untouched.
+	 */
+	private void discardPart() {
+		try {
+			SCMPMessage scmpReq = request.getMessage();
+			SCMPMessageFault scmpFault = new SCMPMessageFault(scmpReq.getSCMPVersion(), SCMPError.BAD_REQUEST,
+					"windowed large request part discarded partNr=" + this.partNr);
+			scmpFault.setMessageType(scmpReq.getMessageType());
+			scmpFault.setSessionId(this.partSessionId);
+			scmpFault.setLocalDateTime();
+			response.setSCMP(scmpFault);
+			this.partCompleted = true;
+			this.writeResponse();
+		} catch (Exception ex) {
+			LOGGER.error("Sending a response failed.", ex);
+		}
+	}
+
+	/**
+	 * Write error response.
+	 *
+	 * @param ex the exception raised processing the request
+	 */
+	private void writeErrorResponse(Exception ex) {
+		if (ex instanceof HasFaultResponseException) {
 			// exception carries response inside
-			LOGGER.warn("run " + ex.toString());
-			ex.setSessionIdAndServiceName(request);
-			ex.setFaultResponse(response);
-			try {
-				response.write();
-			} catch (Exception e) {
-				LOGGER.error("Sending a response failed.", e);
-			}
-		} catch (Exception e2) {
-			LOGGER.error("run ", e2);
-			SCMPMessageFault scmpFault = new SCMPMessageFault(SCMPVersion.LOWEST, SCMPError.SERVER_ERROR, e2.getMessage());
+			HasFaultResponseException faultEx = (HasFaultResponseException) ex;
+			LOGGER.warn("run " + faultEx.toString());
+			faultEx.setSessionIdAndServiceName(request);
+			faultEx.setFaultResponse(response);
+		} else {
+			LOGGER.error("run ", ex);
+			SCMPMessageFault scmpFault = new SCMPMessageFault(SCMPVersion.LOWEST, SCMPError.SERVER_ERROR, ex.getMessage());
 			scmpFault.setMessageType(SCMPMsgType.UNDEFINED);
 			scmpFault.setLocalDateTime();
 			response.setSCMP(scmpFault);
-			try {
-				response.write();
-			} catch (Exception ex) {
-				LOGGER.error("Sending a response failed.", ex);
+		}
+		try {
+			this.writeResponse();
+		} catch (Exception e) {
+			LOGGER.error("Sending a response failed.", e);
+		}
+	}
+
+	/**
+	 * Takes the part sequence number of a windowed large request. Window headers are valid for one hop, they get removed from the request
+	 * and are never forwarded. Only an SC grants a window, it processes the parts of a session in sequence. Responders behind an SC receive
+	 * the parts one by one anyway.
+	 *
+	 * @param scmpReq the SCMP request
+	 * @return the part sequence number or 0 if request is not part of a windowed large request
+	 */
+	private int takeWindowedPartNr(SCMPMessage scmpReq) {
+		String partNrValue = scmpReq.getHeader(SCMPHeaderAttributeKey.PART_SEQUENCE_NR);
+		if (partNrValue == null) {
+			return 0;
+		}
+		Integer offeredWindowSize = scmpReq.getHeaderInt(SCMPHeaderAttributeKey.PART_WINDOW_SIZE);
+		scmpReq.removeHeader(SCMPHeaderAttributeKey.PART_SEQUENCE_NR);
+		scmpReq.removeHeader(SCMPHeaderAttributeKey.PART_WINDOW_SIZE);
+		this.partSessionId = scmpReq.getSessionId();
+		if (AppContext.isScEnvironment() == false || this.partSessionId == null) {
+			return 0;
+		}
+		int windowPartNr = 0;
+		try {
+			windowPartNr = Integer.parseInt(partNrValue);
+		} catch (NumberFormatException ex) {
+			LOGGER.warn("invalid part sequence number=" + partNrValue);
+			return 0;
+		}
+		if (windowPartNr == 1) {
+			// first part, grant window if offered
+			if (offeredWindowSize == null || offeredWindowSize <= 1) {
+				return 0;
+			}
+			this.grantedWindowSize = Math.min(offeredWindowSize, Constants.MAX_LARGE_MESSAGE_WINDOW_SIZE);
+		}
+		this.lastPart = scmpReq.isPart() == false;
+		return windowPartNr;
+	}
+
+	/**
+	 * Write response. The acknowledgement of a windowed part echoes the part sequence number, the first one grants the window. Completing the
+	 * part lets its successor be processed.
+	 *
+	 * @throws Exception the exception
+	 */
+	private void writeResponse() throws Exception {
+		if (this.partNr == 0 || this.partCompleted) {
+			this.response.write();
+			return;
+		}
+		this.partCompleted = true;
+		SCMPMessage reply = this.response.getSCMP();
+		boolean fault = reply == null || reply.isFault();
+		if (fault == false) {
+			reply.setHeader(SCMPHeaderAttributeKey.PART_SEQUENCE_NR, this.partNr);
+			if (this.grantedWindowSize > 0) {
+				reply.setHeader(SCMPHeaderAttributeKey.PART_WINDOW_SIZE, this.grantedWindowSize);
+			}
+		}
+		try {
+			this.response.write();
+		} finally {
+			if (fault) {
+				// requester abandons the request, parts sent ahead get replied as discarded
+				NettyResponderRequestHandlerTask.partSequencer.abort(this.partSessionId);
+			} else {
+				NettyResponderRequestHandlerTask.partSequencer.complete(this.partSessionId, this.partNr, this.lastPart);
 			}
 		}
 	}
@@ -233,7 +386,7 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 		}
 		try {
 			// reply to client
-			response.write();
+			this.writeResponse();
 		} catch (Exception ex) {
 			LOGGER.error("send response failed", ex);
 		}
@@ -251,6 +404,6 @@ public class NettyResponderRequestHandlerTask implements IResponderCallback {
 		scmpFault.setMessageType(scmpReq.getMessageType());
 		scmpFault.setLocalDateTime();
 		response.setSCMP(scmpFault);
-		response.write();
+		this.writeResponse();
 	}
 }
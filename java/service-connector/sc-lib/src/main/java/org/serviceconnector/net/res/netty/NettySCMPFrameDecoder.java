@@ -19,6 +19,7 @@ package org.serviceconnector.net.res.netty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.handler.codec.frame.FrameDecoder;
@@ -27,7 +28,8 @@ import org.serviceconnector.net.SCMPFrameDecoder;
 import org.serviceconnector.scmp.SCMPError;
 
 /**
- * The Class NettySCMPFrameDecoder. Decodes a SCMP frame.
+ * The Class NettySCMPFrameDecoder. Decodes a SCMP frame. The frame is passed on as channel buffer, the body is read into a buffer of its own which the decoder takes
+ * without copying.
  *
  * @author JTraber
  */
@@ -37,6 +39,8 @@ public class NettySCMPFrameDecoder extends FrameDecoder {
 	private static final Logger LOGGER = LoggerFactory.getLogger(NettySCMPFrameDecoder.class);
 	/** The scmp frame size. */
 	private int scmpFrameSize;
+	/** The scmp header size. */
+	private int scmpHeaderSize;
 	/** The headline. */
 	private byte[] headline = new byte[Constants.SCMP_HEADLINE_SIZE];
 
@@ -45,6 +49,7 @@ public class NettySCMPFrameDecoder extends FrameDecoder {
 	 */
 	public NettySCMPFrameDecoder() {
 		this.scmpFrameSize = 0;
+		this.scmpHeaderSize = 0;
 	}
 
 	@Override
@@ -78,6 +83,7 @@ public class NettySCMPFrameDecoder extends FrameDecoder {
 			buffer.getBytes(0, this.headline);
 			// parse headline
 			this.scmpFrameSize = SCMPFrameDecoder.parseFrameSize(this.headline);
+			this.scmpHeaderSize = SCMPFrameDecoder.parseHeaderSize(this.headline);
 		} catch (Exception ex) {
 			LOGGER.warn("decode " + ex.getMessage());
 			throw new SCMPFrameDecoderException(SCMPError.FRAME_DECODER);
@@ -85,18 +91,28 @@ public class NettySCMPFrameDecoder extends FrameDecoder {
 	}
 
 	/**
-	 * Aggregate frame.
+	 * Aggregate frame. Headline and header are read separately from the body, the body gets a buffer of its own.
 	 *
 	 * @param buffer the buffer
-	 * @return the byte[]
+	 * @return the channel buffer containing the frame
 	 */
-	private byte[] aggregateFrame(ChannelBuffer buffer) {
+	private ChannelBuffer aggregateFrame(ChannelBuffer buffer) {
 		if (buffer.readableBytes() < scmpFrameSize) {
 			return null;
 		}
-		ChannelBuffer channelBuffer = buffer.readBytes(scmpFrameSize);
+		ChannelBuffer frame = null;
+		int headSize = Constants.SCMP_HEADLINE_SIZE + this.scmpHeaderSize;
+		if (headSize < this.scmpFrameSize) {
+			ChannelBuffer head = buffer.readBytes(headSize);
+			ChannelBuffer body = buffer.readBytes(this.scmpFrameSize - headSize);
+			frame = ChannelBuffers.wrappedBuffer(head, body);
+		} else {
+			// frame without body
+			frame = buffer.readBytes(this.scmpFrameSize);
+		}
 		// reset the frame size
 		this.scmpFrameSize = 0;
-		return channelBuffer.array();
+		this.scmpHeaderSize = 0;
+		return frame;
 	}
 }
@@ -16,9 +16,9 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.net.res.netty;
 
-import java.io.ByteArrayInputStream;
 import java.net.InetSocketAddress;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.ctx.AppContext;
@@ -37,7 +37,7 @@ public class NettyTcpRequest extends RequestAdapter {
 	@SuppressWarnings("unused")
 	private static final Logger LOGGER = LoggerFactory.getLogger(NettyTcpRequest.class);
 	/** The request. */
-	private byte[] buffer;
+	private ChannelBuffer buffer;
 
 	/**
 	 * Instantiates a new netty tcp request.
@@ -46,7 +46,7 @@ public class NettyTcpRequest extends RequestAdapter {
 	 * @param localAddress the local address
 	 * @param remoteAddress the remote address
 	 */
-	public NettyTcpRequest(byte[] buffer, InetSocketAddress localAddress, InetSocketAddress remoteAddress) {
+	public NettyTcpRequest(ChannelBuffer buffer, InetSocketAddress localAddress, InetSocketAddress remoteAddress) {
 		super(localAddress, remoteAddress);
 		this.buffer = buffer;
 	}
@@ -54,14 +54,12 @@ public class NettyTcpRequest extends RequestAdapter {
 	/** {@inheritDoc} */
 	@Override
 	public void load() throws Exception {
-		Statistics.getInstance().incrementTotalMessages(buffer.length);
+		Statistics.getInstance().incrementTotalMessages(buffer.readableBytes());
 		if (ConnectionLogger.isEnabledFull()) {
-			ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), this.getRemoteSocketAddress().getHostName(), this.getRemoteSocketAddress().getPort(), buffer, 0,
-					buffer.length);
+			ConnectionLogger.logReadBuffer(this.getClass().getSimpleName(), this.getRemoteSocketAddress().getHostName(), this.getRemoteSocketAddress().getPort(), buffer);
 		}
 		IEncoderDecoder encoderDecoder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(buffer);
-		ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
-		SCMPMessage message = (SCMPMessage) encoderDecoder.decode(bais);
+		SCMPMessage message = (SCMPMessage) encoderDecoder.decode(buffer);
 		this.setMessage(message);
 	}
 }
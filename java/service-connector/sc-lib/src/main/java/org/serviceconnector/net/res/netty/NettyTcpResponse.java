@@ -47,11 +47,11 @@ public class NettyTcpResponse extends ResponseAdapter {
 	@Override
 	public void write() throws Exception {
 		ChannelBuffer buffer = this.getBuffer();
-		// Write the response.
-		channel.write(buffer);
 		if (ConnectionLogger.isEnabledFull()) {
 			ConnectionLogger.logWriteBuffer(this.getClass().getSimpleName(), ((InetSocketAddress) this.channel.getRemoteAddress()).getHostName(),
-					((InetSocketAddress) this.channel.getRemoteAddress()).getPort(), buffer.toByteBuffer().array(), 0, buffer.toByteBuffer().array().length);
+					((InetSocketAddress) this.channel.getRemoteAddress()).getPort(), buffer);
 		}
+		// Write the response.
+		channel.write(buffer);
 	}
 }
@@ -47,7 +47,9 @@ public class NettyHttpResponderPipelineFactory implements ChannelPipelineFactory
 		// logging handler
 		pipeline.addLast("logger", new LoggingHandler());
 		// responsible for decoding requests - Netty
-		pipeline.addLast("decoder", new HttpRequestDecoder());
+		// content of a message part is decoded as a whole, not split into chunks to be aggregated again
+		pipeline.addLast("decoder", new HttpRequestDecoder(Constants.MAX_HTTP_INITIAL_LINE_LENGTH, Constants.MAX_HTTP_HEADER_SIZE,
+				Constants.MAX_HTTP_CHUNK_SIZE));
 		// responsible for encoding responses - Netty
 		pipeline.addLast("encoder", new HttpResponseEncoder());
 		// responsible for aggregate chunks - Netty
@@ -19,6 +19,7 @@ package org.serviceconnector.net.res.netty.tcp;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ExceptionEvent;
@@ -53,7 +54,7 @@ public class NettyTcpResponderRequestHandler extends NettyResponderRequestHandle
 		Channel channel = ctx.getChannel();
 		InetSocketAddress localSocketAddress = (InetSocketAddress) channel.getLocalAddress();
 		InetSocketAddress remoteSocketAddress = (InetSocketAddress) channel.getRemoteAddress();
-		byte[] buffer = (byte[]) event.getMessage();
+		ChannelBuffer buffer = (ChannelBuffer) event.getMessage();
 		IRequest request = new NettyTcpRequest(buffer, localSocketAddress, remoteSocketAddress);
 		// process request in super class
 		super.messageReceived(request, response, channel);
@@ -23,6 +23,7 @@ import java.util.Set;
 import org.serviceconnector.cache.ISCCacheModule;
 import org.serviceconnector.cache.SCCacheMetaEntry;
 import org.serviceconnector.cache.SC_CACHE_ENTRY_STATE;
+import org.serviceconnector.scmp.SCMPCachedMessage;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.util.DateTimeUtility;
 import org.serviceconnector.util.XMLDumpWriter;
@@ -83,7 +84,9 @@ public class CacheModuleRegistry extends Registry<String, ISCCacheModule<?>> {
 			for (String key : keys) {
 				writer.writeStartElement("cacheElement");
 				Object cacheMessage = scCache.get(key);
-
+				if (cacheMessage instanceof SCMPCachedMessage) {
+					cacheMessage = ((SCMPCachedMessage) cacheMessage).newMessage();
+				}
 				if (cacheMessage instanceof SCMPMessage) {
 					SCMPMessage scmp = ((SCMPMessage) cacheMessage);
 					writer.writeAttribute("cacheKey", key);
@@ -16,30 +16,46 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.registry;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.serviceconnector.cmd.SCMPCommandException;
+import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.res.IResponse;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
 import org.serviceconnector.service.ReceivePublicationTimeout;
 import org.serviceconnector.service.SubscriptionMask;
+import org.serviceconnector.service.SubscriptionMaskIndex;
 import org.serviceconnector.util.ITimeout;
-import org.serviceconnector.util.LinkedNode;
-import org.serviceconnector.util.LinkedQueue;
-import org.serviceconnector.util.NamedPriorityThreadFactory;
+import org.serviceconnector.util.TimeoutScheduler;
 import org.serviceconnector.util.XMLDumpWriter;
 
 /**
  * The Class PublishMessageQueue. The PublishMessageQueue is responsible for queuing incoming data from server, to inform subscriptions about new arrived messages, to observe there
  * timeouts and to know there current position in queue (TimeAwareDataPointer). The queue needs also to handle the deleting of consumed messages and to assure queue does not
- * overflow.
+ * overflow.<br />
+ * Publishers append messages without locking, each data pointer moves forward on its own and is only locked by its subscription. Messages behind the slowest data pointer are
+ * reclaimed, there is no reference counting per message.
  *
  * @param <E> the element type to handle in the queue
  * @author JTraber
@@ -49,31 +65,44 @@ public class PublishMessageQueue<E> {
 	/** The Constant LOGGER. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(PublishMessageQueue.class);
 
-	/** The timeout scheduler. */
-	private ScheduledThreadPoolExecutor timeoutScheduler;
-	/** The data queue. */
-	private LinkedQueue<E> dataQueue;
+	/** The head of the queue. Sentinel node, messages up to the head are reclaimed. */
+	private volatile QueueNode<E> head;
+	/** The tail of the queue. Last inserted node, publishers append behind the tail. */
+	private final AtomicReference<QueueNode<E>> tail;
 	/** The pointer map - maps session id to data pointer and its node in queue. */
 	private Map<String, TimeAwareDataPointer> pointerMap;
+	/** The waiting pointers - data pointers waiting for a new matching message. */
+	private Set<TimeAwareDataPointer> waitingPointers;
+	/** The mask index, evaluates the subscriptions matching a message once per inserted message. */
+	private final SubscriptionMaskIndex maskIndex;
+	/** The number of inserts since last reclaim of consumed messages. */
+	private final AtomicInteger insertsSinceReclaim;
+	/** The reclaiming flag, only one thread reclaims at the time. */
+	private final AtomicBoolean reclaiming;
 	/** The peak the queue ever reached. */
-	private int peak;
+	private volatile int peak;
 
 	/**
 	 * Instantiates a new PublishMessageQueue.
 	 */
 	public PublishMessageQueue() {
-		this.dataQueue = new LinkedQueue<E>();
+		this.head = new QueueNode<E>(null, 0, null, 0);
+		this.tail = new AtomicReference<QueueNode<E>>(this.head);
 		this.pointerMap = new ConcurrentHashMap<String, TimeAwareDataPointer>();
-		this.timeoutScheduler = new ScheduledThreadPoolExecutor(5, new NamedPriorityThreadFactory("CRPTimeout"));
+		this.waitingPointers = ConcurrentHashMap.newKeySet();
+		this.maskIndex = new SubscriptionMaskIndex();
+		this.insertsSinceReclaim = new AtomicInteger();
+		this.reclaiming = new AtomicBoolean(false);
+		this.peak = 0;
 	}
 
 	/**
-	 * Iterator<LinkedNode<E>>.
+	 * Iterator over the nodes in queue, from oldest to newest. Nodes inserted after creation of the iterator are not part of the iteration.
 	 *
 	 * @return the iterator
 	 */
-	public Iterator<LinkedNode<E>> nodeIterator() {
-		return this.dataQueue.nodeIterator();
+	public Iterator<QueueNode<E>> nodeIterator() {
+		return new QueueNodeIterator(this.head, this.tail.get());
 	}
 
 	/**
@@ -82,52 +111,138 @@ public class PublishMessageQueue<E> {
 	 * @return the size
 	 */
 	public int getTotalSize() {
-		return this.dataQueue.getSize();
+		return (int) (this.tail.get().sequenceNr - this.head.sequenceNr);
 	}
 
 	/**
-	 * Gets the referenced node count.
+	 * Gets the referenced node count. Number of nodes from the position of the slowest data pointer up to the end of the queue.
 	 *
 	 * @return the referenced node count
 	 */
 	public int getReferencedNodesCount() {
-		Iterator<LinkedNode<E>> iter = this.dataQueue.nodeIterator();
-		int nonRefElemCount = 0;
-		while (iter.hasNext()) {
-			// this loop stops when first referenced node in queue is found
-			LinkedNode<E> linkedNode = iter.next();
-			if (linkedNode.isReferenced() == false) {
-				nonRefElemCount++;
-			} else {
-				break;
+		QueueNode<E> last = this.tail.get();
+		return (int) (last.sequenceNr - this.getSlowestPosition(last.sequenceNr));
+	}
+
+	/**
+	 * Gets the reference count of a node. Number of data pointers which did not pass the node yet.
+	 *
+	 * @param node the node
+	 * @return the reference count
+	 */
+	public int getReferenceCount(QueueNode<E> node) {
+		int referenceCount = 0;
+		for (TimeAwareDataPointer ptr : this.pointerMap.values()) {
+			if (ptr.getPosition() < node.sequenceNr) {
+				referenceCount++;
 			}
 		}
-		// return number of referenced nodes in queue
-		return this.dataQueue.getSize() - nonRefElemCount;
+		return referenceCount;
 	}
 
 	/**
-	 * Inserts a new message into the queue.
+	 * Inserts a new message into the queue. Appending the message does not lock the queue, concurrent publishers do not block each other.
 	 *
 	 * @param message the message
 	 */
-	public synchronized void insert(E message) {
+	public void insert(E message) {
 		if (message == null) {
 			// inserting null value not allowed
 			return;
 		}
-		this.dataQueue.insert(message);
+		// evaluate matching subscriptions once for all data pointers
+		BitSet matchingSlots = new BitSet();
+		long matchingVersion = this.maskIndex.match(((SCMPMessage) message).getMaskBytes(), matchingSlots);
+		QueueNode<E> newNode = null;
+		while (true) {
+			QueueNode<E> last = this.tail.get();
+			newNode = new QueueNode<E>(message, last.sequenceNr + 1, matchingSlots, matchingVersion);
+			if (this.tail.compareAndSet(last, newNode)) {
+				// link after winning the tail - data pointers see the node from now on
+				last.next = newNode;
+				break;
+			}
+		}
+		int currSize = (int) (newNode.sequenceNr - this.head.sequenceNr);
 		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("insert - queue size=" + this.dataQueue.getSize());
+			LOGGER.trace("insert - queue size=" + currSize);
 		}
-		int currSize = this.dataQueue.getSize();
 		if (currSize > this.peak) {
 			this.peak = currSize;
 		}
 		// inform new message arrived
-		this.fireNewDataArrived();
-		// delete unreferenced nodes in queue
-		this.removeNonreferencedNodes();
+		this.fireNewDataArrived(newNode);
+		// reclaim consumed nodes, costs are shared by the inserts since last reclaim
+		if (this.insertsSinceReclaim.incrementAndGet() > this.pointerMap.size()) {
+			this.removeNonreferencedNodes();
+		}
+	}
+
+	/**
+	 * Inserts a batch of messages into the queue. The messages are appended in one step, data pointers get informed once for the whole batch.
+	 *
+	 * @param messages the messages
+	 */
+	public void insertAll(List<E> messages) {
+		int batchSize = messages.size();
+		if (batchSize == 0) {
+			return;
+		}
+		// evaluate matching subscriptions once for all data pointers
+		BitSet[] matchingSlots = new BitSet[batchSize];
+		long[] matchingVersions = new long[batchSize];
+		for (int i = 0; i < batchSize; i++) {
+			matchingSlots[i] = new BitSet();
+			matchingVersions[i] = this.maskIndex.match(((SCMPMessage) messages.get(i)).getMaskBytes(), matchingSlots[i]);
+		}
+		QueueNode<E> firstNode = null;
+		QueueNode<E> lastNode = null;
+		while (true) {
+			QueueNode<E> last = this.tail.get();
+			firstNode = null;
+			lastNode = null;
+			for (int i = 0; i < batchSize; i++) {
+				QueueNode<E> node = new QueueNode<E>(messages.get(i), last.sequenceNr + 1 + i, matchingSlots[i], matchingVersions[i]);
+				if (firstNode == null) {
+					firstNode = node;
+				} else {
+					lastNode.next = node;
+				}
+				lastNode = node;
+			}
+			if (this.tail.compareAndSet(last, lastNode)) {
+				// link after winning the tail - data pointers see the nodes from now on
+				last.next = firstNode;
+				break;
+			}
+		}
+		int currSize = (int) (lastNode.sequenceNr - this.head.sequenceNr);
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("insertAll - queue size=" + currSize);
+		}
+		if (currSize > this.peak) {
+			this.peak = currSize;
+		}
+		// inform new messages arrived
+		List<ReceivePublicationTimeout> pushTimeouts = null;
+		for (TimeAwareDataPointer ptr : this.waitingPointers) {
+			QueueNode<E> node = firstNode;
+			while (true) {
+				if (ptr.isMatching(node)) {
+					pushTimeouts = this.addPushTimeout(pushTimeouts, ptr.newDataArrived());
+					break;
+				}
+				if (node == lastNode) {
+					break;
+				}
+				node = node.next;
+			}
+		}
+		this.dispatchPushTimeouts(pushTimeouts);
+		// reclaim consumed nodes, costs are shared by the inserts since last reclaim
+		if (this.insertsSinceReclaim.addAndGet(batchSize) > this.pointerMap.size()) {
+			this.removeNonreferencedNodes();
+		}
 	}
 
 	/**
@@ -147,127 +262,260 @@ public class PublishMessageQueue<E> {
 	 * @param sessionId the session id
 	 * @return the e
 	 */
-	public synchronized E getMessage(String sessionId) {
+	public E getMessage(String sessionId) {
 		TimeAwareDataPointer ptr = this.pointerMap.get(sessionId);
-		LinkedNode<E> node = ptr.getNode();
-		if (node == null) {
-			// nothing to poll data pointer points to null - return null
+		if (ptr == null) {
 			return null;
 		}
-		E message = node.getValue();
-		if (message == null) {
+		return this.getMessage(ptr);
+	}
+
+	/**
+	 * Return message of data pointer if any. If no message is available null will be returned.
+	 *
+	 * @param ptr the data pointer
+	 * @return the e
+	 */
+	private E getMessage(TimeAwareDataPointer ptr) {
+		synchronized (ptr) {
+			QueueNode<E> node = ptr.getNode();
+			if (node == null) {
+				// nothing to poll data pointer points to null - return null
+				return null;
+			}
+			// pointer moves to next node
+			ptr.consume();
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("getMessage - queue size=" + this.getTotalSize());
+			}
+			return node.value;
+		}
+	}
+
+	/**
+	 * Return message if any and if it can be added to a publication batch. Parts of large messages and messages exceeding the remaining size of
+	 * the batch stay in queue for the next receive publication.
+	 *
+	 * @param sessionId the session id
+	 * @param maxFrameSize the maximum size of the encoded message
+	 * @return the e
+	 */
+	public E getBatchMessage(String sessionId, int maxFrameSize) {
+		TimeAwareDataPointer ptr = this.pointerMap.get(sessionId);
+		if (ptr == null) {
 			return null;
 		}
-		// dereference node, pointer moves to next node
-		node.dereference();
-		ptr.moveNext();
-		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("getMessage - queue size=" + this.dataQueue.getSize());
+		synchronized (ptr) {
+			QueueNode<E> node = ptr.getNode();
+			if (node == null) {
+				// nothing to poll data pointer points to null - return null
+				return null;
+			}
+			SCMPMessage message = (SCMPMessage) node.value;
+			if (message.isPart() || SCMPPublicationBatch.getFrameSize(message) > maxFrameSize) {
+				// message does not fit into batch
+				return null;
+			}
+			// pointer moves to next node
+			ptr.consume();
+			return node.value;
 		}
-		return message;
-
 	}
 
 	/**
-	 * Return message if any. If no message is available null will be returned.
+	 * Return message if any. If no message is available null will be returned and the data pointer listens for new messages.
 	 *
 	 * @param sessionId the session id
 	 * @param request the request
 	 * @param response the response
 	 * @return the e
+	 * @throws SCMPCommandException no data pointer to listen on, unsubscribed in the meantime
 	 */
-	public synchronized E getMessageOrListen(String sessionId, IRequest request, IResponse response) {
+	public E getMessageOrListen(String sessionId, IRequest request, IResponse response) throws SCMPCommandException {
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("getMessageOrListen");
 		}
-		E message = this.getMessage(sessionId);
-		if (message == null) {
+		TimeAwareDataPointer ptr = this.pointerMap.get(sessionId);
+		if (ptr == null) {
+			// unsubscribed in the meantime - no data pointer to listen on
+			LOGGER.warn("getMessageOrListen no data pointer for sessionId=" + sessionId);
+			throw new SCMPCommandException(SCMPError.SUBSCRIPTION_NOT_FOUND, "no data pointer for sessionId=" + sessionId);
+		}
+		synchronized (ptr) {
+			if (ptr.mask == null) {
+				// data pointer destroyed by unsubscribe in the meantime
+				LOGGER.warn("getMessageOrListen data pointer destroyed for sessionId=" + sessionId);
+				throw new SCMPCommandException(SCMPError.SUBSCRIPTION_NOT_FOUND, "data pointer destroyed for sessionId=" + sessionId);
+			}
+			E message = this.getMessage(ptr);
+			if (message != null) {
+				return message;
+			}
+			// look again under lock of data pointer - an insert moves the tail before it links the node, walking may have missed the node
+			ptr.moveNext();
+			message = this.getMessage(ptr);
+			if (message != null) {
+				return message;
+			}
 			// message null - switch to listen mode
-			this.listen(sessionId, request, response);
+			this.listen(ptr, request, response);
 			return null;
 		}
-		return message;
 	}
 
 	/**
-	 * Fire new data arrived. Indicates that a new message has been added. Sets data pointer pointing on null elements to new element if necessary (mask matches & listening mode).
+	 * Fire new data arrived. Indicates that a new message has been added. Data pointers waiting for a new message move forward to the new message if mask matches, data
+	 * pointers in listen mode get informed. Data pointers not interested in the new message are not touched, they catch up when consumed messages get removed.
+	 *
+	 * @param newNode the new node
 	 */
-	private synchronized void fireNewDataArrived() {
+	private void fireNewDataArrived(QueueNode<E> newNode) {
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("fireNewDataArrived");
 		}
-		LinkedNode<E> newNode = dataQueue.getLast();
-		for (TimeAwareDataPointer ptr : this.pointerMap.values()) {
-			if (ptr.getNode() == null) {
-				// data pointer points to null - try pointing to new element
-				if (ptr.setNode(newNode) == true) {
-					if (LOGGER.isTraceEnabled()) {
-						LOGGER.trace("data pointer points to null,setNode successful - data pointer interested in new node");
-					}
-					// setNode successful - data pointer interested in new node
-					if (ptr.listening()) {
-						// data pointer in listen mode needs to be informed about new data
-						ptr.schedule(0);
-					}
+		List<ReceivePublicationTimeout> pushTimeouts = null;
+		for (TimeAwareDataPointer ptr : this.waitingPointers) {
+			if (ptr.isMatching(newNode)) {
+				pushTimeouts = this.addPushTimeout(pushTimeouts, ptr.newDataArrived());
+			}
+		}
+		this.dispatchPushTimeouts(pushTimeouts);
+	}
+
+	/**
+	 * Adds the timeout of a push delivery data pointer ready to answer its receive publication.
+	 *
+	 * @param pushTimeouts the push timeouts collected so far, null if none
+	 * @param pushTimeout the push timeout, null if data pointer is not ready
+	 * @return the push timeouts
+	 */
+	private List<ReceivePublicationTimeout> addPushTimeout(List<ReceivePublicationTimeout> pushTimeouts, ReceivePublicationTimeout pushTimeout) {
+		if (pushTimeout == null) {
+			return pushTimeouts;
+		}
+		if (pushTimeouts == null) {
+			pushTimeouts = new ArrayList<ReceivePublicationTimeout>();
+		}
+		pushTimeouts.add(pushTimeout);
+		return pushTimeouts;
+	}
+
+	/**
+	 * Dispatches answering the receive publications of push delivery data pointers to the SC worker thread pool. Called after the locks of the data pointers
+	 * have been released, the publisher does not write responses. Answered by the current thread if the pool is not available.
+	 *
+	 * @param pushTimeouts the push timeouts, null if none
+	 */
+	private void dispatchPushTimeouts(List<ReceivePublicationTimeout> pushTimeouts) {
+		if (pushTimeouts == null) {
+			return;
+		}
+		ExecutorService executor = AppContext.getSCWorkerThreadPool();
+		for (final ReceivePublicationTimeout pushTimeout : pushTimeouts) {
+			if (executor != null) {
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							pushTimeout.timeout();
+						}
+					});
+					continue;
+				} catch (RejectedExecutionException e) {
+					LOGGER.warn("push delivery rejected by SC worker thread pool, answered by publisher", e);
 				}
 			}
+			pushTimeout.timeout();
 		}
 	}
 
 	/**
-	 * Removes the non referenced nodes. Starts removing nodes in first position of queue - stops at the position a node is referenced.
+	 * Removes the non referenced nodes. Moves the head of the queue to the position of the slowest data pointer. Returns immediately if another thread is reclaiming.
 	 */
-	public synchronized void removeNonreferencedNodes() {
-		LinkedNode<E> node = this.dataQueue.getFirst();
-		while (node != null) {
-			if (node.isReferenced()) {
-				// stop removing nodes at the position you get a referenced node
-				break;
+	public void removeNonreferencedNodes() {
+		if (this.reclaiming.compareAndSet(false, true) == false) {
+			// reclaim in progress
+			return;
+		}
+		try {
+			this.insertsSinceReclaim.set(0);
+			List<ReceivePublicationTimeout> pushTimeouts = null;
+			for (TimeAwareDataPointer ptr : this.waitingPointers) {
+				// data pointers skipped by fireNewDataArrived move behind not matching messages
+				pushTimeouts = this.addPushTimeout(pushTimeouts, ptr.newDataArrived());
+			}
+			this.dispatchPushTimeouts(pushTimeouts);
+			QueueNode<E> last = this.tail.get();
+			long slowestPosition = this.getSlowestPosition(last.sequenceNr);
+			QueueNode<E> node = this.head;
+			while (node.sequenceNr < slowestPosition && node.next != null) {
+				node = node.next;
 			}
-			// remove node
-			this.dataQueue.extract();
+			this.head = node;
 			if (LOGGER.isTraceEnabled()) {
-				LOGGER.trace("remove - queue size=" + this.dataQueue.getSize());
+				LOGGER.trace("remove - queue size=" + this.getTotalSize());
+			}
+		} finally {
+			this.reclaiming.set(false);
+		}
+	}
+
+	/**
+	 * Gets the position of the slowest data pointer.
+	 *
+	 * @param defaultPosition the default position, if no data pointer is slower
+	 * @return the slowest position
+	 */
+	private long getSlowestPosition(long defaultPosition) {
+		long slowestPosition = defaultPosition;
+		for (TimeAwareDataPointer ptr : this.pointerMap.values()) {
+			long position = ptr.getPosition();
+			if (position < slowestPosition) {
+				slowestPosition = position;
 			}
-			// reads next node
-			node = this.dataQueue.getFirst();
 		}
+		return slowestPosition;
 	}
 
 	/**
 	 * Listen. Indicates that client is ready for messages. Data pointer changes to listen mode and schedules timeout.
 	 *
-	 * @param sessionId the session id
+	 * @param dataPointer the data pointer
 	 * @param request the request
 	 * @param response the response
 	 */
-	private synchronized void listen(String sessionId, IRequest request, IResponse response) {
-		TimeAwareDataPointer dataPointer = this.pointerMap.get(sessionId);
+	private void listen(TimeAwareDataPointer dataPointer, IRequest request, IResponse response) {
 		// stores request/response in timer run - to answer client correctly at timeout
 		dataPointer.crpTimeout.setRequest(request);
 		dataPointer.crpTimeout.setResponse(response);
+		// push delivery - new data gets written by the inserting thread
+		dataPointer.pushDelivery = request.getMessage().getHeaderFlag(SCMPHeaderAttributeKey.PUSH_DELIVERY);
 		// starts listening and schedules subscription timeout
 		dataPointer.startListen();
 		dataPointer.schedule();
 		if (LOGGER.isTraceEnabled()) {
-			LOGGER.trace("PublishMessageQueue listen sid=" + sessionId + " listen=" + dataPointer.listening);
+			LOGGER.trace("PublishMessageQueue listen listen=" + dataPointer.listening);
 		}
 	}
 
 	/**
-	 * Subscribe. Sets up subscription, create data pointer.
+	 * Subscribe. Sets up subscription, create data pointer. Data pointer gets messages inserted after subscribe.
 	 *
 	 * @param sessionId the session id
 	 * @param mask the filter mask
 	 * @param crpTimeout the timer run
 	 */
-	public synchronized void subscribe(String sessionId, SubscriptionMask mask, ReceivePublicationTimeout crpTimeout) {
+	public void subscribe(String sessionId, SubscriptionMask mask, ReceivePublicationTimeout crpTimeout) {
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("subscribe");
 		}
-		TimeAwareDataPointer dataPointer = new TimeAwareDataPointer(mask, crpTimeout);
+		int slot = this.maskIndex.add(mask);
+		TimeAwareDataPointer dataPointer = new TimeAwareDataPointer(mask, slot, this.maskIndex.getVersion(), crpTimeout, this.tail.get());
 		// Stores sessionId and dataPointer in map
 		this.pointerMap.put(sessionId, dataPointer);
+		synchronized (dataPointer) {
+			dataPointer.moveNext();
+		}
 	}
 
 	/**
@@ -276,13 +524,16 @@ public class PublishMessageQueue<E> {
 	 * @param sessionId the session id
 	 * @param mask the mask
 	 */
-	public synchronized void changeSubscription(String sessionId, SubscriptionMask mask) {
+	public void changeSubscription(String sessionId, SubscriptionMask mask) {
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("changeSubscription");
 		}
 		TimeAwareDataPointer dataPointer = this.pointerMap.get(sessionId);
 		if (dataPointer != null) {
-			dataPointer.changeMask(mask);
+			synchronized (dataPointer) {
+				this.maskIndex.change(dataPointer.slot, mask);
+				dataPointer.changeMask(mask, this.maskIndex.getVersion());
+			}
 		}
 	}
 
@@ -291,21 +542,25 @@ public class PublishMessageQueue<E> {
 	 *
 	 * @param sessionId the session id
 	 */
-	public synchronized void unsubscribe(String sessionId) {
+	public void unsubscribe(String sessionId) {
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("unsubscribe");
 		}
-		TimeAwareDataPointer dataPointer = this.pointerMap.get(sessionId);
-		if (dataPointer != null && dataPointer.listening) {
-			// unsubscribe & pointer is in listen mode - run a timeout
-			dataPointer.cancel();
-			dataPointer.crpTimeout.timeout();
-			dataPointer.stopListen();
+		TimeAwareDataPointer dataPointer = this.pointerMap.remove(sessionId);
+		if (dataPointer == null) {
+			return;
 		}
-		this.pointerMap.remove(sessionId);
-		if (dataPointer != null) {
+		this.waitingPointers.remove(dataPointer);
+		synchronized (dataPointer) {
+			if (dataPointer.listening) {
+				// unsubscribe & pointer is in listen mode - run a timeout
+				dataPointer.cancel();
+				dataPointer.crpTimeout.timeout();
+				dataPointer.stopListen();
+			}
 			dataPointer.destroy();
 		}
+		this.maskIndex.remove(dataPointer.slot);
 	}
 
 	/**
@@ -317,19 +572,125 @@ public class PublishMessageQueue<E> {
 		return this.peak;
 	}
 
+	/**
+	 * The Class QueueNode. Node of the queue, knows its sequence number in the queue.
+	 *
+	 * @param <T> the generic type
+	 */
+	public static final class QueueNode<T> {
+
+		/** The value of the node. */
+		private final T value;
+		/** The sequence number of the node in queue. */
+		private final long sequenceNr;
+		/** The next node in queue. */
+		private volatile QueueNode<T> next;
+		/** The slots of the subscriptions matching the value. */
+		private final BitSet matchingSlots;
+		/** The version of the mask index the matching slots have been evaluated with. */
+		private final long matchingVersion;
+
+		/**
+		 * Instantiates a new queue node.
+		 *
+		 * @param value the value
+		 * @param sequenceNr the sequence number
+		 * @param matchingSlots the slots of the matching subscriptions
+		 * @param matchingVersion the version of the mask index
+		 */
+		private QueueNode(T value, long sequenceNr, BitSet matchingSlots, long matchingVersion) {
+			this.value = value;
+			this.sequenceNr = sequenceNr;
+			this.matchingSlots = matchingSlots;
+			this.matchingVersion = matchingVersion;
+			this.next = null;
+		}
+
+		/**
+		 * Gets the value of the node.
+		 *
+		 * @return the value of the node
+		 */
+		public T getValue() {
+			return this.value;
+		}
+
+		/**
+		 * Gets the sequence number of the node in queue.
+		 *
+		 * @return the sequence number
+		 */
+		public long getSequenceNr() {
+			return this.sequenceNr;
+		}
+	}
+
+	/**
+	 * The Class QueueNodeIterator. Iterates from the node after head up to the given last node.
+	 */
+	private class QueueNodeIterator implements Iterator<QueueNode<E>> {
+
+		/** The next node to return. */
+		private QueueNode<E> node;
+		/** The last node of the iteration. */
+		private final QueueNode<E> last;
+
+		/**
+		 * Instantiates a new queue node iterator.
+		 *
+		 * @param head the head
+		 * @param last the last
+		 */
+		public QueueNodeIterator(QueueNode<E> head, QueueNode<E> last) {
+			this.node = (head == last) ? null : head.next;
+			this.last = last;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean hasNext() {
+			return this.node != null;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public QueueNode<E> next() {
+			if (this.node == null) {
+				throw new NoSuchElementException();
+			}
+			QueueNode<E> ret = this.node;
+			this.node = (ret == this.last) ? null : ret.next;
+			return ret;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
 	/**
 	 * The Class TimeAwareDataPointer. Points to a queue node. Knows mask for matching messages and state if subscription is listening or not. Each subscription has his data
-	 * pointer - its created when client subscribes.
+	 * pointer - its created when client subscribes. Data pointer is guarded by its own monitor.
 	 */
 	private class TimeAwareDataPointer {
-		/** The current node in queue. */
-		private LinkedNode<E> node;
+		/** The current node in queue, next message to deliver. Null if data pointer waits for a matching message. */
+		private volatile QueueNode<E> node;
+		/** The last node in queue the data pointer has passed or is pointing to. */
+		private volatile QueueNode<E> last;
 		/** The publishTimeout. */
 		private ReceivePublicationTimeout crpTimeout;
 		/** The subscription mask. */
-		private SubscriptionMask mask;
+		private volatile SubscriptionMask mask;
+		/** The slot of the subscription in the mask index. */
+		private final int slot;
+		/** The version of the mask index when mask has been indexed, matching slots of older nodes are not valid for this data pointer. */
+		private volatile long maskVersion;
 		/** The listen state. */
 		private boolean listening;
+		/** The push delivery, listening data pointer answers the receive publication at the time new data arrives. */
+		private boolean pushDelivery;
 		/** The timeout. */
 		private ScheduledFuture<PublishTimeoutWrapper> timeout;
 
@@ -337,65 +698,145 @@ public class PublishMessageQueue<E> {
 		 * Instantiates a new TimeAwareDataPointer.
 		 *
 		 * @param mask the filter mask
+		 * @param slot the slot in the mask index
+		 * @param maskVersion the version of the mask index
 		 * @param crpTimeout the publish timeout
+		 * @param last the last node in queue, data pointer is interested in nodes after last
 		 */
-		public TimeAwareDataPointer(SubscriptionMask mask, ReceivePublicationTimeout crpTimeout) {
+		public TimeAwareDataPointer(SubscriptionMask mask, int slot, long maskVersion, ReceivePublicationTimeout crpTimeout, QueueNode<E> last) {
 			this.crpTimeout = crpTimeout;
 			this.listening = false;
 			this.mask = mask;
+			this.slot = slot;
+			this.maskVersion = maskVersion;
+			this.node = null;
+			this.last = last;
 		}
 
 		/**
-		 * Move next. Moves data pointer to the next node in queue.
+		 * Gets the position. Sequence number of the last node the data pointer does not need anymore.
+		 *
+		 * @return the position
+		 */
+		private long getPosition() {
+			QueueNode<E> current = this.node;
+			if (current != null) {
+				return current.sequenceNr - 1;
+			}
+			return this.last.sequenceNr;
+		}
+
+		/**
+		 * Move next. Moves data pointer to the next node in queue matching the mask. If no node matches, data pointer registers for new data.
 		 */
 		private void moveNext() {
+			this.walk();
 			if (this.node == null) {
-				// current node is already null - no move possible
+				// register before looking again - a concurrent insert informs this data pointer
+				PublishMessageQueue.this.waitingPointers.add(this);
+				this.walk();
+			}
+			if (this.node != null) {
+				PublishMessageQueue.this.waitingPointers.remove(this);
+			}
+		}
+
+		/**
+		 * Walk. Walks from last node forward to the first node matching the mask.
+		 */
+		private void walk() {
+			if (this.node != null || this.mask == null) {
+				// still pointing to an undelivered node or destroyed
 				return;
 			}
-			while (true) {
-				this.node = this.node.getNext();
-				if (this.node == null) {
-					// last possible node reached - no next move possible
-					return;
-				}
-				if (this.mask.matches((SCMPMessage) this.node.getValue())) {
-					this.node.reference();
+			QueueNode<E> next = this.last.next;
+			while (next != null) {
+				this.last = next;
+				if (this.isMatching(next)) {
 					// reached node matches mask keep current position
+					this.node = next;
 					return;
 				}
+				next = next.next;
+			}
+		}
+
+		/**
+		 * Checks if node matches the mask of the data pointer. Uses the matching slots of the node if they have been evaluated after the mask has been indexed.
+		 *
+		 * @param queueNode the queue node
+		 * @return true, if is matching
+		 */
+		private boolean isMatching(QueueNode<E> queueNode) {
+			if (queueNode.matchingVersion >= this.maskVersion) {
+				return queueNode.matchingSlots.get(this.slot);
+			}
+			SubscriptionMask currentMask = this.mask;
+			if (currentMask == null) {
+				// destroyed
+				return false;
+			}
+			return currentMask.matches((SCMPMessage) queueNode.value);
+		}
+
+		/**
+		 * Consume. Current node has been delivered, moves to next matching node.
+		 */
+		private void consume() {
+			this.node = null;
+			this.moveNext();
+		}
+
+		/**
+		 * New data arrived. Moves data pointer to the new data if mask matches. Data pointer in listen mode gets informed. A push delivery data pointer stops listening
+		 * and returns its timeout, the caller answers the receive publication after releasing the lock.
+		 *
+		 * @return the timeout to answer the receive publication, null if nothing to answer
+		 */
+		private synchronized ReceivePublicationTimeout newDataArrived() {
+			if (this.node != null || this.mask == null) {
+				// already informed or destroyed
+				return null;
+			}
+			this.moveNext();
+			if (this.node != null) {
+				if (LOGGER.isTraceEnabled()) {
+					LOGGER.trace("data pointer points to null, moved to new node - data pointer interested in new node");
+				}
+				if (this.listening) {
+					if (this.pushDelivery) {
+						// push delivery - receive publication gets answered right away outside the lock, no timeout gets scheduled
+						this.cancel();
+						this.stopListen();
+						return this.crpTimeout;
+					}
+					// data pointer in listen mode needs to be informed about new data
+					this.schedule(0);
+				}
 			}
+			return null;
 		}
 
 		/**
 		 * Change mask.
 		 *
 		 * @param mask the mask
+		 * @param maskVersion the version of the mask index
 		 */
-		private void changeMask(SubscriptionMask mask) {
+		private void changeMask(SubscriptionMask mask, long maskVersion) {
 			this.mask = mask;
-			if (this.node == null) {
+			this.maskVersion = maskVersion;
+			QueueNode<E> current = this.node;
+			if (current == null) {
+				// nodes passed so far are not evaluated again
 				return;
 			}
-			if (this.mask.matches((SCMPMessage) this.node.getValue())) {
+			if (this.isMatching(current)) {
 				// current node matches new mask keep current position
 				return;
-			} else {
-				// dereference current node!
-				this.node.dereference();
-				// move to next matching node
-				this.moveNext();
 			}
-		}
-
-		/**
-		 * Checks for next.
-		 *
-		 * @return true, if successful
-		 */
-		@SuppressWarnings("unused")
-		public boolean hasNext() {
-			return node.getNext() != null;
+			// move to next matching node
+			this.consume();
 		}
 
 		/**
@@ -403,7 +844,7 @@ public class PublishMessageQueue<E> {
 		 *
 		 * @return the node
 		 */
-		public LinkedNode<E> getNode() {
+		public QueueNode<E> getNode() {
 			return node;
 		}
 
@@ -430,24 +871,6 @@ public class PublishMessageQueue<E> {
 			return this.listening;
 		}
 
-		/**
-		 * Sets the node.
-		 *
-		 * @param node the new node
-		 * @return true, if successful
-		 */
-		public boolean setNode(LinkedNode<E> node) {
-			if (this.mask.matches((SCMPMessage) node.getValue()) == false) {
-				// mask doesn't match - don't set the node
-				return false;
-			}
-			// set the node
-			this.node = node;
-			// node needs to be referenced by this data pointer
-			this.node.reference();
-			return true;
-		}
-
 		/**
 		 * Schedule. Activate timeout for no data message.
 		 */
@@ -460,29 +883,25 @@ public class PublishMessageQueue<E> {
 		 *
 		 * @param timeoutMillis the timeout
 		 */
-		@SuppressWarnings("unchecked")
 		public synchronized void schedule(double timeoutMillis) {
 			// always cancel old timeouter when schedule of an new timeout is necessary
 			this.cancel();
 			PublishTimeoutWrapper timeoutWrapper = new PublishTimeoutWrapper(this, this.crpTimeout);
-			// schedules timeoutTask on subscription queue executer
-			this.timeout = (ScheduledFuture<PublishTimeoutWrapper>) timeoutScheduler.schedule(timeoutWrapper, (long) timeoutMillis, TimeUnit.MILLISECONDS);
+			// schedules timeoutTask on the publish timeout scheduler, looked up each time - it gets replaced after destroy of the application context
+			this.timeout = AppContext.getPublishTimeoutScheduler().schedule(timeoutWrapper, (long) timeoutMillis, TimeUnit.MILLISECONDS);
 			if (LOGGER.isTraceEnabled()) {
 				LOGGER.trace("schedule datapointer " + timeoutMillis);
 			}
 		}
 
 		/**
-		 * Destroys data pointer and dereferences node in queue.
+		 * Destroys data pointer.
 		 */
 		private synchronized void destroy() {
 			if (LOGGER.isTraceEnabled()) {
 				LOGGER.trace("destroy TimeAwareDataPointer");
 			}
 			this.cancel();
-			if (node != null) {
-				this.node.dereference();
-			}
 			if (this.listening) {
 				// necessary for responding CRP to client! Very important!
 				this.listening = false;
@@ -498,15 +917,13 @@ public class PublishMessageQueue<E> {
 		 */
 		public synchronized void cancel() {
 			if (this.timeout != null) {
-				// cancel timeout even if its already running - timeout synchronize on queue
-				this.timeout.cancel(true);
+				// running timeout is not interrupted - timeout synchronize on data pointer and checks listening
+				this.timeout.cancel(false);
 				if (LOGGER.isTraceEnabled()) {
 					LOGGER.trace("cancel TimeAwareDataPointer");
 				}
 				// important to set timeouter null - rescheduling of same instance not possible
 				this.timeout = null;
-				// removes canceled timeouts
-				PublishMessageQueue.this.timeoutScheduler.purge();
 			}
 		}
 	}
@@ -536,7 +953,11 @@ public class PublishMessageQueue<E> {
 		/** {@inheritDoc} */
 		@Override
 		public void run() {
-			synchronized (PublishMessageQueue.this) {
+			synchronized (this.dataPointer) {
+				if (this.dataPointer.listening == false) {
+					// answered in the meantime
+					return;
+				}
 				// stops listening - ITimerRun gets executed
 				this.dataPointer.stopListen();
 				// timeout target
@@ -553,41 +974,48 @@ public class PublishMessageQueue<E> {
 	 */
 	public void dump(XMLDumpWriter writer) throws Exception {
 		writer.writeStartElement("publishMessageQueue");
-		writer.writeAttribute("totalSize", this.dataQueue.getSize());
+		writer.writeAttribute("totalSize", this.getTotalSize());
 		writer.writeAttribute("referencedNodesCount", this.getReferencedNodesCount());
 		writer.writeAttribute("peak", this.peak);
-		writer.writeAttribute("timeoutScheduler_poolSize", this.timeoutScheduler.getPoolSize());
-		writer.writeAttribute("timeoutScheduler_maximumPoolSize", this.timeoutScheduler.getMaximumPoolSize());
-		writer.writeAttribute("timeoutScheduler_corePoolSize", this.timeoutScheduler.getCorePoolSize());
-		writer.writeAttribute("timeoutScheduler_largestPoolSize", this.timeoutScheduler.getLargestPoolSize());
-		writer.writeAttribute("timeoutScheduler_activeCount", this.timeoutScheduler.getActiveCount());
+		writer.writeAttribute("waitingDataPointers", this.waitingPointers.size());
+		writer.writeAttribute("indexedMasks", this.maskIndex.getSize());
+		TimeoutScheduler timeoutScheduler = AppContext.getPublishTimeoutScheduler();
+		writer.writeAttribute("timeoutScheduler_pendingTimeouts", timeoutScheduler.getPendingTimeouts());
+		writer.writeAttribute("timeoutScheduler_expiredBacklog", timeoutScheduler.getExpiredBacklog());
 
 		String[] keys = this.pointerMap.keySet().toArray(new String[0]);
+		Arrays.sort(keys);
 		writer.writeStartElement("dataPointerMap");
 		for (String key : keys) {
 			TimeAwareDataPointer dataPointer = this.pointerMap.get(key);
 			if (dataPointer != null) {
 				writer.writeStartElement("dataPointer");
-				if (dataPointer.node != null) {
-					writer.writeAttribute("linkedNodeHashCode", dataPointer.node.hashCode());
-				} else {
-					writer.writeAttribute("remainingDelayMillis", dataPointer.timeout.getDelay(TimeUnit.MILLISECONDS));
+				QueueNode<E> node = dataPointer.node;
+				ScheduledFuture<PublishTimeoutWrapper> timeout = dataPointer.timeout;
+				if (node != null) {
+					writer.writeAttribute("nodeSequenceNr", node.sequenceNr);
+				} else if (timeout != null) {
+					writer.writeAttribute("remainingDelayMillis", timeout.getDelay(TimeUnit.MILLISECONDS));
 				}
 				writer.writeAttribute("listening", dataPointer.listening);
-				writer.writeAttribute("mask", dataPointer.mask.getValue());
+				writer.writeAttribute("pushDelivery", dataPointer.pushDelivery);
+				SubscriptionMask mask = dataPointer.mask;
+				if (mask != null) {
+					writer.writeAttribute("mask", mask.getValue());
+				}
 				writer.writeAttribute("sid", key);
 				writer.writeEndElement(); // dataPointer
 			}
 		}
 		writer.writeEndElement(); // dataPointerMap
-		Iterator<LinkedNode<E>> iter = this.nodeIterator();
+		Iterator<QueueNode<E>> iter = this.nodeIterator();
 		while (iter.hasNext()) {
-			LinkedNode<E> linkedNode = iter.next();
-			writer.writeStartElement("linkedNode");
-			writer.writeAttribute("hashCode", linkedNode.hashCode());
-			writer.writeAttribute("referenceCounter", linkedNode.getReferenceCount());
-			writer.writeAttribute("content", linkedNode.getValue().toString());
-			writer.writeEndElement(); // linkedNode
+			QueueNode<E> node = iter.next();
+			writer.writeStartElement("queueNode");
+			writer.writeAttribute("sequenceNr", node.sequenceNr);
+			writer.writeAttribute("referenceCounter", this.getReferenceCount(node));
+			writer.writeAttribute("content", node.getValue().toString());
+			writer.writeEndElement(); // queueNode
 		}
 		writer.writeEndElement(); // publishMessageQueue
 	}
@@ -19,7 +19,6 @@ package org.serviceconnector.registry;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -27,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import org.serviceconnector.server.Server;
 import org.serviceconnector.server.StatefulServer;
 import org.serviceconnector.util.ITimeout;
+import org.serviceconnector.util.TimeoutScheduler;
 import org.serviceconnector.util.TimeoutWrapper;
 
 /**
@@ -41,13 +41,13 @@ public class ServerRegistry extends Registry<String, Server> {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ServerRegistry.class);
 
 	/** The timer. Timer instance is responsible to observe server timeouts. */
-	private ScheduledThreadPoolExecutor serverScheduler;
+	private TimeoutScheduler serverScheduler;
 
 	/**
 	 * Instantiates a ServerRegistry.
 	 */
 	public ServerRegistry() {
-		this.serverScheduler = new ScheduledThreadPoolExecutor(1);
+		this.serverScheduler = new TimeoutScheduler("ServerTimeout");
 	}
 
 	/**
@@ -112,7 +112,6 @@ public class ServerRegistry extends Registry<String, Server> {
 	 *
 	 * @param server the server
 	 */
-	@SuppressWarnings("unchecked")
 	private void scheduleServerTimeout(Server server, double newTimeoutMillis) {
 		if (server == null || newTimeoutMillis == 0) {
 			// no scheduling of server timeout
@@ -123,7 +122,7 @@ public class ServerRegistry extends Registry<String, Server> {
 		// sets up server timeout
 		TimeoutWrapper serverTimeouter = new TimeoutWrapper(new ServerTimeout(server, server.getServerTimeoutMillis()));
 		// schedule serverTimeouter in registry timer
-		ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) this.serverScheduler.schedule(serverTimeouter, (long) newTimeoutMillis, TimeUnit.MILLISECONDS);
+		ScheduledFuture<TimeoutWrapper> timeout = this.serverScheduler.schedule(serverTimeouter, (long) newTimeoutMillis, TimeUnit.MILLISECONDS);
 		LOGGER.trace("schedule server timeout server=" + server.getServerKey() + " timeout=" + newTimeoutMillis);
 		server.setTimeout(timeout);
 		server.setTimeouterTask(serverTimeouter);
@@ -147,12 +146,7 @@ public class ServerRegistry extends Registry<String, Server> {
 		boolean cancelSuccess = serverTimeout.cancel(false);
 		if (cancelSuccess == false) {
 			LOGGER.error("cancel of server timeout failed server=" + server.getServerKey() + " delay=" + serverTimeout.getDelay(TimeUnit.MILLISECONDS) + " ms");
-			boolean remove = this.serverScheduler.remove(server.getTimeouterTask());
-			if (remove == false) {
-				LOGGER.error("remove of server timeout failed server=" + server.getServerKey() + " delay=" + serverTimeout.getDelay(TimeUnit.MILLISECONDS) + " ms");
-			}
 		}
-		this.serverScheduler.purge();
 		// important to set timeouter null - rescheduling of same instance not possible
 		server.setTimeout(null);
 	}
@@ -19,7 +19,6 @@ package org.serviceconnector.registry;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -29,7 +28,7 @@ import org.serviceconnector.log.SessionLogger;
 import org.serviceconnector.server.IServer;
 import org.serviceconnector.service.Session;
 import org.serviceconnector.util.ITimeout;
-import org.serviceconnector.util.NamedPriorityThreadFactory;
+import org.serviceconnector.util.TimeoutScheduler;
 import org.serviceconnector.util.TimeoutWrapper;
 import org.serviceconnector.util.XMLDumpWriter;
 
@@ -45,13 +44,13 @@ public class SessionRegistry extends Registry<String, Session> {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SessionRegistry.class);
 
 	/** The timer. Timer instance is responsible to observe session timeouts. */
-	private ScheduledThreadPoolExecutor sessionScheduler;
+	private TimeoutScheduler sessionScheduler;
 
 	/**
 	 * Instantiates a SessionRegistry.
 	 */
 	public SessionRegistry() {
-		this.sessionScheduler = new ScheduledThreadPoolExecutor(1, new NamedPriorityThreadFactory("SessionTimeout"));
+		this.sessionScheduler = new TimeoutScheduler("SessionTimeout");
 	}
 
 	/**
@@ -131,7 +130,6 @@ public class SessionRegistry extends Registry<String, Session> {
 	 *
 	 * @param session the session
 	 */
-	@SuppressWarnings("unchecked")
 	private void scheduleSessionTimeout(Session session, double newTimeoutMillis) {
 		if (session == null || newTimeoutMillis == 0) {
 			// no scheduling of session timeout
@@ -142,8 +140,7 @@ public class SessionRegistry extends Registry<String, Session> {
 		// sets up session timeout
 		TimeoutWrapper sessionTimeouter = new TimeoutWrapper(new SessionTimeout(session, session.getSessionTimeoutMillis()));
 		// schedule sessionTimeouter in registry timer
-		ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) this.sessionScheduler.schedule(sessionTimeouter, (long) newTimeoutMillis,
-				TimeUnit.MILLISECONDS);
+		ScheduledFuture<TimeoutWrapper> timeout = this.sessionScheduler.schedule(sessionTimeouter, (long) newTimeoutMillis, TimeUnit.MILLISECONDS);
 		if (SessionLogger.isTraceEnabled()) {
 			SessionLogger.logScheduleTimeout(session.getId(), newTimeoutMillis, timeout.getDelay(TimeUnit.MILLISECONDS));
 		}
@@ -171,12 +168,7 @@ public class SessionRegistry extends Registry<String, Session> {
 		boolean cancelSuccess = sessionTimeout.cancel(false);
 		if (cancelSuccess == false) {
 			LOGGER.error("cancel of session timeout failed sid=" + session.getId() + " delay=" + sessionTimeout.getDelay(TimeUnit.MILLISECONDS) + " ms");
-			boolean remove = this.sessionScheduler.remove(session.getTimeouterTask());
-			if (remove == false) {
-				LOGGER.error("remove of session timeout failed sid=" + session.getId() + " delay=" + sessionTimeout.getDelay(TimeUnit.MILLISECONDS) + " ms");
-			}
 		}
-		this.sessionScheduler.purge();
 		// important to set timeouter null - rescheduling of same instance not possible
 		session.setTimeout(null);
 	}
@@ -250,11 +242,7 @@ public class SessionRegistry extends Registry<String, Session> {
 	 */
 	public void dump(XMLDumpWriter writer) throws Exception {
 		writer.writeStartElement("sessions");
-		writer.writeAttribute("sessionScheduler_poolSize", this.sessionScheduler.getPoolSize());
-		writer.writeAttribute("sessionScheduler_maximumPoolSize", this.sessionScheduler.getMaximumPoolSize());
-		writer.writeAttribute("sessionScheduler_corePoolSize", this.sessionScheduler.getCorePoolSize());
-		writer.writeAttribute("sessionScheduler_largestPoolSize", this.sessionScheduler.getLargestPoolSize());
-		writer.writeAttribute("sessionScheduler_activeCount", this.sessionScheduler.getActiveCount());
+		writer.writeAttribute("sessionScheduler_pendingTimeouts", this.sessionScheduler.getPendingTimeouts());
 
 		Set<Entry<String, Session>> sessionEntries = this.registryMap.entrySet();
 		for (Entry<String, Session> sessionEntry : sessionEntries) {
@@ -21,7 +21,6 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -30,7 +29,7 @@ import org.serviceconnector.log.SubscriptionLogger;
 import org.serviceconnector.server.IStatefulServer;
 import org.serviceconnector.service.Subscription;
 import org.serviceconnector.util.ITimeout;
-import org.serviceconnector.util.NamedPriorityThreadFactory;
+import org.serviceconnector.util.TimeoutScheduler;
 import org.serviceconnector.util.TimeoutWrapper;
 import org.serviceconnector.util.XMLDumpWriter;
 
@@ -45,13 +44,13 @@ public class SubscriptionRegistry extends Registry<String, Subscription> {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionRegistry.class);
 
 	/** The timer. Timer instance is responsible to observe subscription timeouts. */
-	private ScheduledThreadPoolExecutor subscriptionScheduler;
+	private TimeoutScheduler subscriptionScheduler;
 
 	/**
 	 * Instantiates a new subscription registry.
 	 */
 	public SubscriptionRegistry() {
-		this.subscriptionScheduler = new ScheduledThreadPoolExecutor(1, new NamedPriorityThreadFactory("SubscriptionTimeout"));
+		this.subscriptionScheduler = new TimeoutScheduler("SubscriptionTimeout");
 	}
 
 	/**
@@ -160,7 +159,6 @@ public class SubscriptionRegistry extends Registry<String, Subscription> {
 	 *
 	 * @param subscription the subscription
 	 */
-	@SuppressWarnings("unchecked")
 	private void scheduleSubscriptionTimeout(Subscription subscription, double newTimeoutMillis) {
 		if (subscription == null) {
 			// no scheduling of Subscription timeout
@@ -171,8 +169,7 @@ public class SubscriptionRegistry extends Registry<String, Subscription> {
 		// sets up subscription timeout
 		TimeoutWrapper subscriptionTimeouter = new TimeoutWrapper(new SubscriptionTimeout(subscription));
 		// schedule sessionTimeouter in registry timer
-		ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) this.subscriptionScheduler.schedule(subscriptionTimeouter, (long) newTimeoutMillis,
-				TimeUnit.MILLISECONDS);
+		ScheduledFuture<TimeoutWrapper> timeout = this.subscriptionScheduler.schedule(subscriptionTimeouter, (long) newTimeoutMillis, TimeUnit.MILLISECONDS);
 		subscription.setTimeout(timeout);
 		if (SubscriptionLogger.isTraceEnabled()) {
 			SubscriptionLogger.logScheduleTimeout(subscription.getId(), newTimeoutMillis, timeout.getDelay(TimeUnit.MILLISECONDS));
@@ -199,14 +196,7 @@ public class SubscriptionRegistry extends Registry<String, Subscription> {
 		boolean cancelSuccess = subscriptionTimeout.cancel(false);
 		if (cancelSuccess == false) {
 			LOGGER.error("cancel of subscription timeout failed sid=" + subscription.getId() + " delay=" + subscriptionTimeout.getDelay(TimeUnit.MILLISECONDS) + "ms");
-			boolean remove = this.subscriptionScheduler.remove(subscription.getTimeouterTask());
-			if (remove == false) {
-				LOGGER.error("remove of subscription timeout failed sid=" + subscription.getId() + " delay=" + subscriptionTimeout.getDelay(TimeUnit.MILLISECONDS) + " ms");
-			}
 		}
-
-		// tries removing canceled timeouts
-		this.subscriptionScheduler.purge();
 		// important to set timeout null - rescheduling of same instance not possible
 		subscription.setTimeout(null);
 	}
@@ -279,11 +269,7 @@ public class SubscriptionRegistry extends Registry<String, Subscription> {
 	 */
 	public void dump(XMLDumpWriter writer) throws Exception {
 		writer.writeStartElement("subscriptions");
-		writer.writeAttribute("subscriptionScheduler_poolSize", this.subscriptionScheduler.getPoolSize());
-		writer.writeAttribute("subscriptionScheduler_maximumPoolSize", this.subscriptionScheduler.getMaximumPoolSize());
-		writer.writeAttribute("subscriptionScheduler_corePoolSize", this.subscriptionScheduler.getCorePoolSize());
-		writer.writeAttribute("subscriptionScheduler_largestPoolSize", this.subscriptionScheduler.getLargestPoolSize());
-		writer.writeAttribute("subscriptionScheduler_activeCount", this.subscriptionScheduler.getActiveCount());
+		writer.writeAttribute("subscriptionScheduler_pendingTimeouts", this.subscriptionScheduler.getPendingTimeouts());
 
 		Set<Entry<String, Subscription>> entries = this.registryMap.entrySet();
 		for (Entry<String, Subscription> entry : entries) {
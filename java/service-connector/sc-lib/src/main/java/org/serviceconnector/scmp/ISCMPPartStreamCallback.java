@@ -0,0 +1,33 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.scmp;
+
+import java.io.OutputStream;
+
+/**
+ * The Interface ISCMPPartStreamCallback. Callback receiving the body of a large response streamed. Parts are written to the part stream as they
+ * arrive, the composite handed to the callback at the end carries no body.
+ */
+public interface ISCMPPartStreamCallback extends ISCMPMessageCallback {
+
+	/**
+	 * Gets the part stream.
+	 *
+	 * @return the stream part bodies are written to
+	 */
+	public abstract OutputStream getPartStream();
+}
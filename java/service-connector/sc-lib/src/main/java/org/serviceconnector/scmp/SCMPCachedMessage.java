@@ -0,0 +1,423 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.scmp;
+
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.serviceconnector.Constants;
+import org.serviceconnector.net.EncodingDecodingException;
+
+/**
+ * The Class SCMPCachedMessage. Immutable snapshot of a message stored in the data cache. Header and body are taken once when the message gets
+ * cached, header attributes which are not adapted per requester are encoded in advance. Cache hits share the snapshot, the per request header
+ * attributes are overlaid in the message created by {@link #newMessage()} and the pre-encoded header is written as it is.
+ */
+public final class SCMPCachedMessage implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -2484178345036325712L;
+	/** The Constant OVERLAY_KEYS, header attributes adapted for every requester, they are not part of the encoded header. */
+	public static final Set<String> OVERLAY_KEYS = SCMPCachedMessage.initOverlayKeys();
+	/** The Constant SC_CHARSET, charset of the encoded header. */
+	private static final Charset SC_CHARSET = Charset.forName(Constants.SC_CHARACTER_SET);
+	/** The Constant UTF8_CHARSET, charset of string values in the encoded cached message. */
+	private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+	/** The Constant FLAG_REPLY, flags of the encoded cached message. */
+	private static final int FLAG_REPLY = 0x01;
+	/** The Constant FLAG_REQ_COMPLETE_AFTER_MARSHALLING_PART. */
+	private static final int FLAG_REQ_COMPLETE_AFTER_MARSHALLING_PART = 0x02;
+	/** The Constant FLAG_PART. */
+	private static final int FLAG_PART = 0x04;
+	/** The Constant FLAG_POLL_REQUEST. */
+	private static final int FLAG_POLL_REQUEST = 0x08;
+	/** The Constant BODY_NONE, body types of the encoded cached message. */
+	private static final byte BODY_NONE = 0;
+	/** The Constant BODY_BYTES. */
+	private static final byte BODY_BYTES = 1;
+	/** The Constant BODY_STRING. */
+	private static final byte BODY_STRING = 2;
+
+	/** The SCMP version. */
+	private final SCMPVersion scmpVersion;
+	/** The is reply. */
+	private final boolean isReply;
+	/** The is req complete after marshalling part. */
+	private final boolean isReqCompleteAfterMarshallingPart;
+	/** The part flag, message is an SCMPPart. */
+	private final boolean isPart;
+	/** The poll request flag of a part. */
+	private final boolean pollRequest;
+	/** The message part size. */
+	private final int partSize;
+	/** The HTTP URL file qualifier. */
+	private final String httpUrlFileQualifier;
+	/** The header, unmodifiable. */
+	private final Map<String, String> header;
+	/** The encoded header attributes except the overlay keys. */
+	private final byte[] encodedHeader;
+	/** The body, shared by all messages created from this snapshot. */
+	private final Object body;
+
+	/**
+	 * Instantiates a new SCMP cached message. The header gets copied, the body is shared - it must not be modified after caching.
+	 *
+	 * @param message the message to cache
+	 */
+	public SCMPCachedMessage(SCMPMessage message) {
+		this.scmpVersion = message.getSCMPVersion();
+		this.isReply = message.isReply();
+		this.isReqCompleteAfterMarshallingPart = message.isReqCompleteAfterMarshallingPart();
+		this.isPart = message.isPart();
+		this.pollRequest = message.isPollRequest();
+		this.partSize = message.getPartSize();
+		this.httpUrlFileQualifier = message.getHttpUrlFileQualifier();
+		this.header = Collections.unmodifiableMap(new SCMPHeader(message.getHeader()));
+		this.encodedHeader = SCMPCachedMessage.encodeHeader(this.header);
+		this.body = message.getBody();
+	}
+
+	/**
+	 * Instantiates a new SCMP cached message from decoded values.
+	 *
+	 * @param scmpVersion the SCMP version
+	 * @param flags the flags
+	 * @param partSize the part size
+	 * @param httpUrlFileQualifier the HTTP URL file qualifier
+	 * @param header the header
+	 * @param encodedHeader the encoded header
+	 * @param body the body
+	 */
+	private SCMPCachedMessage(SCMPVersion scmpVersion, int flags, int partSize, String httpUrlFileQualifier, Map<String, String> header,
+			byte[] encodedHeader, Object body) {
+		this.scmpVersion = scmpVersion;
+		this.isReply = (flags & FLAG_REPLY) != 0;
+		this.isReqCompleteAfterMarshallingPart = (flags & FLAG_REQ_COMPLETE_AFTER_MARSHALLING_PART) != 0;
+		this.isPart = (flags & FLAG_PART) != 0;
+		this.pollRequest = (flags & FLAG_POLL_REQUEST) != 0;
+		this.partSize = partSize;
+		this.httpUrlFileQualifier = httpUrlFileQualifier;
+		this.header = Collections.unmodifiableMap(header);
+		this.encodedHeader = encodedHeader;
+		this.body = body;
+	}
+
+	/**
+	 * Creates a new message for a requester. Body and header of the snapshot are shared, header attributes set on the returned message are
+	 * overlaid and never modify the snapshot.
+	 *
+	 * @return the SCMP message
+	 */
+	public SCMPMessage newMessage() {
+		SCMPMessage message = null;
+		if (this.isPart) {
+			message = new SCMPPart(this.scmpVersion, this.pollRequest);
+		} else {
+			message = new SCMPMessage(this.scmpVersion);
+		}
+		message.setIsReply(this.isReply);
+		message.setIsReqCompleteAfterMarshallingPart(this.isReqCompleteAfterMarshallingPart);
+		message.setPartSize(this.partSize);
+		message.setHttpUrlFileQualifier(this.httpUrlFileQualifier);
+		message.setBody(this.body);
+		// header is set after body, body type header of the new message is already part of the snapshot
+		message.setHeader(new SCMPOverlayHeader(this));
+		return message;
+	}
+
+	/**
+	 * Gets the header, unmodifiable.
+	 *
+	 * @return the header
+	 */
+	public Map<String, String> getHeader() {
+		return this.header;
+	}
+
+	/**
+	 * Gets the header attribute.
+	 *
+	 * @param headerType the header type
+	 * @return the header attribute value
+	 */
+	public String getHeader(SCMPHeaderAttributeKey headerType) {
+		return this.header.get(headerType.getValue());
+	}
+
+	/**
+	 * Gets the encoded header. Contains all header attributes except the overlay keys. Array must not be modified.
+	 *
+	 * @return the encoded header
+	 */
+	public byte[] getEncodedHeader() {
+		return this.encodedHeader;
+	}
+
+	/**
+	 * Gets the body length.
+	 *
+	 * @return the body length
+	 */
+	public int getBodyLength() {
+		if (this.body == null) {
+			return 0;
+		}
+		if (byte[].class == this.body.getClass()) {
+			return ((byte[]) this.body).length;
+		}
+		if (String.class == this.body.getClass()) {
+			return ((String) this.body).length();
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks if cached message is a part.
+	 *
+	 * @return true, if is part
+	 */
+	public boolean isPart() {
+		return this.isPart;
+	}
+
+	/**
+	 * Encodes the cached message into bytes, used by cache modules storing the message outside the heap. The encoded header is stored as it is,
+	 * followed by the overlay attributes and the body. Each variable length field is preceded by its length, -1 stands for null.<br />
+	 * flags(1) version(1) partSize(4) qualifier(4+n) encodedHeader(4+n) overlayAttributes(4+n) bodyType(1) body(4+n)<br />
+	 * Body and overlay attributes of type string are UTF-8 encoded.
+	 *
+	 * @return the encoded cached message
+	 * @throws EncodingDecodingException body of an unsupported type
+	 */
+	public byte[] encode() throws EncodingDecodingException {
+		byte bodyType;
+		byte[] bodyBytes;
+		if (this.body == null) {
+			bodyType = BODY_NONE;
+			bodyBytes = null;
+		} else if (byte[].class == this.body.getClass()) {
+			bodyType = BODY_BYTES;
+			bodyBytes = (byte[]) this.body;
+		} else if (String.class == this.body.getClass()) {
+			bodyType = BODY_STRING;
+			bodyBytes = ((String) this.body).getBytes(UTF8_CHARSET);
+		} else {
+			throw new EncodingDecodingException("unsupported body type=" + this.body.getClass().getName());
+		}
+		StringBuilder overlaySb = new StringBuilder();
+		for (Entry<String, String> entry : this.header.entrySet()) {
+			if (OVERLAY_KEYS.contains(entry.getKey())) {
+				SCMPCachedMessage.appendAttribute(overlaySb, entry.getKey(), entry.getValue());
+			}
+		}
+		byte[] overlayBytes = overlaySb.toString().getBytes(UTF8_CHARSET);
+		byte[] qualifierBytes = this.httpUrlFileQualifier == null ? null : this.httpUrlFileQualifier.getBytes(UTF8_CHARSET);
+
+		int length = 2 + 4 + SCMPCachedMessage.fieldLength(qualifierBytes) + SCMPCachedMessage.fieldLength(this.encodedHeader)
+				+ SCMPCachedMessage.fieldLength(overlayBytes) + 1 + SCMPCachedMessage.fieldLength(bodyBytes);
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		int flags = (this.isReply ? FLAG_REPLY : 0) | (this.isReqCompleteAfterMarshallingPart ? FLAG_REQ_COMPLETE_AFTER_MARSHALLING_PART : 0)
+				| (this.isPart ? FLAG_PART : 0) | (this.pollRequest ? FLAG_POLL_REQUEST : 0);
+		buffer.put((byte) flags);
+		buffer.put((byte) this.scmpVersion.ordinal());
+		buffer.putInt(this.partSize);
+		SCMPCachedMessage.putField(buffer, qualifierBytes);
+		SCMPCachedMessage.putField(buffer, this.encodedHeader);
+		SCMPCachedMessage.putField(buffer, overlayBytes);
+		buffer.put(bodyType);
+		SCMPCachedMessage.putField(buffer, bodyBytes);
+		return buffer.array();
+	}
+
+	/**
+	 * Decodes a cached message encoded by {@link #encode()}. The encoded header is taken as it is, the header is parsed from the encoded header and
+	 * the overlay attributes. Like on the wire, characters of header values which are not ISO-8859-1 are replaced by '?'.
+	 *
+	 * @param bytes the encoded cached message
+	 * @return the SCMP cached message
+	 * @throws EncodingDecodingException the bytes are not an encoded cached message
+	 */
+	public static SCMPCachedMessage decode(byte[] bytes) throws EncodingDecodingException {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			int flags = buffer.get();
+			SCMPVersion scmpVersion = SCMPVersion.values()[buffer.get()];
+			int partSize = buffer.getInt();
+			byte[] qualifierBytes = SCMPCachedMessage.getField(buffer);
+			byte[] encodedHeader = SCMPCachedMessage.getField(buffer);
+			byte[] overlayBytes = SCMPCachedMessage.getField(buffer);
+			byte bodyType = buffer.get();
+			byte[] bodyBytes = SCMPCachedMessage.getField(buffer);
+			if (buffer.hasRemaining()) {
+				throw new EncodingDecodingException("invalid encoded cached message, trailing bytes=" + buffer.remaining());
+			}
+
+			SCMPHeader header = new SCMPHeader();
+			SCMPCachedMessage.parseAttributes(header, new String(encodedHeader, SC_CHARSET));
+			SCMPCachedMessage.parseAttributes(header, new String(overlayBytes, UTF8_CHARSET));
+			Object body;
+			switch (bodyType) {
+				case BODY_NONE:
+					body = null;
+					break;
+				case BODY_BYTES:
+					body = bodyBytes;
+					break;
+				case BODY_STRING:
+					body = new String(bodyBytes, UTF8_CHARSET);
+					break;
+				default:
+					throw new EncodingDecodingException("invalid encoded cached message, body type=" + bodyType);
+			}
+			String httpUrlFileQualifier = qualifierBytes == null ? null : new String(qualifierBytes, UTF8_CHARSET);
+			return new SCMPCachedMessage(scmpVersion, flags, partSize, httpUrlFileQualifier, header, encodedHeader, body);
+		} catch (BufferUnderflowException ex) {
+			throw new EncodingDecodingException("invalid encoded cached message, length=" + bytes.length);
+		} catch (ArrayIndexOutOfBoundsException ex) {
+			throw new EncodingDecodingException("invalid encoded cached message, unknown SCMP version");
+		}
+	}
+
+	/**
+	 * Gets the length of an encoded field, length prefix included.
+	 *
+	 * @param field the field
+	 * @return the encoded field length
+	 */
+	private static int fieldLength(byte[] field) {
+		return 4 + (field == null ? 0 : field.length);
+	}
+
+	/**
+	 * Puts a field preceded by its length.
+	 *
+	 * @param buffer the buffer
+	 * @param field the field, null is written as length -1
+	 */
+	private static void putField(ByteBuffer buffer, byte[] field) {
+		if (field == null) {
+			buffer.putInt(-1);
+			return;
+		}
+		buffer.putInt(field.length);
+		buffer.put(field);
+	}
+
+	/**
+	 * Gets a field preceded by its length.
+	 *
+	 * @param buffer the buffer
+	 * @return the field, null for length -1
+	 */
+	private static byte[] getField(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] field = new byte[length];
+		buffer.get(field);
+		return field;
+	}
+
+	/**
+	 * Parses attributes written like the encoder writes them, key=value or key terminated by a line break.
+	 *
+	 * @param header the header to put the attributes in
+	 * @param attributes the attributes
+	 */
+	private static void parseAttributes(Map<String, String> header, String attributes) {
+		int keyOff = 0;
+		int length = attributes.length();
+		while (keyOff < length) {
+			int lfIndex = attributes.indexOf(Constants.LINE_BREAK_SIGN, keyOff);
+			if (lfIndex < 0) {
+				lfIndex = length;
+			}
+			int equalIndex = attributes.indexOf(Constants.EQUAL_SIGN, keyOff);
+			if (equalIndex >= 0 && equalIndex < lfIndex) {
+				header.put(attributes.substring(keyOff, equalIndex), attributes.substring(equalIndex + 1, lfIndex));
+			} else {
+				header.put(attributes.substring(keyOff, lfIndex), null);
+			}
+			keyOff = lfIndex + 1;
+		}
+	}
+
+	/**
+	 * Appends an attribute the way the encoder writes it.
+	 *
+	 * @param sb the string builder
+	 * @param key the key
+	 * @param value the value, null for a flag
+	 */
+	private static void appendAttribute(StringBuilder sb, String key, String value) {
+		sb.append(key);
+		if (value != null) {
+			sb.append(Constants.EQUAL_SIGN);
+			sb.append(value);
+		}
+		sb.append(Constants.LINE_BREAK_SIGN);
+	}
+
+	/**
+	 * Encode header. Attributes are written the way the encoder writes them, ISO-8859-1 encoded.
+	 *
+	 * @param header the header
+	 * @return the encoded header without overlay keys
+	 */
+	private static byte[] encodeHeader(Map<String, String> header) {
+		StringBuilder sb = new StringBuilder();
+		for (Entry<String, String> entry : header.entrySet()) {
+			if (OVERLAY_KEYS.contains(entry.getKey())) {
+				continue;
+			}
+			SCMPCachedMessage.appendAttribute(sb, entry.getKey(), entry.getValue());
+		}
+		byte[] encoded = new byte[sb.length()];
+		for (int i = 0; i < encoded.length; i++) {
+			char c = sb.charAt(i);
+			// unmappable characters are replaced like the charset encoder does
+			encoded[i] = (byte) (c > 0xFF ? '?' : c);
+		}
+		return encoded;
+	}
+
+	/**
+	 * Initializes the overlay keys.
+	 *
+	 * @return the set of overlay keys
+	 */
+	private static Set<String> initOverlayKeys() {
+		Set<String> keys = new HashSet<String>();
+		keys.add(SCMPHeaderAttributeKey.SERVICE_NAME.getValue());
+		keys.add(SCMPHeaderAttributeKey.MSG_TYPE.getValue());
+		keys.add(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR.getValue());
+		keys.add(SCMPHeaderAttributeKey.SESSION_ID.getValue());
+		keys.add(SCMPHeaderAttributeKey.CACHED.getValue());
+		return Collections.unmodifiableSet(keys);
+	}
+}
@@ -16,18 +16,21 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.scmp;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.StringWriter;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.UnsupportedEncodingException;
+import java.util.LinkedList;
 import java.util.Map;
 
+import org.serviceconnector.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The Class SCMPCompositeReceiver. Used to handle incoming large request/response. Stores parts and put them together to complete request/response.
+ * Parts are released as soon as they are put together, streamed to a part stream or read by the body stream. A large message is never held
+ * twice.
  *
  * @author JTraber
  */
@@ -39,15 +42,17 @@ public class SCMPCompositeReceiver extends SCMPMessage {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SCMPCompositeReceiver.class);
 
 	/** The list of message parts. */
-	private List<SCMPMessage> scmpList;
+	private LinkedList<SCMPMessage> scmpList;
 	/** The part request, request to pull. */
 	private SCMPMessage pollMsg;
 	/** The scmp offset. */
 	private int offest;
-	/** The output stream. */
-	private ByteArrayOutputStream outputStream;
-	/** The string writer. */
-	private StringWriter writer;
+	/** The merged body, parts put together. */
+	private Object mergedBody;
+	/** The part stream, part bodies are written to as they arrive. */
+	private transient OutputStream partStream;
+	/** The part stream exception, first exception writing to the part stream. */
+	private transient IOException partStreamException;
 	/** The complete flag. */
 	private boolean complete;
 
@@ -60,13 +65,14 @@ public class SCMPCompositeReceiver extends SCMPMessage {
 	public SCMPCompositeReceiver(SCMPMessage request, SCMPMessage messagePart) {
 		// SCMP Version request
 		super(request.getSCMPVersion());
-		this.outputStream = null;
-		this.writer = null;
+		this.mergedBody = null;
+		this.partStream = null;
+		this.partStreamException = null;
 		this.offest = 0;
 		// default compositeReceiver is not complete
 		this.complete = false;
 		this.header = messagePart.getHeader();
-		scmpList = new ArrayList<SCMPMessage>();
+		scmpList = new LinkedList<SCMPMessage>();
 		// builds up request to poll later - SCMP Version request
 		pollMsg = new SCMPPart(request.getSCMPVersion(), true, messagePart.getHeader());
 		pollMsg.setMessageType(request.getMessageType());
@@ -87,7 +93,7 @@ public class SCMPCompositeReceiver extends SCMPMessage {
 	}
 
 	/**
-	 * Adds the part.
+	 * Adds the part. The part is written to the part stream right away if there is one.
 	 *
 	 * @param message the SCMP message
 	 */
@@ -97,9 +103,67 @@ public class SCMPCompositeReceiver extends SCMPMessage {
 		}
 		int bodyLength = message.getBodyLength();
 		this.offest += bodyLength;
+		if (this.partStream != null) {
+			this.writePart(message);
+			return;
+		}
+		if (this.mergedBody != null) {
+			// parts already put together, continue with merged body
+			SCMPMessage mergedPart = new SCMPMessage(this.getSCMPVersion());
+			mergedPart.setBody(this.mergedBody);
+			this.scmpList.add(mergedPart);
+			this.mergedBody = null;
+		}
 		this.scmpList.add(message);
 	}
 
+	/**
+	 * Sets the part stream. Bodies of parts are written to the given stream as they arrive and are not kept, the composite has no body
+	 * afterwards. Parts received so far are written immediately.
+	 *
+	 * @param partStream the part stream
+	 */
+	public void setPartStream(OutputStream partStream) {
+		this.partStream = partStream;
+		if (this.mergedBody != null) {
+			SCMPMessage mergedPart = new SCMPMessage(this.getSCMPVersion());
+			mergedPart.setBody(this.mergedBody);
+			this.writePart(mergedPart);
+			this.mergedBody = null;
+		}
+		SCMPMessage message = null;
+		while ((message = this.scmpList.poll()) != null) {
+			this.writePart(message);
+		}
+	}
+
+	/**
+	 * Write part to the part stream. After the first failure bodies are dropped, the exception is kept for the receiver of the composite.
+	 *
+	 * @param message the message
+	 */
+	private void writePart(SCMPMessage message) {
+		if (this.partStreamException != null || message.getBodyLength() <= 0) {
+			return;
+		}
+		try {
+			this.partStream.write(SCMPCompositeReceiver.getBodyBytes(message));
+			this.partStream.flush();
+		} catch (IOException ex) {
+			LOGGER.error("writing part to stream failed " + ex.toString());
+			this.partStreamException = ex;
+		}
+	}
+
+	/**
+	 * Gets the part stream exception.
+	 *
+	 * @return the exception raised writing to the part stream, null if there was none
+	 */
+	public IOException getPartStreamException() {
+		return this.partStreamException;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public boolean isComposite() {
@@ -109,85 +173,90 @@ public class SCMPCompositeReceiver extends SCMPMessage {
 	/** {@inheritDoc} */
 	@Override
 	public int getBodyLength() {
-		Object body = this.getBody();
-		if (body == null) {
-			return 0;
-		}
-		if (this.outputStream != null) {
-			return this.outputStream.toByteArray().length;
-		}
-		if (this.writer != null) {
-			return this.writer.getBuffer().length();
-		}
-		return 0;
+		// sum of the part body lengths, parts need not be put together
+		return this.offest;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public Object getBody() {
-		if (this.outputStream != null) {
-			return this.outputStream.toByteArray();
-		}
-		if (this.writer != null) {
-			return this.writer.toString();
+		if (this.mergedBody != null) {
+			return this.mergedBody;
 		}
 		if (this.scmpList == null || this.scmpList.size() <= 0) {
 			return 0;
 		}
-		return this.mergePartBodies();
+		this.mergedBody = this.mergePartBodies();
+		return this.mergedBody;
 	}
 
 	/**
-	 * Merge part bodies.
+	 * Gets the body as stream. Parts are read one after the other and released once read, they are not put together. The body is handed
+	 * over to the stream, it can be read once.
+	 *
+	 * @return the body stream
+	 */
+	public InputStream getBodyAsStream() {
+		LinkedList<SCMPMessage> parts = this.scmpList;
+		this.scmpList = new LinkedList<SCMPMessage>();
+		if (this.mergedBody != null) {
+			SCMPMessage mergedPart = new SCMPMessage(this.getSCMPVersion());
+			mergedPart.setBody(this.mergedBody);
+			parts.addFirst(mergedPart);
+			this.mergedBody = null;
+		}
+		return new SCMPPartInputStream(parts);
+	}
+
+	/**
+	 * Merge part bodies. The body is allocated once in its final size, parts are released afterwards.
 	 *
 	 * @return the object
 	 */
 	private Object mergePartBodies() {
 		// put all parts together to get complete body
 		SCMPMessage firstScmp = scmpList.get(0);
-		for (int i = 0; i < scmpList.size(); i++) {
-			firstScmp = scmpList.get(i);
+		for (SCMPMessage message : this.scmpList) {
+			firstScmp = message;
 			if (firstScmp.getBodyLength() != 0) {
 				// first scmp with body found continue
 				break;
 			}
 		}
 		if (firstScmp.isByteArray()) {
-			this.outputStream = new ByteArrayOutputStream();
-			try {
-				for (SCMPMessage message : this.scmpList) {
-					int bodyLength = message.getBodyLength();
-					if (bodyLength > 0) {
-						Object body = message.getBody();
-						if (body == null) {
-							LOGGER.warn("bodyLength > 0 but body == null");
-						}
-						this.outputStream.write((byte[]) body);
-						this.outputStream.flush();
+			int length = 0;
+			for (SCMPMessage message : this.scmpList) {
+				if (message.isByteArray()) {
+					length += message.getBodyLength();
+				}
+			}
+			byte[] body = new byte[length];
+			int position = 0;
+			for (SCMPMessage message : this.scmpList) {
+				int bodyLength = message.getBodyLength();
+				if (bodyLength > 0) {
+					Object partBody = message.getBody();
+					if (message.isByteArray() == false) {
+						LOGGER.warn("bodyLength > 0 but body is not of type byte array");
+						continue;
 					}
+					System.arraycopy((byte[]) partBody, 0, body, position, bodyLength);
+					position += bodyLength;
 				}
-			} catch (Exception ex) {
-				LOGGER.error("getBody " + ex.toString());
-				return null;
 			}
-			return this.outputStream.toByteArray();
+			this.scmpList.clear();
+			return body;
 		}
 		if (firstScmp.isString()) {
-			this.writer = new StringWriter();
-			try {
-				for (SCMPMessage message : this.scmpList) {
-					int bodyLength = message.getBodyLength();
-					if (bodyLength > 0) {
-						Object body = message.getBody();
-						this.writer.write((String) body);
-					}
+			StringBuilder body = new StringBuilder(this.offest);
+			for (SCMPMessage message : this.scmpList) {
+				int bodyLength = message.getBodyLength();
+				if (bodyLength > 0) {
+					body.append(message.getBody());
 				}
-				this.writer.flush();
-			} catch (Exception ex) {
-				LOGGER.error("getBody " + ex.toString());
-				return null;
 			}
-			return this.writer.toString();
+			this.scmpList.clear();
+			return body.toString();
 		}
 		return null;
 	}
@@ -198,25 +267,37 @@ public class SCMPCompositeReceiver extends SCMPMessage {
 	 * @param outStream the out stream
 	 */
 	public void writeBodyAsStream(OutputStream outStream) {
-		// put all parts together to get complete body
-		SCMPMessage firstScmp = scmpList.get(0);
-		if (firstScmp.isByteArray()) {
-			try {
-				for (SCMPMessage message : this.scmpList) {
-					int bodyLength = message.getBodyLength();
-					if (bodyLength > 0) {
-						Object body = message.getBody();
-						if (body == null) {
-							LOGGER.warn("bodyLength > 0 but body == null");
-						}
-						outStream.write((byte[]) body);
-						outStream.flush();
-					}
+		try {
+			if (this.mergedBody != null) {
+				outStream.write(SCMPCompositeReceiver.getBodyBytes(this));
+				outStream.flush();
+				return;
+			}
+			for (SCMPMessage message : this.scmpList) {
+				int bodyLength = message.getBodyLength();
+				if (bodyLength > 0) {
+					outStream.write(SCMPCompositeReceiver.getBodyBytes(message));
+					outStream.flush();
 				}
-			} catch (Exception ex) {
-				LOGGER.error("getBodyAsStream " + ex.toString());
 			}
+		} catch (Exception ex) {
+			LOGGER.error("getBodyAsStream " + ex.toString());
+		}
+	}
+
+	/**
+	 * Gets the body bytes of a message. Text is encoded in SC character set.
+	 *
+	 * @param message the message
+	 * @return the body bytes
+	 * @throws UnsupportedEncodingException the unsupported encoding exception
+	 */
+	private static byte[] getBodyBytes(SCMPMessage message) throws UnsupportedEncodingException {
+		Object body = message.getBody();
+		if (body instanceof String) {
+			return ((String) body).getBytes(Constants.SC_CHARACTER_SET);
 		}
+		return (byte[]) body;
 	}
 
 	/** {@inheritDoc} */
@@ -263,4 +344,87 @@ public class SCMPCompositeReceiver extends SCMPMessage {
 	public void complete() {
 		this.complete = true;
 	}
+
+	/**
+	 * The Class SCMPPartInputStream. Reads the bodies of parts one after the other, a part is released as soon as it has been read.
+	 */
+	private static class SCMPPartInputStream extends InputStream {
+
+		/** The parts not read yet. */
+		private LinkedList<SCMPMessage> parts;
+		/** The body of the part in reading. */
+		private byte[] partBody;
+		/** The position in the body of the part in reading. */
+		private int position;
+
+		/**
+		 * Instantiates a new SCMP part input stream.
+		 *
+		 * @param parts the parts
+		 */
+		public SCMPPartInputStream(LinkedList<SCMPMessage> parts) {
+			this.parts = parts;
+			this.partBody = null;
+			this.position = 0;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int read() throws IOException {
+			if (this.nextPartBody() == false) {
+				return -1;
+			}
+			return this.partBody[this.position++] & 0xff;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (this.nextPartBody() == false) {
+				return -1;
+			}
+			int readLength = Math.min(len, this.partBody.length - this.position);
+			System.arraycopy(this.partBody, this.position, b, off, readLength);
+			this.position += readLength;
+			return readLength;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int available() throws IOException {
+			if (this.partBody == null) {
+				return 0;
+			}
+			return this.partBody.length - this.position;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void close() throws IOException {
+			this.parts.clear();
+			this.partBody = null;
+		}
+
+		/**
+		 * Moves to the next part with unread body bytes, the part read completely is released.
+		 *
+		 * @return true, if there are unread bytes
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private boolean nextPartBody() throws IOException {
+			while (this.partBody == null || this.position >= this.partBody.length) {
+				SCMPMessage part = this.parts.poll();
+				if (part == null) {
+					this.partBody = null;
+					return false;
+				}
+				this.position = 0;
+				this.partBody = part.getBodyLength() > 0 ? SCMPCompositeReceiver.getBodyBytes(part) : null;
+			}
+			return true;
+		}
+	}
 }
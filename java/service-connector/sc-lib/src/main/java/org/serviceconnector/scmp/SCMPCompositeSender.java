@@ -90,6 +90,18 @@ public class SCMPCompositeSender extends SCMPMessage {
 		return this.currentPart;
 	}
 
+	/**
+	 * Checks if the next part is the last one. Size of a stream body is unknown, its next part is never known to be the last one.
+	 *
+	 * @return true, if next part is the last one
+	 */
+	public boolean isNextPartLast() {
+		if (this.message.getBodyType().equals(SCMPBodyType.INPUT_STREAM)) {
+			return false;
+		}
+		return this.largeMessageLength - this.offset <= this.message.getPartSize();
+	}
+
 	/**
 	 * @return the currentPart
 	 */
@@ -116,6 +116,10 @@ public enum SCMPError implements IReversibleEnum<String, SCMPError> {
 	HV_WRONG_CHECK_REGISTRATION_INTERVAL(452, "Invalid checkRegistrationInterval value."),
 	/** The HV_WRONG_CACHING_METHOD_VALUE. */
 	HV_WRONG_CACHING_METHOD_VALUE(453, "Invalid cachingMethod value."),
+	/** The HV_WRONG_PUBLICATION_BATCH_SIZE. */
+	HV_WRONG_PUBLICATION_BATCH_SIZE(454, "Invalid publicationBatchSize value."),
+	/** The HV_WRONG_PUBLICATION_BATCH_BYTES. */
+	HV_WRONG_PUBLICATION_BATCH_BYTES(455, "Invalid publicationBatchBytes value."),
 
 	/** The V_WRONG_CONFIGURATION_FILE_FORMAT. */
 	V_WRONG_CONFIGURATION_FILE(460, "Invalid configuration file."),
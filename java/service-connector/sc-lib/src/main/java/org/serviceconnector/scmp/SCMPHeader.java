@@ -0,0 +1,650 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.scmp;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class SCMPHeader. Header of a message. Attributes of known keys (SCMPHeaderAttributeKey) are stored in an array indexed by the key, integer values are parsed once
+ * on first read. Attributes of unknown keys are kept in an overflow map, which is only created if needed. Header flags are stored with value null like in any other map.<br />
+ * Attributes are iterated in the same order a HashMap holding them would iterate, encoded headers stay identical to the ones encoded from a HashMap. The order is
+ * evaluated once and kept until a key gets added or removed, encoding the header again iterates without sorting.
+ */
+public class SCMPHeader extends AbstractMap<String, String> implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -2371958146640379912L;
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(SCMPHeader.class);
+	/** The Constant DEFAULT_CAPACITY, default capacity of a HashMap. */
+	private static final int DEFAULT_CAPACITY = 16;
+	/** The Constant LOAD_FACTOR, default load factor of a HashMap. */
+	private static final float LOAD_FACTOR = 0.75f;
+	/** The Constant KEYS, known keys indexed by ordinal. */
+	private static final SCMPHeaderAttributeKey[] KEYS = SCMPHeaderAttributeKey.values();
+	/** The Constant HASHES, spread hash codes of known keys indexed by ordinal. */
+	private static final int[] HASHES = SCMPHeader.initHashes();
+	/** The Constant KEYS_BY_FIRST_CHAR, known keys indexed by the first character of the key. */
+	private static final SCMPHeaderAttributeKey[][] KEYS_BY_FIRST_CHAR = SCMPHeader.initKeysByFirstChar();
+
+	/** The values of known keys. */
+	private final String[] values;
+	/** The presence of known keys, value of a header flag is null. */
+	private final boolean[] present;
+	/** The parsed integer values of known keys, null if not parsed yet. */
+	private final Integer[] intValues;
+	/** The sequence numbers of known keys, order keys have been put. */
+	private final int[] sequences;
+	/** The number of known keys present. */
+	private int knownSize;
+	/** The attributes of unknown keys, null as long as no unknown key is set. */
+	private Map<String, UnknownAttribute> unknown;
+	/** The next sequence number. */
+	private int nextSequence;
+	/** The capacity a HashMap holding the attributes would have, defines the iteration order. */
+	private int capacity;
+	/** The entry set view. */
+	private transient Set<Entry<String, String>> entrySet;
+	/** The entries in iteration order, null if keys have been added or removed since the order has been evaluated. */
+	private transient Entry<String, String>[] orderedEntries;
+
+	/**
+	 * Instantiates a new empty SCMP header.
+	 */
+	public SCMPHeader() {
+		this.values = new String[KEYS.length];
+		this.present = new boolean[KEYS.length];
+		this.intValues = new Integer[KEYS.length];
+		this.sequences = new int[KEYS.length];
+		this.knownSize = 0;
+		this.unknown = null;
+		this.nextSequence = 0;
+		this.capacity = DEFAULT_CAPACITY;
+	}
+
+	/**
+	 * Instantiates a new SCMP header. Copies the given header, integer values already parsed are copied from a header of the same type.
+	 *
+	 * @param header the header to copy
+	 */
+	public SCMPHeader(Map<String, String> header) {
+		this();
+		int size = header.size();
+		if (size > 0) {
+			// capacity of a HashMap copied from a map
+			this.capacity = SCMPHeader.tableSizeFor((int) (size / LOAD_FACTOR + 1.0f));
+		}
+		if (header instanceof SCMPHeader == false) {
+			this.putAll(header);
+			return;
+		}
+		SCMPHeader source = (SCMPHeader) header;
+		for (Entry<String, String> entry : source.entrySet()) {
+			if (entry instanceof KnownEntry) {
+				SCMPHeaderAttributeKey key = ((KnownEntry) entry).key;
+				this.put(key, entry.getValue());
+				this.intValues[key.ordinal()] = source.intValues[key.ordinal()];
+			} else {
+				this.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Gets the value of a known key.
+	 *
+	 * @param key the key
+	 * @return the value, null if not present or header flag
+	 */
+	public String get(SCMPHeaderAttributeKey key) {
+		return this.values[key.ordinal()];
+	}
+
+	/**
+	 * Gets the integer value of a known key. The value is parsed on first read.
+	 *
+	 * @param key the key
+	 * @return the integer value, null if not present or not an integer
+	 */
+	public Integer getInt(SCMPHeaderAttributeKey key) {
+		int index = key.ordinal();
+		Integer intValue = this.intValues[index];
+		if (intValue != null) {
+			return intValue;
+		}
+		String value = this.values[index];
+		if (value == null) {
+			return null;
+		}
+		try {
+			intValue = Integer.valueOf(value);
+		} catch (Exception ex) {
+			LOGGER.warn("getHeaderInt " + ex.toString());
+			return null;
+		}
+		this.intValues[index] = intValue;
+		return intValue;
+	}
+
+	/**
+	 * Checks if known key is present.
+	 *
+	 * @param key the key
+	 * @return true, if present
+	 */
+	public boolean contains(SCMPHeaderAttributeKey key) {
+		return this.present[key.ordinal()];
+	}
+
+	/**
+	 * Puts the value of a known key.
+	 *
+	 * @param key the key
+	 * @param value the value, null for a header flag
+	 * @return the previous value
+	 */
+	public String put(SCMPHeaderAttributeKey key, String value) {
+		int index = key.ordinal();
+		String oldValue = this.values[index];
+		if (this.present[index] == false) {
+			this.present[index] = true;
+			this.sequences[index] = this.nextSequence++;
+			this.knownSize++;
+			this.attributeAdded();
+			this.orderedEntries = null;
+		}
+		this.values[index] = value;
+		this.intValues[index] = null;
+		return oldValue;
+	}
+
+	/**
+	 * Removes a known key.
+	 *
+	 * @param key the key
+	 * @return the previous value
+	 */
+	public String remove(SCMPHeaderAttributeKey key) {
+		int index = key.ordinal();
+		String oldValue = this.values[index];
+		if (this.present[index]) {
+			this.present[index] = false;
+			this.knownSize--;
+			this.orderedEntries = null;
+		}
+		this.values[index] = null;
+		this.intValues[index] = null;
+		return oldValue;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String get(Object key) {
+		SCMPHeaderAttributeKey knownKey = SCMPHeader.getKnownKey(key);
+		if (knownKey != null) {
+			return this.values[knownKey.ordinal()];
+		}
+		if (this.unknown == null) {
+			return null;
+		}
+		UnknownAttribute attribute = this.unknown.get(key);
+		return attribute == null ? null : attribute.value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean containsKey(Object key) {
+		SCMPHeaderAttributeKey knownKey = SCMPHeader.getKnownKey(key);
+		if (knownKey != null) {
+			return this.present[knownKey.ordinal()];
+		}
+		return this.unknown != null && this.unknown.containsKey(key);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String put(String key, String value) {
+		SCMPHeaderAttributeKey knownKey = SCMPHeader.getKnownKey(key);
+		if (knownKey != null) {
+			return this.put(knownKey, value);
+		}
+		if (this.unknown == null) {
+			this.unknown = new HashMap<String, UnknownAttribute>();
+		}
+		UnknownAttribute attribute = this.unknown.get(key);
+		if (attribute == null) {
+			this.unknown.put(key, new UnknownAttribute(value, this.nextSequence++));
+			this.attributeAdded();
+			this.orderedEntries = null;
+			return null;
+		}
+		String oldValue = attribute.value;
+		attribute.value = value;
+		return oldValue;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String remove(Object key) {
+		SCMPHeaderAttributeKey knownKey = SCMPHeader.getKnownKey(key);
+		if (knownKey != null) {
+			return this.remove(knownKey);
+		}
+		if (this.unknown == null) {
+			return null;
+		}
+		UnknownAttribute attribute = this.unknown.remove(key);
+		if (attribute == null) {
+			return null;
+		}
+		this.orderedEntries = null;
+		return attribute.value;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void clear() {
+		Arrays.fill(this.values, null);
+		Arrays.fill(this.present, false);
+		Arrays.fill(this.intValues, null);
+		this.knownSize = 0;
+		this.unknown = null;
+		this.orderedEntries = null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int size() {
+		return this.knownSize + (this.unknown == null ? 0 : this.unknown.size());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	/**
+	 * Gets the entries in iteration order, the order of a HashMap: by bucket of the hash code and within a bucket by sequence number. The order is evaluated
+	 * if keys have been added or removed since the last evaluation. Entries write through to the header, changing a value keeps the order.
+	 *
+	 * @return the ordered entries
+	 */
+	@SuppressWarnings("unchecked")
+	private Entry<String, String>[] getOrderedEntries() {
+		if (this.orderedEntries != null) {
+			return this.orderedEntries;
+		}
+		int size = this.size();
+		int mask = this.capacity - 1;
+		Entry<String, String>[] entries = new Entry[size];
+		long[] orderKeys = new long[size];
+		int count = 0;
+		if (this.knownSize > 0) {
+			for (int index = 0; index < KEYS.length; index++) {
+				if (this.present[index]) {
+					count = SCMPHeader.insert(entries, orderKeys, count, HASHES[index] & mask, this.sequences[index], new KnownEntry(KEYS[index]));
+				}
+			}
+		}
+		if (this.unknown != null) {
+			for (Entry<String, UnknownAttribute> unknownEntry : this.unknown.entrySet()) {
+				String key = unknownEntry.getKey();
+				count = SCMPHeader.insert(entries, orderKeys, count, SCMPHeader.hash(key) & mask, unknownEntry.getValue().sequence, new UnknownEntry(key));
+			}
+		}
+		this.orderedEntries = entries;
+		return entries;
+	}
+
+	/**
+	 * Inserts an entry in order, headers are small - insertion sort.
+	 *
+	 * @param entries the entries inserted so far
+	 * @param orderKeys the order keys of the entries inserted so far
+	 * @param count the number of entries inserted so far
+	 * @param bucket the bucket of the entry
+	 * @param sequence the sequence number of the entry
+	 * @param entry the entry
+	 * @return the number of entries inserted
+	 */
+	private static int insert(Entry<String, String>[] entries, long[] orderKeys, int count, int bucket, int sequence, Entry<String, String> entry) {
+		long orderKey = ((long) bucket << 32) | (sequence & 0xFFFFFFFFL);
+		int position = count;
+		while (position > 0 && orderKeys[position - 1] > orderKey) {
+			orderKeys[position] = orderKeys[position - 1];
+			entries[position] = entries[position - 1];
+			position--;
+		}
+		orderKeys[position] = orderKey;
+		entries[position] = entry;
+		return count + 1;
+	}
+
+	/**
+	 * Attribute added. Grows the capacity like a HashMap would.
+	 */
+	private void attributeAdded() {
+		if (this.size() > this.capacity * LOAD_FACTOR) {
+			this.capacity <<= 1;
+		}
+	}
+
+	/**
+	 * Gets the known key for a key string. Keys are compared by the first character first, no hash code gets computed.
+	 *
+	 * @param key the key
+	 * @return the known key, null if key is unknown
+	 */
+	public static SCMPHeaderAttributeKey getKnownKey(Object key) {
+		if (key instanceof String == false) {
+			return null;
+		}
+		String keyString = (String) key;
+		if (keyString.length() == 0) {
+			return null;
+		}
+		char firstChar = keyString.charAt(0);
+		if (firstChar >= KEYS_BY_FIRST_CHAR.length || KEYS_BY_FIRST_CHAR[firstChar] == null) {
+			return null;
+		}
+		for (SCMPHeaderAttributeKey knownKey : KEYS_BY_FIRST_CHAR[firstChar]) {
+			String value = knownKey.getValue();
+			if (value == keyString || value.equals(keyString)) {
+				return knownKey;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Spreads the hash code of a key like a HashMap does.
+	 *
+	 * @param key the key
+	 * @return the spread hash code
+	 */
+	private static int hash(String key) {
+		int hashCode = key.hashCode();
+		return hashCode ^ (hashCode >>> 16);
+	}
+
+	/**
+	 * Table size for given number of buckets, power of two like the table of a HashMap.
+	 *
+	 * @param buckets the number of buckets
+	 * @return the table size
+	 */
+	private static int tableSizeFor(int buckets) {
+		int tableSize = 1;
+		while (tableSize < buckets) {
+			tableSize <<= 1;
+		}
+		return tableSize;
+	}
+
+	/**
+	 * Initializes the spread hash codes of known keys.
+	 *
+	 * @return the hash codes
+	 */
+	private static int[] initHashes() {
+		int[] hashes = new int[KEYS.length];
+		for (int index = 0; index < KEYS.length; index++) {
+			hashes[index] = SCMPHeader.hash(KEYS[index].getValue());
+		}
+		return hashes;
+	}
+
+	/**
+	 * Initializes the known keys, indexed by the first character of the key.
+	 *
+	 * @return the known keys
+	 */
+	private static SCMPHeaderAttributeKey[][] initKeysByFirstChar() {
+		SCMPHeaderAttributeKey[][] keys = new SCMPHeaderAttributeKey[Byte.MAX_VALUE + 1][];
+		for (SCMPHeaderAttributeKey key : KEYS) {
+			char firstChar = key.getValue().charAt(0);
+			if (firstChar >= keys.length) {
+				continue;
+			}
+			SCMPHeaderAttributeKey[] keysOfChar = keys[firstChar];
+			if (keysOfChar == null) {
+				keysOfChar = new SCMPHeaderAttributeKey[] { key };
+			} else {
+				keysOfChar = Arrays.copyOf(keysOfChar, keysOfChar.length + 1);
+				keysOfChar[keysOfChar.length - 1] = key;
+			}
+			keys[firstChar] = keysOfChar;
+		}
+		return keys;
+	}
+
+	/**
+	 * The Class UnknownAttribute. Value and sequence number of an unknown key.
+	 */
+	private static final class UnknownAttribute implements Serializable {
+
+		/** The Constant serialVersionUID. */
+		private static final long serialVersionUID = 4589521763349826135L;
+		/** The value. */
+		private String value;
+		/** The sequence number. */
+		private final int sequence;
+
+		/**
+		 * Instantiates a new unknown attribute.
+		 *
+		 * @param value the value
+		 * @param sequence the sequence number
+		 */
+		private UnknownAttribute(String value, int sequence) {
+			this.value = value;
+			this.sequence = sequence;
+		}
+	}
+
+	/**
+	 * The Class EntrySet. View on the attributes.
+	 */
+	private final class EntrySet extends AbstractSet<Entry<String, String>> {
+
+		/** {@inheritDoc} */
+		@Override
+		public Iterator<Entry<String, String>> iterator() {
+			return new EntryIterator();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int size() {
+			return SCMPHeader.this.size();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void clear() {
+			SCMPHeader.this.clear();
+		}
+	}
+
+	/**
+	 * The Class EntryIterator. Iterates the attributes in the order of a HashMap, the ordered entries of the header at the time the iterator gets created.
+	 */
+	private final class EntryIterator implements Iterator<Entry<String, String>> {
+
+		/** The entries in order. */
+		private final Entry<String, String>[] entries;
+		/** The position of the next entry. */
+		private int position;
+		/** The last returned entry, null if none. */
+		private Entry<String, String> lastEntry;
+
+		/**
+		 * Instantiates a new entry iterator.
+		 */
+		private EntryIterator() {
+			this.entries = SCMPHeader.this.getOrderedEntries();
+			this.position = 0;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean hasNext() {
+			return this.position < this.entries.length;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Entry<String, String> next() {
+			if (this.hasNext() == false) {
+				throw new NoSuchElementException();
+			}
+			this.lastEntry = this.entries[this.position++];
+			return this.lastEntry;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void remove() {
+			if (this.lastEntry == null) {
+				throw new IllegalStateException();
+			}
+			if (this.lastEntry instanceof KnownEntry) {
+				SCMPHeader.this.remove(((KnownEntry) this.lastEntry).key);
+			} else {
+				SCMPHeader.this.remove(this.lastEntry.getKey());
+			}
+			this.lastEntry = null;
+		}
+	}
+
+	/**
+	 * The Class AbstractEntry. Entry of an attribute, writes through to the header.
+	 */
+	private abstract class AbstractEntry implements Entry<String, String> {
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Entry == false) {
+				return false;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) obj;
+			String value = this.getValue();
+			return this.getKey().equals(entry.getKey()) && (value == null ? entry.getValue() == null : value.equals(entry.getValue()));
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int hashCode() {
+			String value = this.getValue();
+			return this.getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String toString() {
+			return this.getKey() + "=" + this.getValue();
+		}
+	}
+
+	/**
+	 * The Class KnownEntry. Entry of a known key.
+	 */
+	private final class KnownEntry extends AbstractEntry {
+
+		/** The key. */
+		private final SCMPHeaderAttributeKey key;
+
+		/**
+		 * Instantiates a new known entry.
+		 *
+		 * @param key the key
+		 */
+		private KnownEntry(SCMPHeaderAttributeKey key) {
+			this.key = key;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String getKey() {
+			return this.key.getValue();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String getValue() {
+			return SCMPHeader.this.values[this.key.ordinal()];
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String setValue(String value) {
+			return SCMPHeader.this.put(this.key, value);
+		}
+	}
+
+	/**
+	 * The Class UnknownEntry. Entry of an unknown key.
+	 */
+	private final class UnknownEntry extends AbstractEntry {
+
+		/** The key. */
+		private final String key;
+
+		/**
+		 * Instantiates a new unknown entry.
+		 *
+		 * @param key the key
+		 */
+		private UnknownEntry(String key) {
+			this.key = key;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String getValue() {
+			return SCMPHeader.this.get(this.key);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String setValue(String value) {
+			return SCMPHeader.this.put(this.key, value);
+		}
+	}
+}
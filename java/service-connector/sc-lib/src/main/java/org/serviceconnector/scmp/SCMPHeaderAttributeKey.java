@@ -47,6 +47,12 @@ public enum SCMPHeaderAttributeKey {
 	COMPRESSION("cmp"),
 	/** The ECHO_INTERVAL. */
 	ECHO_INTERVAL("eci"),
+	/** The FILE_LENGTH. */
+	FILE_LENGTH("fln"),
+	/** The FILE_RANGE_OFFSET. */
+	FILE_RANGE_OFFSET("fro"),
+	/** The FILE_RANGE_LENGTH. */
+	FILE_RANGE_LENGTH("frl"),
 	/** The OPERATION_TIMEOUT. */
 	OPERATION_TIMEOUT("oti"),
 	/** The IMMEDIAT_CONNECT. */
@@ -77,16 +83,30 @@ public enum SCMPHeaderAttributeKey {
 	MAX_SESSIONS("mxs"),
 	/** The MAX_CONNECTIONS. */
 	MAX_CONNECTIONS("mxc"),
+	/** The MULTIPLEXED. */
+	MULTIPLEXED("mux"),
 	/** The NO_DATA. */
 	NO_DATA("nod"),
 	/** The NO_DATA_INTERVAL. */
 	NO_DATA_INTERVAL("noi"),
+	/** The PART_SEQUENCE_NR, number of a part within a windowed large request, echoed in the acknowledgement. */
+	PART_SEQUENCE_NR("psn"),
+	/** The PART_WINDOW_SIZE, window offered with the first part of a large request and granted in its acknowledgement. */
+	PART_WINDOW_SIZE("pws"),
+	/** The PUSH_DELIVERY, receive publication gets answered by the thread inserting the publication. */
+	PUSH_DELIVERY("pud"),
+	/** The PUBLICATION_BATCH_SIZE, maximum number of messages a receive publication reply may carry, number of carried messages in the reply. */
+	PUBLICATION_BATCH_SIZE("pbs"),
+	/** The PUBLICATION_BATCH_BYTES, maximum number of bytes a receive publication reply may carry. */
+	PUBLICATION_BATCH_BYTES("pbb"),
 	/** The PORT_NR. */
 	PORT_NR("pnr"),
 	/** The REJECT_SESSION. */
 	REJECT_SESSION("rej"),
 	/** The REMOTE_FILE_NAME. */
 	REMOTE_FILE_NAME("rfn"),
+	/** The REQUEST_ID. */
+	REQUEST_ID("rqi"),
 	/** The SC_ERROR_CODE. */
 	SC_ERROR_CODE("sec"),
 	/** The SC_ERROR_TEXT. */
@@ -19,7 +19,6 @@ package org.serviceconnector.scmp;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -53,6 +52,8 @@ public class SCMPMessage implements Serializable {
 	private Object body;
 	/** the HTTP URL file qualifier which is added to the URL when communicating to a HTTP server. */
 	private String httpUrlFileQualifier = Constants.SLASH;
+	/** The cached mask bytes, replaced as a whole so concurrent readers never see bytes of another mask. */
+	private transient volatile MaskBytes maskBytes;
 
 	/**
 	 * Instantiates a new SCMP.
@@ -60,7 +61,7 @@ public class SCMPMessage implements Serializable {
 	 * @param scmpVersion the SCMP version of current message
 	 */
 	public SCMPMessage(SCMPVersion scmpVersion) {
-		this.header = new HashMap<String, String>();
+		this.header = new SCMPHeader();
 		this.isReply = false;
 		this.partSize = Constants.DEFAULT_MESSAGE_PART_SIZE;
 		this.SCMP_VERSION = scmpVersion;
@@ -89,7 +90,7 @@ public class SCMPMessage implements Serializable {
 	 */
 	public SCMPMessage(SCMPVersion scmpVersion, Map<String, String> baseHeader) {
 		this(scmpVersion);
-		this.header = new HashMap<String, String>(baseHeader);
+		this.header = new SCMPHeader(baseHeader);
 	}
 
 	/**
@@ -164,7 +165,7 @@ public class SCMPMessage implements Serializable {
 	 * @return true, if is cached
 	 */
 	public boolean isCached() {
-		if (this.header.keySet().contains(SCMPHeaderAttributeKey.CACHED.getValue())) {
+		if (this.containsHeader(SCMPHeaderAttributeKey.CACHED)) {
 			return true;
 		}
 		return false;
@@ -290,7 +291,7 @@ public class SCMPMessage implements Serializable {
 	 * @return true, if is compressed
 	 */
 	public boolean isCompressed() {
-		if (this.header.keySet().contains(SCMPHeaderAttributeKey.COMPRESSION.getValue())) {
+		if (this.containsHeader(SCMPHeaderAttributeKey.COMPRESSION)) {
 			return true;
 		}
 		return false;
@@ -311,7 +312,7 @@ public class SCMPMessage implements Serializable {
 	 * @param headerType the header type
 	 */
 	public void removeHeader(SCMPHeaderAttributeKey headerType) {
-		this.header.remove(headerType.getValue());
+		this.removeHeaderValue(headerType);
 	}
 
 	/**
@@ -331,7 +332,7 @@ public class SCMPMessage implements Serializable {
 	 * @param attributeValue the value
 	 */
 	public void setHeader(SCMPHeaderAttributeKey headerType, String attributeValue) {
-		this.header.put(headerType.getValue(), attributeValue);
+		this.putHeader(headerType, attributeValue);
 	}
 
 	/**
@@ -345,7 +346,7 @@ public class SCMPMessage implements Serializable {
 			// attribute value is null - ignore header attribute
 			return;
 		}
-		this.header.put(headerType.getValue(), attributeValue);
+		this.putHeader(headerType, attributeValue);
 	}
 
 	/**
@@ -356,9 +357,9 @@ public class SCMPMessage implements Serializable {
 	 */
 	public void setHeader(SCMPHeaderAttributeKey headerType, boolean attributeValue) {
 		if (attributeValue) {
-			this.header.put(headerType.getValue(), "1");
+			this.putHeader(headerType, "1");
 		} else {
-			this.header.put(headerType.getValue(), "0");
+			this.putHeader(headerType, "0");
 		}
 	}
 
@@ -369,7 +370,7 @@ public class SCMPMessage implements Serializable {
 	 * @param attributeValue the value
 	 */
 	public void setHeader(SCMPHeaderAttributeKey headerType, int attributeValue) {
-		this.header.put(headerType.getValue(), String.valueOf(attributeValue));
+		this.putHeader(headerType, String.valueOf(attributeValue));
 	}
 
 	/**
@@ -379,7 +380,7 @@ public class SCMPMessage implements Serializable {
 	 * @param attributeValue the value
 	 */
 	public void setHeader(SCMPHeaderAttributeKey headerType, long attributeValue) {
-		this.header.put(headerType.getValue(), String.valueOf(attributeValue));
+		this.putHeader(headerType, String.valueOf(attributeValue));
 	}
 
 	/**
@@ -422,7 +423,26 @@ public class SCMPMessage implements Serializable {
 	 * @return the attribute value
 	 */
 	public String getHeader(SCMPHeaderAttributeKey headerType) {
-		return this.header.get(headerType.getValue());
+		return this.getHeaderValue(headerType);
+	}
+
+	/**
+	 * Gets the mask header in bytes. Bytes are cached as long as the mask header does not change, matching a message against many subscriptions encodes the mask only
+	 * once.
+	 *
+	 * @return the mask bytes or null if no mask header is set
+	 */
+	public byte[] getMaskBytes() {
+		String mask = this.getHeaderValue(SCMPHeaderAttributeKey.MASK);
+		if (mask == null) {
+			return null;
+		}
+		MaskBytes cached = this.maskBytes;
+		if (cached == null || mask != cached.source) {
+			cached = new MaskBytes(mask);
+			this.maskBytes = cached;
+		}
+		return cached.bytes;
 	}
 
 	/**
@@ -433,7 +453,7 @@ public class SCMPMessage implements Serializable {
 	 * @return the boolean attribute value
 	 */
 	public Boolean getHeaderBoolean(SCMPHeaderAttributeKey headerType) {
-		String value = this.header.get(headerType.getValue());
+		String value = this.getHeaderValue(headerType);
 
 		if ("0".equals(value)) {
 			return false;
@@ -451,7 +471,7 @@ public class SCMPMessage implements Serializable {
 	 * @return the header flag
 	 */
 	public boolean getHeaderFlag(SCMPHeaderAttributeKey headerKey) {
-		if (this.header.containsKey(headerKey.getValue())) {
+		if (this.containsHeader(headerKey)) {
 			return true;
 		}
 		return false;
@@ -464,7 +484,11 @@ public class SCMPMessage implements Serializable {
 	 * @return the integer attribute value
 	 */
 	public Integer getHeaderInt(SCMPHeaderAttributeKey headerType) {
-		String value = this.header.get(headerType.getValue());
+		if (this.header instanceof SCMPHeader) {
+			// value is parsed once and kept in the header
+			return ((SCMPHeader) this.header).getInt(headerType);
+		}
+		String value = this.getHeaderValue(headerType);
 		if (value == null) {
 			return null;
 		}
@@ -514,7 +538,7 @@ public class SCMPMessage implements Serializable {
 		if (sessionId == null) {
 			return;
 		}
-		this.header.put(SCMPHeaderAttributeKey.SESSION_ID.getValue(), sessionId);
+		this.putHeader(SCMPHeaderAttributeKey.SESSION_ID, sessionId);
 	}
 
 	/**
@@ -541,7 +565,60 @@ public class SCMPMessage implements Serializable {
 	 * @param headerKey the new header flag
 	 */
 	public void setHeaderFlag(SCMPHeaderAttributeKey headerKey) {
-		this.header.put(headerKey.getValue(), null);
+		this.putHeader(headerKey, null);
+	}
+
+	/**
+	 * Gets the value of a header attribute. Known keys are looked up by index if header is a SCMPHeader.
+	 *
+	 * @param headerType the header type
+	 * @return the value
+	 */
+	private String getHeaderValue(SCMPHeaderAttributeKey headerType) {
+		if (this.header instanceof SCMPHeader) {
+			return ((SCMPHeader) this.header).get(headerType);
+		}
+		return this.header.get(headerType.getValue());
+	}
+
+	/**
+	 * Checks if header contains a header attribute.
+	 *
+	 * @param headerType the header type
+	 * @return true, if header contains the attribute
+	 */
+	private boolean containsHeader(SCMPHeaderAttributeKey headerType) {
+		if (this.header instanceof SCMPHeader) {
+			return ((SCMPHeader) this.header).contains(headerType);
+		}
+		return this.header.containsKey(headerType.getValue());
+	}
+
+	/**
+	 * Puts a header attribute.
+	 *
+	 * @param headerType the header type
+	 * @param attributeValue the attribute value
+	 */
+	private void putHeader(SCMPHeaderAttributeKey headerType, String attributeValue) {
+		if (this.header instanceof SCMPHeader) {
+			((SCMPHeader) this.header).put(headerType, attributeValue);
+			return;
+		}
+		this.header.put(headerType.getValue(), attributeValue);
+	}
+
+	/**
+	 * Removes a header attribute.
+	 *
+	 * @param headerType the header type
+	 */
+	private void removeHeaderValue(SCMPHeaderAttributeKey headerType) {
+		if (this.header instanceof SCMPHeader) {
+			((SCMPHeader) this.header).remove(headerType);
+			return;
+		}
+		this.header.remove(headerType.getValue());
 	}
 
 	/**
@@ -713,4 +790,25 @@ public class SCMPMessage implements Serializable {
 		builder.append("]");
 		return builder.toString();
 	}
+
+	/**
+	 * The Class MaskBytes. Immutable mask bytes with the mask header value they have been encoded from.
+	 */
+	private static final class MaskBytes {
+
+		/** The mask header value. */
+		private final String source;
+		/** The mask bytes. */
+		private final byte[] bytes;
+
+		/**
+		 * Instantiates new mask bytes.
+		 *
+		 * @param source the mask header value
+		 */
+		private MaskBytes(String source) {
+			this.source = source;
+			this.bytes = source.getBytes();
+		}
+	}
 }
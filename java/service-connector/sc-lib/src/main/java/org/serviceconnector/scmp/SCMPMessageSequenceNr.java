@@ -105,6 +105,7 @@ public class SCMPMessageSequenceNr {
 			case SRV_UNSUBSCRIBE:
 			case RECEIVE_PUBLICATION:
 			case PUBLISH:
+			case PUBLISH_BATCH:
 				return true;
 			default:
 				return false;
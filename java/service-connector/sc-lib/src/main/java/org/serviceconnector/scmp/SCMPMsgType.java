@@ -90,6 +90,8 @@ public enum SCMPMsgType implements IReversibleEnum<String, SCMPMsgType> {
 	RECEIVE_PUBLICATION("CRP"),
 	/** The PUBLISH. */
 	PUBLISH("SPU"),
+	/** The PUBLISH_BATCH. */
+	PUBLISH_BATCH("SPB"),
 	/** The FILE_DOWNLOAD. */
 	FILE_DOWNLOAD("FDO"),
 	/** The FILE_UPLOAD. */
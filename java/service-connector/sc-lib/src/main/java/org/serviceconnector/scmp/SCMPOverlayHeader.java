@@ -0,0 +1,175 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.scmp;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Class SCMPOverlayHeader. Header of a message created from a cached message. Reads fall through to the header of the cached message,
+ * modifications are kept in the overlay and never touch the cached message. As long as only overlay keys are modified the encoded header of the
+ * cached message is still valid and the encoder writes it without encoding the attributes again.
+ */
+public class SCMPOverlayHeader extends AbstractMap<String, String> implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 7402556108813915243L;
+	/** The cached message providing the base header. */
+	private final SCMPCachedMessage cachedMessage;
+	/** The overlaid attributes. */
+	private final Map<String, String> overlay;
+	/** The base attributes removed from this header. */
+	private final Set<String> removedKeys;
+	/** The encoded base valid flag, false as soon as an attribute of the encoded header got modified. */
+	private boolean encodedBaseValid;
+
+	/**
+	 * Instantiates a new SCMP overlay header.
+	 *
+	 * @param cachedMessage the cached message
+	 */
+	public SCMPOverlayHeader(SCMPCachedMessage cachedMessage) {
+		this.cachedMessage = cachedMessage;
+		this.overlay = new HashMap<String, String>();
+		this.removedKeys = new HashSet<String>();
+		this.encodedBaseValid = true;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String get(Object key) {
+		if (this.overlay.containsKey(key)) {
+			return this.overlay.get(key);
+		}
+		if (this.removedKeys.contains(key)) {
+			return null;
+		}
+		return this.cachedMessage.getHeader().get(key);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean containsKey(Object key) {
+		if (this.overlay.containsKey(key)) {
+			return true;
+		}
+		return this.removedKeys.contains(key) == false && this.cachedMessage.getHeader().containsKey(key);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String put(String key, String value) {
+		String oldValue = this.get(key);
+		Map<String, String> base = this.cachedMessage.getHeader();
+		if (this.overlay.containsKey(key) == false && this.removedKeys.contains(key) == false && base.containsKey(key)) {
+			if (value == null ? oldValue == null : value.equals(oldValue)) {
+				// same value as in base header - nothing to overlay
+				return oldValue;
+			}
+		}
+		this.removedKeys.remove(key);
+		this.overlay.put(key, value);
+		this.invalidateEncodedBase(key);
+		return oldValue;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String remove(Object key) {
+		String oldValue = this.get(key);
+		this.overlay.remove(key);
+		if (this.cachedMessage.getHeader().containsKey(key)) {
+			this.removedKeys.add((String) key);
+			this.invalidateEncodedBase(key);
+		}
+		return oldValue;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void clear() {
+		this.overlay.clear();
+		this.removedKeys.addAll(this.cachedMessage.getHeader().keySet());
+		this.encodedBaseValid = false;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		return Collections.unmodifiableMap(this.merge()).entrySet();
+	}
+
+	/**
+	 * Gets the encoded base header. Returns null if an attribute of the encoded header has been modified, header needs to be encoded as a whole
+	 * in that case.
+	 *
+	 * @return the encoded base header or null
+	 */
+	public byte[] getEncodedBase() {
+		if (this.encodedBaseValid == false) {
+			return null;
+		}
+		return this.cachedMessage.getEncodedHeader();
+	}
+
+	/**
+	 * Gets the attributes which are not part of the encoded base header. Only valid as long as {@link #getEncodedBase()} does not return null.
+	 *
+	 * @return the attributes not yet encoded
+	 */
+	public Map<String, String> getUnencodedAttributes() {
+		Map<String, String> unencoded = new HashMap<String, String>(this.overlay);
+		for (String key : SCMPCachedMessage.OVERLAY_KEYS) {
+			if (unencoded.containsKey(key) || this.removedKeys.contains(key)) {
+				continue;
+			}
+			Map<String, String> base = this.cachedMessage.getHeader();
+			if (base.containsKey(key)) {
+				unencoded.put(key, base.get(key));
+			}
+		}
+		return unencoded;
+	}
+
+	/**
+	 * Invalidates the encoded base header if given key is part of it.
+	 *
+	 * @param key the key
+	 */
+	private void invalidateEncodedBase(Object key) {
+		if (SCMPCachedMessage.OVERLAY_KEYS.contains(key) == false && this.cachedMessage.getHeader().containsKey(key)) {
+			this.encodedBaseValid = false;
+		}
+	}
+
+	/**
+	 * Merges base header and overlay.
+	 *
+	 * @return the merged header
+	 */
+	private Map<String, String> merge() {
+		Map<String, String> merged = new SCMPHeader(this.cachedMessage.getHeader());
+		merged.keySet().removeAll(this.removedKeys);
+		merged.putAll(this.overlay);
+		return merged;
+	}
+}
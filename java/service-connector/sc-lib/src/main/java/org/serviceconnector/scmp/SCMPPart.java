@@ -16,7 +16,6 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.scmp;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -61,7 +60,7 @@ public class SCMPPart extends SCMPMessage {
 	 */
 	public SCMPPart(SCMPVersion scmpVersion, boolean pollRequest, Map<String, String> baseHeader) {
 		this(scmpVersion, pollRequest);
-		this.header = new HashMap<String, String>(baseHeader);
+		this.header = new SCMPHeader(baseHeader);
 	}
 
 	/**
@@ -0,0 +1,206 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.scmp;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.serviceconnector.Constants;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.EncodingDecodingException;
+import org.serviceconnector.net.FlyweightEncoderDecoderFactory;
+import org.serviceconnector.net.SCMPFrameDecoder;
+import org.serviceconnector.registry.PublishMessageQueue;
+
+/**
+ * The Class SCMPPublicationBatch. Carries several publications in one message, used by receive publication replies if the client asks for it and by publish batch
+ * requests. The body of a batch is the sequence of the encoded publications, header attribute PUBLICATION_BATCH_SIZE holds their number. Parts of large messages are
+ * never batched, they are delivered one by one.
+ */
+public final class SCMPPublicationBatch {
+
+	/**
+	 * Instantiates a new SCMP publication batch.
+	 */
+	private SCMPPublicationBatch() {
+	}
+
+	/**
+	 * Creates the receive publication reply. Further messages are polled from the queue as long as the limits requested by the client are not reached.
+	 *
+	 * @param reqMessage the receive publication request
+	 * @param message the first message polled from queue
+	 * @param publishMessageQueue the publish message queue
+	 * @return the reply message
+	 * @throws Exception the exception
+	 */
+	public static SCMPMessage createReply(SCMPMessage reqMessage, SCMPMessage message, PublishMessageQueue<SCMPMessage> publishMessageQueue) throws Exception {
+		String subscriptionId = reqMessage.getSessionId();
+		Integer batchSize = reqMessage.getHeaderInt(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE);
+		if (batchSize != null && batchSize > 1 && message.isPart() == false) {
+			int batchBytes = Constants.MAX_PUBLICATION_BATCH_BYTES;
+			Integer requestedBatchBytes = reqMessage.getHeaderInt(SCMPHeaderAttributeKey.PUBLICATION_BATCH_BYTES);
+			if (requestedBatchBytes != null && requestedBatchBytes < batchBytes) {
+				batchBytes = requestedBatchBytes;
+			}
+			int bytes = SCMPPublicationBatch.getFrameSize(message);
+			List<SCMPMessage> messages = new ArrayList<SCMPMessage>();
+			messages.add(SCMPPublicationBatch.createItem(message));
+			while (messages.size() < batchSize) {
+				SCMPMessage next = publishMessageQueue.getBatchMessage(subscriptionId, batchBytes - bytes);
+				if (next == null) {
+					// no more message fitting into the batch
+					break;
+				}
+				messages.add(SCMPPublicationBatch.createItem(next));
+				bytes += SCMPPublicationBatch.getFrameSize(next);
+			}
+			if (messages.size() > 1) {
+				SCMPMessage reply = new SCMPMessage(message.getSCMPVersion());
+				reply.setSessionId(subscriptionId);
+				reply.setMessageType(reqMessage.getMessageType());
+				reply.setIsReply(true);
+				reply.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE, messages.size());
+				reply.setBody(SCMPPublicationBatch.encode(messages));
+				return reply;
+			}
+		}
+		SCMPMessage reply = null;
+		if (message.isPart() == true) {
+			// message from queue is of type part - outgoing must be part too, no poll request
+			reply = new SCMPPart(message.getSCMPVersion(), false, message.getHeader());
+		} else {
+			reply = new SCMPMessage(message.getSCMPVersion(), message.getHeader());
+		}
+		reply.setSessionId(subscriptionId);
+		reply.setMessageType(reqMessage.getMessageType());
+		reply.setIsReply(true);
+		reply.setBody(message.getBody());
+		return reply;
+	}
+
+	/**
+	 * Checks if reply is a publication batch.
+	 *
+	 * @param reply the reply
+	 * @return true, if is a publication batch
+	 */
+	public static boolean isBatch(SCMPMessage reply) {
+		return reply.getHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE) != null;
+	}
+
+	/**
+	 * Decodes the publications of a batch, in the order they have been published.
+	 *
+	 * @param batch the batch message
+	 * @return the publications
+	 * @throws Exception the exception
+	 */
+	public static List<SCMPMessage> decode(SCMPMessage batch) throws Exception {
+		FlyweightEncoderDecoderFactory encoderDecoderFactory = AppContext.getEncoderDecoderFactory();
+		Integer batchSize = batch.getHeaderInt(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE);
+		List<SCMPMessage> messages = new ArrayList<SCMPMessage>(batchSize == null ? 0 : batchSize);
+		Object body = batch.getBody();
+		if (body == null) {
+			return messages;
+		}
+		if (body instanceof byte[] == false) {
+			throw new EncodingDecodingException("publication batch of unsupported body type");
+		}
+		ChannelBuffer buffer = ChannelBuffers.wrappedBuffer((byte[]) body, 0, batch.getBodyLength());
+		byte[] headline = new byte[Constants.SCMP_HEADLINE_SIZE];
+		while (buffer.readable()) {
+			if (buffer.readableBytes() < Constants.SCMP_HEADLINE_SIZE) {
+				throw new EncodingDecodingException("publication batch truncated, remaining length=" + buffer.readableBytes());
+			}
+			buffer.getBytes(buffer.readerIndex(), headline);
+			int frameSize = Constants.SCMP_HEADLINE_SIZE + SCMPFrameDecoder.parseMessageSize(headline);
+			if (buffer.readableBytes() < frameSize) {
+				throw new EncodingDecodingException("publication batch truncated, remaining length=" + buffer.readableBytes());
+			}
+			ChannelBuffer frame = buffer.readSlice(frameSize);
+			messages.add((SCMPMessage) encoderDecoderFactory.createEncoderDecoder(frame).decode(frame));
+		}
+		return messages;
+	}
+
+	/**
+	 * Gets the size of the encoded message in bytes. Headline, header attributes and body. Header attributes and string bodies are encoded
+	 * ISO-8859-1, one byte per character. A body to be compressed is sized by the upper bound of deflate, never less than its encoding.
+	 *
+	 * @param message the message
+	 * @return the frame size, Integer.MAX_VALUE if the size is unknown
+	 */
+	public static int getFrameSize(SCMPMessage message) {
+		Object body = message.getBody();
+		if (body instanceof InputStream) {
+			// length of a stream is unknown
+			return Integer.MAX_VALUE;
+		}
+		long size = Constants.SCMP_HEADLINE_SIZE;
+		Map<String, String> header = message.getHeader();
+		for (Entry<String, String> entry : header.entrySet()) {
+			// key=value<LF> or flag<LF>
+			size += entry.getKey().length() + 1;
+			if (entry.getValue() != null) {
+				size += entry.getValue().length() + 1;
+			}
+		}
+		long bodySize = message.getBodyLength();
+		if (bodySize > 0 && message.getHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION) && AppContext.isScEnvironment() == false) {
+			// incompressible body grows, deflate bound of zlib
+			bodySize += (bodySize >> 3) + (bodySize >> 6) + 11;
+		}
+		return (int) Math.min(size + bodySize, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Encodes the publications of a batch. Publications are encoded as they are, requests or replies.
+	 *
+	 * @param messages the messages
+	 * @return the encoded batch
+	 * @throws Exception the exception
+	 */
+	public static byte[] encode(List<SCMPMessage> messages) throws Exception {
+		FlyweightEncoderDecoderFactory encoderDecoderFactory = AppContext.getEncoderDecoderFactory();
+		ChannelBuffer batch = ChannelBuffers.dynamicBuffer(Constants.SIZE_64KB);
+		for (SCMPMessage message : messages) {
+			batch.writeBytes(encoderDecoderFactory.createEncoderDecoder(message).encode(message));
+		}
+		byte[] body = new byte[batch.readableBytes()];
+		batch.readBytes(body);
+		return body;
+	}
+
+	/**
+	 * Creates the item of a receive publication batch, a reply carrying header and body of the message from queue.
+	 *
+	 * @param message the message from queue
+	 * @return the item
+	 */
+	private static SCMPMessage createItem(SCMPMessage message) {
+		SCMPMessage item = new SCMPMessage(message.getSCMPVersion(), message.getHeader());
+		item.setIsReply(true);
+		item.setBody(message.getBody());
+		return item;
+	}
+}
@@ -24,8 +24,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.serviceconnector.Constants;
+import org.serviceconnector.call.ISCMPCall;
 import org.serviceconnector.call.SCMPCscAbortSubscriptionCall;
 import org.serviceconnector.call.SCMPCscChangeSubscriptionCall;
 import org.serviceconnector.call.SCMPCscCreateSessionCall;
@@ -49,6 +52,8 @@ import org.serviceconnector.cmd.sc.CommandCallback;
 import org.serviceconnector.conf.RemoteNodeConfiguration;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.log.SubscriptionLogger;
+import org.serviceconnector.net.connection.ConnectionPoolBusyException;
+import org.serviceconnector.net.connection.IKeepAliveListener;
 import org.serviceconnector.net.req.IRequest;
 import org.serviceconnector.net.req.netty.IdleTimeoutException;
 import org.serviceconnector.net.res.netty.NettyHttpRequest;
@@ -68,15 +73,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The Class CascadedSC.
+ * The Class CascadedSC. Besides forwarding requests the cascaded SC tracks its outstanding requests and its health. Failed requests and keep alive messages suspend the
+ * cascaded SC from its remote node groups for a while, see {@link CascadedSCGroup}.
  */
-public class CascadedSC extends Server implements IStatefulServer {
+public class CascadedSC extends Server implements IStatefulServer, IKeepAliveListener {
 
 	/** The Constant LOGGER. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(CascadedSC.class);
 
 	/** The subscriptions, list of subscriptions allocated on cascaded SC. */
 	private List<AbstractSession> subscriptions;
+	/** The weight, share of requests the cascaded SC gets inside a remote node group. */
+	private int weight;
+	/** The number of outstanding requests, long polling receive publication requests not included. */
+	private AtomicInteger outstandingRequests;
+	/** The number of failures in sequence. */
+	private AtomicInteger failuresInSequence;
+	/** The time until the cascaded SC is suspended from remote node groups, 0 if not suspended. */
+	private volatile long suspendedUntilMillis;
 
 	/**
 	 * Instantiates a new cascaded sc.
@@ -88,6 +102,106 @@ public class CascadedSC extends Server implements IStatefulServer {
 		super(remoteNodeConfiguration, socketAddress);
 		this.serverKey = remoteNodeConfiguration.getName();
 		this.subscriptions = Collections.synchronizedList(new ArrayList<AbstractSession>());
+		this.weight = remoteNodeConfiguration.getWeight();
+		this.outstandingRequests = new AtomicInteger();
+		this.failuresInSequence = new AtomicInteger();
+		this.suspendedUntilMillis = 0;
+		this.requester.setKeepAliveListener(this);
+	}
+
+	/**
+	 * Invoke a call on the cascaded SC. The callback gets wrapped to keep track of outstanding requests and health of the cascaded SC.
+	 *
+	 * @param call the call
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout milliseconds
+	 * @param countOutstanding true if the request counts as outstanding request, false for long polling requests
+	 * @throws Exception the exception
+	 */
+	private void invoke(ISCMPCall call, ISCMPMessageCallback callback, int timeoutMillis, boolean countOutstanding) throws Exception {
+		CascadedSCCallback cascSCCallback = new CascadedSCCallback(callback, countOutstanding);
+		try {
+			call.invoke(cascSCCallback, timeoutMillis);
+		} catch (Exception e) {
+			// callback will not be informed - complete tracking before handing over exception
+			cascSCCallback.complete(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the weight.
+	 *
+	 * @return the weight
+	 */
+	public int getWeight() {
+		return this.weight;
+	}
+
+	/**
+	 * Gets the number of outstanding requests.
+	 *
+	 * @return the outstanding requests
+	 */
+	public int getOutstandingRequests() {
+		return this.outstandingRequests.get();
+	}
+
+	/**
+	 * Checks if the cascaded SC is available. A suspended cascaded SC becomes available again as soon as the suspend time is over, next request probes it.
+	 *
+	 * @return true, if is available
+	 */
+	public boolean isAvailable() {
+		if (this.destroyed == true) {
+			return false;
+		}
+		long suspendedUntil = this.suspendedUntilMillis;
+		return suspendedUntil == 0 || System.currentTimeMillis() >= suspendedUntil;
+	}
+
+	/**
+	 * Gets the time the cascaded SC is suspended until, 0 if not suspended.
+	 *
+	 * @return the suspended until millis
+	 */
+	public long getSuspendedUntilMillis() {
+		return this.suspendedUntilMillis;
+	}
+
+	/**
+	 * Mark a succeeded request. Resets the failures in sequence and ends suspension.
+	 */
+	public void markSucceeded() {
+		if (this.failuresInSequence.getAndSet(0) >= Constants.CASCADED_SC_FAILURES_TO_SUSPEND) {
+			LOGGER.info("cascaded SC available again key=" + this.serverKey);
+		}
+		this.suspendedUntilMillis = 0;
+	}
+
+	/**
+	 * Mark a failed request. Cascaded SC gets suspended after Constants.CASCADED_SC_FAILURES_TO_SUSPEND failures in sequence.
+	 */
+	public void markFailed() {
+		int failures = this.failuresInSequence.incrementAndGet();
+		if (failures >= Constants.CASCADED_SC_FAILURES_TO_SUSPEND) {
+			if (failures == Constants.CASCADED_SC_FAILURES_TO_SUSPEND) {
+				LOGGER.warn("cascaded SC suspended after " + failures + " failures in sequence key=" + this.serverKey);
+			}
+			this.suspendedUntilMillis = System.currentTimeMillis() + Constants.CASCADED_SC_SUSPEND_MILLIS;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void keepAliveSucceeded() {
+		this.markSucceeded();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void keepAliveFailed() {
+		this.markFailed();
 	}
 
 	/**
@@ -100,7 +214,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 	public void createSession(SCMPMessage msgToForward, ISCMPMessageCallback callback, int timeoutMillis) {
 		SCMPCscCreateSessionCall createSessionCall = new SCMPCscCreateSessionCall(this.requester, msgToForward);
 		try {
-			createSessionCall.invoke(callback, (int) (this.operationTimeoutMultiplier * timeoutMillis));
+			this.invoke(createSessionCall, callback, (int) (this.operationTimeoutMultiplier * timeoutMillis), true);
 		} catch (Exception e) {
 			// create session failed
 			callback.receive(e);
@@ -117,7 +231,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 	public void deleteSession(SCMPMessage msgToForward, ISCMPMessageCallback callback, int timeoutMillis) {
 		SCMPCscDeleteSessionCall deleteSessionCall = new SCMPCscDeleteSessionCall(this.requester, msgToForward);
 		try {
-			deleteSessionCall.invoke(callback, (int) (this.operationTimeoutMultiplier * timeoutMillis));
+			this.invoke(deleteSessionCall, callback, (int) (this.operationTimeoutMultiplier * timeoutMillis), true);
 		} catch (Exception e) {
 			// delete session failed
 			callback.receive(e);
@@ -134,7 +248,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 	public void execute(SCMPMessage msgToForward, ISCMPMessageCallback callback, int timeoutMillis) {
 		SCMPCscExecuteCall executeCall = new SCMPCscExecuteCall(this.requester, msgToForward);
 		try {
-			executeCall.invoke(callback, (int) (this.operationTimeoutMultiplier * timeoutMillis));
+			this.invoke(executeCall, callback, (int) (this.operationTimeoutMultiplier * timeoutMillis), true);
 		} catch (Exception e) {
 			// send data failed
 			callback.receive(e);
@@ -151,7 +265,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 	public void echo(SCMPMessage msgToForward, ISCMPMessageCallback callback, int timeoutMillis) {
 		SCMPEchoCall echoCall = new SCMPEchoCall(this.requester, msgToForward);
 		try {
-			echoCall.invoke(callback, (int) (this.operationTimeoutMultiplier * timeoutMillis));
+			this.invoke(echoCall, callback, (int) (this.operationTimeoutMultiplier * timeoutMillis), true);
 		} catch (Exception e) {
 			// echo failed
 			callback.receive(e);
@@ -169,7 +283,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		SCMPFileDownloadCall fileDownloadCall = new SCMPFileDownloadCall(this.requester, msgToForward);
 
 		try {
-			fileDownloadCall.invoke(callback, (int) (this.operationTimeoutMultiplier * timeoutMillis));
+			this.invoke(fileDownloadCall, callback, (int) (this.operationTimeoutMultiplier * timeoutMillis), true);
 		} catch (Exception e) {
 			// echo failed
 			callback.receive(e);
@@ -187,7 +301,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		SCMPFileListCall fileListCall = new SCMPFileListCall(this.requester, msgToForward);
 
 		try {
-			fileListCall.invoke(callback, (int) (this.operationTimeoutMultiplier * timeoutMillis));
+			this.invoke(fileListCall, callback, (int) (this.operationTimeoutMultiplier * timeoutMillis), true);
 		} catch (Exception e) {
 			// echo failed
 			callback.receive(e);
@@ -205,7 +319,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		SCMPFileUploadCall fileUploadCall = new SCMPFileUploadCall(this.requester, msgToForward);
 
 		try {
-			fileUploadCall.invoke(callback, (int) (this.operationTimeoutMultiplier * timeoutMillis));
+			this.invoke(fileUploadCall, callback, (int) (this.operationTimeoutMultiplier * timeoutMillis), true);
 		} catch (Exception e) {
 			// echo failed
 			callback.receive(e);
@@ -350,7 +464,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 				// set cascaded client subscriptonId
 				msgToForward.setHeader(SCMPHeaderAttributeKey.CASCADED_SUBSCRIPTION_ID, cascClient.getSubscriptionId());
 				try {
-					cscUnsubscribeCall.invoke(callback, oti);
+					this.invoke(cscUnsubscribeCall, callback, oti, true);
 				} finally {
 					cascClient.setSubscribed(false);
 					cascClient.destroy();
@@ -408,12 +522,12 @@ public class CascadedSC extends Server implements IStatefulServer {
 				msgToForward.setHeader(SCMPHeaderAttributeKey.CASCADED_MASK, cascadedMask);
 				cascClient.setSubscriptionMask(new SubscriptionMask(cascadedMask));
 				SCMPCscAbortSubscriptionCall cscAbortCall = new SCMPCscAbortSubscriptionCall(this.requester, msgToForward);
-				cscAbortCall.invoke(callback, oti);
+				this.invoke(cscAbortCall, callback, oti, true);
 				return;
 			}
 			// no client subscription left - destroy client after XAB
 			SCMPCscAbortSubscriptionCall cscAbortCall = new SCMPCscAbortSubscriptionCall(this.requester, msgToForward);
-			cscAbortCall.invoke(callback, oti);
+			this.invoke(cscAbortCall, callback, oti, true);
 		} catch (Exception e) {
 			callback.receive(e);
 		} finally {
@@ -439,7 +553,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 			long msgSeqNr = cascClient.getMsgSequenceNr().incrementAndGetMsgSequenceNr();
 			message.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, msgSeqNr);
 			SCMPCscUnsubscribeCall unsubscribeCall = new SCMPCscUnsubscribeCall(this.requester, message);
-			unsubscribeCall.invoke(new CommandCallback(false), AppContext.getBasicConfiguration().getSrvAbortOTIMillis());
+			this.invoke(unsubscribeCall, new CommandCallback(false), AppContext.getBasicConfiguration().getSrvAbortOTIMillis(), true);
 		} catch (Exception e) {
 			LOGGER.warn("unsubscribing cascaded client failed service=" + cascClient.getServiceName() + " " + e.toString());
 		}
@@ -470,7 +584,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		SCMPReceivePublicationCall receivePublicationCall = new SCMPReceivePublicationCall(this.requester, req);
 
 		try {
-			receivePublicationCall.invoke(callback, timeoutMillis);
+			this.invoke(receivePublicationCall, callback, timeoutMillis, false);
 		} catch (Exception e) {
 			// receive publication failed
 			callback.receive(e);
@@ -507,7 +621,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		}
 		msgToForward.setHeader(SCMPHeaderAttributeKey.CASCADED_MASK, tmpCscMask);
 		CscSubscribeInactiveCascClientCallback cscCallback = new CscSubscribeInactiveCascClientCallback(callback, cascClient, tmpCscMask);
-		cscSubscribeCall.invoke(cscCallback, oti);
+		this.invoke(cscSubscribeCall, cscCallback, oti, true);
 	}
 
 	/**
@@ -527,7 +641,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		String cascadedMask = SubscriptionMask.masking(cascClientMask, clientMaskString);
 		msgToForward.setHeader(SCMPHeaderAttributeKey.CASCADED_MASK, cascadedMask);
 		SCMPCscSubscribeCall subscribeCall = new SCMPCscSubscribeCall(this.requester, msgToForward);
-		subscribeCall.invoke(callback, oti);
+		this.invoke(subscribeCall, callback, oti, true);
 	}
 
 	/**
@@ -548,7 +662,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		String cascadedMask = SubscriptionMask.masking(cascClientMask, clientMaskString);
 		msgToForward.setHeader(SCMPHeaderAttributeKey.CASCADED_MASK, cascadedMask);
 		SCMPCscChangeSubscriptionCall cscChangeSubscriptionCall = new SCMPCscChangeSubscriptionCall(this.requester, msgToForward);
-		cscChangeSubscriptionCall.invoke(callback, oti);
+		this.invoke(cscChangeSubscriptionCall, callback, oti, true);
 	}
 
 	/**
@@ -567,7 +681,7 @@ public class CascadedSC extends Server implements IStatefulServer {
 		String cascadedMask = cascClient.evalSubscriptionMaskFromClientSubscriptions();
 		msgToForward.setHeader(SCMPHeaderAttributeKey.CASCADED_MASK, cascadedMask);
 		SCMPCscUnsubscribeCall cscUnsubscribeCall = new SCMPCscUnsubscribeCall(this.requester, msgToForward);
-		cscUnsubscribeCall.invoke(callback, oti);
+		this.invoke(cscUnsubscribeCall, callback, oti, true);
 	}
 
 	/**
@@ -709,7 +823,74 @@ public class CascadedSC extends Server implements IStatefulServer {
 		writer.writeAttribute("key", this.serverKey);
 		writer.writeAttribute("socketAddress", this.socketAddress.getHostName() + Constants.SLASH + this.socketAddress.getPort());
 		writer.writeAttribute("operationTimeoutMultiplier", this.operationTimeoutMultiplier);
+		writer.writeAttribute("weight", this.weight);
+		writer.writeAttribute("outstandingRequests", this.outstandingRequests.get());
+		writer.writeAttribute("failuresInSequence", this.failuresInSequence.get());
+		writer.writeAttribute("available", this.isAvailable());
 		this.requester.dump(writer);
 		writer.writeEndElement(); // end of cascaded-sc
 	}
+
+	/**
+	 * The Class CascadedSCCallback. Wraps the callback of a request to the cascaded SC. Keeps track of outstanding requests and marks the cascaded SC succeeded on any reply
+	 * or failed on an exception, fault replies are valid replies of a living cascaded SC.
+	 */
+	private class CascadedSCCallback implements ISCMPMessageCallback {
+
+		/** The callback. */
+		private ISCMPMessageCallback callback;
+		/** The count outstanding flag. */
+		private boolean countOutstanding;
+		/** The completed flag, tracking is completed only once. */
+		private AtomicBoolean completed;
+
+		/**
+		 * Instantiates a new cascaded SC callback.
+		 *
+		 * @param callback the callback
+		 * @param countOutstanding the count outstanding flag
+		 */
+		public CascadedSCCallback(ISCMPMessageCallback callback, boolean countOutstanding) {
+			this.callback = callback;
+			this.countOutstanding = countOutstanding;
+			this.completed = new AtomicBoolean(false);
+			if (this.countOutstanding) {
+				CascadedSC.this.outstandingRequests.incrementAndGet();
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(SCMPMessage reply) throws Exception {
+			this.complete(null);
+			this.callback.receive(reply);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(Exception ex) {
+			this.complete(ex);
+			this.callback.receive(ex);
+		}
+
+		/**
+		 * Complete tracking of the request.
+		 *
+		 * @param ex the exception, null if a reply has been received
+		 */
+		public void complete(Exception ex) {
+			if (this.completed.getAndSet(true) == true) {
+				return;
+			}
+			if (this.countOutstanding) {
+				CascadedSC.this.outstandingRequests.decrementAndGet();
+			}
+			if (ex == null) {
+				CascadedSC.this.markSucceeded();
+			} else if (ex instanceof ConnectionPoolBusyException == false) {
+				// busy connection pool is a local limitation not a failure of the cascaded SC
+				CascadedSC.this.markFailed();
+			}
+		}
+	}
 }
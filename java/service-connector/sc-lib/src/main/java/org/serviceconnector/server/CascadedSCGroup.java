@@ -0,0 +1,330 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.serviceconnector.Constants;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.util.XMLDumpWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class CascadedSCGroup. Group of cascaded SCs sharing a cascaded service (remote node and remote node group of the service configuration). Requests are balanced on the
+ * available cascaded SC with the least outstanding requests in proportion to its weight. Cascaded SCs failing repeatedly get suspended for a while, see
+ * {@link CascadedSC#markFailed()}. Sessions are stateful on the cascaded SC which created them, following requests of a session are routed to the same cascaded SC.
+ */
+public class CascadedSCGroup {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CascadedSCGroup.class);
+	/** The interval expired session bindings get removed. */
+	private static final int EXPIRY_CHECK_INTERVAL_MILLIS = 10000;
+
+	/** The cascaded SCs of the group, remote node first. */
+	private List<CascadedSC> cascadedSCs;
+	/** The session bindings, cascaded SC a session has been created on. Only used for groups of more than one cascaded SC. */
+	private Map<String, SessionBinding> sessionBindings;
+	/** The time of the last removal of expired session bindings. */
+	private volatile long lastExpiryCheckMillis;
+
+	/**
+	 * Instantiates a new cascaded SC group.
+	 *
+	 * @param cascadedSCs the cascaded SCs, remote node first
+	 */
+	public CascadedSCGroup(List<CascadedSC> cascadedSCs) {
+		if (cascadedSCs == null || cascadedSCs.isEmpty()) {
+			throw new IllegalArgumentException("cascaded SC group needs at least one cascaded SC");
+		}
+		this.cascadedSCs = Collections.unmodifiableList(new ArrayList<CascadedSC>(cascadedSCs));
+		this.sessionBindings = new ConcurrentHashMap<String, SessionBinding>();
+		this.lastExpiryCheckMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * Instantiates a new cascaded SC group of one cascaded SC.
+	 *
+	 * @param cascadedSC the cascaded SC
+	 */
+	public CascadedSCGroup(CascadedSC cascadedSC) {
+		this(Collections.singletonList(cascadedSC));
+	}
+
+	/**
+	 * Select the cascaded SC for a new request.
+	 *
+	 * @return the cascaded SC
+	 */
+	public CascadedSC select() {
+		CascadedSC cascadedSC = this.select(null);
+		if (cascadedSC == null) {
+			// no cascaded SC available - choose the one whose suspension ends first, request probes it
+			cascadedSC = this.cascadedSCs.get(0);
+			for (CascadedSC candidate : this.cascadedSCs) {
+				if (candidate.getSuspendedUntilMillis() < cascadedSC.getSuspendedUntilMillis()) {
+					cascadedSC = candidate;
+				}
+			}
+		}
+		return cascadedSC;
+	}
+
+	/**
+	 * Select an available cascaded SC, the one with the least outstanding requests in proportion to its weight. Used for fail over too, the failed cascaded SC is excluded.
+	 *
+	 * @param excluded the excluded cascaded SC, may be null
+	 * @return the cascaded SC, null if no cascaded SC is available
+	 */
+	public CascadedSC select(CascadedSC excluded) {
+		if (this.cascadedSCs.size() == 1) {
+			CascadedSC cascadedSC = this.cascadedSCs.get(0);
+			if (excluded == cascadedSC || cascadedSC.isAvailable() == false) {
+				return null;
+			}
+			return cascadedSC;
+		}
+		CascadedSC selected = null;
+		long selectedLoad = 0;
+		int selectedWeight = 1;
+		for (CascadedSC candidate : this.cascadedSCs) {
+			if (candidate == excluded || candidate.isAvailable() == false) {
+				continue;
+			}
+			long load = candidate.getOutstandingRequests() + 1;
+			int weight = candidate.getWeight();
+			// compare load/weight without division: load * selectedWeight < selectedLoad * weight
+			if (selected == null || load * selectedWeight < selectedLoad * weight) {
+				selected = candidate;
+				selectedLoad = load;
+				selectedWeight = weight;
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Gets the cascaded SC for a request of a session. Sessions stay on the cascaded SC which created them.
+	 *
+	 * @param sessionId the session id
+	 * @return the cascaded SC
+	 */
+	public CascadedSC getCascadedSC(String sessionId) {
+		if (this.cascadedSCs.size() == 1) {
+			return this.cascadedSCs.get(0);
+		}
+		if (sessionId != null) {
+			SessionBinding binding = this.sessionBindings.get(sessionId);
+			if (binding != null) {
+				binding.touch();
+				return binding.cascadedSC;
+			}
+		}
+		return this.select();
+	}
+
+	/**
+	 * Creates a session on the selected cascaded SC. The session gets bound to the cascaded SC if creation succeeds.
+	 *
+	 * @param msgToForward the message to forward
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout milliseconds
+	 */
+	public void createSession(SCMPMessage msgToForward, ISCMPMessageCallback callback, int timeoutMillis) {
+		CascadedSC cascadedSC = this.select();
+		if (this.cascadedSCs.size() == 1) {
+			cascadedSC.createSession(msgToForward, callback, timeoutMillis);
+			return;
+		}
+		Integer eciInSeconds = msgToForward.getHeaderInt(SCMPHeaderAttributeKey.ECHO_INTERVAL);
+		if (eciInSeconds == null) {
+			eciInSeconds = Constants.DEFAULT_ECHO_INTERVAL_SECONDS;
+		}
+		// binding expires like the session on the cascaded SC if no request arrives
+		long sessionTimeoutMillis = (long) (eciInSeconds * Constants.SEC_TO_MILLISEC_FACTOR * AppContext.getBasicConfiguration().getEchoIntervalMultiplier());
+		cascadedSC.createSession(msgToForward, new SessionBindingCallback(callback, cascadedSC, sessionTimeoutMillis), timeoutMillis);
+	}
+
+	/**
+	 * Deletes a session on the cascaded SC which created it. The session binding gets removed.
+	 *
+	 * @param msgToForward the message to forward
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout milliseconds
+	 */
+	public void deleteSession(SCMPMessage msgToForward, ISCMPMessageCallback callback, int timeoutMillis) {
+		String sessionId = msgToForward.getSessionId();
+		CascadedSC cascadedSC = this.getCascadedSC(sessionId);
+		if (sessionId != null) {
+			this.sessionBindings.remove(sessionId);
+		}
+		cascadedSC.deleteSession(msgToForward, callback, timeoutMillis);
+	}
+
+	/**
+	 * Binds a session to a cascaded SC. Removes expired bindings from time to time, sessions of vanished clients time out on the cascaded SC without notice.
+	 *
+	 * @param sessionId the session id
+	 * @param cascadedSC the cascaded SC
+	 * @param sessionTimeoutMillis the session timeout milliseconds
+	 */
+	private void bindSession(String sessionId, CascadedSC cascadedSC, long sessionTimeoutMillis) {
+		this.sessionBindings.put(sessionId, new SessionBinding(cascadedSC, sessionTimeoutMillis));
+		long now = System.currentTimeMillis();
+		if (now - this.lastExpiryCheckMillis < EXPIRY_CHECK_INTERVAL_MILLIS) {
+			return;
+		}
+		this.lastExpiryCheckMillis = now;
+		Iterator<SessionBinding> iterator = this.sessionBindings.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().isExpired(now)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Gets the cascaded SCs of the group.
+	 *
+	 * @return the cascaded SCs
+	 */
+	public List<CascadedSC> getCascadedSCs() {
+		return this.cascadedSCs;
+	}
+
+	/**
+	 * Gets the number of sessions bound to cascaded SCs.
+	 *
+	 * @return the session bindings count
+	 */
+	public int getSessionBindingsCount() {
+		return this.sessionBindings.size();
+	}
+
+	/**
+	 * Dump the cascaded SC group into the xml writer.
+	 *
+	 * @param writer the writer
+	 * @throws Exception the exception
+	 */
+	public void dump(XMLDumpWriter writer) throws Exception {
+		if (this.cascadedSCs.size() == 1) {
+			this.cascadedSCs.get(0).dump(writer);
+			return;
+		}
+		writer.writeStartElement("cascaded-sc-group");
+		writer.writeAttribute("sessionBindings", this.sessionBindings.size());
+		for (CascadedSC cascadedSC : this.cascadedSCs) {
+			cascadedSC.dump(writer);
+		}
+		writer.writeEndElement(); // end of cascaded-sc-group
+	}
+
+	/**
+	 * The Class SessionBinding. Cascaded SC a session has been created on.
+	 */
+	private static final class SessionBinding {
+
+		/** The cascaded SC. */
+		private final CascadedSC cascadedSC;
+		/** The session timeout milliseconds. */
+		private final long sessionTimeoutMillis;
+		/** The last access time. */
+		private volatile long lastAccessMillis;
+
+		/**
+		 * Instantiates a new session binding.
+		 *
+		 * @param cascadedSC the cascaded SC
+		 * @param sessionTimeoutMillis the session timeout milliseconds
+		 */
+		private SessionBinding(CascadedSC cascadedSC, long sessionTimeoutMillis) {
+			this.cascadedSC = cascadedSC;
+			this.sessionTimeoutMillis = sessionTimeoutMillis;
+			this.lastAccessMillis = System.currentTimeMillis();
+		}
+
+		/**
+		 * Touch, session has been accessed.
+		 */
+		private void touch() {
+			this.lastAccessMillis = System.currentTimeMillis();
+		}
+
+		/**
+		 * Checks if the binding is expired.
+		 *
+		 * @param now the current time milliseconds
+		 * @return true, if is expired
+		 */
+		private boolean isExpired(long now) {
+			return now - this.lastAccessMillis > this.sessionTimeoutMillis;
+		}
+	}
+
+	/**
+	 * The Class SessionBindingCallback. Binds the created session to the cascaded SC which created it.
+	 */
+	private class SessionBindingCallback implements ISCMPMessageCallback {
+
+		/** The callback. */
+		private ISCMPMessageCallback callback;
+		/** The cascaded SC. */
+		private CascadedSC cascadedSC;
+		/** The session timeout milliseconds. */
+		private long sessionTimeoutMillis;
+
+		/**
+		 * Instantiates a new session binding callback.
+		 *
+		 * @param callback the callback
+		 * @param cascadedSC the cascaded SC
+		 * @param sessionTimeoutMillis the session timeout milliseconds
+		 */
+		public SessionBindingCallback(ISCMPMessageCallback callback, CascadedSC cascadedSC, long sessionTimeoutMillis) {
+			this.callback = callback;
+			this.cascadedSC = cascadedSC;
+			this.sessionTimeoutMillis = sessionTimeoutMillis;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(SCMPMessage reply) throws Exception {
+			String sessionId = reply.getSessionId();
+			if (reply.isFault() == false && reply.getHeaderFlag(SCMPHeaderAttributeKey.REJECT_SESSION) == false && sessionId != null) {
+				CascadedSCGroup.this.bindSession(sessionId, this.cascadedSC, this.sessionTimeoutMillis);
+				LOGGER.trace("session bound to cascaded SC sid=" + sessionId + " key=" + this.cascadedSC.getServerKey());
+			}
+			this.callback.receive(reply);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(Exception ex) {
+			this.callback.receive(ex);
+		}
+	}
+}
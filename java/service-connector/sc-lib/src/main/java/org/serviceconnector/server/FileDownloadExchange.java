@@ -0,0 +1,319 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.server;
+
+import java.util.LinkedList;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.serviceconnector.Constants;
+import org.serviceconnector.net.req.netty.http.NettyWebClient;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMessageFault;
+import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.service.FileSession;
+
+/**
+ * The Class FileDownloadExchange. Downloads a file from the web server. Content is buffered as it arrives and replied part by part to the
+ * client in the part size of the download request. Reading from the web server is suspended while more than two parts are buffered and
+ * resumed when the client fetches them.
+ */
+public class FileDownloadExchange extends FileExchange {
+
+	/** The session. */
+	private FileSession session;
+	/** The range offset, -1 if the whole file is requested. */
+	private long rangeOffset;
+	/** The range length, null if the file is downloaded up to its end. */
+	private Integer rangeLength;
+	/** The file length, -1 if unknown. */
+	private long fileLength;
+	/** The number of bytes to skip, web server ignoring the range sends the file from its beginning. */
+	private long skipLength;
+	/** The remaining length of the range in download, -1 if the file is downloaded up to its end. */
+	private long remainingLength;
+	/** The response received flag. */
+	private boolean responseReceived;
+	/** The range not satisfiable flag, the range starts beyond the end of the file and is empty. */
+	private boolean rangeNotSatisfiable;
+	/** The complete flag, the whole content has been received. */
+	private boolean complete;
+	/** The fault reply of the web server, null if web server delivers the file. */
+	private SCMPMessage fault;
+	/** The SCMP version of the download request. */
+	private SCMPVersion scmpVersion;
+	/** The part size of the download request, content is replied in parts of this size. */
+	private int partSize;
+	/** The high water mark, reading from web server is suspended above. */
+	private int highWaterMark;
+	/** The first part flag. */
+	private boolean firstPart;
+	/** The received content not yet replied. */
+	private LinkedList<ChannelBuffer> contents;
+	/** The length of the received content not yet replied. */
+	private int contentLength;
+
+	/**
+	 * Instantiates a new file download exchange.
+	 *
+	 * @param webClient the web client
+	 * @param session the session
+	 * @param rangeOffset the range offset, -1 if the whole file is requested
+	 * @param rangeLength the range length, null if the file is downloaded up to its end
+	 */
+	public FileDownloadExchange(NettyWebClient webClient, FileSession session, long rangeOffset, Integer rangeLength) {
+		super(webClient);
+		this.session = session;
+		this.rangeOffset = rangeOffset;
+		this.rangeLength = rangeLength;
+		this.fileLength = -1;
+		this.skipLength = 0;
+		this.remainingLength = -1;
+		this.responseReceived = false;
+		this.rangeNotSatisfiable = false;
+		this.complete = false;
+		this.fault = null;
+		this.scmpVersion = SCMPVersion.CURRENT;
+		this.partSize = Constants.DEFAULT_MESSAGE_PART_SIZE;
+		this.highWaterMark = 2 * this.partSize;
+		this.firstPart = true;
+		this.contents = new LinkedList<ChannelBuffer>();
+		this.contentLength = 0;
+	}
+
+	/**
+	 * Start the download. The download request is the pending request, it is replied with the first part.
+	 *
+	 * @param uri the uri of the file
+	 * @param message the message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout in milliseconds
+	 */
+	public synchronized void start(String uri, SCMPMessage message, ISCMPMessageCallback callback, int timeoutMillis) {
+		HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+		if (this.rangeOffset >= 0) {
+			// range of a parallel download, requested from offset 0 as well to get the file length in the content range
+			String rangeEnd = this.rangeLength == null ? "" : String.valueOf(this.rangeOffset + this.rangeLength - 1);
+			request.headers().set(HttpHeaders.Names.RANGE, "bytes=" + this.rangeOffset + "-" + rangeEnd);
+		}
+		this.scmpVersion = message.getSCMPVersion();
+		this.partSize = message.getPartSize();
+		this.highWaterMark = 2 * this.partSize;
+		this.setPending(message, callback, timeoutMillis);
+		this.webClient.send(request, this);
+	}
+
+	/**
+	 * Request the next part. Replied immediately if the part has already been received.
+	 *
+	 * @param message the message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout in milliseconds
+	 */
+	public synchronized void requestPart(SCMPMessage message, ISCMPMessageCallback callback, int timeoutMillis) {
+		this.setPending(message, callback, timeoutMillis);
+		if (this.failure != null) {
+			this.fail(this.failure);
+			return;
+		}
+		this.replyPart();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void responseReceived(HttpResponse response) {
+		this.keepAlive = HttpHeaders.isKeepAlive(response);
+		int status = response.getStatus().getCode();
+		if (status == HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE.getCode() && this.rangeOffset >= 0) {
+			this.fileLength = FileDownloadExchange.getFileLength(response);
+			if (this.fileLength >= 0) {
+				// range starts beyond the end of the file, replied empty with the file length
+				this.responseReceived = true;
+				this.rangeNotSatisfiable = true;
+				return;
+			}
+		}
+		if (status != HttpResponseStatus.OK.getCode() && status != HttpResponseStatus.PARTIAL_CONTENT.getCode()) {
+			// SCMP Version request
+			this.fault = new SCMPMessageFault(this.scmpVersion, SCMPError.SERVER_ERROR, response.getStatus().toString());
+			this.session.stopStreaming();
+			this.reply(this.fault);
+			return;
+		}
+		this.responseReceived = true;
+		if (this.rangeOffset >= 0) {
+			this.fileLength = FileDownloadExchange.getFileLength(response);
+			if (this.rangeOffset > 0 && status != HttpResponseStatus.PARTIAL_CONTENT.getCode()) {
+				// web server ignores the range, skip to the offset
+				this.skipLength = this.rangeOffset;
+			}
+			if (this.fileLength >= 0 && this.rangeLength != null) {
+				// range is limited only if the length of the file is known, otherwise the whole file is sent
+				this.remainingLength = Math.max(0, Math.min(this.rangeLength, this.fileLength - this.rangeOffset));
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void contentReceived(ChannelBuffer content, boolean last) {
+		if (this.rangeNotSatisfiable) {
+			// error page of the web server is discarded, the empty range is complete with the last chunk
+			if (last && this.complete == false) {
+				this.complete = true;
+				this.release();
+				this.replyPart();
+			}
+			return;
+		}
+		if (this.fault != null || this.failure != null || this.complete) {
+			// error page of the web server is discarded, range is complete and only the last chunk is expected
+			if (last) {
+				this.release();
+			} else if (this.complete && content.readable()) {
+				// connection is not reused because web server sends more than the range
+				this.keepAlive = false;
+				this.release();
+			}
+			return;
+		}
+		if (this.skipLength > 0) {
+			int skip = (int) Math.min(this.skipLength, content.readableBytes());
+			content.skipBytes(skip);
+			this.skipLength -= skip;
+		}
+		int length = content.readableBytes();
+		boolean surplus = false;
+		if (this.remainingLength >= 0 && length > this.remainingLength) {
+			length = (int) this.remainingLength;
+			surplus = true;
+		}
+		if (length > 0) {
+			this.contents.add(content.slice(content.readerIndex(), length));
+			this.contentLength += length;
+			if (this.remainingLength >= 0) {
+				this.remainingLength -= length;
+			}
+		}
+		if (last) {
+			this.complete = true;
+			this.release();
+		} else if (surplus) {
+			// range is complete, connection is not reused because web server sends more than the range
+			this.complete = true;
+			this.keepAlive = false;
+			this.release();
+		} else if (this.remainingLength == 0) {
+			// range is complete, connection is released with the last chunk
+			this.complete = true;
+		} else if (this.contentLength >= this.highWaterMark && this.channel != null) {
+			// client is slower than web server, suspend reading
+			this.channel.setReadable(false);
+		}
+		this.replyPart();
+	}
+
+	/**
+	 * Reply the next part to the pending request, if a full part has been received or the content is complete.
+	 */
+	private void replyPart() {
+		if (this.pendingCallback == null || this.responseReceived == false) {
+			return;
+		}
+		if (this.contentLength < this.partSize && this.complete == false) {
+			// wait for more content
+			return;
+		}
+		SCMPMessage message = this.pendingMessage;
+		SCMPMessage reply = null;
+		if (this.contentLength == 0) {
+			// this is the end - SCMP Version request
+			reply = new SCMPMessage(message.getSCMPVersion());
+			reply.setBody(new byte[0]);
+			this.session.stopStreaming();
+		} else {
+			byte[] body = new byte[Math.min(this.partSize, this.contentLength)];
+			int offset = 0;
+			while (offset < body.length) {
+				ChannelBuffer content = this.contents.getFirst();
+				int length = Math.min(body.length - offset, content.readableBytes());
+				content.readBytes(body, offset, length);
+				offset += length;
+				if (content.readable() == false) {
+					this.contents.removeFirst();
+				}
+			}
+			this.contentLength -= body.length;
+			if (this.channel != null && this.channel.isReadable() == false && this.contentLength < this.highWaterMark) {
+				// client fetched buffered content, resume reading
+				this.channel.setReadable(true);
+			}
+			// set up part request, no poll request - SCMP Version request
+			reply = new SCMPPart(message.getSCMPVersion(), false);
+			reply.setBody(body);
+		}
+		if (this.firstPart && this.fileLength >= 0) {
+			// reply of the first part tells the client whether the range is respected
+			reply.setHeader(message, SCMPHeaderAttributeKey.FILE_RANGE_OFFSET);
+			reply.setHeader(SCMPHeaderAttributeKey.FILE_LENGTH, this.fileLength);
+		}
+		this.firstPart = false;
+		this.reply(reply);
+	}
+
+	/**
+	 * Gets the length of the file in download, from the content range of a partial or range not satisfiable response or from the content
+	 * length.
+	 *
+	 * @param response the response
+	 * @return the file length, -1 if unknown
+	 */
+	private static long getFileLength(HttpResponse response) {
+		String contentRange = response.headers().get(HttpHeaders.Names.CONTENT_RANGE);
+		int status = response.getStatus().getCode();
+		if (status == HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE.getCode()) {
+			if (contentRange == null) {
+				return -1;
+			}
+			// bytes */length
+			return Long.parseLong(contentRange.substring(contentRange.lastIndexOf(Constants.SLASH) + 1).trim());
+		}
+		if (status == HttpResponseStatus.PARTIAL_CONTENT.getCode() && contentRange != null) {
+			// bytes offset-end/length
+			String length = contentRange.substring(contentRange.lastIndexOf(Constants.SLASH) + 1).trim();
+			if ("*".equals(length)) {
+				return -1;
+			}
+			return Long.parseLong(length);
+		}
+		String contentLength = response.headers().get(HttpHeaders.Names.CONTENT_LENGTH);
+		if (contentLength == null) {
+			return -1;
+		}
+		return Long.parseLong(contentLength.trim());
+	}
+}
@@ -0,0 +1,191 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.server;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.serviceconnector.net.req.netty.IdleTimeoutException;
+import org.serviceconnector.net.req.netty.http.INettyWebClientListener;
+import org.serviceconnector.net.req.netty.http.NettyWebClient;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class FileExchange. Exchange of a file server with its web server. An exchange serves one request at the time, the request is
+ * pending until the web server delivered what it needs. No thread waits for the web server, the pending request is replied by the IO
+ * thread of the connection. A pending request fails if the operation timeout expires.
+ */
+public abstract class FileExchange implements INettyWebClientListener {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileExchange.class);
+	/** The web client. */
+	protected NettyWebClient webClient;
+	/** The channel of the exchange, null until the request has been written. */
+	protected Channel channel;
+	/** The keep alive flag of the response. */
+	protected boolean keepAlive;
+	/** The pending request message, null if no request is pending. */
+	protected SCMPMessage pendingMessage;
+	/** The callback of the pending request. */
+	protected ISCMPMessageCallback pendingCallback;
+	/** The failure of the exchange, null as long as exchange did not fail. */
+	protected Exception failure;
+	/** The timeout of the pending request. */
+	private Timeout timeout;
+
+	/**
+	 * Instantiates a new file exchange.
+	 *
+	 * @param webClient the web client
+	 */
+	public FileExchange(NettyWebClient webClient) {
+		this.webClient = webClient;
+		this.channel = null;
+		this.keepAlive = false;
+		this.pendingMessage = null;
+		this.pendingCallback = null;
+		this.failure = null;
+		this.timeout = null;
+	}
+
+	/**
+	 * Sets the pending request. Observes the operation timeout of the request.
+	 *
+	 * @param message the message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout in milliseconds
+	 */
+	protected void setPending(SCMPMessage message, ISCMPMessageCallback callback, int timeoutMillis) {
+		this.pendingMessage = message;
+		this.pendingCallback = callback;
+		this.timeout = this.webClient.getTimer().newTimeout(new TimerTask() {
+			@Override
+			public void run(Timeout expiredTimeout) throws Exception {
+				FileExchange.this.timedOut(expiredTimeout);
+			}
+		}, timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Operation timeout of the pending request expired. Exchange is aborted, web server did not deliver in time.
+	 *
+	 * @param expiredTimeout the expired timeout
+	 */
+	private synchronized void timedOut(Timeout expiredTimeout) {
+		if (this.timeout != expiredTimeout || this.pendingCallback == null) {
+			// request has been replied meanwhile
+			return;
+		}
+		LOGGER.warn("operation timeout expired waiting for web server");
+		this.fail(new IdleTimeoutException("operation timeout expired waiting for web server"));
+		this.abort();
+	}
+
+	/**
+	 * Reply the pending request. Caller holds the lock of the exchange.
+	 *
+	 * @param reply the reply
+	 */
+	protected void reply(SCMPMessage reply) {
+		ISCMPMessageCallback callback = this.pendingCallback;
+		if (callback == null) {
+			return;
+		}
+		this.clearPending();
+		try {
+			callback.receive(reply);
+		} catch (Exception e) {
+			LOGGER.error("receive reply", e);
+		}
+	}
+
+	/**
+	 * Fail the exchange. Pending request gets the exception, requests arriving later fail immediately. Caller holds the lock of the
+	 * exchange.
+	 *
+	 * @param ex the exception
+	 */
+	protected void fail(Exception ex) {
+		if (this.failure == null) {
+			this.failure = ex;
+		}
+		ISCMPMessageCallback callback = this.pendingCallback;
+		if (callback == null) {
+			return;
+		}
+		this.clearPending();
+		callback.receive(ex);
+	}
+
+	/**
+	 * Clear the pending request.
+	 */
+	private void clearPending() {
+		this.pendingMessage = null;
+		this.pendingCallback = null;
+		if (this.timeout != null) {
+			this.timeout.cancel();
+			this.timeout = null;
+		}
+	}
+
+	/**
+	 * Release the connection, exchange is complete. Connection is kept for the next exchange if the web server keeps it alive.
+	 */
+	protected void release() {
+		if (this.channel != null) {
+			this.webClient.release(this.channel, this.keepAlive);
+			this.channel = null;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void channelAssigned(Channel channel) {
+		this.channel = channel;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void requestWritten(Channel channel) {
+		// nothing to write after the request by default
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void failed(Exception ex) {
+		LOGGER.warn("exchange with web server failed " + ex.toString());
+		this.channel = null;
+		this.fail(ex);
+	}
+
+	/**
+	 * Abort the exchange. Connection is closed, it is never reused in an unknown state.
+	 */
+	public synchronized void abort() {
+		this.fail(new IOException("exchange with web server aborted"));
+		this.keepAlive = false;
+		this.release();
+	}
+}
@@ -0,0 +1,110 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.server;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.serviceconnector.net.req.netty.http.NettyWebClient;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMessageFault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class FileListExchange. Gets the file list from the list script of the web server, the list is replied once it has been received
+ * completely.
+ */
+public class FileListExchange extends FileExchange {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileListExchange.class);
+	/** The received content of the list. */
+	private ChannelBuffer contents;
+	/** The fault reply of the web server, null if web server delivers the list. */
+	private SCMPMessage fault;
+
+	/**
+	 * Instantiates a new file list exchange.
+	 *
+	 * @param webClient the web client
+	 */
+	public FileListExchange(NettyWebClient webClient) {
+		super(webClient);
+		this.contents = ChannelBuffers.dynamicBuffer();
+		this.fault = null;
+	}
+
+	/**
+	 * Start getting the list.
+	 *
+	 * @param uri the uri of the list script
+	 * @param message the message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout in milliseconds
+	 */
+	public synchronized void start(String uri, SCMPMessage message, ISCMPMessageCallback callback, int timeoutMillis) {
+		HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+		this.setPending(message, callback, timeoutMillis);
+		this.webClient.send(request, this);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void responseReceived(HttpResponse response) {
+		this.keepAlive = HttpHeaders.isKeepAlive(response);
+		if (response.getStatus().getCode() != HttpResponseStatus.OK.getCode() && this.pendingMessage != null) {
+			// SCMP Version request
+			LOGGER.warn("List file request failed " + response.getStatus().getReasonPhrase());
+			this.fault = new SCMPMessageFault(this.pendingMessage.getSCMPVersion(), SCMPError.SERVER_ERROR, response.getStatus().toString());
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void contentReceived(ChannelBuffer content, boolean last) {
+		if (this.fault == null) {
+			this.contents.writeBytes(content);
+		}
+		if (last == false) {
+			return;
+		}
+		this.release();
+		if (this.fault != null) {
+			this.reply(this.fault);
+			return;
+		}
+		if (this.pendingMessage == null) {
+			// request timed out meanwhile
+			return;
+		}
+		// SCMP Version request
+		SCMPMessage reply = new SCMPMessage(this.pendingMessage.getSCMPVersion());
+		byte[] body = new byte[this.contents.readableBytes()];
+		this.contents.readBytes(body);
+		reply.setBody(body);
+		this.reply(reply);
+	}
+}
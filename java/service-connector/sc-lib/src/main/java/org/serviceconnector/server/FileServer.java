@@ -16,25 +16,21 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.server;
 
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.serviceconnector.Constants;
 import org.serviceconnector.conf.RemoteNodeConfiguration;
+import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.log.SessionLogger;
-import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.net.req.netty.http.NettyWebClient;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
-import org.serviceconnector.scmp.SCMPMessageFault;
-import org.serviceconnector.scmp.SCMPPart;
 import org.serviceconnector.service.AbstractSession;
 import org.serviceconnector.service.FileSession;
 import org.serviceconnector.service.Session;
@@ -42,7 +38,8 @@ import org.serviceconnector.util.URLUtility;
 import org.serviceconnector.util.XMLDumpWriter;
 
 /**
- * The Class FileServer.
+ * The Class FileServer. Serves file sessions by a web server. Exchanges with the web server run on non-blocking keep-alive connections, no
+ * thread waits for the web server during a transfer.
  */
 public class FileServer extends Server {
 
@@ -52,6 +49,8 @@ public class FileServer extends Server {
 	private List<FileSession> sessions;
 	/** The max sessions. */
 	private int maxSessions;
+	/** The web client, non-blocking keep-alive connections to the web server. */
+	private NettyWebClient webClient;
 
 	/**
 	 * Instantiates a new file server.
@@ -64,184 +63,100 @@ public class FileServer extends Server {
 		this.sessions = Collections.synchronizedList(new ArrayList<FileSession>());
 		this.maxSessions = remoteNodeConfiguration.getMaxSessions();
 		this.serverKey = remoteNodeConfiguration.getName();
+		this.webClient = AppContext.getConnectionFactory().createWebClient(remoteNodeConfiguration.getHost(), remoteNodeConfiguration.getPort(),
+				remoteNodeConfiguration.getMaxPoolSize());
 	}
 
 	/**
-	 * Server upload file.
+	 * Server upload file. Parts are streamed in a chunked request to the upload script of the web server. Callback gets the reply once the
+	 * part has been written, the reply of the last part once the upload script responded.
 	 *
 	 * @param session the session
 	 * @param message the message
 	 * @param remoteFileName the remote file name
+	 * @param callback the callback
 	 * @param timeoutMillis the timeout milliseconds
-	 * @return the sCMP message
 	 * @throws Exception the exception
 	 */
-	public SCMPMessage serverUploadFile(FileSession session, SCMPMessage message, String remoteFileName, int timeoutMillis) throws Exception {
-		OutputStream out = null;
-		HttpURLConnection httpCon = null;
-
+	public void serverUploadFile(FileSession session, SCMPMessage message, String remoteFileName, ISCMPMessageCallback callback, int timeoutMillis)
+			throws Exception {
 		if (session.isStreaming()) {
 			// streaming already started
-			out = session.getOutputSteam();
-		} else {
-			// first stream package arrived - set up URL connection
-			String path = session.getPath();
-			URL url = new URL(
-					"http://" + this.remoteNodeConfiguration.getHost() + ":" + this.remoteNodeConfiguration.getPort() + Constants.SLASH + path + session.getUploadFileScriptName()
-							+ "?" + Constants.UPLOAD_FILE_PARAM_NAME + "=" + remoteFileName + "&" + Constants.UPLOAD_SERVICE_PARAM_NAME + "=" + message.getServiceName());
-			LOGGER.debug("file upload url = " + url.toString());
-			httpCon = (HttpURLConnection) url.openConnection();
-			httpCon.setRequestMethod("PUT");
-			httpCon.setDoOutput(true);
-			httpCon.setDoInput(true);
-			// enable streaming of HTTP
-			httpCon.setChunkedStreamingMode(2048);
-			httpCon.connect();
-			out = httpCon.getOutputStream();
-			// set session to streaming mode
-			session.startStreaming();
-			session.setHttpUrlConnection(httpCon);
-			session.setOutputStream(out);
+			((FileUploadExchange) session.getFileExchange()).uploadPart(message, callback, timeoutMillis);
+			return;
 		}
-		// write the data to the server
-		Object body = message.getBody();
-		if (body != null) {
-			out.write((byte[]) body);
+		// first stream package arrived - set up exchange with web server
+		String uri = Constants.SLASH + session.getPath() + session.getUploadFileScriptName() + Constants.QUESTION_MARK + Constants.UPLOAD_FILE_PARAM_NAME
+				+ Constants.EQUAL_SIGN + remoteFileName + "&" + Constants.UPLOAD_SERVICE_PARAM_NAME + Constants.EQUAL_SIGN + message.getServiceName();
+		long rangeOffset = this.getRangeOffset(message);
+		if (rangeOffset > 0) {
+			// range of a parallel upload, upload script writes it at the offset
+			uri += "&" + Constants.UPLOAD_OFFSET_PARAM_NAME + Constants.EQUAL_SIGN + rangeOffset;
 		}
-		out.flush();
-
-		SCMPMessage reply = null;
-		if (message.isPart() == false) {
-			// last package arrived
-			out.close();
-			httpCon = session.getHttpURLConnection();
-			if (httpCon.getResponseCode() != HttpResponseStatus.OK.getCode()) {
-				// error handling - SCMP Version request
-				SCMPMessageFault fault = new SCMPMessageFault(message.getSCMPVersion(), SCMPError.FILE_UPLOAD_FAILED, httpCon.getResponseMessage());
-				LOGGER.warn("Upload file failed =" + httpCon.getResponseMessage());
-				return fault;
-			}
-			httpCon.disconnect();
-			session.stopStreaming();
-			// SCMP Version request
-			reply = new SCMPMessage(message.getSCMPVersion());
-		} else {
-			// set up poll request - SCMP Version request
-			reply = new SCMPPart(message.getSCMPVersion(), true);
-		}
-		return reply;
+		LOGGER.debug("file upload uri = " + uri);
+		FileUploadExchange exchange = new FileUploadExchange(this.webClient, session);
+		// set session to streaming mode
+		session.startStreaming(exchange);
+		exchange.start(uri, message, callback, timeoutMillis);
 	}
 
 	/**
-	 * Server download file.
+	 * Server download file. Content of the web server is buffered as it arrives, callback gets the reply once a full part has been
+	 * received.
 	 *
 	 * @param session the session
 	 * @param message the message
 	 * @param remoteFileName the remote file name
-	 * @param timeoutSeconds the timeout seconds
-	 * @return the sCMP message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout milliseconds
 	 * @throws Exception the exception
 	 */
-	public SCMPMessage serverDownloadFile(FileSession session, SCMPMessage message, String remoteFileName, int timeoutSeconds) throws Exception {
-		InputStream in = null;
-		HttpURLConnection httpCon = null;
-
+	public void serverDownloadFile(FileSession session, SCMPMessage message, String remoteFileName, ISCMPMessageCallback callback, int timeoutMillis)
+			throws Exception {
 		if (session.isStreaming()) {
 			// streaming already started
-			in = session.getInputStream();
-		} else {
-			// download request arrived - set up URL connection
-			String path = session.getPath();
-			try {
-				URL url = new URL("http://" + this.remoteNodeConfiguration.getHost() + ":" + this.remoteNodeConfiguration.getPort() + Constants.SLASH + path + remoteFileName);
-				httpCon = (HttpURLConnection) url.openConnection();
-				httpCon.connect();
-				in = httpCon.getInputStream();
-			} catch (Exception e) {
-				// SCMP Version request
-				SCMPMessageFault fault = new SCMPMessageFault(message.getSCMPVersion(), SCMPError.SERVER_ERROR, httpCon.getResponseMessage() + " " + e.getMessage());
-				LOGGER.warn("Download file request failed " + httpCon.getResponseMessage());
-				return fault;
-			}
-			// set session to streaming mode
-			session.startStreaming();
-			session.setHttpUrlConnection(httpCon);
-			session.setInputStream(in);
+			((FileDownloadExchange) session.getFileExchange()).requestPart(message, callback, timeoutMillis);
+			return;
 		}
-		// write the data to the client
-		SCMPMessage reply = null;
-		byte[] fullBuffer = new byte[Constants.DEFAULT_MESSAGE_PART_SIZE];
-		int readBytes = in.read(fullBuffer);
-		if (readBytes < 0) {
-			// this is the end - SCMP Version request
-			reply = new SCMPMessage(message.getSCMPVersion());
-			reply.setBody(new byte[0]);
-			in.close();
-			session.getHttpURLConnection().disconnect();
-			session.stopStreaming();
-			return reply;
+		// download request arrived - set up exchange with web server
+		String uri = Constants.SLASH + session.getPath() + remoteFileName;
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, session, this.getRangeOffset(message),
+				message.getHeaderInt(SCMPHeaderAttributeKey.FILE_RANGE_LENGTH));
+		// set session to streaming mode
+		session.startStreaming(exchange);
+		exchange.start(uri, message, callback, timeoutMillis);
+	}
+
+	/**
+	 * Gets the file range offset of a request.
+	 *
+	 * @param message the message
+	 * @return the range offset, -1 if the whole file is requested
+	 */
+	private long getRangeOffset(SCMPMessage message) {
+		String rangeOffset = message.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET);
+		if (rangeOffset == null) {
+			return -1;
 		}
-		// set up part request, no poll request - SCMP Version request
-		reply = new SCMPPart(message.getSCMPVersion(), false);
-		reply.setBody(fullBuffer, 0, readBytes);
-		return reply;
+		return Long.parseLong(rangeOffset);
 	}
 
 	/**
-	 * Server get file list.
+	 * Server get file list. Callback gets the reply once the list script responded.
 	 *
 	 * @param path the path
 	 * @param listScriptName the list script name
-	 * @param serviceName the service name
-	 * @param timeoutSeconds the timeout seconds
-	 * @return the SCMP message
+	 * @param reqMessage the request message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout milliseconds
 	 * @throws Exception the exception
 	 */
-	public SCMPMessage serverGetFileList(String path, String listScriptName, SCMPMessage reqMessage, int timeoutSeconds) throws Exception {
-		HttpURLConnection httpCon = null;
+	public void serverGetFileList(String path, String listScriptName, SCMPMessage reqMessage, ISCMPMessageCallback callback, int timeoutMillis)
+			throws Exception {
 		String serviceName = reqMessage.getServiceName();
-		String urlPath = URLUtility.makePath(path, listScriptName);
-		urlPath += Constants.QUESTION_MARK + Constants.UPLOAD_SERVICE_PARAM_NAME + Constants.EQUAL_SIGN + serviceName;
-		URL url = new URL(Constants.HTTP, this.remoteNodeConfiguration.getHost(), this.remoteNodeConfiguration.getPort(), urlPath);
-		httpCon = (HttpURLConnection) url.openConnection();
-		httpCon.setRequestMethod("GET");
-		httpCon.setDoOutput(true);
-		httpCon.setDoInput(true);
-
-		InputStream in = null;
-		try {
-			httpCon = (HttpURLConnection) url.openConnection();
-			httpCon.connect();
-			in = httpCon.getInputStream();
-		} catch (Exception e) {
-			// SCMP Version request
-			SCMPMessageFault fault = new SCMPMessageFault(reqMessage.getSCMPVersion(), SCMPError.SERVER_ERROR, httpCon.getResponseMessage() + " " + e.getMessage());
-			LOGGER.warn("List file request failed " + httpCon.getResponseMessage());
-			return fault;
-		}
-		try {
-			// write the data to the client
-			SCMPMessage reply = null;
-			byte[] fullBuffer = new byte[Constants.DEFAULT_MESSAGE_PART_SIZE];
-			int readBytes = in.read(fullBuffer);
-			if (readBytes < 0) {
-				// this is the end - SCMP Version request
-				reply = new SCMPMessage(reqMessage.getSCMPVersion());
-				reply.setBody(new byte[0]);
-				in.close();
-				httpCon.disconnect();
-				return reply;
-			}
-			// set up part request, no poll request - SCMP Version request
-			reply = new SCMPMessage(reqMessage.getSCMPVersion());
-			reply.setBody(fullBuffer, 0, readBytes);
-			return reply;
-		} catch (Exception e) {
-			// SCMP Version request
-			SCMPMessageFault fault = new SCMPMessageFault(reqMessage.getSCMPVersion(), e, SCMPError.SERVER_ERROR);
-			LOGGER.warn("List file failed " + httpCon.getResponseMessage());
-			return fault;
-		}
+		String uri = URLUtility.makePath(path, listScriptName);
+		uri += Constants.QUESTION_MARK + Constants.UPLOAD_SERVICE_PARAM_NAME + Constants.EQUAL_SIGN + serviceName;
+		new FileListExchange(this.webClient).start(uri, reqMessage, callback, timeoutMillis);
 	}
 
 	/**
@@ -254,9 +169,9 @@ public class FileServer extends Server {
 	public void abortSession(AbstractSession session, String reason) {
 		FileSession fileSession = (FileSession) session;
 		SessionLogger.logAbortSession(fileSession, reason);
-		HttpURLConnection httpURLConnection = fileSession.getHttpURLConnection();
-		if (httpURLConnection != null) {
-			httpURLConnection.disconnect();
+		FileExchange fileExchange = fileSession.getFileExchange();
+		if (fileExchange != null) {
+			fileExchange.abort();
 		}
 		this.sessions.remove(session);
 	}
@@ -301,6 +216,13 @@ public class FileServer extends Server {
 		return maxSessions;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void destroy() {
+		super.destroy();
+		this.webClient.destroy();
+	}
+
 	/**
 	 * Dump the server into the xml writer.
 	 *
@@ -314,6 +236,7 @@ public class FileServer extends Server {
 		writer.writeAttribute("socketAddress", this.socketAddress.getHostName() + Constants.SLASH + this.socketAddress.getPort());
 		writer.writeAttribute("operationTimeoutMultiplier", this.operationTimeoutMultiplier);
 		writer.writeAttribute("maxSessions", this.maxSessions);
+		writer.writeAttribute("idleWebConnections", this.webClient.getIdleConnectionsCount());
 		this.requester.dump(writer);
 		writer.writeStartElement("sessions");
 		List<FileSession> sessionList = this.sessions;
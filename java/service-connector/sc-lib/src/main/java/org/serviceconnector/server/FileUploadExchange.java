@@ -0,0 +1,231 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.server;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.serviceconnector.net.req.netty.http.NettyWebClient;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMessageFault;
+import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.service.FileSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class FileUploadExchange. Uploads a file to the web server in a chunked PUT request, each part is written as a chunk. A part is
+ * replied as soon as its chunk has been written to the web server, the last part is replied with the response of the upload script.
+ */
+public class FileUploadExchange extends FileExchange {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileUploadExchange.class);
+	/** The session. */
+	private FileSession session;
+	/** The SCMP version of the upload request. */
+	private SCMPVersion scmpVersion;
+	/** The last part written flag. */
+	private boolean lastPartWritten;
+	/** The response of the upload script, null until received. */
+	private HttpResponse response;
+	/** The complete flag, the whole response has been received. */
+	private boolean complete;
+
+	/**
+	 * Instantiates a new file upload exchange.
+	 *
+	 * @param webClient the web client
+	 * @param session the session
+	 */
+	public FileUploadExchange(NettyWebClient webClient, FileSession session) {
+		super(webClient);
+		this.session = session;
+		this.scmpVersion = SCMPVersion.CURRENT;
+		this.lastPartWritten = false;
+		this.response = null;
+		this.complete = false;
+	}
+
+	/**
+	 * Start the upload. The first part is written after the head of the request.
+	 *
+	 * @param uri the uri of the upload script
+	 * @param message the message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout in milliseconds
+	 */
+	public synchronized void start(String uri, SCMPMessage message, ISCMPMessageCallback callback, int timeoutMillis) {
+		HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, uri);
+		// enable streaming of HTTP
+		request.setChunked(true);
+		request.headers().set(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+		this.scmpVersion = message.getSCMPVersion();
+		this.setPending(message, callback, timeoutMillis);
+		this.webClient.send(request, this);
+	}
+
+	/**
+	 * Upload the next part.
+	 *
+	 * @param message the message
+	 * @param callback the callback
+	 * @param timeoutMillis the timeout in milliseconds
+	 */
+	public synchronized void uploadPart(SCMPMessage message, ISCMPMessageCallback callback, int timeoutMillis) {
+		this.setPending(message, callback, timeoutMillis);
+		if (this.failure != null) {
+			this.fail(this.failure);
+			return;
+		}
+		if (this.replyResponse()) {
+			// upload script responded before the end of the upload
+			return;
+		}
+		this.writePart();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void requestWritten(Channel channel) {
+		if (this.channel != channel || this.pendingMessage == null) {
+			// exchange failed or upload script responded meanwhile
+			return;
+		}
+		// first part follows the head of the request
+		this.writePart();
+	}
+
+	/**
+	 * Write the pending part as chunk. Chunk of an empty part is not written, an empty chunk ends the request.
+	 */
+	private void writePart() {
+		final SCMPMessage message = this.pendingMessage;
+		ChannelFuture future = null;
+		Object body = message.getBody();
+		if (body != null && message.getBodyLength() > 0) {
+			ChannelBuffer content = ChannelBuffers.wrappedBuffer((byte[]) body, message.getBodyOffset(), message.getBodyLength());
+			future = this.channel.write(new DefaultHttpChunk(content));
+		}
+		if (message.isPart() == false) {
+			// last part arrived, reply follows response of the upload script
+			this.channel.write(HttpChunk.LAST_CHUNK);
+			this.lastPartWritten = true;
+			if (this.complete) {
+				this.release();
+			}
+			this.replyResponse();
+			return;
+		}
+		if (future == null) {
+			this.replyPart(message);
+			return;
+		}
+		// part is replied when written, client does not send faster than web server takes
+		future.addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture writeFuture) throws Exception {
+				if (writeFuture.isSuccess()) {
+					FileUploadExchange.this.replyPart(message);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reply a written part, request is polled for the next part.
+	 *
+	 * @param message the message of the part
+	 */
+	private synchronized void replyPart(SCMPMessage message) {
+		if (this.pendingMessage != message) {
+			// pending request failed meanwhile
+			return;
+		}
+		// set up poll request - SCMP Version request
+		this.reply(new SCMPPart(message.getSCMPVersion(), true));
+	}
+
+	/**
+	 * Reply the response of the upload script to the pending request. An error response is replied at once, a success response once the
+	 * last part has been written.
+	 *
+	 * @return true, if pending request has been replied
+	 */
+	private boolean replyResponse() {
+		if (this.response == null || this.pendingCallback == null) {
+			return false;
+		}
+		if (this.response.getStatus().getCode() != HttpResponseStatus.OK.getCode()) {
+			// error handling - SCMP Version request
+			LOGGER.warn("Upload file failed =" + this.response.getStatus().getReasonPhrase());
+			this.session.stopStreaming();
+			this.reply(new SCMPMessageFault(this.scmpVersion, SCMPError.FILE_UPLOAD_FAILED, this.response.getStatus().getReasonPhrase()));
+			return true;
+		}
+		if (this.lastPartWritten == false || this.complete == false) {
+			return false;
+		}
+		this.session.stopStreaming();
+		// SCMP Version request
+		SCMPMessage reply = new SCMPMessage(this.scmpVersion);
+		// confirms range has been written at its offset
+		reply.setHeader(this.pendingMessage, SCMPHeaderAttributeKey.FILE_RANGE_OFFSET);
+		this.reply(reply);
+		return true;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void responseReceived(HttpResponse httpResponse) {
+		this.keepAlive = HttpHeaders.isKeepAlive(httpResponse);
+		this.response = httpResponse;
+		if (httpResponse.getStatus().getCode() != HttpResponseStatus.OK.getCode()) {
+			// remaining parts are not accepted by the upload script
+			this.keepAlive = false;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void contentReceived(ChannelBuffer content, boolean last) {
+		if (last == false) {
+			// output of upload script is not relevant
+			return;
+		}
+		this.complete = true;
+		if (this.lastPartWritten || this.response.getStatus().getCode() != HttpResponseStatus.OK.getCode()) {
+			this.release();
+		}
+		this.replyResponse();
+	}
+}
@@ -447,39 +447,31 @@ public class StatefulServer extends Server implements IStatefulServer {
 			// server got already destroyed - no need to continue.
 			return;
 		}
-		int tries = (int) ((oti * AppContext.getBasicConfiguration().getOperationTimeoutMultiplier()) / Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-		int i = 0;
-		CommandCallback callback = null;
-		int otiOnServerMillis = 0;
+		long startTime = System.currentTimeMillis();
+		CommandCallback callback = new CommandCallback(true);
 		try {
-			// Following loop implements the wait mechanism in case of a busy connection pool
-			do {
-				callback = new CommandCallback(true);
-				try {
-					otiOnServerMillis = oti - (i * Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-					if (abortSubscription == true) {
-						this.serverAbortSubscription(abortMessage, callback, otiOnServerMillis);
-					} else {
-						this.serverAbortSession(abortMessage, callback, otiOnServerMillis);
-					}
-					// no exception has been thrown - get out of wait loop
-					break;
-				} catch (ConnectionPoolBusyException ex) {
-					LOGGER.warn("ConnectionPoolBusyException caught in wait mec of session abort");
-					if (i >= (tries - 1)) {
-						// only one loop outstanding - don't continue throw current exception
-						LOGGER.warn(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + abortMessage.getServiceName()));
-						SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + abortMessage.getServiceName());
-						throw scmpCommandException;
-					}
+			try {
+				// request waits for a free connection in case of a busy connection pool
+				if (abortSubscription == true) {
+					this.serverAbortSubscription(abortMessage, callback, oti);
+				} else {
+					this.serverAbortSession(abortMessage, callback, oti);
 				}
-				// sleep for a while and then try again
-				Thread.sleep(Constants.WAIT_FOR_FREE_CONNECTION_INTERVAL_MILLIS);
-			} while (++i < tries);
+			} catch (ConnectionPoolBusyException ex) {
+				// too many requests waiting for a free connection
+				LOGGER.warn(SCMPError.NO_FREE_CONNECTION.getErrorText("service=" + abortMessage.getServiceName()));
+				SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + abortMessage.getServiceName());
+				throw scmpCommandException;
+			}
 
 			// validate reply of server
 			SCMPMessage reply = callback.getMessageSync(oti);
 			if (reply.isFault()) {
+				if (Integer.valueOf(SCMPError.NO_FREE_CONNECTION.getErrorCode()).equals(reply.getHeaderInt(SCMPHeaderAttributeKey.SC_ERROR_CODE))) {
+					// no free connection within oti - try opening a new connection
+					SCMPCommandException scmpCommandException = new SCMPCommandException(SCMPError.NO_FREE_CONNECTION, "service=" + abortMessage.getServiceName());
+					throw scmpCommandException;
+				}
 				// error in server abort session - destroy server
 				this.abortSessionsAndDestroy("Session abort failed, abort reason: " + reason);
 			}
@@ -488,10 +480,20 @@ public class StatefulServer extends Server implements IStatefulServer {
 			// ConnectionPoolBusyException after wait mec - try opening a new connection
 
 			// RemoteNodeConfiguration remoteNodeConfiguration = this.requester.getRemoteNodeConfiguration();
+			// abort over a new connection gets the rest of the oti only, the time waited for a free connection is spent
+			int remainingOti = oti - (int) (System.currentTimeMillis() - startTime);
+			if (remainingOti <= 0) {
+				LOGGER.warn("Oti expired in aborting session wait mec, no abort over special connection");
+				if (this.service.getType() == ServiceType.SESSION_SERVICE) {
+					this.abortSessionsAndDestroy("Session abort failed, oti expired, abort reason: " + reason);
+				}
+				return;
+			}
 			// set up a new requester to make the SAS - only 1 connection is allowed
 			Requester sasRequester = new Requester(this.sasRemoteNodeConfiguration);
+			callback = new CommandCallback(true);
 			try {
-				this.serverAbortSessionWithExtraRequester(sasRequester, abortMessage, callback, oti);
+				this.serverAbortSessionWithExtraRequester(sasRequester, abortMessage, callback, remainingOti);
 			} catch (ConnectionPoolBusyException e) {
 				sasRequester.destroy();
 				LOGGER.warn("ConnectionPoolBusyException in aborting session wait mec over special connection. " + e.toString());
@@ -502,7 +504,7 @@ public class StatefulServer extends Server implements IStatefulServer {
 			}
 			sasRequester.destroy();
 			// validate reply of server
-			SCMPMessage reply = callback.getMessageSync(oti);
+			SCMPMessage reply = callback.getMessageSync(remainingOti);
 			if (reply.isFault()) {
 				LOGGER.warn("Fault in aborting session wait mec over special connection");
 				// error in server abort session - destroy server
@@ -16,12 +16,12 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.service;
 
-import org.serviceconnector.server.CascadedSC;
+import org.serviceconnector.server.CascadedSCGroup;
 
 public class CascadedCacheGuardian extends CascadedPublishService {
 
-	public CascadedCacheGuardian(String name, CascadedSC cascadedSC, int noDataIntervalSeconds) {
-		super(name, cascadedSC, noDataIntervalSeconds);
+	public CascadedCacheGuardian(String name, CascadedSCGroup cascadedSCGroup, int noDataIntervalSeconds) {
+		super(name, cascadedSCGroup, noDataIntervalSeconds);
 		this.type = ServiceType.CASCADED_CACHE_GUARDIAN;
 	}
 }
@@ -22,6 +22,7 @@ import org.serviceconnector.casc.CascadedClient;
 import org.serviceconnector.registry.PublishMessageQueue;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.server.CascadedSC;
+import org.serviceconnector.server.CascadedSCGroup;
 import org.serviceconnector.util.XMLDumpWriter;
 
 /**
@@ -32,8 +33,8 @@ public class CascadedPublishService extends Service implements IPublishService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(CascadedPublishService.class);
 	/** The subscription queue. */
 	private PublishMessageQueue<SCMPMessage> publishMessageQueue;
-	/** The cascaded sc. */
-	protected CascadedSC cascadedSC;
+	/** The cascaded SC group. */
+	protected CascadedSCGroup cascadedSCGroup;
 	/** The cascaded client. */
 	private CascadedClient cascClient;
 	/** The no data interval seconds. */
@@ -43,13 +44,13 @@ public class CascadedPublishService extends Service implements IPublishService {
 	 * Instantiates a new cascaded publish service.
 	 *
 	 * @param name the name
-	 * @param cascadedSC the cascaded sc
+	 * @param cascadedSCGroup the cascaded SC group
 	 * @param noDataIntervalSeconds the no data interval seconds
 	 */
-	public CascadedPublishService(String name, CascadedSC cascadedSC, int noDataIntervalSeconds) {
+	public CascadedPublishService(String name, CascadedSCGroup cascadedSCGroup, int noDataIntervalSeconds) {
 		super(name, ServiceType.CASCADED_PUBLISH_SERVICE);
-		this.cascadedSC = cascadedSC;
-		this.cascClient = new CascadedClient(cascadedSC, this);
+		this.cascadedSCGroup = cascadedSCGroup;
+		this.cascClient = new CascadedClient(cascadedSCGroup.select(), this);
 		this.noDataIntervalSeconds = noDataIntervalSeconds;
 		this.publishMessageQueue = new PublishMessageQueue<SCMPMessage>();
 	}
@@ -61,21 +62,21 @@ public class CascadedPublishService extends Service implements IPublishService {
 	}
 
 	/**
-	 * Sets the cascaded sc.
+	 * Gets the cascaded SC group.
 	 *
-	 * @param cascadedSC the new cascaded sc
+	 * @return the cascaded SC group
 	 */
-	public void setCascadedSC(CascadedSC cascadedSC) {
-		this.cascadedSC = cascadedSC;
+	public CascadedSCGroup getCascadedSCGroup() {
+		return this.cascadedSCGroup;
 	}
 
 	/**
-	 * Gets the cascaded sc.
+	 * Gets the cascaded sc. All subscriptions of the service are held by the cascaded client on the cascaded SC it is subscribed to.
 	 *
 	 * @return the cascaded sc
 	 */
 	public CascadedSC getCascadedSC() {
-		return cascadedSC;
+		return this.getCascClient().getCascadedSC();
 	}
 
 	/**
@@ -97,10 +98,19 @@ public class CascadedPublishService extends Service implements IPublishService {
 	}
 
 	/**
-	 * Renew cascaded client. Synchronization avoids returning the client in renew process.
+	 * Renew cascaded client on the selected cascaded SC of the group. Synchronization avoids returning the client in renew process.
 	 */
 	public synchronized void renewCascadedClient() {
-		LOGGER.trace("cascaded publish service renew cascaded client service=" + this.getName());
+		this.renewCascadedClient(this.cascadedSCGroup.select());
+	}
+
+	/**
+	 * Renew cascaded client on the given cascaded SC. Synchronization avoids returning the client in renew process.
+	 *
+	 * @param cascadedSC the cascaded SC
+	 */
+	public synchronized void renewCascadedClient(CascadedSC cascadedSC) {
+		LOGGER.trace("cascaded publish service renew cascaded client service=" + this.getName() + " cascadedSC=" + cascadedSC.getServerKey());
 		this.cascClient = new CascadedClient(cascadedSC, this);
 	}
 
@@ -111,7 +121,7 @@ public class CascadedPublishService extends Service implements IPublishService {
 		writer.writeAttribute("type", this.type.getValue());
 		writer.writeAttribute("enabled", this.enabled);
 		writer.writeAttribute("noiInSeconds", this.noDataIntervalSeconds);
-		this.cascadedSC.dump(writer);
+		this.cascadedSCGroup.dump(writer);
 		this.publishMessageQueue.dump(writer);
 		writer.writeEndElement(); // service
 	}
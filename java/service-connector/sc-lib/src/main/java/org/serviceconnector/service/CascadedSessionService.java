@@ -17,6 +17,7 @@
 package org.serviceconnector.service;
 
 import org.serviceconnector.server.CascadedSC;
+import org.serviceconnector.server.CascadedSCGroup;
 import org.serviceconnector.util.XMLDumpWriter;
 
 /**
@@ -24,36 +25,37 @@ import org.serviceconnector.util.XMLDumpWriter;
  */
 public class CascadedSessionService extends Service {
 
-	/** The cascaded sc. */
-	protected CascadedSC cascadedSC;
+	/** The cascaded SC group. */
+	protected CascadedSCGroup cascadedSCGroup;
 
 	/**
 	 * Instantiates a new cascaded session service.
 	 *
 	 * @param name the name
-	 * @param cascadedSC the cascaded sc
+	 * @param cascadedSCGroup the cascaded SC group
 	 */
-	public CascadedSessionService(String name, CascadedSC cascadedSC) {
+	public CascadedSessionService(String name, CascadedSCGroup cascadedSCGroup) {
 		super(name, ServiceType.CASCADED_SESSION_SERVICE);
-		this.cascadedSC = cascadedSC;
+		this.cascadedSCGroup = cascadedSCGroup;
 	}
 
 	/**
-	 * Sets the cascaded sc.
+	 * Gets the cascaded SC group.
 	 *
-	 * @param cascadedSC the new cascaded sc
+	 * @return the cascaded SC group
 	 */
-	public void setCascadedSC(CascadedSC cascadedSC) {
-		this.cascadedSC = cascadedSC;
+	public CascadedSCGroup getCascadedSCGroup() {
+		return this.cascadedSCGroup;
 	}
 
 	/**
-	 * Gets the cascaded sc.
+	 * Gets the cascaded SC for a request of a session, the cascaded SC which created the session.
 	 *
-	 * @return the cascaded sc
+	 * @param sessionId the session id
+	 * @return the cascaded SC
 	 */
-	public CascadedSC getCascadedSC() {
-		return cascadedSC;
+	public CascadedSC getCascadedSC(String sessionId) {
+		return this.cascadedSCGroup.getCascadedSC(sessionId);
 	}
 
 	@Override
@@ -62,7 +64,7 @@ public class CascadedSessionService extends Service {
 		writer.writeAttribute("name", this.name);
 		writer.writeAttribute("type", this.type.getValue());
 		writer.writeAttribute("enabled", this.enabled);
-		this.cascadedSC.dump(writer);
+		this.cascadedSCGroup.dump(writer);
 		writer.writeEndElement(); // service
 	}
 }
@@ -16,12 +16,10 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.service;
 
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.serviceconnector.server.FileExchange;
 import org.serviceconnector.server.FileServer;
 import org.serviceconnector.util.TimeoutWrapper;
 import org.serviceconnector.util.XMLDumpWriter;
@@ -32,15 +30,11 @@ import org.serviceconnector.util.XMLDumpWriter;
 public class FileSession extends Session {
 
 	/** The streaming. */
-	private boolean streaming;
+	private volatile boolean streaming;
 	/** The path. */
 	private String path;
-	/** The http url connection. */
-	private HttpURLConnection httpURLConnection;
-	/** The is. */
-	private InputStream is;
-	/** The out. */
-	private OutputStream out;
+	/** The exchange with the web server while streaming. */
+	private volatile FileExchange fileExchange;
 	/** The upload script. */
 	private String uploadScript;
 	/** The get file list script. */
@@ -59,7 +53,7 @@ public class FileSession extends Session {
 		super(sessionInfo, ipAddressList);
 		this.streaming = false;
 		this.path = path;
-		this.is = null;
+		this.fileExchange = null;
 		this.getFileListScript = getFileListScript;
 		this.uploadScript = uploadScript;
 	}
@@ -84,9 +78,12 @@ public class FileSession extends Session {
 
 	/**
 	 * Start streaming.
+	 *
+	 * @param fileExchange the exchange with the web server
 	 */
-	public void startStreaming() {
+	public void startStreaming(FileExchange fileExchange) {
 		this.streaming = true;
+		this.fileExchange = fileExchange;
 	}
 
 	/**
@@ -94,6 +91,16 @@ public class FileSession extends Session {
 	 */
 	public void stopStreaming() {
 		this.streaming = false;
+		this.fileExchange = null;
+	}
+
+	/**
+	 * Gets the exchange with the web server.
+	 *
+	 * @return the file exchange, null if not streaming
+	 */
+	public FileExchange getFileExchange() {
+		return this.fileExchange;
 	}
 
 	/**
@@ -133,42 +140,6 @@ public class FileSession extends Session {
 		return path;
 	}
 
-	/**
-	 * Sets the http url connection.
-	 *
-	 * @param httpCon the new http url connection
-	 */
-	public void setHttpUrlConnection(HttpURLConnection httpCon) {
-		this.httpURLConnection = httpCon;
-	}
-
-	/**
-	 * Sets the input stream.
-	 *
-	 * @param is the new input stream
-	 */
-	public void setInputStream(InputStream is) {
-		this.is = is;
-	}
-
-	/**
-	 * Gets the http url connection.
-	 *
-	 * @return the http url connection
-	 */
-	public HttpURLConnection getHttpURLConnection() {
-		return httpURLConnection;
-	}
-
-	/**
-	 * Gets the input stream.
-	 *
-	 * @return the input stream
-	 */
-	public InputStream getInputStream() {
-		return this.is;
-	}
-
 	/**
 	 * Gets the upload file script name.
 	 *
@@ -186,22 +157,4 @@ public class FileSession extends Session {
 	public String getGetFileListScriptName() {
 		return this.getFileListScript;
 	}
-
-	/**
-	 * Sets the output stream.
-	 *
-	 * @param out the new output stream
-	 */
-	public void setOutputStream(OutputStream out) {
-		this.out = out;
-	}
-
-	/**
-	 * Gets the output steam.
-	 *
-	 * @return the output steam
-	 */
-	public OutputStream getOutputSteam() {
-		return this.out;
-	}
 }
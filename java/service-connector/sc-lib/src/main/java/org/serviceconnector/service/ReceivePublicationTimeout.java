@@ -28,7 +28,7 @@ import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMessageFault;
 import org.serviceconnector.scmp.SCMPMsgType;
-import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
 import org.serviceconnector.util.ITimeout;
 
 /**
@@ -119,18 +119,8 @@ public class ReceivePublicationTimeout implements ITimeout {
 				} else {
 					// message polling successful
 					LOGGER.trace("message found on queue - subscription timeout set up reply message subscriptionId=" + subscriptionId);
-					// set up reply
-					SCMPMessage reply = null;
-					if (message.isPart()) {
-						// message from queue is of type part - outgoing must be part too, no poll request
-						reply = new SCMPPart(message.getSCMPVersion(), false, message.getHeader());
-					} else {
-						reply = new SCMPMessage(message.getSCMPVersion(), message.getHeader());
-					}
-					reply.setSessionId(subscriptionId);
-					reply.setMessageType(reqMsg.getMessageType());
-					reply.setIsReply(true);
-					reply.setBody(message.getBody());
+					// set up reply, further messages are added if client asks for a batch
+					SCMPMessage reply = SCMPPublicationBatch.createReply(reqMsg, message, this.publishMessageQueue);
 					this.response.setSCMP(reply);
 				}
 			}
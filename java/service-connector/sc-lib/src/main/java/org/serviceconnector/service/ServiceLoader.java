@@ -16,6 +16,8 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -29,6 +31,7 @@ import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.registry.ServiceRegistry;
 import org.serviceconnector.scmp.SCMPError;
 import org.serviceconnector.server.CascadedSC;
+import org.serviceconnector.server.CascadedSCGroup;
 import org.serviceconnector.server.FileServer;
 import org.serviceconnector.server.Server;
 
@@ -72,38 +75,16 @@ public final class ServiceLoader {
 			Service service = null;
 			switch (serviceType) {
 				case CASCADED_SESSION_SERVICE:
-					Server server = AppContext.getServerRegistry().getServer(remotNodeName);
-					if (server == null) {
-						throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE,
-								" host=" + remotNodeName + " configured for service=" + serviceName + " is not configured");
-					}
-					service = new CascadedSessionService(serviceName, (CascadedSC) server);
+					service = new CascadedSessionService(serviceName, ServiceLoader.loadCascadedSCGroup(serviceConfiguration));
 					break;
 				case CASCADED_PUBLISH_SERVICE:
-					server = AppContext.getServerRegistry().getServer(remotNodeName);
-					if (server == null) {
-						throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE,
-								" host=" + remotNodeName + " configured for service=" + serviceName + " is not configured");
-					}
-
-					service = new CascadedPublishService(serviceName, (CascadedSC) server, serviceConfiguration.getNoDataIntervalSeconds());
+					service = new CascadedPublishService(serviceName, ServiceLoader.loadCascadedSCGroup(serviceConfiguration), serviceConfiguration.getNoDataIntervalSeconds());
 					break;
 				case CASCADED_CACHE_GUARDIAN:
-					server = AppContext.getServerRegistry().getServer(remotNodeName);
-					if (server == null) {
-						throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE,
-								" host=" + remotNodeName + " configured for cache guardian =" + serviceName + " is not configured");
-					}
-
-					service = new CascadedCacheGuardian(serviceName, (CascadedSC) server, serviceConfiguration.getNoDataIntervalSeconds());
+					service = new CascadedCacheGuardian(serviceName, ServiceLoader.loadCascadedSCGroup(serviceConfiguration), serviceConfiguration.getNoDataIntervalSeconds());
 					break;
 				case CASCADED_FILE_SERVICE:
-					server = AppContext.getServerRegistry().getServer(remotNodeName);
-					if (server == null) {
-						throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE,
-								" host=" + remotNodeName + " configured for service=" + serviceName + " is not configured");
-					}
-					service = new CascadedFileService(serviceName, (CascadedSC) server);
+					service = new CascadedFileService(serviceName, ServiceLoader.loadCascadedSCGroup(serviceConfiguration));
 					break;
 				case SESSION_SERVICE:
 					service = new SessionService(serviceName);
@@ -115,7 +96,7 @@ public final class ServiceLoader {
 					service = new CacheGuardian(serviceName);
 					break;
 				case FILE_SERVICE:
-					server = AppContext.getServerRegistry().getServer(remotNodeName);
+					Server server = AppContext.getServerRegistry().getServer(remotNodeName);
 					if (server == null) {
 						throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE,
 								" host=" + remotNodeName + " configured for service=" + serviceName + " is not configured");
@@ -132,4 +113,24 @@ public final class ServiceLoader {
 			serviceRegistry.addService(service.getName(), service);
 		}
 	}
+
+	/**
+	 * Load the cascaded SC group of a cascaded service, the remote node followed by the nodes of the remote node group.
+	 *
+	 * @param serviceConfiguration the service configuration
+	 * @return the cascaded SC group
+	 * @throws SCMPValidatorException the SCMP validator exception
+	 */
+	private static CascadedSCGroup loadCascadedSCGroup(ServiceConfiguration serviceConfiguration) throws SCMPValidatorException {
+		List<CascadedSC> cascadedSCs = new ArrayList<CascadedSC>();
+		for (String remoteNodeName : serviceConfiguration.getRemoteNodeGroup()) {
+			Server server = AppContext.getServerRegistry().getServer(remoteNodeName);
+			if (server == null) {
+				throw new SCMPValidatorException(SCMPError.V_WRONG_CONFIGURATION_FILE,
+						" host=" + remoteNodeName + " configured for service=" + serviceConfiguration.getName() + " is not configured");
+			}
+			cascadedSCs.add((CascadedSC) server);
+		}
+		return new CascadedSCGroup(cascadedSCs);
+	}
 }
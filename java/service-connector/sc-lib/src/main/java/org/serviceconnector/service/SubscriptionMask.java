@@ -19,7 +19,6 @@ package org.serviceconnector.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
-import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 
 /**
@@ -49,9 +48,16 @@ public class SubscriptionMask {
 	 * @return true, if successful
 	 */
 	public boolean matches(SCMPMessage message) {
-		String msgMask = message.getHeader(SCMPHeaderAttributeKey.MASK);
-		byte[] msgMaskByte = msgMask.getBytes();
+		return this.matches(message.getMaskBytes());
+	}
 
+	/**
+	 * Matches.
+	 *
+	 * @param msgMaskByte the mask of the message in bytes
+	 * @return true, if successful
+	 */
+	public boolean matches(byte[] msgMaskByte) {
 		if (mask.length != msgMaskByte.length) {
 			return false;
 		}
@@ -66,6 +72,15 @@ public class SubscriptionMask {
 		return true;
 	}
 
+	/**
+	 * Gets the mask in bytes. Returned array must not be modified.
+	 *
+	 * @return the mask bytes
+	 */
+	public byte[] getBytes() {
+		return this.mask;
+	}
+
 	/**
 	 * Gets the value.
 	 *
@@ -111,6 +126,7 @@ public class SubscriptionMask {
 	 * @throws InvalidMaskLengthException the invalid mask length exception
 	 */
 	public static String masking(SubscriptionMask currentSubscriptionMask, String mask2) throws InvalidMaskLengthException {
-		return new String(SubscriptionMask.masking(currentSubscriptionMask.getValue().getBytes(), mask2.getBytes()));
+		// copy current mask, masking modifies the base mask
+		return new String(SubscriptionMask.masking(currentSubscriptionMask.getBytes().clone(), mask2.getBytes()));
 	}
 }
@@ -0,0 +1,146 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.service;
+
+import org.serviceconnector.Constants;
+
+/**
+ * The Class SubscriptionMaskAggregate. Combined mask of a set of subscription masks, like folding them with {@link SubscriptionMask#masking(byte[], byte[])}. The aggregate
+ * keeps per position reference counts of the mask characters, adding or removing a mask updates the combined mask in O(mask length) without touching the other masks. A
+ * position holds the character all masks agree on, % otherwise. Not thread safe, callers synchronize.
+ */
+public class SubscriptionMaskAggregate {
+
+	/** The number of distinct byte values. */
+	private static final int BYTE_VALUES = 256;
+
+	/** The reference counts per position and byte value, null as long as no mask has been added. */
+	private int[][] counts;
+	/** The number of distinct byte values per position. */
+	private int[] distinct;
+	/** The combined mask. */
+	private byte[] aggregate;
+	/** The number of masks in the aggregate. */
+	private int size;
+
+	/**
+	 * Instantiates a new empty subscription mask aggregate.
+	 */
+	public SubscriptionMaskAggregate() {
+		this.clear();
+	}
+
+	/**
+	 * Adds a mask.
+	 *
+	 * @param mask the mask
+	 * @throws InvalidMaskLengthException the mask length differs from masks in the aggregate
+	 */
+	public void add(SubscriptionMask mask) throws InvalidMaskLengthException {
+		byte[] maskBytes = mask.getBytes();
+		if (this.size == 0) {
+			this.counts = new int[maskBytes.length][BYTE_VALUES];
+			this.distinct = new int[maskBytes.length];
+			this.aggregate = new byte[maskBytes.length];
+		} else if (maskBytes.length != this.aggregate.length) {
+			throw new InvalidMaskLengthException("mask has invalid length, masking not allowed: aggregate=" + this.getValue() + " mask=" + mask.getValue());
+		}
+		for (int index = 0; index < maskBytes.length; index++) {
+			int value = maskBytes[index] & 0xFF;
+			if (this.counts[index][value]++ == 0) {
+				this.distinct[index]++;
+			}
+			this.aggregate[index] = this.distinct[index] == 1 ? maskBytes[index] : Constants.PERCENT_SIGN;
+		}
+		this.size++;
+	}
+
+	/**
+	 * Removes a mask, which has been added before.
+	 *
+	 * @param mask the mask
+	 */
+	public void remove(SubscriptionMask mask) {
+		byte[] maskBytes = mask.getBytes();
+		if (this.size == 0 || maskBytes.length != this.aggregate.length) {
+			// mask is not part of the aggregate
+			return;
+		}
+		if (this.size == 1) {
+			this.clear();
+			return;
+		}
+		for (int index = 0; index < maskBytes.length; index++) {
+			int value = maskBytes[index] & 0xFF;
+			if (--this.counts[index][value] > 0) {
+				continue;
+			}
+			if (--this.distinct[index] == 1) {
+				// remaining masks agree on this position - look up their character
+				this.aggregate[index] = this.remainingByte(index);
+			}
+		}
+		this.size--;
+	}
+
+	/**
+	 * Gets the remaining byte of a position with one distinct byte value.
+	 *
+	 * @param index the index of the position
+	 * @return the byte
+	 */
+	private byte remainingByte(int index) {
+		int[] positionCounts = this.counts[index];
+		for (int value = 0; value < BYTE_VALUES; value++) {
+			if (positionCounts[value] > 0) {
+				return (byte) value;
+			}
+		}
+		return Constants.PERCENT_SIGN;
+	}
+
+	/**
+	 * Clears the aggregate.
+	 */
+	public void clear() {
+		this.counts = null;
+		this.distinct = null;
+		this.aggregate = null;
+		this.size = 0;
+	}
+
+	/**
+	 * Gets the number of masks in the aggregate.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the combined mask.
+	 *
+	 * @return the combined mask, null if the aggregate is empty
+	 */
+	public String getValue() {
+		if (this.size == 0) {
+			return null;
+		}
+		return new String(this.aggregate);
+	}
+}
@@ -0,0 +1,268 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.service;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.serviceconnector.Constants;
+
+/**
+ * The Class SubscriptionMaskIndex. Indexes the subscription masks of a publish service. Every subscription gets a slot, per mask length and position the index keeps the
+ * slots expecting a certain character and the slots having a wildcard (%) on that position. The subscriptions matching a published message are evaluated once per message by
+ * combining the slot sets of all positions, instead of comparing the message mask with every subscription mask.<br />
+ * Every change of the index increments its version. A match result is only valid for subscriptions which have not been changed after the version of the result.
+ */
+public class SubscriptionMaskIndex {
+
+	/** The index per mask length. */
+	private final Map<Integer, LengthIndex> lengthIndexes;
+	/** The masks per slot. */
+	private final Map<Integer, byte[]> slotMasks;
+	/** The free slots. */
+	private final BitSet freeSlots;
+	/** The next slot never used before. */
+	private int nextSlot;
+	/** The version of the index. */
+	private volatile long version;
+	/** The lock, matching reads the index, subscriptions modify it. */
+	private final ReentrantReadWriteLock lock;
+
+	/**
+	 * Instantiates a new subscription mask index.
+	 */
+	public SubscriptionMaskIndex() {
+		this.lengthIndexes = new HashMap<Integer, LengthIndex>();
+		this.slotMasks = new HashMap<Integer, byte[]>();
+		this.freeSlots = new BitSet();
+		this.nextSlot = 0;
+		this.version = 0;
+		this.lock = new ReentrantReadWriteLock();
+	}
+
+	/**
+	 * Adds a subscription mask to the index.
+	 *
+	 * @param mask the mask
+	 * @return the slot of the subscription
+	 */
+	public int add(SubscriptionMask mask) {
+		this.lock.writeLock().lock();
+		try {
+			int slot = this.freeSlots.nextSetBit(0);
+			if (slot < 0) {
+				slot = this.nextSlot++;
+			} else {
+				this.freeSlots.clear(slot);
+			}
+			this.addSlot(slot, mask.getBytes());
+			this.version++;
+			return slot;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Changes the subscription mask of a slot.
+	 *
+	 * @param slot the slot
+	 * @param mask the new mask
+	 */
+	public void change(int slot, SubscriptionMask mask) {
+		this.lock.writeLock().lock();
+		try {
+			this.removeSlot(slot);
+			this.addSlot(slot, mask.getBytes());
+			this.version++;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a subscription from the index. Slot gets reused by later subscriptions.
+	 *
+	 * @param slot the slot
+	 */
+	public void remove(int slot) {
+		this.lock.writeLock().lock();
+		try {
+			if (this.removeSlot(slot)) {
+				this.freeSlots.set(slot);
+				this.version++;
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the version of the index.
+	 *
+	 * @return the version
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Gets the number of indexed subscriptions.
+	 *
+	 * @return the size
+	 */
+	public int getSize() {
+		this.lock.readLock().lock();
+		try {
+			return this.slotMasks.size();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Match. Evaluates the slots of all subscriptions matching the given message mask.
+	 *
+	 * @param msgMask the mask of the message in bytes
+	 * @param matchingSlots the matching slots, gets filled by the index
+	 * @return the version of the index the result is valid for
+	 */
+	public long match(byte[] msgMask, BitSet matchingSlots) {
+		matchingSlots.clear();
+		this.lock.readLock().lock();
+		try {
+			if (msgMask == null) {
+				return this.version;
+			}
+			LengthIndex lengthIndex = this.lengthIndexes.get(msgMask.length);
+			if (lengthIndex == null) {
+				// no subscription with masks of this length
+				return this.version;
+			}
+			matchingSlots.or(lengthIndex.slots);
+			BitSet positionSlots = new BitSet();
+			for (int position = 0; position < msgMask.length && matchingSlots.isEmpty() == false; position++) {
+				byte sign = msgMask[position];
+				if (sign == Constants.PERCENT_SIGN) {
+					// message contains % on this position all subscriptions match
+					continue;
+				}
+				positionSlots.clear();
+				positionSlots.or(lengthIndex.wildcardSlots[position]);
+				BitSet signSlots = lengthIndex.signSlots[position].get(sign);
+				if (signSlots != null) {
+					positionSlots.or(signSlots);
+				}
+				matchingSlots.and(positionSlots);
+			}
+			return this.version;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the slot. Caller must hold the write lock.
+	 *
+	 * @param slot the slot
+	 * @param mask the mask
+	 */
+	private void addSlot(int slot, byte[] mask) {
+		LengthIndex lengthIndex = this.lengthIndexes.get(mask.length);
+		if (lengthIndex == null) {
+			lengthIndex = new LengthIndex(mask.length);
+			this.lengthIndexes.put(mask.length, lengthIndex);
+		}
+		lengthIndex.slots.set(slot);
+		for (int position = 0; position < mask.length; position++) {
+			byte sign = mask[position];
+			if (sign == Constants.PERCENT_SIGN) {
+				lengthIndex.wildcardSlots[position].set(slot);
+				continue;
+			}
+			BitSet signSlots = lengthIndex.signSlots[position].get(sign);
+			if (signSlots == null) {
+				signSlots = new BitSet();
+				lengthIndex.signSlots[position].put(sign, signSlots);
+			}
+			signSlots.set(slot);
+		}
+		this.slotMasks.put(slot, mask);
+	}
+
+	/**
+	 * Removes the slot. Caller must hold the write lock.
+	 *
+	 * @param slot the slot
+	 * @return true, if slot was indexed
+	 */
+	private boolean removeSlot(int slot) {
+		byte[] mask = this.slotMasks.remove(slot);
+		if (mask == null) {
+			return false;
+		}
+		LengthIndex lengthIndex = this.lengthIndexes.get(mask.length);
+		lengthIndex.slots.clear(slot);
+		for (int position = 0; position < mask.length; position++) {
+			byte sign = mask[position];
+			if (sign == Constants.PERCENT_SIGN) {
+				lengthIndex.wildcardSlots[position].clear(slot);
+				continue;
+			}
+			BitSet signSlots = lengthIndex.signSlots[position].get(sign);
+			signSlots.clear(slot);
+			if (signSlots.isEmpty()) {
+				lengthIndex.signSlots[position].remove(sign);
+			}
+		}
+		if (lengthIndex.slots.isEmpty()) {
+			this.lengthIndexes.remove(mask.length);
+		}
+		return true;
+	}
+
+	/**
+	 * The Class LengthIndex. Index of all subscription masks with the same length.
+	 */
+	private static final class LengthIndex {
+
+		/** The slots of all subscriptions with masks of this length. */
+		private final BitSet slots;
+		/** The slots having a wildcard per position. */
+		private final BitSet[] wildcardSlots;
+		/** The slots expecting a sign per position. */
+		private final Map<Byte, BitSet>[] signSlots;
+
+		/**
+		 * Instantiates a new length index.
+		 *
+		 * @param length the mask length
+		 */
+		@SuppressWarnings("unchecked")
+		private LengthIndex(int length) {
+			this.slots = new BitSet();
+			this.wildcardSlots = new BitSet[length];
+			this.signSlots = new Map[length];
+			for (int position = 0; position < length; position++) {
+				this.wildcardSlots[position] = new BitSet();
+				this.signSlots[position] = new HashMap<Byte, BitSet>();
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The Class FileRegionInputStream. Reads a region of a file by positional reads, several streams on the same channel do not
+ * interfere. The region is exposed (channel, position, remaining) to let a connection transfer it straight from the file into the
+ * socket (FileChannel.transferTo) instead of copying it through the heap.
+ */
+public class FileRegionInputStream extends InputStream {
+
+	/** The channel. */
+	private FileChannel channel;
+	/** The position to read next. */
+	private long position;
+	/** The end of the region. */
+	private long end;
+
+	/**
+	 * Instantiates a new file region input stream.
+	 *
+	 * @param channel the channel
+	 * @param offset the offset
+	 * @param length the length
+	 */
+	public FileRegionInputStream(FileChannel channel, long offset, long length) {
+		this.channel = channel;
+		this.position = offset;
+		this.end = offset + length;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		if (this.read(b, 0, 1) < 0) {
+			return -1;
+		}
+		return b[0] & 0xff;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (this.position >= this.end) {
+			return -1;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, this.end - this.position));
+		int readBytes = this.channel.read(buffer, this.position);
+		if (readBytes > 0) {
+			this.position += readBytes;
+		}
+		return readBytes;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = Math.max(0, Math.min(n, this.getRemaining()));
+		this.position += skipped;
+		return skipped;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(Integer.MAX_VALUE, this.getRemaining());
+	}
+
+	/**
+	 * Gets the channel.
+	 *
+	 * @return the channel
+	 */
+	public FileChannel getChannel() {
+		return this.channel;
+	}
+
+	/**
+	 * Gets the position to read next.
+	 *
+	 * @return the position
+	 */
+	public long getPosition() {
+		return this.position;
+	}
+
+	/**
+	 * Gets the number of bytes remaining in the region.
+	 *
+	 * @return the remaining
+	 */
+	public long getRemaining() {
+		return Math.max(0, this.end - this.position);
+	}
+}
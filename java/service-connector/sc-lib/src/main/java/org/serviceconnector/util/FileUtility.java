@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.io.Writer;
 import java.lang.reflect.Method;
@@ -67,6 +68,32 @@ public final class FileUtility {
 		return file.exists();
 	}
 
+	/**
+	 * Read fully. Reads until length bytes are read or the end of the stream is reached. A single read of a socket stream returns what has
+	 * arrived so far, reading fully fills a part and saves the round trips of short parts.
+	 *
+	 * @param in the input stream
+	 * @param buffer the buffer
+	 * @param offset the offset in buffer
+	 * @param length the number of bytes to read
+	 * @return the number of bytes read, -1 if the end of the stream was reached before reading any byte
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+		int readBytes = 0;
+		while (readBytes < length) {
+			int count = in.read(buffer, offset + readBytes, length - readBytes);
+			if (count < 0) {
+				break;
+			}
+			readBytes += count;
+		}
+		if (readBytes == 0 && length > 0) {
+			return -1;
+		}
+		return readBytes;
+	}
+
 	/**
 	 * Check if give file belongs to current date (day)
 	 *
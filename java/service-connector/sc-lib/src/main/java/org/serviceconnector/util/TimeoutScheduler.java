@@ -0,0 +1,392 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.serviceconnector.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class TimeoutScheduler. Schedules TimeoutWrapper instances on a hashed timing wheel shared by all schedulers. Scheduling and canceling a timeout
+ * is done in constant time, canceled timeouts are removed from the wheel at the next tick. There is no need to purge a queue of canceled timeouts.<br />
+ * The wheel thread only expires timeouts, the timeout procedure runs on the threads of the scheduler. Timeout procedures of different schedulers
+ * do not delay each other. Expired timeouts are collected in a backlog, a scheduler thread runs the whole backlog in one go instead of getting one task
+ * per timeout.<br />
+ * The wheel is reference counted, each scheduler holds a reference until it is shut down. The wheel stops when the last scheduler is shut down, its thread
+ * is a daemon thread, schedulers living as long as the JVM do not keep it alive.
+ */
+public class TimeoutScheduler {
+
+	/** The Constant LOGGER. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(TimeoutScheduler.class);
+	/** The timing wheel, shared by all schedulers. */
+	private static Timer wheel = null;
+	/** The number of schedulers holding a reference to the wheel. */
+	private static int wheelReferences = 0;
+
+	/** The name of the scheduler. */
+	private final String name;
+	/** The executor running expired timeouts. */
+	private final ExecutorService executor;
+	/** The number of threads running expired timeouts. */
+	private final int threadCount;
+	/** The number of pending timeouts. */
+	private final AtomicInteger pendingTimeouts;
+	/** The expired timeouts waiting for a scheduler thread. */
+	private final ConcurrentLinkedQueue<WheelTimeout<?>> expiredTimeouts;
+	/** The number of expired timeouts waiting for a scheduler thread. */
+	private final AtomicInteger expiredBacklog;
+	/** The peak of the expired backlog. */
+	private volatile int peakExpiredBacklog;
+	/** The number of scheduler threads running the expired backlog. */
+	private final AtomicInteger activeRunners;
+	/** The number of executed timeouts. */
+	private final AtomicLong executedTimeouts;
+	/** The shutdown flag, the reference to the wheel has been released. */
+	private final AtomicBoolean shutdown;
+
+	/**
+	 * Instantiates a new timeout scheduler.
+	 *
+	 * @param name the name of the scheduler, prefix of the thread name
+	 * @param threadPrio the priority of the threads running expired timeouts
+	 * @param threadCount the number of threads running expired timeouts
+	 */
+	public TimeoutScheduler(String name, int threadPrio, int threadCount) {
+		this.name = name;
+		this.threadCount = threadCount;
+		this.executor = Executors.newFixedThreadPool(threadCount, new NamedPriorityThreadFactory(name, threadPrio));
+		this.pendingTimeouts = new AtomicInteger();
+		this.expiredTimeouts = new ConcurrentLinkedQueue<WheelTimeout<?>>();
+		this.expiredBacklog = new AtomicInteger();
+		this.peakExpiredBacklog = 0;
+		this.activeRunners = new AtomicInteger();
+		this.executedTimeouts = new AtomicLong();
+		this.shutdown = new AtomicBoolean(false);
+		TimeoutScheduler.acquireWheel();
+	}
+
+	/**
+	 * Instantiates a new timeout scheduler with a single thread.
+	 *
+	 * @param name the name of the scheduler, prefix of the thread name
+	 * @param threadPrio the priority of the thread running expired timeouts
+	 */
+	public TimeoutScheduler(String name, int threadPrio) {
+		this(name, threadPrio, 1);
+	}
+
+	/**
+	 * Instantiates a new timeout scheduler with normal thread priority.
+	 *
+	 * @param name the name of the scheduler, prefix of the thread name
+	 */
+	public TimeoutScheduler(String name) {
+		this(name, Thread.NORM_PRIORITY);
+	}
+
+	/**
+	 * Schedule timeout. The timeout wrapper runs after the given delay unless the returned future gets canceled before.
+	 *
+	 * @param <T> the type of the timeout wrapper
+	 * @param timeoutWrapper the timeout wrapper
+	 * @param delay the delay
+	 * @param unit the unit of the delay
+	 * @return the scheduled future
+	 */
+	public <T extends Runnable> ScheduledFuture<T> schedule(T timeoutWrapper, long delay, TimeUnit unit) {
+		WheelTimeout<T> timeout = new WheelTimeout<T>(timeoutWrapper, System.nanoTime() + unit.toNanos(delay));
+		this.pendingTimeouts.incrementAndGet();
+		if (this.shutdown.get()) {
+			// scheduler is shut down - timeout never runs
+			LOGGER.debug("timeout not scheduled, scheduler=" + this.name + " is shut down");
+			timeout.cancel(false);
+			return timeout;
+		}
+		timeout.wheelTimeout = TimeoutScheduler.getWheel().newTimeout(timeout, delay, unit);
+		return timeout;
+	}
+
+	/**
+	 * Gets the number of pending timeouts.
+	 *
+	 * @return the pending timeouts
+	 */
+	public int getPendingTimeouts() {
+		return this.pendingTimeouts.get();
+	}
+
+	/**
+	 * Gets the number of expired timeouts waiting for a scheduler thread.
+	 *
+	 * @return the expired backlog
+	 */
+	public int getExpiredBacklog() {
+		return this.expiredBacklog.get();
+	}
+
+	/**
+	 * Gets the peak of the expired backlog.
+	 *
+	 * @return the peak expired backlog
+	 */
+	public int getPeakExpiredBacklog() {
+		return this.peakExpiredBacklog;
+	}
+
+	/**
+	 * Gets the number of executed timeouts.
+	 *
+	 * @return the executed timeouts
+	 */
+	public long getExecutedTimeouts() {
+		return this.executedTimeouts.get();
+	}
+
+	/**
+	 * Shutdown now. Pending timeouts do not run anymore, the reference to the wheel is released.
+	 */
+	public void shutdownNow() {
+		this.executor.shutdownNow();
+		if (this.shutdown.compareAndSet(false, true)) {
+			TimeoutScheduler.releaseWheel();
+		}
+	}
+
+	/**
+	 * Expired. Adds the expired timeout to the backlog and starts a scheduler thread if not all of them are running.
+	 *
+	 * @param timeout the timeout
+	 */
+	private void expired(WheelTimeout<?> timeout) {
+		this.expiredTimeouts.add(timeout);
+		int backlog = this.expiredBacklog.incrementAndGet();
+		if (backlog > this.peakExpiredBacklog) {
+			this.peakExpiredBacklog = backlog;
+		}
+		this.startRunner();
+	}
+
+	/**
+	 * Start runner. Hands a backlog runner over to the executor if less than thread count runners are active.
+	 */
+	private void startRunner() {
+		while (true) {
+			int active = this.activeRunners.get();
+			if (active >= this.threadCount) {
+				// all threads busy - running runners process the backlog
+				return;
+			}
+			if (this.activeRunners.compareAndSet(active, active + 1)) {
+				break;
+			}
+		}
+		try {
+			this.executor.execute(new BacklogRunner());
+		} catch (RejectedExecutionException ex) {
+			this.activeRunners.decrementAndGet();
+			LOGGER.debug("timeouts not executed, scheduler=" + this.name + " is shut down");
+			WheelTimeout<?> timeout = null;
+			while ((timeout = this.expiredTimeouts.poll()) != null) {
+				this.expiredBacklog.decrementAndGet();
+				timeout.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Dump the scheduler.
+	 *
+	 * @param writer the writer
+	 * @throws Exception the exception
+	 */
+	public void dump(XMLDumpWriter writer) throws Exception {
+		writer.writeStartElement("timeoutScheduler");
+		writer.writeAttribute("name", this.name);
+		writer.writeAttribute("threadCount", this.threadCount);
+		writer.writeAttribute("pendingTimeouts", this.getPendingTimeouts());
+		writer.writeAttribute("expiredBacklog", this.getExpiredBacklog());
+		writer.writeAttribute("peakExpiredBacklog", this.getPeakExpiredBacklog());
+		writer.writeAttribute("executedTimeouts", this.getExecutedTimeouts());
+		writer.writeEndElement(); // end of timeoutScheduler
+	}
+
+	/**
+	 * Gets the wheel. The wheel gets created at first use, its daemon thread starts with the first timeout.
+	 *
+	 * @return the wheel
+	 */
+	private static synchronized Timer getWheel() {
+		if (TimeoutScheduler.wheel == null) {
+			final ThreadFactory threadFactory = new NamedPriorityThreadFactory("TimeoutWheel", Thread.MAX_PRIORITY);
+			TimeoutScheduler.wheel = new HashedWheelTimer(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = threadFactory.newThread(runnable);
+					thread.setDaemon(true);
+					return thread;
+				}
+			}, Constants.TIMEOUT_WHEEL_TICK_MILLIS, TimeUnit.MILLISECONDS, Constants.TIMEOUT_WHEEL_TICKS_PER_WHEEL);
+		}
+		return TimeoutScheduler.wheel;
+	}
+
+	/**
+	 * Acquire wheel. Adds a reference of a scheduler to the wheel.
+	 */
+	private static synchronized void acquireWheel() {
+		TimeoutScheduler.wheelReferences++;
+	}
+
+	/**
+	 * Release wheel. Removes a reference of a scheduler, the last reference released stops the wheel and its thread.
+	 */
+	private static synchronized void releaseWheel() {
+		TimeoutScheduler.wheelReferences--;
+		if (TimeoutScheduler.wheelReferences == 0 && TimeoutScheduler.wheel != null) {
+			TimeoutScheduler.wheel.stop();
+			TimeoutScheduler.wheel = null;
+		}
+	}
+
+	/**
+	 * The Class BacklogRunner. Runs expired timeouts until the backlog is empty.
+	 */
+	private final class BacklogRunner implements Runnable {
+
+		/** {@inheritDoc} */
+		@Override
+		public void run() {
+			WheelTimeout<?> timeout = null;
+			while ((timeout = TimeoutScheduler.this.expiredTimeouts.poll()) != null) {
+				TimeoutScheduler.this.expiredBacklog.decrementAndGet();
+				timeout.run();
+				TimeoutScheduler.this.executedTimeouts.incrementAndGet();
+			}
+			TimeoutScheduler.this.activeRunners.decrementAndGet();
+			if (TimeoutScheduler.this.expiredTimeouts.isEmpty() == false) {
+				// timeouts expired while leaving
+				TimeoutScheduler.this.startRunner();
+			}
+		}
+	}
+
+	/**
+	 * The Class WheelTimeout. Future of a timeout scheduled on the wheel. At expiration the future is added to the expired backlog of the scheduler.
+	 *
+	 * @param <T> the type of the timeout wrapper
+	 */
+	private final class WheelTimeout<T extends Runnable> extends FutureTask<T> implements ScheduledFuture<T>, TimerTask {
+
+		/** The deadline in nanoseconds. */
+		private final long deadlineNanos;
+		/** The timeout of the wheel, canceling removes the timeout from its bucket. */
+		private volatile Timeout wheelTimeout;
+		/** The released flag, the timeout is not pending anymore. */
+		private final AtomicBoolean released;
+
+		/**
+		 * Instantiates a new wheel timeout.
+		 *
+		 * @param timeoutWrapper the timeout wrapper
+		 * @param deadlineNanos the deadline in nanoseconds
+		 */
+		private WheelTimeout(T timeoutWrapper, long deadlineNanos) {
+			super(timeoutWrapper, timeoutWrapper);
+			this.deadlineNanos = deadlineNanos;
+			this.wheelTimeout = null;
+			this.released = new AtomicBoolean(false);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void run() {
+			// not pending anymore before waiters of the future get notified
+			this.release();
+			super.run();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void run(Timeout timeout) {
+			if (this.isDone()) {
+				// canceled in the meantime
+				return;
+			}
+			TimeoutScheduler.this.expired(this);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean canceled = super.cancel(mayInterruptIfRunning);
+			Timeout timeout = this.wheelTimeout;
+			if (canceled && timeout != null) {
+				timeout.cancel();
+			}
+			return canceled;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected void done() {
+			this.release();
+		}
+
+		/**
+		 * Release. Counts the timeout off the pending timeouts, only once.
+		 */
+		private void release() {
+			if (this.released.compareAndSet(false, true)) {
+				TimeoutScheduler.this.pendingTimeouts.decrementAndGet();
+			}
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int compareTo(Delayed other) {
+			if (other == this) {
+				return 0;
+			}
+			long diff = this.getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+			return (diff < 0) ? -1 : ((diff > 0) ? 1 : 0);
+		}
+	}
+}
@@ -17,7 +17,6 @@
 package org.serviceconnector.web;
 
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -25,6 +24,7 @@ import org.slf4j.LoggerFactory;
 import org.serviceconnector.Constants;
 import org.serviceconnector.registry.Registry;
 import org.serviceconnector.util.ITimeout;
+import org.serviceconnector.util.TimeoutScheduler;
 import org.serviceconnector.util.TimeoutWrapper;
 
 /**
@@ -36,13 +36,13 @@ public final class WebSessionRegistry extends Registry<String, WebSession> {
 	private static final Logger LOGGER = LoggerFactory.getLogger(WebSessionRegistry.class);
 
 	/** The timer. Timer instance is responsible to observe session timeouts. */
-	private ScheduledThreadPoolExecutor sessionScheduler;
+	private TimeoutScheduler sessionScheduler;
 
 	/**
 	 * Instantiates a new web session registry.
 	 */
 	public WebSessionRegistry() {
-		this.sessionScheduler = new ScheduledThreadPoolExecutor(1);
+		this.sessionScheduler = new TimeoutScheduler("WebSessionTimeout");
 	}
 
 	/**
@@ -89,7 +89,6 @@ public final class WebSessionRegistry extends Registry<String, WebSession> {
 	 *
 	 * @param session the session
 	 */
-	@SuppressWarnings("unchecked")
 	private void scheduleSessionTimeout(WebSession session) {
 		if (session == null) {
 			// no scheduling of session timeout
@@ -100,7 +99,7 @@ public final class WebSessionRegistry extends Registry<String, WebSession> {
 		// sets up session timeout
 		TimeoutWrapper sessionTimeouter = new TimeoutWrapper(new WebSessionTimeout(session));
 		// schedule sessionTimeouter in registry timer
-		ScheduledFuture<TimeoutWrapper> timeout = (ScheduledFuture<TimeoutWrapper>) this.sessionScheduler.schedule(sessionTimeouter, (long) session.getSessionTimeoutSeconds(),
+		ScheduledFuture<TimeoutWrapper> timeout = this.sessionScheduler.schedule(sessionTimeouter, (long) session.getSessionTimeoutSeconds(),
 				TimeUnit.SECONDS);
 		session.setTimeout(timeout);
 		session.setTimeouterTask(sessionTimeouter);
@@ -123,12 +122,7 @@ public final class WebSessionRegistry extends Registry<String, WebSession> {
 		boolean cancelSuccess = sessionTimeout.cancel(false);
 		if (cancelSuccess == false) {
 			LOGGER.error("cancel web session timeout failed sid=" + session.getId() + " delay=" + sessionTimeout.getDelay(TimeUnit.MILLISECONDS) + " ms");
-			boolean remove = this.sessionScheduler.remove(session.getTimeouterTask());
-			if (remove == false) {
-				LOGGER.error("remove web session timeout failed sid=" + session.getId() + " delay=" + sessionTimeout.getDelay(TimeUnit.MILLISECONDS) + " ms");
-			}
 		}
-		this.sessionScheduler.purge();
 		// important to set timeouter null - rescheduling of same instance not possible
 		session.setTimeout(null);
 	}
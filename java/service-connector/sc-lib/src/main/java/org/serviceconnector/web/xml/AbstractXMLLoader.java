@@ -644,7 +644,7 @@ public abstract class AbstractXMLLoader implements IXMLLoader {
 		}
 		if (service instanceof CascadedFileService) {
 			CascadedFileService cascadedFileService = (CascadedFileService) service;
-			CascadedSC cascadedSC = cascadedFileService.getCascadedSC();
+			CascadedSC cascadedSC = cascadedFileService.getCascadedSCGroup().select();
 			String host = cascadedSC.getHost();
 			int port = cascadedSC.getPortNr();
 			String connectionType = cascadedSC.getConnectionType();
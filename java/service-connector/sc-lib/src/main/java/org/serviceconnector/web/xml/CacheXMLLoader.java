@@ -20,10 +20,9 @@ package org.serviceconnector.web.xml;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Map.Entry;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
@@ -35,6 +34,7 @@ import org.serviceconnector.cache.SC_CACHE_ENTRY_STATE;
 import org.serviceconnector.cache.SC_CACHE_MODULE_TYPE;
 import org.serviceconnector.conf.SCCacheConfiguration;
 import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.scmp.SCMPCachedMessage;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPVersion;
 import org.serviceconnector.util.DateTimeUtility;
@@ -144,13 +144,12 @@ public class CacheXMLLoader extends AbstractXMLLoader {
 	 * @throws XMLStreamException the xML stream exception
 	 */
 	private void writeCacheLoading(XMLStreamWriter writer, org.serviceconnector.cache.SCCache cache) throws XMLStreamException {
-		HashMap<String, String> loadingSessionIds = cache.getLoadingSessionIds();
-		Set<String> sessionIds = loadingSessionIds.keySet();
-		for (String sid : sessionIds) {
+		Map<String, String> loadingSessionIds = cache.getLoadingSessionIds();
+		for (Entry<String, String> loadingSession : loadingSessionIds.entrySet()) {
 			writer.writeStartElement("session");
-			writer.writeAttribute("sessionId", sid);
+			writer.writeAttribute("sessionId", loadingSession.getKey());
 			writer.writeStartElement("cacheId");
-			writer.writeCharacters(loadingSessionIds.get(sid));
+			writer.writeCharacters(loadingSession.getValue());
 			writer.writeEndElement();
 			writer.writeEndElement();
 		}
@@ -207,7 +206,11 @@ public class CacheXMLLoader extends AbstractXMLLoader {
 					writeCacheMetaEntry(writer, cacheModule, key, metaEntry, request);
 				}
 			} else {
-				SCMPMessage cachedMessage = (SCMPMessage) cacheModule.get(key);
+				SCMPCachedMessage cachedData = (SCMPCachedMessage) cacheModule.get(key);
+				SCMPMessage cachedMessage = null;
+				if (cachedData != null) {
+					cachedMessage = cachedData.newMessage();
+				}
 				if (cachedMessage == null && simulation > 0) {
 					cachedMessage = new SCMPMessage(SCMPVersion.CURRENT);
 					cachedMessage.setBody("");
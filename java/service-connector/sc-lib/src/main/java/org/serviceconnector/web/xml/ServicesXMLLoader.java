@@ -27,6 +27,7 @@ import javax.xml.stream.XMLStreamWriter;
 
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.registry.PublishMessageQueue;
+import org.serviceconnector.registry.PublishMessageQueue.QueueNode;
 import org.serviceconnector.registry.ServiceRegistry;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
@@ -36,7 +37,6 @@ import org.serviceconnector.service.IPublishService;
 import org.serviceconnector.service.Service;
 import org.serviceconnector.service.SessionService;
 import org.serviceconnector.service.StatefulService;
-import org.serviceconnector.util.LinkedNode;
 import org.serviceconnector.web.IWebRequest;
 
 /**
@@ -95,9 +95,9 @@ public class ServicesXMLLoader extends AbstractXMLLoader {
 					IPublishService publishService = (IPublishService) service;
 					PublishMessageQueue<SCMPMessage> publishMessageQueue = publishService.getMessageQueue();
 					writer.writeStartElement("publishMessageQueue");
-					Iterator<LinkedNode<SCMPMessage>> sqIter = publishMessageQueue.nodeIterator();
+					Iterator<QueueNode<SCMPMessage>> sqIter = publishMessageQueue.nodeIterator();
 					while (sqIter.hasNext()) {
-						LinkedNode<SCMPMessage> node = sqIter.next();
+						QueueNode<SCMPMessage> node = sqIter.next();
 						SCMPMessage scmpMessage = node.getValue();
 						writer.writeStartElement("scmpMessage");
 						writer.writeStartElement("header");
@@ -112,7 +112,7 @@ public class ServicesXMLLoader extends AbstractXMLLoader {
 						}
 						writer.writeEndElement(); // end of header
 						writer.writeStartElement("references");
-						writer.writeCData(String.valueOf(node.getReferenceCount()));
+						writer.writeCData(String.valueOf(publishMessageQueue.getReferenceCount(node)));
 						writer.writeEndElement(); // end of references
 						writer.writeEndElement(); // end of scmpMessage
 					}
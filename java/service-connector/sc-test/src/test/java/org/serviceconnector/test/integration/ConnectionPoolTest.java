@@ -35,6 +35,7 @@ import org.serviceconnector.net.ConnectionType;
 import org.serviceconnector.net.connection.ConnectionPool;
 import org.serviceconnector.net.connection.ConnectionPoolBusyException;
 import org.serviceconnector.net.connection.IConnection;
+import org.serviceconnector.net.connection.IFreeConnectionCallback;
 import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
 import org.serviceconnector.scmp.SCMPMessage;
 import org.serviceconnector.scmp.SCMPMsgType;
@@ -135,6 +136,53 @@ public class ConnectionPoolTest extends IntegrationSuperTest {
 		Assert.assertFalse(connectionPool.hasFreeConnections());
 	}
 
+	/**
+	 * Description: Set max connection to 1, waits for the connection in use<br>
+	 * Expectation: passes, connection gets handed over at the time it is freed
+	 */
+	@Test
+	public void t12_WaitForFreeConnection() throws Exception {
+		connectionPool.setMaxConnections(1);
+		IConnection connection = connectionPool.getConnection();
+		FreeConnectionCallback callback = new FreeConnectionCallback();
+		Assert.assertNull(connectionPool.getConnection(callback));
+		Assert.assertEquals(1, connectionPool.getWaitingRequests());
+		connectionPool.freeConnection(connection);
+		Assert.assertEquals(0, connectionPool.getWaitingRequests());
+		Assert.assertEquals(connection, callback.connection);
+		connectionPool.freeConnection(callback.connection);
+		Assert.assertTrue(connectionPool.hasFreeConnections());
+	}
+
+	/**
+	 * Description: Set max connection to 1, waits for the connection in use and cancels waiting<br>
+	 * Expectation: passes, canceled request gets no connection
+	 */
+	@Test
+	public void t13_CancelWaitingForFreeConnection() throws Exception {
+		connectionPool.setMaxConnections(1);
+		IConnection connection = connectionPool.getConnection();
+		FreeConnectionCallback callback = new FreeConnectionCallback();
+		Assert.assertNull(connectionPool.getConnection(callback));
+		Assert.assertTrue(connectionPool.cancelWaitingRequest(callback));
+		Assert.assertFalse(connectionPool.cancelWaitingRequest(callback));
+		connectionPool.freeConnection(connection);
+		Assert.assertNull(callback.connection);
+	}
+
+	/**
+	 * Description: Set max connection to 1 and max waiting requests to 1, tries waiting twice<br>
+	 * Expectation: throws ConnectionPoolBusyException
+	 */
+	@Test(expected = ConnectionPoolBusyException.class)
+	public void t14_WaitingRequestsLimitReached() throws Exception {
+		connectionPool.setMaxConnections(1);
+		connectionPool.setMaxWaitingRequests(1);
+		connectionPool.getConnection();
+		Assert.assertNull(connectionPool.getConnection(new FreeConnectionCallback()));
+		connectionPool.getConnection(new FreeConnectionCallback());
+	}
+
 	/**
 	 * Description: Send keep alive over connection<br>
 	 * Expectation: passes
@@ -258,4 +306,14 @@ public class ConnectionPoolTest extends IntegrationSuperTest {
 			}
 		}
 	}
+
+	private class FreeConnectionCallback implements IFreeConnectionCallback {
+
+		private IConnection connection = null;
+
+		@Override
+		public void freeConnectionAvailable(IConnection connection) {
+			this.connection = connection;
+		}
+	}
 }
@@ -23,6 +23,7 @@ import org.serviceconnector.test.perf.api.cln.APIExecuteBenchmark;
 import org.serviceconnector.test.perf.api.cln.APIReceivePublicationBenchmark;
 import org.serviceconnector.test.perf.api.cln.APISessionBenchmark;
 import org.serviceconnector.test.perf.api.srv.APIPublishBenchmark;
+import org.serviceconnector.test.perf.cache.SCCacheBenchmark;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
@@ -30,6 +31,9 @@ import org.serviceconnector.test.perf.api.srv.APIPublishBenchmark;
 		APIAttachBenchmark.class, APISessionBenchmark.class, APIExecuteBenchmark.class, APIReceivePublicationBenchmark.class,
 
 		// API server benchmarks
-		APIPublishBenchmark.class })
+		APIPublishBenchmark.class,
+
+		// cache benchmarks
+		SCCacheBenchmark.class })
 public class AllPerformanceTests {
 }
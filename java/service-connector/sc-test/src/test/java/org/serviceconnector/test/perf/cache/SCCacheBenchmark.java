@@ -0,0 +1,174 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.perf.cache;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.configuration2.CompositeConfiguration;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.serviceconnector.Constants;
+import org.serviceconnector.cache.SCCache;
+import org.serviceconnector.conf.SCCacheConfiguration;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.log.Loggers;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.util.DateTimeUtility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Class SCCacheBenchmark. Measures cache hits per second of the SC cache in process, for increasing numbers of threads requesting different cacheIds.
+ */
+public class SCCacheBenchmark {
+
+	/** The Constant testLogger. */
+	protected static final Logger testLogger = LoggerFactory.getLogger(Loggers.TEST.getValue());
+
+	/** The number of cached messages. */
+	private static final int NR_OF_CACHE_IDS = 1000;
+	/** The duration of a measurement in milliseconds. */
+	private static final long MEASURE_MILLIS = 2000;
+	/** The minimal scaling of the best multi thread measurement compared to a single thread, tolerant to slow and busy machines. */
+	private static final double MIN_SCALING = 0.75;
+	/** The cache. */
+	private static SCCache cache;
+
+	@BeforeClass
+	public static void beforeAllTests() throws Exception {
+		AppContext.setSCEnvironment(true);
+		CompositeConfiguration compositeConfiguration = new CompositeConfiguration();
+		compositeConfiguration.addProperty(Constants.CACHE_ENABLED, true);
+		compositeConfiguration.addProperty(Constants.CACHE_DISK_PATH, "target/cacheBenchmark");
+		SCCacheConfiguration cacheConfiguration = new SCCacheConfiguration();
+		cacheConfiguration.load(compositeConfiguration);
+		cache = AppContext.getSCCache();
+		cache.load(cacheConfiguration);
+		String expirationDateTime = DateTimeUtility.getDateTimeAsString(DateTimeUtility.getIncrementTimeMillis(new Date(), 3600000));
+		for (int i = 0; i < NR_OF_CACHE_IDS; i++) {
+			String cacheId = String.valueOf(i);
+			SCMPMessage reqMessage = createRequest(cacheId, "loadingSid" + i);
+			reqMessage.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, 60000);
+			Assert.assertNull(cache.tryGetMessageFromCacheOrLoad(reqMessage));
+			SCMPMessage resMessage = new SCMPMessage(SCMPVersion.CURRENT);
+			resMessage.setMessageType(SCMPMsgType.CLN_EXECUTE);
+			resMessage.setServiceName("cacheBenchmark");
+			resMessage.setSessionId("loadingSid" + i);
+			resMessage.setCacheId(cacheId);
+			resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_EXPIRATION_DATETIME, expirationDateTime);
+			resMessage.setBody(new byte[128]);
+			cache.cacheMessage(reqMessage, resMessage);
+		}
+	}
+
+	@AfterClass
+	public static void afterAllTests() throws Exception {
+		cache.clearAll();
+	}
+
+	/**
+	 * Description: Get cached messages with 1 up to 2 x available processors threads, each thread requests its own cacheIds. Measure cache hits per second.<br>
+	 * Expectation: passes, hits per second and scaling are logged. On more than one core the best multi thread measurement reaches at least the minimal scaling of
+	 * a single thread.
+	 */
+	@Test
+	public void t01_CacheHitScaling() throws Exception {
+		int cores = Runtime.getRuntime().availableProcessors();
+		// warm up
+		this.measureHitsPerSecond(cores);
+		long singleThreadHits = this.measureHitsPerSecond(1);
+		testLogger.info("threads=1 hits=" + singleThreadHits + " hits/sec.");
+		long bestHits = 0;
+		for (int threads = 2; threads <= 2 * cores; threads *= 2) {
+			long hits = this.measureHitsPerSecond(threads);
+			testLogger.info("threads=" + threads + " hits=" + hits + " hits/sec. scaling=" + ((double) hits / singleThreadHits));
+			bestHits = Math.max(bestHits, hits);
+		}
+		if (cores > 1) {
+			Assert.assertTrue("Cache hits collapse with threads, single thread=" + singleThreadHits + " best=" + bestHits + " hits/sec.",
+					bestHits >= MIN_SCALING * singleThreadHits);
+		}
+	}
+
+	/**
+	 * Measure hits per second.
+	 *
+	 * @param threads the number of threads
+	 * @return the hits per second
+	 * @throws Exception the exception
+	 */
+	private long measureHitsPerSecond(int threads) throws Exception {
+		final AtomicLong hits = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch stop = new CountDownLatch(threads);
+		final long endMillis = System.currentTimeMillis() + MEASURE_MILLIS;
+		for (int t = 0; t < threads; t++) {
+			final int threadNr = t;
+			final int nrOfThreads = threads;
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						long localHits = 0;
+						int cacheIdNr = threadNr;
+						while (System.currentTimeMillis() < endMillis) {
+							SCMPMessage reqMessage = createRequest(String.valueOf(cacheIdNr), "sid" + threadNr);
+							if (cache.tryGetMessageFromCacheOrLoad(reqMessage) != null) {
+								localHits++;
+							}
+							cacheIdNr = (cacheIdNr + nrOfThreads) % NR_OF_CACHE_IDS;
+						}
+						hits.addAndGet(localHits);
+					} catch (Exception e) {
+						testLogger.error("cache hit failed", e);
+					} finally {
+						stop.countDown();
+					}
+				}
+			}.start();
+		}
+		long startMillis = System.currentTimeMillis();
+		start.countDown();
+		stop.await();
+		return hits.get() * 1000 / (System.currentTimeMillis() - startMillis);
+	}
+
+	/**
+	 * Creates the request.
+	 *
+	 * @param cacheId the cache id
+	 * @param sessionId the session id
+	 * @return the SCMP message
+	 */
+	private static SCMPMessage createRequest(String cacheId, String sessionId) {
+		SCMPMessage reqMessage = new SCMPMessage(SCMPVersion.CURRENT);
+		reqMessage.setMessageType(SCMPMsgType.CLN_EXECUTE);
+		reqMessage.setServiceName("cacheBenchmark");
+		reqMessage.setSessionId(sessionId);
+		reqMessage.setCacheId(cacheId);
+		reqMessage.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, 1);
+		return reqMessage;
+	}
+}
@@ -170,4 +170,32 @@ public class APIFileServiceCasc1 extends APISystemSuperSessionClientTest {
 		FileUtility.deleteFile(localpath + localFile);
 		FileUtility.deleteFile(TestConstants.filServiceLocation2 + remoteFileName);
 	}
+
+	/**
+	 * Description: upload and download big file in parallel ranges via file-2 service<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t11_parallelUploadDownload200MBFile() throws Exception {
+		SCFileService service = client.newFileService(TestConstants.filServiceName2);
+		service.setParallelism(4);
+		service.setRangeSize(16 << 20);
+		String localFile = "upload200MBFile.txt";
+		String localpath = "src/main/resources/";
+		TestUtil.create200MBFile(localpath + localFile);
+		String remoteFileName = localFile;
+		File inputFile = new File(localpath + localFile);
+		service.uploadFile(300, remoteFileName, inputFile);
+		FileUtility.waitExists(TestConstants.filServiceLocation2 + remoteFileName, 0);
+		Assert.assertEquals(inputFile.length(), new File(TestConstants.filServiceLocation2 + remoteFileName).length());
+
+		// download now
+		File outputFile = new File(localpath + "download200MBContent.txt");
+		service.downloadFile(300, remoteFileName, outputFile);
+		Assert.assertEquals(inputFile.length(), outputFile.length());
+		Assert.assertFalse(new File(outputFile.getPath() + ".sccp").exists());
+		FileUtility.deleteFile(outputFile.getPath());
+		FileUtility.deleteFile(localpath + localFile);
+		FileUtility.deleteFile(TestConstants.filServiceLocation2 + remoteFileName);
+	}
 }
@@ -24,6 +24,8 @@ import org.serviceconnector.test.unit.api.APISCMessageTest;
 import org.serviceconnector.test.unit.api.APISCPublishMessageTest;
 import org.serviceconnector.test.unit.api.APISCServerTest;
 import org.serviceconnector.test.unit.api.APISCSubscribeMessageTest;
+import org.serviceconnector.test.unit.scmp.SCMPCachedMessageTest;
+import org.serviceconnector.test.unit.scmp.SCMPHeaderTest;
 import org.serviceconnector.test.unit.scmp.SCMPLargeRequestTest;
 import org.serviceconnector.test.unit.scmp.SCMPLargeResponseTest;
 import org.serviceconnector.test.unit.scmp.SCMPMessageMaskTest;
@@ -35,10 +37,17 @@ import org.serviceconnector.test.unit.scmp.SCMPVersionTest;
 		APISCMessageTest.class, APISCSubscribeMessageTest.class, APISCPublishMessageTest.class, APISCClientTest.class, APISCServerTest.class, APINewServerTest.class,
 
 		// SCMP unit tests
-		SCMPVersionTest.class, SCMPMessageMaskTest.class, SCMPLargeResponseTest.class, SCMPLargeRequestTest.class,
+		SCMPVersionTest.class, SCMPMessageMaskTest.class, SCMPLargeResponseTest.class, SCMPLargeRequestTest.class, SCMPCachedMessageTest.class,
 
 		// other unit tests
 		DefaultFrameDecoderTest.class, LargeMessageEncoderDecoderTest.class, KeepAliveMessageEncoderDecoderTest.class, DefaultEncoderDecoderTest.class, ValidatorUtilityTest.class,
-		DecodeSCMPVersionTest.class, LinkedQueueTest.class, SCVersionTest.class })
+		DecodeSCMPVersionTest.class, LinkedQueueTest.class, SCVersionTest.class, TimeoutSchedulerTest.class, PublishMessageQueueTest.class,
+		SubscriptionMaskIndexTest.class, SCMPWindowedPartSequencerTest.class, FileRegionInputStreamTest.class, HttpHeadBlockTest.class,
+		CascadedSCGroupTest.class, SubscriptionMaskAggregateTest.class,
+		SCMPPublicationBatchTest.class, SCMPHeaderTest.class,
+		PersistentCacheImplTest.class,
+		OffHeapCacheImplTest.class,
+		NettyWebClientTest.class, FileListExchangeTest.class, FileDownloadExchangeTest.class, FileUploadExchangeTest.class,
+		SCPublishServerTest.class, NettyTcpRequesterResponseHandlerTest.class, SCFileServiceTest.class, SCCacheEvictionTest.class })
 public class AllUnitTests {
 }
@@ -0,0 +1,130 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.Constants;
+import org.serviceconnector.conf.RemoteNodeConfiguration;
+import org.serviceconnector.net.ConnectionType;
+import org.serviceconnector.server.CascadedSC;
+import org.serviceconnector.server.CascadedSCGroup;
+import org.serviceconnector.server.ServerType;
+
+/**
+ * The Class CascadedSCGroupTest.
+ */
+public class CascadedSCGroupTest extends SuperUnitTest {
+
+	/**
+	 * Description: Idle group selects the cascaded SC with the highest weight<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_WeightedSelectionTest() throws Exception {
+		CascadedSC scA = this.createCascadedSC("scA", 1);
+		CascadedSC scB = this.createCascadedSC("scB", 3);
+		CascadedSCGroup group = this.createGroup(scA, scB);
+		Assert.assertSame(scB, group.select());
+		Assert.assertSame(scA, group.select(scB));
+		Assert.assertSame(scB, group.select(scA));
+	}
+
+	/**
+	 * Description: Cascaded SC failing in sequence gets suspended, succeeded request makes it available again<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_SuspensionTest() throws Exception {
+		CascadedSC scA = this.createCascadedSC("scA", 1);
+		CascadedSC scB = this.createCascadedSC("scB", 3);
+		CascadedSCGroup group = this.createGroup(scA, scB);
+		for (int i = 1; i < Constants.CASCADED_SC_FAILURES_TO_SUSPEND; i++) {
+			scB.markFailed();
+		}
+		Assert.assertTrue(scB.isAvailable());
+		scB.markFailed();
+		Assert.assertFalse(scB.isAvailable());
+		Assert.assertSame(scA, group.select());
+		// fail over from scA finds no other available cascaded SC
+		Assert.assertNull(group.select(scA));
+		// suspension of scA ends after the one of scB
+		Thread.sleep(10);
+		scA.markFailed();
+		scA.markFailed();
+		scA.markFailed();
+		// no cascaded SC available - select probes the one whose suspension ends first
+		Assert.assertSame(scB, group.select());
+		scB.markSucceeded();
+		Assert.assertTrue(scB.isAvailable());
+		Assert.assertSame(scB, group.select(scA));
+	}
+
+	/**
+	 * Description: Requests of unknown sessions are balanced, single cascaded SC group always routes to its cascaded SC<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_SessionRoutingTest() throws Exception {
+		CascadedSC scA = this.createCascadedSC("scA", 1);
+		CascadedSC scB = this.createCascadedSC("scB", 2);
+		CascadedSCGroup group = this.createGroup(scA, scB);
+		Assert.assertSame(scB, group.getCascadedSC("unknownSessionId"));
+		Assert.assertSame(scB, group.getCascadedSC(null));
+		Assert.assertEquals(0, group.getSessionBindingsCount());
+
+		CascadedSCGroup singleGroup = new CascadedSCGroup(scA);
+		scA.markFailed();
+		scA.markFailed();
+		scA.markFailed();
+		Assert.assertSame(scA, singleGroup.getCascadedSC("unknownSessionId"));
+		Assert.assertSame(scA, singleGroup.select());
+		Assert.assertNull(singleGroup.select(scA));
+	}
+
+	/**
+	 * Creates the cascaded SC.
+	 *
+	 * @param name the name
+	 * @param weight the weight
+	 * @return the cascaded SC
+	 */
+	private CascadedSC createCascadedSC(String name, int weight) {
+		RemoteNodeConfiguration remoteNodeConfiguration = new RemoteNodeConfiguration(ServerType.CASCADED_SC, name, "localhost", 9000,
+				ConnectionType.NETTY_TCP.getValue(), 0, 0, 1, 0, Constants.SLASH);
+		remoteNodeConfiguration.setWeight(weight);
+		return new CascadedSC(remoteNodeConfiguration, new InetSocketAddress("localhost", 9000));
+	}
+
+	/**
+	 * Creates the group.
+	 *
+	 * @param cascadedSCs the cascaded SCs
+	 * @return the cascaded SC group
+	 */
+	private CascadedSCGroup createGroup(CascadedSC... cascadedSCs) {
+		List<CascadedSC> list = new ArrayList<CascadedSC>();
+		for (CascadedSC cascadedSC : cascadedSCs) {
+			list.add(cascadedSC);
+		}
+		return new CascadedSCGroup(list);
+	}
+}
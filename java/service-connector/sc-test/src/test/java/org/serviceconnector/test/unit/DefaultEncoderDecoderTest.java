@@ -20,10 +20,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.serviceconnector.Constants;
 import org.serviceconnector.TestUtil;
 import org.serviceconnector.ctx.AppContext;
 import org.serviceconnector.net.FlyweightEncoderDecoderFactory;
@@ -220,6 +224,30 @@ public class DefaultEncoderDecoderTest extends SuperUnitTest {
 		verifySCMPStringBody(message);
 	}
 
+	/**
+	 * Description: Decode REQ from a channel buffer which does not start at index 0<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_DecodeChannelBufferTest() {
+		String header = "bty=" + bodyType.getValue() + "\n" + "mid=" + msgSequenceNr + "\n" + "mty="
+				+ msgType.getValue() + "\n";
+
+		String requestString = TestUtil.getSCMPString(headKey, header, body);
+		byte[] frame = requestString.getBytes();
+		ChannelBuffer buffer = ChannelBuffers.wrappedBuffer("xxx".getBytes(), frame);
+		buffer.skipBytes(3);
+		IEncoderDecoder coder = coderFactory.createEncoderDecoder(buffer);
+
+		SCMPMessage message = null;
+		try {
+			message = (SCMPMessage) coder.decode(buffer);
+		} catch (Exception e) {
+			Assert.fail("Should not throw exception");
+		}
+		verifySCMP(message);
+	}
+
 	/**
 	 * Description: Encode REQ test<br>
 	 * Expectation: passes
@@ -336,6 +364,31 @@ public class DefaultEncoderDecoderTest extends SuperUnitTest {
 		Assert.assertEquals(expectedString, os.toString());
 	}
 
+	/**
+	 * Description: Encode REQ into channel buffer test, body of the message is wrapped not copied<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t14_EncodeChannelBufferTest() {
+		IEncoderDecoder coder = coderFactory.createEncoderDecoder(encodeScmp);
+
+		String header = "mty=" + msgType.getValue() + "\n" + "bty=" + bodyType.getValue() + "\n" + "msn="
+				+ msgSequenceNr + "\n";
+
+		String expectedString = TestUtil.getSCMPString(headKey, header, body);
+
+		ChannelBuffer buffer = null;
+		try {
+			buffer = coder.encode(encodeScmp);
+		} catch (Exception e) {
+			Assert.fail("Should not throw exception");
+		}
+		Assert.assertEquals(expectedString, buffer.toString(Charset.forName(Constants.SC_CHARACTER_SET)));
+		// modifying the body after encoding is visible in the buffer
+		((byte[]) encodeScmp.getBody())[0] = 'H';
+		Assert.assertEquals('H', buffer.getByte(buffer.writerIndex() - body.length()));
+	}
+
 	/**
 	 * Verify scmp string body.
 	 *
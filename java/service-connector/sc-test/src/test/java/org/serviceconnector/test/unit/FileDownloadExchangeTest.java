@@ -0,0 +1,241 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.Constants;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.server.FileDownloadExchange;
+import org.serviceconnector.service.FileSession;
+import org.serviceconnector.test.unit.ScriptedWebServer.Response;
+
+/**
+ * The Class FileDownloadExchangeTest.
+ */
+public class FileDownloadExchangeTest extends SuperFileExchangeTest {
+
+	/**
+	 * Description: File is replied part by part, an empty message ends the download<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_completeTest() throws Exception {
+		byte[] file = FileDownloadExchangeTest.createFile(Constants.DEFAULT_MESSAGE_PART_SIZE + 1000);
+		this.webServer.addResponse(Response.fixed("200 OK", file, true));
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), -1, null);
+		Assert.assertArrayEquals(file, this.download(exchange));
+		Assert.assertNull(this.webServer.takeRequest().getHeader("Range"));
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Chunked file is replied part by part<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_chunkedTest() throws Exception {
+		byte[] file = FileDownloadExchangeTest.createFile(3000);
+		byte[] chunk1 = new byte[1000];
+		byte[] chunk2 = new byte[2000];
+		System.arraycopy(file, 0, chunk1, 0, chunk1.length);
+		System.arraycopy(file, chunk1.length, chunk2, 0, chunk2.length);
+		this.webServer.addResponse(Response.chunked("200 OK", true, chunk1, chunk2));
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), -1, null);
+		Assert.assertArrayEquals(file, this.download(exchange));
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Error status of the web server is replied as fault, error page is discarded<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_errorTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("404 Not Found", "error page".getBytes(), true));
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), -1, null);
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/file", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		Assert.assertTrue(callback.takeReply().isFault());
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Connection closed by web server fails the pending request and the following requests<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_closeTest() throws Exception {
+		this.webServer.addResponse(Response.close());
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), -1, null);
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/file", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		callback.takeException();
+		exchange.requestPart(new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		callback.takeException();
+		this.assertIdleConnections(0);
+	}
+
+	/**
+	 * Description: Range starting at offset 0 is requested with its end, the file length is taken from the content range<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_rangeFromStartTest() throws Exception {
+		byte[] file = FileDownloadExchangeTest.createFile(5000);
+		byte[] range = new byte[2000];
+		System.arraycopy(file, 0, range, 0, range.length);
+		this.webServer.addResponse(Response.fixed("206 Partial Content", range, true, "Content-Range: bytes 0-1999/5000"));
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), 0, 2000);
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/file", this.createRangeMessage(0), callback, TIMEOUT_MILLIS);
+		SCMPMessage reply = callback.takeReply();
+		Assert.assertEquals("bytes=0-1999", this.webServer.takeRequest().getHeader("Range"));
+		Assert.assertEquals("5000", reply.getHeader(SCMPHeaderAttributeKey.FILE_LENGTH));
+		Assert.assertEquals("0", reply.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET));
+		Assert.assertArrayEquals(range, (byte[]) reply.getBody());
+		exchange.requestPart(new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		Assert.assertEquals(0, callback.takeReply().getBodyLength());
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Download resumed after a partial range requests the missing range only, the partial content is replied<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_resumeRangeTest() throws Exception {
+		byte[] file = FileDownloadExchangeTest.createFile(Constants.DEFAULT_MESSAGE_PART_SIZE + 5000);
+		int offset = 3000;
+		byte[] range = new byte[file.length - offset];
+		System.arraycopy(file, offset, range, 0, range.length);
+		this.webServer.addResponse(Response.fixed("206 Partial Content", range, true, "Content-Range: bytes " + offset + "-" + (file.length - 1)
+				+ "/" + file.length));
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), offset, range.length);
+		Assert.assertArrayEquals(range, this.download(exchange));
+		Assert.assertEquals("bytes=" + offset + "-" + (file.length - 1), this.webServer.takeRequest().getHeader("Range"));
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Range beyond the end of the file is replied empty with the file length, error page is discarded<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t07_rangeBeyondEndTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("416 Requested Range Not Satisfiable", "error page".getBytes(), true,
+				"Content-Range: bytes */5000"));
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), 6000, 1000);
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/file", this.createRangeMessage(6000), callback, TIMEOUT_MILLIS);
+		SCMPMessage reply = callback.takeReply();
+		Assert.assertEquals("bytes=6000-6999", this.webServer.takeRequest().getHeader("Range"));
+		Assert.assertFalse(reply.isFault());
+		Assert.assertFalse(reply.isPart());
+		Assert.assertEquals(0, reply.getBodyLength());
+		Assert.assertEquals("5000", reply.getHeader(SCMPHeaderAttributeKey.FILE_LENGTH));
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: File is replied in parts of the part size of the download request<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t08_partSizeTest() throws Exception {
+		byte[] file = FileDownloadExchangeTest.createFile(2500);
+		this.webServer.addResponse(Response.fixed("200 OK", file, true));
+		FileDownloadExchange exchange = new FileDownloadExchange(this.webClient, this.createSession(), -1, null);
+		ReplyCallback callback = new ReplyCallback();
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setPartSize(1000);
+		exchange.start("/file", message, callback, TIMEOUT_MILLIS);
+		int[] partLengths = { 1000, 1000, 500 };
+		for (int partLength : partLengths) {
+			SCMPMessage reply = callback.takeReply();
+			Assert.assertTrue(reply.isPart());
+			Assert.assertEquals(partLength, reply.getBodyLength());
+			exchange.requestPart(new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		}
+		SCMPMessage reply = callback.takeReply();
+		Assert.assertFalse(reply.isPart());
+		Assert.assertEquals(0, reply.getBodyLength());
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Creates the download request of a range.
+	 *
+	 * @param rangeOffset the range offset
+	 * @return the message
+	 */
+	private SCMPMessage createRangeMessage(long rangeOffset) {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET, rangeOffset);
+		return message;
+	}
+
+	/**
+	 * Downloads the file.
+	 *
+	 * @param exchange the exchange
+	 * @return the downloaded content
+	 * @throws Exception the exception
+	 */
+	private byte[] download(FileDownloadExchange exchange) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/file", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		SCMPMessage reply = callback.takeReply();
+		while (reply.isPart()) {
+			Assert.assertFalse(reply.isFault());
+			out.write((byte[]) reply.getBody());
+			exchange.requestPart(new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+			reply = callback.takeReply();
+		}
+		Assert.assertFalse(reply.isFault());
+		Assert.assertEquals(0, reply.getBodyLength());
+		return out.toByteArray();
+	}
+
+	/**
+	 * Creates the session.
+	 *
+	 * @return the file session
+	 */
+	private FileSession createSession() {
+		return new FileSession("sessionInfo", "127.0.0.1", "path/", "upload.php", "list.php");
+	}
+
+	/**
+	 * Creates the content of a file.
+	 *
+	 * @param length the length
+	 * @return the content
+	 */
+	static byte[] createFile(int length) {
+		byte[] file = new byte[length];
+		for (int i = 0; i < length; i++) {
+			file[i] = (byte) (i * 31);
+		}
+		return file;
+	}
+}
@@ -0,0 +1,106 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.net.req.netty.IdleTimeoutException;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.server.FileListExchange;
+import org.serviceconnector.test.unit.ScriptedWebServer.Response;
+
+/**
+ * The Class FileListExchangeTest.
+ */
+public class FileListExchangeTest extends SuperFileExchangeTest {
+
+	/**
+	 * Description: List is replied once the response is complete, connection is kept alive<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_completeTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("200 OK", "file1|file2".getBytes(), true));
+		SCMPMessage reply = this.getList();
+		Assert.assertFalse(reply.isFault());
+		Assert.assertEquals("file1|file2", new String((byte[]) reply.getBody()));
+		Assert.assertEquals("GET", this.webServer.takeRequest().getMethod());
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Chunked list is aggregated before it is replied<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_chunkedTest() throws Exception {
+		this.webServer.addResponse(Response.chunked("200 OK", true, "file1|".getBytes(), "file2".getBytes()));
+		SCMPMessage reply = this.getList();
+		Assert.assertEquals("file1|file2", new String((byte[]) reply.getBody()));
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Error status of the list script is replied as fault, error page is discarded<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_errorTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("404 Not Found", "error page".getBytes(), true));
+		SCMPMessage reply = this.getList();
+		Assert.assertTrue(reply.isFault());
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Connection closed by web server fails the pending request<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_closeTest() throws Exception {
+		this.webServer.addResponse(Response.close());
+		ReplyCallback callback = new ReplyCallback();
+		new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		callback.takeException();
+		this.assertIdleConnections(0);
+	}
+
+	/**
+	 * Description: Web server not responding in time fails the pending request, connection is not reused<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_timeoutTest() throws Exception {
+		ReplyCallback callback = new ReplyCallback();
+		new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, 200);
+		Assert.assertTrue(callback.takeException() instanceof IdleTimeoutException);
+		this.assertIdleConnections(0);
+	}
+
+	/**
+	 * Gets the list, fails if an exception is replied.
+	 *
+	 * @return the reply
+	 * @throws Exception the exception
+	 */
+	private SCMPMessage getList() throws Exception {
+		ReplyCallback callback = new ReplyCallback();
+		new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		return callback.takeReply();
+	}
+}
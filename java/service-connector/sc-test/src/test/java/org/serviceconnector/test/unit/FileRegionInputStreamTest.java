@@ -0,0 +1,83 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.util.FileRegionInputStream;
+import org.serviceconnector.util.FileUtility;
+
+/**
+ * The Class FileRegionInputStreamTest.
+ */
+public class FileRegionInputStreamTest extends SuperUnitTest {
+
+	/**
+	 * Description: Read a region of a file, skip moves the position without reading<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_ReadRegionTest() throws Exception {
+		File file = File.createTempFile("region", ".bin");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		for (int i = 0; i < 100; i++) {
+			out.write(i);
+		}
+		out.close();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileRegionInputStream in = new FileRegionInputStream(raf.getChannel(), 10, 20);
+			Assert.assertEquals(20, in.getRemaining());
+			byte[] buffer = new byte[50];
+			Assert.assertEquals(5, in.read(buffer, 0, 5));
+			Assert.assertEquals(14, buffer[4]);
+			Assert.assertEquals(10, in.skip(10));
+			Assert.assertEquals(25, in.getPosition());
+			Assert.assertEquals(5, FileUtility.readFully(in, buffer, 0, buffer.length));
+			Assert.assertEquals(25, buffer[0]);
+			Assert.assertEquals(0, in.getRemaining());
+			Assert.assertEquals(-1, in.read());
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Description: Read fully from a stream delivering a few bytes per read<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_ReadFullyTest() throws Exception {
+		InputStream in = new ByteArrayInputStream(new byte[1000]) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 7));
+			}
+		};
+		byte[] buffer = new byte[600];
+		Assert.assertEquals(600, FileUtility.readFully(in, buffer, 0, buffer.length));
+		Assert.assertEquals(400, FileUtility.readFully(in, buffer, 0, buffer.length));
+		Assert.assertEquals(-1, FileUtility.readFully(in, buffer, 0, buffer.length));
+	}
+}
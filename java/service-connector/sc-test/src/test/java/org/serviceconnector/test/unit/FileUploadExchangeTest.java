@@ -0,0 +1,164 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.server.FileUploadExchange;
+import org.serviceconnector.service.FileSession;
+import org.serviceconnector.test.unit.ScriptedWebServer.Request;
+import org.serviceconnector.test.unit.ScriptedWebServer.Response;
+
+/**
+ * The Class FileUploadExchangeTest.
+ */
+public class FileUploadExchangeTest extends SuperFileExchangeTest {
+
+	/**
+	 * Description: Parts are written as chunks, the last part is replied with the response of the upload script<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_completeTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("200 OK", "uploaded".getBytes(), true));
+		SCMPMessage reply = this.upload();
+		Assert.assertFalse(reply.isFault());
+		Assert.assertFalse(reply.isPart());
+		Request request = this.webServer.takeRequest();
+		Assert.assertEquals("PUT", request.getMethod());
+		Assert.assertEquals("part1part2", new String(request.getBody()));
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Chunked response of the upload script completes the upload<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_chunkedTest() throws Exception {
+		this.webServer.addResponse(Response.chunked("200 OK", true, "upl".getBytes(), "oaded".getBytes()));
+		SCMPMessage reply = this.upload();
+		Assert.assertFalse(reply.isFault());
+		Assert.assertEquals("part1part2", new String(this.webServer.takeRequest().getBody()));
+		this.assertIdleConnections(1);
+	}
+
+	/**
+	 * Description: Error status of the upload script is replied as fault<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_errorTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("500 Internal Server Error", "error page".getBytes(), true));
+		SCMPMessage reply = this.upload();
+		Assert.assertTrue(reply.isFault());
+		Assert.assertEquals(SCMPError.FILE_UPLOAD_FAILED.getErrorCode(), reply.getHeaderInt(SCMPHeaderAttributeKey.SC_ERROR_CODE).intValue());
+		// connection is not reused, remaining parts are not accepted by the upload script
+		this.assertIdleConnections(0);
+	}
+
+	/**
+	 * Description: Error status of the upload script responding before the end of the upload is replied as fault<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_earlyErrorTest() throws Exception {
+		this.webServer.addResponse(Response.early(Response.fixed("500 Internal Server Error", "error page".getBytes(), true)));
+		FileUploadExchange exchange = new FileUploadExchange(this.webClient, this.createSession());
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/upload.php", this.createPart("part1"), callback, TIMEOUT_MILLIS);
+		SCMPMessage reply = callback.takeReply();
+		if (reply.isFault() == false) {
+			// first part has been written before the response arrived
+			exchange.uploadPart(this.createLastPart("part2"), callback, TIMEOUT_MILLIS);
+			reply = callback.takeReply();
+		}
+		Assert.assertTrue(reply.isFault());
+		this.assertIdleConnections(0);
+	}
+
+	/**
+	 * Description: Connection closed by the web server fails the pending request<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_closeTest() throws Exception {
+		this.webServer.addResponse(Response.close());
+		FileUploadExchange exchange = new FileUploadExchange(this.webClient, this.createSession());
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/upload.php", this.createPart("part1"), callback, TIMEOUT_MILLIS);
+		Assert.assertTrue(callback.takeReply().isPollRequest());
+		exchange.uploadPart(this.createLastPart("part2"), callback, TIMEOUT_MILLIS);
+		callback.takeException();
+		this.assertIdleConnections(0);
+	}
+
+	/**
+	 * Uploads two parts.
+	 *
+	 * @return the reply of the last part
+	 * @throws Exception the exception
+	 */
+	private SCMPMessage upload() throws Exception {
+		FileUploadExchange exchange = new FileUploadExchange(this.webClient, this.createSession());
+		ReplyCallback callback = new ReplyCallback();
+		exchange.start("/upload.php", this.createPart("part1"), callback, TIMEOUT_MILLIS);
+		SCMPMessage reply = callback.takeReply();
+		Assert.assertTrue(reply.isPart());
+		Assert.assertTrue(reply.isPollRequest());
+		exchange.uploadPart(this.createLastPart("part2"), callback, TIMEOUT_MILLIS);
+		return callback.takeReply();
+	}
+
+	/**
+	 * Creates a part of the upload.
+	 *
+	 * @param body the body
+	 * @return the part
+	 */
+	private SCMPMessage createPart(String body) {
+		SCMPMessage part = new SCMPPart(SCMPVersion.CURRENT, false);
+		part.setBody(body.getBytes());
+		return part;
+	}
+
+	/**
+	 * Creates the last part of the upload.
+	 *
+	 * @param body the body
+	 * @return the message
+	 */
+	private SCMPMessage createLastPart(String body) {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setBody(body.getBytes());
+		return message;
+	}
+
+	/**
+	 * Creates the session.
+	 *
+	 * @return the file session
+	 */
+	private FileSession createSession() {
+		return new FileSession("sessionInfo", "127.0.0.1", "path/", "upload.php", "list.php");
+	}
+}
@@ -0,0 +1,86 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseDecoder;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.Constants;
+import org.serviceconnector.net.HttpHeadBlock;
+
+/**
+ * The Class HttpHeadBlockTest.
+ */
+public class HttpHeadBlockTest extends SuperUnitTest {
+
+	/**
+	 * Description: Encode request with head block, decode it with HTTP request decoder<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_EncodeRequestTest() throws Exception {
+		HttpHeadBlock block = new HttpHeadBlock("POST /sc HTTP/1.1", HttpHeaders.Names.HOST, "localhost", HttpHeaders.Names.CONNECTION,
+				HttpHeaders.Values.KEEP_ALIVE);
+		byte[] content = new byte[Constants.DEFAULT_MESSAGE_PART_SIZE];
+		content[content.length - 1] = 7;
+		ChannelBuffer buffer = block.encode("application/octet-stream", ChannelBuffers.wrappedBuffer(content));
+
+		DecoderEmbedder<HttpRequest> decoder = new DecoderEmbedder<HttpRequest>(new HttpRequestDecoder(Constants.MAX_HTTP_INITIAL_LINE_LENGTH,
+				Constants.MAX_HTTP_HEADER_SIZE, Constants.MAX_HTTP_CHUNK_SIZE));
+		decoder.offer(buffer);
+		HttpRequest request = decoder.poll();
+		Assert.assertEquals(HttpMethod.POST, request.getMethod());
+		Assert.assertEquals("/sc", request.getUri());
+		Assert.assertEquals("localhost", request.headers().get(HttpHeaders.Names.HOST));
+		Assert.assertTrue(HttpHeaders.isKeepAlive(request));
+		Assert.assertEquals("application/octet-stream", request.headers().get(HttpHeaders.Names.CONTENT_TYPE));
+		// part is decoded as a whole, not in chunks
+		Assert.assertFalse(request.isChunked());
+		Assert.assertEquals(content.length, request.getContent().readableBytes());
+		Assert.assertEquals(7, request.getContent().getByte(content.length - 1));
+	}
+
+	/**
+	 * Description: Encode two responses with the same head block, decode them with HTTP response decoder<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_EncodeResponsesTest() throws Exception {
+		HttpHeadBlock block = new HttpHeadBlock("HTTP/1.1 200 OK", HttpHeaders.Names.CACHE_CONTROL, HttpHeaders.Values.NO_CACHE);
+		DecoderEmbedder<HttpResponse> decoder = new DecoderEmbedder<HttpResponse>(new HttpResponseDecoder());
+		decoder.offer(block.encode("text/plain", ChannelBuffers.copiedBuffer("first".getBytes())));
+		decoder.offer(block.encode("application/octet-stream", ChannelBuffers.copiedBuffer("second".getBytes())));
+		HttpResponse response = decoder.poll();
+		Assert.assertEquals(HttpResponseStatus.OK, response.getStatus());
+		Assert.assertEquals("text/plain", response.headers().get(HttpHeaders.Names.CONTENT_TYPE));
+		Assert.assertEquals("first", new String(response.getContent().array(), response.getContent().arrayOffset() + response.getContent().readerIndex(),
+				response.getContent().readableBytes()));
+		response = decoder.poll();
+		Assert.assertEquals("application/octet-stream", response.headers().get(HttpHeaders.Names.CONTENT_TYPE));
+		Assert.assertEquals(6, response.getContent().readableBytes());
+		Assert.assertEquals(HttpHeaders.Values.NO_CACHE, response.headers().get(HttpHeaders.Names.CACHE_CONTROL));
+	}
+}
@@ -0,0 +1,237 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.log.Loggers;
+import org.serviceconnector.net.SCMPCommunicationException;
+import org.serviceconnector.net.req.netty.tcp.NettyTcpRequesterResponseHandler;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+
+/**
+ * The Class NettyTcpRequesterResponseHandlerTest. Tests correlation of replies to outstanding requests on a multiplexed connection.
+ */
+public class NettyTcpRequesterResponseHandlerTest extends SuperUnitTest {
+
+	/** The connection logger level before the test. */
+	private Level connectionLoggerLevel;
+
+	@Override
+	@Before
+	public void beforeOneTest() throws Exception {
+		super.beforeOneTest();
+		// embedded channel has no socket addresses to log
+		ch.qos.logback.classic.Logger connectionLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Loggers.CONNECTION.getValue());
+		this.connectionLoggerLevel = connectionLogger.getLevel();
+		connectionLogger.setLevel(Level.OFF);
+	}
+
+	@Override
+	@After
+	public void afterOneTest() {
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Loggers.CONNECTION.getValue())).setLevel(this.connectionLoggerLevel);
+		super.afterOneTest();
+	}
+
+	/**
+	 * Description: Requests registered concurrently on one connection, every reply is delivered to the callback of its request<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_concurrentRequestsTest() throws Exception {
+		final NettyTcpRequesterResponseHandler handler = new NettyTcpRequesterResponseHandler(true);
+		DecoderEmbedder<Object> embedder = new DecoderEmbedder<Object>(handler);
+		final int requests = 100;
+		final List<String> requestIds = Collections.synchronizedList(new ArrayList<String>());
+		final List<TestCallback> callbacks = Collections.synchronizedList(new ArrayList<TestCallback>());
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] requesters = new Thread[4];
+		for (int t = 0; t < requesters.length; t++) {
+			requesters[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < requests; i++) {
+						TestCallback callback = new TestCallback();
+						String requestId = handler.registerCallback(callback);
+						callback.requestId = requestId;
+						callbacks.add(callback);
+						requestIds.add(requestId);
+					}
+				}
+			};
+			requesters[t].start();
+		}
+		start.countDown();
+		for (Thread requester : requesters) {
+			requester.join();
+		}
+		Assert.assertEquals(requesters.length * requests, handler.getPendingRequestsCount());
+		for (String requestId : requestIds) {
+			embedder.offer(this.createReply(requestId));
+		}
+		Assert.assertEquals(0, handler.getPendingRequestsCount());
+		for (TestCallback callback : callbacks) {
+			Assert.assertEquals(1, callback.replies.size());
+			Assert.assertEquals(callback.requestId, callback.replies.get(0).getBody());
+			Assert.assertNull(callback.replies.get(0).getHeader(SCMPHeaderAttributeKey.REQUEST_ID));
+		}
+	}
+
+	/**
+	 * Description: Replies arrive in another order than the requests have been sent<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_outOfOrderRepliesTest() throws Exception {
+		NettyTcpRequesterResponseHandler handler = new NettyTcpRequesterResponseHandler(true);
+		DecoderEmbedder<Object> embedder = new DecoderEmbedder<Object>(handler);
+		TestCallback[] callbacks = new TestCallback[3];
+		String[] requestIds = new String[3];
+		for (int i = 0; i < callbacks.length; i++) {
+			callbacks[i] = new TestCallback();
+			requestIds[i] = handler.registerCallback(callbacks[i]);
+		}
+		embedder.offer(this.createReply(requestIds[2]));
+		embedder.offer(this.createReply(requestIds[0]));
+		Assert.assertEquals(1, handler.getPendingRequestsCount());
+		Assert.assertTrue(callbacks[1].replies.isEmpty());
+		embedder.offer(this.createReply(requestIds[1]));
+		for (int i = 0; i < callbacks.length; i++) {
+			Assert.assertEquals(1, callbacks[i].replies.size());
+			Assert.assertEquals(requestIds[i], callbacks[i].replies.get(0).getBody());
+		}
+		// reply of a request already answered is unsolicited
+		embedder.offer(this.createReply(requestIds[1]));
+		Assert.assertEquals(1, callbacks[1].replies.size());
+	}
+
+	/**
+	 * Description: Timed out request is removed with all its parts, a late reply is not delivered<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_timeoutRemovalTest() throws Exception {
+		NettyTcpRequesterResponseHandler handler = new NettyTcpRequesterResponseHandler(true);
+		DecoderEmbedder<Object> embedder = new DecoderEmbedder<Object>(handler);
+		TestCallback timedOut = new TestCallback();
+		TestCallback other = new TestCallback();
+		// windowed large request registers the callback for each part
+		String part1 = handler.registerCallback(timedOut);
+		String part2 = handler.registerCallback(timedOut);
+		String otherId = handler.registerCallback(other);
+		Assert.assertTrue(handler.removeCallback(timedOut));
+		Assert.assertEquals(1, handler.getPendingRequestsCount());
+		embedder.offer(this.createReply(part1));
+		embedder.offer(this.createReply(part2));
+		Assert.assertTrue(timedOut.replies.isEmpty());
+		embedder.offer(this.createReply(otherId));
+		Assert.assertEquals(1, other.replies.size());
+		Assert.assertEquals(0, handler.getPendingRequestsCount());
+		// removing a callback without outstanding requests is harmless and reported, its connection has been freed by the reply
+		Assert.assertFalse(handler.removeCallback(other));
+		Assert.assertFalse(handler.removeCallback(timedOut));
+	}
+
+	/**
+	 * Description: Reply without request id is delivered to the only outstanding request, with several outstanding requests the connection fails<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_replyWithoutRequestIdTest() throws Exception {
+		NettyTcpRequesterResponseHandler handler = new NettyTcpRequesterResponseHandler(true);
+		DecoderEmbedder<Object> embedder = new DecoderEmbedder<Object>(handler);
+		TestCallback single = new TestCallback();
+		handler.registerCallback(single);
+		embedder.offer(this.createReply(null));
+		Assert.assertEquals(1, single.replies.size());
+
+		TestCallback first = new TestCallback();
+		TestCallback second = new TestCallback();
+		handler.registerCallback(first);
+		handler.registerCallback(second);
+		embedder.offer(this.createReply(null));
+		Assert.assertTrue(first.replies.isEmpty());
+		Assert.assertTrue(second.replies.isEmpty());
+		Assert.assertTrue(first.exception instanceof SCMPCommunicationException);
+		Assert.assertTrue(second.exception instanceof SCMPCommunicationException);
+		Assert.assertEquals(0, handler.getPendingRequestsCount());
+	}
+
+	/**
+	 * Creates the encoded reply.
+	 *
+	 * @param requestId the request id, null if reply does not echo it
+	 * @return the channel buffer
+	 * @throws Exception the exception
+	 */
+	private ChannelBuffer createReply(String requestId) throws Exception {
+		SCMPMessage reply = new SCMPMessage(SCMPVersion.CURRENT);
+		reply.setIsReply(true);
+		reply.setMessageType(SCMPMsgType.CLN_EXECUTE);
+		reply.setHeaderCheckNull(SCMPHeaderAttributeKey.REQUEST_ID, requestId);
+		reply.setBody(String.valueOf(requestId));
+		return AppContext.getEncoderDecoderFactory().createEncoderDecoder(reply).encode(reply);
+	}
+
+	/**
+	 * The Class TestCallback. Records replies and exceptions.
+	 */
+	private static class TestCallback implements ISCMPMessageCallback {
+
+		/** The request id. */
+		private volatile String requestId;
+		/** The replies. */
+		private final List<SCMPMessage> replies = Collections.synchronizedList(new ArrayList<SCMPMessage>());
+		/** The exception. */
+		private volatile Exception exception;
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(SCMPMessage reply) throws Exception {
+			this.replies.add(reply);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(Exception ex) {
+			this.exception = ex;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.net.req.netty.http.INettyWebClientListener;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.server.FileListExchange;
+import org.serviceconnector.test.unit.ScriptedWebServer.Response;
+
+/**
+ * The Class NettyWebClientTest.
+ */
+public class NettyWebClientTest extends SuperFileExchangeTest {
+
+	/**
+	 * Description: Keep alive connection is reused by subsequent exchanges, released right after each response<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_reuseKeepAliveConnectionTest() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			this.webServer.addResponse(Response.fixed("200 OK", ("list" + i).getBytes(), true));
+			ReplyCallback callback = new ReplyCallback();
+			new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+			Assert.assertEquals("list" + i, new String((byte[]) callback.takeReply().getBody()));
+			this.assertIdleConnections(1);
+		}
+		Assert.assertEquals(1, this.webServer.getConnectionsCount());
+	}
+
+	/**
+	 * Description: Connection closed by the web server after the response is not reused<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_connectionCloseTest() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			this.webServer.addResponse(Response.fixed("200 OK", ("list" + i).getBytes(), false));
+			ReplyCallback callback = new ReplyCallback();
+			new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+			Assert.assertEquals("list" + i, new String((byte[]) callback.takeReply().getBody()));
+			this.assertIdleConnections(0);
+		}
+		Assert.assertEquals(2, this.webServer.getConnectionsCount());
+	}
+
+	/**
+	 * Description: Parallel exchanges get their own connections, connections are pooled afterwards<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_parallelExchangesTest() throws Exception {
+		ReplyCallback[] callbacks = new ReplyCallback[3];
+		for (int i = 0; i < callbacks.length; i++) {
+			this.webServer.addResponse(Response.fixed("200 OK", "list".getBytes(), true));
+			callbacks[i] = new ReplyCallback();
+			new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callbacks[i], TIMEOUT_MILLIS);
+		}
+		for (ReplyCallback callback : callbacks) {
+			Assert.assertEquals("list", new String((byte[]) callback.takeReply().getBody()));
+		}
+		this.assertIdleConnections(this.webServer.getConnectionsCount());
+
+		// pooled connections are reused
+		int connectionsCount = this.webServer.getConnectionsCount();
+		this.webServer.addResponse(Response.fixed("200 OK", "list".getBytes(), true));
+		ReplyCallback callback = new ReplyCallback();
+		new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		callback.takeReply();
+		Assert.assertEquals(connectionsCount, this.webServer.getConnectionsCount());
+	}
+
+	/**
+	 * Description: Response on a reused connection arriving before the request write returned releases the connection, listener gets the
+	 * channel before the request is written<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_responseBeforeRequestWrittenTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("200 OK", "list".getBytes(), true));
+		ReplyCallback callback = new ReplyCallback();
+		new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		callback.takeReply();
+		this.assertIdleConnections(1);
+
+		// request on the idle connection is written by this thread, response is delivered by the IO thread meanwhile
+		this.webServer.addResponse(Response.fixed("200 OK", "list".getBytes(), true));
+		final CountDownLatch completed = new CountDownLatch(1);
+		final AtomicReference<Channel> assignedChannel = new AtomicReference<Channel>();
+		HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/list");
+		this.webClient.send(request, new INettyWebClientListener() {
+
+			@Override
+			public void channelAssigned(Channel channel) {
+				assignedChannel.set(channel);
+			}
+
+			@Override
+			public void requestWritten(Channel channel) {
+				try {
+					Assert.assertTrue(completed.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+				} catch (InterruptedException e) {
+					Assert.fail(e.toString());
+				}
+			}
+
+			@Override
+			public void responseReceived(HttpResponse response) {
+			}
+
+			@Override
+			public void contentReceived(ChannelBuffer content, boolean last) {
+				if (last) {
+					NettyWebClientTest.this.webClient.release(assignedChannel.get(), true);
+					completed.countDown();
+				}
+			}
+
+			@Override
+			public void failed(Exception ex) {
+			}
+		});
+		Assert.assertEquals(0, completed.getCount());
+		this.assertIdleConnections(1);
+		Assert.assertEquals(1, this.webServer.getConnectionsCount());
+	}
+
+	/**
+	 * Description: Connections released while the pool holds the maximal number of idle connections get closed<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_maxIdleConnectionsTest() throws Exception {
+		ReplyCallback[] callbacks = new ReplyCallback[MAX_IDLE_CONNECTIONS + 2];
+		for (int i = 0; i < callbacks.length; i++) {
+			this.webServer.addResponse(Response.fixed("200 OK", "list".getBytes(), true));
+			callbacks[i] = new ReplyCallback();
+			new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callbacks[i], TIMEOUT_MILLIS);
+		}
+		for (ReplyCallback callback : callbacks) {
+			Assert.assertEquals("list", new String((byte[]) callback.takeReply().getBody()));
+		}
+		this.assertIdleConnections(Math.min(MAX_IDLE_CONNECTIONS, this.webServer.getConnectionsCount()));
+	}
+
+	/**
+	 * Description: Connection idle longer than the maximal idle time gets closed, next exchange connects a new one<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_evictIdleConnectionTest() throws Exception {
+		this.webServer.addResponse(Response.fixed("200 OK", "list".getBytes(), true));
+		ReplyCallback callback = new ReplyCallback();
+		new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		callback.takeReply();
+		this.assertIdleConnections(1);
+		// evicted by the timer without any exchange
+		this.assertIdleConnections(0, 3 * MAX_IDLE_MILLIS);
+
+		this.webServer.addResponse(Response.fixed("200 OK", "list".getBytes(), true));
+		callback = new ReplyCallback();
+		new FileListExchange(this.webClient).start("/list", new SCMPMessage(SCMPVersion.CURRENT), callback, TIMEOUT_MILLIS);
+		callback.takeReply();
+		Assert.assertEquals(2, this.webServer.getConnectionsCount());
+	}
+}
@@ -0,0 +1,186 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.cache.offheap.OffHeapCacheImpl;
+import org.serviceconnector.scmp.SCMPCachedMessage;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPVersion;
+
+/**
+ * The Class OffHeapCacheImplTest.
+ */
+public class OffHeapCacheImplTest extends SuperUnitTest {
+
+	/** The block size of the off heap cache. */
+	private static final int BLOCK_SIZE = 1024;
+	/** The maximum size, holds four values of two blocks. */
+	private static final long MAX_BYTES = 8 * BLOCK_SIZE;
+
+	/**
+	 * Description: Put, replace and remove entries<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_putReplaceRemoveTest() throws Exception {
+		OffHeapCacheImpl<String> cache = new OffHeapCacheImpl<String>("test", MAX_BYTES, 0);
+		cache.putOrUpdate("key1", "value1", 0);
+		cache.putOrUpdate("key2", "value2", 0);
+		cache.putOrUpdate("key1", "value1b", 0);
+		cache.replace("key3", "value3", 0);
+		Assert.assertEquals("value1b", cache.get("key1"));
+		Assert.assertEquals("value2", cache.get("key2"));
+		Assert.assertNull(cache.get("key3"));
+		Assert.assertEquals(2, cache.getKeyList().size());
+		Assert.assertEquals(2 * BLOCK_SIZE, cache.getOffHeapSize());
+
+		cache.replace("key2", "value2b", 0);
+		Assert.assertEquals("value2b", cache.get("key2"));
+		Assert.assertEquals("value2b", cache.remove("key2"));
+		Assert.assertNull(cache.get("key2"));
+		Assert.assertNull(cache.remove("key2"));
+		Assert.assertEquals(1, cache.getNumberOfMessagesInStore());
+		cache.removeAll();
+		Assert.assertNull(cache.get("key1"));
+		Assert.assertEquals(0, cache.getKeyList().size());
+		Assert.assertEquals(0, cache.getOffHeapSize());
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Values spanning several blocks are read back unchanged, blocks of removed entries are reused<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_multipleBlocksTest() throws Exception {
+		OffHeapCacheImpl<String> cache = new OffHeapCacheImpl<String>("test", MAX_BYTES, 0);
+		for (int i = 0; i < 10; i++) {
+			String value = this.createValue(3 * BLOCK_SIZE, i);
+			cache.putOrUpdate("key", value, 0);
+			Assert.assertEquals(value, cache.get("key"));
+			Assert.assertEquals(4 * BLOCK_SIZE, cache.getOffHeapSize());
+		}
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Least recently used entries are evicted when the maximum size is reached<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_evictLeastRecentlyUsedTest() throws Exception {
+		OffHeapCacheImpl<String> cache = new OffHeapCacheImpl<String>("test", MAX_BYTES, 0);
+		for (int i = 1; i <= 4; i++) {
+			cache.putOrUpdate("key" + i, this.createValue(BLOCK_SIZE + 100, i), 0);
+		}
+		Assert.assertEquals(MAX_BYTES, cache.getOffHeapSize());
+		// key1 gets most recently used, key2 is evicted
+		Assert.assertNotNull(cache.get("key1"));
+		cache.putOrUpdate("key5", this.createValue(BLOCK_SIZE + 100, 5), 0);
+		Assert.assertNull(cache.get("key2"));
+		Assert.assertEquals(this.createValue(BLOCK_SIZE + 100, 1), cache.get("key1"));
+		Assert.assertEquals(this.createValue(BLOCK_SIZE + 100, 3), cache.get("key3"));
+		Assert.assertEquals(this.createValue(BLOCK_SIZE + 100, 5), cache.get("key5"));
+		Assert.assertEquals(4, cache.getNumberOfMessagesInStore());
+		Assert.assertEquals(MAX_BYTES, cache.getOffHeapSize());
+
+		// a large value evicts several entries, key4 and key1 are least recently used
+		cache.putOrUpdate("key6", this.createValue(3 * BLOCK_SIZE + 100, 6), 0);
+		Assert.assertNull(cache.get("key4"));
+		Assert.assertNull(cache.get("key1"));
+		Assert.assertNotNull(cache.get("key3"));
+		Assert.assertNotNull(cache.get("key6"));
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Value larger than the maximum size is not cached<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_valueTooLargeTest() throws Exception {
+		OffHeapCacheImpl<String> cache = new OffHeapCacheImpl<String>("test", MAX_BYTES, 0);
+		cache.putOrUpdate("key1", "value1", 0);
+		cache.putOrUpdate("key2", this.createValue((int) MAX_BYTES, 2), 0);
+		Assert.assertNull(cache.get("key2"));
+		Assert.assertEquals("value1", cache.get("key1"));
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Expired entries are not returned and removed by the expiration check<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_expirationTest() throws Exception {
+		OffHeapCacheImpl<String> cache = new OffHeapCacheImpl<String>("test", MAX_BYTES, 0);
+		cache.putOrUpdate("key1", "value1", 1);
+		cache.putOrUpdate("key2", "value2", 0);
+		Assert.assertEquals("value1", cache.get("key1"));
+		Thread.sleep(1100);
+		Assert.assertEquals(1, cache.getKeyList().size());
+		Assert.assertNull(cache.getExpirationTime("key3"));
+		cache.checkExpiration();
+		Assert.assertEquals(1, cache.getNumberOfMessagesInStore());
+		Assert.assertNull(cache.get("key1"));
+		Assert.assertEquals("value2", cache.get("key2"));
+		Assert.assertEquals(BLOCK_SIZE, cache.getOffHeapSize());
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Cached messages are stored encoded and decoded on read<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_cachedMessageTest() throws Exception {
+		OffHeapCacheImpl<SCMPCachedMessage> cache = new OffHeapCacheImpl<SCMPCachedMessage>("test", MAX_BYTES, 0);
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setIsReply(true);
+		message.setServiceName("service");
+		message.setHeader(SCMPHeaderAttributeKey.CACHE_ID, "cacheId");
+		message.setBody(this.createValue(2 * BLOCK_SIZE, 1).getBytes());
+		SCMPCachedMessage cachedMessage = new SCMPCachedMessage(message);
+		cache.putOrUpdate("cacheId/0/0", cachedMessage, 0);
+
+		SCMPCachedMessage readMessage = cache.get("cacheId/0/0");
+		Assert.assertNotSame(cachedMessage, readMessage);
+		Assert.assertEquals(cachedMessage.getHeader(), readMessage.getHeader());
+		Assert.assertArrayEquals(cachedMessage.getEncodedHeader(), readMessage.getEncodedHeader());
+		Assert.assertArrayEquals((byte[]) message.getBody(), (byte[]) readMessage.newMessage().getBody());
+		Assert.assertEquals(cachedMessage.encode().length, cache.remove("cacheId/0/0").encode().length);
+		cache.destroy();
+	}
+
+	/**
+	 * Creates a value.
+	 *
+	 * @param length the length
+	 * @param seed the seed
+	 * @return the value
+	 */
+	private String createValue(int length, int seed) {
+		StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			builder.append((char) ('a' + (i * 31 + seed) % 26));
+		}
+		return builder.toString();
+	}
+}
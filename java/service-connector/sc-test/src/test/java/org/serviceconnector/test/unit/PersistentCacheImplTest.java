@@ -0,0 +1,250 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.serviceconnector.cache.persistent.PersistentCacheImpl;
+
+/**
+ * The Class PersistentCacheImplTest.
+ */
+public class PersistentCacheImplTest extends SuperUnitTest {
+
+	/** The segment size. */
+	private static final int SEGMENT_SIZE = 4096;
+
+	/** The directory of the segment files. */
+	private File directory;
+
+	/** {@inheritDoc} */
+	@Override
+	@Before
+	public void beforeOneTest() throws Exception {
+		super.beforeOneTest();
+		this.directory = File.createTempFile("persistentCache", "");
+		this.directory.delete();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	@After
+	public void afterOneTest() {
+		File[] files = this.directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		this.directory.delete();
+		super.afterOneTest();
+	}
+
+	/**
+	 * Description: Put, replace and remove entries<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_putReplaceRemoveTest() throws Exception {
+		PersistentCacheImpl<String> cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		cache.putOrUpdate("key1", "value1", 0);
+		cache.putOrUpdate("key2", "value2", 0);
+		cache.putOrUpdate("key1", "value1b", 0);
+		cache.replace("key3", "value3", 0);
+		Assert.assertEquals("value1b", cache.get("key1"));
+		Assert.assertEquals("value2", cache.get("key2"));
+		Assert.assertNull(cache.get("key3"));
+		Assert.assertEquals(2, cache.getKeyList().size());
+
+		cache.replace("key2", "value2b", 0);
+		Assert.assertEquals("value2b", cache.get("key2"));
+		Assert.assertEquals("value2b", cache.remove("key2"));
+		Assert.assertNull(cache.get("key2"));
+		Assert.assertNull(cache.remove("key2"));
+		Assert.assertEquals(1, cache.getNumberOfMessagesInStore());
+		cache.removeAll();
+		Assert.assertNull(cache.get("key1"));
+		Assert.assertEquals(0, cache.getKeyList().size());
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Entries survive a restart, index file is used<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_restartWithIndexTest() throws Exception {
+		PersistentCacheImpl<String> cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		this.putEntries(cache);
+		cache.destroy();
+		Assert.assertTrue(new File(this.directory, "index.idx").exists());
+
+		cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		Assert.assertFalse(new File(this.directory, "index.idx").exists());
+		this.assertEntries(cache);
+		// cache stays writable after restart
+		cache.putOrUpdate("key100", "value100", 0);
+		Assert.assertEquals("value100", cache.get("key100"));
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Entries survive a restart without index file (SC did not stop properly), segments are replayed<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_restartWithoutIndexTest() throws Exception {
+		PersistentCacheImpl<String> cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		this.putEntries(cache);
+		// no destroy, simulates a crash
+
+		PersistentCacheImpl<String> recoveredCache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		this.assertEntries(recoveredCache);
+		recoveredCache.destroy();
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Record written partially before a crash is ignored, records before stay valid<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_tornRecordTest() throws Exception {
+		PersistentCacheImpl<String> cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		cache.putOrUpdate("key1", "value1", 0);
+		cache.destroy();
+		new File(this.directory, "index.idx").delete();
+		File segmentFile = new File(this.directory, "00000000.seg");
+		RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw");
+		// second record, length set but content missing
+		raf.seek(4);
+		long position = 4 + raf.readInt();
+		raf.seek(position);
+		raf.writeInt(100);
+		raf.close();
+
+		cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		Assert.assertEquals("value1", cache.get("key1"));
+		Assert.assertEquals(1, cache.getKeyList().size());
+		// next record overwrites the torn record
+		cache.putOrUpdate("key2", "value2", 0);
+		cache.destroy();
+		new File(this.directory, "index.idx").delete();
+		cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		Assert.assertEquals("value1", cache.get("key1"));
+		Assert.assertEquals("value2", cache.get("key2"));
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Expired entries are not returned, also after restart<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_expirationTest() throws Exception {
+		PersistentCacheImpl<String> cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		cache.putOrUpdate("key1", "value1", 1);
+		cache.putOrUpdate("key2", "value2", 0);
+		Assert.assertEquals("value1", cache.get("key1"));
+		Assert.assertTrue(cache.getExpirationTime("key1").getTime() <= System.currentTimeMillis() + 1000);
+		cache.destroy();
+		Thread.sleep(1100);
+
+		cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		Assert.assertEquals(1, cache.getKeyList().size());
+		Assert.assertNull(cache.get("key1"));
+		Assert.assertEquals("value2", cache.get("key2"));
+		cache.replace("key1", "value1b", 0);
+		Assert.assertNull(cache.get("key1"));
+		cache.destroy();
+	}
+
+	/**
+	 * Description: Segments with few live records get compacted, compacted segments are deleted, removed entries stay removed after replay<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_compactionTest() throws Exception {
+		PersistentCacheImpl<String> cache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		for (int i = 0; i < 200; i++) {
+			cache.putOrUpdate("key" + (i % 5), "value" + i, 0);
+		}
+		cache.putOrUpdate("removed", "removed", 0);
+		for (int i = 0; i < 100; i++) {
+			cache.putOrUpdate("key" + (i % 5), "update" + i, 0);
+		}
+		cache.remove("removed");
+		int segmentsBefore = this.directory.list().length;
+		Assert.assertTrue(segmentsBefore > 3);
+		cache.checkExpiration();
+		Assert.assertTrue(this.directory.list().length < segmentsBefore);
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals("update" + (95 + i), cache.get("key" + i));
+		}
+		Assert.assertNull(cache.get("removed"));
+
+		// no destroy, simulates a crash
+		PersistentCacheImpl<String> recoveredCache = new PersistentCacheImpl<String>("test", this.directory, SEGMENT_SIZE, 0);
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals("update" + (95 + i), recoveredCache.get("key" + i));
+		}
+		Assert.assertNull(recoveredCache.get("removed"));
+		Assert.assertEquals(5, recoveredCache.getKeyList().size());
+		recoveredCache.destroy();
+		cache.destroy();
+	}
+
+	/**
+	 * Puts the entries, some are updated or removed. Entries span several segments.
+	 *
+	 * @param cache the cache
+	 */
+	private void putEntries(PersistentCacheImpl<String> cache) {
+		for (int i = 0; i < 100; i++) {
+			cache.putOrUpdate("key" + i, "value" + i, 0);
+		}
+		for (int i = 0; i < 100; i += 10) {
+			cache.putOrUpdate("key" + i, "update" + i, 0);
+		}
+		for (int i = 5; i < 100; i += 10) {
+			cache.remove("key" + i);
+		}
+	}
+
+	/**
+	 * Asserts the entries put by putEntries.
+	 *
+	 * @param cache the cache
+	 */
+	private void assertEntries(PersistentCacheImpl<String> cache) {
+		Assert.assertEquals(90, cache.getKeyList().size());
+		for (int i = 0; i < 100; i++) {
+			if (i % 10 == 0) {
+				Assert.assertEquals("update" + i, cache.get("key" + i));
+			} else if (i % 10 == 5) {
+				Assert.assertNull(cache.get("key" + i));
+			} else {
+				Assert.assertEquals("value" + i, cache.get("key" + i));
+			}
+		}
+	}
+}
@@ -0,0 +1,316 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.cmd.SCMPCommandException;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.req.IRequest;
+import org.serviceconnector.net.req.RequestAdapter;
+import org.serviceconnector.registry.PublishMessageQueue;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.service.ReceivePublicationTimeout;
+import org.serviceconnector.service.SubscriptionMask;
+
+/**
+ * The Class PublishMessageQueueTest.
+ */
+public class PublishMessageQueueTest extends SuperUnitTest {
+
+	/**
+	 * Description: Subscriptions with different masks get only matching messages in insert order<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_MaskMatchingTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+		queue.subscribe("sid1", new SubscriptionMask("AAA"), null);
+		queue.subscribe("sid2", new SubscriptionMask("%%%"), null);
+		for (int i = 0; i < 10; i++) {
+			queue.insert(this.createMessage(i % 2 == 0 ? "AAA" : "BBB", i));
+		}
+		for (int i = 0; i < 10; i += 2) {
+			Assert.assertEquals(String.valueOf(i), queue.getMessage("sid1").getBody());
+		}
+		Assert.assertNull(queue.getMessage("sid1"));
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals(String.valueOf(i), queue.getMessage("sid2").getBody());
+		}
+		Assert.assertNull(queue.getMessage("sid2"));
+	}
+
+	/**
+	 * Description: Messages consumed by all subscriptions are removed from queue<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_RemoveConsumedMessagesTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+		queue.subscribe("sid1", new SubscriptionMask("AAA"), null);
+		queue.subscribe("sid2", new SubscriptionMask("AAA"), null);
+		for (int i = 0; i < 5; i++) {
+			queue.insert(this.createMessage("AAA", i));
+		}
+		queue.removeNonreferencedNodes();
+		Assert.assertEquals(5, queue.getTotalSize());
+		for (int i = 0; i < 5; i++) {
+			queue.getMessage("sid1");
+		}
+		queue.removeNonreferencedNodes();
+		Assert.assertEquals(5, queue.getTotalSize());
+		queue.getMessage("sid2");
+		queue.getMessage("sid2");
+		queue.removeNonreferencedNodes();
+		Assert.assertEquals(3, queue.getTotalSize());
+		Assert.assertEquals(3, queue.getReferencedNodesCount());
+		queue.unsubscribe("sid2");
+		queue.removeNonreferencedNodes();
+		Assert.assertEquals(0, queue.getTotalSize());
+		queue.unsubscribe("sid1");
+		queue.insert(this.createMessage("AAA", 5));
+		Assert.assertEquals(0, queue.getTotalSize());
+	}
+
+	/**
+	 * Description: Concurrent publishers insert messages, subscription gets every message once<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_ConcurrentInsertTest() throws Exception {
+		final PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+		queue.subscribe("sid1", new SubscriptionMask("AAA"), null);
+		final int messages = 1000;
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] publishers = new Thread[4];
+		for (int p = 0; p < publishers.length; p++) {
+			publishers[p] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < messages; i++) {
+						queue.insert(PublishMessageQueueTest.this.createMessage("AAA", i));
+					}
+				}
+			};
+			publishers[p].start();
+		}
+		start.countDown();
+		for (Thread publisher : publishers) {
+			publisher.join();
+		}
+		int received = 0;
+		while (queue.getMessage("sid1") != null) {
+			received++;
+		}
+		Assert.assertEquals(publishers.length * messages, received);
+		queue.removeNonreferencedNodes();
+		Assert.assertEquals(0, queue.getTotalSize());
+	}
+
+	/**
+	 * Description: Push delivery answers the listening receive publication on the SC worker thread pool without holding the data pointer, pull delivery by the
+	 * timeout scheduler<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_PushDeliveryTest() throws Exception {
+		AppContext.init();
+		try {
+			PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+			TestReceivePublicationTimeout pushTimeout = new TestReceivePublicationTimeout(queue, "push");
+			TestReceivePublicationTimeout pullTimeout = new TestReceivePublicationTimeout(queue, "pull");
+			queue.subscribe("push", new SubscriptionMask("AAA"), pushTimeout);
+			queue.subscribe("pull", new SubscriptionMask("AAA"), pullTimeout);
+			Assert.assertNull(queue.getMessageOrListen("push", this.createRequest("push", true), null));
+			Assert.assertNull(queue.getMessageOrListen("pull", this.createRequest("pull", false), null));
+			queue.insert(this.createMessage("AAA", 0));
+			// push delivery answered by a worker thread, the publisher does not answer
+			Assert.assertTrue(pushTimeout.done.await(5, TimeUnit.SECONDS));
+			Assert.assertNotSame(Thread.currentThread(), pushTimeout.thread);
+			Assert.assertEquals("0", pushTimeout.message.getBody());
+			Assert.assertTrue(pullTimeout.done.await(5, TimeUnit.SECONDS));
+			Assert.assertNotSame(Thread.currentThread(), pullTimeout.thread);
+		} finally {
+			AppContext.destroy();
+		}
+	}
+
+	/**
+	 * Description: Batch insert appends messages in order, subscriptions get only matching messages of the batch<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_InsertAllTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+		queue.subscribe("sid1", new SubscriptionMask("AAA"), null);
+		queue.subscribe("sid2", new SubscriptionMask("BBB"), null);
+		queue.insert(this.createMessage("AAA", 0));
+		List<SCMPMessage> batch = new ArrayList<SCMPMessage>();
+		for (int i = 1; i < 10; i++) {
+			batch.add(this.createMessage(i % 3 == 0 ? "BBB" : "AAA", i));
+		}
+		queue.insertAll(batch);
+		queue.insert(this.createMessage("AAA", 10));
+		Assert.assertEquals(11, queue.getTotalSize());
+		for (int i = 0; i <= 10; i++) {
+			if (i % 3 != 0 || i == 0) {
+				Assert.assertEquals(String.valueOf(i), queue.getMessage("sid1").getBody());
+			}
+		}
+		Assert.assertNull(queue.getMessage("sid1"));
+		for (int i = 3; i < 10; i += 3) {
+			Assert.assertEquals(String.valueOf(i), queue.getMessage("sid2").getBody());
+		}
+		Assert.assertNull(queue.getMessage("sid2"));
+		queue.removeNonreferencedNodes();
+		Assert.assertEquals(0, queue.getTotalSize());
+	}
+
+	/**
+	 * Description: Application context destroyed after the queue got created, receive publication timeout is scheduled on the new publish timeout scheduler<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_ScheduleAfterDestroyTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+		TestReceivePublicationTimeout pullTimeout = new TestReceivePublicationTimeout(queue, "pull");
+		queue.subscribe("pull", new SubscriptionMask("AAA"), pullTimeout);
+		AppContext.getPublishTimeoutScheduler();
+		AppContext.destroy();
+		Assert.assertNull(queue.getMessageOrListen("pull", this.createRequest("pull", false), null));
+		queue.insert(this.createMessage("AAA", 0));
+		Assert.assertTrue(pullTimeout.done.await(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Description: Receive publication of a session not subscribed or unsubscribed in the meantime fails, no listener parked<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t07_ListenWithoutDataPointerTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+		this.assertSubscriptionNotFound(queue, "unknown");
+		TestReceivePublicationTimeout timeout = new TestReceivePublicationTimeout(queue, "sid1");
+		queue.subscribe("sid1", new SubscriptionMask("AAA"), timeout);
+		queue.insert(this.createMessage("AAA", 0));
+		Assert.assertEquals("0", queue.getMessageOrListen("sid1", this.createRequest("sid1", false), null).getBody());
+		queue.unsubscribe("sid1");
+		this.assertSubscriptionNotFound(queue, "sid1");
+		queue.insert(this.createMessage("AAA", 1));
+		Assert.assertNull(timeout.thread);
+	}
+
+	/**
+	 * Asserts receive publication fails because the subscription has no data pointer.
+	 *
+	 * @param queue the queue
+	 * @param sessionId the session id
+	 */
+	private void assertSubscriptionNotFound(PublishMessageQueue<SCMPMessage> queue, String sessionId) {
+		try {
+			queue.getMessageOrListen(sessionId, this.createRequest(sessionId, false), null);
+			Assert.fail("receive publication without data pointer must fail");
+		} catch (SCMPCommandException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Creates the receive publication request.
+	 *
+	 * @param sessionId the session id
+	 * @param pushDelivery the push delivery
+	 * @return the request
+	 */
+	private IRequest createRequest(String sessionId, boolean pushDelivery) {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setSessionId(sessionId);
+		if (pushDelivery) {
+			message.setHeaderFlag(SCMPHeaderAttributeKey.PUSH_DELIVERY);
+		}
+		IRequest request = new RequestAdapter(null, null) {
+			@Override
+			public void load() throws Exception {
+			}
+		};
+		request.setMessage(message);
+		return request;
+	}
+
+	/**
+	 * The Class TestReceivePublicationTimeout. Records the thread answering the receive publication and the message polled.
+	 */
+	private static class TestReceivePublicationTimeout extends ReceivePublicationTimeout {
+
+		/** The queue. */
+		private final PublishMessageQueue<SCMPMessage> queue;
+		/** The session id. */
+		private final String sessionId;
+		/** The thread answering. */
+		private volatile Thread thread;
+		/** The message polled by the answering thread. */
+		private volatile SCMPMessage message;
+		/** The done latch. */
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		/**
+		 * Instantiates a new test receive publication timeout.
+		 *
+		 * @param queue the queue
+		 * @param sessionId the session id
+		 */
+		public TestReceivePublicationTimeout(PublishMessageQueue<SCMPMessage> queue, String sessionId) {
+			super(queue, 60000);
+			this.queue = queue;
+			this.sessionId = sessionId;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void timeout() {
+			this.thread = Thread.currentThread();
+			this.message = this.queue.getMessage(this.sessionId);
+			this.done.countDown();
+		}
+	}
+
+	/**
+	 * Creates the message.
+	 *
+	 * @param mask the mask
+	 * @param nr the number
+	 * @return the SCMP message
+	 */
+	private SCMPMessage createMessage(String mask, int nr) {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setHeader(SCMPHeaderAttributeKey.MASK, mask);
+		message.setBody(String.valueOf(nr));
+		return message;
+	}
+}
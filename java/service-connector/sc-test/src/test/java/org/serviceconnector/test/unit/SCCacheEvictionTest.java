@@ -0,0 +1,186 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.Date;
+
+import org.apache.commons.configuration2.CompositeConfiguration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.serviceconnector.Constants;
+import org.serviceconnector.cache.ISCCacheModule;
+import org.serviceconnector.cache.SCCache;
+import org.serviceconnector.cache.SC_CACHE_MODULE_TYPE;
+import org.serviceconnector.cache.SC_CACHE_TYPE;
+import org.serviceconnector.cmd.SCMPCommandException;
+import org.serviceconnector.conf.SCCacheConfiguration;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.util.DateTimeUtility;
+
+/**
+ * The Class SCCacheEvictionTest. SC cache with off heap cache modules limited in size, evicted entries remove the whole message.
+ */
+public class SCCacheEvictionTest extends SuperUnitTest {
+
+	/** The body length of a part of the large message. */
+	private static final int PART_LENGTH = 200 << 10;
+	/** The body length of a filling message. */
+	private static final int FILL_LENGTH = 100 << 10;
+
+	/** The SC environment flag before the test. */
+	private boolean scEnvironment;
+	/** The cache. */
+	private SCCache cache;
+	/** The data cache module. */
+	private ISCCacheModule<?> dataCacheModule;
+
+	@Override
+	@Before
+	public void beforeOneTest() throws Exception {
+		super.beforeOneTest();
+		AppContext.init();
+		// cache modules are registered in SC environment only
+		this.scEnvironment = AppContext.isScEnvironment();
+		AppContext.setSCEnvironment(true);
+		CompositeConfiguration compositeConfiguration = new CompositeConfiguration();
+		compositeConfiguration.addProperty(Constants.CACHE_ENABLED, true);
+		compositeConfiguration.addProperty(Constants.CACHE_TYPE, SC_CACHE_TYPE.OFF_HEAP.getValue());
+		compositeConfiguration.addProperty(Constants.CACHE_DISK_PATH, "target/cacheEvictionTest");
+		compositeConfiguration.addProperty(Constants.CACHE_MAX_OFF_HEAP_SIZE_MB, 1);
+		compositeConfiguration.addProperty(Constants.CACHE_EXPIRATION_CHECK_INTERVAL_SECONDS, 0);
+		SCCacheConfiguration cacheConfiguration = new SCCacheConfiguration();
+		cacheConfiguration.load(compositeConfiguration);
+		this.cache = AppContext.getSCCache();
+		this.cache.load(cacheConfiguration);
+		this.dataCacheModule = AppContext.getCacheModuleRegistry().getCache(SC_CACHE_MODULE_TYPE.DATA_CACHE_MODULE.name());
+	}
+
+	@Override
+	@After
+	public void afterOneTest() {
+		try {
+			this.cache.destroy();
+			// leave the cache disabled for the following tests
+			CompositeConfiguration compositeConfiguration = new CompositeConfiguration();
+			compositeConfiguration.addProperty(Constants.CACHE_ENABLED, false);
+			SCCacheConfiguration cacheConfiguration = new SCCacheConfiguration();
+			cacheConfiguration.load(compositeConfiguration);
+			this.cache.load(cacheConfiguration);
+		} catch (Exception e) {
+			testLogger.error("disabling cache failed", e);
+		}
+		AppContext.setSCEnvironment(this.scEnvironment);
+		AppContext.destroy();
+		super.afterOneTest();
+	}
+
+	/**
+	 * Description: Multi part message is cached, filling the data cache module past its size evicts a part. The whole message gets removed, reading it starts
+	 * loading again instead of serving the message with a part missing<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_evictedPartRemovesMessageTest() throws Exception {
+		this.loadMessage("large", 3, PART_LENGTH);
+		SCMPMessage cachedMessage = this.cache.tryGetMessageFromCacheOrLoad(this.createRequest("large", "readerSid", 0));
+		Assert.assertNotNull(cachedMessage);
+		Assert.assertEquals(PART_LENGTH, cachedMessage.getBodyLength());
+		for (int i = 0; i < 6; i++) {
+			this.loadMessage("fill" + i, 1, FILL_LENGTH);
+		}
+		for (int partNr = 0; partNr < 3; partNr++) {
+			Assert.assertNull("large/0/" + partNr, this.dataCacheModule.get("large/0/" + partNr));
+		}
+		Assert.assertNotNull(this.cache.tryGetMessageFromCacheOrLoad(this.createRequest("fill5", "readerSid", 0)));
+		// message is not in cache, reader starts loading it
+		Assert.assertNull(this.cache.tryGetMessageFromCacheOrLoad(this.createRequest("large", "readerSid", 1)));
+		Assert.assertEquals("large", this.cache.getLoadingSessionIds().get("readerSid"));
+	}
+
+	/**
+	 * Description: Data entry of a loaded message is missing, reading the message removes it and fails instead of serving the message with a part missing<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_missingPartRemovesMessageTest() throws Exception {
+		this.loadMessage("large", 3, 1024);
+		Assert.assertNotNull(this.cache.tryGetMessageFromCacheOrLoad(this.createRequest("large", "readerSid", 0)));
+		this.dataCacheModule.remove("large/0/1");
+		try {
+			this.cache.tryGetMessageFromCacheOrLoad(this.createRequest("large", "readerSid", 1));
+			Assert.fail("SCMPCommandException expected");
+		} catch (SCMPCommandException ex) {
+			// expected
+		}
+		Assert.assertNull(this.dataCacheModule.get("large/0/0"));
+		Assert.assertNull(this.dataCacheModule.get("large/0/2"));
+		Assert.assertNull(this.cache.tryGetMessageFromCacheOrLoad(this.createRequest("large", "readerSid", 0)));
+	}
+
+	/**
+	 * Loads a message into the cache.
+	 *
+	 * @param cacheId the cache id
+	 * @param nrOfParts the number of parts
+	 * @param partLength the body length of a part
+	 * @throws Exception the exception
+	 */
+	private void loadMessage(String cacheId, int nrOfParts, int partLength) throws Exception {
+		String loadingSid = "loadingSid" + cacheId;
+		SCMPMessage reqMessage = this.createRequest(cacheId, loadingSid, 0);
+		reqMessage.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, 60000);
+		Assert.assertNull(this.cache.tryGetMessageFromCacheOrLoad(reqMessage));
+		String expirationDateTime = DateTimeUtility.getDateTimeAsString(DateTimeUtility.getIncrementTimeMillis(new Date(), 3600000));
+		for (int partNr = 0; partNr < nrOfParts; partNr++) {
+			SCMPMessage resMessage = partNr < nrOfParts - 1 ? new SCMPPart(SCMPVersion.CURRENT) : new SCMPMessage(SCMPVersion.CURRENT);
+			resMessage.setMessageType(SCMPMsgType.CLN_EXECUTE);
+			resMessage.setServiceName("cacheEviction");
+			resMessage.setSessionId(loadingSid);
+			resMessage.setCacheId(cacheId);
+			resMessage.setHeader(SCMPHeaderAttributeKey.CACHE_EXPIRATION_DATETIME, expirationDateTime);
+			resMessage.setBody(new byte[partLength]);
+			this.cache.cacheMessage(reqMessage, resMessage);
+		}
+	}
+
+	/**
+	 * Creates the request.
+	 *
+	 * @param cacheId the cache id
+	 * @param sessionId the session id
+	 * @param partNr the requested part number
+	 * @return the SCMP message
+	 */
+	private SCMPMessage createRequest(String cacheId, String sessionId, int partNr) {
+		SCMPMessage reqMessage = new SCMPMessage(SCMPVersion.CURRENT);
+		reqMessage.setMessageType(SCMPMsgType.CLN_EXECUTE);
+		reqMessage.setServiceName("cacheEviction");
+		reqMessage.setSessionId(sessionId);
+		reqMessage.setCacheId(cacheId);
+		reqMessage.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, 1);
+		reqMessage.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, partNr);
+		reqMessage.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, 60000);
+		return reqMessage;
+	}
+}
@@ -0,0 +1,263 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.serviceconnector.Constants;
+import org.serviceconnector.api.SCServiceException;
+import org.serviceconnector.api.cln.SCClient;
+import org.serviceconnector.api.cln.SCFileService;
+import org.serviceconnector.conf.RemoteNodeConfiguration;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.ConnectionType;
+import org.serviceconnector.net.req.SCRequester;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPVersion;
+
+/**
+ * The Class SCFileServiceTest. Tests resumable download of a local file against a requester replying ranges of a remote file.
+ */
+public class SCFileServiceTest extends SuperUnitTest {
+
+	/** The Constant RANGE_SIZE. */
+	private static final int RANGE_SIZE = 1000;
+
+	/** The requester. */
+	private TestRequester requester;
+	/** The file service. */
+	private SCFileService fileService;
+	/** The local file. */
+	private File localFile;
+	/** The checkpoint file. */
+	private File checkpointFile;
+
+	@Override
+	@Before
+	public void beforeOneTest() throws Exception {
+		super.beforeOneTest();
+		AppContext.init();
+		RemoteNodeConfiguration remoteNodeConfiguration = new RemoteNodeConfiguration("fileServiceTest", "localhost", 9000,
+				ConnectionType.NETTY_TCP.getValue(), 0, 0, 1);
+		this.requester = new TestRequester(remoteNodeConfiguration);
+		this.fileService = new TestClient(this.requester).newFileService("file-1");
+		this.fileService.setRangeSize(RANGE_SIZE);
+		this.fileService.setParallelism(1);
+		this.localFile = File.createTempFile("scFileServiceTest", ".dat");
+		this.checkpointFile = new File(this.localFile.getPath() + Constants.FILE_TRANSFER_CHECKPOINT_SUFFIX);
+	}
+
+	@Override
+	@After
+	public void afterOneTest() {
+		this.localFile.delete();
+		this.checkpointFile.delete();
+		this.requester.destroy();
+		AppContext.destroy();
+		super.afterOneTest();
+	}
+
+	/**
+	 * Description: Download of a file in ranges, the first range tells the file length<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_downloadTest() throws Exception {
+		this.requester.remoteFile = FileDownloadExchangeTest.createFile(2500);
+		this.fileService.downloadFile(10, "file", this.localFile);
+		Assert.assertEquals("[0, 1000, 2000]", this.requester.rangeOffsets.toString());
+		Assert.assertArrayEquals(this.requester.remoteFile, this.readLocalFile());
+		Assert.assertFalse(this.checkpointFile.exists());
+	}
+
+	/**
+	 * Description: Download resumed after a partial transfer requests the ranges not done only<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_resumeTest() throws Exception {
+		this.requester.remoteFile = FileDownloadExchangeTest.createFile(2500);
+		this.writeLocalFile(1000);
+		this.writeCheckpoint(2500, RANGE_SIZE, "0");
+		this.fileService.downloadFile(10, "file", this.localFile);
+		Assert.assertEquals("[1000, 2000]", this.requester.rangeOffsets.toString());
+		Assert.assertArrayEquals(this.requester.remoteFile, this.readLocalFile());
+		Assert.assertFalse(this.checkpointFile.exists());
+	}
+
+	/**
+	 * Description: Checkpoint of a different range size is ignored, the download restarts from the beginning<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_checkpointMismatchTest() throws Exception {
+		this.requester.remoteFile = FileDownloadExchangeTest.createFile(2500);
+		this.writeCheckpoint(2500, 2 * RANGE_SIZE, "0");
+		this.fileService.downloadFile(10, "file", this.localFile);
+		Assert.assertEquals("[0, 1000, 2000]", this.requester.rangeOffsets.toString());
+		Assert.assertArrayEquals(this.requester.remoteFile, this.readLocalFile());
+		Assert.assertFalse(this.checkpointFile.exists());
+	}
+
+	/**
+	 * Description: Remote file changed since the checkpoint fails the download and discards the checkpoint, download started again restarts
+	 * from the beginning<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_fileChangedTest() throws Exception {
+		this.requester.remoteFile = FileDownloadExchangeTest.createFile(2500);
+		this.writeLocalFile(1000);
+		this.writeCheckpoint(3000, RANGE_SIZE, "0");
+		try {
+			this.fileService.downloadFile(10, "file", this.localFile);
+			Assert.fail("download of changed file must fail");
+		} catch (SCServiceException e) {
+			// expected
+		}
+		Assert.assertFalse(this.checkpointFile.exists());
+		this.requester.rangeOffsets.clear();
+		this.fileService.downloadFile(10, "file", this.localFile);
+		Assert.assertEquals("[0, 1000, 2000]", this.requester.rangeOffsets.toString());
+		Assert.assertArrayEquals(this.requester.remoteFile, this.readLocalFile());
+	}
+
+	/**
+	 * Writes the beginning of the remote file to the local file.
+	 *
+	 * @param length the length
+	 * @throws Exception the exception
+	 */
+	private void writeLocalFile(int length) throws Exception {
+		OutputStream out = new FileOutputStream(this.localFile);
+		try {
+			out.write(this.requester.remoteFile, 0, length);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the checkpoint of an earlier download.
+	 *
+	 * @param fileLength the file length
+	 * @param rangeSize the range size
+	 * @param doneRanges the ranges done
+	 * @throws Exception the exception
+	 */
+	private void writeCheckpoint(long fileLength, int rangeSize, String doneRanges) throws Exception {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty("fileLength", String.valueOf(fileLength));
+		checkpoint.setProperty("rangeSize", String.valueOf(rangeSize));
+		checkpoint.setProperty("doneRanges", doneRanges);
+		OutputStream out = new FileOutputStream(this.checkpointFile);
+		try {
+			checkpoint.store(out, null);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the local file.
+	 *
+	 * @return the content
+	 * @throws Exception the exception
+	 */
+	private byte[] readLocalFile() throws Exception {
+		RandomAccessFile file = new RandomAccessFile(this.localFile, "r");
+		try {
+			byte[] content = new byte[(int) file.length()];
+			file.readFully(content);
+			return content;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * The Class TestRequester. Replies file sessions and ranges of the remote file instead of sending to SC.
+	 */
+	private static class TestRequester extends SCRequester {
+
+		/** The remote file. */
+		private volatile byte[] remoteFile;
+		/** The offsets of the ranges downloaded. */
+		private final List<Long> rangeOffsets = new ArrayList<Long>();
+
+		/**
+		 * Instantiates a new test requester.
+		 *
+		 * @param remoteNodeConfiguration the remote node configuration
+		 */
+		public TestRequester(RemoteNodeConfiguration remoteNodeConfiguration) {
+			super(remoteNodeConfiguration, 0);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void send(SCMPMessage message, int timeoutMillis, ISCMPMessageCallback scmpCallback) throws Exception {
+			SCMPMessage reply = new SCMPMessage(SCMPVersion.CURRENT);
+			reply.setIsReply(true);
+			if (SCMPMsgType.CLN_CREATE_SESSION.getValue().equals(message.getMessageType())) {
+				reply.setSessionId("session-1");
+			} else if (SCMPMsgType.FILE_DOWNLOAD.getValue().equals(message.getMessageType())) {
+				long offset = Long.parseLong(message.getHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET));
+				int length = message.getHeaderInt(SCMPHeaderAttributeKey.FILE_RANGE_LENGTH);
+				synchronized (this.rangeOffsets) {
+					this.rangeOffsets.add(offset);
+				}
+				byte[] range = new byte[(int) Math.max(0, Math.min(length, this.remoteFile.length - offset))];
+				System.arraycopy(this.remoteFile, (int) Math.min(offset, this.remoteFile.length), range, 0, range.length);
+				reply.setHeader(SCMPHeaderAttributeKey.FILE_RANGE_OFFSET, offset);
+				reply.setHeader(SCMPHeaderAttributeKey.FILE_LENGTH, this.remoteFile.length);
+				reply.setBody(range);
+			}
+			scmpCallback.receive(reply);
+		}
+	}
+
+	/**
+	 * The Class TestClient. Client attached without SC.
+	 */
+	private static class TestClient extends SCClient {
+
+		/**
+		 * Instantiates a new test client.
+		 *
+		 * @param requester the requester
+		 */
+		public TestClient(SCRequester requester) {
+			super("localhost", 9000, ConnectionType.NETTY_TCP);
+			this.requester = requester;
+			this.attached = true;
+		}
+	}
+}
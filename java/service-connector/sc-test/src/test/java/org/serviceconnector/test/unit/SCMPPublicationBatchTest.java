@@ -0,0 +1,213 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.registry.PublishMessageQueue;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
+import org.serviceconnector.scmp.SCMPVersion;
+import org.serviceconnector.service.SubscriptionMask;
+
+/**
+ * The Class SCMPPublicationBatchTest.
+ */
+public class SCMPPublicationBatchTest extends SuperUnitTest {
+
+	/**
+	 * Description: Receive publication without batch size gets a single message<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_NoBatchTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = this.createQueue(5);
+		SCMPMessage reply = SCMPPublicationBatch.createReply(this.createRequest(null, null), queue.getMessage("sid1"), queue);
+		Assert.assertFalse(SCMPPublicationBatch.isBatch(reply));
+		Assert.assertEquals("0", reply.getBody());
+		Assert.assertEquals("AAA", reply.getHeader(SCMPHeaderAttributeKey.MASK));
+		Assert.assertEquals("sid1", reply.getSessionId());
+		Assert.assertEquals("1", queue.getMessage("sid1").getBody());
+	}
+
+	/**
+	 * Description: Receive publication with batch size gets the queued messages in order up to the batch size<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_BatchSizeTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = this.createQueue(10);
+		SCMPMessage reply = SCMPPublicationBatch.createReply(this.createRequest(4, null), queue.getMessage("sid1"), queue);
+		Assert.assertTrue(SCMPPublicationBatch.isBatch(reply));
+		Assert.assertEquals(4, reply.getHeaderInt(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE).intValue());
+		List<SCMPMessage> publications = SCMPPublicationBatch.decode(reply);
+		Assert.assertEquals(4, publications.size());
+		for (int i = 0; i < publications.size(); i++) {
+			Assert.assertEquals(String.valueOf(i), publications.get(i).getBody());
+			Assert.assertEquals("AAA", publications.get(i).getHeader(SCMPHeaderAttributeKey.MASK));
+			Assert.assertEquals("info" + i, publications.get(i).getHeader(SCMPHeaderAttributeKey.MSG_INFO));
+		}
+		// next receive publication continues behind the batch
+		Assert.assertEquals("4", queue.getMessage("sid1").getBody());
+	}
+
+	/**
+	 * Description: Batch stops at the byte limit, message not fitting stays in queue<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_BatchBytesTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = this.createQueue(10);
+		SCMPMessage first = queue.getMessage("sid1");
+		int frameSize = SCMPPublicationBatch.getFrameSize(first);
+		SCMPMessage reply = SCMPPublicationBatch.createReply(this.createRequest(100, 3 * frameSize), first, queue);
+		List<SCMPMessage> publications = SCMPPublicationBatch.decode(reply);
+		Assert.assertEquals(3, publications.size());
+		Assert.assertTrue(reply.getBodyLength() <= 3 * frameSize);
+		Assert.assertEquals("3", queue.getMessage("sid1").getBody());
+	}
+
+	/**
+	 * Description: Parts of large messages are not batched<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_PartNotBatchedTest() throws Exception {
+		PublishMessageQueue<SCMPMessage> queue = this.createQueue(2);
+		SCMPPart part = new SCMPPart(SCMPVersion.CURRENT, false);
+		part.setHeader(SCMPHeaderAttributeKey.MASK, "AAA");
+		part.setBody("part");
+		queue.insert(part);
+		queue.insert(this.createMessage(3));
+		SCMPMessage reply = SCMPPublicationBatch.createReply(this.createRequest(10, null), queue.getMessage("sid1"), queue);
+		Assert.assertEquals(2, SCMPPublicationBatch.decode(reply).size());
+		reply = SCMPPublicationBatch.createReply(this.createRequest(10, null), queue.getMessage("sid1"), queue);
+		Assert.assertFalse(SCMPPublicationBatch.isBatch(reply));
+		Assert.assertTrue(reply.isPart());
+		Assert.assertEquals("part", reply.getBody());
+		Assert.assertEquals("3", queue.getMessage("sid1").getBody());
+	}
+
+	/**
+	 * Description: Publications encoded as publish batch request are decoded with their own mask and message info<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_PublishBatchTest() throws Exception {
+		List<SCMPMessage> publications = new ArrayList<SCMPMessage>();
+		for (int i = 0; i < 5; i++) {
+			SCMPMessage publication = this.createMessage(i);
+			publication.setHeader(SCMPHeaderAttributeKey.MASK, "AA" + i);
+			publications.add(publication);
+		}
+		SCMPMessage request = new SCMPMessage(SCMPVersion.LOWEST);
+		request.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE, publications.size());
+		request.setBody(SCMPPublicationBatch.encode(publications));
+		List<SCMPMessage> decoded = SCMPPublicationBatch.decode(request);
+		Assert.assertEquals(5, decoded.size());
+		for (int i = 0; i < decoded.size(); i++) {
+			Assert.assertFalse(decoded.get(i).isReply());
+			Assert.assertEquals("AA" + i, decoded.get(i).getHeader(SCMPHeaderAttributeKey.MASK));
+			Assert.assertEquals("info" + i, decoded.get(i).getHeader(SCMPHeaderAttributeKey.MSG_INFO));
+			Assert.assertEquals(String.valueOf(i), decoded.get(i).getBody());
+		}
+	}
+
+	/**
+	 * Description: Frame size is the encoded size of non ASCII header and body, compressed body is never sized below its encoding<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_FrameSizeTest() throws Exception {
+		SCMPMessage message = this.createMessage(0);
+		message.setHeader(SCMPHeaderAttributeKey.MSG_INFO, "info\u00e4\u20ac");
+		message.setBody("body\u00e4\u00f6\u00fc\u20ac");
+		Assert.assertEquals(SCMPPublicationBatch.encode(Collections.singletonList(message)).length, SCMPPublicationBatch.getFrameSize(message));
+
+		boolean scEnvironment = AppContext.isScEnvironment();
+		AppContext.setSCEnvironment(false);
+		try {
+			byte[] body = new byte[10000];
+			new Random(1).nextBytes(body);
+			SCMPMessage compressed = this.createMessage(1);
+			compressed.setHeaderFlag(SCMPHeaderAttributeKey.COMPRESSION);
+			compressed.setBody(body);
+			int encodedSize = SCMPPublicationBatch.encode(Collections.singletonList(compressed)).length;
+			Assert.assertTrue("encoded size=" + encodedSize + " exceeds frame size", encodedSize <= SCMPPublicationBatch.getFrameSize(compressed));
+		} finally {
+			AppContext.setSCEnvironment(scEnvironment);
+		}
+	}
+
+	/**
+	 * Creates a queue with one subscription sid1 and the given number of messages.
+	 *
+	 * @param nrOfMessages the number of messages
+	 * @return the publish message queue
+	 */
+	private PublishMessageQueue<SCMPMessage> createQueue(int nrOfMessages) {
+		PublishMessageQueue<SCMPMessage> queue = new PublishMessageQueue<SCMPMessage>();
+		queue.subscribe("sid1", new SubscriptionMask("AAA"), null);
+		for (int i = 0; i < nrOfMessages; i++) {
+			queue.insert(this.createMessage(i));
+		}
+		return queue;
+	}
+
+	/**
+	 * Creates the message.
+	 *
+	 * @param nr the number
+	 * @return the SCMP message
+	 */
+	private SCMPMessage createMessage(int nr) {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setHeader(SCMPHeaderAttributeKey.MASK, "AAA");
+		message.setHeader(SCMPHeaderAttributeKey.MSG_INFO, "info" + nr);
+		message.setBody(String.valueOf(nr));
+		return message;
+	}
+
+	/**
+	 * Creates the receive publication request.
+	 *
+	 * @param batchSize the batch size
+	 * @param batchBytes the batch bytes
+	 * @return the SCMP message
+	 */
+	private SCMPMessage createRequest(Integer batchSize, Integer batchBytes) {
+		SCMPMessage request = new SCMPMessage(SCMPVersion.CURRENT);
+		request.setMessageType(SCMPMsgType.RECEIVE_PUBLICATION);
+		request.setSessionId("sid1");
+		if (batchSize != null) {
+			request.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_SIZE, batchSize);
+		}
+		if (batchBytes != null) {
+			request.setHeader(SCMPHeaderAttributeKey.PUBLICATION_BATCH_BYTES, batchBytes);
+		}
+		return request;
+	}
+}
@@ -0,0 +1,151 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.net.res.IWindowedPart;
+import org.serviceconnector.net.res.SCMPWindowedPartSequencer;
+
+/**
+ * The Class SCMPWindowedPartSequencerTest.
+ */
+public class SCMPWindowedPartSequencerTest extends SuperUnitTest {
+
+	/** The processed parts. */
+	private final List<Integer> processedParts = new ArrayList<Integer>();
+
+	/** The discarded parts. */
+	private final List<Integer> discardedParts = new ArrayList<Integer>();
+
+	/** The executor running waiting parts in the calling thread. */
+	private final Executor executor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	/**
+	 * Description: Parts arriving ahead of their predecessor are processed in sequence after the predecessor completed<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_SequenceTest() throws Exception {
+		SCMPWindowedPartSequencer sequencer = new SCMPWindowedPartSequencer(this.executor);
+		Assert.assertTrue(sequencer.offer("sid", 1, this.createPart(1)));
+		sequencer.complete("sid", 1, false);
+		// part 3 overtakes part 2
+		Assert.assertFalse(sequencer.offer("sid", 3, this.createPart(3)));
+		Assert.assertFalse(sequencer.offer("sid", 4, this.createPart(4)));
+		Assert.assertTrue(sequencer.offer("sid", 2, this.createPart(2)));
+		Assert.assertTrue(this.processedParts.isEmpty());
+		sequencer.complete("sid", 2, false);
+		Assert.assertEquals(1, this.processedParts.size());
+		Assert.assertEquals(3, this.processedParts.get(0).intValue());
+		// part 4 waits until part 3 completed
+		sequencer.complete("sid", 3, false);
+		Assert.assertEquals(2, this.processedParts.size());
+		Assert.assertEquals(4, this.processedParts.get(1).intValue());
+		sequencer.complete("sid", 4, false);
+		Assert.assertTrue(sequencer.offer("sid", 5, this.createPart(5)));
+		sequencer.complete("sid", 5, true);
+		Assert.assertEquals(0, sequencer.getSequenceCount());
+		Assert.assertTrue(this.discardedParts.isEmpty());
+	}
+
+	/**
+	 * Description: Aborted sequence discards waiting parts and parts arriving late, first part starts a new sequence<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_AbortTest() throws Exception {
+		SCMPWindowedPartSequencer sequencer = new SCMPWindowedPartSequencer(this.executor);
+		Assert.assertTrue(sequencer.offer("sid", 1, this.createPart(1)));
+		sequencer.complete("sid", 1, false);
+		Assert.assertTrue(sequencer.offer("sid", 2, this.createPart(2)));
+		Assert.assertFalse(sequencer.offer("sid", 3, this.createPart(3)));
+		// fault reply of part 2 aborts, waiting part 3 gets replied as discarded
+		sequencer.abort("sid");
+		Assert.assertEquals(1, this.discardedParts.size());
+		Assert.assertEquals(3, this.discardedParts.get(0).intValue());
+		sequencer.complete("sid", 2, false);
+		// late part gets replied as discarded
+		Assert.assertFalse(sequencer.offer("sid", 4, this.createPart(4)));
+		Assert.assertEquals(2, this.discardedParts.size());
+		Assert.assertEquals(4, this.discardedParts.get(1).intValue());
+		Assert.assertTrue(this.processedParts.isEmpty());
+		Assert.assertEquals(0, sequencer.getSequenceCount());
+
+		// new sequence of the session, out of window part is discarded
+		Assert.assertTrue(sequencer.offer("sid", 1, this.createPart(1)));
+		sequencer.complete("sid", 1, false);
+		Assert.assertFalse(sequencer.offer("sid", 1000, this.createPart(1000)));
+		Assert.assertEquals(3, this.discardedParts.size());
+		Assert.assertEquals(1000, this.discardedParts.get(2).intValue());
+		Assert.assertTrue(sequencer.offer("sid", 2, this.createPart(2)));
+		sequencer.complete("sid", 2, false);
+		Assert.assertTrue(this.processedParts.isEmpty());
+		// other session is independent
+		Assert.assertTrue(sequencer.offer("sid2", 1, this.createPart(1)));
+		Assert.assertEquals(2, sequencer.getSequenceCount());
+		Assert.assertEquals(3, this.discardedParts.size());
+	}
+
+	/**
+	 * Description: First part restarts the sequence of a session, waiting parts of the old sequence are discarded<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_RestartTest() throws Exception {
+		SCMPWindowedPartSequencer sequencer = new SCMPWindowedPartSequencer(this.executor);
+		Assert.assertTrue(sequencer.offer("sid", 1, this.createPart(1)));
+		Assert.assertFalse(sequencer.offer("sid", 2, this.createPart(2)));
+		Assert.assertFalse(sequencer.offer("sid", 3, this.createPart(3)));
+		Assert.assertTrue(sequencer.offer("sid", 1, this.createPart(1)));
+		Assert.assertEquals(2, this.discardedParts.size());
+		Assert.assertTrue(this.discardedParts.contains(2));
+		Assert.assertTrue(this.discardedParts.contains(3));
+		sequencer.complete("sid", 1, false);
+		Assert.assertTrue(this.processedParts.isEmpty());
+		Assert.assertEquals(1, sequencer.getSequenceCount());
+	}
+
+	/**
+	 * Creates the part recording whether it has been processed or discarded.
+	 *
+	 * @param partNr the part number
+	 * @return the windowed part
+	 */
+	private IWindowedPart createPart(final int partNr) {
+		return new IWindowedPart() {
+			@Override
+			public void process() {
+				SCMPWindowedPartSequencerTest.this.processedParts.add(partNr);
+			}
+
+			@Override
+			public void discard() {
+				SCMPWindowedPartSequencerTest.this.discardedParts.add(partNr);
+			}
+		};
+	}
+}
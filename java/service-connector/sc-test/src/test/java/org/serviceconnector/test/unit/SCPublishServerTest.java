@@ -0,0 +1,400 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.serviceconnector.Constants;
+import org.serviceconnector.api.SCPublishMessage;
+import org.serviceconnector.api.SCServiceException;
+import org.serviceconnector.api.srv.ISCPublishCompletionCallback;
+import org.serviceconnector.api.srv.SCPublishServer;
+import org.serviceconnector.api.srv.SCServer;
+import org.serviceconnector.conf.RemoteNodeConfiguration;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.ConnectionType;
+import org.serviceconnector.net.req.SCRequester;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPError;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMessageFault;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPPublicationBatch;
+import org.serviceconnector.scmp.SCMPVersion;
+
+/**
+ * The Class SCPublishServerTest. Tests asynchronous publishing of SCPublishServer against a requester replying on demand.
+ */
+public class SCPublishServerTest extends SuperUnitTest {
+
+	/** The requester. */
+	private TestRequester requester;
+	/** The publish server. */
+	private TestPublishServer publishServer;
+	/** The completion callback. */
+	private TestCompletionCallback completionCallback;
+
+	@Override
+	@Before
+	public void beforeOneTest() throws Exception {
+		super.beforeOneTest();
+		AppContext.init();
+		RemoteNodeConfiguration remoteNodeConfiguration = new RemoteNodeConfiguration("publishServerTest", "localhost", 9000,
+				ConnectionType.NETTY_TCP.getValue(), 0, 0, 1);
+		this.requester = new TestRequester(remoteNodeConfiguration);
+		this.publishServer = new TestPublishServer(new SCServer("localhost", 9000, 9001), "publish-1", this.requester);
+		this.completionCallback = new TestCompletionCallback();
+	}
+
+	@Override
+	@After
+	public void afterOneTest() {
+		this.requester.destroy();
+		AppContext.destroy();
+		super.afterOneTest();
+	}
+
+	/**
+	 * Description: Messages published while a publication is in flight are sent together in one batch in publish order, the next send does not run on the
+	 * reply thread<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_publishOrderTest() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			this.publishServer.publishAsync(new SCPublishMessage(String.valueOf(i)), this.completionCallback);
+		}
+		Sent first = this.requester.takeSent();
+		Assert.assertEquals(SCMPMsgType.PUBLISH.getValue(), first.message.getMessageType());
+		Assert.assertEquals("0", first.message.getBody());
+		Assert.assertEquals(5, this.publishServer.getPendingPublicationsCount());
+
+		first.callback.receive(this.createReply());
+		Sent second = this.requester.takeSent();
+		Assert.assertNotSame(Thread.currentThread(), second.thread);
+		Assert.assertEquals(SCMPMsgType.PUBLISH_BATCH.getValue(), second.message.getMessageType());
+		List<SCMPMessage> publications = SCMPPublicationBatch.decode(second.message);
+		Assert.assertEquals(4, publications.size());
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals(String.valueOf(i + 1), publications.get(i).getBody());
+		}
+		second.callback.receive(this.createReply());
+		this.completionCallback.await(5);
+		Assert.assertEquals(0, this.publishServer.getPendingPublicationsCount());
+		Assert.assertNull(this.requester.pollSent());
+	}
+
+	/**
+	 * Description: Completions are informed in publish order, failed publications do not stop the following ones<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_completionOrderTest() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			this.publishServer.publishAsync(new SCPublishMessage(String.valueOf(i)), this.completionCallback);
+		}
+		Sent first = this.requester.takeSent();
+		first.callback.receive(new SCMPMessageFault(SCMPVersion.LOWEST, SCMPError.SERVER_ERROR, "publish failed"));
+		Sent second = this.requester.takeSent();
+		second.callback.receive(this.createReply());
+		List<String> completions = this.completionCallback.await(3);
+		Assert.assertEquals("failed:0:" + SCMPError.SERVER_ERROR.getErrorCode(), completions.get(0));
+		Assert.assertEquals("completed:1", completions.get(1));
+		Assert.assertEquals("completed:2", completions.get(2));
+	}
+
+	/**
+	 * Description: Sending fails synchronously, publications in flight fail and the following pending publications are sent<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_sendFailureTest() throws Exception {
+		this.requester.failSend = true;
+		this.publishServer.publishAsync(new SCPublishMessage("0"), this.completionCallback);
+		Assert.assertEquals("failed:0", this.completionCallback.await(1).get(0));
+		Assert.assertEquals(0, this.publishServer.getPendingPublicationsCount());
+
+		this.requester.failSend = false;
+		this.publishServer.publishAsync(new SCPublishMessage("1"), this.completionCallback);
+		Sent first = this.requester.takeSent();
+		// large message is sent alone, the failing sends are completed in a loop
+		SCPublishMessage largeMessage = new SCPublishMessage(new byte[Constants.DEFAULT_MESSAGE_PART_SIZE + 1]);
+		this.publishServer.publishAsync(new SCPublishMessage("2"), this.completionCallback);
+		this.publishServer.publishAsync(largeMessage, this.completionCallback);
+		this.publishServer.publishAsync(new SCPublishMessage("3"), this.completionCallback);
+		this.requester.failSend = true;
+		first.callback.receive(this.createReply());
+		List<String> completions = this.completionCallback.await(5);
+		Assert.assertEquals("completed:1", completions.get(1));
+		Assert.assertEquals("failed:2", completions.get(2));
+		Assert.assertEquals("failed:large", completions.get(3));
+		Assert.assertEquals("failed:3", completions.get(4));
+		Assert.assertEquals(0, this.publishServer.getPendingPublicationsCount());
+	}
+
+	/**
+	 * Description: Maximum number of pending publications reached, publishAsync waits for a free slot up to the operation timeout<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_pendingPublicationsTimeoutTest() throws Exception {
+		for (int i = 0; i < Constants.DEFAULT_MAX_PENDING_PUBLICATIONS; i++) {
+			this.publishServer.publishAsync(new SCPublishMessage(String.valueOf(i)), this.completionCallback);
+		}
+		long start = System.currentTimeMillis();
+		try {
+			this.publishServer.publishAsync(1, new SCPublishMessage("timeout"), this.completionCallback);
+			Assert.fail("SCServiceException expected");
+		} catch (SCServiceException ex) {
+			// expected
+		}
+		long waited = System.currentTimeMillis() - start;
+		Assert.assertTrue("waited=" + waited, waited >= 900);
+		Assert.assertEquals(Constants.DEFAULT_MAX_PENDING_PUBLICATIONS, this.publishServer.getPendingPublicationsCount());
+		// completion frees the slots
+		this.requester.takeSent().callback.receive(this.createReply());
+		this.publishServer.publishAsync(1, new SCPublishMessage("free"), this.completionCallback);
+	}
+
+	/**
+	 * Description: SC not knowing publish batches rejects the batch, publications are sent again by single publish calls in publish order<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_publicationBatchRejectedTest() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			this.publishServer.publishAsync(new SCPublishMessage(String.valueOf(i)), this.completionCallback);
+		}
+		this.requester.takeSent().callback.receive(this.createReply());
+		Sent batch = this.requester.takeSent();
+		Assert.assertEquals(SCMPMsgType.PUBLISH_BATCH.getValue(), batch.message.getMessageType());
+		SCMPMessageFault rejected = new SCMPMessageFault(SCMPVersion.LOWEST, SCMPError.SERVER_ERROR, "key=UNDEFINED not found!");
+		rejected.setMessageType(SCMPMsgType.UNDEFINED);
+		batch.callback.receive(rejected);
+		for (int i = 1; i < 3; i++) {
+			Sent single = this.requester.takeSent();
+			Assert.assertEquals(SCMPMsgType.PUBLISH.getValue(), single.message.getMessageType());
+			Assert.assertEquals(String.valueOf(i), single.message.getBody());
+			if (i == 1) {
+				// publications queued meanwhile are sent by publish calls too
+				this.publishServer.publishAsync(new SCPublishMessage("3"), this.completionCallback);
+				this.publishServer.publishAsync(new SCPublishMessage("4"), this.completionCallback);
+			}
+			single.callback.receive(this.createReply());
+		}
+		for (int i = 3; i < 5; i++) {
+			Sent single = this.requester.takeSent();
+			Assert.assertEquals(SCMPMsgType.PUBLISH.getValue(), single.message.getMessageType());
+			single.callback.receive(this.createReply());
+		}
+		List<String> completions = this.completionCallback.await(5);
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals("completed:" + i, completions.get(i));
+		}
+	}
+
+	/**
+	 * Description: Publish batch fails on SC, publications fail and are not sent again, following publications are still sent in batches<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_publicationBatchFailedTest() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			this.publishServer.publishAsync(new SCPublishMessage(String.valueOf(i)), this.completionCallback);
+		}
+		Sent first = this.requester.takeSent();
+		first.callback.receive(this.createReply());
+		Sent batch = this.requester.takeSent();
+		for (int i = 3; i < 5; i++) {
+			this.publishServer.publishAsync(new SCPublishMessage(String.valueOf(i)), this.completionCallback);
+		}
+		SCMPMessageFault fault = new SCMPMessageFault(SCMPVersion.LOWEST, SCMPError.SERVER_ERROR, "publish failed");
+		fault.setMessageType(SCMPMsgType.PUBLISH_BATCH);
+		batch.callback.receive(fault);
+		Sent nextBatch = this.requester.takeSent();
+		Assert.assertEquals(SCMPMsgType.PUBLISH_BATCH.getValue(), nextBatch.message.getMessageType());
+		List<SCMPMessage> publications = SCMPPublicationBatch.decode(nextBatch.message);
+		Assert.assertEquals(2, publications.size());
+		Assert.assertEquals("3", publications.get(0).getBody());
+		nextBatch.callback.receive(this.createReply());
+		List<String> completions = this.completionCallback.await(5);
+		Assert.assertEquals("completed:0", completions.get(0));
+		Assert.assertEquals("failed:1:" + SCMPError.SERVER_ERROR.getErrorCode(), completions.get(1));
+		Assert.assertEquals("failed:2:" + SCMPError.SERVER_ERROR.getErrorCode(), completions.get(2));
+		Assert.assertEquals("completed:3", completions.get(3));
+		Assert.assertEquals("completed:4", completions.get(4));
+		Assert.assertNull(this.requester.pollSent());
+	}
+
+	/**
+	 * Creates the reply of SC.
+	 *
+	 * @return the SCMP message
+	 */
+	private SCMPMessage createReply() {
+		SCMPMessage reply = new SCMPMessage(SCMPVersion.LOWEST);
+		reply.setIsReply(true);
+		return reply;
+	}
+
+	/**
+	 * The Class Sent. Message sent by the requester.
+	 */
+	private static class Sent {
+
+		/** The message. */
+		private final SCMPMessage message;
+		/** The callback. */
+		private final ISCMPMessageCallback callback;
+		/** The sending thread. */
+		private final Thread thread;
+
+		/**
+		 * Instantiates a new sent.
+		 *
+		 * @param message the message
+		 * @param callback the callback
+		 */
+		public Sent(SCMPMessage message, ISCMPMessageCallback callback) {
+			this.message = message;
+			this.callback = callback;
+			this.thread = Thread.currentThread();
+		}
+	}
+
+	/**
+	 * The Class TestRequester. Records sent messages instead of sending them to SC.
+	 */
+	private static class TestRequester extends SCRequester {
+
+		/** The sent messages. */
+		private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<Sent>();
+		/** The fail send flag, sending throws if set. */
+		private volatile boolean failSend = false;
+
+		/**
+		 * Instantiates a new test requester.
+		 *
+		 * @param remoteNodeConfiguration the remote node configuration
+		 */
+		public TestRequester(RemoteNodeConfiguration remoteNodeConfiguration) {
+			super(remoteNodeConfiguration, 0);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void send(SCMPMessage message, int timeoutMillis, ISCMPMessageCallback scmpCallback) throws Exception {
+			if (this.failSend) {
+				throw new IllegalStateException("send failed");
+			}
+			this.sent.add(new Sent(message, scmpCallback));
+		}
+
+		/**
+		 * Takes the next sent message.
+		 *
+		 * @return the sent
+		 * @throws Exception the exception
+		 */
+		public Sent takeSent() throws Exception {
+			Sent next = this.sent.poll(10, TimeUnit.SECONDS);
+			Assert.assertNotNull("nothing sent", next);
+			return next;
+		}
+
+		/**
+		 * Polls the next sent message.
+		 *
+		 * @return the sent, null if nothing sent
+		 * @throws Exception the exception
+		 */
+		public Sent pollSent() throws Exception {
+			return this.sent.poll(200, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * The Class TestPublishServer. Publish server registered without SC.
+	 */
+	private static class TestPublishServer extends SCPublishServer {
+
+		/**
+		 * Instantiates a new test publish server.
+		 *
+		 * @param scServer the SC server
+		 * @param serviceName the service name
+		 * @param requester the requester
+		 */
+		public TestPublishServer(SCServer scServer, String serviceName, SCRequester requester) {
+			super(scServer, serviceName, requester);
+			this.registered = true;
+		}
+	}
+
+	/**
+	 * The Class TestCompletionCallback. Records completions in the order they are informed.
+	 */
+	private static class TestCompletionCallback implements ISCPublishCompletionCallback {
+
+		/** The completions. */
+		private final List<String> completions = new ArrayList<String>();
+
+		/** {@inheritDoc} */
+		@Override
+		public synchronized void completed(SCPublishMessage publishMessage) {
+			this.completions.add("completed:" + publishMessage.getData());
+			this.notifyAll();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public synchronized void failed(SCPublishMessage publishMessage, SCServiceException ex) {
+			Object data = publishMessage.getData();
+			String text = data instanceof String ? (String) data : "large";
+			if (ex.getCause() == null) {
+				// fault reply of SC
+				text += ":" + ex.getSCErrorCode();
+			}
+			this.completions.add("failed:" + text);
+			this.notifyAll();
+		}
+
+		/**
+		 * Waits for the completions.
+		 *
+		 * @param count the expected count of completions
+		 * @return the completions in informed order
+		 * @throws Exception the exception
+		 */
+		public synchronized List<String> await(int count) throws Exception {
+			long deadline = System.currentTimeMillis() + 10000;
+			while (this.completions.size() < count && System.currentTimeMillis() < deadline) {
+				this.wait(100);
+			}
+			Assert.assertEquals(count, this.completions.size());
+			return new ArrayList<String>(this.completions);
+		}
+	}
+}
@@ -0,0 +1,458 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Class ScriptedWebServer. Web server for unit tests of web clients. Requests are recorded, each request is answered by the next scripted
+ * response. Connections are kept alive until a scripted response closes them.
+ */
+public class ScriptedWebServer {
+
+	/** The Constant CRLF. */
+	private static final String CRLF = "\r\n";
+	/** The Constant CHARSET. */
+	private static final String CHARSET = "ISO-8859-1";
+
+	/** The server socket. */
+	private ServerSocket serverSocket;
+	/** The scripted responses. */
+	private BlockingQueue<Response> responses;
+	/** The received requests. */
+	private BlockingQueue<Request> requests;
+	/** The accepted connections count. */
+	private AtomicInteger connectionsCount;
+	/** The open sockets. */
+	private List<Socket> sockets;
+
+	/**
+	 * Instantiates and starts a new scripted web server on a free port of the loopback interface.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public ScriptedWebServer() throws IOException {
+		this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+		this.responses = new LinkedBlockingQueue<Response>();
+		this.requests = new LinkedBlockingQueue<Request>();
+		this.connectionsCount = new AtomicInteger();
+		this.sockets = new CopyOnWriteArrayList<Socket>();
+		Thread acceptThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				ScriptedWebServer.this.accept();
+			}
+		}, "ScriptedWebServer");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	/**
+	 * Gets the port.
+	 *
+	 * @return the port
+	 */
+	public int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Adds the response for the next request.
+	 *
+	 * @param response the response
+	 */
+	public void addResponse(Response response) {
+		this.responses.add(response);
+	}
+
+	/**
+	 * Takes the next received request.
+	 *
+	 * @return the request, null if no request has been received within 5 seconds
+	 * @throws InterruptedException the interrupted exception
+	 */
+	public Request takeRequest() throws InterruptedException {
+		return this.requests.poll(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Gets the number of accepted connections.
+	 *
+	 * @return the connections count
+	 */
+	public int getConnectionsCount() {
+		return this.connectionsCount.get();
+	}
+
+	/**
+	 * Stops the server, all connections are closed.
+	 */
+	public void stop() {
+		try {
+			this.serverSocket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		for (Socket socket : this.sockets) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Accepts connections, each connection is served by its own thread.
+	 */
+	private void accept() {
+		while (this.serverSocket.isClosed() == false) {
+			try {
+				final Socket socket = this.serverSocket.accept();
+				this.connectionsCount.incrementAndGet();
+				this.sockets.add(socket);
+				Thread connectionThread = new Thread(new Runnable() {
+
+					@Override
+					public void run() {
+						ScriptedWebServer.this.serve(socket);
+					}
+				}, "ScriptedWebServerConnection");
+				connectionThread.setDaemon(true);
+				connectionThread.start();
+			} catch (IOException e) {
+				// server socket closed
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Serves the requests of a connection.
+	 *
+	 * @param socket the socket
+	 */
+	private void serve(Socket socket) {
+		try {
+			InputStream in = socket.getInputStream();
+			OutputStream out = socket.getOutputStream();
+			while (true) {
+				Request request = this.readHead(in);
+				if (request == null) {
+					// connection closed by client
+					break;
+				}
+				Response response = this.responses.poll(5, TimeUnit.SECONDS);
+				if (response == null) {
+					break;
+				}
+				if (response.early) {
+					// response is written before the body of the request has been read
+					out.write(response.bytes);
+					out.flush();
+				}
+				this.readBody(in, request);
+				this.requests.add(request);
+				if (response.early == false) {
+					out.write(response.bytes);
+					out.flush();
+				}
+				if (response.close) {
+					break;
+				}
+			}
+		} catch (Exception e) {
+			// connection broken
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+			this.sockets.remove(socket);
+		}
+	}
+
+	/**
+	 * Reads the head of a request.
+	 *
+	 * @param in the input stream
+	 * @return the request, null if connection has been closed
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private Request readHead(InputStream in) throws IOException {
+		String requestLine = ScriptedWebServer.readLine(in);
+		if (requestLine == null) {
+			return null;
+		}
+		String[] tokens = requestLine.split(" ");
+		Request request = new Request(tokens[0], tokens[1]);
+		String line = ScriptedWebServer.readLine(in);
+		while (line != null && line.length() > 0) {
+			int colon = line.indexOf(':');
+			request.headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+			line = ScriptedWebServer.readLine(in);
+		}
+		return request;
+	}
+
+	/**
+	 * Reads the body of a request, chunked or of content length.
+	 *
+	 * @param in the input stream
+	 * @param request the request
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void readBody(InputStream in, Request request) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		if ("chunked".equalsIgnoreCase(request.getHeader("transfer-encoding"))) {
+			int chunkSize = Integer.parseInt(ScriptedWebServer.readLine(in).trim(), 16);
+			while (chunkSize > 0) {
+				ScriptedWebServer.readFully(in, body, chunkSize);
+				ScriptedWebServer.readLine(in);
+				chunkSize = Integer.parseInt(ScriptedWebServer.readLine(in).trim(), 16);
+			}
+			// trailer ends with an empty line
+			ScriptedWebServer.readLine(in);
+		} else if (request.getHeader("content-length") != null) {
+			ScriptedWebServer.readFully(in, body, Integer.parseInt(request.getHeader("content-length")));
+		}
+		request.body = body.toByteArray();
+	}
+
+	/**
+	 * Reads a line terminated by CRLF.
+	 *
+	 * @param in the input stream
+	 * @return the line, null if the stream ended
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int b = in.read();
+		while (b >= 0 && b != '\n') {
+			if (b != '\r') {
+				sb.append((char) b);
+			}
+			b = in.read();
+		}
+		if (b < 0 && sb.length() == 0) {
+			return null;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Reads the given number of bytes.
+	 *
+	 * @param in the input stream
+	 * @param out the output stream
+	 * @param length the length
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void readFully(InputStream in, OutputStream out, int length) throws IOException {
+		for (int i = 0; i < length; i++) {
+			int b = in.read();
+			if (b < 0) {
+				throw new IOException("stream ended");
+			}
+			out.write(b);
+		}
+	}
+
+	/**
+	 * The Class Request. Request received by the web server.
+	 */
+	public static class Request {
+
+		/** The method. */
+		private String method;
+		/** The uri. */
+		private String uri;
+		/** The headers, names in lower case. */
+		private Map<String, String> headers;
+		/** The body. */
+		private byte[] body;
+
+		/**
+		 * Instantiates a new request.
+		 *
+		 * @param method the method
+		 * @param uri the uri
+		 */
+		private Request(String method, String uri) {
+			this.method = method;
+			this.uri = uri;
+			this.headers = new HashMap<String, String>();
+			this.body = new byte[0];
+		}
+
+		/**
+		 * Gets the method.
+		 *
+		 * @return the method
+		 */
+		public String getMethod() {
+			return this.method;
+		}
+
+		/**
+		 * Gets the uri.
+		 *
+		 * @return the uri
+		 */
+		public String getUri() {
+			return this.uri;
+		}
+
+		/**
+		 * Gets the header.
+		 *
+		 * @param name the name
+		 * @return the header value, null if header is missing
+		 */
+		public String getHeader(String name) {
+			return this.headers.get(name.toLowerCase());
+		}
+
+		/**
+		 * Gets the body.
+		 *
+		 * @return the body
+		 */
+		public byte[] getBody() {
+			return this.body;
+		}
+	}
+
+	/**
+	 * The Class Response. Scripted response of the web server.
+	 */
+	public static class Response {
+
+		/** The bytes written. */
+		private byte[] bytes;
+		/** The close flag, connection is closed after the response. */
+		private boolean close;
+		/** The early flag, response is written before the body of the request has been read. */
+		private boolean early;
+
+		/**
+		 * Instantiates a new response.
+		 *
+		 * @param bytes the bytes
+		 * @param close the close flag
+		 * @param early the early flag
+		 */
+		private Response(byte[] bytes, boolean close, boolean early) {
+			this.bytes = bytes;
+			this.close = close;
+			this.early = early;
+		}
+
+		/**
+		 * Creates a response with a content length.
+		 *
+		 * @param status the status line, e.g. "200 OK"
+		 * @param body the body
+		 * @param keepAlive the keep alive flag, connection is closed after the response if false
+		 * @param extraHeaders additional header lines, e.g. "Content-Range: bytes 0-9/100"
+		 * @return the response
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		public static Response fixed(String status, byte[] body, boolean keepAlive, String... extraHeaders) throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			out.write(Response.head(status, keepAlive, extraHeaders).append("Content-Length: ").append(body.length).append(CRLF).append(CRLF)
+					.toString().getBytes(CHARSET));
+			out.write(body);
+			return new Response(out.toByteArray(), keepAlive == false, false);
+		}
+
+		/**
+		 * Creates a chunked response.
+		 *
+		 * @param status the status line, e.g. "200 OK"
+		 * @param keepAlive the keep alive flag, connection is closed after the response if false
+		 * @param chunks the chunks
+		 * @return the response
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		public static Response chunked(String status, boolean keepAlive, byte[]... chunks) throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			out.write(Response.head(status, keepAlive).append("Transfer-Encoding: chunked").append(CRLF).append(CRLF).toString().getBytes(CHARSET));
+			for (byte[] chunk : chunks) {
+				out.write((Integer.toHexString(chunk.length) + CRLF).getBytes(CHARSET));
+				out.write(chunk);
+				out.write(CRLF.getBytes(CHARSET));
+			}
+			out.write(("0" + CRLF + CRLF).getBytes(CHARSET));
+			return new Response(out.toByteArray(), keepAlive == false, false);
+		}
+
+		/**
+		 * Creates a response closing the connection without writing anything.
+		 *
+		 * @return the response
+		 */
+		public static Response close() {
+			return new Response(new byte[0], true, false);
+		}
+
+		/**
+		 * Creates a response written before the body of the request has been read.
+		 *
+		 * @param response the response
+		 * @return the response written early
+		 */
+		public static Response early(Response response) {
+			return new Response(response.bytes, response.close, true);
+		}
+
+		/**
+		 * Creates the head of a response.
+		 *
+		 * @param status the status
+		 * @param keepAlive the keep alive flag
+		 * @param extraHeaders the extra headers
+		 * @return the string builder holding the head without terminating line
+		 */
+		private static StringBuilder head(String status, boolean keepAlive, String... extraHeaders) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("HTTP/1.1 ").append(status).append(CRLF);
+			sb.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append(CRLF);
+			for (String header : extraHeaders) {
+				sb.append(header).append(CRLF);
+			}
+			return sb;
+		}
+	}
+}
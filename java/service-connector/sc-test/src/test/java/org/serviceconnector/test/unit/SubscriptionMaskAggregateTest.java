@@ -0,0 +1,132 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.service.InvalidMaskLengthException;
+import org.serviceconnector.service.SubscriptionMask;
+import org.serviceconnector.service.SubscriptionMaskAggregate;
+
+/**
+ * The Class SubscriptionMaskAggregateTest.
+ */
+public class SubscriptionMaskAggregateTest extends SuperUnitTest {
+
+	/**
+	 * Description: Add and remove masks, aggregate keeps characters all masks agree on<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_AddRemoveTest() throws Exception {
+		SubscriptionMaskAggregate aggregate = new SubscriptionMaskAggregate();
+		Assert.assertNull(aggregate.getValue());
+		SubscriptionMask mask1 = new SubscriptionMask("ABC-DE");
+		SubscriptionMask mask2 = new SubscriptionMask("ABX-D%");
+		SubscriptionMask mask3 = new SubscriptionMask("AYC-DE");
+		aggregate.add(mask1);
+		Assert.assertEquals("ABC-DE", aggregate.getValue());
+		aggregate.add(mask2);
+		Assert.assertEquals("AB%-D%", aggregate.getValue());
+		aggregate.add(mask3);
+		Assert.assertEquals("A%%-D%", aggregate.getValue());
+		aggregate.remove(mask2);
+		Assert.assertEquals("A%C-DE", aggregate.getValue());
+		aggregate.remove(mask3);
+		Assert.assertEquals("ABC-DE", aggregate.getValue());
+		Assert.assertEquals(1, aggregate.size());
+		aggregate.remove(mask1);
+		Assert.assertNull(aggregate.getValue());
+		Assert.assertEquals(0, aggregate.size());
+	}
+
+	/**
+	 * Description: Random adds and removes give the same mask as folding the remaining masks<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_CompareWithMaskingTest() throws Exception {
+		Random random = new Random(4711);
+		SubscriptionMaskAggregate aggregate = new SubscriptionMaskAggregate();
+		List<SubscriptionMask> masks = new ArrayList<SubscriptionMask>();
+		for (int i = 0; i < 2000; i++) {
+			if (masks.isEmpty() == false && random.nextInt(3) == 0) {
+				aggregate.remove(masks.remove(random.nextInt(masks.size())));
+			} else {
+				SubscriptionMask mask = this.createMask(random, 8);
+				masks.add(mask);
+				aggregate.add(mask);
+			}
+			Assert.assertEquals(this.fold(masks), aggregate.getValue());
+		}
+	}
+
+	/**
+	 * Description: Mask with different length gets rejected, aggregate unchanged<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_InvalidLengthTest() throws Exception {
+		SubscriptionMaskAggregate aggregate = new SubscriptionMaskAggregate();
+		aggregate.add(new SubscriptionMask("AAA"));
+		try {
+			aggregate.add(new SubscriptionMask("AAAA"));
+			Assert.fail("InvalidMaskLengthException expected");
+		} catch (InvalidMaskLengthException e) {
+			// expected
+		}
+		Assert.assertEquals("AAA", aggregate.getValue());
+		Assert.assertEquals(1, aggregate.size());
+	}
+
+	/**
+	 * Creates a random mask of the characters A, B and %.
+	 *
+	 * @param random the random
+	 * @param length the length
+	 * @return the subscription mask
+	 */
+	private SubscriptionMask createMask(Random random, int length) {
+		char[] mask = new char[length];
+		for (int i = 0; i < length; i++) {
+			mask[i] = "AB%".charAt(random.nextInt(3));
+		}
+		return new SubscriptionMask(new String(mask));
+	}
+
+	/**
+	 * Folds the masks with SubscriptionMask.masking.
+	 *
+	 * @param masks the masks
+	 * @return the combined mask, null if no mask
+	 */
+	private String fold(List<SubscriptionMask> masks) throws Exception {
+		byte[] baseMask = null;
+		for (SubscriptionMask mask : masks) {
+			if (baseMask == null) {
+				baseMask = mask.getBytes().clone();
+				continue;
+			}
+			baseMask = SubscriptionMask.masking(baseMask, mask.getBytes());
+		}
+		return baseMask == null ? null : new String(baseMask);
+	}
+}
@@ -0,0 +1,118 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.service.SubscriptionMask;
+import org.serviceconnector.service.SubscriptionMaskIndex;
+
+/**
+ * The Class SubscriptionMaskIndexTest.
+ */
+public class SubscriptionMaskIndexTest extends SuperUnitTest {
+
+	/**
+	 * Description: Match message masks with and without wildcards<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_MatchTest() throws Exception {
+		SubscriptionMaskIndex index = new SubscriptionMaskIndex();
+		int slotA = index.add(new SubscriptionMask("ABC"));
+		int slotB = index.add(new SubscriptionMask("A%C"));
+		int slotC = index.add(new SubscriptionMask("XYZ"));
+		int slotD = index.add(new SubscriptionMask("ABCD"));
+		BitSet matching = new BitSet();
+		index.match("ABC".getBytes(), matching);
+		Assert.assertTrue(matching.get(slotA));
+		Assert.assertTrue(matching.get(slotB));
+		Assert.assertFalse(matching.get(slotC));
+		Assert.assertFalse(matching.get(slotD));
+		index.match("AXC".getBytes(), matching);
+		Assert.assertFalse(matching.get(slotA));
+		Assert.assertTrue(matching.get(slotB));
+		index.match("%%%".getBytes(), matching);
+		Assert.assertEquals(3, matching.cardinality());
+		index.match("AB".getBytes(), matching);
+		Assert.assertTrue(matching.isEmpty());
+	}
+
+	/**
+	 * Description: Change and remove masks, slots of removed subscriptions get reused<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_ChangeRemoveTest() throws Exception {
+		SubscriptionMaskIndex index = new SubscriptionMaskIndex();
+		int slotA = index.add(new SubscriptionMask("ABC"));
+		long version = index.getVersion();
+		index.change(slotA, new SubscriptionMask("XBC"));
+		Assert.assertTrue(index.getVersion() > version);
+		BitSet matching = new BitSet();
+		index.match("ABC".getBytes(), matching);
+		Assert.assertTrue(matching.isEmpty());
+		index.match("XBC".getBytes(), matching);
+		Assert.assertTrue(matching.get(slotA));
+		index.remove(slotA);
+		Assert.assertEquals(0, index.getSize());
+		index.match("XBC".getBytes(), matching);
+		Assert.assertTrue(matching.isEmpty());
+		Assert.assertEquals(slotA, index.add(new SubscriptionMask("ABC")));
+	}
+
+	/**
+	 * Description: Index delivers the same result as matching every subscription mask<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_CompareWithMaskMatchingTest() throws Exception {
+		Random random = new Random(4711);
+		SubscriptionMaskIndex index = new SubscriptionMaskIndex();
+		SubscriptionMask[] masks = new SubscriptionMask[500];
+		for (int i = 0; i < masks.length; i++) {
+			masks[i] = new SubscriptionMask(this.randomMask(random));
+			Assert.assertEquals(i, index.add(masks[i]));
+		}
+		BitSet matching = new BitSet();
+		for (int i = 0; i < 500; i++) {
+			byte[] msgMask = this.randomMask(random).getBytes();
+			index.match(msgMask, matching);
+			for (int slot = 0; slot < masks.length; slot++) {
+				Assert.assertEquals(masks[slot].matches(msgMask), matching.get(slot));
+			}
+		}
+	}
+
+	/**
+	 * Random mask of signs A, B and %.
+	 *
+	 * @param random the random
+	 * @return the mask
+	 */
+	private String randomMask(Random random) {
+		char[] signs = { 'A', 'B', '%' };
+		char[] mask = new char[4];
+		for (int i = 0; i < mask.length; i++) {
+			mask[i] = signs[random.nextInt(signs.length)];
+		}
+		return new String(mask);
+	}
+}
@@ -0,0 +1,148 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.serviceconnector.net.req.netty.http.NettyWebClient;
+import org.serviceconnector.scmp.ISCMPMessageCallback;
+import org.serviceconnector.scmp.SCMPMessage;
+
+/**
+ * The Class SuperFileExchangeTest. Runs exchanges of a web client with a scripted web server.
+ */
+public abstract class SuperFileExchangeTest extends SuperUnitTest {
+
+	/** The Constant TIMEOUT_MILLIS, operation timeout of exchanges. */
+	protected static final int TIMEOUT_MILLIS = 5000;
+	/** The Constant MAX_IDLE_CONNECTIONS, maximal number of idle connections of the web client. */
+	protected static final int MAX_IDLE_CONNECTIONS = 3;
+	/** The Constant MAX_IDLE_MILLIS, maximal time a connection of the web client stays idle. */
+	protected static final int MAX_IDLE_MILLIS = 1000;
+
+	/** The channel factory. */
+	private NioClientSocketChannelFactory channelFactory;
+	/** The timer. */
+	private HashedWheelTimer timer;
+	/** The web server. */
+	protected ScriptedWebServer webServer;
+	/** The web client. */
+	protected NettyWebClient webClient;
+
+	/** {@inheritDoc} */
+	@Override
+	@Before
+	public void beforeOneTest() throws Exception {
+		super.beforeOneTest();
+		this.channelFactory = new NioClientSocketChannelFactory(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
+		this.timer = new HashedWheelTimer();
+		this.webServer = new ScriptedWebServer();
+		this.webClient = new NettyWebClient(this.channelFactory, this.timer, "localhost", this.webServer.getPort(), 1000, MAX_IDLE_CONNECTIONS,
+				MAX_IDLE_MILLIS);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	@After
+	public void afterOneTest() {
+		this.webClient.destroy();
+		this.webServer.stop();
+		this.timer.stop();
+		this.channelFactory.releaseExternalResources();
+		super.afterOneTest();
+	}
+
+	/**
+	 * Waits until the web client holds the expected number of idle connections. Connections are released by the IO thread after the reply.
+	 *
+	 * @param expected the expected idle connections count
+	 * @throws InterruptedException the interrupted exception
+	 */
+	protected void assertIdleConnections(int expected) throws InterruptedException {
+		this.assertIdleConnections(expected, 1000);
+	}
+
+	/**
+	 * Waits until the web client holds the expected number of idle connections.
+	 *
+	 * @param expected the expected idle connections count
+	 * @param waitMillis the time to wait in milliseconds
+	 * @throws InterruptedException the interrupted exception
+	 */
+	protected void assertIdleConnections(int expected, int waitMillis) throws InterruptedException {
+		for (int i = 0; i < waitMillis / 10 && this.webClient.getIdleConnectionsCount() != expected; i++) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(expected, this.webClient.getIdleConnectionsCount());
+	}
+
+	/**
+	 * The Class ReplyCallback. Collects replies and exceptions of an exchange.
+	 */
+	protected static class ReplyCallback implements ISCMPMessageCallback {
+
+		/** The replies, messages or exceptions. */
+		private BlockingQueue<Object> replies = new LinkedBlockingQueue<Object>();
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(SCMPMessage reply) {
+			this.replies.add(reply);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void receive(Exception ex) {
+			this.replies.add(ex);
+		}
+
+		/**
+		 * Takes the next reply, fails if an exception has been received.
+		 *
+		 * @return the reply
+		 * @throws Exception the exception
+		 */
+		public SCMPMessage takeReply() throws Exception {
+			Object reply = this.replies.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			Assert.assertNotNull("no reply received", reply);
+			if (reply instanceof Exception) {
+				throw (Exception) reply;
+			}
+			return (SCMPMessage) reply;
+		}
+
+		/**
+		 * Takes the next exception, fails if a reply has been received.
+		 *
+		 * @return the exception
+		 * @throws Exception the exception
+		 */
+		public Exception takeException() throws Exception {
+			Object reply = this.replies.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			Assert.assertTrue("exception expected, received " + reply, reply instanceof Exception);
+			return (Exception) reply;
+		}
+	}
+}
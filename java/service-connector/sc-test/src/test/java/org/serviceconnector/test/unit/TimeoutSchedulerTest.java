@@ -0,0 +1,176 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.util.ITimeout;
+import org.serviceconnector.util.TimeoutScheduler;
+import org.serviceconnector.util.TimeoutWrapper;
+
+/**
+ * The Class TimeoutSchedulerTest.
+ */
+public class TimeoutSchedulerTest extends SuperUnitTest {
+
+	/** The scheduler. */
+	private TimeoutScheduler scheduler;
+
+	@Override
+	@Before
+	public void beforeOneTest() throws Exception {
+		super.beforeOneTest();
+		this.scheduler = new TimeoutScheduler("TimeoutSchedulerTest");
+	}
+
+	@Override
+	@After
+	public void afterOneTest() {
+		this.scheduler.shutdownNow();
+		super.afterOneTest();
+	}
+
+	/**
+	 * Description: Schedule timeout and wait until it runs<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_TimeoutRunsTest() throws Exception {
+		TestTimeout testTimeout = new TestTimeout();
+		ScheduledFuture<TimeoutWrapper> future = this.scheduler.schedule(new TimeoutWrapper(testTimeout), 50, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(1, this.scheduler.getPendingTimeouts());
+		Assert.assertTrue("timeout did not run", testTimeout.latch.await(5, TimeUnit.SECONDS));
+		future.get(5, TimeUnit.SECONDS);
+		Assert.assertTrue(future.isDone());
+		Assert.assertEquals(0, this.scheduler.getPendingTimeouts());
+	}
+
+	/**
+	 * Description: Cancel timeouts before they run<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_CancelTimeoutTest() throws Exception {
+		TestTimeout testTimeout = new TestTimeout();
+		for (int i = 0; i < 1000; i++) {
+			ScheduledFuture<TimeoutWrapper> future = this.scheduler.schedule(new TimeoutWrapper(testTimeout), 200, TimeUnit.MILLISECONDS);
+			Assert.assertTrue(future.getDelay(TimeUnit.MILLISECONDS) <= 200);
+			Assert.assertTrue(future.cancel(false));
+		}
+		Assert.assertEquals(0, this.scheduler.getPendingTimeouts());
+		Assert.assertFalse("canceled timeout did run", testTimeout.latch.await(500, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Description: Timeouts run in order of their delay<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_TimeoutOrderTest() throws Exception {
+		TestTimeout lateTimeout = new TestTimeout();
+		TestTimeout earlyTimeout = new TestTimeout();
+		this.scheduler.schedule(new TimeoutWrapper(lateTimeout), 300, TimeUnit.MILLISECONDS);
+		this.scheduler.schedule(new TimeoutWrapper(earlyTimeout), 50, TimeUnit.MILLISECONDS);
+		Assert.assertTrue("timeout did not run", earlyTimeout.latch.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, lateTimeout.latch.getCount());
+		Assert.assertTrue("timeout did not run", lateTimeout.latch.await(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Description: Many timeouts expire at the same time on a scheduler with several threads<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_ExpiredBacklogTest() throws Exception {
+		TimeoutScheduler multiThreadScheduler = new TimeoutScheduler("MultiThreadTimeout", Thread.NORM_PRIORITY, 4);
+		try {
+			final CountDownLatch latch = new CountDownLatch(5000);
+			Runnable countDown = new Runnable() {
+				@Override
+				public void run() {
+					latch.countDown();
+				}
+			};
+			for (int i = 0; i < 5000; i++) {
+				multiThreadScheduler.schedule(countDown, 50, TimeUnit.MILLISECONDS);
+			}
+			Assert.assertTrue("timeouts did not run", latch.await(5, TimeUnit.SECONDS));
+			for (int i = 0; i < 100 && multiThreadScheduler.getExecutedTimeouts() < 5000; i++) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(5000, multiThreadScheduler.getExecutedTimeouts());
+			Assert.assertEquals(0, multiThreadScheduler.getExpiredBacklog());
+			Assert.assertTrue(multiThreadScheduler.getPeakExpiredBacklog() > 0);
+		} finally {
+			multiThreadScheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * Description: Shutting down a scheduler does not affect timeouts of other schedulers sharing the wheel, a scheduler shut down does not schedule
+	 * anymore<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_SharedWheelTest() throws Exception {
+		TimeoutScheduler otherScheduler = new TimeoutScheduler("OtherTimeout");
+		TestTimeout otherTimeout = new TestTimeout();
+		otherScheduler.schedule(new TimeoutWrapper(new TestTimeout()), 5000, TimeUnit.MILLISECONDS);
+		otherScheduler.shutdownNow();
+		otherScheduler.schedule(new TimeoutWrapper(otherTimeout), 50, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(1, otherScheduler.getPendingTimeouts());
+
+		TestTimeout testTimeout = new TestTimeout();
+		this.scheduler.schedule(new TimeoutWrapper(testTimeout), 200, TimeUnit.MILLISECONDS);
+		TimeoutScheduler shortLivedScheduler = new TimeoutScheduler("ShortLivedTimeout");
+		shortLivedScheduler.shutdownNow();
+		// destroying the application context shuts down its own schedulers only
+		AppContext.init();
+		AppContext.destroy();
+		Assert.assertTrue("timeout did not run", testTimeout.latch.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(0, this.scheduler.getPendingTimeouts());
+		Assert.assertFalse("timeout of scheduler shut down did run", otherTimeout.latch.await(100, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * The Class TestTimeout.
+	 */
+	private static class TestTimeout implements ITimeout {
+
+		/** The latch, counted down when timeout runs. */
+		private CountDownLatch latch = new CountDownLatch(1);
+
+		/** {@inheritDoc} */
+		@Override
+		public void timeout() {
+			this.latch.countDown();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int getTimeoutMillis() {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit.scmp;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.EncodingDecodingException;
+import org.serviceconnector.net.IEncoderDecoder;
+import org.serviceconnector.scmp.SCMPCachedMessage;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPOverlayHeader;
+import org.serviceconnector.scmp.SCMPPart;
+import org.serviceconnector.scmp.SCMPVersion;
+
+public class SCMPCachedMessageTest {
+
+	/**
+	 * Description: Message created from cached message shares the body, header modifications do not change the cached message<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_overlayHeaderTest() {
+		SCMPCachedMessage cachedMessage = new SCMPCachedMessage(this.createMessage());
+		SCMPMessage message = cachedMessage.newMessage();
+		Assert.assertSame(cachedMessage.newMessage().getBody(), message.getBody());
+		Assert.assertEquals("cacheId", message.getCacheId());
+
+		message.setServiceName("otherService");
+		message.setSessionId("otherSession");
+		message.setCached();
+		message.removeHeader(SCMPHeaderAttributeKey.CACHE_ID);
+		Assert.assertEquals("otherService", message.getServiceName());
+		Assert.assertTrue(message.isCached());
+		Assert.assertNull(message.getCacheId());
+
+		Assert.assertEquals("service", cachedMessage.getHeader(SCMPHeaderAttributeKey.SERVICE_NAME));
+		Assert.assertEquals("session", cachedMessage.getHeader(SCMPHeaderAttributeKey.SESSION_ID));
+		Assert.assertEquals("cacheId", cachedMessage.getHeader(SCMPHeaderAttributeKey.CACHE_ID));
+		Assert.assertFalse(cachedMessage.newMessage().isCached());
+	}
+
+	/**
+	 * Description: Message created from cached message encodes like a copy of the original message, pre-encoded header is used as long as only
+	 * overlay attributes are modified<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_encodeOverlaidMessageTest() throws Exception {
+		SCMPMessage original = this.createMessage();
+		SCMPCachedMessage cachedMessage = new SCMPCachedMessage(original);
+		SCMPMessage message = cachedMessage.newMessage();
+		message.setServiceName("otherService");
+		message.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, 17);
+		message.setCached();
+		Assert.assertNotNull(((SCMPOverlayHeader) message.getHeader()).getEncodedBase());
+
+		SCMPMessage expected = new SCMPMessage(original);
+		expected.setServiceName("otherService");
+		expected.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, 17);
+		expected.setCached();
+		this.assertEncodedEquals(expected, message);
+
+		// modifying a pre-encoded attribute encodes the header as a whole
+		message.setHeader(SCMPHeaderAttributeKey.CACHE_ID, "otherCacheId");
+		expected.setHeader(SCMPHeaderAttributeKey.CACHE_ID, "otherCacheId");
+		Assert.assertNull(((SCMPOverlayHeader) message.getHeader()).getEncodedBase());
+		this.assertEncodedEquals(expected, message);
+	}
+
+	/**
+	 * Description: Cached part creates parts<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_cachedPartTest() {
+		SCMPPart part = new SCMPPart(SCMPVersion.CURRENT, false, this.createMessage().getHeader());
+		part.setIsReply(true);
+		part.setBody(new byte[] { 1, 2, 3 });
+		SCMPMessage message = new SCMPCachedMessage(part).newMessage();
+		Assert.assertTrue(message.isPart());
+		Assert.assertTrue(message.isReply());
+		Assert.assertEquals(3, message.getBodyLength());
+	}
+
+	/**
+	 * Description: Cached message encoded to bytes decodes to an equal cached message, the encoded header is taken as it is<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_encodeDecodeCachedMessageTest() throws Exception {
+		SCMPCachedMessage cachedMessage = new SCMPCachedMessage(this.createMessage());
+		SCMPCachedMessage decoded = SCMPCachedMessage.decode(cachedMessage.encode());
+		Assert.assertEquals(cachedMessage.getHeader(), decoded.getHeader());
+		Assert.assertArrayEquals(cachedMessage.getEncodedHeader(), decoded.getEncodedHeader());
+		Assert.assertFalse(decoded.isPart());
+		this.assertEncodedEquals(cachedMessage.newMessage(), decoded.newMessage());
+
+		// part with string body and header flag
+		SCMPPart part = new SCMPPart(SCMPVersion.CURRENT, true, this.createMessage().getHeader());
+		part.setHeaderFlag(SCMPHeaderAttributeKey.CACHED);
+		part.setBody("body \u00e4\u20ac");
+		part.setHttpUrlFileQualifier("qualifier");
+		cachedMessage = new SCMPCachedMessage(part);
+		decoded = SCMPCachedMessage.decode(cachedMessage.encode());
+		Assert.assertEquals(cachedMessage.getHeader(), decoded.getHeader());
+		Assert.assertTrue(decoded.isPart());
+		SCMPMessage message = decoded.newMessage();
+		Assert.assertTrue(message.isPollRequest());
+		Assert.assertTrue(message.isCached());
+		Assert.assertEquals("body \u00e4\u20ac", message.getBody());
+		Assert.assertEquals("qualifier", message.getHttpUrlFileQualifier());
+
+		// no body
+		SCMPMessage noBody = this.createMessage();
+		noBody.setBody(null);
+		decoded = SCMPCachedMessage.decode(new SCMPCachedMessage(noBody).encode());
+		Assert.assertNull(decoded.newMessage().getBody());
+	}
+
+	/**
+	 * Description: Decoding truncated bytes fails<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_decodeTruncatedCachedMessageTest() throws Exception {
+		byte[] encoded = new SCMPCachedMessage(this.createMessage()).encode();
+		byte[] truncated = new byte[encoded.length - 1];
+		System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+		try {
+			SCMPCachedMessage.decode(truncated);
+			Assert.fail("EncodingDecodingException expected");
+		} catch (EncodingDecodingException ex) {
+			// expected
+		}
+	}
+
+	/**
+	 * Asserts both messages are encoded with equal headers and bodies.
+	 *
+	 * @param expected the expected message
+	 * @param actual the actual message
+	 * @throws Exception the exception
+	 */
+	private void assertEncodedEquals(SCMPMessage expected, SCMPMessage actual) throws Exception {
+		IEncoderDecoder coder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(expected);
+		ChannelBuffer expectedBuffer = coder.encode(expected);
+		ChannelBuffer actualBuffer = coder.encode(actual);
+		Assert.assertEquals(expectedBuffer.readableBytes(), actualBuffer.readableBytes());
+		SCMPMessage expectedDecoded = (SCMPMessage) coder.decode(expectedBuffer);
+		SCMPMessage actualDecoded = (SCMPMessage) coder.decode(actualBuffer);
+		Assert.assertEquals(expectedDecoded.getHeader(), actualDecoded.getHeader());
+		Assert.assertArrayEquals((byte[]) expectedDecoded.getBody(), (byte[]) actualDecoded.getBody());
+	}
+
+	/**
+	 * Creates the message.
+	 *
+	 * @return the SCMP message
+	 */
+	private SCMPMessage createMessage() {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setIsReply(true);
+		message.setMessageType(SCMPMsgType.CLN_EXECUTE);
+		message.setServiceName("service");
+		message.setSessionId("session");
+		message.setHeader(SCMPHeaderAttributeKey.MESSAGE_SEQUENCE_NR, 1);
+		message.setHeader(SCMPHeaderAttributeKey.CACHE_ID, "cacheId");
+		message.setHeader(SCMPHeaderAttributeKey.CACHE_PARTN_NUMBER, 0);
+		message.setBody(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		return message;
+	}
+}
@@ -0,0 +1,230 @@
+/*-----------------------------------------------------------------------------*
+ *                                                                             *
+ *       Copyright © 2010 STABILIT Informatik AG, Switzerland                  *
+ *                                                                             *
+ *  Licensed under the Apache License, Version 2.0 (the "License");            *
+ *  you may not use this file except in compliance with the License.           *
+ *  You may obtain a copy of the License at                                    *
+ *                                                                             *
+ *  http://www.apache.org/licenses/LICENSE-2.0                                 *
+ *                                                                             *
+ *  Unless required by applicable law or agreed to in writing, software        *
+ *  distributed under the License is distributed on an "AS IS" BASIS,          *
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.   *
+ *  See the License for the specific language governing permissions and        *
+ *  limitations under the License.                                             *
+ *-----------------------------------------------------------------------------*/
+package org.serviceconnector.test.unit.scmp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.serviceconnector.ctx.AppContext;
+import org.serviceconnector.net.IEncoderDecoder;
+import org.serviceconnector.scmp.SCMPHeader;
+import org.serviceconnector.scmp.SCMPHeaderAttributeKey;
+import org.serviceconnector.scmp.SCMPMessage;
+import org.serviceconnector.scmp.SCMPMsgType;
+import org.serviceconnector.scmp.SCMPVersion;
+
+public class SCMPHeaderTest {
+
+	/**
+	 * Description: Known and unknown keys are accessible by key string and by type, header flags are kept with value null<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t01_knownAndUnknownKeysTest() {
+		SCMPHeader header = new SCMPHeader();
+		header.put(SCMPHeaderAttributeKey.SERVICE_NAME.getValue(), "service");
+		header.put(SCMPHeaderAttributeKey.SESSION_ID, "session");
+		header.put("unknownKey", "unknown");
+		header.put(SCMPHeaderAttributeKey.CACHED, null);
+		Assert.assertEquals(4, header.size());
+		Assert.assertEquals("service", header.get(SCMPHeaderAttributeKey.SERVICE_NAME));
+		Assert.assertEquals("session", header.get(SCMPHeaderAttributeKey.SESSION_ID.getValue()));
+		Assert.assertEquals("unknown", header.get("unknownKey"));
+		Assert.assertTrue(header.containsKey(SCMPHeaderAttributeKey.CACHED.getValue()));
+		Assert.assertTrue(header.contains(SCMPHeaderAttributeKey.CACHED));
+		Assert.assertNull(header.get(SCMPHeaderAttributeKey.CACHED));
+		Assert.assertFalse(header.containsKey(SCMPHeaderAttributeKey.MASK.getValue()));
+
+		Map<String, String> expected = new HashMap<String, String>();
+		expected.put(SCMPHeaderAttributeKey.SERVICE_NAME.getValue(), "service");
+		expected.put(SCMPHeaderAttributeKey.SESSION_ID.getValue(), "session");
+		expected.put("unknownKey", "unknown");
+		expected.put(SCMPHeaderAttributeKey.CACHED.getValue(), null);
+		Assert.assertEquals(expected, header);
+		Assert.assertEquals(header, expected);
+		Assert.assertEquals(expected.hashCode(), header.hashCode());
+
+		Assert.assertEquals("session", header.remove(SCMPHeaderAttributeKey.SESSION_ID.getValue()));
+		Assert.assertEquals("unknown", header.remove("unknownKey"));
+		Assert.assertEquals(2, header.size());
+		Assert.assertFalse(header.contains(SCMPHeaderAttributeKey.SESSION_ID));
+		header.clear();
+		Assert.assertTrue(header.isEmpty());
+	}
+
+	/**
+	 * Description: Integer value is parsed once and reparsed after the attribute changed, invalid integer is returned as null<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_intValueTest() {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, 1000);
+		Integer first = message.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT);
+		Assert.assertEquals(1000, first.intValue());
+		Assert.assertSame(first, message.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT));
+		message.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, 2000);
+		Assert.assertEquals(2000, message.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT).intValue());
+		message.getHeader().put(SCMPHeaderAttributeKey.OPERATION_TIMEOUT.getValue(), "3000");
+		Assert.assertEquals(3000, message.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT).intValue());
+		message.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, "abc");
+		Assert.assertNull(message.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT));
+		message.removeHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT);
+		Assert.assertNull(message.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT));
+	}
+
+	/**
+	 * Description: Copied header is independent of the source header<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_copyTest() {
+		SCMPHeader header = new SCMPHeader();
+		header.put(SCMPHeaderAttributeKey.SERVICE_NAME, "service");
+		header.put("unknownKey", "unknown");
+		SCMPHeader copy = new SCMPHeader(header);
+		Assert.assertEquals(header, copy);
+		copy.put(SCMPHeaderAttributeKey.SERVICE_NAME, "otherService");
+		copy.put("unknownKey", "otherUnknown");
+		copy.put(SCMPHeaderAttributeKey.MASK, "mask");
+		Assert.assertEquals("service", header.get(SCMPHeaderAttributeKey.SERVICE_NAME));
+		Assert.assertEquals("unknown", header.get("unknownKey"));
+		Assert.assertFalse(header.contains(SCMPHeaderAttributeKey.MASK));
+		Assert.assertEquals(header, new SCMPHeader(new HashMap<String, String>(header)));
+	}
+
+	/**
+	 * Description: Entry set iterates all attributes, removes and writes through to the header<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t04_entrySetTest() {
+		SCMPHeader header = new SCMPHeader();
+		header.put(SCMPHeaderAttributeKey.SERVICE_NAME, "service");
+		header.put(SCMPHeaderAttributeKey.SESSION_ID, "session");
+		header.put("unknownKey", "unknown");
+		int count = 0;
+		Iterator<Entry<String, String>> iterator = header.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<String, String> entry = iterator.next();
+			count++;
+			if (entry.getKey().equals(SCMPHeaderAttributeKey.SESSION_ID.getValue())) {
+				iterator.remove();
+			} else if (entry.getKey().equals(SCMPHeaderAttributeKey.SERVICE_NAME.getValue())) {
+				entry.setValue("otherService");
+			}
+		}
+		Assert.assertEquals(3, count);
+		Assert.assertEquals(2, header.size());
+		Assert.assertEquals("otherService", header.get(SCMPHeaderAttributeKey.SERVICE_NAME));
+		Assert.assertFalse(header.contains(SCMPHeaderAttributeKey.SESSION_ID));
+		Assert.assertEquals("unknown", header.get("unknownKey"));
+	}
+
+	/**
+	 * Description: Message header is encoded and decoded unchanged<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t05_encodeDecodeTest() throws Exception {
+		SCMPMessage message = new SCMPMessage(SCMPVersion.CURRENT);
+		message.setMessageType(SCMPMsgType.CLN_EXECUTE);
+		message.setServiceName("service");
+		message.setSessionId("session");
+		message.setHeader(SCMPHeaderAttributeKey.OPERATION_TIMEOUT, 1000);
+		message.setHeaderFlag(SCMPHeaderAttributeKey.CACHED);
+		message.setHeader("unknownKey", "unknown");
+		message.setBody("body");
+		IEncoderDecoder coder = AppContext.getEncoderDecoderFactory().createEncoderDecoder(message);
+		ChannelBuffer buffer = coder.encode(message);
+		SCMPMessage decoded = (SCMPMessage) coder.decode(buffer);
+		Map<String, String> expected = new HashMap<String, String>(message.getHeader());
+		Assert.assertEquals(expected, decoded.getHeader());
+		Assert.assertTrue(decoded.getHeader() instanceof SCMPHeader);
+		Assert.assertEquals(1000, decoded.getHeaderInt(SCMPHeaderAttributeKey.OPERATION_TIMEOUT).intValue());
+		Assert.assertTrue(decoded.isCached());
+		Assert.assertEquals("body", decoded.getBody());
+	}
+
+	/**
+	 * Description: Attributes are iterated in the same order as a HashMap holding them, also after growing, removing and copying<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t06_hashMapOrderTest() {
+		SCMPHeader header = new SCMPHeader();
+		Map<String, String> expected = new HashMap<String, String>();
+		SCMPHeaderAttributeKey[] keys = SCMPHeaderAttributeKey.values();
+		for (int i = 0; i < keys.length; i += 2) {
+			header.put(keys[i].getValue(), "value" + i);
+			expected.put(keys[i].getValue(), "value" + i);
+			header.put("unknownKey" + i, null);
+			expected.put("unknownKey" + i, null);
+			Assert.assertEquals(new ArrayList<Entry<String, String>>(expected.entrySet()), new ArrayList<Entry<String, String>>(header.entrySet()));
+		}
+		for (int i = 0; i < keys.length; i += 4) {
+			header.remove(keys[i].getValue());
+			expected.remove(keys[i].getValue());
+		}
+		Assert.assertEquals(new ArrayList<Entry<String, String>>(expected.entrySet()), new ArrayList<Entry<String, String>>(header.entrySet()));
+		Map<String, String> expectedCopy = new HashMap<String, String>(expected);
+		Assert.assertEquals(new ArrayList<Entry<String, String>>(expectedCopy.entrySet()),
+				new ArrayList<Entry<String, String>>(new SCMPHeader(header).entrySet()));
+		Assert.assertEquals(new ArrayList<Entry<String, String>>(expectedCopy.entrySet()),
+				new ArrayList<Entry<String, String>>(new SCMPHeader(expected).entrySet()));
+		// changed values are visible through the kept order
+		header.put(keys[2].getValue(), "changed");
+		expected.put(keys[2].getValue(), "changed");
+		Assert.assertEquals(new ArrayList<Entry<String, String>>(expected.entrySet()), new ArrayList<Entry<String, String>>(header.entrySet()));
+	}
+
+	/**
+	 * Description: Iterator removes known and unknown attributes, header is empty afterwards<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t07_iteratorRemoveTest() {
+		SCMPHeader header = new SCMPHeader();
+		header.put(SCMPHeaderAttributeKey.SERVICE_NAME, "service");
+		header.put("unknownKey1", "unknown");
+		header.put(SCMPHeaderAttributeKey.CACHED, null);
+		header.put("unknownKey2", null);
+		Iterator<Entry<String, String>> iterator = header.entrySet().iterator();
+		int count = 0;
+		while (iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			count++;
+		}
+		Assert.assertEquals(4, count);
+		Assert.assertTrue(header.isEmpty());
+		Assert.assertFalse(header.entrySet().iterator().hasNext());
+		try {
+			iterator.next();
+			Assert.fail("NoSuchElementException expected");
+		} catch (NoSuchElementException ex) {
+			// expected
+		}
+	}
+}
@@ -70,4 +70,25 @@ public class SCMPLargeRequestTest {
 		Assert.assertEquals(firstPart.getBodyOffset(), message.getBodyOffset());
 		Assert.assertEquals(firstPart.getBodyType(), message.getBodyType());
 	}
+
+	/**
+	 * Description: Next part is known to be the last one before it gets split off<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_NextPartLastTest() {
+		SCMPMessage largeScmp = new SCMPMessage(SCMPVersion.CURRENT);
+		largeScmp.setPartSize(10);
+		largeScmp.setBody(new byte[25]);
+
+		SCMPCompositeSender largeRequest = new SCMPCompositeSender(largeScmp);
+		Assert.assertTrue(largeRequest.getFirst().isPart());
+		Assert.assertFalse(largeRequest.isNextPartLast());
+		Assert.assertTrue(largeRequest.getNext().isPart());
+		Assert.assertTrue(largeRequest.isNextPartLast());
+		SCMPMessage lastPart = largeRequest.getNext();
+		Assert.assertFalse(lastPart.isPart());
+		Assert.assertEquals(5, lastPart.getBodyLength());
+		Assert.assertFalse(largeRequest.hasNext());
+	}
 }
@@ -16,6 +16,10 @@
  *-----------------------------------------------------------------------------*/
 package org.serviceconnector.test.unit.scmp;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
 import org.junit.Test;
 import org.serviceconnector.scmp.SCMPBodyType;
 import org.serviceconnector.scmp.SCMPCompositeReceiver;
@@ -75,4 +79,79 @@ public class SCMPLargeResponseTest {
 		Assert.assertEquals(body.toString(), largeResponse.getBody() + "");
 		Assert.assertEquals(request.getHeader(), largeResponse.getPollMessage().getHeader());
 	}
+
+	/**
+	 * Description: SCMP large response read as stream, parts are not put together<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t02_SCMPLargeResponseAsStreamTest() throws Exception {
+		SCMPCompositeReceiver largeResponse = this.createLargeResponse();
+		Assert.assertEquals(40, largeResponse.getBodyLength());
+
+		InputStream bodyStream = largeResponse.getBodyAsStream();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[7];
+		int readBytes = 0;
+		while ((readBytes = bodyStream.read(buffer)) != -1) {
+			body.write(buffer, 0, readBytes);
+		}
+		Assert.assertTrue(Arrays.equals(this.createBody(40), body.toByteArray()));
+		Assert.assertEquals(-1, bodyStream.read());
+	}
+
+	/**
+	 * Description: SCMP large response streamed to part stream as parts arrive<br>
+	 * Expectation: passes
+	 */
+	@Test
+	public void t03_SCMPLargeResponsePartStreamTest() throws Exception {
+		SCMPCompositeReceiver largeResponse = this.createLargeResponse();
+		byte[] mergedBody = (byte[]) largeResponse.getBody();
+		Assert.assertTrue(Arrays.equals(this.createBody(40), mergedBody));
+
+		ByteArrayOutputStream partStream = new ByteArrayOutputStream();
+		largeResponse.setPartStream(partStream);
+		Assert.assertEquals(40, partStream.size());
+		SCMPPart part = new SCMPPart(SCMPVersion.CURRENT);
+		part.setBody(new byte[] { 40, 41 });
+		largeResponse.add(part);
+		Assert.assertTrue(Arrays.equals(this.createBody(42), partStream.toByteArray()));
+		Assert.assertEquals(42, largeResponse.getBodyLength());
+		Assert.assertNull(largeResponse.getPartStreamException());
+	}
+
+	/**
+	 * Creates the large response of four parts with body bytes 0 to 39.
+	 *
+	 * @return the SCMP composite receiver
+	 */
+	private SCMPCompositeReceiver createLargeResponse() {
+		SCMPMessage request = new SCMPMessage(SCMPVersion.CURRENT);
+		request.setMessageType(SCMPMsgType.CLN_EXECUTE);
+		byte[] body = this.createBody(40);
+		SCMPPart firstPart = new SCMPPart(SCMPVersion.CURRENT, false);
+		firstPart.setBody(Arrays.copyOfRange(body, 0, 10));
+		SCMPCompositeReceiver largeResponse = new SCMPCompositeReceiver(request, firstPart);
+		for (int i = 10; i < body.length; i += 10) {
+			SCMPPart part = new SCMPPart(SCMPVersion.CURRENT);
+			part.setBody(Arrays.copyOfRange(body, i, i + 10));
+			largeResponse.add(part);
+		}
+		return largeResponse;
+	}
+
+	/**
+	 * Creates the body.
+	 *
+	 * @param length the length
+	 * @return the body
+	 */
+	private byte[] createBody(int length) {
+		byte[] body = new byte[length];
+		for (int i = 0; i < length; i++) {
+			body[i] = (byte) i;
+		}
+		return body;
+	}
 }
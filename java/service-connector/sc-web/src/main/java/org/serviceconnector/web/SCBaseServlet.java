@@ -618,7 +618,6 @@ public abstract class SCBaseServlet extends HttpServlet {
 	/**
 	 * Trigger server timeout.
 	 */
-	@SuppressWarnings("unchecked")
 	private void triggerServerTimeout() {
 		if (this.checkRegistrationIntervalSeconds == 0) {
 			// check registration interval not active
@@ -626,7 +625,7 @@ public abstract class SCBaseServlet extends HttpServlet {
 		}
 		SCServerTimeout serverTimeout = new SCServerTimeout();
 		TimeoutWrapper timeoutWrapper = new TimeoutWrapper(serverTimeout);
-		this.serverTimeout = (ScheduledFuture<TimeoutWrapper>) AppContext.eci_cri_Scheduler.schedule(timeoutWrapper,
+		this.serverTimeout = AppContext.eci_cri_Scheduler.schedule(timeoutWrapper,
 				this.checkRegistrationIntervalSeconds * Constants.SEC_TO_MILLISEC_FACTOR, TimeUnit.MILLISECONDS);
 	}
 
@@ -641,8 +640,6 @@ public abstract class SCBaseServlet extends HttpServlet {
 			return;
 		}
 		SCBaseServlet.this.serverTimeout.cancel(mayInterruptIfRunning);
-		// removes canceled timeouts
-		AppContext.eci_cri_Scheduler.purge();
 	}
 
 	@Override